@@ -0,0 +1,62 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.ringsearch.AllRingsFinder;
+import org.openscience.cdk.ringsearch.PathLimitExceededException;
+
+/**
+ * Compares the search of the {@link AllRingsFinder} with a timeout and with
+ * a path limit over the molecules of an SD file, and reports the molecules
+ * for which they find a different number of rings.
+ *
+ * Usage: java PerfAllRingsFinder file.sdf [pathLimit] [maxRingSize]
+ */
+public class PerfAllRingsFinder {
+
+	public static void main(String[] args) throws Exception {
+		int pathLimit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		Integer maxRingSize = args.length > 2 ? Integer.valueOf(args[2]) : null;
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) molecules.add((IAtomContainer) reader.next());
+		reader.close();
+
+		for (int pass = 0; pass < 3; pass++) {
+			long timeoutTime = 0, limitTime = 0;
+			int timeouts = 0, exceeded = 0, different = 0;
+			for (int i = 0; i < molecules.size(); i++) {
+				IAtomContainer molecule = molecules.get(i);
+				int expected = -1, found = -1;
+				long startTime = System.nanoTime();
+				try {
+					expected = new AllRingsFinder(false).findAllRings(molecule, maxRingSize).getAtomContainerCount();
+				} catch (CDKException e) {
+					timeouts++;
+				}
+				timeoutTime += System.nanoTime() - startTime;
+
+				startTime = System.nanoTime();
+				try {
+					found = new AllRingsFinder(false).setPathLimit(pathLimit)
+						.findAllRings(molecule, maxRingSize).getAtomContainerCount();
+				} catch (PathLimitExceededException e) {
+					exceeded++;
+				}
+				limitTime += System.nanoTime() - startTime;
+				if (expected >= 0 && found >= 0 && expected != found) {
+					different++;
+					if (pass == 0) System.out.println("molecule " + i + ": " + expected + " rings with timeout, " + found + " with path limit");
+				}
+			}
+			System.out.println("timeout: " + (timeoutTime / 1000000) + " ms (" + timeouts + " timeouts), path limit: "
+				+ (limitTime / 1000000) + " ms (" + exceeded + " exceeded), " + different + " different");
+		}
+	}
+}
@@ -0,0 +1,72 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.atomtype.CDKAtomTypeMatcher;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+
+/**
+ * Measures the perception of the CDK atom types of the molecules of an SD
+ * file with {@link CDKAtomTypeMatcher#findMatchingAtomType(IAtomContainer)},
+ * in one thread and in several threads sharing the matcher, and atom by atom
+ * with {@link CDKAtomTypeMatcher#findMatchingAtomType(IAtomContainer, IAtom)}.
+ *
+ * Usage: java PerfAtomTypeMatcher file.sdf [passes] [threads]
+ */
+public class PerfAtomTypeMatcher {
+
+	public static void main(String[] args) throws Exception {
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int threadCount = args.length > 2 ? Integer.parseInt(args[2])
+			: Runtime.getRuntime().availableProcessors();
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		final List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) molecules.add((IAtomContainer) reader.next());
+		reader.close();
+		final CDKAtomTypeMatcher matcher = CDKAtomTypeMatcher.getInstance(
+			DefaultChemObjectBuilder.getInstance()
+		);
+
+		for (int pass = 0; pass <= passes; pass++) {
+			long startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) matcher.findMatchingAtomType(molecule);
+			long single = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) {
+				for (IAtom atom : molecule.atoms()) matcher.findMatchingAtomType(molecule, atom);
+			}
+			long perAtom = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			Thread[] threads = new Thread[threadCount];
+			for (int t = 0; t < threadCount; t++) {
+				final int first = t;
+				final int step = threadCount;
+				threads[t] = new Thread() {
+					public void run() {
+						try {
+							for (int i = first; i < molecules.size(); i += step)
+								matcher.findMatchingAtomType(molecules.get(i));
+						} catch (Exception e) {
+							e.printStackTrace();
+						}
+					}
+				};
+				threads[t].start();
+			}
+			for (Thread thread : threads) thread.join();
+			long multi = System.nanoTime() - startTime;
+			if (pass == 0) continue; // warm up
+			int n = molecules.size();
+			System.out.println("1 thread: " + (single / n / 1000) + " us, " + threadCount
+				+ " threads: " + (multi / n / 1000) + " us, atom by atom: "
+				+ (perAtom / n / 1000) + " us per molecule");
+		}
+	}
+}
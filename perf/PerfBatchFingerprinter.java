@@ -0,0 +1,60 @@
+import java.io.FileInputStream;
+import java.io.StringWriter;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.fingerprint.BatchFingerprinter;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+import org.openscience.cdk.fingerprint.PubchemFingerprinter;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+
+/**
+ * Compares the time needed by {@link BatchFingerprinter} to fingerprint the
+ * molecules of an SD file with one and with several threads.
+ *
+ * Usage: java PerfBatchFingerprinter file.sdf [threads] [passes]
+ */
+public class PerfBatchFingerprinter {
+
+	private final String filename;
+
+	public PerfBatchFingerprinter(String filename) {
+		this.filename = filename;
+	}
+
+	public long run(int threads) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(filename), DefaultChemObjectBuilder.getInstance(), true
+		);
+		BatchFingerprinter batch = new BatchFingerprinter(
+			new BatchFingerprinter.FingerprinterFactory() {
+				public IFingerprinter newFingerprinter() {
+					return new PubchemFingerprinter();
+				}
+			}, threads
+		);
+		batch.setPerceiveAtomTypes(true);
+		long startTime = System.nanoTime();
+		int count = batch.write(reader, new StringWriter());
+		long endTime = System.nanoTime();
+		reader.close();
+		System.out.println(threads + " thread(s): " + count + " molecules, "
+			+ ((endTime - startTime) / 1000000) + " ms");
+		return endTime - startTime;
+	}
+
+	public static void main(String[] args) throws Exception {
+		PerfBatchFingerprinter test = new PerfBatchFingerprinter(args[0]);
+		int threads = args.length > 1 ? Integer.parseInt(args[1])
+		                               : Runtime.getRuntime().availableProcessors();
+		int passes = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+		// warm up
+		test.run(1);
+		test.run(threads);
+		long single = 0, parallel = 0;
+		for (int i = 0; i < passes; i++) {
+			single   += test.run(1);
+			parallel += test.run(threads);
+		}
+		System.out.println("Speed up: " + ((double) single / parallel));
+	}
+}
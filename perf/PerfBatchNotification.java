@@ -0,0 +1,64 @@
+import java.io.FileInputStream;
+
+import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.tools.CDKHydrogenAdder;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Compares atom typing and hydrogen adding on the molecules of an SD file
+ * with and without {@link AtomContainer#beginBatch()}.
+ *
+ * Usage: java PerfBatchNotification file.sdf [passes]
+ */
+public class PerfBatchNotification {
+
+	private final String filename;
+	private final CDKHydrogenAdder adder =
+		CDKHydrogenAdder.getInstance(DefaultChemObjectBuilder.getInstance());
+
+	public PerfBatchNotification(String filename) {
+		this.filename = filename;
+	}
+
+	public long run(boolean batch) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(filename), DefaultChemObjectBuilder.getInstance(), true
+		);
+		long startTime = System.nanoTime();
+		int count = 0;
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			if (batch) ((AtomContainer) molecule).beginBatch();
+			try {
+				AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+				adder.addImplicitHydrogens(molecule);
+				AtomContainerManipulator.convertImplicitToExplicitHydrogens(molecule);
+			} finally {
+				if (batch) ((AtomContainer) molecule).endBatch();
+			}
+			count++;
+		}
+		reader.close();
+		long endTime = System.nanoTime();
+		System.out.println((batch ? "batch:  " : "normal: ") + count + " molecules, "
+			+ ((endTime - startTime) / 1000000) + " ms");
+		return endTime - startTime;
+	}
+
+	public static void main(String[] args) throws Exception {
+		PerfBatchNotification test = new PerfBatchNotification(args[0]);
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		// warm up
+		test.run(false);
+		test.run(true);
+		long normal = 0, batch = 0;
+		for (int i = 0; i < passes; i++) {
+			normal += test.run(false);
+			batch  += test.run(true);
+		}
+		System.out.println("Speed up: " + ((double) normal / batch));
+	}
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.openscience.cdk.fingerprint.ICountFingerprint;
+import org.openscience.cdk.fingerprint.IntArrayCountFingerprint;
+import org.openscience.cdk.similarity.CountFingerprintDatabase;
+import org.openscience.cdk.similarity.CountFingerprintSimilarity;
+import org.openscience.cdk.similarity.Tanimoto;
+
+/**
+ * Compares Tanimoto searches of {@link CountFingerprintDatabase} with calling
+ * {@link Tanimoto#calculate(Map, Map)} and
+ * {@link Tanimoto#calculate(ICountFingerprint, ICountFingerprint)} for every
+ * fingerprint, on random count fingerprints of up to 200 features.
+ *
+ * Usage: java PerfCountFingerprintDatabase [fingerprints] [queries] [threads]
+ */
+public class PerfCountFingerprintDatabase {
+
+	public static void main(String[] args) throws Exception {
+		int count   = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		Random random = new Random(1);
+		List<Map<String, Integer>> features = new ArrayList<Map<String, Integer>>();
+		List<ICountFingerprint> fingerprints = new ArrayList<ICountFingerprint>();
+		CountFingerprintDatabase database = new CountFingerprintDatabase();
+		database.setNumberOfThreads(threads);
+		for (int i = 0; i < count; i++) {
+			Map<String, Integer> map = new HashMap<String, Integer>();
+			int n = 20 + random.nextInt(180);
+			for (int k = 0; k < n; k++) map.put("f" + random.nextInt(2000), 1 + random.nextInt(8));
+			ICountFingerprint fingerprint = new IntArrayCountFingerprint(map);
+			features.add(map);
+			fingerprints.add(fingerprint);
+			database.add(fingerprint);
+		}
+
+		for (int pass = 0; pass < 2; pass++) {
+			long startTime = System.nanoTime();
+			int hits = 0;
+			for (int q = 0; q < queries; q++)
+				for (Map<String, Integer> map : features)
+					if (Tanimoto.calculate(features.get(q), map) >= 0.5) hits++;
+			long maps = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (int q = 0; q < queries; q++)
+				for (ICountFingerprint fingerprint : fingerprints)
+					if (Tanimoto.calculate(fingerprints.get(q), fingerprint) >= 0.5) hits++;
+			long pairs = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			int found = 0;
+			for (int q = 0; q < queries; q++)
+				found += database.search(fingerprints.get(q), CountFingerprintSimilarity.TANIMOTO, 0.5).size();
+			long threshold = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (int q = 0; q < queries; q++)
+				database.searchTop(fingerprints.get(q), CountFingerprintSimilarity.TANIMOTO, 10);
+			long top = System.nanoTime() - startTime;
+
+			System.out.println("maps: " + maps / 1000000 + " ms, pairs: " + pairs / 1000000
+				+ " ms (" + hits + " hits), threshold 0.5: " + threshold / 1000000 + " ms ("
+				+ found + " hits), top 10: " + top / 1000000 + " ms");
+		}
+	}
+}
@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openscience.cdk.fingerprint.BitSetFingerprint;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.similarity.FingerprintDatabase;
+import org.openscience.cdk.similarity.Tanimoto;
+
+/**
+ * Compares threshold and top-k searches of {@link FingerprintDatabase} with
+ * calling {@link Tanimoto#calculate(IBitFingerprint, IBitFingerprint)} for
+ * every fingerprint, on random 1024 bit fingerprints.
+ *
+ * Usage: java PerfFingerprintDatabase [fingerprints] [queries] [threads]
+ */
+public class PerfFingerprintDatabase {
+
+	public static void main(String[] args) throws Exception {
+		int count   = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		Random random = new Random(1);
+		List<IBitFingerprint> fingerprints = new ArrayList<IBitFingerprint>();
+		FingerprintDatabase database = new FingerprintDatabase(1024);
+		database.setNumberOfThreads(threads);
+		for (int i = 0; i < count; i++) {
+			IBitFingerprint fingerprint = new BitSetFingerprint(1024);
+			int bits = 20 + random.nextInt(300);
+			for (int k = 0; k < bits; k++) fingerprint.set(random.nextInt(1024));
+			fingerprints.add(fingerprint);
+			database.add(fingerprint);
+		}
+
+		for (int pass = 0; pass < 2; pass++) {
+			long startTime = System.nanoTime();
+			int hits = 0;
+			for (int q = 0; q < queries; q++) {
+				IBitFingerprint query = fingerprints.get(q);
+				for (IBitFingerprint fingerprint : fingerprints)
+					if (Tanimoto.calculate(query, fingerprint) >= 0.8) hits++;
+			}
+			long naive = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			int found = 0;
+			for (int q = 0; q < queries; q++) found += database.search(fingerprints.get(q), 0.8).size();
+			long threshold = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (int q = 0; q < queries; q++) database.searchTop(fingerprints.get(q), 10);
+			long top = System.nanoTime() - startTime;
+
+			System.out.println("naive: " + naive / 1000000 + " ms (" + hits + " hits), "
+				+ "threshold 0.8: " + threshold / 1000000 + " ms (" + found + " hits), "
+				+ "top 10: " + top / 1000000 + " ms");
+		}
+	}
+}
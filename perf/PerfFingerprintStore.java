@@ -0,0 +1,45 @@
+import java.io.File;
+import java.util.Random;
+
+import org.openscience.cdk.fingerprint.BitSetFingerprint;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.similarity.FingerprintStore;
+import org.openscience.cdk.similarity.FingerprintStoreWriter;
+
+/**
+ * Writes random 1024 bit fingerprints to a {@link FingerprintStoreWriter}
+ * and measures how long it takes to open the store and run a first search.
+ *
+ * Usage: java PerfFingerprintStore file [fingerprints]
+ */
+public class PerfFingerprintStore {
+
+	public static void main(String[] args) throws Exception {
+		File file = new File(args[0]);
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		Random random = new Random(1);
+		long startTime = System.nanoTime();
+		FingerprintStoreWriter writer = new FingerprintStoreWriter(file, new Fingerprinter());
+		IBitFingerprint query = null;
+		for (int i = 0; i < count; i++) {
+			IBitFingerprint fingerprint = new BitSetFingerprint(1024);
+			int bits = 20 + random.nextInt(300);
+			for (int k = 0; k < bits; k++) fingerprint.set(random.nextInt(1024));
+			writer.write(fingerprint, "mol" + i);
+			if (i == count / 2) query = fingerprint;
+		}
+		writer.close();
+		System.out.println("write: " + (System.nanoTime() - startTime) / 1000000 + " ms, "
+			+ file.length() / (1 << 20) + " MB");
+
+		startTime = System.nanoTime();
+		FingerprintStore store = FingerprintStore.open(file);
+		long opened = System.nanoTime();
+		int hits = store.getDatabase().searchTop(query, 10).size();
+		long searched = System.nanoTime();
+		System.out.println("open: " + (opened - startTime) / 1000000 + " ms, "
+			+ "first top 10 search: " + (searched - opened) / 1000000 + " ms (" + hits + " hits)");
+		file.delete();
+	}
+}
@@ -0,0 +1,40 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+
+/**
+ * Measures the time {@link Fingerprinter} needs for the molecules of an SD
+ * file. The molecules are read once and kept in memory.
+ *
+ * Usage: java PerfFingerprinter file.sdf [passes]
+ */
+public class PerfFingerprinter {
+
+	public static void main(String[] args) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) molecules.add((IAtomContainer) reader.next());
+		reader.close();
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Fingerprinter fingerprinter = new Fingerprinter();
+		// warm up
+		for (IAtomContainer molecule : molecules) fingerprinter.getBitFingerprint(molecule);
+		long total = 0;
+		for (int i = 0; i < passes; i++) {
+			long startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) fingerprinter.getBitFingerprint(molecule);
+			long endTime = System.nanoTime();
+			total += endTime - startTime;
+		}
+		System.out.println(molecules.size() + " molecules, "
+			+ (total / passes / 1000000) + " ms per pass");
+	}
+}
@@ -0,0 +1,148 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
+import org.openscience.cdk.isomorphism.mcss.RMap;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Compares the {@link UniversalIsomorphismTester} and the
+ * {@link VF2IsomorphismTester} on the molecules of an SD file, for a set of
+ * fragments given as SMILES. Both engines test each fragment against each
+ * molecule with isSubgraph, and count the unique matches of the fragments
+ * that are found. The time of each engine is printed, with the number of
+ * hits and the number of tests on which the engines disagree.
+ *
+ * Usage: java PerfIsomorphismTesters file.sdf [passes] [smiles...]
+ */
+public class PerfIsomorphismTesters {
+
+	private static final String[] FRAGMENTS = {
+		"CC", "C=O", "CO", "CN", "C#N", "CCO", "CC=O", "OC=O", "NC=O", "CCCC",
+		"CC(C)C", "CC(C)(C)C", "C=CC=C", "CC(=O)O", "CC(=O)N", "c1ccccc1", "c1ccncc1",
+		"c1ccoc1", "c1ccsc1", "c1cc[nH]c1", "C1CCCCC1", "C1CCCC1", "C1CC1", "C1CCC2CCCCC2C1",
+		"c1ccc2ccccc2c1", "c1ccc2[nH]ccc2c1", "Oc1ccccc1", "Nc1ccccc1", "Clc1ccccc1", "CS(=O)(=O)N"
+	};
+
+	public static void main(String[] args) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+			CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+			molecules.add(molecule);
+		}
+		reader.close();
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		String[] smiles = FRAGMENTS;
+		if (args.length > 2) {
+			smiles = new String[args.length - 2];
+			System.arraycopy(args, 2, smiles, 0, smiles.length);
+		}
+		SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+		List<IAtomContainer> fragments = new ArrayList<IAtomContainer>();
+		for (String fragment : smiles) {
+			IAtomContainer query = sp.parseSmiles(fragment);
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(query);
+			CDKHueckelAromaticityDetector.detectAromaticity(query);
+			fragments.add(query);
+		}
+
+		UniversalIsomorphismTester uit = new UniversalIsomorphismTester();
+		VF2IsomorphismTester vf2 = new VF2IsomorphismTester();
+		int tests = molecules.size() * fragments.size();
+		boolean[] uitHits = new boolean[tests], vf2Hits = new boolean[tests];
+		int[] uitCounts = new int[tests], vf2Counts = new int[tests];
+
+		long uitSubgraph = 0, vf2Subgraph = 0, uitUnique = 0, vf2Unique = 0;
+		// the first pass warms up
+		for (int pass = 0; pass <= passes; pass++) {
+			long startTime = System.nanoTime();
+			int test = 0;
+			for (IAtomContainer molecule : molecules)
+				for (IAtomContainer fragment : fragments)
+					uitHits[test++] = uit.isSubgraph(molecule, fragment);
+			if (pass > 0) uitSubgraph += System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			test = 0;
+			for (IAtomContainer molecule : molecules)
+				for (IAtomContainer fragment : fragments)
+					vf2Hits[test++] = vf2.isSubgraph(molecule, fragment);
+			if (pass > 0) vf2Subgraph += System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			test = 0;
+			for (IAtomContainer molecule : molecules)
+				for (IAtomContainer fragment : fragments) {
+					if (uitHits[test]) uitCounts[test] = uniqueMatches(uit, molecule, fragment);
+					test++;
+				}
+			if (pass > 0) uitUnique += System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			test = 0;
+			for (IAtomContainer molecule : molecules)
+				for (IAtomContainer fragment : fragments) {
+					if (vf2Hits[test]) vf2Counts[test] = vf2.getUniqueSubgraphAtomsMaps(molecule, fragment).size();
+					test++;
+				}
+			if (pass > 0) vf2Unique += System.nanoTime() - startTime;
+		}
+
+		int uitHitCount = 0, vf2HitCount = 0, hitDifferences = 0, countDifferences = 0;
+		for (int test = 0; test < tests; test++) {
+			if (uitHits[test]) uitHitCount++;
+			if (vf2Hits[test]) vf2HitCount++;
+			if (uitHits[test] != vf2Hits[test]) {
+				hitDifferences++;
+				System.out.println("isSubgraph differs: molecule " + (test / fragments.size())
+					+ ", " + smiles[test % fragments.size()] + ": " + uitHits[test] + " " + vf2Hits[test]);
+			} else if (uitCounts[test] != vf2Counts[test]) {
+				countDifferences++;
+				System.out.println("unique matches differ: molecule " + (test / fragments.size())
+					+ ", " + smiles[test % fragments.size()] + ": " + uitCounts[test] + " " + vf2Counts[test]);
+			}
+		}
+		System.out.println(molecules.size() + " molecules, " + fragments.size() + " fragments");
+		System.out.println("isSubgraph:     UIT " + (uitSubgraph / passes / 1000000) + " ms, VF2 "
+			+ (vf2Subgraph / passes / 1000000) + " ms, hits " + uitHitCount + " " + vf2HitCount);
+		System.out.println("unique matches: UIT " + (uitUnique / passes / 1000000) + " ms, VF2 "
+			+ (vf2Unique / passes / 1000000) + " ms");
+		System.out.println("differences:    " + hitDifferences + " hits, " + countDifferences + " counts");
+	}
+
+	/**
+	 * The number of distinct sets of atoms of the molecule the fragment maps
+	 * to, from the bond mappings of the UniversalIsomorphismTester, as the
+	 * SMARTSQueryTool counts them.
+	 */
+	private static int uniqueMatches(UniversalIsomorphismTester uit, IAtomContainer molecule,
+	                                 IAtomContainer fragment) throws Exception {
+		Set<BitSet> atomSets = new HashSet<BitSet>();
+		for (List<RMap> map : uit.getSubgraphMaps(molecule, fragment)) {
+			BitSet atoms = new BitSet();
+			for (RMap rmap : map) {
+				IBond bond = molecule.getBond(rmap.getId1());
+				atoms.set(molecule.getAtomNumber(bond.getAtom(0)));
+				atoms.set(molecule.getAtomNumber(bond.getAtom(1)));
+			}
+			atomSets.add(atoms);
+		}
+		return atomSets.size();
+	}
+}
@@ -0,0 +1,86 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.fingerprint.BatchFingerprinter;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+import org.openscience.cdk.fingerprint.PubchemFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Measures the time per molecule {@link PubchemFingerprinter} needs for the
+ * molecules of an SD file, first on the calling thread for molecules kept
+ * in memory, then streamed from the file through a {@link BatchFingerprinter}
+ * with the given number of threads. The number of set bits and a hash of the
+ * fingerprints are printed as a check that the fingerprints do not change.
+ *
+ * Usage: java PerfPubchemFingerprinter file.sdf [passes] [threads]
+ */
+public class PerfPubchemFingerprinter {
+
+	public static void main(String[] args) throws Exception {
+		int passes  = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+			CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+			molecules.add(molecule);
+		}
+		reader.close();
+
+		final PubchemFingerprinter fingerprinter = new PubchemFingerprinter();
+		long bits = 0, hash = 0;
+		// warm up
+		for (IAtomContainer molecule : molecules) {
+			BitSet fingerprint = fingerprinter.getBitFingerprint(molecule).asBitSet();
+			bits += fingerprint.cardinality();
+			hash = 31 * hash + fingerprint.hashCode();
+		}
+		long total = 0;
+		for (int i = 0; i < passes; i++) {
+			long startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) fingerprinter.getBitFingerprint(molecule);
+			total += System.nanoTime() - startTime;
+		}
+		System.out.println("serial: " + (total / passes / molecules.size() / 1000)
+			+ " us per molecule, " + bits + " bits set, hash " + hash);
+
+		BatchFingerprinter batch = new BatchFingerprinter(
+			new BatchFingerprinter.FingerprinterFactory() {
+				public IFingerprinter newFingerprinter() {
+					return fingerprinter;
+				}
+			}, threads
+		);
+		batch.setPerceiveAtomTypes(true);
+		final long[] streamed = new long[2];
+		long startTime = System.nanoTime();
+		reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		int count = batch.process(reader, new BatchFingerprinter.Handler() {
+			public void fingerprint(int index, IAtomContainer molecule, IBitFingerprint fingerprint) {
+				streamed[0] += fingerprint.cardinality();
+				streamed[1] = 31 * streamed[1] + fingerprint.asBitSet().hashCode();
+			}
+			public void error(int index, IAtomContainer molecule, Exception error) {
+				System.err.println(index + ": " + error.getMessage());
+			}
+		});
+		reader.close();
+		System.out.println("streamed on " + threads + " threads: "
+			+ ((System.nanoTime() - startTime) / count / 1000) + " us per molecule, "
+			+ streamed[0] + " bits set, hash " + streamed[1]);
+	}
+}
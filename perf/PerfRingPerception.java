@@ -0,0 +1,87 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.fingerprint.MACCSFingerprinter;
+import org.openscience.cdk.fingerprint.PubchemFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.ringsearch.AllRingsFinder;
+import org.openscience.cdk.ringsearch.RingPartitioner;
+import org.openscience.cdk.ringsearch.RingPerception;
+import org.openscience.cdk.ringsearch.SSSRFinder;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Measures the ring perception of a typical screening pipeline over the
+ * molecules of an SD file: aromaticity detection, a SMARTS match, the MACCS
+ * and PubChem fingerprints. The time for the ring searches alone is given
+ * for each molecule searched by every step, as before, and searched once by
+ * {@link RingPerception}; then the time of the whole pipeline, in which the
+ * steps share the perception.
+ *
+ * Usage: java PerfRingPerception file.sdf [passes]
+ */
+public class PerfRingPerception {
+
+	public static void main(String[] args) throws Exception {
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+			molecules.add(molecule);
+		}
+		reader.close();
+
+		for (int pass = 0; pass <= passes; pass++) {
+			// the ring searches of aromaticity detection, SMARTS, MACCS and PubChem
+			long separate = 0, shared = 0;
+			for (IAtomContainer molecule : molecules) {
+				long startTime = System.nanoTime();
+				new AllRingsFinder(false).findAllRings(molecule); // SMARTS
+				new SSSRFinder(molecule).findEssentialRings();    // SMARTS
+				new AllRingsFinder(false).findAllRings(molecule); // MACCS
+				new SSSRFinder(molecule).findSSSR();              // PubChem
+				RingPartitioner.partitionRings(new SSSRFinder(molecule).findSSSR());
+				separate += System.nanoTime() - startTime;
+
+				startTime = System.nanoTime();
+				RingPerception.invalidate(molecule);
+				RingPerception rings = RingPerception.getInstance(molecule);
+				rings.getRingBonds();
+				rings.getAllRings();
+				rings.getEssentialRings();
+				rings.getSSSR();
+				rings.getRingSystems();
+				shared += System.nanoTime() - startTime;
+			}
+
+			// the whole pipeline
+			MACCSFingerprinter maccs = new MACCSFingerprinter();
+			PubchemFingerprinter pubchem = new PubchemFingerprinter();
+			SMARTSQueryTool tool = new SMARTSQueryTool("[R2]");
+			long pipeline = 0;
+			for (IAtomContainer molecule : molecules) {
+				RingPerception.invalidate(molecule);
+				long startTime = System.nanoTime();
+				CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+				tool.matches(molecule);
+				maccs.getBitFingerprint(molecule);
+				pubchem.getBitFingerprint(molecule);
+				pipeline += System.nanoTime() - startTime;
+			}
+			if (pass == 0) continue; // warm up
+			int n = molecules.size();
+			System.out.println("rings searched by each step: " + (separate / n / 1000)
+				+ " us, shared: " + (shared / n / 1000)
+				+ " us; pipeline: " + (pipeline / n / 1000) + " us per molecule");
+		}
+	}
+}
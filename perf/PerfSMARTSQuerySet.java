@@ -0,0 +1,77 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.fingerprint.SubstructureFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySet;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Screens the molecules of an SD file against the functional group patterns
+ * of the {@link SubstructureFingerprinter}, once with one
+ * {@link SMARTSQueryTool} per pattern, as a filter library is often run, and
+ * once with a {@link SMARTSQuerySet}. The time per molecule of both is
+ * printed, with the number of hits as a check that they agree. Since each
+ * tool prepares every molecule again, the first molecules of a large file
+ * are enough. The molecules are read without change notification, whose
+ * listeners would otherwise pile up with each ring perception.
+ *
+ * Usage: java PerfSMARTSQuerySet file.sdf [passes] [molecules]
+ */
+public class PerfSMARTSQuerySet {
+
+	public static void main(String[] args) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), SilentChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		int limit = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+		while (reader.hasNext() && molecules.size() < limit) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+			CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+			molecules.add(molecule);
+		}
+		reader.close();
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		SubstructureFingerprinter fingerprinter = new SubstructureFingerprinter();
+		String[] smarts = new String[fingerprinter.getSize()];
+		for (int i = 0; i < smarts.length; i++) smarts[i] = fingerprinter.getSubstructure(i);
+		SMARTSQueryTool[] tools = new SMARTSQueryTool[smarts.length];
+		for (int i = 0; i < smarts.length; i++) tools[i] = new SMARTSQueryTool(smarts[i]);
+		SMARTSQuerySet queries = new SMARTSQuerySet(smarts);
+
+		long toolTime = 0, setTime = 0;
+		int toolHits = 0, setHits = 0;
+		// the first pass warms up
+		for (int pass = 0; pass <= passes; pass++) {
+			toolHits = 0;
+			long startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules)
+				for (SMARTSQueryTool tool : tools)
+					if (tool.matches(molecule, true)) toolHits++;
+			if (pass > 0) toolTime += System.nanoTime() - startTime;
+
+			setHits = 0;
+			startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) {
+				BitSet hits = queries.matches(molecule);
+				setHits += hits.cardinality();
+			}
+			if (pass > 0) setTime += System.nanoTime() - startTime;
+		}
+		int n = molecules.size() * passes;
+		System.out.println(molecules.size() + " molecules, " + smarts.length + " patterns");
+		System.out.println("SMARTSQueryTool per pattern: " + (toolTime / n / 1000) + " us per molecule, "
+			+ toolHits + " hits");
+		System.out.println("SMARTSQuerySet:              " + (setTime / n / 1000) + " us per molecule, "
+			+ setHits + " hits");
+	}
+}
@@ -0,0 +1,48 @@
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Measures the time and the memory {@link SMARTSQueryTool} needs to test a
+ * pattern against a molecule, and to count its matches. Symmetric patterns
+ * against symmetric molecules have many matches, for instance
+ * <code>*(*)(*)(*)*(*)(*)*</code> against tetra-tert-butylmethane,
+ * <code>CC(C)(C)C(C(C)(C)C)(C(C)(C)C)C(C)(C)C</code>.
+ *
+ * Usage: java PerfSMARTSQueryTool smiles smarts [passes]
+ */
+public class PerfSMARTSQueryTool {
+
+	public static void main(String[] args) throws Exception {
+		IAtomContainer molecule = new SmilesParser(DefaultChemObjectBuilder.getInstance()).parseSmiles(args[0]);
+		AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+		int passes = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		SMARTSQueryTool tool = new SMARTSQueryTool(args[1]);
+		// warm up, and prepare the molecule once
+		tool.matches(molecule);
+		tool.countMatches();
+
+		long matches = 0, count = 0;
+		int matchCount = 0;
+		for (int i = 0; i < passes; i++) {
+			long startTime = System.nanoTime();
+			tool.matches(molecule);
+			matches += System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			matchCount = tool.countMatches();
+			count += System.nanoTime() - startTime;
+		}
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long before = runtime.totalMemory() - runtime.freeMemory();
+		tool.matches(molecule);
+		long after = runtime.totalMemory() - runtime.freeMemory();
+		System.out.println(args[1] + ": " + matchCount + " matches");
+		System.out.println("matches:      " + (matches / passes / 1000) + " us");
+		System.out.println("countMatches: " + (count / passes / 1000) + " us");
+		System.out.println("memory held after matches: " + Math.max(0, after - before) / 1024 + " kB");
+	}
+}
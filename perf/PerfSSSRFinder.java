@@ -0,0 +1,54 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.graph.MoleculeGraphs;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.ringsearch.SSSRFinder;
+import org.openscience.cdk.ringsearch.cyclebasis.CycleBasis;
+
+/**
+ * Measures the SSSR, essential and relevant rings of the molecules of an SD
+ * file, found by the {@link SSSRFinder} and by the {@link CycleBasis} of the
+ * molecule graph, which the SSSRFinder used before.
+ *
+ * Usage: java PerfSSSRFinder file.sdf [passes]
+ */
+public class PerfSSSRFinder {
+
+	public static void main(String[] args) throws Exception {
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) molecules.add((IAtomContainer) reader.next());
+		reader.close();
+
+		for (int pass = 0; pass <= passes; pass++) {
+			long startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) {
+				CycleBasis basis = new CycleBasis(MoleculeGraphs.getMoleculeGraph(molecule));
+				basis.cycles();
+				basis.essentialCycles();
+				basis.relevantCycles();
+			}
+			long cycleBasis = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (IAtomContainer molecule : molecules) {
+				SSSRFinder finder = new SSSRFinder(molecule);
+				finder.findSSSR();
+				finder.findEssentialRings();
+				finder.findRelevantRings();
+			}
+			long sssrFinder = System.nanoTime() - startTime;
+			if (pass == 0) continue; // warm up
+			int n = molecules.size();
+			System.out.println("cycle basis: " + (cycleBasis / n / 1000) + " us, SSSRFinder: "
+				+ (sssrFinder / n / 1000) + " us per molecule");
+		}
+	}
+}
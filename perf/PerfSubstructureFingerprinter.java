@@ -0,0 +1,61 @@
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+import org.openscience.cdk.fingerprint.KlekotaRothFingerprinter;
+import org.openscience.cdk.fingerprint.MACCSFingerprinter;
+import org.openscience.cdk.fingerprint.SubstructureFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Measures the time per molecule {@link SubstructureFingerprinter},
+ * {@link MACCSFingerprinter} and {@link KlekotaRothFingerprinter} need for
+ * the molecules of an SD file, and prints the number of set bits as a check
+ * that the fingerprints do not change. The molecules are read once, typed
+ * and kept in memory.
+ *
+ * Usage: java PerfSubstructureFingerprinter file.sdf [passes]
+ */
+public class PerfSubstructureFingerprinter {
+
+	public static void main(String[] args) throws Exception {
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), DefaultChemObjectBuilder.getInstance(), true
+		);
+		List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+			CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+			molecules.add(molecule);
+		}
+		reader.close();
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		long startTime = System.nanoTime();
+		IFingerprinter[] fingerprinters = {
+			new SubstructureFingerprinter(), new MACCSFingerprinter(), new KlekotaRothFingerprinter()
+		};
+		System.out.println("setup: " + (System.nanoTime() - startTime) / 1000000 + " ms");
+		for (IFingerprinter fingerprinter : fingerprinters) {
+			long bits = 0;
+			// warm up
+			for (IAtomContainer molecule : molecules)
+				bits += fingerprinter.getBitFingerprint(molecule).cardinality();
+			long total = 0;
+			for (int i = 0; i < passes; i++) {
+				startTime = System.nanoTime();
+				for (IAtomContainer molecule : molecules) fingerprinter.getBitFingerprint(molecule);
+				total += System.nanoTime() - startTime;
+			}
+			System.out.println(fingerprinter.getClass().getSimpleName() + ": "
+				+ (total / passes / molecules.size() / 1000) + " us per molecule, "
+				+ bits + " bits set");
+		}
+	}
+}
@@ -0,0 +1,84 @@
+import java.io.FileInputStream;
+
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.fingerprint.StandardSubstructureSets;
+import org.openscience.cdk.fingerprint.SubstructureSearchIndex;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+
+/**
+ * Searches the molecules of an SD file for the functional groups of
+ * {@link StandardSubstructureSets} with a {@link SubstructureSearchIndex},
+ * and compares the time with that of matching every molecule. The mean
+ * screen-out and false positive ratios show how well fingerprints of the
+ * given size and search depth suit these queries.
+ *
+ * Usage: java PerfSubstructureSearchIndex file.sdf [size] [depth] [threads]
+ */
+public class PerfSubstructureSearchIndex {
+
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : Fingerprinter.DEFAULT_SIZE;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : Fingerprinter.DEFAULT_SEARCH_DEPTH;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		SubstructureSearchIndex index = new SubstructureSearchIndex(new Fingerprinter(size, depth));
+		index.setNumberOfThreads(threads);
+		IteratingSDFReader reader = new IteratingSDFReader(
+			new FileInputStream(args[0]), SilentChemObjectBuilder.getInstance(), true
+		);
+		long startTime = System.nanoTime();
+		while (reader.hasNext()) {
+			IAtomContainer molecule = (IAtomContainer) reader.next();
+			try {
+				index.add(molecule);
+			} catch (Exception exception) {
+				// skipped, like molecules the reader could not read
+			}
+		}
+		reader.close();
+		System.out.println(index.getMoleculeCount() + " molecules indexed in "
+			+ ((System.nanoTime() - startTime) / 1000000) + " ms, size " + size
+			+ ", depth " + depth + ", " + threads + " thread(s)");
+
+		String[] queries = StandardSubstructureSets.getFunctionalGroupSMARTS();
+		// warm up
+		search(index, queries);
+		scan(index, queries);
+		long indexTime = search(index, queries);
+		long scanTime = scan(index, queries);
+		System.out.println("Speed up: " + ((double) scanTime / indexTime));
+	}
+
+	private static long search(SubstructureSearchIndex index, String[] queries) throws Exception {
+		double screenOut = 0, falsePositives = 0;
+		int hits = 0;
+		long startTime = System.nanoTime();
+		for (String smarts : queries) {
+			SubstructureSearchIndex.Result result = index.search(smarts);
+			screenOut      += result.getScreenOutRatio();
+			falsePositives += result.getFalsePositiveRatio();
+			hits           += result.getHitCount();
+		}
+		long endTime = System.nanoTime();
+		System.out.println("index: " + hits + " hits in " + ((endTime - startTime) / 1000000)
+			+ " ms, mean screen-out ratio " + (screenOut / queries.length)
+			+ ", mean false positive ratio " + (falsePositives / queries.length));
+		return endTime - startTime;
+	}
+
+	private static long scan(SubstructureSearchIndex index, String[] queries) throws Exception {
+		int hits = 0;
+		long startTime = System.nanoTime();
+		for (String smarts : queries) {
+			SMARTSQueryTool tool = new SMARTSQueryTool(smarts);
+			for (int i = 0; i < index.getMoleculeCount(); i++)
+				if (tool.matches(index.getMolecule(i))) hits++;
+		}
+		long endTime = System.nanoTime();
+		System.out.println("scan:  " + hits + " hits in " + ((endTime - startTime) / 1000000) + " ms");
+		return endTime - startTime;
+	}
+}
@@ -26,6 +26,7 @@ package org.openscience.cdk;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ import org.openscience.cdk.annotations.TestMethod;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
 import org.openscience.cdk.interfaces.IChemObjectChangeEvent;
 import org.openscience.cdk.interfaces.IChemObjectListener;
 import org.openscience.cdk.interfaces.IElectronContainer;
@@ -124,6 +126,18 @@ public class AtomContainer extends ChemObject
      */
     protected List<IStereoElement> stereoElements;
 
+    /**
+     * Nesting depth of {@link #beginBatch()} calls, zero when change
+     * notification is not suspended.
+     */
+    private transient int batchDepth;
+
+    /**
+     * Atoms and electron containers which this container stopped listening
+     * to for the duration of the current batch.
+     */
+    private transient List<IChemObject> suspendedListeners;
+
 
 	/**
 	 *  Constructs an empty AtomContainer.
@@ -234,7 +248,7 @@ public class AtomContainer extends ChemObject
 
 		this.atoms = atoms;
         for (IAtom atom : atoms) {
-            atom.addListener(this);
+            listenTo(atom);
         }
 		this.atomCount = atoms.length;
 		notifyChanged();
@@ -251,7 +265,7 @@ public class AtomContainer extends ChemObject
 	{
 		this.bonds = bonds;
         for (IBond bond : bonds) {
-            bond.addListener(this);
+            listenTo(bond);
         }
 		this.bondCount = bonds.length;
 	}
@@ -284,7 +298,7 @@ public class AtomContainer extends ChemObject
 	 */
 	public void setAtom(int number, IAtom atom)
 	{
-		atom.addListener(this);
+		listenTo(atom);
 		atoms[number] = atom;
 		notifyChanged();
 	}
@@ -1043,7 +1057,7 @@ public class AtomContainer extends ChemObject
 		{
 			growAtomArray();
 		}
-		atom.addListener(this);
+		listenTo(atom);
 		atoms[atomCount] = atom;
 		atomCount++;
 		notifyChanged();
@@ -1426,7 +1440,7 @@ public class AtomContainer extends ChemObject
 	public void addLonePair(int atomID)
 	{
 		ILonePair lonePair = getBuilder().newInstance(ILonePair.class,atoms[atomID]);
-		lonePair.addListener(this);
+		listenTo(lonePair);
 		addLonePair(lonePair);
 		/* no notifyChanged() here because addElectronContainer() does 
 		   it already */
@@ -1440,7 +1454,7 @@ public class AtomContainer extends ChemObject
 	public void addSingleElectron(int atomID)
 	{
 		ISingleElectron singleElectron = getBuilder().newInstance(ISingleElectron.class,atoms[atomID]);
-		singleElectron.addListener(this);
+		listenTo(singleElectron);
 		addSingleElectron(singleElectron);
 		/* no notifyChanged() here because addSingleElectron() does 
 		   it already */
@@ -1580,6 +1594,10 @@ public class AtomContainer extends ChemObject
         // would have a ClassCastException when they invoke clone
         IAtomContainer clone = (IAtomContainer) super.clone();
 
+        // the clone does not inherit a batch in progress
+        ((AtomContainer) clone).batchDepth = 0;
+        ((AtomContainer) clone).suspendedListeners = null;
+
         // remove existing elements - we need to set the stereo elements list as list.clone() doesn't
         // work as expected and will also remove all elements from the original
         clone.setStereoElements(new ArrayList<IStereoElement>(stereoElements.size()));
@@ -1734,6 +1752,104 @@ public class AtomContainer extends ChemObject
 		singleElectrons = newSingleElectrons;
 	}
 	
+	/**
+	 * Registers this container as listener of the given object, or records
+	 * that it should do so at the end of the current batch.
+	 *
+	 * @param object an atom or electron container of this container
+	 */
+	protected void listenTo(IChemObject object) {
+		if (batchDepth == 0) object.addListener(this);
+		else suspendedListeners.add(object);
+	}
+
+	/**
+	 * Suspends change notification for this container until the matching
+	 * call of {@link #endBatch()}. While in batch mode this container
+	 * unregisters as listener from its atoms and electron containers, so
+	 * that their setters do not create and dispatch change events, and the
+	 * container does not notify its own listeners. Use it around bulk
+	 * operations, such as adding hydrogens or generating coordinates, when
+	 * no listener needs to see the intermediate states:
+	 * <pre>
+	 * container.beginBatch();
+	 * try {
+	 *     hydrogenAdder.addImplicitHydrogens(container);
+	 * } finally {
+	 *     container.endBatch();
+	 * }
+	 * </pre>
+	 * Calls may be nested, notification resumes when the outermost batch
+	 * ends.
+	 *
+	 * @see #endBatch()
+	 */
+	@TestMethod("testBeginBatch")
+	public void beginBatch() {
+		if (batchDepth++ > 0) return;
+		suspendedListeners = new ArrayList<IChemObject>(atomCount + bondCount);
+		for (int i = 0; i < atomCount; i++) suspend(atoms[i]);
+		for (int i = 0; i < bondCount; i++) suspend(bonds[i]);
+		for (int i = 0; i < lonePairCount; i++) suspend(lonePairs[i]);
+		for (int i = 0; i < singleElectronCount; i++) suspend(singleElectrons[i]);
+	}
+
+	private void suspend(IChemObject object) {
+		int listenerCount = object.getListenerCount();
+		if (listenerCount == 0) return;
+		object.removeListener(this);
+		if (object.getListenerCount() < listenerCount)
+			suspendedListeners.add(object);
+	}
+
+	/**
+	 * Ends a batch started with {@link #beginBatch()}. When the outermost
+	 * batch ends, this container registers again as listener of its atoms
+	 * and electron containers and fires a single change event for all
+	 * changes made during the batch.
+	 *
+	 * @throws IllegalStateException if no batch is in progress
+	 * @see #beginBatch()
+	 */
+	@TestMethod("testEndBatch")
+	public void endBatch() {
+		if (batchDepth == 0)
+			throw new IllegalStateException("endBatch() called without beginBatch()");
+		if (--batchDepth > 0) return;
+		Map<IChemObject,Boolean> current = new IdentityHashMap<IChemObject,Boolean>();
+		for (int i = 0; i < atomCount; i++) current.put(atoms[i], Boolean.TRUE);
+		for (int i = 0; i < bondCount; i++) current.put(bonds[i], Boolean.TRUE);
+		for (int i = 0; i < lonePairCount; i++) current.put(lonePairs[i], Boolean.TRUE);
+		for (int i = 0; i < singleElectronCount; i++) current.put(singleElectrons[i], Boolean.TRUE);
+		for (IChemObject object : suspendedListeners) {
+			if (current.containsKey(object)) object.addListener(this);
+		}
+		suspendedListeners = null;
+		notifyChanged();
+	}
+
+	/**
+	 * Returns whether change notification is suspended by a batch.
+	 *
+	 * @return true between {@link #beginBatch()} and the matching {@link #endBatch()}
+	 */
+	@TestMethod("testBeginBatch")
+	public boolean isInBatch() {
+		return batchDepth > 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void notifyChanged() {
+		if (batchDepth == 0) super.notifyChanged();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void notifyChanged(IChemObjectChangeEvent evt) {
+		if (batchDepth == 0) super.notifyChanged(evt);
+	}
+
 	 /**
 	 *  Called by objects to which this object has
 	 *  registered as a listener.
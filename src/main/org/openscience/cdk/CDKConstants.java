@@ -272,6 +272,11 @@ public class CDKConstants {
      */
     public static final String RELEVANT_RINGS = "cdk:RelevantRings";
 
+    /** The ring perception of this molecule, shared by the algorithms
+     *  that need its rings. See RingPerception.
+     */
+    public static final String RING_PERCEPTION = "cdk:RingPerception";
+
     
     /* **************************************
     * Some predefined property names for    *
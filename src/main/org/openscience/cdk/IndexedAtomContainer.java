@@ -0,0 +1,481 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IChemObjectChangeEvent;
+import org.openscience.cdk.interfaces.IElectronContainer;
+import org.openscience.cdk.interfaces.IBond.Order;
+
+/**
+ * An {@link AtomContainer} that maintains, for every atom, the list of bonds
+ * it participates in and the position of the atom in the container. Neighbour
+ * queries such as {@link #getConnectedAtomsList(IAtom)},
+ * {@link #getConnectedBondsList(IAtom)} and {@link #getBond(IAtom, IAtom)} are
+ * answered in O(degree) time and {@link #getAtomNumber(IAtom)} and
+ * {@link #contains(IAtom)} in constant time, instead of scanning all bonds
+ * or atoms of the container.
+ *
+ * <p>The index is updated incrementally when atoms and bonds are added or
+ * removed one at a time. Bulk operations, like {@link #setAtoms(IAtom[])} or
+ * {@link #setBonds(IBond[])}, discard the index, which is then rebuilt on the
+ * next query. The container registers itself as listener of its bonds, so that
+ * changing the atoms of a bond that is part of this container is picked up
+ * too, also during a batch. Bonds that do not send change events (e.g. those
+ * from the <code>silent</code> module) must not have their atoms changed while
+ * they are part of this container. Listeners of the container are notified of
+ * a change only once the index reflects it, so they may query and modify the
+ * container.
+ *
+ * <p>The results of all queries, including their order, are identical to those
+ * of {@link AtomContainer}. The class is not thread-safe.
+ *
+ * @cdk.module data
+ * @cdk.githash
+ *
+ * @see AtomContainer
+ */
+@TestClass("org.openscience.cdk.IndexedAtomContainerTest")
+public class IndexedAtomContainer extends AtomContainer {
+
+    private static final long serialVersionUID = -3275393208384510238L;
+
+    /**
+     * Bonds incident to an atom, in the order they are found in the bonds
+     * array. Null when the index must be rebuilt.
+     */
+    private transient Map<IAtom,List<IBond>> incidence;
+
+    /**
+     * Position of an atom in the atoms array. Null when the index must be
+     * rebuilt.
+     */
+    private transient Map<IAtom,Integer> atomIndex;
+
+    /**
+     * True while a mutator changes the arrays and the index. Change
+     * notification is deferred until both are consistent again, so that
+     * listeners that query or modify this container see a correct index.
+     */
+    private transient boolean updating;
+
+    /** True if a change notification was deferred while updating. */
+    private transient boolean changed;
+
+    /**
+     * Constructs an empty IndexedAtomContainer.
+     */
+    public IndexedAtomContainer() {
+        super();
+    }
+
+    /**
+     * Constructs an IndexedAtomContainer with a copy of the atoms and
+     * electronContainers of another AtomContainer (a shallow copy, i.e., with
+     * the same objects as in the original AtomContainer).
+     *
+     * @param  container  An AtomContainer to copy the atoms and electronContainers from
+     */
+    public IndexedAtomContainer(IAtomContainer container) {
+        super(container);
+    }
+
+    /**
+     * Constructs an empty IndexedAtomContainer that will contain a certain
+     * number of atoms and electronContainers.
+     *
+     * @param  atomCount  Number of atoms to be in this container
+     * @param  bondCount  Number of bonds to be in this container
+     * @param  lpCount    Number of lone pairs to be in this container
+     * @param  seCount    Number of single electrons to be in this container
+     */
+    public IndexedAtomContainer(int atomCount, int bondCount, int lpCount, int seCount) {
+        super(atomCount, bondCount, lpCount, seCount);
+    }
+
+    /**
+     * Returns the bonds incident to the given atom, building the index
+     * first if needed. Entries left behind by bonds whose atoms were changed
+     * may be present and must be checked with {@link IBond#contains(IAtom)}.
+     */
+    private List<IBond> incidentBonds(IAtom atom) {
+        if (incidence == null) buildIndex();
+        return incidence.get(atom);
+    }
+
+    /**
+     * Builds the atom and incidence index from scratch.
+     */
+    private void buildIndex() {
+        Map<IAtom,Integer> atomIndex = new IdentityHashMap<IAtom,Integer>(atomCount);
+        Map<IAtom,List<IBond>> incidence = new IdentityHashMap<IAtom,List<IBond>>(atomCount);
+        for (int i = 0; i < atomCount; i++) {
+            if (!atomIndex.containsKey(atoms[i])) atomIndex.put(atoms[i], i);
+        }
+        for (int i = 0; i < bondCount; i++) {
+            index(incidence, bonds[i]);
+        }
+        this.atomIndex = atomIndex;
+        this.incidence = incidence;
+    }
+
+    private static void index(Map<IAtom,List<IBond>> incidence, IBond bond) {
+        for (int i = 0; i < bond.getAtomCount(); i++) {
+            IAtom atom = bond.getAtom(i);
+            if (atom == null) continue;
+            List<IBond> list = incidence.get(atom);
+            if (list == null) {
+                list = new ArrayList<IBond>(4);
+                incidence.put(atom, list);
+            }
+            list.add(bond);
+        }
+    }
+
+    /**
+     * Discards the index, it will be rebuilt when it is needed next.
+     */
+    private void invalidateIndex() {
+        // never clear the maps in place: clone() shares them with the original
+        incidence = null;
+        atomIndex = null;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testSetAtoms_arrayIAtom")
+    public void setAtoms(IAtom[] atoms) {
+        invalidateIndex();
+        super.setAtoms(atoms);
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testSetBonds_arrayIBond")
+    public void setBonds(IBond[] bonds) {
+        invalidateIndex();
+        super.setBonds(bonds);
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testSetAtom_int_IAtom")
+    public void setAtom(int number, IAtom atom) {
+        invalidateIndex();
+        super.setAtom(number, atom);
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetAtomNumber_IAtom")
+    public int getAtomNumber(IAtom atom) {
+        if (atomIndex == null) buildIndex();
+        Integer position = atomIndex.get(atom);
+        return position == null ? -1 : position;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testContains_IAtom")
+    public boolean contains(IAtom atom) {
+        return getAtomNumber(atom) != -1;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetBond_IAtom_IAtom")
+    public IBond getBond(IAtom atom1, IAtom atom2) {
+        List<IBond> bonds = incidentBonds(atom1);
+        if (bonds == null) return null;
+        for (IBond bond : bonds) {
+            if (bond.contains(atom1) && bond.getConnectedAtom(atom1) == atom2)
+                return bond;
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetConnectedAtomsList_IAtom")
+    public List<IAtom> getConnectedAtomsList(IAtom atom) {
+        List<IBond> bonds = incidentBonds(atom);
+        if (bonds == null) return new ArrayList<IAtom>(0);
+        List<IAtom> atomsList = new ArrayList<IAtom>(bonds.size());
+        for (IBond bond : bonds) {
+            if (bond.contains(atom)) atomsList.add(bond.getConnectedAtom(atom));
+        }
+        return atomsList;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetConnectedBondsList_IAtom")
+    public List<IBond> getConnectedBondsList(IAtom atom) {
+        List<IBond> bonds = incidentBonds(atom);
+        if (bonds == null) return new ArrayList<IBond>(0);
+        List<IBond> bondsList = new ArrayList<IBond>(bonds.size());
+        for (IBond bond : bonds) {
+            if (bond.contains(atom)) bondsList.add(bond);
+        }
+        return bondsList;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetConnectedElectronContainersList_IAtom")
+    public List<IElectronContainer> getConnectedElectronContainersList(IAtom atom) {
+        List<IElectronContainer> lps = new ArrayList<IElectronContainer>();
+        lps.addAll(getConnectedBondsList(atom));
+        lps.addAll(getConnectedLonePairsList(atom));
+        lps.addAll(getConnectedSingleElectronsList(atom));
+        return lps;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetConnectedAtomsCount_IAtom")
+    public int getConnectedAtomsCount(IAtom atom) {
+        List<IBond> bonds = incidentBonds(atom);
+        if (bonds == null) return 0;
+        int count = 0;
+        for (IBond bond : bonds) {
+            if (bond.contains(atom)) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the bond orders for a given Atom.
+     *
+     * @param  atom  The atom
+     * @return       The number of bond orders for this atom
+     *
+     * @deprecated   Replaced by <code>AtomContainerManipulator#getBondOrderSum(IAtomContainer, IAtom)</code>
+     */
+    @Deprecated
+    @TestMethod("testGetBondOrderSum_IAtom")
+    public double getBondOrderSum(IAtom atom) {
+        double count = 0;
+        for (IBond bond : getConnectedBondsList(atom)) {
+            IBond.Order order = bond.getOrder();
+            if (order != null) count += order.numeric();
+        }
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetMaximumBondOrder_IAtom")
+    public Order getMaximumBondOrder(IAtom atom) {
+        IBond.Order max = IBond.Order.SINGLE;
+        for (IBond bond : getConnectedBondsList(atom)) {
+            if (bond.getOrder().numeric() > max.numeric()) max = bond.getOrder();
+        }
+        return max;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testGetMinimumBondOrder_IAtom")
+    public Order getMinimumBondOrder(IAtom atom) {
+        IBond.Order min = IBond.Order.QUADRUPLE;
+        for (IBond bond : getConnectedBondsList(atom)) {
+            if (bond.getOrder().numeric() < min.numeric()) min = bond.getOrder();
+        }
+        return min;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testAddAtom_IAtom")
+    public void addAtom(IAtom atom) {
+        if (contains(atom)) return;
+        beginUpdate();
+        try {
+            super.addAtom(atom);
+            if (atomIndex != null) atomIndex.put(atom, atomCount - 1);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testAddBond_IBond")
+    public void addBond(IBond bond) {
+        beginUpdate();
+        try {
+            super.addBond(bond);
+            listenTo(bond);
+            if (incidence != null) index(incidence, bond);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testRemoveAtom_int")
+    public void removeAtom(int position) {
+        IAtom atom = atoms[position];
+        beginUpdate();
+        try {
+            super.removeAtom(position);
+            if (atomIndex != null) {
+                Integer indexed = atomIndex.remove(atom);
+                if (indexed == null || indexed != position) {
+                    // the atom is present more than once (e.g. via setAtoms())
+                    invalidateIndex();
+                    return;
+                }
+                for (int i = position; i < atomCount; i++) {
+                    atomIndex.put(atoms[i], i);
+                }
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testRemoveBond_int")
+    public IBond removeBond(int position) {
+        beginUpdate();
+        try {
+            IBond bond = super.removeBond(position);
+            if (incidence != null) {
+                for (int i = 0; i < bond.getAtomCount(); i++) {
+                    List<IBond> list = incidence.get(bond.getAtom(i));
+                    if (list != null) removeFirst(list, bond);
+                }
+            }
+            return bond;
+        } finally {
+            endUpdate();
+        }
+    }
+
+    private static void removeFirst(List<IBond> list, IBond bond) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == bond) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testRemoveAllElements")
+    public void removeAllElements() {
+        invalidateIndex();
+        super.removeAllElements();
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testRemoveAllBonds")
+    public void removeAllBonds() {
+        invalidateIndex();
+        super.removeAllBonds();
+    }
+
+    /**
+     * Starts a batch, see {@link AtomContainer#beginBatch()}. Unlike atoms,
+     * the bonds of this container keep notifying it during a batch, so that
+     * the index is invalidated as soon as the atoms of a bond change and
+     * queries made during the batch are answered correctly.
+     */
+    @TestMethod("testBeginBatch")
+    public void beginBatch() {
+        boolean outermost = !isInBatch();
+        super.beginBatch();
+        if (outermost) {
+            for (int i = 0; i < bondCount; i++) bonds[i].addListener(this);
+        }
+    }
+
+    /**
+     * Registers this container as listener of the given object. Bonds are
+     * listened to also during a batch, see {@link #beginBatch()}.
+     *
+     * @param object an atom or electron container of this container
+     */
+    protected void listenTo(IChemObject object) {
+        if (object instanceof IBond) object.addListener(this);
+        else super.listenTo(object);
+    }
+
+    /**
+     * Defers change notification until {@link #endUpdate()}.
+     */
+    private void beginUpdate() {
+        updating = true;
+    }
+
+    /**
+     * Ends an update of the arrays and the index and sends the change
+     * notification deferred meanwhile.
+     */
+    private void endUpdate() {
+        updating = false;
+        if (changed) {
+            changed = false;
+            notifyChanged();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void notifyChanged() {
+        if (updating) changed = true;
+        else super.notifyChanged();
+    }
+
+    /**
+     * Called by objects to which this object has registered as a listener.
+     * Changes to the atoms of a bond in this container invalidate the index.
+     *
+     * @param  event  A change event pointing to the source of the change
+     */
+    @TestMethod("testStateChanged_IChemObjectChangeEvent")
+    public void stateChanged(IChemObjectChangeEvent event) {
+        if (incidence != null && event.getSource() instanceof IBond) {
+            IBond bond = (IBond) event.getSource();
+            for (int i = 0; i < bond.getAtomCount(); i++) {
+                IAtom atom = bond.getAtom(i);
+                if (atom == null) continue;
+                List<IBond> list = incidence.get(atom);
+                if (list == null || !containsIdentical(list, bond)) {
+                    invalidateIndex();
+                    break;
+                }
+            }
+        }
+        super.stateChanged(event);
+    }
+
+    private static boolean containsIdentical(List<IBond> list, IBond bond) {
+        for (IBond other : list) {
+            if (other == bond) return true;
+        }
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @TestMethod("testClone")
+    public IAtomContainer clone() throws CloneNotSupportedException {
+        IndexedAtomContainer clone = (IndexedAtomContainer) super.clone();
+        clone.invalidateIndex();
+        return clone;
+    }
+}
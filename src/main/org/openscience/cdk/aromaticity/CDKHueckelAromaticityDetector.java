@@ -22,6 +22,7 @@
  */
 package org.openscience.cdk.aromaticity;
 
+import java.util.BitSet;
 import java.util.Iterator;
 
 import org.openscience.cdk.CDKConstants;
@@ -31,7 +32,6 @@ import org.openscience.cdk.atomtype.CDKAtomTypeMatcher;
 import org.openscience.cdk.config.AtomTypeFactory;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.graph.ConnectivityChecker;
-import org.openscience.cdk.graph.SpanningTree;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomType;
@@ -39,6 +39,7 @@ import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.interfaces.IAtomType.Hybridization;
 import org.openscience.cdk.ringsearch.AllRingsFinder;
+import org.openscience.cdk.ringsearch.RingPerception;
 import org.openscience.cdk.ringsearch.SSSRFinder;
 
 /**
@@ -72,12 +73,22 @@ public class CDKHueckelAromaticityDetector {
 
     @TestMethod("testDetectAromaticity_IAtomContainer")
     public static boolean detectAromaticity(IAtomContainer atomContainer) throws CDKException {
-		SpanningTree spanningTree = new SpanningTree(atomContainer);
-		IAtomContainer ringSystems = spanningTree.getCyclicFragmentsContainer();
-		if (ringSystems.getAtomCount() == 0) {
+		// the ring atoms and bonds are shared with other ring perception
+		RingPerception rings = RingPerception.getInstance(atomContainer);
+		BitSet ringAtoms = rings.getRingAtoms();
+		if (ringAtoms.isEmpty()) {
 			// If there are no rings, then there cannot be any aromaticity
 			return false;
 		}
+		IAtomContainer ringSystems = atomContainer.getBuilder().newInstance(IAtomContainer.class);
+		for (int i = ringAtoms.nextSetBit(0); i >= 0; i = ringAtoms.nextSetBit(i + 1)) {
+			IAtom atom = atomContainer.getAtom(i);
+			atom.setFlag(CDKConstants.ISINRING, true);
+			ringSystems.addAtom(atom);
+		}
+		BitSet ringBonds = rings.getRingBonds();
+		for (int i = ringBonds.nextSetBit(0); i >= 0; i = ringBonds.nextSetBit(i + 1))
+			ringSystems.addBond(atomContainer.getBond(i));
 		// disregard all atoms we know that cannot be aromatic anyway
         for (IAtom atom : ringSystems.atoms())
             if (!atomIsPotentiallyAromatic(atom))
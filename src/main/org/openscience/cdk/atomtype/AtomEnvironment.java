@@ -0,0 +1,340 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.atomtype;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.ISingleElectron;
+
+/**
+ * The environment of an atom in a molecule, as the {@link CDKAtomTypeMatcher}
+ * needs it to perceive the atom type: the bonds and neighbours of the atom,
+ * the number of its bonds of each order, of its hydrogen neighbours and of
+ * its single electrons, and whether it is in a ring. The environments of all
+ * atoms of a molecule are found in one pass over its bonds and single
+ * electrons, so that the matcher does not scan the molecule again for each
+ * question it asks about an atom. To type a single atom, only its own
+ * environment is found, and those of its neighbours and the rings of the
+ * molecule when the matcher asks for them.
+ *
+ * <p>The counts are those of {@link IAtomContainer#getConnectedBondsCount(IAtom)},
+ * {@link IAtomContainer#getMaximumBondOrder(IAtom)} and the like, except that
+ * bonds without an order do not count for the maximum bond order.
+ *
+ * @cdk.module core
+ * @cdk.githash
+ */
+final class AtomEnvironment {
+
+    final IAtomContainer atomContainer;
+    final IAtom atom;
+    /** The bonds of the atom, in the order of the molecule. */
+    final IBond[] bonds;
+    /** The highest order of the bonds, single if the atom has none. */
+    final IBond.Order maxBondOrder;
+    final double bondOrderSum;
+    final int hydrogenCount;
+    final int singleElectronCount;
+    final boolean aromaticBond;
+    final boolean singleOrDoubleBond;
+
+    /** The number of bonds of two atoms of each order. */
+    private final int[] bondOrderCounts = new int[IBond.Order.values().length];
+    /**
+     * The atoms at the other end of the bonds, null for a bond that does
+     * not join the atom to one other atom of the molecule.
+     */
+    private AtomEnvironment[] neighbours;
+    /** The environments of all atoms of the molecule, for the ring search. */
+    private final AtomEnvironment[] molecule;
+    private final int index;
+    /**
+     * The environments found so far around a single atom, or null if those
+     * of all atoms were found.
+     */
+    private final List<AtomEnvironment> found;
+    private Boolean ring = null;
+
+    private AtomEnvironment(IAtomContainer atomContainer, AtomEnvironment[] molecule, int index,
+                            List<AtomEnvironment> found, IAtom atom, IBond[] bonds,
+                            int singleElectronCount) {
+        this.atomContainer = atomContainer;
+        this.molecule = molecule;
+        this.index = index;
+        this.found = found;
+        this.atom = atom;
+        this.bonds = bonds;
+        if (found == null) this.neighbours = new AtomEnvironment[bonds.length];
+        this.singleElectronCount = singleElectronCount;
+
+        IBond.Order max = IBond.Order.SINGLE;
+        double sum = 0;
+        int hydrogens = 0;
+        boolean aromatic = false, singleOrDouble = false;
+        for (IBond bond : bonds) {
+            IBond.Order order = bond.getOrder();
+            if (order != null) {
+                sum += order.numeric();
+                if (order.numeric() > max.numeric()) max = order;
+            }
+            if (bond.getAtomCount() == 2) {
+                if (order != null) bondOrderCounts[order.ordinal()]++;
+                IAtom other = bond.getAtom(0) == atom ? bond.getAtom(1) : bond.getAtom(0);
+                if (other != null && "H".equals(other.getSymbol())) hydrogens++;
+            }
+            if (bond.getFlag(CDKConstants.ISAROMATIC)) aromatic = true;
+            if (bond.getFlag(CDKConstants.SINGLE_OR_DOUBLE)) singleOrDouble = true;
+        }
+        maxBondOrder = max;
+        bondOrderSum = sum;
+        hydrogenCount = hydrogens;
+        aromaticBond = aromatic;
+        singleOrDoubleBond = singleOrDouble;
+    }
+
+    /**
+     * Finds the environments of all atoms of a molecule.
+     *
+     * @param  atomContainer the molecule
+     * @return               the environments, in the order of the atoms
+     */
+    static AtomEnvironment[] perceive(IAtomContainer atomContainer) {
+        int n = atomContainer.getAtomCount();
+        Map<IAtom, Integer> indices = new IdentityHashMap<IAtom, Integer>(2 * n);
+        for (int i = 0; i < n; i++) indices.put(atomContainer.getAtom(i), i);
+
+        int[] bondCounts = new int[n];
+        for (IBond bond : atomContainer.bonds()) {
+            for (int k = 0; k < bond.getAtomCount(); k++) {
+                Integer i = atomOf(bond, k, indices);
+                if (i != null) bondCounts[i]++;
+            }
+        }
+        IBond[][] bonds = new IBond[n][];
+        int[][] neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            bonds[i] = new IBond[bondCounts[i]];
+            neighbours[i] = new int[bondCounts[i]];
+        }
+        int[] filled = new int[n];
+        for (IBond bond : atomContainer.bonds()) {
+            for (int k = 0; k < bond.getAtomCount(); k++) {
+                Integer i = atomOf(bond, k, indices);
+                if (i == null) continue;
+                Integer other = bond.getAtomCount() == 2 ? indices.get(bond.getAtom(1 - k)) : null;
+                neighbours[i][filled[i]] = other == null ? -1 : other;
+                bonds[i][filled[i]++] = bond;
+            }
+        }
+        int[] singleElectronCounts = new int[n];
+        for (ISingleElectron singleElectron : atomContainer.singleElectrons()) {
+            Integer i = indices.get(singleElectron.getAtom());
+            if (i != null) singleElectronCounts[i]++;
+        }
+
+        AtomEnvironment[] molecule = new AtomEnvironment[n];
+        for (int i = 0; i < n; i++)
+            molecule[i] = new AtomEnvironment(atomContainer, molecule, i, null, atomContainer.getAtom(i),
+                                              bonds[i], singleElectronCounts[i]);
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < neighbours[i].length; k++) {
+                if (neighbours[i][k] >= 0) molecule[i].neighbours[k] = molecule[neighbours[i][k]];
+            }
+        }
+        return molecule;
+    }
+
+    /**
+     * Finds the environment of one atom of a molecule, with one pass over its
+     * bonds and single electrons. The environments of the neighbours are
+     * found when {@link #neighbours()} is first called, and the rings of the
+     * molecule when {@link #isInRing()} is.
+     *
+     * @param  atomContainer the molecule
+     * @param  atom          an atom of the molecule
+     * @return               the environment of the atom
+     */
+    static AtomEnvironment perceive(IAtomContainer atomContainer, IAtom atom) {
+        return perceive(atomContainer, atom, new ArrayList<AtomEnvironment>(4));
+    }
+
+    private static AtomEnvironment perceive(IAtomContainer atomContainer, IAtom atom,
+                                            List<AtomEnvironment> found) {
+        List<IBond> bonds = new ArrayList<IBond>(4);
+        for (IBond bond : atomContainer.bonds()) {
+            if (bond.contains(atom)) bonds.add(bond);
+        }
+        int singleElectronCount = 0;
+        for (ISingleElectron singleElectron : atomContainer.singleElectrons()) {
+            if (singleElectron.getAtom() == atom) singleElectronCount++;
+        }
+        AtomEnvironment environment = new AtomEnvironment(atomContainer, null, -1, found, atom,
+            bonds.toArray(new IBond[bonds.size()]), singleElectronCount);
+        found.add(environment);
+        return environment;
+    }
+
+    /**
+     * Returns the index of an atom of a bond, or null if it is not in the
+     * molecule or is an earlier atom of the bond too. A bond counts once for
+     * each of its atoms, as {@link IBond#contains(IAtom)} does.
+     */
+    private static Integer atomOf(IBond bond, int k, Map<IAtom, Integer> indices) {
+        IAtom atom = bond.getAtom(k);
+        for (int l = 0; l < k; l++) {
+            if (bond.getAtom(l) == atom) return null;
+        }
+        return indices.get(atom);
+    }
+
+    /**
+     * Returns the number of bonds of two atoms with the given order.
+     *
+     * @param  order the bond order
+     * @return       the number of bonds
+     */
+    int countBonds(IBond.Order order) {
+        return bondOrderCounts[order.ordinal()];
+    }
+
+    /**
+     * Returns the number of bonds of two atoms with the given order to
+     * atoms of the given element.
+     *
+     * @param  order  the bond order
+     * @param  symbol the element symbol of the other atom
+     * @return        the number of bonds
+     */
+    int countBonds(IBond.Order order, String symbol) {
+        int count = 0;
+        for (IBond bond : bonds) {
+            if (bond.getOrder() != order || bond.getAtomCount() != 2) continue;
+            IAtom other = bond.getAtom(0) == atom ? bond.getAtom(1) : bond.getAtom(0);
+            if (other != atom && symbol.equals(other.getSymbol())) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the bond to a neighbour.
+     *
+     * @param  neighbour the environment of the neighbour
+     * @return           the bond, or null if the atoms are not bonded
+     */
+    IBond getBond(AtomEnvironment neighbour) {
+        AtomEnvironment[] neighbours = neighbours();
+        for (int k = 0; k < neighbours.length; k++) {
+            if (neighbours[k] == neighbour) return bonds[k];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the atoms at the other end of the bonds, null for a bond that
+     * does not join the atom to one other atom of the molecule.
+     *
+     * @return the environments of the neighbours, in the order of the bonds
+     */
+    AtomEnvironment[] neighbours() {
+        if (neighbours == null) {
+            neighbours = new AtomEnvironment[bonds.length];
+            for (int k = 0; k < bonds.length; k++) {
+                if (bonds[k].getAtomCount() != 2) continue;
+                IAtom other = bonds[k].getAtom(0) == atom ? bonds[k].getAtom(1) : bonds[k].getAtom(0);
+                for (AtomEnvironment environment : found) {
+                    if (environment.atom == other) neighbours[k] = environment;
+                }
+                if (neighbours[k] == null && other != null && atomContainer.contains(other))
+                    neighbours[k] = perceive(atomContainer, other, found);
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Tests if the atom is in a ring. The rings of the whole molecule are
+     * perceived on the first call, and their atoms flagged with
+     * {@link CDKConstants#ISINRING}.
+     *
+     * @return true if the atom is in a ring
+     */
+    boolean isInRing() {
+        if (ring == null) {
+            if (found != null) {
+                ring = perceive(atomContainer)[atomContainer.getAtomNumber(atom)].isInRing();
+            } else {
+                findRingAtoms(molecule);
+            }
+        }
+        return ring;
+    }
+
+    /**
+     * Finds the ring atoms with a depth first search, as the atoms of the
+     * bonds that are not bridges. A bond is a bridge if none of the atoms
+     * below it in the search tree has a back edge above it.
+     */
+    private static void findRingAtoms(AtomEnvironment[] molecule) {
+        int n = molecule.length;
+        int[] order = new int[n], low = new int[n], next = new int[n];
+        IBond[] parent = new IBond[n];
+        AtomEnvironment[] stack = new AtomEnvironment[n];
+        for (AtomEnvironment environment : molecule) environment.ring = false;
+        int visited = 0;
+        for (AtomEnvironment root : molecule) {
+            if (order[root.index] != 0) continue;
+            int top = 0;
+            stack[top++] = root;
+            order[root.index] = low[root.index] = ++visited;
+            while (top > 0) {
+                AtomEnvironment atom = stack[top - 1];
+                int i = atom.index;
+                if (next[i] < atom.bonds.length) {
+                    int k = next[i]++;
+                    AtomEnvironment other = atom.neighbours[k];
+                    if (other == null || atom.bonds[k] == parent[i]) continue;
+                    if (other == atom) atom.ring = true;
+                    int j = other.index;
+                    if (order[j] == 0) {
+                        order[j] = low[j] = ++visited;
+                        parent[j] = atom.bonds[k];
+                        stack[top++] = other;
+                    } else if (order[j] < low[i]) {
+                        low[i] = order[j];
+                    }
+                } else if (--top > 0) {
+                    AtomEnvironment above = stack[top - 1];
+                    int j = above.index;
+                    if (low[i] < low[j]) low[j] = low[i];
+                    if (low[i] <= order[j]) atom.ring = above.ring = true;
+                }
+            }
+        }
+        for (AtomEnvironment environment : molecule) {
+            if (environment.ring) environment.atom.setFlag(CDKConstants.ISINRING, true);
+        }
+    }
+}
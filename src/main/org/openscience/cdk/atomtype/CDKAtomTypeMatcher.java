@@ -20,9 +20,9 @@
  */
 package org.openscience.cdk.atomtype;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 
 import org.openscience.cdk.CDKConstants;
@@ -31,6 +31,7 @@ import org.openscience.cdk.annotations.TestMethod;
 import org.openscience.cdk.config.AtomTypeFactory;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.exception.NoSuchAtomException;
+import org.openscience.cdk.exception.NoSuchAtomTypeException;
 import org.openscience.cdk.graph.SpanningTree;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -41,7 +42,6 @@ import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.interfaces.IPseudoAtom;
 import org.openscience.cdk.interfaces.IRing;
 import org.openscience.cdk.interfaces.IRingSet;
-import org.openscience.cdk.interfaces.ISingleElectron;
 import org.openscience.cdk.interfaces.IAtomType.Hybridization;
 import org.openscience.cdk.tools.manipulator.BondManipulator;
 
@@ -51,6 +51,19 @@ import org.openscience.cdk.tools.manipulator.BondManipulator;
  * If there is not an atom type defined for the tested atom, then NULL 
  * is returned.
  *
+ * <p>The bonds, neighbours, bond orders, single electrons and ring membership
+ * of the atoms are found in one pass over the molecule, so that typing all
+ * atoms of a molecule with {@link #findMatchingAtomType(IAtomContainer)} takes
+ * time linear in its size, apart from the few nitrogens for which a ring is
+ * searched. Typing one atom with {@link #findMatchingAtomType(IAtomContainer, IAtom)}
+ * only scans the bonds of that atom, and those of its neighbours and the
+ * rings of the molecule when its atom type depends on them.
+ *
+ * <p>The matcher prepares its atom types once, and returns a copy of one
+ * of them for every match, so that a caller can change the type it got
+ * without affecting later matches. A matcher can be used by several
+ * threads at the same time, as long as they type different molecules.
+ *
  * @author         egonw
  * @cdk.created    2007-07-20
  * @cdk.module     core
@@ -65,6 +78,8 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
 	
 	private AtomTypeFactory factory;
 	private int mode;
+	/** The atom types by name, with their valency set. They are only handed out as copies. */
+	private final Map<String, IAtomType> atomTypes;
 	
     private static Map<Integer,Map<IChemObjectBuilder,CDKAtomTypeMatcher>> 
     	factories = new Hashtable<Integer,Map<IChemObjectBuilder,CDKAtomTypeMatcher>>(1); 
@@ -75,6 +90,15 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
 			builder
 		);
     	this.mode = mode;
+    	Map<String, IAtomType> types = new HashMap<String, IAtomType>();
+    	for (IAtomType type : factory.getAllAtomTypes()) {
+    		if (types.containsKey(type.getAtomTypeName())) continue;
+    		Integer piBondCount = (Integer)type.getProperty(CDKConstants.PI_BOND_COUNT);
+    		if (piBondCount != null && type.getFormalNeighbourCount() != null)
+    			type.setValency(piBondCount + type.getFormalNeighbourCount());
+    		types.put(type.getAtomTypeName(), type);
+    	}
+    	atomTypes = Collections.unmodifiableMap(types);
     }
     
     @TestMethod("testGetInstance_IChemObjectBuilder")
@@ -83,7 +107,7 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     }
 
     @TestMethod("testGetInstance_IChemObjectBuilder_int")
-    public static CDKAtomTypeMatcher getInstance(IChemObjectBuilder builder, int mode) {
+    public static synchronized CDKAtomTypeMatcher getInstance(IChemObjectBuilder builder, int mode) {
     	if (!factories.containsKey(mode))
     		factories.put(mode, new Hashtable<IChemObjectBuilder,CDKAtomTypeMatcher>(1));
     	if (!factories.get(mode).containsKey(builder))
@@ -91,13 +115,12 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     	return factories.get(mode).get(builder);
     }
     
-    @TestMethod("testFindMatchingAtomType_IAtomContainer")
+    @TestMethod("testFindMatchingAtomType_IAtomContainer,testFindMatchingAtomType_IAtomContainer_threads,testFindMatchingAtomType_IAtomContainer_copy")
     public IAtomType[] findMatchingAtomType(IAtomContainer atomContainer) throws CDKException {
-        IAtomType[] types = new IAtomType[atomContainer.getAtomCount()];
-        int typeCounter = 0;
-        for (IAtom atom : atomContainer.atoms()) {
-            types[typeCounter] = findMatchingAtomType(atomContainer, atom);
-            typeCounter++;
+        AtomEnvironment[] environments = AtomEnvironment.perceive(atomContainer);
+        IAtomType[] types = new IAtomType[environments.length];
+        for (int i = 0; i < environments.length; i++) {
+            types[i] = findMatchingAtomType(environments[i]);
         }
         return types;
     }
@@ -105,416 +128,410 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     @TestMethod("testFindMatchingAtomType_IAtomContainer_IAtom")
     public IAtomType findMatchingAtomType(IAtomContainer atomContainer, IAtom atom)
         throws CDKException {
+        if (!atomContainer.contains(atom)) {
+            // not in the molecule: it has no bonds nor single electrons
+            IAtomContainer single = atomContainer.getBuilder().newInstance(IAtomContainer.class);
+            single.addAtom(atom);
+            return findMatchingAtomType(AtomEnvironment.perceive(single)[0]);
+        }
+        return findMatchingAtomType(AtomEnvironment.perceive(atomContainer, atom));
+    }
+
+    /**
+     * Perceives the atom type of an atom from its environment.
+     */
+    private IAtomType findMatchingAtomType(AtomEnvironment environment) throws CDKException {
+        IAtom atom = environment.atom;
         IAtomType type = null;
         if (atom instanceof IPseudoAtom) {
         	return factory.getAtomType("X");
         }
         if ("C".equals(atom.getSymbol())) {
-            type = perceiveCarbons(atomContainer, atom);
+            type = perceiveCarbons(environment, atom);
         } else if ("Li".equals(atom.getSymbol())) {
-            type = perceiveLithium(atomContainer, atom);
+            type = perceiveLithium(environment, atom);
         } else if ("O".equals(atom.getSymbol())) {
-            type = perceiveOxygens(atomContainer, atom);
+            type = perceiveOxygens(environment, atom);
         } else if ("N".equals(atom.getSymbol())) {
-            type = perceiveNitrogens(atomContainer, atom);
+            type = perceiveNitrogens(environment, atom);
         } else if ("H".equals(atom.getSymbol())) {
-            type = perceiveHydrogens(atomContainer, atom);
+            type = perceiveHydrogens(environment, atom);
         } else if ("S".equals(atom.getSymbol())) {
-            type = perceiveSulphurs(atomContainer, atom);
+            type = perceiveSulphurs(environment, atom);
         } else if ("P".equals(atom.getSymbol())) {
-            type = perceivePhosphors(atomContainer, atom);
+            type = perceivePhosphors(environment, atom);
         } else if ("Si".equals(atom.getSymbol())) {
-            type = perceiveSilicon(atomContainer, atom);
+            type = perceiveSilicon(environment, atom);
         } else if ("B".equals(atom.getSymbol())) {
-            type = perceiveBorons(atomContainer, atom);
+            type = perceiveBorons(environment, atom);
         } else if ("Be".equals(atom.getSymbol())) {
-            type = perceiveBeryllium(atomContainer, atom);
+            type = perceiveBeryllium(environment, atom);
         } else if ("Cr".equals(atom.getSymbol())) {
-            type = perceiveChromium(atomContainer, atom);
+            type = perceiveChromium(environment, atom);
         } else if ("Se".equals(atom.getSymbol())) {
-            type = perceiveSelenium(atomContainer, atom);
+            type = perceiveSelenium(environment, atom);
         } else if ("Mo".equals(atom.getSymbol())) {
-            type = perceiveMolybdenum(atomContainer, atom);
+            type = perceiveMolybdenum(environment, atom);
         } else if ("Rb".equals(atom.getSymbol())) {
-            type = perceiveRubidium(atomContainer, atom);
+            type = perceiveRubidium(environment, atom);
         } else if ("Te".equals(atom.getSymbol())) {
-            type = perceiveTellurium(atomContainer, atom);
+            type = perceiveTellurium(environment, atom);
         } else if ("Cu".equals(atom.getSymbol())) {
-            type = perceiveCopper(atomContainer, atom);
+            type = perceiveCopper(environment, atom);
         } else if ("Ba".equals(atom.getSymbol())) {
-            type = perceiveBarium(atomContainer, atom);
+            type = perceiveBarium(environment, atom);
         } else if ("Ga".equals(atom.getSymbol())) {
-            type = perceiveGallium(atomContainer, atom);
+            type = perceiveGallium(environment, atom);
         } else if ("Ru".equals(atom.getSymbol())) {
-            type = perceiveRuthenium(atomContainer, atom);
+            type = perceiveRuthenium(environment, atom);
         } else if ("Zn".equals(atom.getSymbol())) {
-            type = perceiveZinc(atomContainer, atom);
+            type = perceiveZinc(environment, atom);
         } else if ("Al".equals(atom.getSymbol())) {
-            type = perceiveAluminium(atomContainer, atom);
+            type = perceiveAluminium(environment, atom);
         }  else if ("Ni".equals(atom.getSymbol())) {
-            type = perceiveNickel(atomContainer, atom);
+            type = perceiveNickel(environment, atom);
         } else if ("Gd".equals(atom.getSymbol())) {
-            type = perceiveGadolinum(atomContainer, atom);
+            type = perceiveGadolinum(environment, atom);
         } else if ("Ge".equals(atom.getSymbol())) {
-            type = perceiveGermanium(atomContainer, atom);
+            type = perceiveGermanium(environment, atom);
         } else if ("Co".equals(atom.getSymbol())) {
-            type = perceiveCobalt(atomContainer, atom);
+            type = perceiveCobalt(environment, atom);
         } else if ("Br".equals(atom.getSymbol())) {
-            type = perceiveBromine(atomContainer, atom);
+            type = perceiveBromine(environment, atom);
         } else if ("V".equals(atom.getSymbol())) {
-            type = perceiveVanadium(atomContainer, atom);
+            type = perceiveVanadium(environment, atom);
         } else if ("Ti".equals(atom.getSymbol())) {
-            type = perceiveTitanium(atomContainer, atom);
+            type = perceiveTitanium(environment, atom);
         } else if ("Sr".equals(atom.getSymbol())) {
-            type = perceiveStrontium(atomContainer, atom);
+            type = perceiveStrontium(environment, atom);
         } else if ("Pb".equals(atom.getSymbol())) {
-            type = perceiveLead(atomContainer, atom);
+            type = perceiveLead(environment, atom);
         } else if ("Tl".equals(atom.getSymbol())) {
-            type = perceiveThallium(atomContainer, atom);
+            type = perceiveThallium(environment, atom);
         } else if ("Sb".equals(atom.getSymbol())) {
-            type = perceiveAntimony(atomContainer, atom);
+            type = perceiveAntimony(environment, atom);
         } else if ("Pt".equals(atom.getSymbol())) {
-            type = perceivePlatinum(atomContainer, atom);
+            type = perceivePlatinum(environment, atom);
         } else if ("Hg".equals(atom.getSymbol())) {
-            type = perceiveMercury(atomContainer, atom);
+            type = perceiveMercury(environment, atom);
         } else if ("Fe".equals(atom.getSymbol())) {
-            type = perceiveIron(atomContainer, atom);
+            type = perceiveIron(environment, atom);
         } else if ("Ra".equals(atom.getSymbol())) {
-            type = perceiveRadium(atomContainer, atom);
+            type = perceiveRadium(environment, atom);
         } else if ("Au".equals(atom.getSymbol())) {
-            type = perceiveGold(atomContainer, atom);
+            type = perceiveGold(environment, atom);
         } else if ("Ag".equals(atom.getSymbol())) {
-            type = perceiveSilver(atomContainer, atom);
+            type = perceiveSilver(environment, atom);
         } else if ("Cl".equals(atom.getSymbol())) {
-            type = perceiveChlorine(atomContainer, atom);
+            type = perceiveChlorine(environment, atom);
         } else if ("In".equals(atom.getSymbol())) {
-            type = perceiveIndium(atomContainer, atom);
+            type = perceiveIndium(environment, atom);
         } else if ("Pu".equals(atom.getSymbol())) {
-            type = perceivePlutonium(atomContainer, atom);
+            type = perceivePlutonium(environment, atom);
         } else if ("Th".equals(atom.getSymbol())) {
-            type = perceiveThorium(atomContainer, atom);
+            type = perceiveThorium(environment, atom);
         } else if ("K".equals(atom.getSymbol())) {
-            type = perceivePotassium(atomContainer, atom);
+            type = perceivePotassium(environment, atom);
         } else if ("Mn".equals(atom.getSymbol())) {
-            type = perceiveManganese(atomContainer, atom);
+            type = perceiveManganese(environment, atom);
         } else if ("Mg".equals(atom.getSymbol())) {
-            type = perceiveMagnesium(atomContainer, atom);
+            type = perceiveMagnesium(environment, atom);
         } else if ("Na".equals(atom.getSymbol())) {
-            type = perceiveSodium(atomContainer, atom);
+            type = perceiveSodium(environment, atom);
         } else if ("As".equals(atom.getSymbol())) {
-            type = perceiveArsenic(atomContainer, atom);
+            type = perceiveArsenic(environment, atom);
         } else if ("Cd".equals(atom.getSymbol())) {
-            type = perceiveCadmium(atomContainer, atom);
+            type = perceiveCadmium(environment, atom);
         } else if ("Ca".equals(atom.getSymbol())) {
-            type = perceiveCalcium(atomContainer, atom);
+            type = perceiveCalcium(environment, atom);
         } else {
-            if (type == null) type = perceiveHalogens(atomContainer, atom);
-            if (type == null) type = perceiveCommonSalts(atomContainer, atom);
-            if (type == null) type = perceiveOrganometallicCenters(atomContainer, atom);
-            if (type == null) type = perceiveNobelGases(atomContainer, atom);
+            if (type == null) type = perceiveHalogens(environment, atom);
+            if (type == null) type = perceiveCommonSalts(environment, atom);
+            if (type == null) type = perceiveOrganometallicCenters(environment, atom);
+            if (type == null) type = perceiveNobelGases(environment, atom);
         }
         return type;
     }
     
-    private IAtomType perceiveGallium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+    private IAtomType perceiveGallium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        IBond.Order maxBondOrder = environment.maxBondOrder;
         if (!isCharged(atom) && maxBondOrder == IBond.Order.SINGLE &&
-            atomContainer.getConnectedAtomsCount(atom) <= 3) {
+            environment.bonds.length <= 3) {
             IAtomType type = getAtomType("Ga");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() == 3) {
             IAtomType type = getAtomType("Ga.3plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
 
-    private IAtomType perceiveGermanium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+    private IAtomType perceiveGermanium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        IBond.Order maxBondOrder = environment.maxBondOrder;
         if (!isCharged(atom) && maxBondOrder == IBond.Order.SINGLE &&
-            atomContainer.getConnectedAtomsCount(atom) <= 4) {
+            environment.bonds.length <= 4) {
             IAtomType type = getAtomType("Ge");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
-        if (atom.getFormalCharge() == 0 && atomContainer.getConnectedAtomsCount(atom) == 3) {
+        if (atom.getFormalCharge() == 0 && environment.bonds.length == 3) {
             IAtomType type = getAtomType("Ge.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
 
-    private IAtomType perceiveSelenium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveSelenium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if ("Se".equals(atom.getSymbol())) {
-            int doublebondcount = countAttachedDoubleBonds(atomContainer, atom);
+            int doublebondcount = countAttachedDoubleBonds(environment);
             if (atom.getFormalCharge() != CDKConstants.UNSET
                     && atom.getFormalCharge() == 0) {
-                if (atomContainer.getConnectedAtomsCount(atom) == 0) {
+                if (environment.bonds.length == 0) {
                 	if (atom.getImplicitHydrogenCount() != null && atom.getImplicitHydrogenCount() == 0 ) {
                 		IAtomType type = getAtomType("Se.2");
-                		if (isAcceptable(atom, atomContainer, type)) return type;
+                		if (isAcceptable(atom, environment, type)) return type;
                 	} else {
                 		IAtomType type = getAtomType("Se.3");
-                		if (isAcceptable(atom, atomContainer, type)) return type;
+                		if (isAcceptable(atom, environment, type)) return type;
                 	}
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 1) {
+                } else if (environment.bonds.length == 1) {
 
                     if (doublebondcount == 1) {
                         IAtomType type = getAtomType("Se.1");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     } else if (doublebondcount == 0) {
                         IAtomType type = getAtomType("Se.3");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 2) {
+                } else if (environment.bonds.length == 2) {
                     if (doublebondcount == 0) {
                         IAtomType type = getAtomType("Se.3");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     } else if (doublebondcount == 2) {
                         IAtomType type = getAtomType("Se.sp2.2");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 3) {
+                } else if (environment.bonds.length == 3) {
                     IAtomType type = getAtomType("Se.sp3.3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 4) {
+                    if (isAcceptable(atom, environment, type)) return type;
+                } else if (environment.bonds.length == 4) {
                     if (doublebondcount == 2) {
                         IAtomType type = getAtomType("Se.sp3.4");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     } else if (doublebondcount == 0) {
                         IAtomType type = getAtomType("Se.sp3d1.4");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 5) {
+                } else if (environment.bonds.length == 5) {
                     IAtomType type = getAtomType("Se.5");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET && atom.getFormalCharge() == 4)
-                    && atomContainer.getConnectedAtomsCount(atom) == 0) {
+                    && environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Se.4plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET && atom.getFormalCharge() == 1)
-                    && atomContainer.getConnectedAtomsCount(atom) == 3) {
+                    && environment.bonds.length == 3) {
                 IAtomType type = getAtomType("Se.plus.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET && atom.getFormalCharge() == -2)
-                    && atomContainer.getConnectedAtomsCount(atom) == 0) {
+                    && environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Se.2minus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
 
-    private IAtomType perceiveTellurium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
-        if (!isCharged(atom) && maxBondOrder == IBond.Order.SINGLE && atomContainer.getConnectedAtomsCount(atom) <= 2) {
+    private IAtomType perceiveTellurium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        IBond.Order maxBondOrder = environment.maxBondOrder;
+        if (!isCharged(atom) && maxBondOrder == IBond.Order.SINGLE && environment.bonds.length <= 2) {
             IAtomType type = getAtomType("Te.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() == 4) {
-            if (atomContainer.getConnectedAtomsCount(atom) == 0) {
+            if (environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Te.4plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
 
-	private IAtomType perceiveBorons(IAtomContainer atomContainer, IAtom atom)
+	private IAtomType perceiveBorons(AtomEnvironment environment, IAtom atom)
 		throws CDKException {
-	    IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	    IBond.Order maxBondOrder = environment.maxBondOrder;
 	    if (atom.getFormalCharge() == -1 && 
 	        maxBondOrder == IBond.Order.SINGLE &&
-	        atomContainer.getConnectedAtomsCount(atom) <= 4) {
+	        environment.bonds.length <= 4) {
 	        IAtomType type = getAtomType("B.minus");
-	        if (isAcceptable(atom, atomContainer, type)) return type;
+	        if (isAcceptable(atom, environment, type)) return type;
 	    } else if (atom.getFormalCharge() == +3
-                && atomContainer.getConnectedAtomsCount(atom) == 4) {
+                && environment.bonds.length == 4) {
             IAtomType type = getAtomType("B.3plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-	    } else if (atomContainer.getConnectedAtomsCount(atom) <= 3) {
+            if (isAcceptable(atom, environment, type)) return type;
+	    } else if (environment.bonds.length <= 3) {
 	        IAtomType type = getAtomType("B");
-	        if (isAcceptable(atom, atomContainer, type)) return type;
+	        if (isAcceptable(atom, environment, type)) return type;
 	    }
     	return null;
     }
 
-    private IAtomType perceiveBeryllium(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveBeryllium(AtomEnvironment environment, IAtom atom)
     	throws CDKException {
 		if (atom.getFormalCharge() == -2 &&
-		    atomContainer.getMaximumBondOrder(atom) == IBond.Order.SINGLE &&
-		    atomContainer.getConnectedAtomsCount(atom) <= 4) {
+		    environment.maxBondOrder == IBond.Order.SINGLE &&
+		    environment.bonds.length <= 4) {
 		    IAtomType type = getAtomType("Be.2minus");
-		    if (isAcceptable(atom, atomContainer, type)) return type;
+		    if (isAcceptable(atom, environment, type)) return type;
 		} else if (atom.getFormalCharge() == 0 &&
-                   atomContainer.getConnectedAtomsCount(atom) == 0) {
+                   environment.bonds.length == 0) {
             IAtomType type = getAtomType("Be.neutral");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
 		return null;
     }
 
-    private IAtomType perceiveCarbonRadicals(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (atomContainer.getConnectedBondsCount(atom) == 0) {
+    private IAtomType perceiveCarbonRadicals(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (environment.bonds.length == 0) {
             IAtomType type = getAtomType("C.radical.planar");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atomContainer.getConnectedBondsCount(atom) <= 3) {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.bonds.length <= 3) {
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (maxBondOrder == IBond.Order.SINGLE) {
                 IAtomType type = getAtomType("C.radical.planar");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == IBond.Order.DOUBLE) {
                 IAtomType type = getAtomType("C.radical.sp2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == IBond.Order.TRIPLE) {
                 IAtomType type = getAtomType("C.radical.sp1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
     
-	private IAtomType perceiveCarbons(IAtomContainer atomContainer, IAtom atom)
+	private IAtomType perceiveCarbons(AtomEnvironment environment, IAtom atom)
     	throws CDKException {
 	    // if hybridization is given, use that
-	    if (hasOneSingleElectron(atomContainer, atom)) {
-	        return perceiveCarbonRadicals(atomContainer, atom);
+	    if (hasOneSingleElectron(environment)) {
+	        return perceiveCarbonRadicals(environment, atom);
 	    } else if (hasHybridization(atom) && !isCharged(atom)) {
 	        if (atom.getHybridization() == Hybridization.SP2) {
 	            IAtomType type = getAtomType("C.sp2");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        } else if (atom.getHybridization() == Hybridization.SP3) {
 	            IAtomType type = getAtomType("C.sp3");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        } else if (atom.getHybridization() == Hybridization.SP1) {
-	        	IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	        	IBond.Order maxBondOrder = environment.maxBondOrder;
 	        	if (maxBondOrder == Order.TRIPLE) {
 		            IAtomType type = getAtomType("C.sp");
-		            if (isAcceptable(atom, atomContainer, type)) return type;
+		            if (isAcceptable(atom, environment, type)) return type;
 	        	} else {
 	        		IAtomType type = getAtomType("C.allene");
-	        		if (isAcceptable(atom, atomContainer, type)) return type;
+	        		if (isAcceptable(atom, environment, type)) return type;
 	        	}
 	        }
 	    } else if (atom.getFlag(CDKConstants.ISAROMATIC)) {
 	        IAtomType type = getAtomType("C.sp2");
-	        if (isAcceptable(atom, atomContainer, type)) return type;
-	    } else if (hasOneOrMoreSingleOrDoubleBonds(atomContainer, atom)) {
+	        if (isAcceptable(atom, environment, type)) return type;
+	    } else if (environment.singleOrDoubleBond) {
 	        IAtomType type = getAtomType("C.sp2");
-	        if (isAcceptable(atom, atomContainer, type)) return type;
+	        if (isAcceptable(atom, environment, type)) return type;
 	    } else if (isCharged(atom)) {
 	        if (atom.getFormalCharge() == 1) {
-	            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+	            if (environment.bonds.length == 0) {
 	                IAtomType type = getAtomType("C.plus.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else {
-	                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	                IBond.Order maxBondOrder = environment.maxBondOrder;
 	                if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE) {
 	                    IAtomType type = getAtomType("C.plus.sp1");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
 	                    IAtomType type = getAtomType("C.plus.sp2");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                } else if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
 	                    IAtomType type = getAtomType("C.plus.planar");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                } 
 	            }
 	        } else if (atom.getFormalCharge() == -1) {
-	            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	            IBond.Order maxBondOrder = environment.maxBondOrder;
 	            if (maxBondOrder == CDKConstants.BONDORDER_SINGLE &&
-	                    atomContainer.getConnectedBondsCount(atom) <= 3) {
-	                if (isRingAtom(atom, atomContainer) && bothNeighborsAreSp2(atom, atomContainer)) {
+	                    environment.bonds.length <= 3) {
+	                if (environment.isInRing() && bothNeighborsAreSp2(environment)) {
 	                    IAtomType type = getAtomType("C.minus.planar");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                }
 	                IAtomType type = getAtomType("C.minus.sp3");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE &&
-	                    atomContainer.getConnectedBondsCount(atom) <= 3) {
+	                    environment.bonds.length <= 3) {
 	                IAtomType type = getAtomType("C.minus.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE &&
-	                    atomContainer.getConnectedBondsCount(atom) <= 1) {
+	                    environment.bonds.length <= 1) {
 	                IAtomType type = getAtomType("C.minus.sp1");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        }
 	        return null;
-	    } else if (atomContainer.getConnectedBondsCount(atom) > 4) {
+	    } else if (environment.bonds.length > 4) {
 	        // FIXME: I don't perceive carbons with more than 4 connections yet
 	        return null;
 	    } else { // OK, use bond order info
-	        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	        IBond.Order maxBondOrder = environment.maxBondOrder;
 	        if (maxBondOrder == IBond.Order.QUADRUPLE) {
 	            // WTF??
 	            return null;
 	        } else if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE) {
 	            IAtomType type = getAtomType("C.sp");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
 	            // OK, one or two double bonds?
-	            int doubleBondCount = countAttachedDoubleBonds(atomContainer, atom);
+	            int doubleBondCount = countAttachedDoubleBonds(environment);
 	            if (doubleBondCount == 2) {
 	                IAtomType type = getAtomType("C.allene");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else if (doubleBondCount == 1) {
 	                IAtomType type = getAtomType("C.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        } else {
-	            if (hasAromaticBond(atomContainer, atom)) {
+	            if (environment.aromaticBond) {
 	                IAtomType type = getAtomType("C.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	            IAtomType type = getAtomType("C.sp3");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        }
 	    }
     	return null;
     }
 
-    private boolean hasOneOrMoreSingleOrDoubleBonds(IAtomContainer atomContainer, IAtom atom) {
-    	for (IBond bond : atomContainer.getConnectedBondsList(atom)) {
-    		if (bond.getFlag(CDKConstants.SINGLE_OR_DOUBLE)) return true;
-    	}
-		return false;
-	}
-
-	private boolean hasOneSingleElectron(IAtomContainer atomContainer, IAtom atom) {
-	    Iterator<ISingleElectron> singleElectrons = atomContainer.singleElectrons().iterator();
-	    while (singleElectrons.hasNext()) {
-	    	if (singleElectrons.next().contains(atom)) return true;
-	    }
-	    return false;
-    }
-
-    private int countSingleElectrons(IAtomContainer atomContainer, IAtom atom) {
-	    Iterator<ISingleElectron> singleElectrons = atomContainer.singleElectrons().iterator();
-	    int count = 0;
-	    while (singleElectrons.hasNext()) {
-	    	if (singleElectrons.next().contains(atom)) count++;
-	    }
-	    return count;
+	private boolean hasOneSingleElectron(AtomEnvironment environment) {
+	    return environment.singleElectronCount > 0;
     }
 
-    private IAtomType perceiveOxygenRadicals(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveOxygenRadicals(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() == 0) {
-            if (atomContainer.getConnectedBondsCount(atom) <= 1) {
+            if (environment.bonds.length <= 1) {
                 IAtomType type = getAtomType("O.sp3.radical");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (atom.getFormalCharge() == +1) {
-            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+            if (environment.bonds.length == 0) {
                 IAtomType type = getAtomType("O.plus.radical");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedBondsCount(atom) <= 2) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds.length <= 2) {
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("O.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (maxBondOrder == IBond.Order.DOUBLE) {
                     IAtomType type = getAtomType("O.plus.sp2.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
         }
@@ -529,114 +546,114 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         return atom.getHybridization() != CDKConstants.UNSET;
     }
     
-	private IAtomType perceiveOxygens(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-	    if (hasOneSingleElectron(atomContainer, atom)) {
-	        return perceiveOxygenRadicals(atomContainer, atom);
+	private IAtomType perceiveOxygens(AtomEnvironment environment, IAtom atom) throws CDKException {
+	    if (hasOneSingleElectron(environment)) {
+	        return perceiveOxygenRadicals(environment, atom);
 	    }
 	    
 	    // if hybridization is given, use that
 	    if (hasHybridization(atom) && !isCharged(atom)) {
 	        if (atom.getHybridization() == Hybridization.SP2) {
-	            int connectedAtomsCount = atomContainer.getConnectedAtomsCount(atom);
+	            int connectedAtomsCount = environment.bonds.length;
 	            if (connectedAtomsCount == 1) {
-	                if (isCarboxylate(atom, atomContainer)) {
+	                if (isCarboxylate(environment)) {
 	                    IAtomType type = getAtomType("O.sp2.co2");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;    				        
+	                    if (isAcceptable(atom, environment, type)) return type;    				        
 	                } else {
 	                    IAtomType type = getAtomType("O.sp2");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                }
 	            } else if (connectedAtomsCount == 2) {
 	                IAtomType type = getAtomType("O.planar3");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }    				
 	        } else if (atom.getHybridization() == Hybridization.SP3) {
 	            IAtomType type = getAtomType("O.sp3");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        } else if (atom.getHybridization() == Hybridization.PLANAR3) {
 	            IAtomType type = getAtomType("O.planar3");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        }
 	    } else if (isCharged(atom)) {
 	        if (atom.getFormalCharge() == -1 &&
-	                atomContainer.getConnectedAtomsCount(atom) <= 1) {
-	            if (isCarboxylate(atom, atomContainer)) {
+	                environment.bonds.length <= 1) {
+	            if (isCarboxylate(environment)) {
 	                IAtomType type = getAtomType("O.minus.co2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else {
 	                IAtomType type = getAtomType("O.minus");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        } else if (atom.getFormalCharge() == -2 &&
-	                atomContainer.getConnectedAtomsCount(atom) == 0) {
+	                environment.bonds.length == 0) {
 	            IAtomType type = getAtomType("O.minus2");
-	            if (isAcceptable(atom, atomContainer, type)) return type;
+	            if (isAcceptable(atom, environment, type)) return type;
 	        } else if (atom.getFormalCharge() == +1) {
-	            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+	            if (environment.bonds.length == 0) {
 	                IAtomType type = getAtomType("O.plus");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
-	            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	            IBond.Order maxBondOrder = environment.maxBondOrder;
 	            if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
 	                IAtomType type = getAtomType("O.plus.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE) {
 	                IAtomType type = getAtomType("O.plus.sp1");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else {
 	                IAtomType type = getAtomType("O.plus");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        }
 	        return null;
-	    } else if (atomContainer.getConnectedBondsCount(atom) > 2) {
+	    } else if (environment.bonds.length > 2) {
 	        // FIXME: I don't perceive carbons with more than 4 connections yet
 	        return null;
-	    } else if (atomContainer.getConnectedBondsCount(atom) == 0) {
+	    } else if (environment.bonds.length == 0) {
 	        IAtomType type = getAtomType("O.sp3");
-	        if (isAcceptable(atom, atomContainer, type)) return type;
+	        if (isAcceptable(atom, environment, type)) return type;
 	    } else { // OK, use bond order info
-	        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+	        IBond.Order maxBondOrder = environment.maxBondOrder;
 	        if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
-	            if (isCarboxylate(atom, atomContainer)) {
+	            if (isCarboxylate(environment)) {
 	                IAtomType type = getAtomType("O.sp2.co2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else {
 	                IAtomType type = getAtomType("O.sp2");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        } else if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
-	            int explicitHydrogens = countExplicitHydrogens(atom, atomContainer);
-	            int connectedHeavyAtoms = atomContainer.getConnectedBondsCount(atom) - explicitHydrogens; 
+	            int explicitHydrogens = environment.hydrogenCount;
+	            int connectedHeavyAtoms = environment.bonds.length - explicitHydrogens; 
 	            if (connectedHeavyAtoms == 2) {
 	                // a O.sp3 which is expected to take part in an aromatic system
-	                if (isRingAtom(atom, atomContainer) && bothNeighborsAreSp2(atom, atomContainer)) {
+	                if (environment.isInRing() && bothNeighborsAreSp2(environment)) {
 	                    IAtomType type = getAtomType("O.planar3");
-	                    if (isAcceptable(atom, atomContainer, type)) return type;
+	                    if (isAcceptable(atom, environment, type)) return type;
 	                }
 	                IAtomType type = getAtomType("O.sp3");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            } else {
 	                IAtomType type = getAtomType("O.sp3");
-	                if (isAcceptable(atom, atomContainer, type)) return type;
+	                if (isAcceptable(atom, environment, type)) return type;
 	            }
 	        }
 	    }
     	return null;
     }
 
-    private boolean isCarboxylate(IAtom atom, IAtomContainer container) {
+    private boolean isCarboxylate(AtomEnvironment environment) {
         // assumes that the oxygen only has one neighbor (C=O, or C-[O-])
-        List<IAtom> neighbors = container.getConnectedAtomsList(atom);
-        if (neighbors.size() != 1) return false;
-        IAtom carbon = neighbors.get(0);
-        if (!"C".equals(carbon.getSymbol())) return false;
+        AtomEnvironment[] neighbours = environment.neighbours();
+        if (neighbours.length != 1 || neighbours[0] == null) return false;
+        AtomEnvironment carbon = neighbours[0];
+        if (!"C".equals(carbon.atom.getSymbol())) return false;
         
         int oxygenCount = 0;
         int singleBondedNegativeOxygenCount = 0;
         int doubleBondedOxygenCount = 0;
-        for (IBond cBond : container.getConnectedBondsList(carbon)) {
-            IAtom neighbor = cBond.getConnectedAtom(carbon);
+        for (IBond cBond : carbon.bonds) {
+            IAtom neighbor = cBond.getConnectedAtom(carbon.atom);
             if ("O".equals(neighbor.getSymbol())) {
                 oxygenCount++;
                 IBond.Order order = cBond.getOrder();
@@ -651,20 +668,22 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         return (oxygenCount == 2) && (singleBondedNegativeOxygenCount == 1) && (doubleBondedOxygenCount == 1);
     }
 
-    private boolean atLeastTwoNeighborsAreSp2(IAtom atom, IAtomContainer atomContainer) {
+    private boolean atLeastTwoNeighborsAreSp2(AtomEnvironment environment) {
     	int count = 0;
-    	Iterator<IAtom> atoms = atomContainer.getConnectedAtomsList(atom).iterator();
-    	while (atoms.hasNext() && (count < 2)) {
-    		IAtom nextAtom = atoms.next();
+    	AtomEnvironment[] neighbours = environment.neighbours();
+    	for (int i = 0; i < neighbours.length && count < 2; i++) {
+    		AtomEnvironment next = neighbours[i];
+    		if (next == null) continue;
+    		IAtom nextAtom = next.atom;
     		if (!nextAtom.getSymbol().equals("H")) {
     			if (nextAtom.getHybridization() != CDKConstants.UNSET &&
     				nextAtom.getHybridization() == Hybridization.SP2) {
     				// OK, it's SP2
     				count++;
-    			} else if (countAttachedDoubleBonds(atomContainer, nextAtom) > 0) {
+    			} else if (countAttachedDoubleBonds(next) > 0) {
     				// OK, it's SP2
     				count++;
-    			} else if (atomContainer.getBond(atom, nextAtom).getFlag(CDKConstants.ISAROMATIC)) {
+    			} else if (environment.getBond(next).getFlag(CDKConstants.ISAROMATIC)) {
                     // two aromatic bonds indicate sp2
                     count++;
                 } // OK, not SP2
@@ -673,274 +692,274 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     	return count >= 2;
     }
 
-    private boolean bothNeighborsAreSp2(IAtom atom, IAtomContainer atomContainer) {       
-    	return atLeastTwoNeighborsAreSp2(atom, atomContainer);
+    private boolean bothNeighborsAreSp2(AtomEnvironment environment) {       
+    	return atLeastTwoNeighborsAreSp2(environment);
     }
 
-    private IAtomType perceiveNitrogenRadicals(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (atomContainer.getConnectedBondsCount(atom) >= 1 &&
-                atomContainer.getConnectedBondsCount(atom) <= 2) {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+    private IAtomType perceiveNitrogenRadicals(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (environment.bonds.length >= 1 &&
+                environment.bonds.length <= 2) {
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (atom.getFormalCharge() != CDKConstants.UNSET &&
                     atom.getFormalCharge() == +1) {
                 if (maxBondOrder == IBond.Order.DOUBLE) {
                     IAtomType type = getAtomType("N.plus.sp2.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("N.plus.sp3.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if (atom.getFormalCharge() == CDKConstants.UNSET ||
                     atom.getFormalCharge() == 0) {
                 if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("N.sp3.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (maxBondOrder == IBond.Order.DOUBLE) {
                     IAtomType type = getAtomType("N.sp2.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
         } else {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (atom.getFormalCharge() != CDKConstants.UNSET &&
                     atom.getFormalCharge() == +1 && maxBondOrder == IBond.Order.SINGLE) {
                 IAtomType type = getAtomType("N.plus.sp3.radical");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
-    private IAtomType perceiveMolybdenum(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveMolybdenum(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 4) {
                 IAtomType type = getAtomType("Mo.4");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
             IAtomType type1 = getAtomType("Mo.metallic");
-            if (isAcceptable(atom, atomContainer, type1)) {
+            if (isAcceptable(atom, environment, type1)) {
                 return type1;
             }
         }
         return null;
     }
-    private IAtomType perceiveNitrogens(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveNitrogens(AtomEnvironment environment, IAtom atom) throws CDKException {
         // if hybridization is given, use that
-        if (hasOneSingleElectron(atomContainer, atom)) {
-            return perceiveNitrogenRadicals(atomContainer, atom);
+        if (hasOneSingleElectron(environment)) {
+            return perceiveNitrogenRadicals(environment, atom);
         } else if (hasHybridization(atom) && !isCharged(atom)) {
             if (atom.getHybridization() == Hybridization.SP1) {
-                int neighborCount = atomContainer.getConnectedAtomsCount(atom);
+                int neighborCount = environment.bonds.length;
                 if (neighborCount > 1) {
                     IAtomType type = getAtomType("N.sp1.2");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else {
                     IAtomType type = getAtomType("N.sp1");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if (atom.getHybridization() == Hybridization.SP2) {
-            	if (isAmide(atom, atomContainer)) {
+            	if (isAmide(environment)) {
                     IAtomType type = getAtomType("N.amide");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
-                } else if (isThioAmide(atom, atomContainer)) {
+                    if (isAcceptable(atom, environment, type)) return type;
+                } else if (isThioAmide(environment)) {
                     IAtomType type = getAtomType("N.thioamide");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
                 // but an sp2 hyb N might N.sp2 or N.planar3 (pyrrole), so check for the latter
-            	int neighborCount = atomContainer.getConnectedAtomsCount(atom);
+            	int neighborCount = environment.bonds.length;
             	if (neighborCount == 4 &&
-            	    IBond.Order.DOUBLE == atomContainer.getMaximumBondOrder(atom)) {
+            	    IBond.Order.DOUBLE == environment.maxBondOrder) {
             	    IAtomType type = getAtomType("N.oxide");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
             	} else
-            	if (neighborCount > 1 && bothNeighborsAreSp2(atom, atomContainer)) {
-            		IRing ring = getRing(atom, atomContainer);
+            	if (neighborCount > 1 && bothNeighborsAreSp2(environment)) {
+            		IRing ring = getRing(atom, environment.atomContainer);
             		int ringSize = ring == null ? 0 : ring.getAtomCount();
             		if (ring != null && ring.getAtomCount() > 0) {
             			if (neighborCount == 3) {
-                            IBond.Order maxOrder = atomContainer.getMaximumBondOrder(atom);
+                            IBond.Order maxOrder = environment.maxBondOrder;
                             if (maxOrder == IBond.Order.DOUBLE) {
                                 IAtomType type = getAtomType("N.sp2.3");
-                                if (isAcceptable(atom, atomContainer, type)) return type;
+                                if (isAcceptable(atom, environment, type)) return type;
                             } else if (maxOrder == IBond.Order.SINGLE) {
                                 IAtomType type = getAtomType("N.planar3");
-                                if (isAcceptable(atom, atomContainer, type)) return type;
+                                if (isAcceptable(atom, environment, type)) return type;
                             }
             			} else if (neighborCount == 2) {
-            				IBond.Order maxOrder = atomContainer.getMaximumBondOrder(atom);
+            				IBond.Order maxOrder = environment.maxBondOrder;
             				if (maxOrder == IBond.Order.SINGLE) {
             				    if (atom.getImplicitHydrogenCount() != CDKConstants.UNSET && atom.getImplicitHydrogenCount() == 1) {
             						IAtomType type = getAtomType("N.planar3");
-            						if (isAcceptable(atom, atomContainer, type)) return type;
+            						if (isAcceptable(atom, environment, type)) return type;
             					} else {
             						IAtomType type = getAtomType("N.sp2");
-            						if (isAcceptable(atom, atomContainer, type)) return type;
+            						if (isAcceptable(atom, environment, type)) return type;
             					}
             				} else if (maxOrder == IBond.Order.DOUBLE) {
             					IAtomType type = getAtomType("N.sp2");
-            					if (isAcceptable(atom, atomContainer, type)) return type;
+            					if (isAcceptable(atom, environment, type)) return type;
             				}
             			}
             		}
             	}
                 IAtomType type = getAtomType("N.sp2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getHybridization() == Hybridization.SP3) {
                 IAtomType type = getAtomType("N.sp3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getHybridization() == Hybridization.PLANAR3) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
-                if (atomContainer.getConnectedAtomsCount(atom) == 3 &&
+                IBond.Order maxBondOrder = environment.maxBondOrder;
+                if (environment.bonds.length == 3 &&
                         maxBondOrder == CDKConstants.BONDORDER_DOUBLE &&
-                        countAttachedDoubleBonds(atomContainer, atom, "O") == 2) {
+                        countAttachedDoubleBonds(environment, "O") == 2) {
                     IAtomType type = getAtomType("N.nitro");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
                 IAtomType type = getAtomType("N.planar3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (isCharged(atom)) {
             if (atom.getFormalCharge() == 1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == CDKConstants.BONDORDER_SINGLE ||
-                        atomContainer.getConnectedBondsCount(atom) == 0) {
+                        environment.bonds.length == 0) {
                     if (atom.getHybridization() == IAtomType.Hybridization.SP2) {
                         IAtomType type = getAtomType("N.plus.sp2");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
                     IAtomType type = getAtomType("N.plus");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
-                    int doubleBonds= countAttachedDoubleBonds(atomContainer, atom);
+                    int doubleBonds= countAttachedDoubleBonds(environment);
                     if (doubleBonds == 1) {
                         IAtomType type = getAtomType("N.plus.sp2");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     } else if (doubleBonds == 2) {
                         IAtomType type = getAtomType("N.plus.sp1");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
                 } else if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE) {
-                    if (atomContainer.getConnectedBondsCount(atom) == 2) {
+                    if (environment.bonds.length == 2) {
                         IAtomType type = getAtomType("N.plus.sp1");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
                 }
             } else if (atom.getFormalCharge() == -1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
-                    if (atomContainer.getConnectedAtomsCount(atom) >= 2 &&
-                    		bothNeighborsAreSp2(atom,atomContainer) &&
-                    		isRingAtom(atom, atomContainer)) {
+                    if (environment.bonds.length >= 2 &&
+                    		bothNeighborsAreSp2(environment) &&
+                    		environment.isInRing()) {
                         IAtomType type = getAtomType("N.minus.planar3");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
-                    } else if (atomContainer.getConnectedBondsCount(atom) <= 2) {
+                        if (isAcceptable(atom, environment, type)) return type;
+                    } else if (environment.bonds.length <= 2) {
                         IAtomType type = getAtomType("N.minus.sp3");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
                 } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
-                    if (atomContainer.getConnectedBondsCount(atom) <= 1) {
+                    if (environment.bonds.length <= 1) {
                         IAtomType type = getAtomType("N.minus.sp2");
-                        if (isAcceptable(atom, atomContainer, type)) return type;
+                        if (isAcceptable(atom, environment, type)) return type;
                     }
                 }
             }
-        } else if (atomContainer.getConnectedBondsCount(atom) > 3) {
-            if (atomContainer.getConnectedBondsCount(atom) == 4 &&
-                countAttachedDoubleBonds(atomContainer, atom) == 1) {
+        } else if (environment.bonds.length > 3) {
+            if (environment.bonds.length == 4 &&
+                countAttachedDoubleBonds(environment) == 1) {
                 IAtomType type = getAtomType("N.oxide");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
             return null;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 0) {
+        } else if (environment.bonds.length == 0) {
             IAtomType type = getAtomType("N.sp3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (hasOneOrMoreSingleOrDoubleBonds(atomContainer, atom)) {
-        	int connectedAtoms = atomContainer.getConnectedAtomsCount(atom) +
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.singleOrDoubleBond) {
+        	int connectedAtoms = environment.bonds.length +
         		(atom.getImplicitHydrogenCount() == CDKConstants.UNSET
         		    ? 0
         			: atom.getImplicitHydrogenCount());
         	if (connectedAtoms == 3) {
             	IAtomType type = getAtomType("N.planar3");
-            	if (isAcceptable(atom, atomContainer, type)) return type;
+            	if (isAcceptable(atom, environment, type)) return type;
         	}
         	IAtomType type = getAtomType("N.sp2");
-        	if (isAcceptable(atom, atomContainer, type)) return type;
+        	if (isAcceptable(atom, environment, type)) return type;
         } else { // OK, use bond order info
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
-                if (isAmide(atom, atomContainer)) {
+                if (isAmide(environment)) {
                     IAtomType type = getAtomType("N.amide");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
-                } else if (isThioAmide(atom, atomContainer)) {
+                    if (isAcceptable(atom, environment, type)) return type;
+                } else if (isThioAmide(environment)) {
                     IAtomType type = getAtomType("N.thioamide");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-                int explicitHydrogens = countExplicitHydrogens(atom, atomContainer);
-                int connectedHeavyAtoms = atomContainer.getConnectedBondsCount(atom) - explicitHydrogens;
+                int explicitHydrogens = environment.hydrogenCount;
+                int connectedHeavyAtoms = environment.bonds.length - explicitHydrogens;
                 if (connectedHeavyAtoms == 2) {
-                	List<IBond> bonds = atomContainer.getConnectedBondsList(atom);
-                    if (bonds.get(0).getFlag(CDKConstants.ISAROMATIC) &&
-                            bonds.get(1).getFlag(CDKConstants.ISAROMATIC)) {
+                	IBond[] bonds = environment.bonds;
+                    if (bonds[0].getFlag(CDKConstants.ISAROMATIC) &&
+                            bonds[1].getFlag(CDKConstants.ISAROMATIC)) {
                         Integer hCount = atom.getImplicitHydrogenCount();
                         if (hCount == CDKConstants.UNSET || hCount == 0) {
-                            if (atomContainer.getMaximumBondOrder(atom) == CDKConstants.BONDORDER_SINGLE &&
-                                    isSingleHeteroAtom(atom, atomContainer)) {
+                            if (environment.maxBondOrder == CDKConstants.BONDORDER_SINGLE &&
+                                    isSingleHeteroAtom(environment)) {
                                 IAtomType type = getAtomType("N.planar3");
-                                if (isAcceptable(atom, atomContainer, type)) return type;
+                                if (isAcceptable(atom, environment, type)) return type;
                             } else {
                                 IAtomType type = getAtomType("N.sp2");
-                                if (isAcceptable(atom, atomContainer, type)) return type;
+                                if (isAcceptable(atom, environment, type)) return type;
                             }
                         } else if (hCount == 1) {
                             IAtomType type = getAtomType("N.planar3");
-                            if (isAcceptable(atom, atomContainer, type))
+                            if (isAcceptable(atom, environment, type))
                                 return type;
                         }
-                	} else if (bothNeighborsAreSp2(atom, atomContainer) && isRingAtom(atom, atomContainer)) {
+                	} else if (bothNeighborsAreSp2(environment) && environment.isInRing()) {
                 		// a N.sp3 which is expected to take part in an aromatic system
                 		IAtomType type = getAtomType("N.planar3");
-                		if (isAcceptable(atom, atomContainer, type)) return type;
+                		if (isAcceptable(atom, environment, type)) return type;
                 	} else {
                 		IAtomType type = getAtomType("N.sp3");
-                		if (isAcceptable(atom, atomContainer, type)) return type;
+                		if (isAcceptable(atom, environment, type)) return type;
                 	}
                 } else if (connectedHeavyAtoms == 3) {
-                	if (bothNeighborsAreSp2(atom, atomContainer) && isRingAtom(atom, atomContainer)) {
+                	if (bothNeighborsAreSp2(environment) && environment.isInRing()) {
                 		IAtomType type = getAtomType("N.planar3");
-                		if (isAcceptable(atom, atomContainer, type)) return type;
+                		if (isAcceptable(atom, environment, type)) return type;
                 	}
                 	IAtomType type = getAtomType("N.sp3");
-                	if (isAcceptable(atom, atomContainer, type)) return type;
+                	if (isAcceptable(atom, environment, type)) return type;
                 } else if (connectedHeavyAtoms == 1) {
                     IAtomType type = getAtomType("N.sp3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (connectedHeavyAtoms == 0) {
                     IAtomType type = getAtomType("N.sp3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
-                if (atomContainer.getConnectedAtomsCount(atom) == 3 &&
-                        countAttachedDoubleBonds(atomContainer, atom, "O") == 2) {
+                if (environment.bonds.length == 3 &&
+                        countAttachedDoubleBonds(environment, "O") == 2) {
                     IAtomType type = getAtomType("N.nitro");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
-                } else if (atomContainer.getConnectedAtomsCount(atom) == 3 &&
-                        countAttachedDoubleBonds(atomContainer, atom) > 0) {
+                    if (isAcceptable(atom, environment, type)) return type;
+                } else if (environment.bonds.length == 3 &&
+                        countAttachedDoubleBonds(environment) > 0) {
                     IAtomType type = getAtomType("N.sp2.3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
                 IAtomType type = getAtomType("N.sp2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == CDKConstants.BONDORDER_TRIPLE) {
-                int neighborCount = atomContainer.getConnectedAtomsCount(atom);
+                int neighborCount = environment.bonds.length;
                 if (neighborCount > 1) {
                     IAtomType type = getAtomType("N.sp1.2");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else {
                     IAtomType type = getAtomType("N.sp1");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
         }
@@ -951,34 +970,34 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
      * Determines whether the bonds (up to two spheres away) are only to non
      * hetroatoms. Currently used in N.planar3 perception of (e.g. pyrrole).
      *
-     * @param atom an atom to test
-     * @param container container of the atom
+     * @param environment the environment of the atom to test
      *
      * @return whether the atom's only bonds are to hetroatoms
-     * @see #perceiveNitrogens(org.openscience.cdk.interfaces.IAtomContainer, org.openscience.cdk.interfaces.IAtom)
+     * @see #perceiveNitrogens(AtomEnvironment, org.openscience.cdk.interfaces.IAtom)
      */
-    private boolean isSingleHeteroAtom(IAtom atom, IAtomContainer container) {
+    private boolean isSingleHeteroAtom(AtomEnvironment environment) {
 
-        List<IAtom> connected = container.getConnectedAtomsList(atom);
+        for (AtomEnvironment atom1 : environment.neighbours()) {
 
-        for (IAtom atom1 : connected) {
+            if (atom1 == null)
+                continue;
 
-            boolean aromatic = container.getBond(atom, atom1).getFlag(CDKConstants.ISAROMATIC);
+            boolean aromatic = environment.getBond(atom1).getFlag(CDKConstants.ISAROMATIC);
 
             // ignoring non-aromatic bonds
             if(!aromatic)
                 continue;
 
             // found a hetroatom - we're not a single hetroatom
-            if(!"C".equals(atom1.getSymbol()))
+            if(!"C".equals(atom1.atom.getSymbol()))
                 return false;
 
             // check the second sphere
-            for (IAtom atom2 : container.getConnectedAtomsList(atom1)) {
+            for (AtomEnvironment atom2 : atom1.neighbours()) {
 
-                if (atom2 != atom
-                   && container.getBond(atom1, atom2).getFlag(CDKConstants.ISAROMATIC)
-                   && !"C".equals(atom2.getSymbol())) {
+                if (atom2 != null && atom2 != environment
+                   && atom1.getBond(atom2).getFlag(CDKConstants.ISAROMATIC)
+                   && !"C".equals(atom2.atom.getSymbol())) {
                         return false;
                 }
 
@@ -990,11 +1009,6 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
 
     }
 
-    private boolean isRingAtom(IAtom atom, IAtomContainer atomContainer) {
-    	SpanningTree st = new SpanningTree(atomContainer);
-        return st.getCyclicFragmentsContainer().contains(atom);
-    }
-
     private IRing getRing(IAtom atom, IAtomContainer atomContainer) {
     	SpanningTree st = new SpanningTree(atomContainer);
     	try {
@@ -1013,115 +1027,103 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     	return null;
     }
 
-    private boolean isAmide(IAtom atom, IAtomContainer atomContainer) {
-    	List<IAtom> neighbors = atomContainer.getConnectedAtomsList(atom);
-    	for (IAtom neighbor : neighbors) {
-    		if (neighbor.getSymbol().equals("C")) {
-    			if (countAttachedDoubleBonds(atomContainer, neighbor, "O") == 1) return true;
+    private boolean isAmide(AtomEnvironment environment) {
+    	for (AtomEnvironment neighbor : environment.neighbours()) {
+    		if (neighbor != null && neighbor.atom.getSymbol().equals("C")) {
+    			if (countAttachedDoubleBonds(neighbor, "O") == 1) return true;
     		}
     	}
     	return false;
     }
 
-    private boolean isThioAmide(IAtom atom, IAtomContainer atomContainer) {
-        List<IAtom> neighbors = atomContainer.getConnectedAtomsList(atom);
-        for (IAtom neighbor : neighbors) {
-            if (neighbor.getSymbol().equals("C")) {
-                if (countAttachedDoubleBonds(atomContainer, neighbor, "S") == 1) return true;
+    private boolean isThioAmide(AtomEnvironment environment) {
+        for (AtomEnvironment neighbor : environment.neighbours()) {
+            if (neighbor != null && neighbor.atom.getSymbol().equals("C")) {
+                if (countAttachedDoubleBonds(neighbor, "S") == 1) return true;
             }
         }
         return false;
     }
-
-    private int countExplicitHydrogens(IAtom atom, IAtomContainer atomContainer) {
-    	int count = 0;
-        for (IAtom aAtom : atomContainer.getConnectedAtomsList(atom)) {
-            if (aAtom.getSymbol().equals("H")) {
-                count++;
-            }
-        }
-    	return count;
-    }
     
-    private IAtomType perceiveIron(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveIron(AtomEnvironment environment, IAtom atom) throws CDKException {
         if ("Fe".equals(atom.getSymbol())) {
-            if (hasOneSingleElectron(atomContainer, atom)) {
+            if (hasOneSingleElectron(environment)) {
                 // no idea how to deal with this yet
                 return null;
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 0)) {
                 IAtomType type = getAtomType("Fe.metallic");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
-                int neighbors = atomContainer.getConnectedAtomsCount(atom);
+                int neighbors = environment.bonds.length;
                 if (neighbors == 2) {
                     IAtomType type5 = getAtomType("Fe.2");
-                    if (isAcceptable(atom, atomContainer, type5)) {
+                    if (isAcceptable(atom, environment, type5)) {
                         return type5;
                     }
                 } else if (neighbors == 3) {
                     IAtomType type6 = getAtomType("Fe.3");
-                    if (isAcceptable(atom, atomContainer, type6)) {
+                    if (isAcceptable(atom, environment, type6)) {
                         return type6;
                     }
                 } else if (neighbors == 4) {
                     IAtomType type7 = getAtomType("Fe.4");
-                    if (isAcceptable(atom, atomContainer, type7)) {
+                    if (isAcceptable(atom, environment, type7)) {
                         return type7;
                     }
                 } else if (neighbors == 5) {
                     IAtomType type8 = getAtomType("Fe.5");
-                    if (isAcceptable(atom, atomContainer, type8)) {
+                    if (isAcceptable(atom, environment, type8)) {
                         return type8;
                     }
                 } else if (neighbors == 6) {
                     IAtomType type9 = getAtomType("Fe.6");
-                    if (isAcceptable(atom, atomContainer, type9)) {
+                    if (isAcceptable(atom, environment, type9)) {
                         return type9;
                     }
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 2)) {
-                int neighbors = atomContainer.getConnectedAtomsCount(atom);
+                int neighbors = environment.bonds.length;
                 if (neighbors <= 1) {
                     IAtomType type = getAtomType("Fe.2plus");
-                    if (isAcceptable(atom, atomContainer, type)) {
+                    if (isAcceptable(atom, environment, type)) {
                         return type;
                     }
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 1)) {
-                int neighbors = atomContainer.getConnectedAtomsCount(atom);
+                int neighbors = environment.bonds.length;
 
                 if (neighbors == 2) {
                     IAtomType type0 = getAtomType("Fe.plus");
-                    if (isAcceptable(atom, atomContainer, type0)) {
+                    if (isAcceptable(atom, environment, type0)) {
                         return type0;
                     }
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 3)) {
                 IAtomType type1 = getAtomType("Fe.3plus");
-                if (isAcceptable(atom, atomContainer, type1)) {
+                if (isAcceptable(atom, environment, type1)) {
                     return type1;
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == -2)) {
                 IAtomType type2 = getAtomType("Fe.2minus");
-                if (isAcceptable(atom, atomContainer, type2)) {
+                if (isAcceptable(atom, environment, type2)) {
                     return type2;
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == -3)) {
                 IAtomType type3 = getAtomType("Fe.3minus");
-                if (isAcceptable(atom, atomContainer, type3)) {
+                if (isAcceptable(atom, environment, type3)) {
                     return type3;
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == -4)) {
                 IAtomType type4 = getAtomType("Fe.4minus");
-                if (isAcceptable(atom, atomContainer, type4)) {
+                if (isAcceptable(atom, environment, type4)) {
                     return type4;
                 }
             }
@@ -1130,48 +1132,48 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     }
 
 
-    private IAtomType perceiveMercury(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveMercury(AtomEnvironment environment, IAtom atom) throws CDKException {
         if ("Hg".equals(atom.getSymbol())) {
-            if (hasOneSingleElectron(atomContainer, atom)) {
+            if (hasOneSingleElectron(environment)) {
                 // no idea how to deal with this yet
                 return null;
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == -1)) {
                 IAtomType type = getAtomType("Hg.minus");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 2)) {
                 IAtomType type = getAtomType("Hg.2plus");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == +1)) {
-                int neighbors = atomContainer.getConnectedAtomsCount(atom);
+                int neighbors = environment.bonds.length;
                 if (neighbors <= 1) {  
                     IAtomType type = getAtomType("Hg.plus");
-                    if (isAcceptable(atom, atomContainer, type)) {
+                    if (isAcceptable(atom, environment, type)) {
                         return type;
                     }
                 }
             } else if ((atom.getFormalCharge() != null
                     && atom.getFormalCharge() == 0)) {
-                int neighbors = atomContainer.getConnectedAtomsCount(atom);
+                int neighbors = environment.bonds.length;
                 if (neighbors == 2) {
                     IAtomType type = getAtomType("Hg.2");
-                    if (isAcceptable(atom, atomContainer, type)) {
+                    if (isAcceptable(atom, environment, type)) {
                         return type;
                     }
                 } else if (neighbors == 1) {
                     IAtomType type = getAtomType("Hg.1");
-                    if (isAcceptable(atom, atomContainer, type)) {
+                    if (isAcceptable(atom, environment, type)) {
                         return type;
                     }
                 } else if (neighbors == 0) {
                     IAtomType type = getAtomType("Hg.metallic");
-                    if (isAcceptable(atom, atomContainer, type)) {
+                    if (isAcceptable(atom, environment, type)) {
                         return type;
                     }
                 }
@@ -1180,12 +1182,11 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         return null;
     }
 
-    private IAtomType perceiveSulphurs(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveSulphurs(AtomEnvironment environment, IAtom atom)
     throws CDKException {
-        List<IBond> neighbors = atomContainer.getConnectedBondsList(atom);
-        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
-        int neighborcount = neighbors.size();
-        if (hasOneSingleElectron(atomContainer, atom)) {
+        IBond.Order maxBondOrder = environment.maxBondOrder;
+        int neighborcount = environment.bonds.length;
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if (atom.getHybridization() != CDKConstants.UNSET &&
@@ -1194,10 +1195,10 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
                    atom.getFormalCharge() == +1) {
             if (neighborcount == 3) {
                 IAtomType type = getAtomType("S.inyl.charged");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("S.plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET &&
                    atom.getFormalCharge() != 0) {
@@ -1205,97 +1206,97 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
             if (atom.getFormalCharge() == -1 &&
                     neighborcount == 1) {
                 IAtomType type = getAtomType("S.minus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == +1 &&
                     neighborcount == 2) {
                 IAtomType type = getAtomType("S.plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == +1 &&
                     neighborcount == 3) {
                 IAtomType type = getAtomType("S.inyl.charged");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == +2 &&
                     neighborcount == 4) {
                 IAtomType type = getAtomType("S.onyl.charged");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == -2 &&
                     neighborcount == 0) {
                 IAtomType type = getAtomType("S.2minus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 0) {
             if (atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("S.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 1) {
-            if (atomContainer.getConnectedBondsList(atom).get(0).getOrder() == CDKConstants.BONDORDER_DOUBLE) {
+            if (environment.bonds[0].getOrder() == CDKConstants.BONDORDER_DOUBLE) {
                 IAtomType type = getAtomType("S.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedBondsList(atom).get(0).getOrder() == CDKConstants.BONDORDER_SINGLE) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds[0].getOrder() == CDKConstants.BONDORDER_SINGLE) {
                 IAtomType type = getAtomType("S.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 2) {
-            if (isRingAtom(atom, atomContainer) && bothNeighborsAreSp2(atom, atomContainer)) {
-                if (countAttachedDoubleBonds(atomContainer, atom) == 2) {
+            if (environment.isInRing() && bothNeighborsAreSp2(environment)) {
+                if (countAttachedDoubleBonds(environment) == 2) {
                     IAtomType type = getAtomType("S.inyl.2");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else {
                     IAtomType type = getAtomType("S.planar3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-            } else if (countAttachedDoubleBonds(atomContainer, atom, "O") == 2) {
+            } else if (countAttachedDoubleBonds(environment, "O") == 2) {
                 IAtomType type = getAtomType("S.oxide");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (countAttachedDoubleBonds(atomContainer, atom) == 2) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (countAttachedDoubleBonds(environment) == 2) {
                 IAtomType type = getAtomType("S.inyl.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (countAttachedDoubleBonds(atomContainer, atom) <= 1) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (countAttachedDoubleBonds(environment) <= 1) {
                 IAtomType type = getAtomType("S.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (countAttachedDoubleBonds(atomContainer, atom) == 0
-                    && countAttachedSingleBonds(atomContainer, atom) == 2) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (countAttachedDoubleBonds(environment) == 0
+                    && environment.countBonds(IBond.Order.SINGLE) == 2) {
                 IAtomType type = getAtomType("S.octahedral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 3) {
-            int doubleBondedAtoms = countAttachedDoubleBonds(atomContainer, atom);
+            int doubleBondedAtoms = countAttachedDoubleBonds(environment);
             if (doubleBondedAtoms == 1) {
                 IAtomType type = getAtomType("S.inyl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBondedAtoms == 3) {
                 IAtomType type = getAtomType("S.trioxide");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBondedAtoms == 0) {
                 IAtomType type = getAtomType("S.anyl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 4) {
             // count the number of double bonded oxygens
-            int doubleBondedOxygens = countAttachedDoubleBonds(atomContainer, atom, "O");
-            int doubleBondedNitrogens = countAttachedDoubleBonds(atomContainer, atom, "N");
-            int doubleBondedSulphurs = countAttachedDoubleBonds(atomContainer, atom, "S");
-            int countAttachedDoubleBonds = countAttachedDoubleBonds(atomContainer, atom);
+            int doubleBondedOxygens = countAttachedDoubleBonds(environment, "O");
+            int doubleBondedNitrogens = countAttachedDoubleBonds(environment, "N");
+            int doubleBondedSulphurs = countAttachedDoubleBonds(environment, "S");
+            int countAttachedDoubleBonds = countAttachedDoubleBonds(environment);
 
             if (doubleBondedOxygens + doubleBondedNitrogens == 2) {
                 IAtomType type = getAtomType("S.onyl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBondedSulphurs == 1
                     && doubleBondedOxygens == 1) {
                 IAtomType type = getAtomType("S.thionyl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
                 IAtomType type = getAtomType("S.anyl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBondedOxygens == 1) {
                 IAtomType type = getAtomType("S.sp3d1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (countAttachedDoubleBonds == 2
                     && maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
                 IAtomType type = getAtomType("S.sp3.4");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
 
         } else if (neighborcount == 5) {
@@ -1303,98 +1304,97 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
             if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
 
                 IAtomType type = getAtomType("S.sp3d1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
                 IAtomType type = getAtomType("S.octahedral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 6) {
             if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
                 IAtomType type = getAtomType("S.octahedral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
 
-    private IAtomType perceivePhosphors(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceivePhosphors(AtomEnvironment environment, IAtom atom)
     throws CDKException {
-        List<IBond> neighbors = atomContainer.getConnectedBondsList(atom);
-        int neighborcount = neighbors.size();
-        IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
-        if (countSingleElectrons(atomContainer, atom) == 3) {
+        int neighborcount = environment.bonds.length;
+        IBond.Order maxBondOrder = environment.maxBondOrder;
+        if (environment.singleElectronCount == 3) {
         	IAtomType type = getAtomType("P.se.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (hasOneSingleElectron(atomContainer, atom)) {
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if (neighborcount == 0) {
             if (atom.getFormalCharge() == null ||
                 atom.getFormalCharge().intValue() == 0) {
                 IAtomType type = getAtomType("P.ine");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 1) {
             if (atom.getFormalCharge() == null ||
                 atom.getFormalCharge().intValue() == 0) {
                 IAtomType type = getAtomType("P.ide");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 3) {
-        	int doubleBonds = countAttachedDoubleBonds(atomContainer, atom);
+        	int doubleBonds = countAttachedDoubleBonds(environment);
             if (atom.getFormalCharge() != null &
                 atom.getFormalCharge().intValue() == 1) {
                 IAtomType type = getAtomType("P.anium");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBonds == 1) {
             	IAtomType type = getAtomType("P.ate");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("P.ine");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 2) {
             if (maxBondOrder == CDKConstants.BONDORDER_DOUBLE) {
                 if (atom.getFormalCharge() != null &
                     atom.getFormalCharge().intValue() == 1) {
                     IAtomType type = getAtomType("P.sp1.plus");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else {
                     IAtomType type = getAtomType("P.irane");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if (maxBondOrder == CDKConstants.BONDORDER_SINGLE) {
                 IAtomType type = getAtomType("P.ine");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 4) {
             // count the number of double bonded oxygens
-            int doubleBonds = countAttachedDoubleBonds(atomContainer, atom);
+            int doubleBonds = countAttachedDoubleBonds(environment);
             if (atom.getFormalCharge() == 1 && doubleBonds == 0) {
                 IAtomType type = getAtomType("P.ate.charged");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (doubleBonds == 1){
                 IAtomType type = getAtomType("P.ate");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 5) {
             if (atom.getFormalCharge() == null ||
                 atom.getFormalCharge().intValue() == 0) {
                 IAtomType type = getAtomType("P.ane");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
     	return null;
     }
     
-    private IAtomType perceiveHydrogens(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveHydrogens(AtomEnvironment environment, IAtom atom)
     throws CDKException {
-        int neighborcount = atomContainer.getConnectedBondsCount(atom);
-        if (hasOneSingleElectron(atomContainer, atom)) {
+        int neighborcount = environment.bonds.length;
+        if (hasOneSingleElectron(environment)) {
             if ((atom.getFormalCharge() == CDKConstants.UNSET || atom.getFormalCharge() == 0) &&
                     neighborcount == 0) {
                 IAtomType type = getAtomType("H.radical");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
             return null;
         } else if (neighborcount == 2) {
@@ -1403,66 +1403,66 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         } else if (neighborcount == 1) {
             if (atom.getFormalCharge() == CDKConstants.UNSET || atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("H");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 0) {
             if (atom.getFormalCharge() == CDKConstants.UNSET || atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("H");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == 1){
                 IAtomType type = getAtomType("H.plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() == -1){
                 IAtomType type = getAtomType("H.minus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
     	return null;
     }
 
-    private IAtomType perceiveLithium(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveLithium(AtomEnvironment environment, IAtom atom)
     	throws CDKException {
-        int neighborcount = atomContainer.getConnectedBondsCount(atom);
+        int neighborcount = environment.bonds.length;
         if (neighborcount == 1) {
             if (atom.getFormalCharge() == CDKConstants.UNSET ||
                     atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("Li");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (neighborcount == 0) {
             if (atom.getFormalCharge() == CDKConstants.UNSET
                     || atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("Li.neutral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
             if (atom.getFormalCharge() == CDKConstants.UNSET
                     || atom.getFormalCharge() == +1) {
                 IAtomType type = getAtomType("Li.plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
     	return null;
     }
 
-    private IAtomType perceiveHalogens(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveHalogens(AtomEnvironment environment, IAtom atom)
     throws CDKException {
     	if ("F".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
-				if (atomContainer.getConnectedBondsCount(atom) == 0) {
+    		if (hasOneSingleElectron(environment)) {
+				if (environment.bonds.length == 0) {
 					if (atom.getFormalCharge() != CDKConstants.UNSET &&
 						atom.getFormalCharge() == +1) {
 						IAtomType type = getAtomType("F.plus.radical");
-						if (isAcceptable(atom, atomContainer, type)) return type;
+						if (isAcceptable(atom, environment, type)) return type;
 					} else if (atom.getFormalCharge() == CDKConstants.UNSET ||
 							   atom.getFormalCharge() == 0) {
 						IAtomType type = getAtomType("F.radical");
-						if (isAcceptable(atom, atomContainer, type)) return type;
+						if (isAcceptable(atom, environment, type)) return type;
 					}
-				} else if (atomContainer.getConnectedBondsCount(atom) <= 1) {
-					IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+				} else if (environment.bonds.length <= 1) {
+					IBond.Order maxBondOrder = environment.maxBondOrder;
 					if (maxBondOrder == IBond.Order.SINGLE) {
 						IAtomType type = getAtomType("F.plus.radical");
-						if (isAcceptable(atom, atomContainer, type)) return type;
+						if (isAcceptable(atom, environment, type)) return type;
 					}
 				}
 				return null;
@@ -1470,80 +1470,80 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     				atom.getFormalCharge() != 0) {
     			if (atom.getFormalCharge() == -1) {
     				IAtomType type = getAtomType("F.minus");
-    				if (isAcceptable(atom, atomContainer, type)) return type;
+    				if (isAcceptable(atom, environment, type)) return type;
     			} else if (atom.getFormalCharge() == 1) {
-    				IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+    				IBond.Order maxBondOrder = environment.maxBondOrder;
     				if (maxBondOrder == IBond.Order.DOUBLE) {
     					IAtomType type = getAtomType("F.plus.sp2");
-    					if (isAcceptable(atom, atomContainer, type)) return type;
+    					if (isAcceptable(atom, environment, type)) return type;
     				}else if (maxBondOrder == IBond.Order.SINGLE){
     					IAtomType type = getAtomType("F.plus.sp3");
-    					if (isAcceptable(atom, atomContainer, type)) return type;
+    					if (isAcceptable(atom, environment, type)) return type;
     				}
     			}
-    		} else if (atomContainer.getConnectedBondsCount(atom) == 1 ||
-    				atomContainer.getConnectedBondsCount(atom) == 0) {
+    		} else if (environment.bonds.length == 1 ||
+    				environment.bonds.length == 0) {
     			IAtomType type = getAtomType("F");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("I".equals(atom.getSymbol())) {
-    	    return perceiveIodine(atomContainer, atom);
+    	    return perceiveIodine(environment, atom);
     	}
     		
     	return null;
     }
-    private IAtomType perceiveArsenic(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveArsenic(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +1
-                && atomContainer.getConnectedBondsCount(atom) <= 4)) {
+                && environment.bonds.length <= 4)) {
             IAtomType type = getAtomType("As.plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 4) {
                 IAtomType type = getAtomType("As.5");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
             if (neighbors == 2) {
                 IAtomType type = getAtomType("As.2");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
             IAtomType type = getAtomType("As");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +3)) {
             IAtomType type = getAtomType("As.3plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -1)) {
             IAtomType type = getAtomType("As.minus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }   
      
-    private IAtomType perceiveThorium(IAtomContainer atomContainer, IAtom atom)
+    private IAtomType perceiveThorium(AtomEnvironment environment, IAtom atom)
             throws CDKException {
         if ("Th".equals(atom.getSymbol())) {
-            if (atom.getFormalCharge() == 0 && atomContainer.getConnectedBondsCount(atom) == 0) {
+            if (atom.getFormalCharge() == 0 && environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Th");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
@@ -1551,688 +1551,688 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         return null;
     }
 
-    private IAtomType perceiveRubidium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveRubidium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +1) {
             IAtomType type = getAtomType("Rb.plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) {
             IAtomType type = getAtomType("Rb.neutral");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }
-    private IAtomType perceiveCommonSalts(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveCommonSalts(AtomEnvironment environment, IAtom atom) throws CDKException {
         if ("Mg".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
     				atom.getFormalCharge() == +2)) {
     			IAtomType type = getAtomType("Mg.2plus");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Co".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
     				atom.getFormalCharge() == +2)) {
     			IAtomType type = getAtomType("Co.2plus");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		} else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
     				atom.getFormalCharge() == +3)) {
     			IAtomType type = getAtomType("Co.3plus");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
             } else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
                     atom.getFormalCharge() == 0)) {
                 IAtomType type = getAtomType("Co.metallic");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
     		}
         } else if ("W".equals(atom.getSymbol())) {
-            if (hasOneSingleElectron(atomContainer, atom)) {
+            if (hasOneSingleElectron(environment)) {
                 // no idea how to deal with this yet
                 return null;
             } else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
                     atom.getFormalCharge() == 0)) {
                 IAtomType type = getAtomType("W.metallic");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
     	}
     	return null;
     }
-    private IAtomType perceiveCopper(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveCopper(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Cu.2plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 1) {
                 IAtomType type = getAtomType("Cu.1");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             } else {
                 IAtomType type01 = getAtomType("Cu.metallic");
-                if (isAcceptable(atom, atomContainer, type01)) {
+                if (isAcceptable(atom, environment, type01)) {
                     return type01;
                 }
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +1) {
             IAtomType type02 = getAtomType("Cu.plus");
-            if (isAcceptable(atom, atomContainer, type02)) {
+            if (isAcceptable(atom, environment, type02)) {
                 return type02;
             }
         }
         return null;
     }
-    private IAtomType perceiveBarium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveBarium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 2)) {
             IAtomType type = getAtomType("Ba.2plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }
-    private IAtomType perceiveAluminium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveAluminium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 3) {
-            int connectedBondsCount = atomContainer.getConnectedBondsCount(atom);
+            int connectedBondsCount = environment.bonds.length;
             if (connectedBondsCount == 0) {
                 IAtomType type = getAtomType("Al.3plus");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0
-                && atomContainer.getConnectedBondsCount(atom) == 3) {
+                && environment.bonds.length == 3) {
             IAtomType type = getAtomType("Al");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -3
-                && atomContainer.getConnectedBondsCount(atom) == 6) {
+                && environment.bonds.length == 6) {
             IAtomType type = getAtomType("Al.3minus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }
-    private IAtomType perceiveZinc(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveZinc(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 0
+        } else if (environment.bonds.length == 0
                 && (atom.getFormalCharge() != null
                 && atom.getFormalCharge() == 0)) {
             IAtomType type = getAtomType("Zn.metallic");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 0
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.bonds.length == 0
                 && (atom.getFormalCharge() != null
                 && atom.getFormalCharge() == 2)) {
             IAtomType type = getAtomType("Zn.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 1
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.bonds.length == 1
                 && (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
             IAtomType type = getAtomType("Zn.1");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 2
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.bonds.length == 2
                 && (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
             IAtomType type = getAtomType("Zn");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
-    private IAtomType perceiveChromium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveChromium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0
-                && atomContainer.getConnectedBondsCount(atom) == 6) {
+                && environment.bonds.length == 6) {
             IAtomType type = getAtomType("Cr");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0
-                && atomContainer.getConnectedBondsCount(atom) == 4) {
+                && environment.bonds.length == 4) {
             IAtomType type = getAtomType("Cr.4");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 6
-                && atomContainer.getConnectedBondsCount(atom) == 0) {
+                && environment.bonds.length == 0) {
             IAtomType type = getAtomType("Cr.6plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0
-                && atomContainer.getConnectedBondsCount(atom) == 0) {
+                && environment.bonds.length == 0) {
             IAtomType type = getAtomType("Cr.neutral");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ("Cr".equals(atom.getSymbol())) {
             if (atom.getFormalCharge() != CDKConstants.UNSET
                     && atom.getFormalCharge() == 3
-                    && atomContainer.getConnectedBondsCount(atom) == 0) {
+                    && environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Cr.3plus");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
         }
         return null;
     }
-    private IAtomType perceiveOrganometallicCenters(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveOrganometallicCenters(AtomEnvironment environment, IAtom atom) throws CDKException {
     	if ("Po".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
-    		} else if (atomContainer.getConnectedBondsCount(atom) == 2) {
+    		} else if (environment.bonds.length == 2) {
     			IAtomType type = getAtomType("Po");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	}  else if ("Sn".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
     				atom.getFormalCharge() == 0 &&
-    				atomContainer.getConnectedBondsCount(atom) <= 4)) {
+    				environment.bonds.length <= 4)) {
     			IAtomType type = getAtomType("Sn.sp3");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Sc".equals(atom.getSymbol())) {
     		if (atom.getFormalCharge() != CDKConstants.UNSET &&
     			atom.getFormalCharge() == -3 &&
-    			atomContainer.getConnectedBondsCount(atom) == 6) {
+    			environment.bonds.length == 6) {
     			IAtomType type = getAtomType("Sc.3minus");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} 
     	return null;
     }
-    private IAtomType perceiveNickel(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveNickel(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Ni.2plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)
-                && atomContainer.getConnectedAtomsCount(atom) == 2) {
+                && environment.bonds.length == 2) {
             IAtomType type = getAtomType("Ni");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)
-                && atomContainer.getConnectedAtomsCount(atom) == 0) {
+                && environment.bonds.length == 0) {
             IAtomType type = getAtomType("Ni.metallic");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 1)
-                && atomContainer.getConnectedAtomsCount(atom) == 1) {
+                && environment.bonds.length == 1) {
             IAtomType type = getAtomType("Ni.plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }
-    private IAtomType perceiveNobelGases(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveNobelGases(AtomEnvironment environment, IAtom atom) throws CDKException {
     	if ("He".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
     			IAtomType type = getAtomType("He");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Ne".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
     			IAtomType type = getAtomType("Ne");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Ar".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
     			IAtomType type = getAtomType("Ar");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Kr".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
     			IAtomType type = getAtomType("Kr");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	} else if ("Xe".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
-            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+            if (environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Xe");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("Xe.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
     		}
     	} else if ("Rn".equals(atom.getSymbol())) {
-    		if (hasOneSingleElectron(atomContainer, atom)) {
+    		if (hasOneSingleElectron(environment)) {
     			// no idea how to deal with this yet
     			return null;
     		} else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
     				atom.getFormalCharge() == 0)) {
     			IAtomType type = getAtomType("Rn");
-    			if (isAcceptable(atom, atomContainer, type)) return type;
+    			if (isAcceptable(atom, environment, type)) return type;
     		}
     	}
     	return null;
     }
 
-    private IAtomType perceiveSilicon(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveSilicon(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) {
-            if (atomContainer.getConnectedBondsCount(atom) == 2) {
+            if (environment.bonds.length == 2) {
                 IAtomType type = getAtomType("Si.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedBondsCount(atom) == 3) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds.length == 3) {
                 IAtomType type = getAtomType("Si.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedBondsCount(atom) == 4) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds.length == 4) {
                 IAtomType type = getAtomType("Si.sp3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -2) {
             IAtomType type = getAtomType("Si.2minus.6");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveManganese(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveManganese(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != null
                 && atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 2) {
                 IAtomType type02 = getAtomType("Mn.2");
-                if (isAcceptable(atom, atomContainer, type02)) return type02;
+                if (isAcceptable(atom, environment, type02)) return type02;
             } else if (neighbors == 0) {
                 IAtomType type03 = getAtomType("Mn.metallic");
-                if (isAcceptable(atom, atomContainer, type03)) return type03;
+                if (isAcceptable(atom, environment, type03)) return type03;
             }
         } else if ((atom.getFormalCharge() != null
                 && atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Mn.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != null
                 && atom.getFormalCharge() == +3)) {
             IAtomType type = getAtomType("Mn.3plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveSodium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveSodium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 1)) {
             IAtomType type = getAtomType("Na.plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() == CDKConstants.UNSET
                 || atom.getFormalCharge() == 0)
-                && atomContainer.getConnectedAtomsCount(atom) == 1) {
+                && environment.bonds.length == 1) {
             IAtomType type = getAtomType("Na");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)
-                && atomContainer.getConnectedAtomsCount(atom) == 0) {
+                && environment.bonds.length == 0) {
             IAtomType type = getAtomType("Na.neutral");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } 
         return null;
     }
     
-    private IAtomType perceiveIodine(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
-            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+    private IAtomType perceiveIodine(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
+            if (environment.bonds.length == 0) {
                 if (atom.getFormalCharge() != CDKConstants.UNSET &&
                     atom.getFormalCharge() == +1) {
                     IAtomType type = getAtomType("I.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (atom.getFormalCharge() == CDKConstants.UNSET ||
                            atom.getFormalCharge() == 0) {
                     IAtomType type = getAtomType("I.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-            } else if (atomContainer.getConnectedBondsCount(atom) <= 1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            } else if (environment.bonds.length <= 1) {
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("I.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
             return null;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET && 
                atom.getFormalCharge() != 0) {
       if (atom.getFormalCharge() == -1) {
-          if (atomContainer.getConnectedAtomsCount(atom) == 0) {
+          if (environment.bonds.length == 0) {
               IAtomType type = getAtomType("I.minus");
-              if (isAcceptable(atom, atomContainer, type)) return type;
+              if (isAcceptable(atom, environment, type)) return type;
           } else {
               IAtomType type = getAtomType("I.minus.5");
-              if (isAcceptable(atom, atomContainer, type)) return type;
+              if (isAcceptable(atom, environment, type)) return type;
           }
             } else if (atom.getFormalCharge() == 1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == IBond.Order.DOUBLE) {
                     IAtomType type = getAtomType("I.plus.sp2");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (maxBondOrder == IBond.Order.SINGLE){
                     IAtomType type = getAtomType("I.plus.sp3");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
-        } else if (atomContainer.getConnectedBondsCount(atom) == 3) {
-            int doubleBondCount = countAttachedDoubleBonds(atomContainer, atom);
+        } else if (environment.bonds.length == 3) {
+            int doubleBondCount = countAttachedDoubleBonds(environment);
             if (doubleBondCount == 2) {
                 IAtomType type = getAtomType("I.5");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (atom.getFormalCharge() != CDKConstants.UNSET
                     && atom.getFormalCharge() == 0) {
                 IAtomType type = getAtomType("I.sp3d2.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
-        } else if (atomContainer.getConnectedBondsCount(atom) == 2) {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+        } else if (environment.bonds.length == 2) {
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (maxBondOrder == IBond.Order.DOUBLE) {
                 IAtomType type = getAtomType("I.3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
-        } else if (atomContainer.getConnectedBondsCount(atom) == 1 ||
-                atomContainer.getConnectedBondsCount(atom) == 0) {
+        } else if (environment.bonds.length == 1 ||
+                environment.bonds.length == 0) {
             IAtomType type = getAtomType("I");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveRuthenium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveRuthenium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) {
             IAtomType type = getAtomType("Ru.6");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -2) {
             IAtomType type = getAtomType("Ru.2minus.6");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -3) {
             IAtomType type = getAtomType("Ru.3minus.6");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceivePotassium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceivePotassium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == +1)) {
             IAtomType type = getAtomType("K.plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() == CDKConstants.UNSET
                 || atom.getFormalCharge() == 0) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 1) {
                 IAtomType type = getAtomType("K.neutral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
             IAtomType type = getAtomType("K.metallic");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceivePlutonium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (atom.getFormalCharge() == 0 && atomContainer.getConnectedBondsCount(atom) == 0) {
+    private IAtomType perceivePlutonium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (atom.getFormalCharge() == 0 && environment.bonds.length == 0) {
             IAtomType type = getAtomType("Pu");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveCadmium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveCadmium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Cd.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
-            if (atomContainer.getConnectedAtomsCount(atom) == 0) {
+            if (environment.bonds.length == 0) {
                 IAtomType type = getAtomType("Cd.metallic");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedAtomsCount(atom) == 2) {
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds.length == 2) {
                 IAtomType type = getAtomType("Cd.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
     
-    private IAtomType perceiveIndium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (atom.getFormalCharge() == 0 && atomContainer.getConnectedBondsCount(atom) == 3) {
+    private IAtomType perceiveIndium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (atom.getFormalCharge() == 0 && environment.bonds.length == 3) {
             IAtomType type = getAtomType("In.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atom.getFormalCharge() == 3 && atomContainer.getConnectedBondsCount(atom) == 0) {
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (atom.getFormalCharge() == 3 && environment.bonds.length == 0) {
             IAtomType type = getAtomType("In.3plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atom.getFormalCharge() == 0 && atomContainer.getConnectedBondsCount(atom) == 1) {
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (atom.getFormalCharge() == 0 && environment.bonds.length == 1) {
             IAtomType type = getAtomType("In.1");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else {
             IAtomType type = getAtomType("In");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveChlorine(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
-            if (atomContainer.getConnectedBondsCount(atom) > 1) {
+    private IAtomType perceiveChlorine(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
+            if (environment.bonds.length > 1) {
                 if (atom.getFormalCharge() != CDKConstants.UNSET
                         && atom.getFormalCharge() == +1) {
                     IAtomType type = getAtomType("Cl.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-            } else if (atomContainer.getConnectedBondsCount(atom) == 1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            } else if (environment.bonds.length == 1) {
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("Cl.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-            } else if (atomContainer.getConnectedBondsCount(atom) == 0
+            } else if (environment.bonds.length == 0
                     && (atom.getFormalCharge() == CDKConstants.UNSET
                     || atom.getFormalCharge() == 0)) {
                 IAtomType type = getAtomType("Cl.radical");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if (atom.getFormalCharge() == CDKConstants.UNSET
                 || atom.getFormalCharge() == 0) {
-            int neighborcount = atomContainer.getConnectedBondsCount(atom);
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            int neighborcount = environment.bonds.length;
+            IBond.Order maxBondOrder = environment.maxBondOrder;
 
             if (maxBondOrder == IBond.Order.DOUBLE) {
-                int neighbor = atomContainer.getConnectedAtomsCount(atom);
+                int neighbor = environment.bonds.length;
                 if (neighbor == 2) {
                     IAtomType type = getAtomType("Cl.2");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (neighbor == 3) {
                     IAtomType type = getAtomType("Cl.chlorate");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (neighbor == 4) {
                     IAtomType type = getAtomType("Cl.perchlorate");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             } else if (neighborcount <= 1) {
                 IAtomType type = getAtomType("Cl");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -1)) {
             IAtomType type = getAtomType("Cl.minus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET && atom.getFormalCharge() == 1) {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (maxBondOrder == IBond.Order.DOUBLE) {
                 IAtomType type = getAtomType("Cl.plus.sp2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (maxBondOrder == IBond.Order.SINGLE) {
                 IAtomType type = getAtomType("Cl.plus.sp3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
-                && atom.getFormalCharge() == +3) && atomContainer.getConnectedBondsCount(atom) == 4) {
+                && atom.getFormalCharge() == +3) && environment.bonds.length == 4) {
             IAtomType type = getAtomType("Cl.perchlorate.charged");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else {
-            int doubleBonds = countAttachedDoubleBonds(atomContainer, atom);
-            if (atomContainer.getConnectedBondsCount(atom) == 3
+            int doubleBonds = countAttachedDoubleBonds(environment);
+            if (environment.bonds.length == 3
                     && doubleBonds == 2) {
                 IAtomType type = getAtomType("Cl.chlorate");
-                if (isAcceptable(atom, atomContainer, type)) return type;
-            } else if (atomContainer.getConnectedBondsCount(atom) == 4
+                if (isAcceptable(atom, environment, type)) return type;
+            } else if (environment.bonds.length == 4
                     && doubleBonds == 3) {
                 IAtomType type = getAtomType("Cl.perchlorate");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
     
-    private IAtomType perceiveSilver(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveSilver(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 1) {
                 IAtomType type = getAtomType("Ag.1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
             IAtomType type = getAtomType("Ag.neutral");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 1)) {
             IAtomType type = getAtomType("Ag.plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveGold(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveGold(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         }
-        int neighbors = atomContainer.getConnectedAtomsCount(atom);
+        int neighbors = environment.bonds.length;
         if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0) && neighbors == 1) {
             IAtomType type = getAtomType("Au.1");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveRadium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveRadium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)) {
             IAtomType type = getAtomType("Ra.neutral");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveCalcium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveCalcium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if ("Ca".equals(atom.getSymbol())) {
-            if (hasOneSingleElectron(atomContainer, atom)) {
+            if (hasOneSingleElectron(environment)) {
                 // no idea how to deal with this yet
                 return null;
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET
-                    && atom.getFormalCharge() == 2 && atomContainer.getConnectedAtomsCount(atom) == 0)) {
+                    && atom.getFormalCharge() == 2 && environment.bonds.length == 0)) {
                 IAtomType type = getAtomType("Ca.2plus");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET
-                    && atom.getFormalCharge() == 0 && atomContainer.getConnectedAtomsCount(atom) == 2)) {
+                    && atom.getFormalCharge() == 0 && environment.bonds.length == 2)) {
                 IAtomType type = getAtomType("Ca.2");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             } else if ((atom.getFormalCharge() != CDKConstants.UNSET
-                    && atom.getFormalCharge() == 0 && atomContainer.getConnectedAtomsCount(atom) == 1)) {
+                    && atom.getFormalCharge() == 0 && environment.bonds.length == 1)) {
                 IAtomType type = getAtomType("Ca.1");
-                if (isAcceptable(atom, atomContainer, type)) {
+                if (isAcceptable(atom, environment, type)) {
                     return type;
                 }
             }
@@ -2240,354 +2240,310 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
         return null;
     }
     
-    private IAtomType perceivePlatinum(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceivePlatinum(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == +2)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 4) {
                 IAtomType type = getAtomType("Pt.2plus.4");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("Pt.2plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
                 atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 2) {
                 IAtomType type = getAtomType("Pt.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 4) {
                 IAtomType type = getAtomType("Pt.4");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 6) {
                 IAtomType type = getAtomType("Pt.6");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
     
-    private IAtomType perceiveAntimony(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveAntimony(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                     atom.getFormalCharge() == 0 &&
-                    atomContainer.getConnectedBondsCount(atom) == 3)) {
+                    environment.bonds.length == 3)) {
             IAtomType type = getAtomType("Sb.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET && 
                     atom.getFormalCharge() == 0 &&
-                    atomContainer.getConnectedBondsCount(atom) == 4)) {
+                    environment.bonds.length == 4)) {
             IAtomType type = getAtomType("Sb.4");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveGadolinum(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveGadolinum(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET &&
             atom.getFormalCharge() == +3 &&
-            atomContainer.getConnectedBondsCount(atom) == 0) {
+            environment.bonds.length == 0) {
             IAtomType type = getAtomType("Gd.3plus");
-            if (isAcceptable(atom, atomContainer, type)) {
+            if (isAcceptable(atom, environment, type)) {
                 return type;
             }
         }
         return null;
     }
 
-    private IAtomType perceiveMagnesium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveMagnesium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                     atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 4) {
                 IAtomType type = getAtomType("Mg.neutral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 2) {
                 IAtomType type = getAtomType("Mg.neutral.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 1) {
                 IAtomType type = getAtomType("Mg.neutral.1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("Mg.neutral");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Mg.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveThallium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveThallium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET &&
             atom.getFormalCharge() == +1 &&
-            atomContainer.getConnectedBondsCount(atom) == 0) {
+            environment.bonds.length == 0) {
             IAtomType type = getAtomType("Tl.plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET &&
                    atom.getFormalCharge() == 0 &&
-                   atomContainer.getConnectedBondsCount(atom) == 0) {
+                   environment.bonds.length == 0) {
             IAtomType type = getAtomType("Tl");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET &&
                    atom.getFormalCharge() == 0 &&
-                   atomContainer.getConnectedBondsCount(atom) == 1) {
+                   environment.bonds.length == 1) {
             IAtomType type = getAtomType("Tl.1");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveLead(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveLead(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET &&
             atom.getFormalCharge() == 0 &&
-            atomContainer.getConnectedBondsCount(atom) == 0) {
+            environment.bonds.length == 0) {
             IAtomType type = getAtomType("Pb.neutral");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET &&
                    atom.getFormalCharge() == 2 &&
-                   atomContainer.getConnectedBondsCount(atom) == 0) {
+                   environment.bonds.length == 0) {
             IAtomType type = getAtomType("Pb.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET &&
                    atom.getFormalCharge() == 0 &&
-                   atomContainer.getConnectedBondsCount(atom) == 1) {
+                   environment.bonds.length == 1) {
             IAtomType type = getAtomType("Pb.1");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveStrontium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveStrontium(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 2)) {
             IAtomType type = getAtomType("Sr.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveTitanium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveTitanium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET &&
             atom.getFormalCharge() == -3 &&
-            atomContainer.getConnectedBondsCount(atom) == 6) {
+            environment.bonds.length == 6) {
             IAtomType type = getAtomType("Ti.3minus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
                     atom.getFormalCharge() == 0) &&
-                   atomContainer.getConnectedBondsCount(atom) == 4) {
+                   environment.bonds.length == 4) {
             IAtomType type = getAtomType("Ti.sp3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == 0)
-                && atomContainer.getConnectedBondsCount(atom) == 2) {
+                && environment.bonds.length == 2) {
             IAtomType type = getAtomType("Ti.2");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveVanadium(IAtomContainer atomContainer, IAtom atom) throws CDKException {
+    private IAtomType perceiveVanadium(AtomEnvironment environment, IAtom atom) throws CDKException {
         if (atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == -3 &&
-                atomContainer.getConnectedBondsCount(atom) == 6) {
+                environment.bonds.length == 6) {
             IAtomType type = getAtomType("V.3minus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() != CDKConstants.UNSET
                 && atom.getFormalCharge() == -3
-                && atomContainer.getConnectedBondsCount(atom) == 4) {
+                && environment.bonds.length == 4) {
             IAtomType type = getAtomType("V.3minus.4");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private IAtomType perceiveBromine(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
-            if (atomContainer.getConnectedBondsCount(atom) == 0) {
+    private IAtomType perceiveBromine(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
+            if (environment.bonds.length == 0) {
                 if (atom.getFormalCharge() != CDKConstants.UNSET &&
                         atom.getFormalCharge() == +1) {
                     IAtomType type = getAtomType("Br.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 } else if (atom.getFormalCharge() == CDKConstants.UNSET ||
                         atom.getFormalCharge() == 0) {
                     IAtomType type = getAtomType("Br.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
-            } else if (atomContainer.getConnectedBondsCount(atom) <= 1) {
-                IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            } else if (environment.bonds.length <= 1) {
+                IBond.Order maxBondOrder = environment.maxBondOrder;
                 if (maxBondOrder == IBond.Order.SINGLE) {
                     IAtomType type = getAtomType("Br.plus.radical");
-                    if (isAcceptable(atom, atomContainer, type)) return type;
+                    if (isAcceptable(atom, environment, type)) return type;
                 }
             }
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == -1)) {
             IAtomType type = getAtomType("Br.minus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if (atom.getFormalCharge() == 1) {
-            IBond.Order maxBondOrder = atomContainer.getMaximumBondOrder(atom);
+            IBond.Order maxBondOrder = environment.maxBondOrder;
             if (maxBondOrder == IBond.Order.DOUBLE) {
                 IAtomType type = getAtomType("Br.plus.sp2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }else if (maxBondOrder == IBond.Order.SINGLE){
                 IAtomType type = getAtomType("Br.plus.sp3");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
-        } else if (atomContainer.getConnectedBondsCount(atom) == 1 ||
-                atomContainer.getConnectedBondsCount(atom) == 0) {
+        } else if (environment.bonds.length == 1 ||
+                environment.bonds.length == 0) {
             IAtomType type = getAtomType("Br");
-            if (isAcceptable(atom, atomContainer, type)) return type;
-        } else if (atomContainer.getConnectedBondsCount(atom) == 3) {
+            if (isAcceptable(atom, environment, type)) return type;
+        } else if (environment.bonds.length == 3) {
             IAtomType type = getAtomType("Br.3");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         }
         return null;
     }
     
-    private int countAttachedDoubleBonds(IAtomContainer container, IAtom atom, String symbol) {
-        return countAttachedBonds(container, atom, IBond.Order.DOUBLE, symbol);
+    private int countAttachedDoubleBonds(AtomEnvironment environment, String symbol) {
+        return environment.countBonds(IBond.Order.DOUBLE, symbol);
     }
     
-    private IAtomType perceiveCobalt(IAtomContainer atomContainer, IAtom atom) throws CDKException {
-        if (hasOneSingleElectron(atomContainer, atom)) {
+    private IAtomType perceiveCobalt(AtomEnvironment environment, IAtom atom) throws CDKException {
+        if (hasOneSingleElectron(environment)) {
             // no idea how to deal with this yet
             return null;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == +2)) {
             IAtomType type = getAtomType("Co.2plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() != CDKConstants.UNSET &&
                 atom.getFormalCharge() == +3)) {
             IAtomType type = getAtomType("Co.3plus");
-            if (isAcceptable(atom, atomContainer, type)) return type;
+            if (isAcceptable(atom, environment, type)) return type;
         } else if ((atom.getFormalCharge() == CDKConstants.UNSET ||
                 atom.getFormalCharge() == 0)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 2) {
                 IAtomType type = getAtomType("Co.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 4) {
                 IAtomType type = getAtomType("Co.4");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 6) {
                 IAtomType type = getAtomType("Co.6");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 1) {
                 IAtomType type = getAtomType("Co.1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("Co.metallic");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         } else if ((atom.getFormalCharge() != null
                 && atom.getFormalCharge() == +1)) {
-            int neighbors = atomContainer.getConnectedAtomsCount(atom);
+            int neighbors = environment.bonds.length;
             if (neighbors == 2) {
                 IAtomType type = getAtomType("Co.plus.2");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 4) {
                 IAtomType type = getAtomType("Co.plus.4");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 1) {
                 IAtomType type = getAtomType("Co.plus.1");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 6) {
                 IAtomType type = getAtomType("Co.plus.6");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else if (neighbors == 5) {
                 IAtomType type = getAtomType("Co.plus.5");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             } else {
                 IAtomType type = getAtomType("Co.plus");
-                if (isAcceptable(atom, atomContainer, type)) return type;
+                if (isAcceptable(atom, environment, type)) return type;
             }
         }
         return null;
     }
 
-    private int countAttachedDoubleBonds(IAtomContainer container, IAtom atom) {
-    	return countAttachedBonds(container, atom, IBond.Order.DOUBLE, null);
-    }
-    
-    private int countAttachedSingleBonds(IAtomContainer atomContainer, IAtom atom) {
-        return countAttachedBonds(atomContainer, atom, IBond.Order.SINGLE, null);
-    }
-
-    private boolean hasAromaticBond(IAtomContainer container, IAtom atom) {
-        List<IBond> neighbors = container.getConnectedBondsList(atom);
-        for (IBond bond : neighbors) {
-            if (bond.getFlag(CDKConstants.ISAROMATIC)) return true;
-        }
-        return false;
-    }
-
-    /**
-     * Count the number of doubly bonded atoms.
-     *
-     * @param container the molecule in which to look
-     * @param atom the atom being looked at
-     * @param order the desired bond order of the attached bonds 
-     * @param symbol If not null, then it only counts the double bonded atoms which
-     *               match the given symbol.
-     * @return the number of doubly bonded atoms
-     */
-    private int countAttachedBonds(IAtomContainer container, IAtom atom, IBond.Order order, String symbol) {
-    	// count the number of double bonded oxygens
-    	List<IBond> neighbors = container.getConnectedBondsList(atom);
-    	int neighborcount = neighbors.size();
-    	int doubleBondedAtoms = 0;
-    	for (int i=neighborcount-1;i>=0;i--) {
-            IBond bond =  neighbors.get(i);
-    		if (bond.getOrder() == order) {
-    			if (bond.getAtomCount() == 2 && bond.contains(atom)) {
-    				if (symbol != null) {
-    				    // if other atom is a sulphur
-    					if ((bond.getAtom(0) != atom &&
-    					     bond.getAtom(0).getSymbol().equals(symbol)) ||
-    						(bond.getAtom(1) != atom &&
-    						 bond.getAtom(1).getSymbol().equals(symbol))) {
-    						doubleBondedAtoms++;
-    					}
-    				} else {
-    					doubleBondedAtoms++;
-    				}
-    			}
-    		}
-    	}
-    	return doubleBondedAtoms;
+    private int countAttachedDoubleBonds(AtomEnvironment environment) {
+    	return environment.countBonds(IBond.Order.DOUBLE);
     }
 
     private IAtomType getAtomType(String identifier) throws CDKException {
-    	IAtomType type = factory.getAtomType(identifier);
-    	type.setValency((Integer)type.getProperty(CDKConstants.PI_BOND_COUNT) +
-    			        type.getFormalNeighbourCount());
-    	return type;
+    	IAtomType type = atomTypes.get(identifier);
+    	if (type == null)
+    		throw new NoSuchAtomTypeException("The AtomType " + identifier + " could not be found");
+    	try {
+    		return (IAtomType)type.clone();
+    	} catch (CloneNotSupportedException exception) {
+    		throw new CDKException("Could not copy the AtomType " + identifier, exception);
+    	}
     }
     
-    private boolean isAcceptable(IAtom atom, IAtomContainer container, IAtomType type) {
+    private boolean isAcceptable(IAtom atom, AtomEnvironment environment, IAtomType type) {
     	if (mode == REQUIRE_EXPLICIT_HYDROGENS) {
     		// make sure no implicit hydrogens were assumed
-    		int actualContainerCount = container.getConnectedAtomsCount(atom);
+    		int actualContainerCount = environment.bonds.length;
     		int requiredContainerCount = type.getFormalNeighbourCount();
     		if (actualContainerCount != requiredContainerCount)
     			return false;
     	} else if (atom.getImplicitHydrogenCount() != CDKConstants.UNSET) {
     		// confirm correct neighbour count
-    		int connectedAtoms = container.getConnectedAtomsCount(atom);
+    		int connectedAtoms = environment.bonds.length;
     		int hCount = atom.getImplicitHydrogenCount();
     		int actualNeighbourCount =  connectedAtoms + hCount;
     		int requiredNeighbourCount = type.getFormalNeighbourCount();
@@ -2598,7 +2554,7 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     	// confirm correct bond orders
         IBond.Order typeOrder = type.getMaxBondOrder(); 
     	if (typeOrder != null) {
-    		for (IBond bond : container.getConnectedBondsList(atom)) {
+    		for (IBond bond : environment.bonds) {
     			IBond.Order order = bond.getOrder();
     			if (order != CDKConstants.UNSET && order != IBond.Order.UNSET) {
     				if (BondManipulator.isHigherOrder(order, typeOrder)) return false;
@@ -2612,7 +2568,7 @@ public class CDKAtomTypeMatcher implements IAtomTypeMatcher {
     	}
     		
     	// confirm correct valency
-    	if (type.getValency() != CDKConstants.UNSET && container.getBondOrderSum(atom) > type.getValency())
+    	if (type.getValency() != CDKConstants.UNSET && environment.bondOrderSum > type.getValency())
     		return false;
 
     	// confirm correct formal charge
@@ -24,6 +24,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +68,11 @@ import org.openscience.cdk.tools.LoggingToolFactory;
  *  AtomType[] types = factory.getAtomTypes("C");
  *  </pre>
  *
+ *  <p>The atom types are indexed by name and by element symbol when the list
+ *  is read, and are not changed afterwards. All methods return copies of
+ *  them, so that a caller can change a type it got without affecting other
+ *  callers, and a factory can be used by several threads at the same time.
+ *
  * @cdk.module core
  * @cdk.githash
  *
@@ -99,6 +106,8 @@ public class AtomTypeFactory {
         LoggingToolFactory.createLoggingTool(AtomTypeFactory.class);
     private static Map<String, AtomTypeFactory> tables = null;
     private List<IAtomType> atomTypes = null;
+    private Map<String, IAtomType> atomTypesByName = null;
+    private Map<String, List<IAtomType>> atomTypesBySymbol = null;
 
 	/**
 	 * Private constructor for the AtomTypeFactory singleton.
@@ -108,6 +117,7 @@ public class AtomTypeFactory {
     private AtomTypeFactory(String configFile, IChemObjectBuilder builder) {
         atomTypes = new ArrayList<IAtomType>(100);
         readConfiguration(configFile, builder);
+        index();
     }
 
 	/**
@@ -117,6 +127,7 @@ public class AtomTypeFactory {
     private AtomTypeFactory(InputStream ins, String format, IChemObjectBuilder builder) {
         atomTypes = new ArrayList<IAtomType>(100);
         readConfiguration(ins, format, builder);
+        index();
     }
 
     /**
@@ -163,7 +174,7 @@ public class AtomTypeFactory {
      * @return                        The AtomTypeFactory for the given data file
      */
     @TestMethod("testGetInstance_String_IChemObjectBuilder")
-    public static AtomTypeFactory getInstance(String configFile, IChemObjectBuilder builder) {
+    public static synchronized AtomTypeFactory getInstance(String configFile, IChemObjectBuilder builder) {
         if (tables == null) {
             tables = new Hashtable<String, AtomTypeFactory>();
         }
@@ -258,6 +269,41 @@ public class AtomTypeFactory {
 	}
 
 
+    /**
+     * Indexes the atom types by name and by element symbol. When two types
+     * have the same name, the first one is found, as in the list.
+     */
+    private void index() {
+        atomTypes = Collections.unmodifiableList(atomTypes);
+        atomTypesByName = new HashMap<String, IAtomType>(2 * atomTypes.size());
+        atomTypesBySymbol = new HashMap<String, List<IAtomType>>();
+        for (IAtomType atomType : atomTypes) {
+            String name = atomType.getAtomTypeName();
+            if (name != null && !atomTypesByName.containsKey(name))
+                atomTypesByName.put(name, atomType);
+            List<IAtomType> types = atomTypesBySymbol.get(atomType.getSymbol());
+            if (types == null) {
+                types = new ArrayList<IAtomType>();
+                atomTypesBySymbol.put(atomType.getSymbol(), types);
+            }
+            types.add(atomType);
+        }
+    }
+
+    /**
+     * Returns a copy of an atom type, or null if it cannot be cloned.
+     */
+    private IAtomType copy(IAtomType atomType) {
+        try {
+            return (IAtomType) atomType.clone();
+        } catch (CloneNotSupportedException e) {
+            logger.error("Could not clone IAtomType: ", e.getMessage());
+            logger.debug(e);
+            return null;
+        }
+    }
+
+
 	/**
 	 * Returns the number of atom types in this list.
 	 *
@@ -274,18 +320,17 @@ public class AtomTypeFactory {
 	 * Get an AtomType with the given ID.
 	 *
 	 * @param  identifier                   an ID for a particular atom type (like C$)
-	 * @return                              The AtomType for this id
+	 * @return                              A copy of the AtomType for this id
 	 * @exception  NoSuchAtomTypeException  Thrown if the atom type does not exist.
 	 */
-    @TestMethod("testGetAtomType_String,testGetAtomTypeFromJmol,testGetAtomTypeFromMM2,testGetAtomTypeFromPDB")
+    @TestMethod("testGetAtomType_String,testGetAtomType_String_copy,testGetAtomType_String_missing,testGetAtomTypeFromJmol,testGetAtomTypeFromMM2,testGetAtomTypeFromPDB")
     public IAtomType getAtomType(String identifier) throws NoSuchAtomTypeException
 	{
-        for (IAtomType atomType : atomTypes) {
-            if (atomType.getAtomTypeName().equals(identifier)) {
-                return atomType;
-            }
-        }
-        throw new NoSuchAtomTypeException("The AtomType " + identifier + " could not be found");
+        IAtomType atomType = atomTypesByName.get(identifier);
+        IAtomType copy = atomType == null ? null : copy(atomType);
+        if (copy == null)
+            throw new NoSuchAtomTypeException("The AtomType " + identifier + " could not be found");
+        return copy;
 	}
 
 
@@ -302,18 +347,11 @@ public class AtomTypeFactory {
 	{
         logger.debug("Request for atomtype for symbol ", symbol);
         List<IAtomType> atomList = new ArrayList<IAtomType>();
-        for (IAtomType atomType : atomTypes) {
-            // logger.debug("  does symbol match for: ", atomType);
-            if (atomType.getSymbol().equals(symbol)) {
-                // logger.debug("Atom type found for symbol: ", atomType);
-                IAtomType clone;
-                try {
-                    clone = (IAtomType) atomType.clone();
-                    atomList.add(clone);
-                } catch (CloneNotSupportedException e) {
-                    logger.error("Could not clone IAtomType: ", e.getMessage());
-                    logger.debug(e);
-                }
+        List<IAtomType> types = atomTypesBySymbol.get(symbol);
+        if (types != null) {
+            for (IAtomType atomType : types) {
+                IAtomType clone = copy(atomType);
+                if (clone != null) atomList.add(clone);
             }
         }
         IAtomType[] atomTypes = (IAtomType[])atomList.toArray(new IAtomType[atomList.size()]);
@@ -336,14 +374,8 @@ public class AtomTypeFactory {
 		logger.debug("Returning list of size: ", getSize());
 		List<IAtomType> atomtypeList = new ArrayList<IAtomType>();
         for (IAtomType atomType : atomTypes) {
-            IAtomType clone;
-            try {
-                clone = (IAtomType) atomType.clone();
-                atomtypeList.add(clone);
-            } catch (CloneNotSupportedException e) {
-                logger.error("Could not clone IAtomType: ", e.getMessage());
-                logger.debug(e);
-            }
+            IAtomType clone = copy(atomType);
+            if (clone != null) atomtypeList.add(clone);
         }
         return (IAtomType[])atomtypeList.toArray(new IAtomType[atomtypeList.size()]);
 	}
@@ -0,0 +1,416 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.fingerprint;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.atomtype.CDKAtomTypeMatcher;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.tools.ILoggingTool;
+import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * Calculates the fingerprints of a stream of molecules on several threads.
+ * Molecules are read from an {@link Iterator}, for example an
+ * {@link org.openscience.cdk.io.iterator.IIteratingChemObjectReader}, on a
+ * separate reader thread. Atom type and aromaticity perception and the
+ * fingerprinting itself are distributed over a fixed size thread pool, and
+ * the results are passed to a {@link Handler}, or written to a
+ * {@link Writer}, in the order the molecules were read:
+ * <pre>
+ * IteratingSDFReader reader = new IteratingSDFReader(
+ *     new FileInputStream("molecules.sdf"), DefaultChemObjectBuilder.getInstance()
+ * );
+ * BatchFingerprinter batch = new BatchFingerprinter(
+ *     new BatchFingerprinter.FingerprinterFactory() {
+ *         public IFingerprinter newFingerprinter() {
+ *             return new PubchemFingerprinter();
+ *         }
+ *     }, 4
+ * );
+ * batch.setPerceiveAtomTypes(true);
+ * batch.write(reader, new FileWriter("molecules.fp"));
+ * </pre>
+ *
+ * <p>The factory is called once for each worker thread, so fingerprinters that
+ * keep state between calls are never shared. {@link Fingerprinter},
+ * {@link ExtendedFingerprinter}, {@link GraphOnlyFingerprinter},
+ * {@link HybridizationFingerprinter}, {@link ShortestPathFingerprinter},
+ * {@link MACCSFingerprinter}, {@link SubstructureFingerprinter},
+ * {@link KlekotaRothFingerprinter}, {@link EStateFingerprinter} and
+ * {@link PubchemFingerprinter} only hold their configuration and may be
+ * shared; the factory can return the same instance every time.
+ * All fingerprinters modify the molecule they are given, for example by
+ * setting aromaticity flags, so a molecule must not be fingerprinted by two
+ * threads at the same time.
+ *
+ * @cdk.module  standard
+ * @cdk.githash
+ * @cdk.keyword fingerprint
+ */
+@TestClass("org.openscience.cdk.fingerprint.BatchFingerprinterTest")
+public class BatchFingerprinter {
+
+    private final static ILoggingTool logger =
+        LoggingToolFactory.createLoggingTool(BatchFingerprinter.class);
+
+    /**
+     * Creates the fingerprinter used by one worker thread.
+     */
+    public interface FingerprinterFactory {
+
+        /**
+         * Returns a fingerprinter for use by the calling thread.
+         *
+         * @return a fingerprinter
+         */
+        public IFingerprinter newFingerprinter();
+    }
+
+    /**
+     * Receives the results of {@link BatchFingerprinter#process(Iterator, Handler)}.
+     * Methods are called on the thread that called <code>process</code>, in the
+     * order the molecules were read.
+     */
+    public interface Handler {
+
+        /**
+         * Called with the fingerprint of a molecule.
+         *
+         * @param index       zero based position of the molecule in the input
+         * @param molecule    the molecule
+         * @param fingerprint its fingerprint
+         * @throws CDKException to stop processing
+         */
+        public void fingerprint(int index, IAtomContainer molecule,
+                                IBitFingerprint fingerprint) throws CDKException;
+
+        /**
+         * Called if perception or fingerprinting of a molecule failed.
+         *
+         * @param index    zero based position of the molecule in the input
+         * @param molecule the molecule
+         * @param error    the exception thrown while processing the molecule
+         * @throws CDKException to stop processing
+         */
+        public void error(int index, IAtomContainer molecule,
+                          Exception error) throws CDKException;
+    }
+
+    /** Marks the end of the input in the queue of pending results. */
+    private final static Future<Result> END_OF_INPUT =
+        new FutureTask<Result>(new Runnable() { public void run() {} }, null);
+
+    private final FingerprinterFactory factory;
+    private final int threads;
+    private int queueSize;
+    private boolean perceiveAtomTypes = false;
+
+    /**
+     * Creates a batch fingerprinter using one thread per available processor.
+     *
+     * @param factory creates the fingerprinter of each worker thread
+     */
+    @TestMethod("testProcess")
+    public BatchFingerprinter(FingerprinterFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a batch fingerprinter using the given number of worker threads.
+     *
+     * @param factory creates the fingerprinter of each worker thread
+     * @param threads number of worker threads
+     */
+    @TestMethod("testProcess")
+    public BatchFingerprinter(FingerprinterFactory factory, int threads) {
+        if (factory == null)
+            throw new IllegalArgumentException("A fingerprinter factory must be given");
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        this.factory   = factory;
+        this.threads   = threads;
+        this.queueSize = 16 * threads;
+    }
+
+    /**
+     * Sets whether atom types and aromaticity are perceived before a molecule
+     * is fingerprinted. This is needed for molecules read from files by
+     * fingerprinters, like the {@link PubchemFingerprinter} and the
+     * {@link MACCSFingerprinter}, that expect configured atoms. The default is
+     * <code>false</code>.
+     *
+     * @param perceiveAtomTypes true if atom types and aromaticity are perceived
+     */
+    @TestMethod("testPerceiveAtomTypes")
+    public void setPerceiveAtomTypes(boolean perceiveAtomTypes) {
+        this.perceiveAtomTypes = perceiveAtomTypes;
+    }
+
+    /**
+     * Returns whether atom types and aromaticity are perceived before a
+     * molecule is fingerprinted.
+     *
+     * @return true if atom types and aromaticity are perceived
+     */
+    @TestMethod("testPerceiveAtomTypes")
+    public boolean getPerceiveAtomTypes() {
+        return perceiveAtomTypes;
+    }
+
+    /**
+     * Sets the maximum number of molecules that are read ahead of the results
+     * passed to the handler. Larger values balance molecules of very different
+     * sizes better, at the expense of memory. The default is sixteen molecules
+     * per thread.
+     *
+     * @param queueSize maximum number of molecules being processed
+     */
+    @TestMethod("testSetQueueSize")
+    public void setQueueSize(int queueSize) {
+        if (queueSize < 1)
+            throw new IllegalArgumentException("Queue size must be positive: " + queueSize);
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Fingerprints all molecules of the input and passes the results to the
+     * handler in input order. The worker threads are shut down when this
+     * method returns.
+     *
+     * @param  molecules    the molecules to fingerprint
+     * @param  handler      receives the fingerprints
+     * @return              the number of molecules read
+     * @throws CDKException if the input could not be read, the handler threw
+     *                      an exception, or the calling thread was interrupted
+     */
+    @TestMethod("testProcess,testProcess_order,testProcess_error")
+    public int process(Iterator<? extends IAtomContainer> molecules,
+                       Handler handler) throws CDKException {
+        final BlockingQueue<Future<Result>> pending =
+            new ArrayBlockingQueue<Future<Result>>(queueSize);
+        final ThreadLocal<IFingerprinter> fingerprinter = new ThreadLocal<IFingerprinter>() {
+            protected IFingerprinter initialValue() {
+                return factory.newFingerprinter();
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Reader reader = new Reader(molecules, pending, executor, fingerprinter);
+        Thread readerThread = new Thread(reader, "BatchFingerprinter reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        int count = 0;
+        try {
+            while (true) {
+                Future<Result> future = pending.take();
+                if (future == END_OF_INPUT) break;
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException exception) {
+                    throw new CDKException("Unexpected error while fingerprinting",
+                                           exception.getCause());
+                }
+                if (result.error == null) {
+                    handler.fingerprint(result.index, result.molecule, result.fingerprint);
+                } else {
+                    handler.error(result.index, result.molecule, result.error);
+                }
+                count++;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CDKException("Interrupted while waiting for fingerprints", exception);
+        } finally {
+            readerThread.interrupt();
+            executor.shutdownNow();
+        }
+        if (reader.error != null)
+            throw new CDKException("Error while reading molecules: " + reader.error.getMessage(),
+                                   reader.error);
+        return count;
+    }
+
+    /**
+     * Fingerprints all molecules of the input and writes one line per molecule,
+     * in input order, to the writer. A line holds the index of the molecule,
+     * its title and the positions of the set bits separated by tabs. Molecules
+     * that could not be fingerprinted are logged and skipped. The writer is
+     * flushed but not closed.
+     *
+     * @param  molecules    the molecules to fingerprint
+     * @param  out          the writer to write the fingerprints to
+     * @return              the number of molecules read
+     * @throws CDKException if the input could not be read or writing failed
+     */
+    @TestMethod("testWrite")
+    public int write(Iterator<? extends IAtomContainer> molecules,
+                     final Writer out) throws CDKException {
+        int count = process(molecules, new Handler() {
+            public void fingerprint(int index, IAtomContainer molecule,
+                                    IBitFingerprint fingerprint) throws CDKException {
+                Object title = molecule.getProperty(CDKConstants.TITLE);
+                StringBuilder line = new StringBuilder();
+                line.append(index).append('\t');
+                if (title != null) line.append(title);
+                line.append('\t');
+                int[] bits = fingerprint.getSetbits();
+                for (int i = 0; i < bits.length; i++) {
+                    if (i > 0) line.append(' ');
+                    line.append(bits[i]);
+                }
+                line.append('\n');
+                try {
+                    out.write(line.toString());
+                } catch (IOException exception) {
+                    throw new CDKException("Could not write fingerprint: " + exception.getMessage(),
+                                           exception);
+                }
+            }
+            public void error(int index, IAtomContainer molecule,
+                              Exception error) {
+                logger.warn("Could not fingerprint molecule ", index, ": ", error.getMessage());
+                logger.debug(error);
+            }
+        });
+        try {
+            out.flush();
+        } catch (IOException exception) {
+            throw new CDKException("Could not write fingerprint: " + exception.getMessage(),
+                                   exception);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the molecules and submits them to the executor. The futures are
+     * queued in input order, the queue bounds the number of molecules in memory.
+     */
+    private class Reader implements Runnable {
+
+        private final Iterator<? extends IAtomContainer> molecules;
+        private final BlockingQueue<Future<Result>> pending;
+        private final ExecutorService executor;
+        private final ThreadLocal<IFingerprinter> fingerprinter;
+        private volatile Exception error;
+
+        Reader(Iterator<? extends IAtomContainer> molecules,
+               BlockingQueue<Future<Result>> pending,
+               ExecutorService executor,
+               ThreadLocal<IFingerprinter> fingerprinter) {
+            this.molecules     = molecules;
+            this.pending       = pending;
+            this.executor      = executor;
+            this.fingerprinter = fingerprinter;
+        }
+
+        public void run() {
+            IChemObjectBuilder builder = null;
+            try {
+                int index = 0;
+                while (molecules.hasNext()) {
+                    IAtomContainer molecule = molecules.next();
+                    if (perceiveAtomTypes && molecule.getBuilder() != builder) {
+                        // create the shared atom type matcher before the workers need it
+                        builder = molecule.getBuilder();
+                        CDKAtomTypeMatcher.getInstance(builder);
+                    }
+                    pending.put(executor.submit(new Task(index++, molecule, fingerprinter)));
+                }
+            } catch (InterruptedException exception) {
+                // processing was stopped
+                return;
+            } catch (Exception exception) {
+                error = exception;
+            }
+            try {
+                pending.put(END_OF_INPUT);
+            } catch (InterruptedException exception) {
+                // processing was stopped
+            }
+        }
+    }
+
+    /**
+     * Perceives and fingerprints a single molecule on a worker thread.
+     */
+    private class Task implements Callable<Result> {
+
+        private final int index;
+        private final IAtomContainer molecule;
+        private final ThreadLocal<IFingerprinter> fingerprinter;
+
+        Task(int index, IAtomContainer molecule, ThreadLocal<IFingerprinter> fingerprinter) {
+            this.index         = index;
+            this.molecule      = molecule;
+            this.fingerprinter = fingerprinter;
+        }
+
+        public Result call() {
+            try {
+                if (perceiveAtomTypes) {
+                    AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+                    CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+                }
+                return new Result(index, molecule,
+                                  fingerprinter.get().getBitFingerprint(molecule), null);
+            } catch (Exception exception) {
+                return new Result(index, molecule, null, exception);
+            }
+        }
+    }
+
+    /**
+     * The fingerprint of a molecule, or the exception thrown while
+     * calculating it.
+     */
+    private static class Result {
+
+        private final int index;
+        private final IAtomContainer molecule;
+        private final IBitFingerprint fingerprint;
+        private final Exception error;
+
+        Result(int index, IAtomContainer molecule,
+               IBitFingerprint fingerprint, Exception error) {
+            this.index       = index;
+            this.molecule    = molecule;
+            this.fingerprint = fingerprint;
+            this.error       = error;
+        }
+    }
+}
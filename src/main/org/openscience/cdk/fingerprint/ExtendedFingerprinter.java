@@ -173,6 +173,16 @@ public class ExtendedFingerprinter implements IFingerprinter {
         return fingerprinter.getSize()+RESERVED_BITS;
     }
 
+    /**
+     * Returns the search depth of the path based part of the fingerprint.
+     *
+     * @return the maximal length of the paths
+     */
+    @TestMethod("testGetSearchDepth")
+    public int getSearchDepth() {
+        return fingerprinter.getSearchDepth();
+    }
+
     /** {@inheritDoc} */
 	@Override
 	public ICountFingerprint getCountFingerprint(IAtomContainer container)
@@ -29,7 +29,6 @@ import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.annotations.TestMethod;
 import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
 import org.openscience.cdk.exception.CDKException;
-import org.openscience.cdk.graph.PathTools;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
@@ -40,13 +39,12 @@ import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 import org.openscience.cdk.tools.periodictable.PeriodicTable;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  *  Generates a fingerprint for a given AtomContainer. Fingerprints are
@@ -165,7 +163,6 @@ public class Fingerprinter implements IFingerprinter {
     public IBitFingerprint getBitFingerprint(IAtomContainer container, 
                                  AllRingsFinder ringFinder) 
                   throws CDKException {
-		int position = -1;
 		logger.debug("Entering Fingerprinter");
 		logger.debug("Starting Aromaticity Detection");
 		long before = System.currentTimeMillis();
@@ -175,11 +172,23 @@ public class Fingerprinter implements IFingerprinter {
 		logger.debug("time for aromaticity calculation: " 
 		             + (after - before) + " milliseconds");
 		logger.debug("Finished Aromaticity Detection");
+		return getPathFingerprint(container);
+	}
+
+    /**
+     * Generates the fingerprint of the paths of a molecule as it is, without
+     * perceiving atom types and aromaticity. A bond is aromatic in the paths
+     * if its aromaticity flag is set.
+     *
+     * @param container the molecule
+     * @return the fingerprint
+     */
+    IBitFingerprint getPathFingerprint(IAtomContainer container) {
 		BitSet bitSet = new BitSet(size);
 
         int[] hashes = findPathes(container, searchDepth);
         for (int hash : hashes) {
-            position = new java.util.Random(hash).nextInt(size);
+            int position = new java.util.Random(hash).nextInt(size);
             bitSet.set(position);
         }
 
@@ -208,81 +217,154 @@ public class Fingerprinter implements IFingerprinter {
      *
      * This method will find all paths upto length N starting from each
      * atom in the molecule and return the unique set of such paths.
+     * A path is encoded as the string of its atom and bond symbols, and the
+     * lexicographically larger of the string and its reverse is hashed with
+     * the algorithm of {@link String#hashCode()}. The paths are walked
+     * depth first over an adjacency array built once per molecule, writing
+     * the symbols into a single reused character buffer, so that no objects
+     * are created per path.
      *
      * @param container The molecule to search
      * @param searchDepth The maximum path length desired
-     * @return A Map of path strings, keyed on themselves
+     * @return The distinct hashes of the paths
      */
     protected int[] findPathes(IAtomContainer container, int searchDepth) {
 
-        List<StringBuffer> allPaths = new ArrayList<StringBuffer>();
+        int atomCount = container.getAtomCount();
+        if (atomCount == 0) return new int[0];
+        Map<IAtom,Integer> atomIndex = new IdentityHashMap<IAtom,Integer>();
+        for (int i = 0; i < atomCount; i++) atomIndex.put(container.getAtom(i), i);
 
-        Map<IAtom,Map<IAtom, IBond>> cache 
-            = new HashMap<IAtom, Map<IAtom,IBond>>();
-        
-        for (IAtom startAtom : container.atoms()) {
-                List<List<IAtom>> p 
-                    = PathTools.getPathsOfLengthUpto(container, 
-                                                     startAtom, 
-                                                     searchDepth);
-                for (List<IAtom> path : p) {
-                    StringBuffer sb = new StringBuffer();
-                    IAtom x = path.get(0);
-
-                    // TODO if we ever get more than 255 elements, this will 
-                    // fail maybe we should use 0 for pseudo atoms and 
-                    // malformed symbols?
-                    if (x instanceof IPseudoAtom)
-                        sb.append((char) PeriodicTable.getElementCount() + 1);
-                    else {
-                        Integer atnum = PeriodicTable.getAtomicNumber(x.getSymbol());
-                        if (atnum != null) sb.append(convertSymbol(x.getSymbol()));
-                        else sb.append((char) 
-                                       PeriodicTable.getElementCount() + 1);
-                    }
-
-                    for (int i = 1; i < path.size(); i++) {
-                        final IAtom[] y = {path.get(i)};
-                        Map<IAtom, IBond> m = cache.get( x );
-                        final IBond[] b = { m != null ? m.get( y[0] ) : null };
-                        if ( b[0] == null ) {
-                            b[0] = container.getBond(x, y[0]);
-                            cache.put( x, 
-                                       new HashMap<IAtom, IBond>() {
-                                {put(y[0], b[0]); }
-                            } );
-                                                }
-                     sb.append(getBondSymbol(b[0]));
-                     sb.append(convertSymbol(y[0].getSymbol()));
-                     x = y[0];
-                    }
-
-                    // we store the lexicographically lower one of the
-                    // string and its reverse
-                    StringBuffer revForm = new StringBuffer(sb);
-                    revForm.reverse();
-                    if (sb.toString().compareTo(revForm.toString()) <= 0)
-                        allPaths.add(sb);
-                    else allPaths.add(revForm);
+        // the symbols of atoms and bonds, and the adjacency of the molecule
+        char[][] startSymbols = new char[atomCount][];
+        char[][] symbols = new char[atomCount][];
+        int[][] neighbours = new int[atomCount][];
+        char[][][] bondSymbols = new char[atomCount][][];
+        int maxStartSymbol = 0, maxStep = 0;
+        for (int i = 0; i < atomCount; i++) {
+            IAtom atom = container.getAtom(i);
+
+            // TODO if we ever get more than 255 elements, this will 
+            // fail maybe we should use 0 for pseudo atoms and 
+            // malformed symbols?
+            if (atom instanceof IPseudoAtom
+                || PeriodicTable.getAtomicNumber(atom.getSymbol()) == null)
+                startSymbols[i] = Integer.toString(
+                    (char) PeriodicTable.getElementCount() + 1
+                ).toCharArray();
+            else startSymbols[i] = convertSymbol(atom.getSymbol()).toCharArray();
+            maxStartSymbol = Math.max(maxStartSymbol, startSymbols[i].length);
+
+            List<IAtom> connected = container.getConnectedAtomsList(atom);
+            neighbours[i] = new int[connected.size()];
+            bondSymbols[i] = new char[connected.size()][];
+            for (int k = 0; k < connected.size(); k++) {
+                IAtom neighbour = connected.get(k);
+                neighbours[i][k] = atomIndex.get(neighbour);
+                bondSymbols[i][k] = getBondSymbol(container.getBond(atom, neighbour)).toCharArray();
+                if (symbols[neighbours[i][k]] == null)
+                    symbols[neighbours[i][k]] = convertSymbol(neighbour.getSymbol()).toCharArray();
+                maxStep = Math.max(maxStep, bondSymbols[i][k].length
+                                            + symbols[neighbours[i][k]].length);
+            }
+        }
+
+        // a path visits each atom at most once
+        int maxLength = Math.max(0, Math.min(searchDepth, atomCount - 1));
+        char[] buffer = new char[maxStartSymbol + maxLength * maxStep];
+        int[] path = new int[maxLength + 1];
+        int[] next = new int[maxLength + 1];
+        int[] bufferLength = new int[maxLength + 1];
+        boolean[] visited = new boolean[atomCount];
+        long[] hashes = new long[4 * atomCount];
+        int hashCount = 0;
+
+        for (int start = 0; start < atomCount; start++) {
+            char[] symbol = startSymbols[start];
+            System.arraycopy(symbol, 0, buffer, 0, symbol.length);
+            int depth = 0;
+            path[0] = start;
+            next[0] = 0;
+            bufferLength[0] = symbol.length;
+            visited[start] = true;
+            if (hashCount == hashes.length) hashes = Arrays.copyOf(hashes, 2 * hashCount);
+            hashes[hashCount++] = hashPath(buffer, bufferLength[0]);
+
+            while (depth >= 0) {
+                int atom = path[depth];
+                if (depth == maxLength || next[depth] == neighbours[atom].length) {
+                    visited[atom] = false;
+                    depth--;
+                    continue;
                 }
+                int k = next[depth]++;
+                int neighbour = neighbours[atom][k];
+                if (visited[neighbour]) continue;
+
+                int length = bufferLength[depth];
+                char[] bondSymbol = bondSymbols[atom][k];
+                System.arraycopy(bondSymbol, 0, buffer, length, bondSymbol.length);
+                length += bondSymbol.length;
+                symbol = symbols[neighbour];
+                System.arraycopy(symbol, 0, buffer, length, symbol.length);
+                length += symbol.length;
+
+                depth++;
+                path[depth] = neighbour;
+                next[depth] = 0;
+                bufferLength[depth] = length;
+                visited[neighbour] = true;
+                if (hashCount == hashes.length) hashes = Arrays.copyOf(hashes, 2 * hashCount);
+                hashes[hashCount++] = hashPath(buffer, length);
+            }
         }
-        // now lets clean stuff up
-        Set<String> cleanPath = new HashSet<String>();
-        for (StringBuffer s : allPaths) {
-            String s1 = s.toString().trim();
-            if (s1.equals("")) continue;
-            if (cleanPath.contains(s1)) continue;
-            String s2 = s.reverse().toString().trim();
-            if (cleanPath.contains(s2)) continue;
-            cleanPath.add(s2);
+
+        // paths consisting of white space only are ignored
+        Arrays.sort(hashes, 0, hashCount);
+        int unique = 0;
+        for (int i = 0; i < hashCount; i++) {
+            if (hashes[i] == EMPTY_PATH) continue;
+            if (unique > 0 && hashes[unique - 1] == hashes[i]) continue;
+            hashes[unique++] = hashes[i];
         }
+        int[] result = new int[unique];
+        for (int i = 0; i < unique; i++) result[i] = (int) hashes[i];
+        return result;
+    }
 
-        // convert paths to hashes
-        int[] hashes = new int[cleanPath.size()];
-        int i= 0;
-        for (String s: cleanPath) hashes[i++] = s.hashCode();
+    /** Returned by {@link #hashPath(char[], int)} for an empty path. */
+    private static final long EMPTY_PATH = Long.MIN_VALUE;
 
-        return hashes;
+    /**
+     * Hashes the lexicographically larger of the path string in the buffer
+     * and its reverse, with leading and trailing white space removed, as
+     * {@link String#hashCode()} would.
+     *
+     * @param buffer the path string
+     * @param length the length of the path string
+     * @return the hash, or {@link #EMPTY_PATH} if the path has no other
+     *         characters than white space
+     */
+    private static long hashPath(char[] buffer, int length) {
+        int begin = 0, end = length;
+        while (begin < end && buffer[begin] <= ' ') begin++;
+        while (begin < end && buffer[end - 1] <= ' ') end--;
+        if (begin == end) return EMPTY_PATH;
+
+        boolean reverse = false;
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            if (buffer[i] != buffer[j]) {
+                reverse = buffer[i] < buffer[j];
+                break;
+            }
+        }
+        int hash = 0;
+        if (reverse) {
+            for (int i = end - 1; i >= begin; i--) hash = 31 * hash + buffer[i];
+        } else {
+            for (int i = begin; i < end; i++) hash = 31 * hash + buffer[i];
+        }
+        return hash;
     }
 
     private String convertSymbol(String symbol) {
@@ -9,6 +9,7 @@ package org.openscience.cdk.fingerprint;
 
 
 import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySet;
 
 /**
  * SMARTS based substructure fingerprint based on <emph>Chemical substructures 
@@ -24,9 +25,7 @@ import org.openscience.cdk.annotations.TestClass;
 public class KlekotaRothFingerprinter extends SubstructureFingerprinter 
 {
 	
-    public KlekotaRothFingerprinter()
-    {
-    	super( new String[] {
+    private static final String[] KEYS = {
 "[!#1][CH]([!#1])[!#1]",
 "[!#1][CH]([!#1])[CH]([!#1])[!#1]",
 "[!#1][CH]([!#1])[CH]([!#1])C([CH3])([CH3])[CH3]",
@@ -4887,7 +4886,21 @@ public class KlekotaRothFingerprinter extends SubstructureFingerprinter
 "SCCC=O",
 "SCCS",
 "SCCS(=O)=O"
-                                        });
+    };
+
+    /** The keys parsed once, for all instances. */
+    private static SMARTSQuerySet queries;
+
+    public KlekotaRothFingerprinter()
+    {
+    	super(KEYS);
     }
 
+    @Override
+    SMARTSQuerySet getQueries() {
+        synchronized (KlekotaRothFingerprinter.class) {
+            if (queries == null) queries = new SMARTSQuerySet(KEYS);
+            return queries;
+        }
+    }
 }
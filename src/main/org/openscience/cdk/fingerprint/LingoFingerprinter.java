@@ -97,10 +97,16 @@ public class LingoFingerprinter implements IFingerprinter {
         return matcher.replaceAll("0");        
     }
 
+	/**
+	 * Returns the substrings of the SMILES as a count fingerprint, with the
+	 * substrings hashed and sorted, for comparison with
+	 * {@link org.openscience.cdk.similarity.CountFingerprintSimilarity}.
+	 */
+	@TestMethod("testGetCountFingerprint")
 	@Override
 	public ICountFingerprint getCountFingerprint(IAtomContainer container)
 			throws CDKException {
-		throw new UnsupportedOperationException();
+		return new IntArrayCountFingerprint(getRawFingerprint(container));
 	}
 
 }
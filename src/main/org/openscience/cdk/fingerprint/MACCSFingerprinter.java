@@ -43,8 +43,8 @@ import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomContainerSet;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IRingSet;
-import org.openscience.cdk.ringsearch.AllRingsFinder;
-import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.ringsearch.RingPerception;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySet;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 
@@ -75,11 +75,30 @@ public class MACCSFingerprinter implements IFingerprinter {
     private static ILoggingTool logger =
         LoggingToolFactory.createLoggingTool(MACCSFingerprinter.class);
     private MaccsKey[] keys = null;
+    /** The keys that have a pattern, and the bits they set. */
+    private SMARTSQuerySet queries = null;
+    private int[] bits = null;
 
     @TestMethod("testFingerprint")
     public MACCSFingerprinter() {
         try {
             keys = readKeyDef();
+            List<String> smarts = new ArrayList<String>();
+            List<Integer> counts = new ArrayList<Integer>();
+            List<Integer> indices = new ArrayList<Integer>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].getSmarts().equals("?")) continue;
+                smarts.add(keys[i].getSmarts());
+                counts.add(keys[i].getCount());
+                indices.add(i);
+            }
+            bits = new int[indices.size()];
+            int[] minimumCounts = new int[indices.size()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = indices.get(i);
+                minimumCounts[i] = counts.get(i);
+            }
+            queries = new SMARTSQuerySet(smarts.toArray(new String[smarts.size()]), minimumCounts);
         } catch (IOException e) {
             logger.debug(e);
         } catch (CDKException e) {
@@ -97,29 +116,17 @@ public class MACCSFingerprinter implements IFingerprinter {
         int bitsetLength = keys.length;
         BitSet fingerPrint = new BitSet(bitsetLength);
 
-        SMARTSQueryTool sqt = new SMARTSQueryTool("C");
-        for (int i = 0; i < keys.length; i++) {
-            String smarts = keys[i].getSmarts();
-            if (smarts.equals("?")) continue;
-            int count = keys[i].getCount();
-
-            sqt.setSmarts(smarts);
-            boolean status = sqt.matches(atomContainer);
-            if (status) {
-                if (count == 0) fingerPrint.set(i, true);
-                else {
-                   List<List<Integer>> matches = sqt.getUniqueMatchingAtoms();
-                    if (matches.size() > count) fingerPrint.set(i, true);
-                }
-            }
-        }
+        // a key with a count is set if it has more unique matches
+        BitSet hits = queries.matches(atomContainer);
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1))
+            fingerPrint.set(bits[i], true);
 
         // at this point we have skipped the entries whose pattern is "?"
         // (bits 1,44,125,166) so let try and do those features by hand
 
         // bit 125 aromatic ring count > 1
-        AllRingsFinder ringFinder = new AllRingsFinder();
-        IRingSet rings = ringFinder.findAllRings(atomContainer);
+        // the rings were perceived when the patterns were matched
+        IRingSet rings = RingPerception.getInstance(atomContainer).getAllRings();
         int ringCount = 0;
         for (int i = 0; i < rings.getAtomContainerCount(); i++) {
             IAtomContainer ring = rings.getAtomContainer(i);
@@ -32,8 +32,8 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IRingSet;
-import org.openscience.cdk.ringsearch.SSSRFinder;
-import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.ringsearch.RingPerception;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySet;
 import org.openscience.cdk.tools.periodictable.PeriodicTable;
 
 import java.util.BitSet;
@@ -65,7 +65,14 @@ import java.util.Map;
  * <p/>
  * Note that this fingerprint is not particularly fast, as it will perform
  * ring detection using {@link org.openscience.cdk.ringsearch.AllRingsFinder}
- * as well as multiple SMARTS queries.
+ * as well as multiple SMARTS queries. The rings are perceived once per
+ * molecule, and the SMARTS patterns are parsed once and matched as a
+ * {@link SMARTSQuerySet}.
+ * <p/>
+ * A fingerprinter may be used from several threads, for example to
+ * fingerprint the molecules read by an
+ * {@link org.openscience.cdk.io.iterator.IteratingSDFReader} with a
+ * {@link BatchFingerprinter}.
  * <p/>
  * Some SMARTS patterns have been modified from the original code, since they 
  * were based on explicit H matching. As a result, we replace the explicit H's
@@ -91,11 +98,10 @@ public class PubchemFingerprinter implements IFingerprinter {
      */
     public static final int FP_SIZE = 881;
 
-    private byte[] m_bits;
+    /** The bits of the last fingerprint calculated. */
+    private volatile byte[] m_bits;
 
-    private SMARTSQueryTool sqt;
     public PubchemFingerprinter() {
-    	sqt = new SMARTSQueryTool("C");
         m_bits = new byte[(FP_SIZE + 7) >> 3];
     }
 
@@ -115,10 +121,12 @@ public class PubchemFingerprinter implements IFingerprinter {
     @TestMethod("testFingerprint")
     public IBitFingerprint getBitFingerprint(IAtomContainer atomContainer) 
                   throws CDKException {
-        generateFp(atomContainer);
+        byte[] bits = new byte[(FP_SIZE + 7) >> 3];
+        _generateFp(bits, atomContainer);
+        m_bits = bits;
         BitSet fp = new BitSet(FP_SIZE);
         for (int i = 0; i < FP_SIZE; i++) {
-            if (isBitOn(i)) fp.set(i);
+            if (isBitOn(bits, i)) fp.set(i);
         }
         return new BitSetFingerprint(fp);
     }
@@ -155,192 +163,138 @@ public class PubchemFingerprinter implements IFingerprinter {
         }
     }
 
+    /**
+     * Counts the rings of the SSSR by their properties, which are determined
+     * once for each ring.
+     */
     static class CountRings {
-        int[][] sssr = {};
-        IRingSet ringSet;
+        int[] sizes;
+        boolean[] carbonOnly;
+        boolean[] saturated;
+        boolean[] aromatic;
+        boolean[] nitrogen;
+        boolean[] hetero;
 
         public CountRings(IAtomContainer m) {
-            SSSRFinder finder = new SSSRFinder(m);
-            ringSet = finder.findSSSR();
-        }
-
-        public int countAnyRing(int size) {
-            int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size)
-                    c++;
-            }
-            return c;
-        }
-
-        private boolean isCarbonOnlyRing(IAtomContainer ring) {
-            for (IAtom ringAtom : ring.atoms()) {
-                if (!ringAtom.getSymbol().equals("C")) return false;
-            }
-            return true;
-        }
-
-        private boolean isRingSaturated(IAtomContainer ring) {
-            for (IBond ringBond : ring.bonds()) {
-                if (ringBond.getOrder() != IBond.Order.SINGLE
-                        || ringBond.getFlag(CDKConstants.ISAROMATIC)) return false;
-            }
-            return true;
-        }
-
-        private boolean isRingUnsaturated(IAtomContainer ring) {
-            return !isRingSaturated(ring);
-        }
-
-        private int countNitrogenInRing(IAtomContainer ring) {
-            int c = 0;
-            for (IAtom ringAtom : ring.atoms()) {
-                if (ringAtom.getSymbol().equals("N")) c++;
+            IRingSet ringSet = RingPerception.getInstance(m).getSSSR();
+            int n = ringSet.getAtomContainerCount();
+            sizes      = new int[n];
+            carbonOnly = new boolean[n];
+            saturated  = new boolean[n];
+            aromatic   = new boolean[n];
+            nitrogen   = new boolean[n];
+            hetero     = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                IAtomContainer ring = ringSet.getAtomContainer(i);
+                sizes[i] = ring.getAtomCount();
+                carbonOnly[i] = true;
+                for (IAtom ringAtom : ring.atoms()) {
+                    String symbol = ringAtom.getSymbol();
+                    if (!symbol.equals("C")) carbonOnly[i] = false;
+                    if (symbol.equals("N")) nitrogen[i] = true;
+                    if (!symbol.equals("C") && !symbol.equals("H")) hetero[i] = true;
+                }
+                saturated[i] = true;
+                aromatic[i] = true;
+                for (IBond ringBond : ring.bonds()) {
+                    if (ringBond.getOrder() != IBond.Order.SINGLE
+                            || ringBond.getFlag(CDKConstants.ISAROMATIC)) saturated[i] = false;
+                    if (!ringBond.getFlag(CDKConstants.ISAROMATIC)) aromatic[i] = false;
+                }
             }
-            return c;
         }
 
-        private int countHeteroInRing(IAtomContainer ring) {
+        public int countAnyRing(int size) {
             int c = 0;
-            for (IAtom ringAtom : ring.atoms()) {
-                if (!ringAtom.getSymbol().equals("C") 
-                                && !ringAtom.getSymbol().equals("H"))
-                    c++;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size) c++;
             }
             return c;
         }
 
-        private boolean isAromaticRing(IAtomContainer ring) {
-            for (IBond bond : ring.bonds())
-                if (!bond.getFlag(CDKConstants.ISAROMATIC)) return false;
-            return true;
-        }
-
         public int countAromaticRing() {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (isAromaticRing(ring)) c++;
+            for (int i = 0; i < sizes.length; i++) {
+                if (aromatic[i]) c++;
             }
             return c;
         }
 
         public int countHeteroAromaticRing() {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (!isCarbonOnlyRing(ring) && isAromaticRing(ring)) c++;
+            for (int i = 0; i < sizes.length; i++) {
+                if (!carbonOnly[i] && aromatic[i]) c++;
             }
             return c;
         }
 
         public int countSaturatedOrAromaticCarbonOnlyRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && isCarbonOnlyRing(ring)
-                        && (isRingSaturated(ring) || isAromaticRing(ring)))
-                    c++;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && carbonOnly[i] && (saturated[i] || aromatic[i])) c++;
             }
             return c;
         }
 
         public int countSaturatedOrAromaticNitrogenContainingRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && (isRingSaturated(ring) || isAromaticRing(ring))
-                        && countNitrogenInRing(ring) > 0)
-                    ++c;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && (saturated[i] || aromatic[i]) && nitrogen[i]) ++c;
             }
             return c;
         }
 
         public int countSaturatedOrAromaticHeteroContainingRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && (isRingSaturated(ring) || isAromaticRing(ring))
-                        && countHeteroInRing(ring) > 0)
-                    ++c;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && (saturated[i] || aromatic[i]) && hetero[i]) ++c;
             }
             return c;
         }
 
         public int countUnsaturatedCarbonOnlyRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && isRingUnsaturated(ring)
-                        && !isAromaticRing(ring)
-                        && isCarbonOnlyRing(ring))
-                    ++c;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && !saturated[i] && !aromatic[i] && carbonOnly[i]) ++c;
             }
             return c;
         }
 
         public int countUnsaturatedNitrogenContainingRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && isRingUnsaturated(ring)
-                        && !isAromaticRing(ring)
-                        && countNitrogenInRing(ring) > 0)
-                    ++c;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && !saturated[i] && !aromatic[i] && nitrogen[i]) ++c;
             }
             return c;
         }
 
         public int countUnsaturatedHeteroContainingRing(int size) {
             int c = 0;
-            for (IAtomContainer ring : ringSet.atomContainers()) {
-                if (ring.getAtomCount() == size
-                        && isRingUnsaturated(ring)
-                        && !isAromaticRing(ring)
-                        && countHeteroInRing(ring) > 0)
-                    ++c;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] == size && !saturated[i] && !aromatic[i] && hetero[i]) ++c;
             }
             return c;
         }
     }
 
-    class CountSubstructures {
-        private IAtomContainer mol;
-
-        public CountSubstructures(IAtomContainer m) {
-            mol = m;
-        }
-
-        public int countSubstructure(String smarts) throws CDKException {
-            sqt.setSmarts(smarts);
-            boolean status = sqt.matches(mol);
-            if (status) {
-                return sqt.getUniqueMatchingAtoms().size();
-            } else return 0;
-        }
-    }
-
-    private void _generateFp(byte[] fp, IAtomContainer mol)
+    private static void _generateFp(byte[] fp, IAtomContainer mol)
                         throws CDKException {
         countElements(fp, mol);
         countRings(fp, mol);
         countSubstructures(fp, mol);
     }
 
-    private void generateFp(IAtomContainer mol) throws CDKException {
-        for (int i = 0; i < m_bits.length; ++i) {
-            m_bits[i] = 0;
-        }
-        _generateFp(m_bits, mol);
-    }
-
-    private boolean isBitOn(int bit) {
-        return (m_bits[bit >> 3] & MASK[bit % 8]) != 0;
+    private static boolean isBitOn(byte[] bits, int bit) {
+        return (bits[bit >> 3] & MASK[bit % 8]) != 0;
     }
 
     /**
      * Returns the fingerprint generated for a molecule as a byte[].
      * <p/>
      * Note that this should be immediately called after calling
-     * {@link #getBitFingerprint(org.openscience.cdk.interfaces.IAtomContainer)}
+     * {@link #getBitFingerprint(org.openscience.cdk.interfaces.IAtomContainer)}.
+     * If the fingerprinter is used from several threads, this is the
+     * fingerprint any of them calculated last.
      *
      * @return The fingerprint as a byte array
      * @see #getBitFingerprint(org.openscience.cdk.interfaces.IAtomContainer)
@@ -369,14 +323,14 @@ public class PubchemFingerprinter implements IFingerprinter {
                 "Input is not a proper PubChem base64 encoded fingerprint");
         }
 
-        PubchemFingerprinter pc = new PubchemFingerprinter();
-        for (int i = 0; i < pc.m_bits.length; ++i) {
-            pc.m_bits[i] = fp[i + 4];
+        byte[] bits = new byte[(FP_SIZE + 7) >> 3];
+        for (int i = 0; i < bits.length; ++i) {
+            bits[i] = fp[i + 4];
         }
 
         BitSet ret = new BitSet(FP_SIZE);
         for (int i = 0; i < FP_SIZE; i++) {
-            if (pc.isBitOn(i)) ret.set(i);
+            if (isBitOn(bits, i)) ret.set(i);
         }
         return ret;
     }
@@ -384,6 +338,7 @@ public class PubchemFingerprinter implements IFingerprinter {
 
     // the first four bytes contains the length of the fingerprint
     private String encode() {
+        byte[] m_bits = this.m_bits;
         byte[] pack = new byte[4 + m_bits.length];
 
         pack[0] = (byte) ((FP_SIZE & 0xffffffff) >> 24);
@@ -1088,1294 +1043,681 @@ public class PubchemFingerprinter implements IFingerprinter {
         if (cr.countHeteroAromaticRing() >= 4) fp[b >> 3] |= MASK[b % 8];
     }
 
-    private void countSubstructures(byte[] fp, IAtomContainer mol) throws CDKException {
-        CountSubstructures cs = new CountSubstructures(mol);
-        int b;
-
+    /**
+     * The SMARTS patterns of sections 3 to 7, for the bits from
+     * {@link #SMARTS_OFFSET} on. A bit is set if its pattern matches.
+     */
+    private static final String[] SMARTS = {
         /*
-        Section 3: Simple atom pairs. These bits test for the presence
-        of patterns of bonded atom pairs, regardless of bond order or
-        count.
-      */
-        b = 263;
-        if (cs.countSubstructure("[Li&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 264;
-        if (cs.countSubstructure("[Li]~[Li]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 265;
-        if (cs.countSubstructure("[Li]~[#5]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 266;
-        if (cs.countSubstructure("[Li]~[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 267;
-        if (cs.countSubstructure("[Li]~[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 268;
-        if (cs.countSubstructure("[Li]~[F]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 269;
-        if (cs.countSubstructure("[Li]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 270;
-        if (cs.countSubstructure("[Li]~[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 271;
-        if (cs.countSubstructure("[Li]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 272;
-        if (cs.countSubstructure("[#5&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 273;
-        if (cs.countSubstructure("[#5]~[#5]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 274;
-        if (cs.countSubstructure("[#5]~[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 275;
-        if (cs.countSubstructure("[#5]~[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 276;
-        if (cs.countSubstructure("[#5]~[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 277;
-        if (cs.countSubstructure("[#5]~[F]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 278;
-        if (cs.countSubstructure("[#5]~[#14]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 279;
-        if (cs.countSubstructure("[#5]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 280;
-        if (cs.countSubstructure("[#5]~[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 281;
-        if (cs.countSubstructure("[#5]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 282;
-        if (cs.countSubstructure("[#5]~[Br]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 283;
-        if (cs.countSubstructure("[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 284;
-        if (cs.countSubstructure("[#6]~[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 285;
-        if (cs.countSubstructure("[#6]~[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 286;
-        if (cs.countSubstructure("[#6]~[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 287;
-        if (cs.countSubstructure("[#6]~[F]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 288;
-        if (cs.countSubstructure("[#6]~[Na]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 289;
-        if (cs.countSubstructure("[#6]~[Mg]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 290;
-        if (cs.countSubstructure("[#6]~[Al]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 291;
-        if (cs.countSubstructure("[#6]~[#14]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 292;
-        if (cs.countSubstructure("[#6]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 293;
-        if (cs.countSubstructure("[#6]~[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 294;
-        if (cs.countSubstructure("[#6]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 295;
-        if (cs.countSubstructure("[#6]~[#33]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 296;
-        if (cs.countSubstructure("[#6]~[#34]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 297;
-        if (cs.countSubstructure("[#6]~[Br]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 298;
-        if (cs.countSubstructure("[#6]~[I]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 299;
-        if (cs.countSubstructure("[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 300;
-        if (cs.countSubstructure("[#7]~[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 301;
-        if (cs.countSubstructure("[#7]~[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 302;
-        if (cs.countSubstructure("[#7]~[F]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 303;
-        if (cs.countSubstructure("[#7]~[#14]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 304;
-        if (cs.countSubstructure("[#7]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 305;
-        if (cs.countSubstructure("[#7]~[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 306;
-        if (cs.countSubstructure("[#7]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 307;
-        if (cs.countSubstructure("[#7]~[Br]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 308;
-        if (cs.countSubstructure("[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 309;
-        if (cs.countSubstructure("[#8]~[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 310;
-        if (cs.countSubstructure("[#8]~[Mg]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 311;
-        if (cs.countSubstructure("[#8]~[Na]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 312;
-        if (cs.countSubstructure("[#8]~[Al]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 313;
-        if (cs.countSubstructure("[#8]~[#14]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 314;
-        if (cs.countSubstructure("[#8]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 315;
-        if (cs.countSubstructure("[#8]~[K]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 316;
-        if (cs.countSubstructure("[F]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 317;
-        if (cs.countSubstructure("[F]~[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 318;
-        if (cs.countSubstructure("[Al&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 319;
-        if (cs.countSubstructure("[Al]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 320;
-        if (cs.countSubstructure("[#14&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 321;
-        if (cs.countSubstructure("[#14]~[#14]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 322;
-        if (cs.countSubstructure("[#14]~[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 323;
-        if (cs.countSubstructure("[#15&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 324;
-        if (cs.countSubstructure("[#15]~[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 325;
-        if (cs.countSubstructure("[#33&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 326;
-        if (cs.countSubstructure("[#33]~[#33]") > 0) fp[b >> 3] |= MASK[b % 8];
+          Section 3: Simple atom pairs. These bits test for the presence
+          of patterns of bonded atom pairs, regardless of bond order or
+          count.
+        */
+        /* 263 */ "[Li&!H0]",
+        /* 264 */ "[Li]~[Li]",
+        /* 265 */ "[Li]~[#5]",
+        /* 266 */ "[Li]~[#6]",
+        /* 267 */ "[Li]~[#8]",
+        /* 268 */ "[Li]~[F]",
+        /* 269 */ "[Li]~[#15]",
+        /* 270 */ "[Li]~[#16]",
+        /* 271 */ "[Li]~[Cl]",
+        /* 272 */ "[#5&!H0]",
+        /* 273 */ "[#5]~[#5]",
+        /* 274 */ "[#5]~[#6]",
+        /* 275 */ "[#5]~[#7]",
+        /* 276 */ "[#5]~[#8]",
+        /* 277 */ "[#5]~[F]",
+        /* 278 */ "[#5]~[#14]",
+        /* 279 */ "[#5]~[#15]",
+        /* 280 */ "[#5]~[#16]",
+        /* 281 */ "[#5]~[Cl]",
+        /* 282 */ "[#5]~[Br]",
+        /* 283 */ "[#6&!H0]",
+        /* 284 */ "[#6]~[#6]",
+        /* 285 */ "[#6]~[#7]",
+        /* 286 */ "[#6]~[#8]",
+        /* 287 */ "[#6]~[F]",
+        /* 288 */ "[#6]~[Na]",
+        /* 289 */ "[#6]~[Mg]",
+        /* 290 */ "[#6]~[Al]",
+        /* 291 */ "[#6]~[#14]",
+        /* 292 */ "[#6]~[#15]",
+        /* 293 */ "[#6]~[#16]",
+        /* 294 */ "[#6]~[Cl]",
+        /* 295 */ "[#6]~[#33]",
+        /* 296 */ "[#6]~[#34]",
+        /* 297 */ "[#6]~[Br]",
+        /* 298 */ "[#6]~[I]",
+        /* 299 */ "[#7&!H0]",
+        /* 300 */ "[#7]~[#7]",
+        /* 301 */ "[#7]~[#8]",
+        /* 302 */ "[#7]~[F]",
+        /* 303 */ "[#7]~[#14]",
+        /* 304 */ "[#7]~[#15]",
+        /* 305 */ "[#7]~[#16]",
+        /* 306 */ "[#7]~[Cl]",
+        /* 307 */ "[#7]~[Br]",
+        /* 308 */ "[#8&!H0]",
+        /* 309 */ "[#8]~[#8]",
+        /* 310 */ "[#8]~[Mg]",
+        /* 311 */ "[#8]~[Na]",
+        /* 312 */ "[#8]~[Al]",
+        /* 313 */ "[#8]~[#14]",
+        /* 314 */ "[#8]~[#15]",
+        /* 315 */ "[#8]~[K]",
+        /* 316 */ "[F]~[#15]",
+        /* 317 */ "[F]~[#16]",
+        /* 318 */ "[Al&!H0]",
+        /* 319 */ "[Al]~[Cl]",
+        /* 320 */ "[#14&!H0]",
+        /* 321 */ "[#14]~[#14]",
+        /* 322 */ "[#14]~[Cl]",
+        /* 323 */ "[#15&!H0]",
+        /* 324 */ "[#15]~[#15]",
+        /* 325 */ "[#33&!H0]",
+        /* 326 */ "[#33]~[#33]",
 
         /*
-        Section 4: Simple atom nearest neighbors.  These bits test for the
-        presence of atom nearest neighbor patterns, regardless of
-        bond order or count, but where bond aromaticity (denoted by
-        "~") is significant.
-      */
-        b = 327;
-        if (cs.countSubstructure("[#6](~Br)(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 328;
-        if (cs.countSubstructure("[#6](~Br)(~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 329;
-        if (cs.countSubstructure("[#6&!H0]~[Br]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 330;
-        if (cs.countSubstructure("[#6](~[Br])(:[c])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 331;
-        if (cs.countSubstructure("[#6](~[Br])(:[n])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 332;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 333;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 334;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 335;
-        if (cs.countSubstructure("[#6H1](~[#6])(~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 336;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 337;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 338;
-        if (cs.countSubstructure("[#6H1](~[#6])(~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 339;
-        if (cs.countSubstructure("[#6H1](~[#6])(~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 340;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 341;
-        if (cs.countSubstructure("[#6](~[#6])(~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 342;
-        if (cs.countSubstructure("[#6](~[#6])(~[Cl])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 343;
-        if (cs.countSubstructure("[#6&!H0](~[#6])(~[Cl])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 344;
-        if (cs.countSubstructure("[#6H,#6H2,#6H3,#6H4]~[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 345;
-        if (cs.countSubstructure("[#6&!H0](~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 346;
-        if (cs.countSubstructure("[#6&!H0](~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 347;
-        if (cs.countSubstructure("[#6H1](~[#6])(~[#8])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 348;
-        if (cs.countSubstructure("[#6&!H0](~[#6])(~[#15])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 349;
-        if (cs.countSubstructure("[#6&!H0](~[#6])(~[#16])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 350;
-        if (cs.countSubstructure("[#6](~[#6])(~[I])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 351;
-        if (cs.countSubstructure("[#6](~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 352;
-        if (cs.countSubstructure("[#6](~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 353;
-        if (cs.countSubstructure("[#6](~[#6])(~[#16])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 354;
-        if (cs.countSubstructure("[#6](~[#6])(~[#14])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 355;
-        if (cs.countSubstructure("[#6](~[#6])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 356;
-        if (cs.countSubstructure("[#6](~[#6])(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 357;
-        if (cs.countSubstructure("[#6](~[#6])(:c)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 358;
-        if (cs.countSubstructure("[#6](~[#6])(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 359;
-        if (cs.countSubstructure("[#6](~[#6])(:n)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 360;
-        if (cs.countSubstructure("[#6](~[Cl])(~[Cl])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 361;
-        if (cs.countSubstructure("[#6&!H0](~[Cl])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 362;
-        if (cs.countSubstructure("[#6](~[Cl])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 363;
-        if (cs.countSubstructure("[#6](~[F])(~[F])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 364;
-        if (cs.countSubstructure("[#6](~[F])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 365;
-        if (cs.countSubstructure("[#6&!H0](~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 366;
-        if (cs.countSubstructure("[#6&!H0](~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 367;
-        if (cs.countSubstructure("[#6&!H0](~[#8])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 368;
-        if (cs.countSubstructure("[#6&!H0](~[#16])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 369;
-        if (cs.countSubstructure("[#6&!H0](~[#14])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 370;
-        if (cs.countSubstructure("[#6&!H0]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 371;
-        if (cs.countSubstructure("[#6&!H0](:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 372;
-        if (cs.countSubstructure("[#6&!H0](:c)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 373;
-        if (cs.countSubstructure("[#6&!H0](:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 374;
-        if (cs.countSubstructure("[#6H3]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 375;
-        if (cs.countSubstructure("[#6](~[#7])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 376;
-        if (cs.countSubstructure("[#6](~[#7])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 377;
-        if (cs.countSubstructure("[#6](~[#7])(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 378;
-        if (cs.countSubstructure("[#6](~[#7])(:c)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 379;
-        if (cs.countSubstructure("[#6](~[#7])(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 380;
-        if (cs.countSubstructure("[#6](~[#8])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 381;
-        if (cs.countSubstructure("[#6](~[#8])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 382;
-        if (cs.countSubstructure("[#6](~[#8])(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 383;
-        if (cs.countSubstructure("[#6](~[#16])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 384;
-        if (cs.countSubstructure("[#6](:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 385;
-        if (cs.countSubstructure("[#6](:c)(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 386;
-        if (cs.countSubstructure("[#6](:c)(:c)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 387;
-        if (cs.countSubstructure("[#6](:c)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 388;
-        if (cs.countSubstructure("[#6](:c)(:n)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 389;
-        if (cs.countSubstructure("[#6](:n)(:n)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 390;
-        if (cs.countSubstructure("[#7](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 391;
-        if (cs.countSubstructure("[#7](~[#6])(~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 392;
-        if (cs.countSubstructure("[#7&!H0](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 393;
-        if (cs.countSubstructure("[#7&!H0](~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 394;
-        if (cs.countSubstructure("[#7&!H0](~[#6])(~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 395;
-        if (cs.countSubstructure("[#7](~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 396;
-        if (cs.countSubstructure("[#7](~[#6])(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 397;
-        if (cs.countSubstructure("[#7](~[#6])(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 398;
-        if (cs.countSubstructure("[#7&!H0](~[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 399;
-        if (cs.countSubstructure("[#7&!H0](:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 400;
-        if (cs.countSubstructure("[#7&!H0](:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 401;
-        if (cs.countSubstructure("[#7](~[#8])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 402;
-        if (cs.countSubstructure("[#7](~[#8])(:o)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 403;
-        if (cs.countSubstructure("[#7](:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 404;
-        if (cs.countSubstructure("[#7](:c)(:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 405;
-        if (cs.countSubstructure("[#8](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 406;
-        if (cs.countSubstructure("[#8&!H0](~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 407;
-        if (cs.countSubstructure("[#8](~[#6])(~[#15])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 408;
-        if (cs.countSubstructure("[#8&!H0](~[#16])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 409;
-        if (cs.countSubstructure("[#8](:c)(:c)") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 410;
-        if (cs.countSubstructure("[#15](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 411;
-        if (cs.countSubstructure("[#15](~[#8])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 412;
-        if (cs.countSubstructure("[#16](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 413;
-        if (cs.countSubstructure("[#16&!H0](~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 414;
-        if (cs.countSubstructure("[#16](~[#6])(~[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 415;
-        if (cs.countSubstructure("[#14](~[#6])(~[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
+          Section 4: Simple atom nearest neighbors.  These bits test for the
+          presence of atom nearest neighbor patterns, regardless of
+          bond order or count, but where bond aromaticity (denoted by
+          "~") is significant.
+        */
+        /* 327 */ "[#6](~Br)(~[#6])",
+        /* 328 */ "[#6](~Br)(~[#6])(~[#6])",
+        /* 329 */ "[#6&!H0]~[Br]",
+        /* 330 */ "[#6](~[Br])(:[c])",
+        /* 331 */ "[#6](~[Br])(:[n])",
+        /* 332 */ "[#6](~[#6])(~[#6])",
+        /* 333 */ "[#6](~[#6])(~[#6])(~[#6])",
+        /* 334 */ "[#6](~[#6])(~[#6])(~[#6])(~[#6])",
+        /* 335 */ "[#6H1](~[#6])(~[#6])(~[#6])",
+        /* 336 */ "[#6](~[#6])(~[#6])(~[#6])(~[#7])",
+        /* 337 */ "[#6](~[#6])(~[#6])(~[#6])(~[#8])",
+        /* 338 */ "[#6H1](~[#6])(~[#6])(~[#7])",
+        /* 339 */ "[#6H1](~[#6])(~[#6])(~[#8])",
+        /* 340 */ "[#6](~[#6])(~[#6])(~[#7])",
+        /* 341 */ "[#6](~[#6])(~[#6])(~[#8])",
+        /* 342 */ "[#6](~[#6])(~[Cl])",
+        /* 343 */ "[#6&!H0](~[#6])(~[Cl])",
+        /* 344 */ "[#6H,#6H2,#6H3,#6H4]~[#6]",
+        /* 345 */ "[#6&!H0](~[#6])(~[#7])",
+        /* 346 */ "[#6&!H0](~[#6])(~[#8])",
+        /* 347 */ "[#6H1](~[#6])(~[#8])(~[#8])",
+        /* 348 */ "[#6&!H0](~[#6])(~[#15])",
+        /* 349 */ "[#6&!H0](~[#6])(~[#16])",
+        /* 350 */ "[#6](~[#6])(~[I])",
+        /* 351 */ "[#6](~[#6])(~[#7])",
+        /* 352 */ "[#6](~[#6])(~[#8])",
+        /* 353 */ "[#6](~[#6])(~[#16])",
+        /* 354 */ "[#6](~[#6])(~[#14])",
+        /* 355 */ "[#6](~[#6])(:c)",
+        /* 356 */ "[#6](~[#6])(:c)(:c)",
+        /* 357 */ "[#6](~[#6])(:c)(:n)",
+        /* 358 */ "[#6](~[#6])(:n)",
+        /* 359 */ "[#6](~[#6])(:n)(:n)",
+        /* 360 */ "[#6](~[Cl])(~[Cl])",
+        /* 361 */ "[#6&!H0](~[Cl])",
+        /* 362 */ "[#6](~[Cl])(:c)",
+        /* 363 */ "[#6](~[F])(~[F])",
+        /* 364 */ "[#6](~[F])(:c)",
+        /* 365 */ "[#6&!H0](~[#7])",
+        /* 366 */ "[#6&!H0](~[#8])",
+        /* 367 */ "[#6&!H0](~[#8])(~[#8])",
+        /* 368 */ "[#6&!H0](~[#16])",
+        /* 369 */ "[#6&!H0](~[#14])",
+        /* 370 */ "[#6&!H0]:c",
+        /* 371 */ "[#6&!H0](:c)(:c)",
+        /* 372 */ "[#6&!H0](:c)(:n)",
+        /* 373 */ "[#6&!H0](:n)",
+        /* 374 */ "[#6H3]",
+        /* 375 */ "[#6](~[#7])(~[#7])",
+        /* 376 */ "[#6](~[#7])(:c)",
+        /* 377 */ "[#6](~[#7])(:c)(:c)",
+        /* 378 */ "[#6](~[#7])(:c)(:n)",
+        /* 379 */ "[#6](~[#7])(:n)",
+        /* 380 */ "[#6](~[#8])(~[#8])",
+        /* 381 */ "[#6](~[#8])(:c)",
+        /* 382 */ "[#6](~[#8])(:c)(:c)",
+        /* 383 */ "[#6](~[#16])(:c)",
+        /* 384 */ "[#6](:c)(:c)",
+        /* 385 */ "[#6](:c)(:c)(:c)",
+        /* 386 */ "[#6](:c)(:c)(:n)",
+        /* 387 */ "[#6](:c)(:n)",
+        /* 388 */ "[#6](:c)(:n)(:n)",
+        /* 389 */ "[#6](:n)(:n)",
+        /* 390 */ "[#7](~[#6])(~[#6])",
+        /* 391 */ "[#7](~[#6])(~[#6])(~[#6])",
+        /* 392 */ "[#7&!H0](~[#6])(~[#6])",
+        /* 393 */ "[#7&!H0](~[#6])",
+        /* 394 */ "[#7&!H0](~[#6])(~[#7])",
+        /* 395 */ "[#7](~[#6])(~[#8])",
+        /* 396 */ "[#7](~[#6])(:c)",
+        /* 397 */ "[#7](~[#6])(:c)(:c)",
+        /* 398 */ "[#7&!H0](~[#7])",
+        /* 399 */ "[#7&!H0](:c)",
+        /* 400 */ "[#7&!H0](:c)(:c)",
+        /* 401 */ "[#7](~[#8])(~[#8])",
+        /* 402 */ "[#7](~[#8])(:o)",
+        /* 403 */ "[#7](:c)(:c)",
+        /* 404 */ "[#7](:c)(:c)(:c)",
+        /* 405 */ "[#8](~[#6])(~[#6])",
+        /* 406 */ "[#8&!H0](~[#6])",
+        /* 407 */ "[#8](~[#6])(~[#15])",
+        /* 408 */ "[#8&!H0](~[#16])",
+        /* 409 */ "[#8](:c)(:c)",
+        /* 410 */ "[#15](~[#6])(~[#6])",
+        /* 411 */ "[#15](~[#8])(~[#8])",
+        /* 412 */ "[#16](~[#6])(~[#6])",
+        /* 413 */ "[#16&!H0](~[#6])",
+        /* 414 */ "[#16](~[#6])(~[#8])",
+        /* 415 */ "[#14](~[#6])(~[#6])",
 
         /*
-        Section 5: Detailed atom neighborhoods - These bits test for the
-        presence of detailed atom neighborhood patterns, regardless
-        of count, but where bond orders are specific, bond
-        aromaticity matches both single and double bonds, and where
-        "-", "=", and "#" matches a single bond, double bond, and
-        triple bond order, respectively.
-      */
-
-        b = 416;
-        if (cs.countSubstructure("[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 417;
-        if (cs.countSubstructure("[#6]#[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 418;
-        if (cs.countSubstructure("[#6]=,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 419;
-        if (cs.countSubstructure("[#6]#[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 420;
-        if (cs.countSubstructure("[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 421;
-        if (cs.countSubstructure("[#6]=,:[#16]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 422;
-        if (cs.countSubstructure("[#7]=,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 423;
-        if (cs.countSubstructure("[#7]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 424;
-        if (cs.countSubstructure("[#7]=,:[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 425;
-        if (cs.countSubstructure("[#15]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 426;
-        if (cs.countSubstructure("[#15]=,:[#15]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 427;
-        if (cs.countSubstructure("[#6](#[#6])(-,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 428;
-        if (cs.countSubstructure("[#6&!H0](#[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 429;
-        if (cs.countSubstructure("[#6](#[#7])(-,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 430;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#6])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 431;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#6])(=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 432;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#6])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 433;
-        if (cs.countSubstructure("[#6](-,:[#6])([Cl])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 434;
-        if (cs.countSubstructure("[#6&!H0](-,:[#6])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 435;
-        if (cs.countSubstructure("[#6&!H0](-,:[#6])(=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 436;
-        if (cs.countSubstructure("[#6&!H0](-,:[#6])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 437;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#7])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 438;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#7])(=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 439;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#7])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 440;
-        if (cs.countSubstructure("[#6](-,:[#6])(-,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 441;
-        if (cs.countSubstructure("[#6](-,:[#6])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 442;
-        if (cs.countSubstructure("[#6](-,:[#6])(=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 443;
-        if (cs.countSubstructure("[#6](-,:[#6])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 444;
-        if (cs.countSubstructure("[#6]([Cl])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 445;
-        if (cs.countSubstructure("[#6&!H0](-,:[#7])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 446;
-        if (cs.countSubstructure("[#6&!H0](=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 447;
-        if (cs.countSubstructure("[#6&!H0](=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 448;
-        if (cs.countSubstructure("[#6&!H0](=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 449;
-        if (cs.countSubstructure("[#6](-,:[#7])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 450;
-        if (cs.countSubstructure("[#6](-,:[#7])(=,:[#7])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 451;
-        if (cs.countSubstructure("[#6](-,:[#7])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 452;
-        if (cs.countSubstructure("[#6](-,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 453;
-        if (cs.countSubstructure("[#7](-,:[#6])(=,:[#6])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 454;
-        if (cs.countSubstructure("[#7](-,:[#6])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 455;
-        if (cs.countSubstructure("[#7](-,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 456;
-        if (cs.countSubstructure("[#15](-,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 457;
-        if (cs.countSubstructure("[#16](-,:[#6])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 458;
-        if (cs.countSubstructure("[#16](-,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 459;
-        if (cs.countSubstructure("[#16](=,:[#8])(=,:[#8])") > 0) fp[b >> 3] |= MASK[b % 8];
+          Section 5: Detailed atom neighborhoods - These bits test for the
+          presence of detailed atom neighborhood patterns, regardless
+          of count, but where bond orders are specific, bond
+          aromaticity matches both single and double bonds, and where
+          "-", "=", and "#" matches a single bond, double bond, and
+          triple bond order, respectively.
+        */
+        /* 416 */ "[#6]=,:[#6]",
+        /* 417 */ "[#6]#[#6]",
+        /* 418 */ "[#6]=,:[#7]",
+        /* 419 */ "[#6]#[#7]",
+        /* 420 */ "[#6]=,:[#8]",
+        /* 421 */ "[#6]=,:[#16]",
+        /* 422 */ "[#7]=,:[#7]",
+        /* 423 */ "[#7]=,:[#8]",
+        /* 424 */ "[#7]=,:[#15]",
+        /* 425 */ "[#15]=,:[#8]",
+        /* 426 */ "[#15]=,:[#15]",
+        /* 427 */ "[#6](#[#6])(-,:[#6])",
+        /* 428 */ "[#6&!H0](#[#6])",
+        /* 429 */ "[#6](#[#7])(-,:[#6])",
+        /* 430 */ "[#6](-,:[#6])(-,:[#6])(=,:[#6])",
+        /* 431 */ "[#6](-,:[#6])(-,:[#6])(=,:[#7])",
+        /* 432 */ "[#6](-,:[#6])(-,:[#6])(=,:[#8])",
+        /* 433 */ "[#6](-,:[#6])([Cl])(=,:[#8])",
+        /* 434 */ "[#6&!H0](-,:[#6])(=,:[#6])",
+        /* 435 */ "[#6&!H0](-,:[#6])(=,:[#7])",
+        /* 436 */ "[#6&!H0](-,:[#6])(=,:[#8])",
+        /* 437 */ "[#6](-,:[#6])(-,:[#7])(=,:[#6])",
+        /* 438 */ "[#6](-,:[#6])(-,:[#7])(=,:[#7])",
+        /* 439 */ "[#6](-,:[#6])(-,:[#7])(=,:[#8])",
+        /* 440 */ "[#6](-,:[#6])(-,:[#8])(=,:[#8])",
+        /* 441 */ "[#6](-,:[#6])(=,:[#6])",
+        /* 442 */ "[#6](-,:[#6])(=,:[#7])",
+        /* 443 */ "[#6](-,:[#6])(=,:[#8])",
+        /* 444 */ "[#6]([Cl])(=,:[#8])",
+        /* 445 */ "[#6&!H0](-,:[#7])(=,:[#6])",
+        /* 446 */ "[#6&!H0](=,:[#6])",
+        /* 447 */ "[#6&!H0](=,:[#7])",
+        /* 448 */ "[#6&!H0](=,:[#8])",
+        /* 449 */ "[#6](-,:[#7])(=,:[#6])",
+        /* 450 */ "[#6](-,:[#7])(=,:[#7])",
+        /* 451 */ "[#6](-,:[#7])(=,:[#8])",
+        /* 452 */ "[#6](-,:[#8])(=,:[#8])",
+        /* 453 */ "[#7](-,:[#6])(=,:[#6])",
+        /* 454 */ "[#7](-,:[#6])(=,:[#8])",
+        /* 455 */ "[#7](-,:[#8])(=,:[#8])",
+        /* 456 */ "[#15](-,:[#8])(=,:[#8])",
+        /* 457 */ "[#16](-,:[#6])(=,:[#8])",
+        /* 458 */ "[#16](-,:[#8])(=,:[#8])",
+        /* 459 */ "[#16](=,:[#8])(=,:[#8])",
 
         /*
-        Section 6: Simple SMARTS patterns - These bits test for the presence
-        of simple SMARTS patterns, regardless of count, but where
-        bond orders are specific and bond aromaticity matches both
-        single and double bonds.
-      */
-        b = 460;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]#[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 461;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]=,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 462;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 463;
-        if (cs.countSubstructure("[#7]:[#6]-,:[#16&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 464;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 465;
-        if (cs.countSubstructure("[#8]=,:[#16]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 466;
-        if (cs.countSubstructure("[#7]#[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 467;
-        if (cs.countSubstructure("[#6]=,:[#7]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 468;
-        if (cs.countSubstructure("[#8]=,:[#16]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 469;
-        if (cs.countSubstructure("[#16]-,:[#16]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 470;
-        if (cs.countSubstructure("[#6]:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 471;
-        if (cs.countSubstructure("[#16]:[#6]:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 472;
-        if (cs.countSubstructure("[#6]:[#7]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 473;
-        if (cs.countSubstructure("[#16]-,:[#6]:[#7]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 474;
-        if (cs.countSubstructure("[#16]:[#6]:[#6]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 475;
-        if (cs.countSubstructure("[#16]-,:[#6]=,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 476;
-        if (cs.countSubstructure("[#6]-,:[#8]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 477;
-        if (cs.countSubstructure("[#7]-,:[#7]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 478;
-        if (cs.countSubstructure("[#16]-,:[#6]=,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 479;
-        if (cs.countSubstructure("[#16]-,:[#6]-,:[#16]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 480;
-        if (cs.countSubstructure("[#6]:[#16]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 481;
-        if (cs.countSubstructure("[#8]-,:[#16]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 482;
-        if (cs.countSubstructure("[#6]:[#7]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 483;
-        if (cs.countSubstructure("[#7]-,:[#16]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 484;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#7]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 485;
-        if (cs.countSubstructure("[#7]:[#6]:[#6]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 486;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#7]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 487;
-        if (cs.countSubstructure("[#7]-,:[#6]=,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 488;
-        if (cs.countSubstructure("[#7]-,:[#6]=,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 489;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#16]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 490;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 491;
-        if (cs.countSubstructure("[#6]-,:[#7]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 492;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#8]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 493;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 494;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 495;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 496;
-        if (cs.countSubstructure("[#7]:[#7]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 497;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 498;
-        if (cs.countSubstructure("[#8]-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 499;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 500;
-        if (cs.countSubstructure("[#6]-,:[#16]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 501;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 502;
-        if (cs.countSubstructure("[#7]-,:[#6]=,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 503;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 504;
-        if (cs.countSubstructure("[#7]:[#6]:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 505;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 506;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#7]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 507;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#16]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 508;
-        if (cs.countSubstructure("[#16]=,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 509;
-        if (cs.countSubstructure("[Br]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 510;
-        if (cs.countSubstructure("[#7&!H0]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 511;
-        if (cs.countSubstructure("[#16]=,:[#6]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 512;
-        if (cs.countSubstructure("[#6]-,:[#33]-[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 513;
-        if (cs.countSubstructure("[#16]:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 514;
-        if (cs.countSubstructure("[#8]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 515;
-        if (cs.countSubstructure("[#7]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 516;
-        if (cs.countSubstructure("[#6H,#6H2,#6H3]=,:[#6H,#6H2,#6H3]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 517;
-        if (cs.countSubstructure("[#7]-,:[#7]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 518;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#7]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 519;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 520;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 521;
-        if (cs.countSubstructure("[#6]:[#7]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 522;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 523;
-        if (cs.countSubstructure("[#7]:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 524;
-        if (cs.countSubstructure("[#6]-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 525;
-        if (cs.countSubstructure("[#33]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 526;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]-,:[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 527;
-        if (cs.countSubstructure("[#6]:[#6]:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 528;
-        if (cs.countSubstructure("[#7&!H0]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 529;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]-,:[Cl]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 530;
-        if (cs.countSubstructure("[#7]:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 531;
-        if (cs.countSubstructure("[#16]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 532;
-        if (cs.countSubstructure("[#16]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 533;
-        if (cs.countSubstructure("[#16]-,:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 534;
-        if (cs.countSubstructure("[#16]-,:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 535;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 536;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 537;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 538;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 539;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 540;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 541;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 542;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 543;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 544;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 545;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 546;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 547;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 548;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 549;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 550;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 551;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 552;
-        if (cs.countSubstructure("[#6]:[#6]-,:[#6]:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 553;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 554;
-        if (cs.countSubstructure("[Br]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 555;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 556;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 557;
-        if (cs.countSubstructure("[#7]:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 558;
-        if (cs.countSubstructure("[#8]=,:[#7]-,:c:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 559;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 560;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 561;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 562;
-        if (cs.countSubstructure("[Br]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 563;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 564;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 565;
-        if (cs.countSubstructure("[#6]:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 566;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 567;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 568;
-        if (cs.countSubstructure("N#[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 569;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 570;
-        if (cs.countSubstructure("[#6]:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 571;
-        if (cs.countSubstructure("[#6&!H0]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 572;
-        if (cs.countSubstructure("n:c:n:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 573;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 574;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 575;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 576;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#6]:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 577;
-        if (cs.countSubstructure("c:c-,:[#7]-,:c:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 578;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#6]-,:c:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 579;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 580;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 581;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 582;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 583;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 584;
-        if (cs.countSubstructure("c:c-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 585;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 586;
-        if (cs.countSubstructure("[#6]-,:[#16]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 587;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 588;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 589;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 590;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 591;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 592;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 593;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 594;
-        if (cs.countSubstructure("[#6]-,:[#8]-,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 595;
-        if (cs.countSubstructure("c:c-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 596;
-        if (cs.countSubstructure("[#7]=,:[#6]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 597;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:c:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 598;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 599;
-        if (cs.countSubstructure("[#6H,#6H2,#6H3]-,:[#6]=,:[#6H,#6H2,#6H3]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 600;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 601;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 602;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 603;
-        if (cs.countSubstructure("[#6]-,:c:c:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 604;
-        if (cs.countSubstructure("[#6]-,:[#8]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 605;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 606;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 607;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 608;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 609;
-        if (cs.countSubstructure("[Cl]-,:[#6]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 610;
-        if (cs.countSubstructure("[#6]-,:[#8]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 611;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 612;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#8]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 613;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 614;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#8]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 615;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 616;
-        if (cs.countSubstructure("c:c:n:n:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 617;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 618;
-        if (cs.countSubstructure("c:[#6]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 619;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 620;
-        if (cs.countSubstructure("c:c-,:[#8]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 621;
-        if (cs.countSubstructure("[#7]-,:[#6]:c:c:n") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 622;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#8]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 623;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 624;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 625;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 626;
-        if (cs.countSubstructure("[#6]-,:[#8]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 627;
-        if (cs.countSubstructure("[#8]=,:[#33]-,:[#6]:c:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 628;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 629;
-        if (cs.countSubstructure("[#16]-,:[#6]:c:c-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 630;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 631;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 632;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#8]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 633;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 634;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 635;
-        if (cs.countSubstructure("[#7]-,:[#7]-,:[#6]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 636;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 637;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 638;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 639;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 640;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 641;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 642;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 643;
-        if (cs.countSubstructure("[#6&!H0]-,:[#6]-,:[#7&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 644;
-        if (cs.countSubstructure("[#6]-,:[#6]=,:[#7]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 645;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 646;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#7]-,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 647;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#7]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 648;
-        if (cs.countSubstructure("[#8]=,:[#7]-,:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 649;
-        if (cs.countSubstructure("[#8]=,:[#7]-,:c:c-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 650;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#7]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 651;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 652;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 653;
-        if (cs.countSubstructure("[#8]-,:[#6]:[#6]:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 654;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 655;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 656;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#7]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 657;
-        if (cs.countSubstructure("[#6]-,:[#7]-,:[#6]:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 658;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#16]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 659;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#7]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 660;
-        if (cs.countSubstructure("[#6]-,:[#6]=,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 661;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#8]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 662;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 663;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 664;
-        if (cs.countSubstructure("[#6]-,:[#6]=,:[#6]-,:[#6]=,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 665;
-        if (cs.countSubstructure("[#7]-,:[#6]:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 666;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]-,:[#8]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 667;
-        if (cs.countSubstructure("[#6]=,:[#6]-,:[#6]-,:[#8&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 668;
-        if (cs.countSubstructure("[#6]-,:[#6]:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 669;
-        if (cs.countSubstructure("[Cl]-,:[#6]:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 670;
-        if (cs.countSubstructure("[Br]-,:[#6]:c:c-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 671;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 672;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]=,:[#6&!H0]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 673;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]=,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 674;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#7]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 675;
-        if (cs.countSubstructure("[Br]-,:[#6]-,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 676;
-        if (cs.countSubstructure("[#7]#[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 677;
-        if (cs.countSubstructure("[#6]-,:[#6]=,:[#6]-,:[#6]:c") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 678;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]=,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 679;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 680;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 681;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 682;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 683;
-        if (cs.countSubstructure("[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 684;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 685;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 686;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 687;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 688;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 689;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 690;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 691;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 692;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 693;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 694;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]=,:[#8]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 695;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 696;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 697;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 698;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 699;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 700;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 701;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#8])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 702;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 703;
-        if (cs.countSubstructure("[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#7])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 704;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 705;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#8])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 706;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](=,:[#8])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 707;
-        if (cs.countSubstructure("[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#7])-,:[#6]") > 0)
-            fp[b >> 3] |= MASK[b % 8];
-        b = 708;
-        if (cs.countSubstructure("[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 709;
-        if (cs.countSubstructure("[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 710;
-        if (cs.countSubstructure("[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 711;
-        if (cs.countSubstructure("[#6]-,:[#6](-,:[#6])(-,:[#6])-,:[#6]-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 712;
-        if (cs.countSubstructure("[#6]-,:[#6](-,:[#6])-,:[#6](-,:[#6])-,:[#6]") > 0) fp[b >> 3] |= MASK[b % 8];
+          Section 6: Simple SMARTS patterns - These bits test for the presence
+          of simple SMARTS patterns, regardless of count, but where
+          bond orders are specific and bond aromaticity matches both
+          single and double bonds.
+        */
+        /* 460 */ "[#6]-,:[#6]-,:[#6]#[#6]",
+        /* 461 */ "[#8]-,:[#6]-,:[#6]=,:[#7]",
+        /* 462 */ "[#8]-,:[#6]-,:[#6]=,:[#8]",
+        /* 463 */ "[#7]:[#6]-,:[#16&!H0]",
+        /* 464 */ "[#7]-,:[#6]-,:[#6]=,:[#6]",
+        /* 465 */ "[#8]=,:[#16]-,:[#6]-,:[#6]",
+        /* 466 */ "[#7]#[#6]-,:[#6]=,:[#6]",
+        /* 467 */ "[#6]=,:[#7]-,:[#7]-,:[#6]",
+        /* 468 */ "[#8]=,:[#16]-,:[#6]-,:[#7]",
+        /* 469 */ "[#16]-,:[#16]-,:[#6]:[#6]",
+        /* 470 */ "[#6]:[#6]-,:[#6]=,:[#6]",
+        /* 471 */ "[#16]:[#6]:[#6]:[#6]",
+        /* 472 */ "[#6]:[#7]:[#6]-,:[#6]",
+        /* 473 */ "[#16]-,:[#6]:[#7]:[#6]",
+        /* 474 */ "[#16]:[#6]:[#6]:[#7]",
+        /* 475 */ "[#16]-,:[#6]=,:[#7]-,:[#6]",
+        /* 476 */ "[#6]-,:[#8]-,:[#6]=,:[#6]",
+        /* 477 */ "[#7]-,:[#7]-,:[#6]:[#6]",
+        /* 478 */ "[#16]-,:[#6]=,:[#7&!H0]",
+        /* 479 */ "[#16]-,:[#6]-,:[#16]-,:[#6]",
+        /* 480 */ "[#6]:[#16]:[#6]-,:[#6]",
+        /* 481 */ "[#8]-,:[#16]-,:[#6]:[#6]",
+        /* 482 */ "[#6]:[#7]-,:[#6]:[#6]",
+        /* 483 */ "[#7]-,:[#16]-,:[#6]:[#6]",
+        /* 484 */ "[#7]-,:[#6]:[#7]:[#6]",
+        /* 485 */ "[#7]:[#6]:[#6]:[#7]",
+        /* 486 */ "[#7]-,:[#6]:[#7]:[#7]",
+        /* 487 */ "[#7]-,:[#6]=,:[#7]-,:[#6]",
+        /* 488 */ "[#7]-,:[#6]=,:[#7&!H0]",
+        /* 489 */ "[#7]-,:[#6]-,:[#16]-,:[#6]",
+        /* 490 */ "[#6]-,:[#6]-,:[#6]=,:[#6]",
+        /* 491 */ "[#6]-,:[#7]:[#6&!H0]",
+        /* 492 */ "[#7]-,:[#6]:[#8]:[#6]",
+        /* 493 */ "[#8]=,:[#6]-,:[#6]:[#6]",
+        /* 494 */ "[#8]=,:[#6]-,:[#6]:[#7]",
+        /* 495 */ "[#6]-,:[#7]-,:[#6]:[#6]",
+        /* 496 */ "[#7]:[#7]-,:[#6&!H0]",
+        /* 497 */ "[#8]-,:[#6]:[#6]:[#7]",
+        /* 498 */ "[#8]-,:[#6]=,:[#6]-,:[#6]",
+        /* 499 */ "[#7]-,:[#6]:[#6]:[#7]",
+        /* 500 */ "[#6]-,:[#16]-,:[#6]:[#6]",
+        /* 501 */ "[Cl]-,:[#6]:[#6]-,:[#6]",
+        /* 502 */ "[#7]-,:[#6]=,:[#6&!H0]",
+        /* 503 */ "[Cl]-,:[#6]:[#6&!H0]",
+        /* 504 */ "[#7]:[#6]:[#7]-,:[#6]",
+        /* 505 */ "[Cl]-,:[#6]:[#6]-,:[#8]",
+        /* 506 */ "[#6]-,:[#6]:[#7]:[#6]",
+        /* 507 */ "[#6]-,:[#6]-,:[#16]-,:[#6]",
+        /* 508 */ "[#16]=,:[#6]-,:[#7]-,:[#6]",
+        /* 509 */ "[Br]-,:[#6]:[#6]-,:[#6]",
+        /* 510 */ "[#7&!H0]-,:[#7&!H0]",
+        /* 511 */ "[#16]=,:[#6]-,:[#7&!H0]",
+        /* 512 */ "[#6]-,:[#33]-[#8&!H0]",
+        /* 513 */ "[#16]:[#6]:[#6&!H0]",
+        /* 514 */ "[#8]-,:[#7]-,:[#6]-,:[#6]",
+        /* 515 */ "[#7]-,:[#7]-,:[#6]-,:[#6]",
+        /* 516 */ "[#6H,#6H2,#6H3]=,:[#6H,#6H2,#6H3]",
+        /* 517 */ "[#7]-,:[#7]-,:[#6]-,:[#7]",
+        /* 518 */ "[#8]=,:[#6]-,:[#7]-,:[#7]",
+        /* 519 */ "[#7]=,:[#6]-,:[#7]-,:[#6]",
+        /* 520 */ "[#6]=,:[#6]-,:[#6]:[#6]",
+        /* 521 */ "[#6]:[#7]-,:[#6&!H0]",
+        /* 522 */ "[#6]-,:[#7]-,:[#7&!H0]",
+        /* 523 */ "[#7]:[#6]:[#6]-,:[#6]",
+        /* 524 */ "[#6]-,:[#6]=,:[#6]-,:[#6]",
+        /* 525 */ "[#33]-,:[#6]:[#6&!H0]",
+        /* 526 */ "[Cl]-,:[#6]:[#6]-,:[Cl]",
+        /* 527 */ "[#6]:[#6]:[#7&!H0]",
+        /* 528 */ "[#7&!H0]-,:[#6&!H0]",
+        /* 529 */ "[Cl]-,:[#6]-,:[#6]-,:[Cl]",
+        /* 530 */ "[#7]:[#6]-,:[#6]:[#6]",
+        /* 531 */ "[#16]-,:[#6]:[#6]-,:[#6]",
+        /* 532 */ "[#16]-,:[#6]:[#6&!H0]",
+        /* 533 */ "[#16]-,:[#6]:[#6]-,:[#7]",
+        /* 534 */ "[#16]-,:[#6]:[#6]-,:[#8]",
+        /* 535 */ "[#8]=,:[#6]-,:[#6]-,:[#6]",
+        /* 536 */ "[#8]=,:[#6]-,:[#6]-,:[#7]",
+        /* 537 */ "[#8]=,:[#6]-,:[#6]-,:[#8]",
+        /* 538 */ "[#7]=,:[#6]-,:[#6]-,:[#6]",
+        /* 539 */ "[#7]=,:[#6]-,:[#6&!H0]",
+        /* 540 */ "[#6]-,:[#7]-,:[#6&!H0]",
+        /* 541 */ "[#8]-,:[#6]:[#6]-,:[#6]",
+        /* 542 */ "[#8]-,:[#6]:[#6&!H0]",
+        /* 543 */ "[#8]-,:[#6]:[#6]-,:[#7]",
+        /* 544 */ "[#8]-,:[#6]:[#6]-,:[#8]",
+        /* 545 */ "[#7]-,:[#6]:[#6]-,:[#6]",
+        /* 546 */ "[#7]-,:[#6]:[#6&!H0]",
+        /* 547 */ "[#7]-,:[#6]:[#6]-,:[#7]",
+        /* 548 */ "[#8]-,:[#6]-,:[#6]:[#6]",
+        /* 549 */ "[#7]-,:[#6]-,:[#6]:[#6]",
+        /* 550 */ "[Cl]-,:[#6]-,:[#6]-,:[#6]",
+        /* 551 */ "[Cl]-,:[#6]-,:[#6]-,:[#8]",
+        /* 552 */ "[#6]:[#6]-,:[#6]:[#6]",
+        /* 553 */ "[#8]=,:[#6]-,:[#6]=,:[#6]",
+        /* 554 */ "[Br]-,:[#6]-,:[#6]-,:[#6]",
+        /* 555 */ "[#7]=,:[#6]-,:[#6]=,:[#6]",
+        /* 556 */ "[#6]=,:[#6]-,:[#6]-,:[#6]",
+        /* 557 */ "[#7]:[#6]-,:[#8&!H0]",
+        /* 558 */ "[#8]=,:[#7]-,:c:c",
+        /* 559 */ "[#8]-,:[#6]-,:[#7&!H0]",
+        /* 560 */ "[#7]-,:[#6]-,:[#7]-,:[#6]",
+        /* 561 */ "[Cl]-,:[#6]-,:[#6]=,:[#8]",
+        /* 562 */ "[Br]-,:[#6]-,:[#6]=,:[#8]",
+        /* 563 */ "[#8]-,:[#6]-,:[#8]-,:[#6]",
+        /* 564 */ "[#6]=,:[#6]-,:[#6]=,:[#6]",
+        /* 565 */ "[#6]:[#6]-,:[#8]-,:[#6]",
+        /* 566 */ "[#8]-,:[#6]-,:[#6]-,:[#7]",
+        /* 567 */ "[#8]-,:[#6]-,:[#6]-,:[#8]",
+        /* 568 */ "N#[#6]-,:[#6]-,:[#6]",
+        /* 569 */ "[#7]-,:[#6]-,:[#6]-,:[#7]",
+        /* 570 */ "[#6]:[#6]-,:[#6]-,:[#6]",
+        /* 571 */ "[#6&!H0]-,:[#8&!H0]",
+        /* 572 */ "n:c:n:c",
+        /* 573 */ "[#8]-,:[#6]-,:[#6]=,:[#6]",
+        /* 574 */ "[#8]-,:[#6]-,:[#6]:[#6]-,:[#6]",
+        /* 575 */ "[#8]-,:[#6]-,:[#6]:[#6]-,:[#8]",
+        /* 576 */ "[#7]=,:[#6]-,:[#6]:[#6&!H0]",
+        /* 577 */ "c:c-,:[#7]-,:c:c",
+        /* 578 */ "[#6]-,:[#6]:[#6]-,:c:c",
+        /* 579 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 580 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 581 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 582 */ "[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 583 */ "[Cl]-,:[#6]:[#6]-,:[#8]-,:[#6]",
+        /* 584 */ "c:c-,:[#6]=,:[#6]-,:[#6]",
+        /* 585 */ "[#6]-,:[#6]:[#6]-,:[#7]-,:[#6]",
+        /* 586 */ "[#6]-,:[#16]-,:[#6]-,:[#6]-,:[#6]",
+        /* 587 */ "[#7]-,:[#6]:[#6]-,:[#8&!H0]",
+        /* 588 */ "[#8]=,:[#6]-,:[#6]-,:[#6]=,:[#8]",
+        /* 589 */ "[#6]-,:[#6]:[#6]-,:[#8]-,:[#6]",
+        /* 590 */ "[#6]-,:[#6]:[#6]-,:[#8&!H0]",
+        /* 591 */ "[Cl]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 592 */ "[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 593 */ "[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 594 */ "[#6]-,:[#8]-,:[#6]-,:[#6]=,:[#6]",
+        /* 595 */ "c:c-,:[#6]-,:[#6]-,:[#6]",
+        /* 596 */ "[#7]=,:[#6]-,:[#7]-,:[#6]-,:[#6]",
+        /* 597 */ "[#8]=,:[#6]-,:[#6]-,:c:c",
+        /* 598 */ "[Cl]-,:[#6]:[#6]:[#6]-,:[#6]",
+        /* 599 */ "[#6H,#6H2,#6H3]-,:[#6]=,:[#6H,#6H2,#6H3]",
+        /* 600 */ "[#7]-,:[#6]:[#6]:[#6]-,:[#6]",
+        /* 601 */ "[#7]-,:[#6]:[#6]:[#6]-,:[#7]",
+        /* 602 */ "[#8]=,:[#6]-,:[#6]-,:[#7]-,:[#6]",
+        /* 603 */ "[#6]-,:c:c:[#6]-,:[#6]",
+        /* 604 */ "[#6]-,:[#8]-,:[#6]-,:[#6]:c",
+        /* 605 */ "[#8]=,:[#6]-,:[#6]-,:[#8]-,:[#6]",
+        /* 606 */ "[#8]-,:[#6]:[#6]-,:[#6]-,:[#6]",
+        /* 607 */ "[#7]-,:[#6]-,:[#6]-,:[#6]:c",
+        /* 608 */ "[#6]-,:[#6]-,:[#6]-,:[#6]:c",
+        /* 609 */ "[Cl]-,:[#6]-,:[#6]-,:[#7]-,:[#6]",
+        /* 610 */ "[#6]-,:[#8]-,:[#6]-,:[#8]-,:[#6]",
+        /* 611 */ "[#7]-,:[#6]-,:[#6]-,:[#7]-,:[#6]",
+        /* 612 */ "[#7]-,:[#6]-,:[#8]-,:[#6]-,:[#6]",
+        /* 613 */ "[#6]-,:[#7]-,:[#6]-,:[#6]-,:[#6]",
+        /* 614 */ "[#6]-,:[#6]-,:[#8]-,:[#6]-,:[#6]",
+        /* 615 */ "[#7]-,:[#6]-,:[#6]-,:[#8]-,:[#6]",
+        /* 616 */ "c:c:n:n:c",
+        /* 617 */ "[#6]-,:[#6]-,:[#6]-,:[#8&!H0]",
+        /* 618 */ "c:[#6]-,:[#6]-,:[#6]:c",
+        /* 619 */ "[#8]-,:[#6]-,:[#6]=,:[#6]-,:[#6]",
+        /* 620 */ "c:c-,:[#8]-,:[#6]-,:[#6]",
+        /* 621 */ "[#7]-,:[#6]:c:c:n",
+        /* 622 */ "[#8]=,:[#6]-,:[#8]-,:[#6]:c",
+        /* 623 */ "[#8]=,:[#6]-,:[#6]:[#6]-,:[#6]",
+        /* 624 */ "[#8]=,:[#6]-,:[#6]:[#6]-,:[#7]",
+        /* 625 */ "[#8]=,:[#6]-,:[#6]:[#6]-,:[#8]",
+        /* 626 */ "[#6]-,:[#8]-,:[#6]:[#6]-,:[#6]",
+        /* 627 */ "[#8]=,:[#33]-,:[#6]:c:c",
+        /* 628 */ "[#6]-,:[#7]-,:[#6]-,:[#6]:c",
+        /* 629 */ "[#16]-,:[#6]:c:c-,:[#7]",
+        /* 630 */ "[#8]-,:[#6]:[#6]-,:[#8]-,:[#6]",
+        /* 631 */ "[#8]-,:[#6]:[#6]-,:[#8&!H0]",
+        /* 632 */ "[#6]-,:[#6]-,:[#8]-,:[#6]:c",
+        /* 633 */ "[#7]-,:[#6]-,:[#6]:[#6]-,:[#6]",
+        /* 634 */ "[#6]-,:[#6]-,:[#6]:[#6]-,:[#6]",
+        /* 635 */ "[#7]-,:[#7]-,:[#6]-,:[#7&!H0]",
+        /* 636 */ "[#6]-,:[#7]-,:[#6]-,:[#7]-,:[#6]",
+        /* 637 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 638 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 639 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 640 */ "[#6]=,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 641 */ "[#8]-,:[#6]-,:[#6]-,:[#6]=,:[#6]",
+        /* 642 */ "[#8]-,:[#6]-,:[#6]-,:[#6]=,:[#8]",
+        /* 643 */ "[#6&!H0]-,:[#6]-,:[#7&!H0]",
+        /* 644 */ "[#6]-,:[#6]=,:[#7]-,:[#7]-,:[#6]",
+        /* 645 */ "[#8]=,:[#6]-,:[#7]-,:[#6]-,:[#6]",
+        /* 646 */ "[#8]=,:[#6]-,:[#7]-,:[#6&!H0]",
+        /* 647 */ "[#8]=,:[#6]-,:[#7]-,:[#6]-,:[#7]",
+        /* 648 */ "[#8]=,:[#7]-,:[#6]:[#6]-,:[#7]",
+        /* 649 */ "[#8]=,:[#7]-,:c:c-,:[#8]",
+        /* 650 */ "[#8]=,:[#6]-,:[#7]-,:[#6]=,:[#8]",
+        /* 651 */ "[#8]-,:[#6]:[#6]:[#6]-,:[#6]",
+        /* 652 */ "[#8]-,:[#6]:[#6]:[#6]-,:[#7]",
+        /* 653 */ "[#8]-,:[#6]:[#6]:[#6]-,:[#8]",
+        /* 654 */ "[#7]-,:[#6]-,:[#7]-,:[#6]-,:[#6]",
+        /* 655 */ "[#8]-,:[#6]-,:[#6]-,:[#6]:c",
+        /* 656 */ "[#6]-,:[#6]-,:[#7]-,:[#6]-,:[#6]",
+        /* 657 */ "[#6]-,:[#7]-,:[#6]:[#6]-,:[#6]",
+        /* 658 */ "[#6]-,:[#6]-,:[#16]-,:[#6]-,:[#6]",
+        /* 659 */ "[#8]-,:[#6]-,:[#6]-,:[#7]-,:[#6]",
+        /* 660 */ "[#6]-,:[#6]=,:[#6]-,:[#6]-,:[#6]",
+        /* 661 */ "[#8]-,:[#6]-,:[#8]-,:[#6]-,:[#6]",
+        /* 662 */ "[#8]-,:[#6]-,:[#6]-,:[#8]-,:[#6]",
+        /* 663 */ "[#8]-,:[#6]-,:[#6]-,:[#8&!H0]",
+        /* 664 */ "[#6]-,:[#6]=,:[#6]-,:[#6]=,:[#6]",
+        /* 665 */ "[#7]-,:[#6]:[#6]-,:[#6]-,:[#6]",
+        /* 666 */ "[#6]=,:[#6]-,:[#6]-,:[#8]-,:[#6]",
+        /* 667 */ "[#6]=,:[#6]-,:[#6]-,:[#8&!H0]",
+        /* 668 */ "[#6]-,:[#6]:[#6]-,:[#6]-,:[#6]",
+        /* 669 */ "[Cl]-,:[#6]:[#6]-,:[#6]=,:[#8]",
+        /* 670 */ "[Br]-,:[#6]:c:c-,:[#6]",
+        /* 671 */ "[#8]=,:[#6]-,:[#6]=,:[#6]-,:[#6]",
+        /* 672 */ "[#8]=,:[#6]-,:[#6]=,:[#6&!H0]",
+        /* 673 */ "[#8]=,:[#6]-,:[#6]=,:[#6]-,:[#7]",
+        /* 674 */ "[#7]-,:[#6]-,:[#7]-,:[#6]:c",
+        /* 675 */ "[Br]-,:[#6]-,:[#6]-,:[#6]:c",
+        /* 676 */ "[#7]#[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 677 */ "[#6]-,:[#6]=,:[#6]-,:[#6]:c",
+        /* 678 */ "[#6]-,:[#6]-,:[#6]=,:[#6]-,:[#6]",
+        /* 679 */ "[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 680 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 681 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 682 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 683 */ "[#7]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 684 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 685 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 686 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 687 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]=,:[#8]",
+        /* 688 */ "[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 689 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 690 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 691 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 692 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 693 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]",
+        /* 694 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]=,:[#8]",
+        /* 695 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]",
+        /* 696 */ "[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 697 */ "[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]",
+        /* 698 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 699 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]",
+        /* 700 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#8]-,:[#6]",
+        /* 701 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#8])-,:[#6]",
+        /* 702 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#7]-,:[#6]",
+        /* 703 */ "[#8]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#7])-,:[#6]",
+        /* 704 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6]",
+        /* 705 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#8])-,:[#6]",
+        /* 706 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](=,:[#8])-,:[#6]",
+        /* 707 */ "[#8]=,:[#6]-,:[#6]-,:[#6]-,:[#6]-,:[#6](-,:[#7])-,:[#6]",
+        /* 708 */ "[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]",
+        /* 709 */ "[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]-,:[#6]",
+        /* 710 */ "[#6]-,:[#6]-,:[#6](-,:[#6])-,:[#6]-,:[#6]",
+        /* 711 */ "[#6]-,:[#6](-,:[#6])(-,:[#6])-,:[#6]-,:[#6]",
+        /* 712 */ "[#6]-,:[#6](-,:[#6])-,:[#6](-,:[#6])-,:[#6]",
 
         /*
-        Section 7: Complex SMARTS patterns - These bits test for the presence
-        of complex SMARTS patterns, regardless of count, but where
-        bond orders and bond aromaticity are specific.
-      */
-
-        b = 713;
-        if (cs.countSubstructure("[#6]c1ccc([#6])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 714;
-        if (cs.countSubstructure("[#6]c1ccc([#8])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 715;
-        if (cs.countSubstructure("[#6]c1ccc([#16])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 716;
-        if (cs.countSubstructure("[#6]c1ccc([#7])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 717;
-        if (cs.countSubstructure("[#6]c1ccc(Cl)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 718;
-        if (cs.countSubstructure("[#6]c1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 719;
-        if (cs.countSubstructure("[#8]c1ccc([#8])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 720;
-        if (cs.countSubstructure("[#8]c1ccc([#16])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 721;
-        if (cs.countSubstructure("[#8]c1ccc([#7])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 722;
-        if (cs.countSubstructure("[#8]c1ccc(Cl)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 723;
-        if (cs.countSubstructure("[#8]c1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 724;
-        if (cs.countSubstructure("[#16]c1ccc([#16])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 725;
-        if (cs.countSubstructure("[#16]c1ccc([#7])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 726;
-        if (cs.countSubstructure("[#16]c1ccc(Cl)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 727;
-        if (cs.countSubstructure("[#16]c1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 728;
-        if (cs.countSubstructure("[#7]c1ccc([#7])cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 729;
-        if (cs.countSubstructure("[#7]c1ccc(Cl)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 730;
-        if (cs.countSubstructure("[#7]c1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 731;
-        if (cs.countSubstructure("Clc1ccc(Cl)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 732;
-        if (cs.countSubstructure("Clc1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 733;
-        if (cs.countSubstructure("Brc1ccc(Br)cc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 734;
-        if (cs.countSubstructure("[#6]c1cc([#6])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 735;
-        if (cs.countSubstructure("[#6]c1cc([#8])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 736;
-        if (cs.countSubstructure("[#6]c1cc([#16])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 737;
-        if (cs.countSubstructure("[#6]c1cc([#7])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 738;
-        if (cs.countSubstructure("[#6]c1cc(Cl)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 739;
-        if (cs.countSubstructure("[#6]c1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 740;
-        if (cs.countSubstructure("[#8]c1cc([#8])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 741;
-        if (cs.countSubstructure("[#8]c1cc([#16])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 742;
-        if (cs.countSubstructure("[#8]c1cc([#7])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 743;
-        if (cs.countSubstructure("[#8]c1cc(Cl)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 744;
-        if (cs.countSubstructure("[#8]c1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 745;
-        if (cs.countSubstructure("[#16]c1cc([#16])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 746;
-        if (cs.countSubstructure("[#16]c1cc([#7])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 747;
-        if (cs.countSubstructure("[#16]c1cc(Cl)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 748;
-        if (cs.countSubstructure("[#16]c1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 749;
-        if (cs.countSubstructure("[#7]c1cc([#7])ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 750;
-        if (cs.countSubstructure("[#7]c1cc(Cl)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 751;
-        if (cs.countSubstructure("[#7]c1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 752;
-        if (cs.countSubstructure("Clc1cc(Cl)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 753;
-        if (cs.countSubstructure("Clc1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 754;
-        if (cs.countSubstructure("Brc1cc(Br)ccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 755;
-        if (cs.countSubstructure("[#6]c1c([#6])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 756;
-        if (cs.countSubstructure("[#6]c1c([#8])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 757;
-        if (cs.countSubstructure("[#6]c1c([#16])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 758;
-        if (cs.countSubstructure("[#6]c1c([#7])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 759;
-        if (cs.countSubstructure("[#6]c1c(Cl)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 760;
-        if (cs.countSubstructure("[#6]c1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 761;
-        if (cs.countSubstructure("[#8]c1c([#8])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 762;
-        if (cs.countSubstructure("[#8]c1c([#16])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 763;
-        if (cs.countSubstructure("[#8]c1c([#7])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 764;
-        if (cs.countSubstructure("[#8]c1c(Cl)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 765;
-        if (cs.countSubstructure("[#8]c1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 766;
-        if (cs.countSubstructure("[#16]c1c([#16])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 767;
-        if (cs.countSubstructure("[#16]c1c([#7])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 768;
-        if (cs.countSubstructure("[#16]c1c(Cl)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 769;
-        if (cs.countSubstructure("[#16]c1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 770;
-        if (cs.countSubstructure("[#7]c1c([#7])cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 771;
-        if (cs.countSubstructure("[#7]c1c(Cl)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 772;
-        if (cs.countSubstructure("[#7]c1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 773;
-        if (cs.countSubstructure("Clc1c(Cl)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 774;
-        if (cs.countSubstructure("Clc1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 775;
-        if (cs.countSubstructure("Brc1c(Br)cccc1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 776;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6]([#6])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 777;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6]([#8])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 778;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 779;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 780;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 781;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 782;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6][#6]([#8])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 783;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 784;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 785;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 786;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 787;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 788;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 789;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 790;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 791;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 792;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 793;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 794;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 795;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 796;
-        if (cs.countSubstructure("Br[#6]1[#6][#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 797;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#6])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 798;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#8])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 799;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 800;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 801;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 802;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 803;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#8])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 804;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 805;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 806;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 807;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 808;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 809;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 810;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 811;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 812;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 813;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 814;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 815;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 816;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 817;
-        if (cs.countSubstructure("Br[#6]1[#6][#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 818;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#6])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 819;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#8])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 820;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#16])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 821;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#7])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 822;
-        if (cs.countSubstructure("[#6][#6]1[#6](Cl)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 823;
-        if (cs.countSubstructure("[#6][#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 824;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#8])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 825;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#16])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 826;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#7])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 827;
-        if (cs.countSubstructure("[#8][#6]1[#6](Cl)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 828;
-        if (cs.countSubstructure("[#8][#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 829;
-        if (cs.countSubstructure("[#16][#6]1[#6]([#16])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 830;
-        if (cs.countSubstructure("[#16][#6]1[#6]([#7])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 831;
-        if (cs.countSubstructure("[#16][#6]1[#6](Cl)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 832;
-        if (cs.countSubstructure("[#16][#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 833;
-        if (cs.countSubstructure("[#7][#6]1[#6]([#7])[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 834;
-        if (cs.countSubstructure("[#7][#6]1[#6](Cl)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 835;
-        if (cs.countSubstructure("[#7][#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 836;
-        if (cs.countSubstructure("Cl[#6]1[#6](Cl)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 837;
-        if (cs.countSubstructure("Cl[#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 838;
-        if (cs.countSubstructure("Br[#6]1[#6](Br)[#6][#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 839;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#6])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 840;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#8])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 841;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 842;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 843;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 844;
-        if (cs.countSubstructure("[#6][#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 845;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#8])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 846;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 847;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 848;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 849;
-        if (cs.countSubstructure("[#8][#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 850;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6]([#16])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 851;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 852;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 853;
-        if (cs.countSubstructure("[#16][#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 854;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6]([#7])[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 855;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 856;
-        if (cs.countSubstructure("[#7][#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 857;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 858;
-        if (cs.countSubstructure("Cl[#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 859;
-        if (cs.countSubstructure("Br[#6]1[#6][#6](Br)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 860;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#6])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 861;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#8])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 862;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 863;
-        if (cs.countSubstructure("[#6][#6]1[#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 864;
-        if (cs.countSubstructure("[#6][#6]1[#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 865;
-        if (cs.countSubstructure("[#6][#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 866;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#8])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 867;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 868;
-        if (cs.countSubstructure("[#8][#6]1[#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 869;
-        if (cs.countSubstructure("[#8][#6]1[#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 870;
-        if (cs.countSubstructure("[#8][#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 871;
-        if (cs.countSubstructure("[#16][#6]1[#6]([#16])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 872;
-        if (cs.countSubstructure("[#16][#6]1[#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 873;
-        if (cs.countSubstructure("[#16][#6]1[#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 874;
-        if (cs.countSubstructure("[#16][#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 875;
-        if (cs.countSubstructure("[#7][#6]1[#6]([#7])[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 876;
-        if (cs.countSubstructure("[#7][#6]1[#6](Cl)[#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 877;
-        if (cs.countSubstructure("[#7][#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 878;
-        if (cs.countSubstructure("Cl[#6]1[#6](Cl)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 879;
-        if (cs.countSubstructure("Cl[#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
-        b = 880;
-        if (cs.countSubstructure("Br[#6]1[#6](Br)[#6][#6][#6]1") > 0) fp[b >> 3] |= MASK[b % 8];
+          Section 7: Complex SMARTS patterns - These bits test for the presence
+          of complex SMARTS patterns, regardless of count, but where
+          bond orders and bond aromaticity are specific.
+        */
+        /* 713 */ "[#6]c1ccc([#6])cc1",
+        /* 714 */ "[#6]c1ccc([#8])cc1",
+        /* 715 */ "[#6]c1ccc([#16])cc1",
+        /* 716 */ "[#6]c1ccc([#7])cc1",
+        /* 717 */ "[#6]c1ccc(Cl)cc1",
+        /* 718 */ "[#6]c1ccc(Br)cc1",
+        /* 719 */ "[#8]c1ccc([#8])cc1",
+        /* 720 */ "[#8]c1ccc([#16])cc1",
+        /* 721 */ "[#8]c1ccc([#7])cc1",
+        /* 722 */ "[#8]c1ccc(Cl)cc1",
+        /* 723 */ "[#8]c1ccc(Br)cc1",
+        /* 724 */ "[#16]c1ccc([#16])cc1",
+        /* 725 */ "[#16]c1ccc([#7])cc1",
+        /* 726 */ "[#16]c1ccc(Cl)cc1",
+        /* 727 */ "[#16]c1ccc(Br)cc1",
+        /* 728 */ "[#7]c1ccc([#7])cc1",
+        /* 729 */ "[#7]c1ccc(Cl)cc1",
+        /* 730 */ "[#7]c1ccc(Br)cc1",
+        /* 731 */ "Clc1ccc(Cl)cc1",
+        /* 732 */ "Clc1ccc(Br)cc1",
+        /* 733 */ "Brc1ccc(Br)cc1",
+        /* 734 */ "[#6]c1cc([#6])ccc1",
+        /* 735 */ "[#6]c1cc([#8])ccc1",
+        /* 736 */ "[#6]c1cc([#16])ccc1",
+        /* 737 */ "[#6]c1cc([#7])ccc1",
+        /* 738 */ "[#6]c1cc(Cl)ccc1",
+        /* 739 */ "[#6]c1cc(Br)ccc1",
+        /* 740 */ "[#8]c1cc([#8])ccc1",
+        /* 741 */ "[#8]c1cc([#16])ccc1",
+        /* 742 */ "[#8]c1cc([#7])ccc1",
+        /* 743 */ "[#8]c1cc(Cl)ccc1",
+        /* 744 */ "[#8]c1cc(Br)ccc1",
+        /* 745 */ "[#16]c1cc([#16])ccc1",
+        /* 746 */ "[#16]c1cc([#7])ccc1",
+        /* 747 */ "[#16]c1cc(Cl)ccc1",
+        /* 748 */ "[#16]c1cc(Br)ccc1",
+        /* 749 */ "[#7]c1cc([#7])ccc1",
+        /* 750 */ "[#7]c1cc(Cl)ccc1",
+        /* 751 */ "[#7]c1cc(Br)ccc1",
+        /* 752 */ "Clc1cc(Cl)ccc1",
+        /* 753 */ "Clc1cc(Br)ccc1",
+        /* 754 */ "Brc1cc(Br)ccc1",
+        /* 755 */ "[#6]c1c([#6])cccc1",
+        /* 756 */ "[#6]c1c([#8])cccc1",
+        /* 757 */ "[#6]c1c([#16])cccc1",
+        /* 758 */ "[#6]c1c([#7])cccc1",
+        /* 759 */ "[#6]c1c(Cl)cccc1",
+        /* 760 */ "[#6]c1c(Br)cccc1",
+        /* 761 */ "[#8]c1c([#8])cccc1",
+        /* 762 */ "[#8]c1c([#16])cccc1",
+        /* 763 */ "[#8]c1c([#7])cccc1",
+        /* 764 */ "[#8]c1c(Cl)cccc1",
+        /* 765 */ "[#8]c1c(Br)cccc1",
+        /* 766 */ "[#16]c1c([#16])cccc1",
+        /* 767 */ "[#16]c1c([#7])cccc1",
+        /* 768 */ "[#16]c1c(Cl)cccc1",
+        /* 769 */ "[#16]c1c(Br)cccc1",
+        /* 770 */ "[#7]c1c([#7])cccc1",
+        /* 771 */ "[#7]c1c(Cl)cccc1",
+        /* 772 */ "[#7]c1c(Br)cccc1",
+        /* 773 */ "Clc1c(Cl)cccc1",
+        /* 774 */ "Clc1c(Br)cccc1",
+        /* 775 */ "Brc1c(Br)cccc1",
+        /* 776 */ "[#6][#6]1[#6][#6][#6]([#6])[#6][#6]1",
+        /* 777 */ "[#6][#6]1[#6][#6][#6]([#8])[#6][#6]1",
+        /* 778 */ "[#6][#6]1[#6][#6][#6]([#16])[#6][#6]1",
+        /* 779 */ "[#6][#6]1[#6][#6][#6]([#7])[#6][#6]1",
+        /* 780 */ "[#6][#6]1[#6][#6][#6](Cl)[#6][#6]1",
+        /* 781 */ "[#6][#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 782 */ "[#8][#6]1[#6][#6][#6]([#8])[#6][#6]1",
+        /* 783 */ "[#8][#6]1[#6][#6][#6]([#16])[#6][#6]1",
+        /* 784 */ "[#8][#6]1[#6][#6][#6]([#7])[#6][#6]1",
+        /* 785 */ "[#8][#6]1[#6][#6][#6](Cl)[#6][#6]1",
+        /* 786 */ "[#8][#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 787 */ "[#16][#6]1[#6][#6][#6]([#16])[#6][#6]1",
+        /* 788 */ "[#16][#6]1[#6][#6][#6]([#7])[#6][#6]1",
+        /* 789 */ "[#16][#6]1[#6][#6][#6](Cl)[#6][#6]1",
+        /* 790 */ "[#16][#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 791 */ "[#7][#6]1[#6][#6][#6]([#7])[#6][#6]1",
+        /* 792 */ "[#7][#6]1[#6][#6][#6](Cl)[#6][#6]1",
+        /* 793 */ "[#7][#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 794 */ "Cl[#6]1[#6][#6][#6](Cl)[#6][#6]1",
+        /* 795 */ "Cl[#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 796 */ "Br[#6]1[#6][#6][#6](Br)[#6][#6]1",
+        /* 797 */ "[#6][#6]1[#6][#6]([#6])[#6][#6][#6]1",
+        /* 798 */ "[#6][#6]1[#6][#6]([#8])[#6][#6][#6]1",
+        /* 799 */ "[#6][#6]1[#6][#6]([#16])[#6][#6][#6]1",
+        /* 800 */ "[#6][#6]1[#6][#6]([#7])[#6][#6][#6]1",
+        /* 801 */ "[#6][#6]1[#6][#6](Cl)[#6][#6][#6]1",
+        /* 802 */ "[#6][#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 803 */ "[#8][#6]1[#6][#6]([#8])[#6][#6][#6]1",
+        /* 804 */ "[#8][#6]1[#6][#6]([#16])[#6][#6][#6]1",
+        /* 805 */ "[#8][#6]1[#6][#6]([#7])[#6][#6][#6]1",
+        /* 806 */ "[#8][#6]1[#6][#6](Cl)[#6][#6][#6]1",
+        /* 807 */ "[#8][#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 808 */ "[#16][#6]1[#6][#6]([#16])[#6][#6][#6]1",
+        /* 809 */ "[#16][#6]1[#6][#6]([#7])[#6][#6][#6]1",
+        /* 810 */ "[#16][#6]1[#6][#6](Cl)[#6][#6][#6]1",
+        /* 811 */ "[#16][#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 812 */ "[#7][#6]1[#6][#6]([#7])[#6][#6][#6]1",
+        /* 813 */ "[#7][#6]1[#6][#6](Cl)[#6][#6][#6]1",
+        /* 814 */ "[#7][#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 815 */ "Cl[#6]1[#6][#6](Cl)[#6][#6][#6]1",
+        /* 816 */ "Cl[#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 817 */ "Br[#6]1[#6][#6](Br)[#6][#6][#6]1",
+        /* 818 */ "[#6][#6]1[#6]([#6])[#6][#6][#6][#6]1",
+        /* 819 */ "[#6][#6]1[#6]([#8])[#6][#6][#6][#6]1",
+        /* 820 */ "[#6][#6]1[#6]([#16])[#6][#6][#6][#6]1",
+        /* 821 */ "[#6][#6]1[#6]([#7])[#6][#6][#6][#6]1",
+        /* 822 */ "[#6][#6]1[#6](Cl)[#6][#6][#6][#6]1",
+        /* 823 */ "[#6][#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 824 */ "[#8][#6]1[#6]([#8])[#6][#6][#6][#6]1",
+        /* 825 */ "[#8][#6]1[#6]([#16])[#6][#6][#6][#6]1",
+        /* 826 */ "[#8][#6]1[#6]([#7])[#6][#6][#6][#6]1",
+        /* 827 */ "[#8][#6]1[#6](Cl)[#6][#6][#6][#6]1",
+        /* 828 */ "[#8][#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 829 */ "[#16][#6]1[#6]([#16])[#6][#6][#6][#6]1",
+        /* 830 */ "[#16][#6]1[#6]([#7])[#6][#6][#6][#6]1",
+        /* 831 */ "[#16][#6]1[#6](Cl)[#6][#6][#6][#6]1",
+        /* 832 */ "[#16][#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 833 */ "[#7][#6]1[#6]([#7])[#6][#6][#6][#6]1",
+        /* 834 */ "[#7][#6]1[#6](Cl)[#6][#6][#6][#6]1",
+        /* 835 */ "[#7][#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 836 */ "Cl[#6]1[#6](Cl)[#6][#6][#6][#6]1",
+        /* 837 */ "Cl[#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 838 */ "Br[#6]1[#6](Br)[#6][#6][#6][#6]1",
+        /* 839 */ "[#6][#6]1[#6][#6]([#6])[#6][#6]1",
+        /* 840 */ "[#6][#6]1[#6][#6]([#8])[#6][#6]1",
+        /* 841 */ "[#6][#6]1[#6][#6]([#16])[#6][#6]1",
+        /* 842 */ "[#6][#6]1[#6][#6]([#7])[#6][#6]1",
+        /* 843 */ "[#6][#6]1[#6][#6](Cl)[#6][#6]1",
+        /* 844 */ "[#6][#6]1[#6][#6](Br)[#6][#6]1",
+        /* 845 */ "[#8][#6]1[#6][#6]([#8])[#6][#6]1",
+        /* 846 */ "[#8][#6]1[#6][#6]([#16])[#6][#6]1",
+        /* 847 */ "[#8][#6]1[#6][#6]([#7])[#6][#6]1",
+        /* 848 */ "[#8][#6]1[#6][#6](Cl)[#6][#6]1",
+        /* 849 */ "[#8][#6]1[#6][#6](Br)[#6][#6]1",
+        /* 850 */ "[#16][#6]1[#6][#6]([#16])[#6][#6]1",
+        /* 851 */ "[#16][#6]1[#6][#6]([#7])[#6][#6]1",
+        /* 852 */ "[#16][#6]1[#6][#6](Cl)[#6][#6]1",
+        /* 853 */ "[#16][#6]1[#6][#6](Br)[#6][#6]1",
+        /* 854 */ "[#7][#6]1[#6][#6]([#7])[#6][#6]1",
+        /* 855 */ "[#7][#6]1[#6][#6](Cl)[#6][#6]1",
+        /* 856 */ "[#7][#6]1[#6][#6](Br)[#6][#6]1",
+        /* 857 */ "Cl[#6]1[#6][#6](Cl)[#6][#6]1",
+        /* 858 */ "Cl[#6]1[#6][#6](Br)[#6][#6]1",
+        /* 859 */ "Br[#6]1[#6][#6](Br)[#6][#6]1",
+        /* 860 */ "[#6][#6]1[#6]([#6])[#6][#6][#6]1",
+        /* 861 */ "[#6][#6]1[#6]([#8])[#6][#6][#6]1",
+        /* 862 */ "[#6][#6]1[#6]([#16])[#6][#6][#6]1",
+        /* 863 */ "[#6][#6]1[#6]([#7])[#6][#6][#6]1",
+        /* 864 */ "[#6][#6]1[#6](Cl)[#6][#6][#6]1",
+        /* 865 */ "[#6][#6]1[#6](Br)[#6][#6][#6]1",
+        /* 866 */ "[#8][#6]1[#6]([#8])[#6][#6][#6]1",
+        /* 867 */ "[#8][#6]1[#6]([#16])[#6][#6][#6]1",
+        /* 868 */ "[#8][#6]1[#6]([#7])[#6][#6][#6]1",
+        /* 869 */ "[#8][#6]1[#6](Cl)[#6][#6][#6]1",
+        /* 870 */ "[#8][#6]1[#6](Br)[#6][#6][#6]1",
+        /* 871 */ "[#16][#6]1[#6]([#16])[#6][#6][#6]1",
+        /* 872 */ "[#16][#6]1[#6]([#7])[#6][#6][#6]1",
+        /* 873 */ "[#16][#6]1[#6](Cl)[#6][#6][#6]1",
+        /* 874 */ "[#16][#6]1[#6](Br)[#6][#6][#6]1",
+        /* 875 */ "[#7][#6]1[#6]([#7])[#6][#6][#6]1",
+        /* 876 */ "[#7][#6]1[#6](Cl)[#6][#6]1",
+        /* 877 */ "[#7][#6]1[#6](Br)[#6][#6][#6]1",
+        /* 878 */ "Cl[#6]1[#6](Cl)[#6][#6][#6]1",
+        /* 879 */ "Cl[#6]1[#6](Br)[#6][#6][#6]1",
+        /* 880 */ "Br[#6]1[#6](Br)[#6][#6][#6]1"
+    };
+
+    private static final int SMARTS_OFFSET = 263;
+
+    /** The patterns, parsed when the first fingerprint is calculated. */
+    private static SMARTSQuerySet queries;
+
+    private static synchronized SMARTSQuerySet getQueries() {
+        if (queries == null) queries = new SMARTSQuerySet(SMARTS);
+        return queries;
+    }
+
+    private static void countSubstructures(byte[] fp, IAtomContainer mol) throws CDKException {
+        BitSet hits = getQueries().matches(mol);
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            int b = SMARTS_OFFSET + i;
+            fp[b >> 3] |= MASK[b % 8];
+        }
     }
 
     /** {@inheritDoc} */
@@ -31,9 +31,8 @@ import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.annotations.TestMethod;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySet;
 
-import java.util.BitSet;
 import java.util.Map;
 
 /**
@@ -374,6 +373,7 @@ import java.util.Map;
 public class SubstructureFingerprinter implements IFingerprinter {
 
     private String[] smarts;
+    private volatile SMARTSQuerySet queries;
 
     /**
      * Set up the fingerprinter to use the fragments from 
@@ -405,19 +405,18 @@ public class SubstructureFingerprinter implements IFingerprinter {
         if (smarts == null) {
             throw new CDKException("No substructures were defined");
         }
+        return new BitSetFingerprint(getQueries().matches(atomContainer));
+    }
 
-        int bitsetLength = smarts.length;
-        BitSet fingerPrint = new BitSet(bitsetLength);
-
-        SMARTSQueryTool sqt = new SMARTSQueryTool("C");
-        for (int i = 0; i < smarts.length; i++) {
-            String pattern = smarts[i];
-
-            sqt.setSmarts(pattern);
-            boolean status = sqt.matches(atomContainer);
-            if (status) fingerPrint.set(i, true);
-        }
-        return new BitSetFingerprint(fingerPrint);
+    /**
+     * Returns the substructures parsed into a query set, which is created
+     * when the first fingerprint is calculated.
+     *
+     * @return the substructure queries
+     */
+    SMARTSQuerySet getQueries() {
+        if (queries == null) queries = new SMARTSQuerySet(smarts);
+        return queries;
     }
 
     /** {@inheritDoc} */
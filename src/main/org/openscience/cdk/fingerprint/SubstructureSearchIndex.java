@@ -0,0 +1,547 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.fingerprint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.IQueryBond;
+import org.openscience.cdk.isomorphism.matchers.SymbolAndChargeQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.SymbolChargeIDQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AliphaticAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AliphaticSymbolAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AromaticOrSingleQueryBond;
+import org.openscience.cdk.isomorphism.matchers.smarts.AromaticQueryBond;
+import org.openscience.cdk.isomorphism.matchers.smarts.AromaticSymbolAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AtomicNumberAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.LogicalOperatorAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.LogicalOperatorBond;
+import org.openscience.cdk.isomorphism.matchers.smarts.OrderQueryBond;
+import org.openscience.cdk.similarity.FingerprintDatabase;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.smiles.smarts.parser.SMARTSParser;
+import org.openscience.cdk.tools.ILoggingTool;
+import org.openscience.cdk.tools.LoggingToolFactory;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
+
+/**
+ * An index of molecules for substructure searches. The path fingerprint of
+ * each molecule, calculated by a {@link Fingerprinter}, is kept in a
+ * {@link FingerprintDatabase}. A search calculates a fingerprint of the
+ * query, discards the molecules whose fingerprint lacks one of its bits,
+ * and verifies the remaining candidates by subgraph isomorphism on a pool of
+ * threads owned by the index:
+ * <pre>
+ * SubstructureSearchIndex index = new SubstructureSearchIndex();
+ * for (IAtomContainer molecule : molecules)
+ *     index.add(molecule);
+ * index.setNumberOfThreads(4);
+ * SubstructureSearchIndex.Result result = index.search("c1ccccc1C(=O)[OH]");
+ * for (int hit : result.getHits())
+ *     System.out.println(index.getMolecule(hit).getProperty(CDKConstants.TITLE));
+ * System.out.println(result.getScreenOutRatio());
+ * </pre>
+ *
+ * <p>The fingerprint of a query only has the paths of atoms that match a
+ * single element, connected by bonds that match a single bond type: a
+ * single, double or triple bond that is not aromatic, an aromatic bond, or
+ * a SMARTS bond without symbol next to an aliphatic atom. Such a path is
+ * found again in any molecule that contains the query, so that no hit is
+ * screened out; other paths are left out. Queries with few such paths, for
+ * example with atom lists or with {@link
+ * org.openscience.cdk.isomorphism.matchers.OrderQueryBond}s, which also
+ * match aromatic bonds, therefore screen out few molecules. The ratios of
+ * a {@link Result} show how well the fingerprint size and search depth of
+ * the fingerprinter suit a set of queries.
+ *
+ * <p>Molecules are perceived by the fingerprinter when they are added, and
+ * SMARTS queries perceive the candidates again, so searches must not run
+ * concurrently, nor while molecules are added. The threads of the pool are
+ * daemon threads that end after a minute without searches, so an index that
+ * is no longer used needs no shutdown.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword fingerprint
+ * @cdk.keyword substructure search
+ * @cdk.keyword screening
+ */
+@TestClass("org.openscience.cdk.fingerprint.SubstructureSearchIndexTest")
+public class SubstructureSearchIndex {
+
+    private final static ILoggingTool logger =
+        LoggingToolFactory.createLoggingTool(SubstructureSearchIndex.class);
+
+    private final Fingerprinter fingerprinter;
+    private final FingerprintDatabase fingerprints;
+    private final List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+    private int threads = 1;
+    private ExecutorService pool;
+
+    /** Seconds after which an idle thread of the pool ends. */
+    private static final long KEEP_ALIVE = 60;
+
+    /**
+     * Creates an empty index with fingerprints of the default size and
+     * search depth of the {@link Fingerprinter}.
+     */
+    @TestMethod("testAdd")
+    public SubstructureSearchIndex() {
+        this(new Fingerprinter());
+    }
+
+    /**
+     * Creates an empty index with the fingerprints of the given
+     * fingerprinter, whose size and search depth may be tuned to the
+     * molecules and queries.
+     *
+     * @param fingerprinter calculates the fingerprints of molecules and queries
+     */
+    @TestMethod("testSearch_fingerprinter")
+    public SubstructureSearchIndex(Fingerprinter fingerprinter) {
+        if (fingerprinter == null)
+            throw new IllegalArgumentException("A fingerprinter must be given");
+        this.fingerprinter = fingerprinter;
+        this.fingerprints  = new FingerprintDatabase(fingerprinter.getSize());
+    }
+
+    /**
+     * Adds a molecule to the index. Atom types and aromaticity of the
+     * molecule are perceived to calculate its fingerprint.
+     *
+     * @param  molecule     the molecule to add
+     * @return              the index of the molecule
+     * @throws CDKException if the fingerprint could not be calculated
+     */
+    @TestMethod("testAdd")
+    public int add(IAtomContainer molecule) throws CDKException {
+        IBitFingerprint fingerprint = fingerprinter.getBitFingerprint(molecule);
+        molecules.add(molecule);
+        return fingerprints.add(fingerprint);
+    }
+
+    /**
+     * Returns the number of molecules in the index.
+     *
+     * @return the number of molecules
+     */
+    @TestMethod("testAdd")
+    public int getMoleculeCount() {
+        return molecules.size();
+    }
+
+    /**
+     * Returns a molecule of the index.
+     *
+     * @param  index the index of the molecule
+     * @return       the molecule
+     */
+    @TestMethod("testAdd")
+    public IAtomContainer getMolecule(int index) {
+        return molecules.get(index);
+    }
+
+    /**
+     * Returns the fingerprint of a molecule of the index.
+     *
+     * @param  index the index of the molecule
+     * @return       a copy of its fingerprint
+     */
+    @TestMethod("testAdd")
+    public IBitFingerprint getFingerprint(int index) {
+        return fingerprints.getFingerprint(index);
+    }
+
+    /**
+     * Sets the number of threads that screen and verify candidates. The
+     * default is one, searching on the calling thread.
+     *
+     * @param threads the number of threads
+     */
+    @TestMethod("testSearch_threads")
+    public void setNumberOfThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        if (threads != this.threads) pool = null;
+        this.threads = threads;
+        fingerprints.setNumberOfThreads(threads);
+    }
+
+    /**
+     * Returns the pool for the current number of threads, created on the
+     * first search that needs it. The calling thread verifies candidates
+     * itself, so the pool has one thread less than the number of threads.
+     */
+    private ExecutorService pool() {
+        if (pool == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads - 1, threads - 1, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final ThreadFactory factory = Executors.defaultThreadFactory();
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = factory.newThread(runnable);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }
+            );
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+        return pool;
+    }
+
+    /**
+     * Calculates the fingerprint of the paths of a query that match a single
+     * element and bond type. Each of its bits is set in the fingerprint of
+     * every molecule of the index that contains the query.
+     *
+     * @param  query the query
+     * @return       the fingerprint, without set bits if the index is empty
+     */
+    @TestMethod("testGetQueryFingerprint")
+    public IBitFingerprint getQueryFingerprint(IQueryAtomContainer query) {
+        if (molecules.isEmpty()) return new BitSetFingerprint(fingerprinter.getSize());
+        // query objects have no builder
+        IChemObjectBuilder builder = molecules.get(0).getBuilder();
+        IAtomContainer paths = builder.newInstance(IAtomContainer.class);
+        Map<IAtom, IAtom> atoms = new IdentityHashMap<IAtom, IAtom>();
+        for (IAtom atom : query.atoms()) {
+            String symbol = getElement((IQueryAtom) atom);
+            if (symbol == null) continue;
+            IAtom pathAtom = builder.newInstance(IAtom.class, symbol);
+            paths.addAtom(pathAtom);
+            atoms.put(atom, pathAtom);
+        }
+        for (IBond bond : query.bonds()) {
+            IAtom first = atoms.get(bond.getAtom(0));
+            IAtom second = atoms.get(bond.getAtom(1));
+            if (first == null || second == null) continue;
+            boolean aliphatic = isAliphatic((IQueryAtom) bond.getAtom(0))
+                             || isAliphatic((IQueryAtom) bond.getAtom(1));
+            IBond.Order order = getOrder((IQueryBond) bond, aliphatic);
+            if (order == null) continue;
+            IBond pathBond = builder.newInstance(IBond.class, first, second, order);
+            if (order == AROMATIC) {
+                pathBond.setOrder(IBond.Order.SINGLE);
+                pathBond.setFlag(CDKConstants.ISAROMATIC, true);
+            }
+            paths.addBond(pathBond);
+        }
+        return fingerprinter.getPathFingerprint(paths);
+    }
+
+    /**
+     * Finds the molecules of the index that contain a query. The molecules
+     * are matched by {@link UniversalIsomorphismTester#isSubgraph}, and so
+     * must have been prepared as the query atoms and bonds require.
+     *
+     * @param  query        the query
+     * @return              the hits and the number of candidates
+     * @throws CDKException if a candidate could not be matched
+     */
+    @TestMethod("testSearch_IQueryAtomContainer")
+    public Result search(final IQueryAtomContainer query) throws CDKException {
+        return search(getQueryFingerprint(query), new MatcherFactory() {
+            public Matcher newMatcher() {
+                final UniversalIsomorphismTester tester = new UniversalIsomorphismTester();
+                return new Matcher() {
+                    public boolean matches(IAtomContainer molecule) throws CDKException {
+                        return tester.isSubgraph(molecule, query);
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Finds the molecules of the index that match a SMARTS pattern. Each
+     * thread matches the candidates with its own {@link SMARTSQueryTool},
+     * which prepares the molecules for SMARTS matching.
+     *
+     * @param  smarts       the SMARTS pattern
+     * @return              the hits and the number of candidates
+     * @throws CDKException if a candidate could not be matched
+     * @throws IllegalArgumentException if the SMARTS pattern can not be parsed
+     */
+    @TestMethod("testSearch_String")
+    public Result search(final String smarts) throws CDKException {
+        return search(getQueryFingerprint(SMARTSParser.parse(smarts)), new MatcherFactory() {
+            public Matcher newMatcher() {
+                final SMARTSQueryTool tool = new SMARTSQueryTool(smarts);
+                return new Matcher() {
+                    public boolean matches(IAtomContainer molecule) throws CDKException {
+                        return tool.matches(molecule);
+                    }
+                };
+            }
+        });
+    }
+
+    private Result search(IBitFingerprint queryFingerprint,
+                          final MatcherFactory factory) throws CDKException {
+        final int[] candidates = fingerprints.screen(queryFingerprint);
+        final boolean[] matched = new boolean[candidates.length];
+        int parts = Math.min(threads, candidates.length);
+        if (parts <= 1) {
+            new Verification(candidates, matched, new AtomicInteger(), factory).call();
+        } else {
+            AtomicInteger next = new AtomicInteger();
+            ExecutorService executor = pool();
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            try {
+                for (int part = 1; part < parts; part++)
+                    futures.add(executor.submit(new Verification(candidates, matched, next, factory)));
+                new Verification(candidates, matched, next, factory).call();
+                for (Future<Object> future : futures) future.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new CDKException("Interrupted while verifying candidates", exception);
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if (cause instanceof CDKException) throw (CDKException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new CDKException("Unexpected error while verifying candidates", cause);
+            } finally {
+                // stop the other parts when one of them failed
+                for (Future<Object> future : futures) future.cancel(true);
+            }
+        }
+
+        int[] hits = new int[candidates.length];
+        int hitCount = 0;
+        for (int i = 0; i < candidates.length; i++)
+            if (matched[i]) hits[hitCount++] = candidates[i];
+        Result result = new Result(Arrays.copyOf(hits, hitCount), molecules.size(), candidates.length);
+        logger.debug(result);
+        return result;
+    }
+
+    /**
+     * Returns the element that a query atom requires, or null if it may match
+     * atoms of several elements.
+     */
+    private static String getElement(IQueryAtom atom) {
+        if (atom instanceof AliphaticSymbolAtom || atom instanceof AromaticSymbolAtom
+            || atom instanceof SymbolAndChargeQueryAtom || atom instanceof SymbolChargeIDQueryAtom)
+            return atom.getSymbol();
+        if (atom instanceof AtomicNumberAtom)
+            return PeriodicTable.getSymbol(((AtomicNumberAtom) atom).getAtomicNumber());
+        if (atom instanceof LogicalOperatorAtom) {
+            LogicalOperatorAtom logical = (LogicalOperatorAtom) atom;
+            if (logical.getRight() == null) return null;
+            String left = getElement(logical.getLeft());
+            String right = getElement(logical.getRight());
+            if ("and".equals(logical.getOperator())) return left != null ? left : right;
+            if ("or".equals(logical.getOperator()) && left != null && left.equals(right)) return left;
+        }
+        return null;
+    }
+
+    /**
+     * Whether a query atom only matches atoms that are not aromatic.
+     */
+    private static boolean isAliphatic(IQueryAtom atom) {
+        if (atom instanceof AliphaticSymbolAtom || atom instanceof AliphaticAtom) return true;
+        if (atom instanceof LogicalOperatorAtom) {
+            LogicalOperatorAtom logical = (LogicalOperatorAtom) atom;
+            if (logical.getRight() == null) return false;
+            boolean left = isAliphatic(logical.getLeft());
+            boolean right = isAliphatic(logical.getRight());
+            if ("and".equals(logical.getOperator())) return left || right;
+            if ("or".equals(logical.getOperator())) return left && right;
+        }
+        return false;
+    }
+
+    /** Stands for an aromatic bond in {@link #getOrder(IQueryBond, boolean)}. */
+    private static final IBond.Order AROMATIC = IBond.Order.UNSET;
+
+    /**
+     * Returns the order of the bonds matched by a query bond, {@link #AROMATIC}
+     * for aromatic bonds, or null if it may match several types of bonds. A
+     * bond between an aliphatic atom and another atom is not aromatic, as
+     * aromaticity is perceived for the atoms and bonds of a ring together.
+     */
+    private static IBond.Order getOrder(IQueryBond bond, boolean aliphatic) {
+        if (bond instanceof OrderQueryBond) {
+            IBond.Order order = bond.getOrder();
+            if (order == IBond.Order.SINGLE || order == IBond.Order.DOUBLE || order == IBond.Order.TRIPLE)
+                return order;
+            return null;
+        }
+        if (bond instanceof AromaticQueryBond) return AROMATIC;
+        if (bond instanceof AromaticOrSingleQueryBond) return aliphatic ? IBond.Order.SINGLE : null;
+        if (bond instanceof LogicalOperatorBond) {
+            LogicalOperatorBond logical = (LogicalOperatorBond) bond;
+            if (logical.getRight() == null) return null;
+            IBond.Order left = getOrder(logical.getLeft(), aliphatic);
+            IBond.Order right = getOrder(logical.getRight(), aliphatic);
+            if ("and".equals(logical.getOperator())) return left != null ? left : right;
+            if ("or".equals(logical.getOperator()) && left == right) return left;
+        }
+        return null;
+    }
+
+    /**
+     * Matches the query against molecules on one thread.
+     */
+    private interface Matcher {
+        public boolean matches(IAtomContainer molecule) throws CDKException;
+    }
+
+    /**
+     * Creates the matcher of each verifying thread.
+     */
+    private interface MatcherFactory {
+        public Matcher newMatcher();
+    }
+
+    /**
+     * Verifies candidates until none are left. The candidates are taken one
+     * at a time, so that threads with slow matches verify fewer of them.
+     */
+    private class Verification implements Callable<Object> {
+
+        private final int[] candidates;
+        private final boolean[] matched;
+        private final AtomicInteger next;
+        private final MatcherFactory factory;
+
+        Verification(int[] candidates, boolean[] matched,
+                     AtomicInteger next, MatcherFactory factory) {
+            this.candidates = candidates;
+            this.matched    = matched;
+            this.next       = next;
+            this.factory    = factory;
+        }
+
+        public Object call() throws CDKException {
+            Matcher matcher = factory.newMatcher();
+            for (int i = next.getAndIncrement(); i < candidates.length; i = next.getAndIncrement()) {
+                if (Thread.currentThread().isInterrupted()) break;
+                matched[i] = matcher.matches(molecules.get(candidates[i]));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The molecules found by a search, with the number of candidates left by
+     * the fingerprint screen.
+     */
+    public static final class Result {
+
+        private final int[] hits;
+        private final int moleculeCount;
+        private final int candidateCount;
+
+        Result(int[] hits, int moleculeCount, int candidateCount) {
+            this.hits           = hits;
+            this.moleculeCount  = moleculeCount;
+            this.candidateCount = candidateCount;
+        }
+
+        /**
+         * Returns the indices of the molecules that contain the query.
+         *
+         * @return the indices, in increasing order
+         */
+        public int[] getHits() {
+            return hits.clone();
+        }
+
+        /**
+         * Returns the number of molecules that contain the query.
+         *
+         * @return the number of hits
+         */
+        public int getHitCount() {
+            return hits.length;
+        }
+
+        /**
+         * Returns the number of molecules searched.
+         *
+         * @return the number of molecules in the index
+         */
+        public int getMoleculeCount() {
+            return moleculeCount;
+        }
+
+        /**
+         * Returns the number of molecules that passed the screen and were
+         * verified.
+         *
+         * @return the number of candidates
+         */
+        public int getCandidateCount() {
+            return candidateCount;
+        }
+
+        /**
+         * Returns the fraction of the molecules that the screen discarded.
+         *
+         * @return the screen-out ratio, 0 if the index is empty
+         */
+        public double getScreenOutRatio() {
+            return moleculeCount == 0 ? 0 : (double) (moleculeCount - candidateCount) / moleculeCount;
+        }
+
+        /**
+         * Returns the fraction of the candidates that do not contain the
+         * query, which were verified in vain.
+         *
+         * @return the false positive ratio, 0 if there were no candidates
+         */
+        public double getFalsePositiveRatio() {
+            return candidateCount == 0 ? 0 : (double) (candidateCount - hits.length) / candidateCount;
+        }
+
+        public String toString() {
+            return "Result(" + hits.length + " hits, " + candidateCount + " candidates, "
+                   + moleculeCount + " molecules)";
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.graph;
+
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
+
+/**
+ * Immutable, compact representation of the molecular graph of an
+ * {@link IAtomContainer}. Atoms and bonds are identified by their index in the
+ * container they were frozen from, and all data is held in primitive arrays:
+ * the adjacency in compressed sparse row form, element numbers as
+ * <code>short</code>, charges, hydrogen counts and bond orders as
+ * <code>byte</code>, and the flags of atoms and bonds packed as they are in
+ * {@link org.openscience.cdk.interfaces.IChemObject#getFlagValue()}.
+ * A frozen molecule takes roughly 20 bytes per atom and 20 bytes per bond,
+ * an order of magnitude less than the atom and bond objects it is created
+ * from.
+ *
+ * <p>Only the information needed by graph algorithms, fingerprinters and
+ * substructure screens is retained: element, formal charge, implicit hydrogen
+ * count, pseudo atom labels, bond orders and flags. Coordinates, atom types
+ * and properties are not. Neither are isotopes (mass numbers) and stereo
+ * information, that is bond stereo and the stereo elements of the container:
+ * freezing silently drops them, and the molecule returned by
+ * {@link #toAtomContainer(IChemObjectBuilder)} has none. Algorithms that need
+ * a full {@link IAtomContainer}, for example because they perceive atom types
+ * or aromaticity, can be given the result of
+ * {@link #toAtomContainer(IChemObjectBuilder)}:
+ * <pre>
+ * FrozenAtomContainer frozen = FrozenAtomContainer.freeze(molecule);
+ * // ... keep many frozen molecules in memory
+ * IBitFingerprint fp = fingerprinter.getBitFingerprint(
+ *     frozen.toAtomContainer(DefaultChemObjectBuilder.getInstance())
+ * );
+ * </pre>
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ *
+ * @cdk.module  core
+ * @cdk.githash
+ * @cdk.keyword adjacency list
+ */
+@TestClass("org.openscience.cdk.graph.FrozenAtomContainerTest")
+public final class FrozenAtomContainer implements Serializable {
+
+    private static final long serialVersionUID = 4416094402217434839L;
+
+    /** Value stored for an unset implicit hydrogen count or formal charge. */
+    private static final byte UNSET = Byte.MIN_VALUE;
+
+    private final String title;
+
+    private final short[] atomicNumbers;
+    private final byte[]  charges;
+    private final byte[]  hydrogens;
+    private final short[] atomFlags;
+
+    /** Labels of pseudo atoms, null if there are none. */
+    private final String[] labels;
+
+    private final int[]   bondBegin;
+    private final int[]   bondEnd;
+    private final byte[]  bondOrders;
+    private final short[] bondFlags;
+
+    /** Neighbours of atom i are found in [offsets[i], offsets[i+1]). */
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final int[] neighbourBonds;
+
+    private FrozenAtomContainer(IAtomContainer container) {
+        int atomCount = container.getAtomCount();
+        int bondCount = container.getBondCount();
+
+        title = (String) container.getProperty(CDKConstants.TITLE);
+
+        atomicNumbers = new short[atomCount];
+        charges       = new byte[atomCount];
+        hydrogens     = new byte[atomCount];
+        atomFlags     = new short[atomCount];
+        String[] labels = null;
+
+        Map<IAtom,Integer> atomIndex = new IdentityHashMap<IAtom,Integer>(atomCount);
+        for (int i = 0; i < atomCount; i++) {
+            IAtom atom = container.getAtom(i);
+            atomIndex.put(atom, i);
+            atomicNumbers[i] = (short) atomicNumber(atom);
+            charges[i]       = toByte(atom.getFormalCharge());
+            hydrogens[i]     = toByte(atom.getImplicitHydrogenCount());
+            atomFlags[i]     = atom.getFlagValue().shortValue();
+            if (atom instanceof IPseudoAtom) {
+                if (labels == null) labels = new String[atomCount];
+                labels[i] = ((IPseudoAtom) atom).getLabel();
+            }
+        }
+        this.labels = labels;
+
+        bondBegin  = new int[bondCount];
+        bondEnd    = new int[bondCount];
+        bondOrders = new byte[bondCount];
+        bondFlags  = new short[bondCount];
+
+        offsets = new int[atomCount + 1];
+        for (int i = 0; i < bondCount; i++) {
+            IBond bond = container.getBond(i);
+            if (bond.getAtomCount() != 2)
+                throw new IllegalArgumentException("Only two-centre bonds can be frozen, bond "
+                                                   + i + " has " + bond.getAtomCount() + " atoms");
+            Integer begin = atomIndex.get(bond.getAtom(0));
+            Integer end   = atomIndex.get(bond.getAtom(1));
+            if (begin == null || end == null)
+                throw new IllegalArgumentException("Bond " + i + " connects an atom that is not in the container");
+            bondBegin[i]  = begin;
+            bondEnd[i]    = end;
+            bondOrders[i] = bond.getOrder() == null ? UNSET : (byte) bond.getOrder().numeric().intValue();
+            bondFlags[i]  = bond.getFlagValue().shortValue();
+            offsets[begin + 1]++;
+            offsets[end + 1]++;
+        }
+        for (int i = 0; i < atomCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // fill the rows in bond order, this keeps the neighbours in the same
+        // order as IAtomContainer.getConnectedAtomsList()
+        neighbours     = new int[2 * bondCount];
+        neighbourBonds = new int[2 * bondCount];
+        int[] fill = new int[atomCount];
+        for (int i = 0; i < bondCount; i++) {
+            int begin = bondBegin[i], end = bondEnd[i];
+            int p = offsets[begin] + fill[begin]++;
+            neighbours[p]     = end;
+            neighbourBonds[p] = i;
+            p = offsets[end] + fill[end]++;
+            neighbours[p]     = begin;
+            neighbourBonds[p] = i;
+        }
+    }
+
+    /**
+     * Creates the frozen representation of the given container. Later changes
+     * to the container are not reflected by the result.
+     *
+     * @param  container the container to freeze
+     * @return           an immutable compact copy of the molecular graph
+     * @throws IllegalArgumentException if the container has multi-centre bonds
+     *                                  or bonds to atoms it does not contain
+     */
+    @TestMethod("testFreeze")
+    public static FrozenAtomContainer freeze(IAtomContainer container) {
+        return new FrozenAtomContainer(container);
+    }
+
+    private static int atomicNumber(IAtom atom) {
+        if (atom.getAtomicNumber() != null)
+            return atom.getAtomicNumber();
+        if (atom instanceof IPseudoAtom || atom.getSymbol() == null)
+            return 0;
+        Integer number = PeriodicTable.getAtomicNumber(atom.getSymbol());
+        return number == null ? 0 : number;
+    }
+
+    private static byte toByte(Integer value) {
+        return value == null ? UNSET : value.byteValue();
+    }
+
+    private static Integer fromByte(byte value) {
+        return value == UNSET ? null : Integer.valueOf(value);
+    }
+
+    /**
+     * Returns the title of the frozen container.
+     *
+     * @return the value of the {@link CDKConstants#TITLE} property, or null
+     */
+    @TestMethod("testGetTitle")
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the number of atoms.
+     *
+     * @return the number of atoms
+     */
+    @TestMethod("testFreeze")
+    public int getAtomCount() {
+        return atomicNumbers.length;
+    }
+
+    /**
+     * Returns the number of bonds.
+     *
+     * @return the number of bonds
+     */
+    @TestMethod("testFreeze")
+    public int getBondCount() {
+        return bondOrders.length;
+    }
+
+    /**
+     * Returns the atomic number of an atom, 0 for pseudo atoms.
+     *
+     * @param  atom index of the atom
+     * @return      the atomic number
+     */
+    @TestMethod("testGetAtomicNumber")
+    public int getAtomicNumber(int atom) {
+        return atomicNumbers[atom];
+    }
+
+    /**
+     * Returns the element symbol of an atom, or the label of a pseudo atom.
+     *
+     * @param  atom index of the atom
+     * @return      the symbol
+     */
+    @TestMethod("testGetSymbol")
+    public String getSymbol(int atom) {
+        if (labels != null && labels[atom] != null)
+            return labels[atom];
+        return atomicNumbers[atom] == 0 ? "R" : PeriodicTable.getSymbol(atomicNumbers[atom]);
+    }
+
+    /**
+     * Returns the formal charge of an atom.
+     *
+     * @param  atom index of the atom
+     * @return      the formal charge, null if it was not set
+     */
+    @TestMethod("testGetFormalCharge")
+    public Integer getFormalCharge(int atom) {
+        return fromByte(charges[atom]);
+    }
+
+    /**
+     * Returns the implicit hydrogen count of an atom.
+     *
+     * @param  atom index of the atom
+     * @return      the number of implicit hydrogens, null if it was not set
+     */
+    @TestMethod("testGetImplicitHydrogenCount")
+    public Integer getImplicitHydrogenCount(int atom) {
+        return fromByte(hydrogens[atom]);
+    }
+
+    /**
+     * Returns the value of a flag of an atom.
+     *
+     * @param  atom index of the atom
+     * @param  mask the flag mask, e.g. {@link CDKConstants#ISAROMATIC}
+     * @return      the value of the flag
+     */
+    @TestMethod("testGetAtomFlag")
+    public boolean getAtomFlag(int atom, int mask) {
+        return (atomFlags[atom] & mask) != 0;
+    }
+
+    /**
+     * Returns the number of bonds to an atom.
+     *
+     * @param  atom index of the atom
+     * @return      the degree of the atom
+     */
+    @TestMethod("testGetDegree")
+    public int getDegree(int atom) {
+        return offsets[atom + 1] - offsets[atom];
+    }
+
+    /**
+     * Returns the k-th neighbour of an atom. Neighbours are ordered as
+     * {@link IAtomContainer#getConnectedAtomsList(IAtom)} orders them.
+     *
+     * @param  atom index of the atom
+     * @param  k    index of the neighbour, in [0, degree)
+     * @return      index of the neighbouring atom
+     */
+    @TestMethod("testGetNeighbour")
+    public int getNeighbour(int atom, int k) {
+        return neighbours[offsets[atom] + k];
+    }
+
+    /**
+     * Returns the bond to the k-th neighbour of an atom.
+     *
+     * @param  atom index of the atom
+     * @param  k    index of the neighbour, in [0, degree)
+     * @return      index of the bond to the neighbour
+     * @see #getNeighbour(int, int)
+     */
+    @TestMethod("testGetNeighbour")
+    public int getNeighbourBond(int atom, int k) {
+        return neighbourBonds[offsets[atom] + k];
+    }
+
+    /**
+     * Returns the bond connecting two atoms.
+     *
+     * @param  atom1 index of the first atom
+     * @param  atom2 index of the second atom
+     * @return       index of the bond, -1 if the atoms are not bonded
+     */
+    @TestMethod("testGetBond")
+    public int getBond(int atom1, int atom2) {
+        for (int p = offsets[atom1]; p < offsets[atom1 + 1]; p++) {
+            if (neighbours[p] == atom2) return neighbourBonds[p];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first atom of a bond.
+     *
+     * @param  bond index of the bond
+     * @return      index of the atom
+     */
+    @TestMethod("testGetBond")
+    public int getBondBegin(int bond) {
+        return bondBegin[bond];
+    }
+
+    /**
+     * Returns the second atom of a bond.
+     *
+     * @param  bond index of the bond
+     * @return      index of the atom
+     */
+    @TestMethod("testGetBond")
+    public int getBondEnd(int bond) {
+        return bondEnd[bond];
+    }
+
+    /**
+     * Returns the order of a bond.
+     *
+     * @param  bond index of the bond
+     * @return      the bond order, null if it was not set
+     */
+    @TestMethod("testGetBondOrder")
+    public IBond.Order getBondOrder(int bond) {
+        byte order = bondOrders[bond];
+        if (order == UNSET) return null;
+        switch (order) {
+            case 1:  return IBond.Order.SINGLE;
+            case 2:  return IBond.Order.DOUBLE;
+            case 3:  return IBond.Order.TRIPLE;
+            case 4:  return IBond.Order.QUADRUPLE;
+            default: return IBond.Order.UNSET;
+        }
+    }
+
+    /**
+     * Returns the value of a flag of a bond.
+     *
+     * @param  bond index of the bond
+     * @param  mask the flag mask, e.g. {@link CDKConstants#ISAROMATIC}
+     * @return      the value of the flag
+     */
+    @TestMethod("testGetBondFlag")
+    public boolean getBondFlag(int bond, int mask) {
+        return (bondFlags[bond] & mask) != 0;
+    }
+
+    /**
+     * Creates a new, mutable {@link IAtomContainer} with the atoms and bonds
+     * of this frozen molecule, in the same order.
+     *
+     * @param  builder the builder used to create the container, atoms and bonds
+     * @return         a new container
+     */
+    @TestMethod("testToAtomContainer")
+    public IAtomContainer toAtomContainer(IChemObjectBuilder builder) {
+        IAtomContainer container = builder.newInstance(IAtomContainer.class);
+        if (title != null) container.setProperty(CDKConstants.TITLE, title);
+        IAtom[] atoms = new IAtom[getAtomCount()];
+        for (int i = 0; i < atoms.length; i++) {
+            IAtom atom;
+            if (labels != null && labels[i] != null) {
+                atom = builder.newInstance(IPseudoAtom.class, labels[i]);
+            } else if (atomicNumbers[i] == 0) {
+                atom = builder.newInstance(IPseudoAtom.class, "R");
+            } else {
+                atom = builder.newInstance(IAtom.class, getSymbol(i));
+                atom.setAtomicNumber((int) atomicNumbers[i]);
+            }
+            atom.setFormalCharge(getFormalCharge(i));
+            atom.setImplicitHydrogenCount(getImplicitHydrogenCount(i));
+            atom.setFlags(toFlags(atomFlags[i]));
+            atoms[i] = atom;
+        }
+        IBond[] bonds = new IBond[getBondCount()];
+        for (int i = 0; i < bonds.length; i++) {
+            IBond bond = builder.newInstance(IBond.class, atoms[bondBegin[i]], atoms[bondEnd[i]]);
+            bond.setOrder(getBondOrder(i));
+            bond.setFlags(toFlags(bondFlags[i]));
+            bonds[i] = bond;
+        }
+        container.setAtoms(atoms);
+        container.setBonds(bonds);
+        return container;
+    }
+
+    private static boolean[] toFlags(short value) {
+        boolean[] flags = new boolean[CDKConstants.MAX_FLAG_INDEX + 1];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = (value & CDKConstants.FLAG_MASKS[i]) != 0;
+        }
+        return flags;
+    }
+}
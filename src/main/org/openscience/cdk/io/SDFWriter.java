@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.annotations.TestMethod;
 import org.openscience.cdk.exception.CDKException;
@@ -241,6 +242,7 @@ public class SDFWriter extends DefaultChemObjectWriter {
     static {
         cdkInternalProperties.add(InvPair.CANONICAL_LABEL);
         cdkInternalProperties.add(InvPair.INVARIANCE_PAIR);
+        cdkInternalProperties.add(CDKConstants.RING_PERCEPTION);
         // I think there are a few more, but cannot find them right now
     }
 
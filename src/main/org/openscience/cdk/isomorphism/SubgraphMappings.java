@@ -0,0 +1,188 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester.Graph;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester.State;
+
+/**
+ * The mappings of a query in a target, found one at a time while they are
+ * iterated. Where {@link UniversalIsomorphismTester#getSubgraphMaps} returns
+ * all mappings in a list, the search for the mappings here stops as soon as
+ * the caller has seen enough of them, and only the current mapping is kept:
+ * <pre>
+ * SubgraphMappings mappings = new VF2IsomorphismTester().getSubgraphMappings(molecule, query);
+ * boolean found = mappings.atLeast(1);
+ * int count     = mappings.uniqueAtoms().count();
+ * for (int[] mapping : mappings.limit(10)) {
+ *     // mapping[i] is the index of the target atom of query atom i
+ * }
+ * </pre>
+ *
+ * <p>Each mapping is an array with the index of the target atom of each
+ * query atom, in the order of the query. The mappings are searched again
+ * for each iteration, so the target and the query must not change while a
+ * SubgraphMappings is in use. {@link #limit(int)} and {@link #uniqueAtoms()}
+ * return new views of the same search, and the original is not changed.
+ *
+ * @cdk.module  standard
+ * @cdk.githash
+ * @cdk.keyword substructure search
+ * @see         VF2IsomorphismTester#getSubgraphMappings(org.openscience.cdk.interfaces.IAtomContainer,
+ *              org.openscience.cdk.interfaces.IAtomContainer)
+ */
+@TestClass("org.openscience.cdk.isomorphism.SubgraphMappingsTest")
+public final class SubgraphMappings implements Iterable<int[]> {
+
+    private final Graph target, query;
+    /** The maximal number of mappings, or -1 for all. */
+    private final int limit;
+    /** Whether mappings to a set of atoms already seen are skipped. */
+    private final boolean unique;
+
+    SubgraphMappings(Graph target, Graph query) {
+        this(target, query, -1, false);
+    }
+
+    private SubgraphMappings(Graph target, Graph query, int limit, boolean unique) {
+        this.target = target;
+        this.query  = query;
+        this.limit  = limit;
+        this.unique = unique;
+    }
+
+    /**
+     * Returns at most the first <code>n</code> mappings.
+     *
+     * @param  n the maximal number of mappings
+     * @return   the first n mappings
+     */
+    @TestMethod("testLimit")
+    public SubgraphMappings limit(int n) {
+        if (n < 0) throw new IllegalArgumentException("Negative limit: " + n);
+        return new SubgraphMappings(target, query, limit < 0 ? n : Math.min(n, limit), unique);
+    }
+
+    /**
+     * Returns only the first mapping to each set of target atoms, so that
+     * mappings that only differ by a symmetry of the query are skipped. The
+     * atom sets seen are kept while iterating.
+     *
+     * @return the mappings to distinct sets of atoms
+     */
+    @TestMethod("testUniqueAtoms")
+    public SubgraphMappings uniqueAtoms() {
+        return new SubgraphMappings(target, query, limit, true);
+    }
+
+    /**
+     * Returns the first mapping.
+     *
+     * @return the first mapping, or null if there is none
+     */
+    @TestMethod("testFirst")
+    public int[] first() {
+        Iterator<int[]> iterator = iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Tests if there are at least <code>n</code> mappings. The search stops
+     * at the n-th mapping.
+     *
+     * @param  n the number of mappings
+     * @return   true if there are n or more mappings
+     */
+    @TestMethod("testAtLeast")
+    public boolean atLeast(int n) {
+        return limit(n).count() == n;
+    }
+
+    /**
+     * Counts the mappings without keeping them.
+     *
+     * @return the number of mappings
+     */
+    @TestMethod("testCount")
+    public int count() {
+        int count = 0;
+        for (Iterator<int[]> iterator = new Mappings(false); iterator.hasNext(); iterator.next())
+            count++;
+        return count;
+    }
+
+    /**
+     * Returns an iterator that searches the mappings as they are requested.
+     * Each mapping returned is a new array.
+     *
+     * @return the iterator
+     */
+    @TestMethod("testIterator")
+    public Iterator<int[]> iterator() {
+        return new Mappings(true);
+    }
+
+    private final class Mappings implements Iterator<int[]> {
+
+        private final State state = new State(target, query);
+        private final Set<BitSet> atomSets = unique ? new HashSet<BitSet>() : null;
+        private final boolean copy;
+        private int[] next = null;
+        private int count = 0;
+
+        Mappings(boolean copy) {
+            this.copy = copy;
+        }
+
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (limit >= 0 && count >= limit) return false;
+            for (int[] mapping = state.next(); mapping != null; mapping = state.next()) {
+                if (atomSets != null) {
+                    BitSet atoms = new BitSet();
+                    for (int atom : mapping) atoms.set(atom);
+                    if (!atomSets.add(atoms)) continue;
+                }
+                next = copy ? mapping.clone() : mapping;
+                count++;
+                return true;
+            }
+            return false;
+        }
+
+        public int[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int[] mapping = next;
+            next = null;
+            return mapping;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,625 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.IQueryBond;
+import org.openscience.cdk.isomorphism.mcss.RMap;
+
+/**
+ * Substructure and isomorphism tests that map atoms one by one, in the
+ * manner of the VF2 algorithm {@cdk.cite CORDELLA04}. Where the
+ * {@link UniversalIsomorphismTester} builds a resolution graph of all pairs
+ * of compatible bonds and searches its cliques, this class extends a partial
+ * mapping of query atoms to target atoms, and backtracks as soon as an atom
+ * or one of its bonds to the atoms mapped so far does not match. The memory
+ * needed is linear in the size of the molecules.
+ *
+ * <p>The methods have the same arguments as those of the
+ * {@link UniversalIsomorphismTester}: the first container is the target and
+ * must not be an {@link IQueryAtomContainer}, the second is the query and may
+ * be one. Query atoms and bonds are matched with
+ * {@link IQueryAtom#matches(IAtom)} and {@link IQueryBond#matches(IBond)};
+ * other atoms match atoms with the same symbol, and other bonds match bonds
+ * with the same order and aromaticity, or any aromatic bond if they are
+ * aromatic themselves. An {@link AtomMatcher} may take the place of the
+ * query atoms, for example one that compiles them to tests of precomputed
+ * properties of the target atoms.
+ * <pre>
+ * SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+ * IAtomContainer atomContainer = sp.parseSmiles("CC(=O)OC(=O)C");
+ * IQueryAtomContainer query = SMARTSParser.parse("C=O");
+ * VF2IsomorphismTester tester = new VF2IsomorphismTester();
+ * boolean isSubstructure = tester.isSubgraph(atomContainer, query);
+ * List&lt;List&lt;RMap&gt;&gt; maps = tester.getSubgraphAtomsMaps(atomContainer, query);
+ * int count = tester.getSubgraphMappings(atomContainer, query).uniqueAtoms().count();
+ * </pre>
+ *
+ * <p>Atom mappings are returned as lists of {@link RMap}s, one for each
+ * query atom in the order of the query, whose first id is the index of the
+ * target atom and whose second id is the index of the query atom. Unlike
+ * the bond mappings of the {@link UniversalIsomorphismTester}, a mapping
+ * covers all query atoms, including those without bonds, and symmetric
+ * queries give one mapping for each way their atoms can be mapped. Since
+ * atoms rather than bonds are mapped, a three-membered ring does not match
+ * an atom with three neighbors, whose bonds are pairwise adjacent as well.
+ *
+ * @cdk.module  standard
+ * @cdk.githash
+ * @cdk.keyword isomorphism
+ * @cdk.keyword substructure search
+ * @see         UniversalIsomorphismTester
+ */
+@TestClass("org.openscience.cdk.isomorphism.VF2IsomorphismTesterTest")
+public class VF2IsomorphismTester {
+
+    /** A target prepared for a series of tests, or null. */
+    private final IAtomContainer target;
+    private Graph targetGraph = null;
+
+    /**
+     * Creates a tester. A tester keeps no state between calls.
+     */
+    @TestMethod("testIsSubgraph")
+    public VF2IsomorphismTester() {
+        this(null);
+    }
+
+    /**
+     * Creates a tester for a series of tests against the same target. The
+     * bonds of the target are indexed by the first test, and reused by the
+     * following tests as long as their first container is this target. The
+     * target must therefore not change while the tester is used.
+     *
+     * @param target the target of the following tests
+     */
+    @TestMethod("testTarget")
+    public VF2IsomorphismTester(IAtomContainer target) {
+        this.target = target;
+    }
+
+    /**
+     * Tests if g2 is a subgraph of g1.
+     *
+     * @param  g1  the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the query. May be an {@link IQueryAtomContainer}.
+     * @return     true if g2 is a subgraph of g1
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testIsSubgraph,testIsSubgraph_query")
+    public boolean isSubgraph(IAtomContainer g1, IAtomContainer g2) throws CDKException {
+        return getSubgraphMappings(g1, g2).atLeast(1);
+    }
+
+    /**
+     * Tests if g1 and g2 are isomorph.
+     *
+     * @param  g1  the first molecule. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the second molecule. May be an {@link IQueryAtomContainer}.
+     * @return     true if the molecules are isomorph
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testIsIsomorph")
+    public boolean isIsomorph(IAtomContainer g1, IAtomContainer g2) throws CDKException {
+        if (g1.getAtomCount() != g2.getAtomCount() || g1.getBondCount() != g2.getBondCount())
+            return false;
+        return isSubgraph(g1, g2);
+    }
+
+    /**
+     * Returns the mappings of g2 in g1, which are searched while they are
+     * iterated. Unlike the other methods, this one does not keep the
+     * mappings, so that searches for the first few mappings, or counts of
+     * them, need little memory.
+     *
+     * @param  g1  the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the query. May be an {@link IQueryAtomContainer}.
+     * @return     the mappings
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetSubgraphMappings")
+    public SubgraphMappings getSubgraphMappings(IAtomContainer g1, IAtomContainer g2)
+            throws CDKException {
+        return getSubgraphMappings(g1, g2, null);
+    }
+
+    /**
+     * Returns the mappings of g2 in g1, whose atoms are matched by an
+     * {@link AtomMatcher} instead of the atoms of g2.
+     *
+     * @param  g1      the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2      the query. May be an {@link IQueryAtomContainer}.
+     * @param  matcher matches the atoms of g2 to those of g1, or null to
+     *                 match the atoms of g2 themselves
+     * @return         the mappings
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetSubgraphMappings_matcher")
+    public SubgraphMappings getSubgraphMappings(IAtomContainer g1, IAtomContainer g2,
+                                                AtomMatcher matcher) throws CDKException {
+        return new SubgraphMappings(targetGraph(g1), new Graph(g2, matcher));
+    }
+
+    /**
+     * Returns the atoms of g1 to which an atom of g2 is mapped by any of
+     * the mappings of g2 in g1, as needed to match a recursive SMARTS. The
+     * search is started with this atom, and once a mapping of it to an atom
+     * of g1 is found, it goes on with its next candidate, so that only one
+     * mapping is searched for each atom of g1.
+     *
+     * @param  g1    the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2    the query. May be an {@link IQueryAtomContainer}.
+     * @param  atom  the index of the atom of g2
+     * @return       the indices of the atoms of g1 the atom can be mapped to
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetMappedAtoms")
+    public BitSet getMappedAtoms(IAtomContainer g1, IAtomContainer g2, int atom) throws CDKException {
+        return getMappedAtoms(g1, g2, atom, null);
+    }
+
+    /**
+     * Returns the atoms of g1 to which an atom of g2 is mapped, matching
+     * the atoms of g2 by an {@link AtomMatcher}.
+     *
+     * @param  g1      the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2      the query. May be an {@link IQueryAtomContainer}.
+     * @param  atom    the index of the atom of g2
+     * @param  matcher matches the atoms of g2 to those of g1, or null to
+     *                 match the atoms of g2 themselves
+     * @return         the indices of the atoms of g1 the atom can be mapped to
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     * @see #getMappedAtoms(IAtomContainer, IAtomContainer, int)
+     */
+    @TestMethod("testGetMappedAtoms_matcher")
+    public BitSet getMappedAtoms(IAtomContainer g1, IAtomContainer g2, int atom,
+                                 AtomMatcher matcher) throws CDKException {
+        State state = new State(targetGraph(g1), new Graph(g2, matcher), atom);
+        BitSet atoms = new BitSet();
+        for (int[] mapping = state.next(0); mapping != null; mapping = state.next(0))
+            atoms.set(mapping[atom]);
+        return atoms;
+    }
+
+    /**
+     * Returns the first atom mapping found of g2 in g1.
+     *
+     * @param  g1  the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the query. May be an {@link IQueryAtomContainer}.
+     * @return     the mapping, or null if g2 is not a subgraph of g1
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetSubgraphAtomsMap")
+    public List<RMap> getSubgraphAtomsMap(IAtomContainer g1, IAtomContainer g2) throws CDKException {
+        int[] mapping = getSubgraphMappings(g1, g2).first();
+        return mapping == null ? null : toRMaps(mapping, g2);
+    }
+
+    /**
+     * Returns all atom mappings of g2 in g1.
+     *
+     * @param  g1  the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the query. May be an {@link IQueryAtomContainer}.
+     * @return     the mappings, empty if g2 is not a subgraph of g1
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetSubgraphAtomsMaps")
+    public List<List<RMap>> getSubgraphAtomsMaps(IAtomContainer g1, IAtomContainer g2) throws CDKException {
+        return toRMaps(getSubgraphMappings(g1, g2), g2);
+    }
+
+    /**
+     * Returns the atom mappings of g2 in g1 that map to different sets of
+     * atoms of g1. Of mappings that only differ by a symmetry of g2, the
+     * first one found is returned.
+     *
+     * @param  g1  the target. Must not be an {@link IQueryAtomContainer}.
+     * @param  g2  the query. May be an {@link IQueryAtomContainer}.
+     * @return     the mappings, empty if g2 is not a subgraph of g1
+     * @throws CDKException if g1 is an {@link IQueryAtomContainer}
+     */
+    @TestMethod("testGetUniqueSubgraphAtomsMaps")
+    public List<List<RMap>> getUniqueSubgraphAtomsMaps(IAtomContainer g1, IAtomContainer g2)
+            throws CDKException {
+        return toRMaps(getSubgraphMappings(g1, g2).uniqueAtoms(), g2);
+    }
+
+    /**
+     * The graph of a target, which is reused if it is the target of this
+     * tester.
+     */
+    private Graph targetGraph(IAtomContainer g1) throws CDKException {
+        if (g1 instanceof IQueryAtomContainer)
+            throw new CDKException(
+                "The first IAtomContainer must not be an IQueryAtomContainer"
+            );
+        if (g1 != target) return new Graph(g1);
+        if (targetGraph == null) targetGraph = new Graph(target);
+        return targetGraph;
+    }
+
+    private static List<List<RMap>> toRMaps(SubgraphMappings mappings, IAtomContainer g2) {
+        List<List<RMap>> maps = new ArrayList<List<RMap>>();
+        for (int[] mapping : mappings) maps.add(toRMaps(mapping, g2));
+        return maps;
+    }
+
+    /**
+     * Converts a mapping to RMaps of the atoms of g2.
+     */
+    private static List<RMap> toRMaps(int[] mapping, IAtomContainer g2) {
+        int n = g2.getAtomCount();
+        List<RMap> maps = new ArrayList<RMap>(n);
+        for (int i = 0; i < n; i++)
+            maps.add(new RMap(mapping[i], i));
+        return maps;
+    }
+
+    /**
+     * Decides whether the atoms of a query match the atoms of a target,
+     * given by their indices in the containers. A matcher is used for a
+     * single search, in which each pair of atoms is tested at most once;
+     * atoms of the bonds of a query that are not in the query itself are
+     * still matched as query atoms.
+     */
+    public interface AtomMatcher {
+
+        /**
+         * Tests if a query atom matches a target atom.
+         *
+         * @param  queryAtom  the index of the atom in the query
+         * @param  targetAtom the index of the atom in the target
+         * @return            true if the atoms match
+         */
+        public boolean matches(int queryAtom, int targetAtom);
+    }
+
+    /**
+     * The state of the search for the mappings of a query in a target: the
+     * query atoms mapped so far, and for each of them the next target atom
+     * to try.
+     */
+    static final class State {
+
+        private static final byte UNKNOWN = 0, MATCH = 1, MISMATCH = 2;
+
+        private final IAtom[] queryAtoms, targetAtoms;
+        private final AtomMatcher matcher;
+        private final int matcherAtoms;
+        private final int[][] queryNeighbors, targetNeighbors;
+        private final IBond[][] queryBonds, targetBonds;
+
+        /** The query atoms in the order they are mapped. */
+        private final int[] order;
+        /** For each position in the order, an earlier neighbor, or -1. */
+        private final int[] parent;
+        /** For each position in the order, the next candidate to try. */
+        private final int[] cursor;
+        /** The target atom of each query atom, or -1. */
+        private final int[] mapping;
+        private final boolean[] used;
+        /** Whether a query atom matches a target atom, once tested. */
+        private final byte[] matches;
+        private int depth = 0;
+        private boolean done;
+
+        /**
+         * Prepares the search for the mappings of a query in a target.
+         *
+         * @param target the target graph
+         * @param query  the query graph
+         */
+        State(Graph target, Graph query) {
+            this(target, query, -1);
+        }
+
+        /**
+         * Prepares the search for the mappings of a query in a target,
+         * starting with a given query atom.
+         *
+         * @param target the target graph
+         * @param query  the query graph
+         * @param first  the index of the query atom mapped first, or -1
+         */
+        State(Graph target, Graph query, int first) {
+            queryAtoms      = query.atoms;
+            matcher         = query.matcher;
+            matcherAtoms    = query.matcherAtoms;
+            queryNeighbors  = query.neighbors;
+            queryBonds      = query.bonds;
+            targetAtoms     = target.atoms;
+            targetNeighbors = target.neighbors;
+            targetBonds     = target.bonds;
+            int n = queryAtoms.length, m = targetAtoms.length;
+
+            order   = new int[n];
+            parent  = new int[n];
+            cursor  = new int[n];
+            mapping = new int[n];
+            used    = new boolean[m];
+            matches = new byte[n * m];
+            Arrays.fill(mapping, -1);
+            done = n == 0 || n > m || query.bondCount > target.bondCount || !order(first);
+        }
+
+        /**
+         * Finds the next mapping.
+         *
+         * @return the target atom of each query atom, or null if there are
+         *         no more mappings. The array is reused by the next call.
+         */
+        int[] next() {
+            return next(order.length - 1);
+        }
+
+        /**
+         * Finds the next mapping that differs from the last one in the
+         * target atoms of the query atoms up to a position in the order.
+         * The query atoms after it are mapped anew.
+         *
+         * @param  position the position in the order
+         * @return the target atom of each query atom, or null if there are
+         *         no more mappings. The array is reused by the next call.
+         */
+        int[] next(int position) {
+            if (done) return null;
+            if (depth == order.length) {
+                while (depth > position + 1) {
+                    unmap(--depth);
+                    cursor[depth] = 0;
+                }
+                unmap(--depth);
+            }
+            while (depth >= 0) {
+                int candidate = nextCandidate(depth);
+                if (candidate < 0) {
+                    cursor[depth] = 0;
+                    if (--depth >= 0) unmap(depth);
+                    continue;
+                }
+                mapping[order[depth]] = candidate;
+                used[candidate] = true;
+                if (++depth == order.length) return mapping;
+            }
+            done = true;
+            return null;
+        }
+
+        private void unmap(int position) {
+            int queryAtom = order[position];
+            used[mapping[queryAtom]] = false;
+            mapping[queryAtom] = -1;
+        }
+
+        /**
+         * The next feasible target atom for the query atom at a position:
+         * a neighbor of the target atom of its parent, or any atom for the
+         * first atom of a component.
+         */
+        private int nextCandidate(int position) {
+            int queryAtom = order[position];
+            if (parent[position] >= 0) {
+                int[] neighbors = targetNeighbors[mapping[parent[position]]];
+                while (cursor[position] < neighbors.length) {
+                    int candidate = neighbors[cursor[position]++];
+                    if (feasible(queryAtom, candidate)) return candidate;
+                }
+            } else {
+                while (cursor[position] < targetAtoms.length) {
+                    int candidate = cursor[position]++;
+                    if (feasible(queryAtom, candidate)) return candidate;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Whether a query atom can be mapped to a target atom: the target
+         * atom is free, has at least as many bonds, matches, and is bonded
+         * by matching bonds to the targets of the query atom's mapped
+         * neighbors.
+         */
+        private boolean feasible(int queryAtom, int targetAtom) {
+            if (used[targetAtom]) return false;
+            int[] neighbors = queryNeighbors[queryAtom];
+            if (targetNeighbors[targetAtom].length < neighbors.length) return false;
+            if (!matches(queryAtom, targetAtom)) return false;
+            for (int i = 0; i < neighbors.length; i++) {
+                int mapped = mapping[neighbors[i]];
+                if (mapped < 0) continue;
+                IBond bond = bond(targetAtom, mapped);
+                if (bond == null || !matches(queryBonds[queryAtom][i], bond)) return false;
+            }
+            return true;
+        }
+
+        private boolean matches(int queryAtom, int targetAtom) {
+            int index = queryAtom * targetAtoms.length + targetAtom;
+            if (matches[index] == UNKNOWN) {
+                IAtom atom = queryAtoms[queryAtom];
+                boolean match = queryAtom < matcherAtoms
+                    ? matcher.matches(queryAtom, targetAtom)
+                    : atom instanceof IQueryAtom
+                    ? ((IQueryAtom) atom).matches(targetAtoms[targetAtom])
+                    : atom.getSymbol().equals(targetAtoms[targetAtom].getSymbol());
+                matches[index] = match ? MATCH : MISMATCH;
+            }
+            return matches[index] == MATCH;
+        }
+
+        private static boolean matches(IBond queryBond, IBond bond) {
+            if (queryBond instanceof IQueryBond)
+                return ((IQueryBond) queryBond).matches(bond);
+            boolean aromatic = bond.getFlag(CDKConstants.ISAROMATIC);
+            if (queryBond.getFlag(CDKConstants.ISAROMATIC))
+                return aromatic;
+            return !aromatic && queryBond.getOrder() == bond.getOrder();
+        }
+
+        private IBond bond(int atom1, int atom2) {
+            int[] neighbors = targetNeighbors[atom1];
+            for (int i = 0; i < neighbors.length; i++) {
+                if (neighbors[i] == atom2) return targetBonds[atom1][i];
+            }
+            return null;
+        }
+
+        /**
+         * Orders the query atoms so that each atom, where possible, is
+         * bonded to an atom before it. Each component starts with the atom
+         * with the fewest matching target atoms; then the atom with the most
+         * bonds to the atoms before it comes first, then the one with the
+         * fewest matching target atoms, then the one with the most bonds.
+         *
+         * @param  first the query atom ordered first, or -1
+         * @return false if a query atom matches no target atom
+         */
+        private boolean order(int first) {
+            int n = queryAtoms.length, m = targetAtoms.length;
+            int[] candidates = new int[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < m; j++) {
+                    if (matches(i, j)) candidates[i]++;
+                }
+                if (candidates[i] == 0) return false;
+            }
+            boolean[] ordered = new boolean[n];
+            int[] links = new int[n];
+            for (int position = 0; position < n; position++) {
+                int best = position == 0 ? first : -1;
+                for (int i = 0; i < n && (position > 0 || first < 0); i++) {
+                    if (ordered[i]) continue;
+                    if (best < 0 || compare(i, best, links, candidates) < 0) best = i;
+                }
+                order[position] = best;
+                ordered[best] = true;
+                parent[position] = -1;
+                for (int neighbor : queryNeighbors[best]) {
+                    if (ordered[neighbor]) {
+                        if (parent[position] < 0) parent[position] = neighbor;
+                    } else {
+                        links[neighbor]++;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int compare(int atom1, int atom2, int[] links, int[] candidates) {
+            if (links[atom1] != links[atom2])
+                return links[atom1] > links[atom2] ? -1 : 1;
+            if (candidates[atom1] != candidates[atom2])
+                return candidates[atom1] < candidates[atom2] ? -1 : 1;
+            int degree1 = queryNeighbors[atom1].length, degree2 = queryNeighbors[atom2].length;
+            return degree1 > degree2 ? -1 : degree1 < degree2 ? 1 : 0;
+        }
+    }
+
+    /**
+     * The atoms of a molecule or query, and for each atom its neighbors and
+     * the bonds to them.
+     */
+    static final class Graph {
+
+        final IAtom[] atoms;
+        final int[][] neighbors;
+        final IBond[][] bonds;
+        final int bondCount;
+        /** Matches the atoms of a query, or null. */
+        final AtomMatcher matcher;
+        /** The number of atoms matched by the matcher. */
+        final int matcherAtoms;
+
+        Graph(IAtomContainer container) {
+            this(container, null);
+        }
+
+        Graph(IAtomContainer container, AtomMatcher matcher) {
+            this.matcher = matcher;
+            matcherAtoms = matcher == null ? 0 : container.getAtomCount();
+            atoms     = atoms(container);
+            neighbors = new int[atoms.length][];
+            bonds     = new IBond[atoms.length][];
+            bondCount = container.getBondCount();
+            adjacency(container, atoms, neighbors, bonds);
+        }
+
+        /**
+         * The atoms of a container, followed by the atoms of its bonds that
+         * are not in the container. Such atoms become query atoms that must
+         * be mapped like any other, whereas the
+         * {@link UniversalIsomorphismTester} maps bonds only and never
+         * requires them to be mapped to atoms of their own; the results of
+         * the two testers may differ for such queries.
+         */
+        private static IAtom[] atoms(IAtomContainer container) {
+            Map<IAtom, Boolean> atoms = new IdentityHashMap<IAtom, Boolean>();
+            List<IAtom> list = new ArrayList<IAtom>(container.getAtomCount());
+            for (IAtom atom : container.atoms())
+                if (atoms.put(atom, Boolean.TRUE) == null) list.add(atom);
+            for (IBond bond : container.bonds())
+                for (IAtom atom : bond.atoms())
+                    if (atoms.put(atom, Boolean.TRUE) == null) list.add(atom);
+            return list.toArray(new IAtom[list.size()]);
+        }
+
+        private static void adjacency(IAtomContainer container, IAtom[] atoms,
+                                      int[][] neighbors, IBond[][] bonds) {
+            Map<IAtom, Integer> indices = new IdentityHashMap<IAtom, Integer>();
+            for (int i = 0; i < atoms.length; i++) indices.put(atoms[i], i);
+            int[] degree = new int[atoms.length];
+            int bondCount = container.getBondCount();
+            int[] begin = new int[bondCount], end = new int[bondCount];
+            for (int i = 0; i < bondCount; i++) {
+                IBond bond = container.getBond(i);
+                begin[i] = indices.get(bond.getAtom(0));
+                end[i]   = indices.get(bond.getAtom(1));
+                degree[begin[i]]++;
+                degree[end[i]]++;
+            }
+            for (int i = 0; i < atoms.length; i++) {
+                neighbors[i] = new int[degree[i]];
+                bonds[i] = new IBond[degree[i]];
+                degree[i] = 0;
+            }
+            for (int i = 0; i < bondCount; i++) {
+                IBond bond = container.getBond(i);
+                neighbors[begin[i]][degree[begin[i]]] = end[i];
+                bonds[begin[i]][degree[begin[i]]++] = bond;
+                neighbors[end[i]][degree[end[i]]] = begin[i];
+                bonds[end[i]][degree[end[i]]++] = bond;
+            }
+        }
+    }
+}
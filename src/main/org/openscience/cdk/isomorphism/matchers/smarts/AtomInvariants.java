@@ -0,0 +1,168 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import java.util.List;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IRingSet;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
+
+/**
+ * The properties of the atoms of a molecule that SMARTS primitives test,
+ * read once into arrays indexed by atom. The molecule must have been
+ * prepared for SMARTS matching, as by
+ * {@link org.openscience.cdk.smiles.smarts.SMARTSQueryTool}, whose ring
+ * sizes, hydrogen counts and connection counts are kept in atom properties
+ * that each primitive would otherwise look up and unbox for every atom it is
+ * matched against. The arrays are evaluated by {@link QueryAtomProgram}s.
+ *
+ * <p>The invariants are a snapshot: they must be calculated again when the
+ * molecule changes. A property that is not set is kept as {@link #NONE}, in
+ * which case the program falls back to the primitive itself.
+ *
+ * @cdk.module  smarts
+ * @cdk.githash
+ * @cdk.keyword SMARTS
+ * @see         QueryAtomProgram
+ */
+@TestClass("org.openscience.cdk.isomorphism.matchers.smarts.AtomInvariantsTest")
+public final class AtomInvariants {
+
+    /** The value of a property that is not set. */
+    static final int NONE = Integer.MIN_VALUE;
+
+    static final int AROMATIC = 1, RING = 2;
+
+    final IAtomContainer atomContainer;
+    final IAtom[] atoms;
+
+    /** The atomic number, -1 for an unknown symbol. */
+    final int[] element;
+    /** {@link #AROMATIC} and {@link #RING}. */
+    final int[] flags;
+    final int[] charge;
+    final int[] mass;
+    /** The ordinal of the hybridization, -1 if it is not set. */
+    final int[] hybridization;
+    /** The implicit hydrogen count, 0 if it is not set. */
+    final int[] implicitHydrogens;
+    final int[] totalHydrogens;
+    final int[] totalConnections;
+    /** The number of ring neighbours of a ring atom, 0 for other atoms. */
+    final int[] ringConnections;
+    final int[] valency;
+    final int[] group;
+    /** The size of the smallest ring of a ring atom, 0 if none is known. */
+    final int[] smallestRing;
+    /** The number of smallest rings of a ring atom, 0 for other atoms. */
+    final int[] ringCount;
+
+    /**
+     * Reads the invariants of the atoms of a molecule prepared for SMARTS
+     * matching.
+     *
+     * @param atomContainer the molecule
+     */
+    @TestMethod("testInvariants")
+    public AtomInvariants(IAtomContainer atomContainer) {
+        this.atomContainer = atomContainer;
+        int n = atomContainer.getAtomCount();
+        atoms             = new IAtom[n];
+        element           = new int[n];
+        flags             = new int[n];
+        charge            = new int[n];
+        mass              = new int[n];
+        hybridization     = new int[n];
+        implicitHydrogens = new int[n];
+        totalHydrogens    = new int[n];
+        totalConnections  = new int[n];
+        ringConnections   = new int[n];
+        valency           = new int[n];
+        group             = new int[n];
+        smallestRing      = new int[n];
+        ringCount         = new int[n];
+        for (int i = 0; i < n; i++) {
+            IAtom atom = atomContainer.getAtom(i);
+            atoms[i] = atom;
+
+            String symbol = atom.getSymbol();
+            Integer atomicNumber = symbol == null ? null : PeriodicTable.getAtomicNumber(symbol);
+            element[i] = symbol == null ? NONE : atomicNumber == null ? -1 : atomicNumber;
+            group[i]   = atomicNumber == null ? NONE : value(PeriodicTable.getGroup(symbol));
+
+            boolean ring = atom.getFlag(CDKConstants.ISINRING);
+            if (atom.getFlag(CDKConstants.ISAROMATIC)) flags[i] |= AROMATIC;
+            if (ring) flags[i] |= RING;
+
+            charge[i]            = value(atom.getFormalCharge());
+            mass[i]              = value(atom.getMassNumber());
+            hybridization[i]     = atom.getHybridization() == null ? -1 : atom.getHybridization().ordinal();
+            implicitHydrogens[i] = atom.getImplicitHydrogenCount() == null ? 0 : atom.getImplicitHydrogenCount();
+            totalHydrogens[i]    = value(atom.getProperty(CDKConstants.TOTAL_H_COUNT));
+            totalConnections[i]  = value(atom.getProperty(CDKConstants.TOTAL_CONNECTIONS));
+            valency[i]           = value(atom.getValency());
+
+            if (ring) {
+                ringConnections[i] = value(atom.getProperty(CDKConstants.RING_CONNECTIONS));
+                smallestRing[i]    = smallest((List<?>) atom.getProperty(CDKConstants.RING_SIZES));
+                IRingSet rings     = (IRingSet) atom.getProperty(CDKConstants.SMALLEST_RINGS);
+                ringCount[i]       = rings == null ? NONE : rings.getAtomContainerCount();
+            }
+        }
+    }
+
+    /**
+     * Returns the molecule of these invariants.
+     *
+     * @return the molecule
+     */
+    @TestMethod("testInvariants")
+    public IAtomContainer getAtomContainer() {
+        return atomContainer;
+    }
+
+    /**
+     * Returns the number of atoms of the molecule.
+     *
+     * @return the number of atoms
+     */
+    @TestMethod("testInvariants")
+    public int getAtomCount() {
+        return atoms.length;
+    }
+
+    private static int value(Object value) {
+        return value == null ? NONE : (Integer) value;
+    }
+
+    private static int smallest(List<?> sizes) {
+        if (sizes == null) return 0;
+        int smallest = 0;
+        for (Object size : sizes) {
+            int value = (Integer) size;
+            if (smallest == 0 || value < smallest) smallest = value;
+        }
+        return smallest;
+    }
+}
@@ -51,7 +51,8 @@ public class MassAtom extends SMARTSAtom{
      * @see org.openscience.cdk.isomorphism.matchers.smarts.SMARTSAtom#matches(org.openscience.cdk.interfaces.IAtom)
      */
     public boolean matches(IAtom atom){
-        return atom.getMassNumber()==this.getMassNumber();
+        Integer massNumber = atom.getMassNumber();
+        return massNumber == null ? getMassNumber() == null : massNumber.equals(getMassNumber());
     }
     /* (non-Javadoc)
      * @see org.openscience.cdk.PseudoAtom#toString()
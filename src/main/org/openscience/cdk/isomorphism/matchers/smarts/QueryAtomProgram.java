@@ -0,0 +1,422 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
+
+/**
+ * A query atom compiled to a flat sequence of tests of the
+ * {@link AtomInvariants} of a target atom. The tree of a SMARTS atom
+ * expression such as <code>[C,N;H1;!R]</code>, which is matched by calling
+ * {@link IQueryAtom#matches(IAtom)} on each {@link LogicalOperatorAtom} and
+ * primitive, becomes a list of instructions that compare an array element
+ * with a constant, with jumps for the short-circuits of "and" and "or":
+ * <pre>
+ * QueryAtomProgram[] programs = QueryAtomProgram.compile(query);
+ * AtomInvariants invariants   = new AtomInvariants(molecule);
+ * boolean match = programs[0].matches(invariants, 3);
+ * SubgraphMappings mappings = new VF2IsomorphismTester(molecule).getSubgraphMappings(
+ *     molecule, query, QueryAtomProgram.matcher(programs, invariants));
+ * </pre>
+ *
+ * <p>A program matches the same atoms as its query atom. Primitives that
+ * depend on more than the invariants, like {@link HydrogenAtom}, are called
+ * from the program, as are those whose property is not set on a target atom;
+ * recursive SMARTS are looked up by the index of the target atom. Atoms that
+ * are not query atoms match atoms with the same symbol. A program refers to
+ * the primitives of its query, so it must be compiled again when the query
+ * changes, and may only be used where the query may be used.
+ *
+ * @cdk.module  smarts
+ * @cdk.githash
+ * @cdk.keyword SMARTS
+ * @see         AtomInvariants
+ */
+@TestClass("org.openscience.cdk.isomorphism.matchers.smarts.QueryAtomProgramTest")
+public final class QueryAtomProgram {
+
+    /*
+     * Each instruction is an operation, a constant, and the index of the
+     * primitive that the operation falls back to.
+     */
+    private static final int FALSE          = 0;
+    private static final int TRUE           = 1;
+    private static final int NOT            = 2;
+    private static final int JUMP_IF_FALSE  = 3;
+    private static final int JUMP_IF_TRUE   = 4;
+    private static final int PRIMITIVE      = 5;
+    private static final int SYMBOL         = 6;
+    private static final int RECURSIVE      = 7;
+    private static final int ELEMENT        = 8;
+    private static final int ALIPHATIC_ELEMENT = 9;
+    private static final int AROMATIC_ELEMENT  = 10;
+    private static final int AROMATIC       = 11;
+    private static final int ALIPHATIC      = 12;
+    private static final int ANY            = 13;
+    private static final int NON_CH_HEAVY   = 14;
+    private static final int CHARGE         = 15;
+    private static final int MASS           = 16;
+    private static final int HYBRIDIZATION  = 17;
+    private static final int IMPLICIT_H     = 18;
+    private static final int TOTAL_H        = 19;
+    private static final int CONNECTIONS    = 20;
+    private static final int EXPLICIT_CONNECTIONS = 21;
+    private static final int RING_CONNECTIONS     = 22;
+    private static final int VALENCY        = 23;
+    private static final int GROUP          = 24;
+    private static final int SMALLEST_RING  = 25;
+    private static final int RING_COUNT     = 26;
+
+    private static final String[] NAMES = {
+        "false", "true", "not", "jumpIfFalse", "jumpIfTrue", "primitive", "symbol",
+        "recursive", "element", "aliphaticElement", "aromaticElement", "aromatic",
+        "aliphatic", "any", "nonCHHeavy", "charge", "mass", "hybridization",
+        "implicitH", "totalH", "connections", "explicitConnections", "ringConnections",
+        "valency", "group", "smallestRing", "ringCount"
+    };
+
+    private final int[] code;
+    private final IAtom[] primitives;
+
+    private QueryAtomProgram(int[] code, IAtom[] primitives) {
+        this.code       = code;
+        this.primitives = primitives;
+    }
+
+    /**
+     * Compiles a query atom.
+     *
+     * @param  atom a query atom, or an atom that matches by its symbol
+     * @return      the program
+     */
+    @TestMethod("testCompile")
+    public static QueryAtomProgram compile(IAtom atom) {
+        Compiler compiler = new Compiler();
+        compiler.compile(atom);
+        return new QueryAtomProgram(
+            Arrays.copyOf(compiler.code, compiler.size),
+            compiler.primitives.toArray(new IAtom[compiler.primitives.size()])
+        );
+    }
+
+    /**
+     * Compiles the atoms of a query.
+     *
+     * @param  query the query
+     * @return       the programs of the atoms, in the order of the query
+     */
+    @TestMethod("testCompile_query")
+    public static QueryAtomProgram[] compile(IAtomContainer query) {
+        QueryAtomProgram[] programs = new QueryAtomProgram[query.getAtomCount()];
+        for (int i = 0; i < programs.length; i++)
+            programs[i] = compile(query.getAtom(i));
+        return programs;
+    }
+
+    /**
+     * Returns a matcher of the atoms of a query to the atoms of the molecule
+     * of the invariants, for a {@link VF2IsomorphismTester}.
+     *
+     * @param  programs   the programs of the atoms of the query
+     * @param  invariants the invariants of the target
+     * @return            the matcher
+     */
+    @TestMethod("testMatcher")
+    public static VF2IsomorphismTester.AtomMatcher matcher(final QueryAtomProgram[] programs,
+                                                           final AtomInvariants invariants) {
+        return new VF2IsomorphismTester.AtomMatcher() {
+            public boolean matches(int queryAtom, int targetAtom) {
+                return programs[queryAtom].matches(invariants, targetAtom);
+            }
+        };
+    }
+
+    /**
+     * Tests if an atom matches the query atom of this program.
+     *
+     * @param  invariants the invariants of the molecule
+     * @param  atom       the index of the atom in the molecule
+     * @return            true if the atom matches
+     */
+    @TestMethod("testCompile,testMatches_unset")
+    public boolean matches(AtomInvariants invariants, int atom) {
+        boolean match = false;
+        int[] code = this.code;
+        for (int pc = 0; pc < code.length; pc += 3) {
+            int arg = code[pc + 1], value;
+            switch (code[pc]) {
+                case FALSE:
+                    match = false;
+                    break;
+                case TRUE:
+                    match = true;
+                    break;
+                case NOT:
+                    match = !match;
+                    break;
+                case JUMP_IF_FALSE:
+                    if (!match) pc = arg - 3;
+                    break;
+                case JUMP_IF_TRUE:
+                    if (match) pc = arg - 3;
+                    break;
+                case PRIMITIVE:
+                    match = primitive(code[pc + 2], invariants, atom);
+                    break;
+                case SYMBOL:
+                    match = primitives[code[pc + 2]].getSymbol().equals(invariants.atoms[atom].getSymbol());
+                    break;
+                case RECURSIVE:
+                    RecursiveSmartsAtom recursive = (RecursiveSmartsAtom) primitives[code[pc + 2]];
+                    match = recursive.matches(invariants.atoms[atom],
+                        recursive.getAtomContainer() == invariants.atomContainer ? atom : -1);
+                    break;
+                case ELEMENT:
+                    value = invariants.element[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                case ALIPHATIC_ELEMENT:
+                    value = invariants.element[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                          : value == arg && (invariants.flags[atom] & AtomInvariants.AROMATIC) == 0;
+                    break;
+                case AROMATIC_ELEMENT:
+                    value = invariants.element[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                          : value == arg && (invariants.flags[atom] & AtomInvariants.AROMATIC) != 0;
+                    break;
+                case AROMATIC:
+                    match = (invariants.flags[atom] & AtomInvariants.AROMATIC) != 0;
+                    break;
+                case ALIPHATIC:
+                    match = (invariants.flags[atom] & AtomInvariants.AROMATIC) == 0;
+                    break;
+                case ANY:
+                    value = invariants.element[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                          : value != 1 || invariants.mass[atom] != AtomInvariants.NONE;
+                    break;
+                case NON_CH_HEAVY:
+                    value = invariants.element[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                          : value != 6 && value != 1;
+                    break;
+                case CHARGE:
+                    match = invariants.charge[atom] == arg;
+                    break;
+                case MASS:
+                    match = invariants.mass[atom] == arg;
+                    break;
+                case HYBRIDIZATION:
+                    match = invariants.hybridization[atom] == arg;
+                    break;
+                case IMPLICIT_H:
+                    match = invariants.implicitHydrogens[atom] == arg;
+                    break;
+                case TOTAL_H:
+                    value = invariants.totalHydrogens[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                case CONNECTIONS:
+                    match = invariants.totalConnections[atom] == arg;
+                    break;
+                case EXPLICIT_CONNECTIONS:
+                    value = invariants.totalConnections[atom];
+                    int hydrogens = invariants.totalHydrogens[atom];
+                    match = value == AtomInvariants.NONE || hydrogens == AtomInvariants.NONE
+                          ? primitive(code[pc + 2], invariants, atom)
+                          : value - hydrogens == arg;
+                    break;
+                case RING_CONNECTIONS:
+                    value = invariants.ringConnections[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                case VALENCY:
+                    value = invariants.valency[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                case GROUP:
+                    value = invariants.group[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                case SMALLEST_RING:
+                    match = invariants.smallestRing[atom] == arg;
+                    break;
+                case RING_COUNT:
+                    value = invariants.ringCount[atom];
+                    match = value == AtomInvariants.NONE ? primitive(code[pc + 2], invariants, atom)
+                                                         : value == arg;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + code[pc]);
+            }
+        }
+        return match;
+    }
+
+    private boolean primitive(int index, AtomInvariants invariants, int atom) {
+        return ((IQueryAtom) primitives[index]).matches(invariants.atoms[atom]);
+    }
+
+    /**
+     * Lists the instructions of this program.
+     */
+    @TestMethod("testToString")
+    public String toString() {
+        StringBuilder s = new StringBuilder("QueryAtomProgram(");
+        for (int pc = 0; pc < code.length; pc += 3) {
+            if (pc > 0) s.append(", ");
+            s.append(pc / 3).append(':').append(NAMES[code[pc]]);
+            if (code[pc] == JUMP_IF_FALSE || code[pc] == JUMP_IF_TRUE)
+                s.append(' ').append(code[pc + 1] / 3);
+            else if (code[pc] >= ELEMENT)
+                s.append(' ').append(code[pc + 1]);
+        }
+        return s.append(')').toString();
+    }
+
+    /**
+     * Translates the tree of a query atom to instructions. The operands of
+     * "and" and "or" are followed by a jump past the second operand if the
+     * first one decides the result.
+     */
+    private static final class Compiler {
+
+        private int[] code = new int[24];
+        private int size = 0;
+        private final List<IAtom> primitives = new ArrayList<IAtom>();
+
+        private int emit(int operation, int arg, IAtom primitive) {
+            if (size + 3 > code.length) code = Arrays.copyOf(code, 2 * code.length);
+            int pc = size;
+            code[size++] = operation;
+            code[size++] = arg;
+            code[size++] = primitive == null ? -1 : primitives.size();
+            if (primitive != null) primitives.add(primitive);
+            return pc;
+        }
+
+        private void compile(IAtom atom) {
+            if (atom instanceof LogicalOperatorAtom) {
+                LogicalOperatorAtom logical = (LogicalOperatorAtom) atom;
+                String operator = logical.getOperator();
+                if (logical.getRight() == null) {
+                    compile(logical.getLeft());
+                    if ("not".equals(operator)) emit(NOT, 0, null);
+                } else if ("and".equals(operator) || "or".equals(operator)) {
+                    compile(logical.getLeft());
+                    int jump = emit("and".equals(operator) ? JUMP_IF_FALSE : JUMP_IF_TRUE, 0, null);
+                    compile(logical.getRight());
+                    code[jump + 1] = size;
+                } else {
+                    emit(FALSE, 0, null);
+                }
+            } else if (atom instanceof RingIdentifierAtom && ((RingIdentifierAtom) atom).getAtom() != null) {
+                compile(((RingIdentifierAtom) atom).getAtom());
+            } else if (atom instanceof RecursiveSmartsAtom) {
+                emit(RECURSIVE, 0, atom);
+            } else if (atom instanceof AliphaticSymbolAtom) {
+                element(ALIPHATIC_ELEMENT, atom);
+            } else if (atom instanceof AromaticSymbolAtom) {
+                element(AROMATIC_ELEMENT, atom);
+            } else if (atom instanceof AtomicNumberAtom && atom.getAtomicNumber() != null) {
+                if (atom.getAtomicNumber() < 0) emit(FALSE, 0, null);
+                else emit(ELEMENT, atom.getAtomicNumber(), atom);
+            } else if (atom instanceof AromaticAtom) {
+                emit(AROMATIC, 0, null);
+            } else if (atom instanceof AliphaticAtom) {
+                emit(ALIPHATIC, 0, null);
+            } else if (atom instanceof AnyAtom) {
+                emit(ANY, 0, atom);
+            } else if (atom instanceof NonCHHeavyAtom) {
+                emit(NON_CH_HEAVY, 0, atom);
+            } else if (atom instanceof ChiralityAtom) {
+                emit(TRUE, 0, null);
+            } else if (atom instanceof FormalChargeAtom && atom.getFormalCharge() != null) {
+                emit(CHARGE, atom.getFormalCharge(), null);
+            } else if (atom instanceof MassAtom && atom.getMassNumber() != null) {
+                emit(MASS, atom.getMassNumber(), null);
+            } else if (atom instanceof HybridizationNumberAtom) {
+                IAtom.Hybridization hybridization = ((HybridizationNumberAtom) atom).hybridization;
+                emit(HYBRIDIZATION, hybridization == null ? -1 : hybridization.ordinal(), null);
+            } else if (atom instanceof ImplicitHCountAtom) {
+                Integer count = atom.getImplicitHydrogenCount();
+                if (count == null || count == 0) emit(FALSE, 0, null);
+                else emit(IMPLICIT_H, count, null);
+            } else if (atom instanceof TotalHCountAtom
+                       && atom.getProperty(CDKConstants.TOTAL_H_COUNT) != null) {
+                emit(TOTAL_H, ((TotalHCountAtom) atom).getHC(atom), atom);
+            } else if (atom instanceof TotalConnectionAtom) {
+                int count = ((TotalConnectionAtom) atom).getTC(atom);
+                if (count == 0) emit(FALSE, 0, null);
+                else emit(CONNECTIONS, count, null);
+            } else if (atom instanceof ExplicitConnectionAtom) {
+                emit(EXPLICIT_CONNECTIONS, ((ExplicitConnectionAtom) atom).getNumOfConnection(), atom);
+            } else if (atom instanceof TotalRingConnectionAtom) {
+                // the count of the query atom is only read if it is flagged as a ring atom
+                Object count = atom.getProperty(CDKConstants.RING_CONNECTIONS);
+                if (!atom.getFlag(CDKConstants.ISINRING) || count == null || (Integer) count == 0)
+                    emit(FALSE, 0, null);
+                else
+                    emit(RING_CONNECTIONS, (Integer) count, atom);
+            } else if (atom instanceof TotalValencyAtom && atom.getValency() != null) {
+                if (atom.getValency() == 0) emit(FALSE, 0, null);
+                else emit(VALENCY, atom.getValency(), atom);
+            } else if (atom instanceof PeriodicGroupNumberAtom) {
+                emit(GROUP, ((PeriodicGroupNumberAtom) atom).groupNumber, atom);
+            } else if (atom instanceof SmallestRingAtom) {
+                int size = ((SmallestRingAtom) atom).smallestRingSize;
+                if (size <= 0) emit(FALSE, 0, null);
+                else emit(SMALLEST_RING, size, null);
+            } else if (atom instanceof RingMembershipAtom) {
+                emit(RING_COUNT, ((RingMembershipAtom) atom).numSSSR, atom);
+            } else if (atom instanceof IQueryAtom) {
+                emit(PRIMITIVE, 0, atom);
+            } else {
+                emit(SYMBOL, 0, atom);
+            }
+        }
+
+        /**
+         * An element given by symbol, which is only compared by atomic number
+         * if the symbol is that of an element.
+         */
+        private void element(int operation, IAtom atom) {
+            Integer element = atom.getSymbol() == null ? null : PeriodicTable.getAtomicNumber(atom.getSymbol());
+            if (element == null) emit(PRIMITIVE, 0, atom);
+            else emit(operation, element, atom);
+        }
+    }
+}
@@ -24,23 +24,21 @@
 package org.openscience.cdk.isomorphism.matchers.smarts;
 
 import java.util.BitSet;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
-import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
-import org.openscience.cdk.isomorphism.mcss.RMap;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 
 /**
- * This matches recursive smarts atoms. 
+ * This matches recursive smarts atoms. An atom matches if the first atom of
+ * the recursive query can be mapped to it. The atoms that match are searched
+ * once for each target molecule, or once for all queries that share a
+ * {@link RecursiveSmartsCache} of the molecule.
  *
  * @cdk.module  smarts
  * @cdk.githash
@@ -60,12 +58,28 @@ public class RecursiveSmartsAtom extends SMARTSAtom {
 	 * The IQueryAtomContainer created by parsing the recursive smarts
 	 */
 	private IQueryAtomContainer recursiveQuery = null;
+
+	/**
+	 * The SMARTS of the recursive query, under which its matches are cached,
+	 * or null
+	 */
+	private String smarts = null;
+
+	/**
+	 * The matches of recursive queries shared with other queries, or null
+	 */
+	private RecursiveSmartsCache cache = null;
 	
 	/**
 	 * BitSet that records which atom in the target molecule matches the
 	 * recursive smarts
 	 */
 	private BitSet bitSet = null;
+
+	/**
+	 * The compiled atoms of the recursive query, or null
+	 */
+	private QueryAtomProgram[] programs = null;
 	
 	/**
 	 * Creates a new instance
@@ -73,14 +87,38 @@ public class RecursiveSmartsAtom extends SMARTSAtom {
 	 * @param query
 	 */
 	public RecursiveSmartsAtom(IQueryAtomContainer query) {
+		this(query, null);
+	}
+
+	/**
+	 * Creates a new instance, whose matches are shared with the recursive
+	 * smarts atoms with the same SMARTS.
+	 *
+	 * @param query  the recursive query
+	 * @param smarts the SMARTS of the query, without "$(" and ")"
+	 */
+	public RecursiveSmartsAtom(IQueryAtomContainer query, String smarts) {
 		super();
 		this.recursiveQuery = query;
+		this.smarts = smarts;
 	}
 	
     /* (non-Javadoc)
      * @see org.openscience.cdk.isomorphism.matchers.smarts.SMARTSAtom#matches(org.openscience.cdk.interfaces.IAtom)
      */
     public boolean matches(IAtom atom) {
+    	return matches(atom, -1);
+    }
+
+    /**
+     * Matches an atom whose index in the target molecule is known, which
+     * saves looking it up.
+     *
+     * @param atom       the atom
+     * @param atomNumber the index of the atom in the target molecule, or -1
+     * @return           true if the atom matches
+     */
+    boolean matches(IAtom atom, int atomNumber) {
     	if (recursiveQuery.getAtomCount() == 1) { // only one atom. Then just match that atom
     		return ((IQueryAtom)recursiveQuery.getAtom(0)).matches(atom);
     	}
@@ -100,86 +138,33 @@ public class RecursiveSmartsAtom extends SMARTSAtom {
         		return false;
     		}
     	}
-    	int atomNumber = atomContainer.getAtomNumber(atom);
+    	if (atomNumber < 0) atomNumber = atomContainer.getAtomNumber(atom);
         return bitSet.get(atomNumber);
     }
     
     /**
      * This method calculates all possible matches of this recursive smarts
-     * to the AtomContainer. It set the index of the first atom of each match
-     * in the bitset to be true.
+     * to the AtomContainer. It set the index of each atom the first atom of
+     * the recursive smarts can be mapped to in the bitset to be true. The
+     * bitset is taken from the cache if another query has calculated it,
+     * and otherwise searched with the compiled atoms of the query.
      * 
      * @throws CDKException
      */
     private void initilizeBitSets() throws CDKException {
-		List<List<RMap>> bondMappings = null;
-		bondMappings = new UniversalIsomorphismTester().getSubgraphMaps(atomContainer, recursiveQuery);
-
-		bitSet = new BitSet(atomContainer.getAtomCount());
-		
-		for (List<RMap> bondMapping : bondMappings) {
-			Collections.sort(bondMapping, new Comparator<RMap>() {
-				public int compare(RMap r1, RMap r2) {
-					if (r1.getId2() > r2.getId2()) return 1;
-					else if (r1.getId2() == r2.getId2()) return 0;
-					else return -1;
-				}
-			});
-			RMap rmap0 = bondMapping.get(0);
-			IBond bond0 = atomContainer.getBond(rmap0.getId1());
-			IAtom atom0 = bond0.getAtom(0);
-			IAtom atom1 = bond0.getAtom(1);				
-			IBond qbond0 = recursiveQuery.getBond(rmap0.getId2());
-			IQueryAtom qatom0 = (IQueryAtom)qbond0.getAtom(0);
-			IQueryAtom qatom1 = (IQueryAtom)qbond0.getAtom(1);
-			
-			if ( (qatom0.matches(atom0) && qatom1.matches(atom1))
-					&& (qatom0.matches(atom1) && qatom1.matches(atom0)) ) { // they match each other no matter what order
-				if (bondMapping.size() > 1) { // look for the second bond
-					IBond bond1 = atomContainer.getBond(bondMapping.get(1).getId1());
-					IBond qbond1 = recursiveQuery.getBond(bondMapping.get(1).getId2());
-					if (recursiveQuery.getAtomNumber(qatom0) == 0) {
-						if (qbond1.contains(qatom0) && bond1.contains(atom0)) { // atom0 <-> qatom0
-							bitSet.set(atomContainer.getAtomNumber(atom0), true);
-						} else if (qbond1.contains(qatom0) && bond1.contains(atom1)) { // atom1 <-> qatom0
-							bitSet.set(atomContainer.getAtomNumber(atom1), true);
-						} else if (!qbond1.contains(qatom0) && bond1.contains(atom0)) { // ! (qatom0 <-> atom0)
-							bitSet.set(atomContainer.getAtomNumber(atom1), true);
-						} else { // (!qbond1.contains(qatom0) && bond1.contains(atom1) // ! (qatom0 <-> atom1 ) 
-							bitSet.set(atomContainer.getAtomNumber(atom0), true);							
-						}
-					} else {
-						if (qbond1.contains(qatom1) && bond1.contains(atom0)) { 
-							bitSet.set(atomContainer.getAtomNumber(atom0), true);
-						} else if (qbond1.contains(qatom1) && bond1.contains(atom1)) {
-							bitSet.set(atomContainer.getAtomNumber(atom1), true);
-						} else if (!qbond1.contains(qatom1) && bond1.contains(atom1)) {
-							bitSet.set(atomContainer.getAtomNumber(atom0), true);
-						} else {
-							bitSet.set(atomContainer.getAtomNumber(atom1), true);							
-						}						
-					}
-				} else {
-					// both matches
-					bitSet.set(atomContainer.getAtomNumber(atom1), true);
-					bitSet.set(atomContainer.getAtomNumber(atom0), true);
-				}
-			} else {
-				if (recursiveQuery.getAtomNumber(qatom0) == 0) { // starts from qatom1
-					if (qatom0.matches(atom0) && qatom1.matches(atom1)) {
-						bitSet.set(atomContainer.getAtomNumber(atom0), true);
-					} else {
-						bitSet.set(atomContainer.getAtomNumber(atom1), true);
-					}
-				} else { // qatom1 is the first atom
-					if (qatom0.matches(atom1) && qatom1.matches(atom0)) {
-						bitSet.set(atomContainer.getAtomNumber(atom0), true);
-					} else {
-						bitSet.set(atomContainer.getAtomNumber(atom1), true);
-					}
-				}
-			}
-		}    		
+    	boolean cached = cache != null && smarts != null && cache.getAtomContainer() == atomContainer;
+    	if (cached) {
+    		bitSet = cache.get(smarts);
+    		if (bitSet != null) return;
+    	}
+    	if (cached) {
+    		if (programs == null) programs = QueryAtomProgram.compile(recursiveQuery);
+    		bitSet = cache.tester.getMappedAtoms(atomContainer, recursiveQuery, 0,
+    		                                     QueryAtomProgram.matcher(programs, cache.getInvariants()));
+    	} else {
+    		bitSet = new VF2IsomorphismTester().getMappedAtoms(atomContainer, recursiveQuery, 0);
+    	}
+    	if (cached) cache.put(smarts, bitSet);
     }
 
 	public IQueryAtomContainer getRecursiveQuery() {
@@ -188,6 +173,18 @@ public class RecursiveSmartsAtom extends SMARTSAtom {
 
 	public void setRecursiveQuery(IQueryAtomContainer query) {
 		this.recursiveQuery = query;
+		this.smarts = null; // the query no longer has this SMARTS
+		this.bitSet = null;
+		this.programs = null;
+	}
+
+	/**
+	 * Returns the SMARTS of the recursive query, without "$(" and ")".
+	 *
+	 * @return the SMARTS, or null if it is not known
+	 */
+	public String getSmarts() {
+		return smarts;
 	}
 
 	public IAtomContainer getAtomContainer() {
@@ -195,7 +192,20 @@ public class RecursiveSmartsAtom extends SMARTSAtom {
 	}
 
 	public void setAtomContainer(IAtomContainer atomContainer) {
+		setAtomContainer(atomContainer, null);
+	}
+
+	/**
+	 * Sets the target molecule, and the cache in which the matches against
+	 * it are shared with other queries. The cache is only used if it is the
+	 * cache of this molecule.
+	 *
+	 * @param atomContainer the target molecule
+	 * @param cache         the cache of the molecule, or null
+	 */
+	public void setAtomContainer(IAtomContainer atomContainer, RecursiveSmartsCache cache) {
 		this.atomContainer = atomContainer;
+		this.cache = cache;
 		this.bitSet = null; // new atom container, reset matching bitset.
 	}
 }
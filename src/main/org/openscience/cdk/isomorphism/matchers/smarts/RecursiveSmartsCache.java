@@ -0,0 +1,129 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
+
+/**
+ * The atoms of one molecule matched by recursive SMARTS, shared by all
+ * queries matched against the molecule. A recursive SMARTS such as
+ * <code>$(C=O)</code> is searched once in the molecule, when an atom is
+ * first matched against it, and the atoms it matches are kept under the
+ * SMARTS of the fragment. Other queries with the same fragment then use
+ * these atoms.
+ *
+ * <p>The cache is the scope in which the matches are valid: it is created
+ * for a molecule after the molecule is prepared for SMARTS matching, and
+ * must be cleared or dropped when the molecule changes. A cache is not
+ * thread-safe, so each thread matching the molecule needs its own.
+ * <pre>
+ * RecursiveSmartsCache cache = new RecursiveSmartsCache(molecule);
+ * for (SMARTSQueryTool tool : tools) {
+ *     if (tool.matches(molecule, cache)) ...
+ * }
+ * </pre>
+ *
+ * @cdk.module  smarts
+ * @cdk.githash
+ * @cdk.keyword SMARTS
+ * @see         RecursiveSmartsAtom
+ */
+@TestClass("org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsCacheTest")
+public final class RecursiveSmartsCache {
+
+    private final IAtomContainer atomContainer;
+    private final Map<String, BitSet> matches = new HashMap<String, BitSet>();
+    /** A tester that indexes the bonds of the molecule once. */
+    final VF2IsomorphismTester tester;
+    private AtomInvariants invariants = null;
+
+    /**
+     * Creates an empty cache for a molecule.
+     *
+     * @param atomContainer the molecule
+     */
+    @TestMethod("testGetAtomContainer")
+    public RecursiveSmartsCache(IAtomContainer atomContainer) {
+        this.atomContainer = atomContainer;
+        this.tester = new VF2IsomorphismTester(atomContainer);
+    }
+
+    /**
+     * Returns the molecule of this cache.
+     *
+     * @return the molecule
+     */
+    @TestMethod("testGetAtomContainer")
+    public IAtomContainer getAtomContainer() {
+        return atomContainer;
+    }
+
+    /**
+     * Returns the number of recursive SMARTS whose matches are kept.
+     *
+     * @return the number of fragments
+     */
+    @TestMethod("testSize")
+    public int size() {
+        return matches.size();
+    }
+
+    /**
+     * Returns the invariants of the atoms of the molecule, which are read
+     * when they are first needed, and shared by the queries matched against
+     * the molecule.
+     *
+     * @return the invariants
+     */
+    @TestMethod("testGetInvariants")
+    public AtomInvariants getInvariants() {
+        if (invariants == null) invariants = new AtomInvariants(atomContainer);
+        return invariants;
+    }
+
+    /**
+     * Removes all matches and the invariants, which are searched and read
+     * again when they are next needed. This ends the scope of the matches if
+     * the molecule has changed.
+     */
+    @TestMethod("testClear")
+    public void clear() {
+        matches.clear();
+        invariants = null;
+    }
+
+    /**
+     * The atoms matched by a recursive SMARTS, or null if they are not
+     * known yet.
+     */
+    BitSet get(String smarts) {
+        return matches.get(smarts);
+    }
+
+    void put(String smarts, BitSet atoms) {
+        matches.put(smarts, atoms);
+    }
+}
@@ -35,7 +35,7 @@ public class RingMembershipAtom extends SMARTSAtom {
 	/**
 	 * Number of SSSR
 	 */
-	private int numSSSR;
+	int numSSSR;
 
 	public RingMembershipAtom(int num) {
 		this.numSSSR = num;
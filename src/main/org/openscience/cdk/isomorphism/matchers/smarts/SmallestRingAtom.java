@@ -38,7 +38,7 @@ public class SmallestRingAtom extends SMARTSAtom {
 	/**
 	 * The size of the smallest SSSR
 	 */
-	private int smallestRingSize;
+	int smallestRingSize;
 
 	public SmallestRingAtom(int size) {
 		this.smallestRingSize = size;
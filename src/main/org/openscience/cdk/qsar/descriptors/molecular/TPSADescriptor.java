@@ -33,7 +33,7 @@ import org.openscience.cdk.qsar.DescriptorValue;
 import org.openscience.cdk.qsar.IMolecularDescriptor;
 import org.openscience.cdk.qsar.result.DoubleResult;
 import org.openscience.cdk.qsar.result.IDescriptorResult;
-import org.openscience.cdk.ringsearch.AllRingsFinder;
+import org.openscience.cdk.ringsearch.RingPerception;
 import org.openscience.cdk.tools.CDKHydrogenAdder;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
@@ -237,7 +237,7 @@ public class TPSADescriptor implements IMolecularDescriptor {
         // calculate the set of all rings
         IRingSet rs;
         try {
-            rs = (new AllRingsFinder()).findAllRings(ac);
+            rs = RingPerception.getInstance(ac).getAllRings();
         } catch (CDKException e) {
             return getDummyDescriptorValue(e);
         }
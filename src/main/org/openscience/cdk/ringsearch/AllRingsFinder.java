@@ -61,6 +61,20 @@ import org.openscience.cdk.tools.LoggingToolFactory;
  * Example: given a complex atom container and a maxRingSize of six, the find method 
  * will return all rings only of size six or smaller.
  *
+ * <p>With a path limit set by {@link #setPathLimit(int)}, the search does not
+ * depend on a timeout. It then keeps the atoms and bonds of each path as bit
+ * sets, drops every path that cannot become a ring of at most maxRingSize
+ * atoms, and throws a {@link PathLimitExceededException} as soon as a ring
+ * system needs more paths than the limit, so that the result does not depend
+ * on the speed or load of the machine. With
+ * {@link #setFallbackToRelevantRings(boolean)} the search returns the
+ * relevant rings of such a ring system instead, as found by the
+ * {@link SSSRFinder}.
+ * <pre>
+ * AllRingsFinder finder = new AllRingsFinder(false).setPathLimit(10000);
+ * IRingSet rings = finder.findAllRings(molecule, 8);
+ * </pre>
+ *
  * @author        steinbeck
  * @cdk.created   2002-06-23
  * @cdk.module    standard
@@ -74,6 +88,8 @@ public class AllRingsFinder
 	public boolean debug = false;
 	private long timeout = 5000;
 	private long startTime;
+	private int pathLimit = 0;
+	private boolean fallbackToRelevantRings = false;
 
 	/*
 	 *  used for storing the original atomContainer for
@@ -162,6 +178,9 @@ public class AllRingsFinder
    */
     public IRingSet findAllRingsInIsolatedRingSystem(IAtomContainer atomContainer, Integer maxRingSize) throws CDKException 
   {
+        if (pathLimit > 0) {
+            return findAllRingsWithPathLimit(atomContainer, maxRingSize);
+        }
         if (startTime == 0) {
             startTime = System.currentTimeMillis();
         }
@@ -442,5 +461,212 @@ public class AllRingsFinder
 	{
 		return timeout;
 	}
-}
 
+
+    /**
+     *  Sets the maximum number of paths the search may keep at one time,
+     *  which makes it stop with a {@link PathLimitExceededException} instead
+     *  of a timeout. A limit of zero, the default, restores the search with
+     *  a timeout.
+     *
+     *@param  pathLimit  The new path limit, or zero for no limit
+     *@return            a reference to the instance this method was called for
+     */
+    @TestMethod("testSetPathLimit_int")
+    public AllRingsFinder setPathLimit(int pathLimit)
+    {
+        if (pathLimit < 0) throw new IllegalArgumentException("The path limit must not be negative");
+        this.pathLimit = pathLimit;
+        return this;
+    }
+
+
+    /**
+     *  Gets the maximum number of paths the search may keep at one time.
+     *
+     *@return    The path limit, or zero if the search has a timeout instead
+     */
+    @TestMethod("testGetPathLimit")
+    public int getPathLimit()
+    {
+        return pathLimit;
+    }
+
+
+    /**
+     *  Sets whether the relevant rings are returned for a ring system that
+     *  exceeds the path limit, instead of throwing a
+     *  {@link PathLimitExceededException}.
+     *
+     *@param  fallbackToRelevantRings  true to return the relevant rings
+     *@return                          a reference to the instance this method was called for
+     */
+    @TestMethod("testSetFallbackToRelevantRings_boolean")
+    public AllRingsFinder setFallbackToRelevantRings(boolean fallbackToRelevantRings)
+    {
+        this.fallbackToRelevantRings = fallbackToRelevantRings;
+        return this;
+    }
+
+
+    /**
+     *  Gets whether the relevant rings are returned for a ring system that
+     *  exceeds the path limit.
+     *
+     *@return    true if the relevant rings are returned
+     */
+    @TestMethod("testSetFallbackToRelevantRings_boolean")
+    public boolean isFallbackToRelevantRings()
+    {
+        return fallbackToRelevantRings;
+    }
+
+
+    /**
+     *  Finds the rings of a ring system with the path graph of bit sets,
+     *  falling back to the relevant rings if the path limit is exceeded and
+     *  the fallback is enabled.
+     */
+    private IRingSet findAllRingsWithPathLimit(IAtomContainer atomContainer, Integer maxRingSize) throws CDKException
+    {
+        int maxSize = maxRingSize == null ? Integer.MAX_VALUE : maxRingSize;
+        IRingSet ringSet = atomContainer.getBuilder().newInstance(IRingSet.class);
+        try {
+            new PathGraph(new RingGraph(atomContainer), pathLimit).search(ringSet, maxSize);
+        } catch (PathLimitExceededException exception) {
+            if (!fallbackToRelevantRings) throw exception;
+            if (logger != null)
+                logger.debug("Path limit of ", pathLimit, " exceeded, returning the relevant rings");
+            ringSet.removeAllAtomContainers();
+            for (IAtomContainer ring : new SSSRFinder(atomContainer).findRelevantRings().atomContainers()) {
+                if (ring.getAtomCount() <= maxSize) ringSet.addAtomContainer(ring);
+            }
+        }
+        return ringSet;
+    }
+
+
+    /**
+     * The path graph of {@cdk.cite HAN96} with the atoms and bonds of each
+     * path as bit sets over the indices of a {@link RingGraph}. Atoms are
+     * removed in the order of their degree in the path graph, and the paths
+     * through a removed atom are joined pairwise; two paths with the same
+     * ends and no other common atom form a ring.
+     */
+    private static final class PathGraph {
+
+        private final RingGraph graph;
+        private final int pathLimit;
+        private final int atomWords, bondWords;
+        /** The number of paths that end in each atom, -1 for removed atoms. */
+        private final int[] degree;
+        private List<BitPath> paths;
+
+        PathGraph(RingGraph graph, int pathLimit) {
+            this.graph = graph;
+            this.pathLimit = pathLimit;
+            atomWords = (graph.atoms.length + 63) >> 6;
+            bondWords = (graph.bonds.length + 63) >> 6;
+            degree = new int[graph.atoms.length];
+            paths = new ArrayList<BitPath>(graph.bonds.length);
+            for (int bond = 0; bond < graph.bonds.length; bond++) {
+                if (graph.begin[bond] < 0) continue;
+                paths.add(new BitPath(bond));
+                degree[graph.begin[bond]]++;
+                degree[graph.end[bond]]++;
+            }
+        }
+
+        /**
+         * Removes the atoms one by one, adding the rings of at most maxSize
+         * atoms to the ring set.
+         */
+        void search(IRingSet ringSet, int maxSize) throws PathLimitExceededException {
+            if (paths.size() > pathLimit) throw new PathLimitExceededException(pathLimit);
+            List<BitPath> incident = new ArrayList<BitPath>();
+            while (!paths.isEmpty()) {
+                int atom = selectAtom();
+                List<BitPath> remaining = new ArrayList<BitPath>(paths.size());
+                incident.clear();
+                for (BitPath path : paths) {
+                    if (path.first == atom || path.last == atom) incident.add(path);
+                    else remaining.add(path);
+                }
+                degree[atom] = -1;
+                paths = remaining;
+                for (int i = 0; i < incident.size(); i++) {
+                    BitPath path1 = incident.get(i);
+                    int end1 = path1.other(atom);
+                    degree[end1]--;
+                    for (int j = i + 1; j < incident.size(); j++) {
+                        BitPath path2 = incident.get(j);
+                        int end2 = path2.other(atom);
+                        int length = path1.length + path2.length;
+                        int shared = path1.sharedAtoms(path2);
+                        if (end1 == end2) {
+                            if (shared == 2 && length >= 3 && length <= maxSize)
+                                ringSet.addAtomContainer(graph.ring(atom, path1.joinBonds(path2)));
+                        } else if (shared == 1 && length < maxSize) {
+                            paths.add(new BitPath(path1, path2, end1, end2));
+                            degree[end1]++;
+                            degree[end2]++;
+                            if (paths.size() > pathLimit) throw new PathLimitExceededException(pathLimit);
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Selects the atom with the fewest paths that still has one. */
+        private int selectAtom() {
+            int minAtom = -1;
+            for (int atom = 0; atom < degree.length; atom++) {
+                if (degree[atom] > 0 && (minAtom < 0 || degree[atom] < degree[minAtom])) minAtom = atom;
+            }
+            return minAtom;
+        }
+
+        /** A path between two atoms with its atoms and bonds as bit sets. */
+        private final class BitPath {
+
+            final int first, last, length;
+            final long[] atoms, bonds;
+
+            BitPath(int bond) {
+                first  = graph.begin[bond];
+                last   = graph.end[bond];
+                length = 1;
+                atoms  = new long[atomWords];
+                bonds  = new long[bondWords];
+                atoms[first >> 6] |= 1L << first;
+                atoms[last >> 6]  |= 1L << last;
+                bonds[bond >> 6]  |= 1L << bond;
+            }
+
+            BitPath(BitPath path1, BitPath path2, int first, int last) {
+                this.first = first;
+                this.last  = last;
+                length = path1.length + path2.length;
+                atoms  = new long[atomWords];
+                for (int i = 0; i < atomWords; i++) atoms[i] = path1.atoms[i] | path2.atoms[i];
+                bonds  = path1.joinBonds(path2);
+            }
+
+            int other(int atom) {
+                return first == atom ? last : first;
+            }
+
+            int sharedAtoms(BitPath path) {
+                int count = 0;
+                for (int i = 0; i < atomWords; i++) count += Long.bitCount(atoms[i] & path.atoms[i]);
+                return count;
+            }
+
+            long[] joinBonds(BitPath path) {
+                long[] union = new long[bondWords];
+                for (int i = 0; i < bondWords; i++) union[i] = bonds[i] | path.bonds[i];
+                return union;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.ringsearch;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+
+/**
+ * Exception thrown by the {@link AllRingsFinder} when the search for all
+ * rings needs more paths than its path limit allows. The ring system is too
+ * complex to enumerate all of its rings, whatever the load of the machine.
+ *
+ * @cdk.module standard
+ * @cdk.githash
+ * @see        AllRingsFinder#setPathLimit(int)
+ */
+@TestClass("org.openscience.cdk.ringsearch.AllRingsFinderTest")
+public class PathLimitExceededException extends CDKException {
+
+    private static final long serialVersionUID = -6384934587321648291L;
+
+    private final int pathLimit;
+
+    /**
+     * Constructs a new PathLimitExceededException.
+     *
+     * @param pathLimit the path limit that was exceeded
+     */
+    @TestMethod("testSetPathLimit_int")
+    public PathLimitExceededException(int pathLimit) {
+        super("The ring search needs more than " + pathLimit + " paths");
+        this.pathLimit = pathLimit;
+    }
+
+    /**
+     * Returns the path limit that was exceeded.
+     *
+     * @return the path limit
+     */
+    @TestMethod("testSetPathLimit_int")
+    public int getPathLimit() {
+        return pathLimit;
+    }
+}
@@ -0,0 +1,460 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.ringsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The relevant cycles of a molecule, which are the union of all its minimum
+ * cycle bases, with one minimum cycle basis (the SSSR) and the essential
+ * cycles, which are in every minimum cycle basis. This is the algorithm of
+ * {@cdk.cite VIS97}: every vertex r generates prototype cycles from shortest
+ * paths over the vertices ranked below it, and a prototype is relevant if it
+ * is independent of the shorter prototypes. A relevant prototype stands for
+ * the family of cycles with the same ends through other shortest paths. The
+ * cycles are bit sets of bond indices, and independence is tested by
+ * Gaussian elimination over these bit sets.
+ *
+ * <p>Multiple bonds between the same atoms count once, as in a simple graph.
+ *
+ * @cdk.module standard
+ * @cdk.githash
+ */
+final class RelevantCycleSearch {
+
+    private final RingGraph graph;
+    private final int atomWords, bondWords;
+    /** The neighbours of each atom in the cyclic part of the graph, and the bonds to them. */
+    private final int[][] neighbours, neighbourBonds;
+
+    private final List<Cycle> sssr = new ArrayList<Cycle>();
+    private final List<Cycle> relevant = new ArrayList<Cycle>();
+    private final List<Cycle> essential = new ArrayList<Cycle>();
+
+    RelevantCycleSearch(RingGraph graph) {
+        this.graph = graph;
+        int n = graph.atoms.length;
+        atomWords = (n + 63) >> 6;
+        bondWords = (graph.bonds.length + 63) >> 6;
+        neighbours = new int[n][];
+        neighbourBonds = new int[n][];
+        int circuitRank = findCyclicPart();
+        if (circuitRank == 0) return;
+
+        List<Cycle> prototypes = findPrototypes();
+        Collections.sort(prototypes, new Comparator<Cycle>() {
+            public int compare(Cycle cycle1, Cycle cycle2) {
+                return cycle1.length - cycle2.length;
+            }
+        });
+        selectCycles(prototypes, circuitRank);
+    }
+
+    /** Returns a minimum cycle basis. */
+    List<Cycle> sssr() {
+        return sssr;
+    }
+
+    /** Returns the cycles that are in some minimum cycle basis. */
+    List<Cycle> relevant() {
+        return relevant;
+    }
+
+    /** Returns the cycles that are in every minimum cycle basis. */
+    List<Cycle> essential() {
+        return essential;
+    }
+
+    /**
+     * Fills the neighbours of the atoms that remain when atoms with one
+     * neighbour are removed repeatedly; the other atoms get no neighbours.
+     *
+     * @return the number of independent cycles
+     */
+    private int findCyclicPart() {
+        int n = graph.atoms.length;
+        int[] mark = new int[n];
+        int[] degree = new int[n];
+        boolean[] duplicate = new boolean[graph.bonds.length];
+        for (int atom = 0; atom < n; atom++) {
+            for (int bond : graph.incident[atom]) {
+                int other = graph.other(bond, atom);
+                if (mark[other] == atom + 1) duplicate[bond] = true;
+                else if (!duplicate[bond]) {
+                    mark[other] = atom + 1;
+                    degree[atom]++;
+                }
+            }
+        }
+
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int atom = 0; atom < n; atom++)
+            if (degree[atom] <= 1) queue[tail++] = atom;
+        boolean[] removed = new boolean[n];
+        while (head < tail) {
+            int atom = queue[head++];
+            removed[atom] = true;
+            for (int bond : graph.incident[atom]) {
+                int other = graph.other(bond, atom);
+                if (!duplicate[bond] && !removed[other] && --degree[other] == 1) queue[tail++] = other;
+            }
+        }
+
+        // the circuit rank is edges - vertices + components of the cyclic part
+        int vertices = 0, edges = 0, components = 0;
+        int[] component = new int[n];
+        for (int atom = 0; atom < n; atom++) {
+            neighbours[atom] = new int[removed[atom] ? 0 : degree[atom]];
+            neighbourBonds[atom] = new int[neighbours[atom].length];
+            int count = 0;
+            for (int bond : graph.incident[atom]) {
+                int other = graph.other(bond, atom);
+                if (removed[atom] || duplicate[bond] || removed[other]) continue;
+                neighbours[atom][count] = other;
+                neighbourBonds[atom][count++] = bond;
+            }
+            if (removed[atom]) continue;
+            vertices++;
+            edges += count;
+            if (component[atom] != 0) continue;
+            components++;
+            head = tail = 0;
+            queue[tail++] = atom;
+            component[atom] = components;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int bond : graph.incident[current]) {
+                    int other = graph.other(bond, current);
+                    if (!removed[other] && component[other] == 0) {
+                        component[other] = components;
+                        queue[tail++] = other;
+                    }
+                }
+            }
+        }
+        return edges / 2 - vertices + components;
+    }
+
+    /**
+     * Generates the prototypes: for every vertex r, a breadth first search
+     * over the vertices ranked below r finds one shortest path to every
+     * vertex y, and two shortest paths that meet only in r form an odd cycle
+     * with an edge between their ends, or an even cycle with two edges to a
+     * common vertex y.
+     */
+    private List<Cycle> findPrototypes() {
+        int n = graph.atoms.length;
+        final int[] degree = new int[n];
+        Integer[] order = new Integer[n];
+        for (int atom = 0; atom < n; atom++) {
+            degree[atom] = neighbours[atom].length;
+            order[atom] = atom;
+        }
+        // vertices of low degree first, so that the searches from them are small
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer atom1, Integer atom2) {
+                if (degree[atom1] != degree[atom2]) return degree[atom1] - degree[atom2];
+                return atom1 - atom2;
+            }
+        });
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) rank[order[i]] = i;
+
+        List<Cycle> prototypes = new ArrayList<Cycle>();
+        int[] dist = new int[n];
+        int[] queue = new int[n];
+        long[][] pathAtoms = new long[n][], pathBonds = new long[n][];
+        int[] previous = new int[n], previousBonds = new int[n];
+        for (int i = 0; i < n; i++) {
+            int root = order[i];
+            if (degree[root] == 0) continue;
+            Arrays.fill(dist, -1);
+            ShortestPaths paths = new ShortestPaths(root, n);
+            int head = 0, tail = 0;
+            queue[tail++] = root;
+            dist[root] = 0;
+            pathAtoms[root] = new long[atomWords];
+            pathAtoms[root][root >> 6] |= 1L << root;
+            pathBonds[root] = new long[bondWords];
+            while (head < tail) {
+                int atom = queue[head++];
+                for (int j = 0; j < neighbours[atom].length; j++) {
+                    int other = neighbours[atom][j], bond = neighbourBonds[atom][j];
+                    if (rank[other] > i) continue;
+                    if (dist[other] < 0) {
+                        dist[other] = dist[atom] + 1;
+                        queue[tail++] = other;
+                        pathAtoms[other] = pathAtoms[atom].clone();
+                        pathAtoms[other][other >> 6] |= 1L << other;
+                        pathBonds[other] = pathBonds[atom].clone();
+                        pathBonds[other][bond >> 6] |= 1L << bond;
+                    }
+                    if (dist[other] == dist[atom] + 1) paths.addPredecessor(other, atom, bond);
+                }
+            }
+
+            int found = prototypes.size();
+            for (int k = 1; k < tail; k++) {
+                int y = queue[k];
+                int count = 0;
+                for (int j = 0; j < neighbours[y].length; j++) {
+                    int z = neighbours[y][j], bond = neighbourBonds[y][j];
+                    if (rank[z] > i) continue;
+                    if (dist[z] + 1 == dist[y]) {
+                        previous[count] = z;
+                        previousBonds[count++] = bond;
+                    } else if (dist[z] == dist[y] && z < y && meetInRoot(pathAtoms[y], pathAtoms[z])) {
+                        long[] bonds = union(pathBonds[y], pathBonds[z]);
+                        bonds[bond >> 6] |= 1L << bond;
+                        prototypes.add(new Cycle(paths, y, z, new int[]{bond}, bonds, 2 * dist[y] + 1));
+                    }
+                }
+                for (int p = 0; p < count; p++) {
+                    for (int q = p + 1; q < count; q++) {
+                        if (!meetInRoot(pathAtoms[previous[p]], pathAtoms[previous[q]])) continue;
+                        long[] bonds = union(pathBonds[previous[p]], pathBonds[previous[q]]);
+                        bonds[previousBonds[p] >> 6] |= 1L << previousBonds[p];
+                        bonds[previousBonds[q] >> 6] |= 1L << previousBonds[q];
+                        prototypes.add(new Cycle(paths, previous[p], previous[q],
+                                                 new int[]{previousBonds[p], previousBonds[q]},
+                                                 bonds, 2 * dist[y]));
+                    }
+                }
+            }
+            if (prototypes.size() > found) paths.trim();
+        }
+        return prototypes;
+    }
+
+    /**
+     * Selects the relevant prototypes, length by length, with their
+     * families, the minimum cycle basis and the essential cycles.
+     */
+    private void selectCycles(List<Cycle> prototypes, int circuitRank) {
+        Basis basis = new Basis();
+        for (int i = 0; i < prototypes.size() && basis.size() < circuitRank;) {
+            int length = prototypes.get(i).length, end = i;
+            while (end < prototypes.size() && prototypes.get(end).length == length) end++;
+
+            // relevant prototypes are independent of all shorter cycles
+            Basis shorter = basis.copy();
+            List<Cycle> group = new ArrayList<Cycle>();
+            for (Cycle prototype : prototypes.subList(i, end)) {
+                if (shorter.isIndependent(prototype.bonds)) group.add(prototype);
+            }
+            for (Cycle prototype : group) {
+                if (basis.add(prototype.bonds)) sssr.add(prototype);
+            }
+            for (Cycle prototype : group) {
+                List<Cycle> family = prototype.family();
+                relevant.addAll(family);
+                if (family.size() > 1) continue;
+                // essential if no other cycle of the same length can replace it
+                Basis others = shorter.copy();
+                for (Cycle other : group)
+                    if (other != prototype) others.add(other.bonds);
+                if (others.isIndependent(prototype.bonds)) essential.add(prototype);
+            }
+            i = end;
+        }
+    }
+
+    private boolean meetInRoot(long[] atoms1, long[] atoms2) {
+        int shared = 0;
+        for (int i = 0; i < atomWords; i++) shared += Long.bitCount(atoms1[i] & atoms2[i]);
+        return shared == 1;
+    }
+
+    private static long[] union(long[] set1, long[] set2) {
+        long[] union = set1.clone();
+        for (int i = 0; i < union.length; i++) union[i] |= set2[i];
+        return union;
+    }
+
+    /**
+     * The shortest paths from a root over the vertices ranked below it, as
+     * the predecessors of every vertex on them.
+     */
+    private final class ShortestPaths {
+
+        final int root;
+        final int[][] predecessors, predecessorBonds;
+        final int[] count;
+
+        ShortestPaths(int root, int n) {
+            this.root = root;
+            predecessors = new int[n][];
+            predecessorBonds = new int[n][];
+            count = new int[n];
+        }
+
+        void addPredecessor(int atom, int predecessor, int bond) {
+            if (predecessors[atom] == null) {
+                predecessors[atom] = new int[neighbours[atom].length];
+                predecessorBonds[atom] = new int[neighbours[atom].length];
+            }
+            predecessors[atom][count[atom]] = predecessor;
+            predecessorBonds[atom][count[atom]++] = bond;
+        }
+
+        /** Drops the unused space, as these paths are kept for a family. */
+        void trim() {
+            for (int atom = 0; atom < count.length; atom++) {
+                if (predecessors[atom] == null) continue;
+                predecessors[atom] = Arrays.copyOf(predecessors[atom], count[atom]);
+                predecessorBonds[atom] = Arrays.copyOf(predecessorBonds[atom], count[atom]);
+            }
+        }
+
+        /**
+         * Adds all shortest paths from the root to an atom, as pairs of atom
+         * and bond bit sets.
+         */
+        void paths(int atom, long[] atoms, long[] bonds, List<long[][]> paths) {
+            atoms[atom >> 6] |= 1L << atom;
+            if (atom == root) {
+                paths.add(new long[][]{atoms.clone(), bonds.clone()});
+            } else {
+                for (int i = 0; i < count[atom]; i++) {
+                    int bond = predecessorBonds[atom][i];
+                    bonds[bond >> 6] |= 1L << bond;
+                    paths(predecessors[atom][i], atoms, bonds, paths);
+                    bonds[bond >> 6] &= ~(1L << bond);
+                }
+            }
+            atoms[atom >> 6] &= ~(1L << atom);
+        }
+    }
+
+    /**
+     * A cycle of two shortest paths from a root to the ends a and b, closed
+     * by a bond between the ends or by two bonds to a common vertex.
+     */
+    final class Cycle {
+
+        final ShortestPaths paths;
+        final int a, b;
+        final int[] closing;
+        final long[] bonds;
+        final int length;
+
+        Cycle(ShortestPaths paths, int a, int b, int[] closing, long[] bonds, int length) {
+            this.paths = paths;
+            this.a = a;
+            this.b = b;
+            this.closing = closing;
+            this.bonds = bonds;
+            this.length = length;
+        }
+
+        /** Returns an atom of this cycle. */
+        int first() {
+            return paths.root;
+        }
+
+        /**
+         * Returns the family of this prototype: the cycles through all pairs
+         * of shortest paths to its ends that meet only in the root. The
+         * prototype is one of them.
+         */
+        List<Cycle> family() {
+            List<long[][]> pathsToA = new ArrayList<long[][]>(), pathsToB = new ArrayList<long[][]>();
+            paths.paths(a, new long[atomWords], new long[bondWords], pathsToA);
+            paths.paths(b, new long[atomWords], new long[bondWords], pathsToB);
+            List<Cycle> family = new ArrayList<Cycle>();
+            if (pathsToA.size() == 1 && pathsToB.size() == 1) {
+                family.add(this);
+                return family;
+            }
+            for (long[][] pathToA : pathsToA) {
+                for (long[][] pathToB : pathsToB) {
+                    if (!meetInRoot(pathToA[0], pathToB[0])) continue;
+                    long[] bonds = union(pathToA[1], pathToB[1]);
+                    for (int bond : closing) bonds[bond >> 6] |= 1L << bond;
+                    family.add(Arrays.equals(bonds, this.bonds)
+                               ? this : new Cycle(paths, a, b, closing, bonds, length));
+                }
+            }
+            return family;
+        }
+    }
+
+    /**
+     * Cycles in row echelon form, for the test of independence by Gaussian
+     * elimination. Every row has a zero at the pivots of the rows before it.
+     */
+    private static final class Basis {
+
+        private final List<long[]> rows;
+        private final List<Integer> pivots;
+
+        Basis() {
+            this(new ArrayList<long[]>(), new ArrayList<Integer>());
+        }
+
+        private Basis(List<long[]> rows, List<Integer> pivots) {
+            this.rows = rows;
+            this.pivots = pivots;
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        Basis copy() {
+            return new Basis(new ArrayList<long[]>(rows), new ArrayList<Integer>(pivots));
+        }
+
+        private long[] reduce(long[] cycle) {
+            long[] reduced = cycle.clone();
+            for (int i = 0; i < rows.size(); i++) {
+                int pivot = pivots.get(i);
+                if ((reduced[pivot >> 6] & 1L << pivot) == 0) continue;
+                long[] row = rows.get(i);
+                for (int j = 0; j < reduced.length; j++) reduced[j] ^= row[j];
+            }
+            return reduced;
+        }
+
+        private static int lowestBit(long[] set) {
+            for (int i = 0; i < set.length; i++)
+                if (set[i] != 0) return (i << 6) + Long.numberOfTrailingZeros(set[i]);
+            return -1;
+        }
+
+        boolean isIndependent(long[] cycle) {
+            return lowestBit(reduce(cycle)) >= 0;
+        }
+
+        /** Adds a cycle if it is independent of the basis. */
+        boolean add(long[] cycle) {
+            long[] reduced = reduce(cycle);
+            int pivot = lowestBit(reduced);
+            if (pivot < 0) return false;
+            rows.add(reduced);
+            pivots.add(pivot);
+            return true;
+        }
+    }
+}
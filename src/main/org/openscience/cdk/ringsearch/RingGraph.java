@@ -0,0 +1,119 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.ringsearch;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRing;
+
+/**
+ * The atoms and bonds of a molecule as indices, for the ring searches of
+ * this package. Bonds that do not join two distinct atoms of the molecule
+ * are not part of the graph; their ends are -1.
+ *
+ * @cdk.module standard
+ * @cdk.githash
+ */
+final class RingGraph {
+
+    final IAtomContainer atomContainer;
+    final IAtom[] atoms;
+    final IBond[] bonds;
+    /** The ends of each bond, -1 if the bond is not part of the graph. */
+    final int[] begin, end;
+    /** The bonds of each atom. */
+    final int[][] incident;
+
+    RingGraph(IAtomContainer atomContainer) {
+        this.atomContainer = atomContainer;
+        int n = atomContainer.getAtomCount();
+        atoms = new IAtom[n];
+        Map<IAtom, Integer> indices = new IdentityHashMap<IAtom, Integer>(2 * n);
+        for (int i = 0; i < n; i++) {
+            atoms[i] = atomContainer.getAtom(i);
+            indices.put(atoms[i], i);
+        }
+        bonds = new IBond[atomContainer.getBondCount()];
+        begin = new int[bonds.length];
+        end   = new int[bonds.length];
+        int[] degree = new int[n];
+        for (int i = 0; i < bonds.length; i++) {
+            bonds[i] = atomContainer.getBond(i);
+            begin[i] = end[i] = -1;
+            if (bonds[i].getAtomCount() != 2) continue;
+            Integer a = indices.get(bonds[i].getAtom(0)), b = indices.get(bonds[i].getAtom(1));
+            if (a == null || b == null || a.intValue() == b.intValue()) continue;
+            begin[i] = a;
+            end[i]   = b;
+            degree[a]++;
+            degree[b]++;
+        }
+        incident = new int[n][];
+        for (int i = 0; i < n; i++) incident[i] = new int[degree[i]];
+        int[] filled = new int[n];
+        for (int i = 0; i < bonds.length; i++) {
+            if (begin[i] < 0) continue;
+            incident[begin[i]][filled[begin[i]]++] = i;
+            incident[end[i]][filled[end[i]]++] = i;
+        }
+    }
+
+    /**
+     * Returns the atom at the other end of a bond.
+     *
+     * @param  bond the index of the bond
+     * @param  atom the index of one of its atoms
+     * @return      the index of its other atom
+     */
+    int other(int bond, int atom) {
+        return begin[bond] == atom ? end[bond] : begin[bond];
+    }
+
+    /**
+     * Creates the ring of a set of bonds that form a cycle, with its atoms
+     * and bonds in the order of the cycle.
+     *
+     * @param  first an atom of the cycle, which becomes the first atom
+     * @param  cycle the bonds of the cycle, one bit per bond
+     * @return       the ring
+     */
+    IRing ring(int first, long[] cycle) {
+        IRing ring = atomContainer.getBuilder().newInstance(IRing.class);
+        int atom = first, previous = -1;
+        do {
+            ring.addAtom(atoms[atom]);
+            int next = -1;
+            for (int bond : incident[atom]) {
+                if (bond != previous && (cycle[bond >> 6] & 1L << bond) != 0) {
+                    next = bond;
+                    break;
+                }
+            }
+            if (next < 0) throw new IllegalArgumentException("The bonds do not form a cycle");
+            ring.addBond(bonds[next]);
+            previous = next;
+            atom = other(next, atom);
+        } while (atom != first);
+        return ring;
+    }
+}
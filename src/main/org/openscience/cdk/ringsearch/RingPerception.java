@@ -0,0 +1,307 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.ringsearch;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.List;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRingSet;
+
+/**
+ * The rings of one molecule, perceived when they are first needed and
+ * shared by all algorithms that ask for them. The ring atoms and bonds are
+ * found in linear time as the bonds that are not bridges; the SSSR, the
+ * essential and relevant rings come from one {@link SSSRFinder}, the set of
+ * all rings from the {@link AllRingsFinder}, and the ring systems from the
+ * {@link RingPartitioner}.
+ *
+ * <p>The perception is kept in the {@link CDKConstants#RING_PERCEPTION}
+ * property of the molecule, and {@link #getInstance(IAtomContainer)} reuses
+ * it as long as the molecule has the same atoms and bonds in the same
+ * order. A change that keeps them, such as a bond connected to other atoms,
+ * is not noticed, and must be followed by {@link #invalidate(IAtomContainer)}.
+ * <pre>
+ * RingPerception rings = RingPerception.getInstance(molecule);
+ * BitSet ringAtoms = rings.getRingAtoms();
+ * IRingSet sssr    = rings.getSSSR();
+ * </pre>
+ *
+ * <p>The perception is serialized with its molecule, but without the
+ * rings, which are perceived again when they are next needed.
+ *
+ * <p>The ring sets are shared, so they must not be modified, and a
+ * perception is no more thread-safe than its molecule. As
+ * {@link SSSRFinder} does, the perception flags the atoms of the SSSR and
+ * its other ring sets with {@link CDKConstants#ISINRING}.
+ *
+ * @cdk.module  standard
+ * @cdk.githash
+ * @cdk.keyword ring search
+ * @cdk.keyword ring perception
+ */
+@TestClass("org.openscience.cdk.ringsearch.RingPerceptionTest")
+public final class RingPerception implements Serializable {
+
+    private static final long serialVersionUID = 4206526834452380528L;
+
+    private final IAtomContainer atomContainer;
+    /** The atoms and bonds the rings were perceived for. */
+    private final IAtom[] atoms;
+    private final IBond[] bonds;
+
+    private transient BitSet ringAtoms = null, ringBonds = null;
+    private transient SSSRFinder finder = null;
+    private transient IRingSet sssr = null, essentialRings = null, relevantRings = null, allRings = null;
+    private transient CDKException allRingsError = null;
+    private transient List<IRingSet> ringSystems = null;
+
+    private RingPerception(IAtomContainer atomContainer) {
+        this.atomContainer = atomContainer;
+        atoms = new IAtom[atomContainer.getAtomCount()];
+        for (int i = 0; i < atoms.length; i++) atoms[i] = atomContainer.getAtom(i);
+        bonds = new IBond[atomContainer.getBondCount()];
+        for (int i = 0; i < bonds.length; i++) bonds[i] = atomContainer.getBond(i);
+    }
+
+    /**
+     * Returns the ring perception of a molecule, which is kept in the
+     * molecule and reused until its atoms or bonds change.
+     *
+     * @param  atomContainer the molecule
+     * @return               the ring perception
+     */
+    @TestMethod("testGetInstance,testGetInstance_changed")
+    public static RingPerception getInstance(IAtomContainer atomContainer) {
+        Object property = atomContainer.getProperty(CDKConstants.RING_PERCEPTION);
+        if (property instanceof RingPerception) {
+            RingPerception perception = (RingPerception) property;
+            // a clone has the property of the molecule it was cloned from
+            if (perception.atomContainer == atomContainer && perception.isValid()) return perception;
+        }
+        RingPerception perception = new RingPerception(atomContainer);
+        atomContainer.setProperty(CDKConstants.RING_PERCEPTION, perception);
+        return perception;
+    }
+
+    /**
+     * Removes the ring perception of a molecule, so that the rings are
+     * perceived again when they are next needed.
+     *
+     * @param atomContainer the molecule
+     */
+    @TestMethod("testInvalidate")
+    public static void invalidate(IAtomContainer atomContainer) {
+        if (atomContainer.getProperty(CDKConstants.RING_PERCEPTION) != null)
+            atomContainer.removeProperty(CDKConstants.RING_PERCEPTION);
+    }
+
+    /**
+     * Tests if the molecule still has the atoms and bonds the rings were
+     * perceived for, in the same order. A clone of the molecule, whose
+     * properties refer to this perception, has other atoms and bonds.
+     *
+     * @return true if the perception is valid for the molecule
+     */
+    @TestMethod("testGetInstance_changed")
+    public boolean isValid() {
+        if (atomContainer.getProperty(CDKConstants.RING_PERCEPTION) != this
+            || atomContainer.getAtomCount() != atoms.length
+            || atomContainer.getBondCount() != bonds.length)
+            return false;
+        for (int i = 0; i < atoms.length; i++)
+            if (atomContainer.getAtom(i) != atoms[i]) return false;
+        for (int i = 0; i < bonds.length; i++)
+            if (atomContainer.getBond(i) != bonds[i]) return false;
+        return true;
+    }
+
+    /**
+     * Returns the molecule of this perception.
+     *
+     * @return the molecule
+     */
+    @TestMethod("testGetInstance")
+    public IAtomContainer getAtomContainer() {
+        return atomContainer;
+    }
+
+    /**
+     * Returns the indices of the atoms that are in a ring, that is the atoms
+     * of the bonds returned by {@link #getRingBonds()}.
+     *
+     * @return the ring atoms. The set must not be modified.
+     */
+    @TestMethod("testGetRingAtoms")
+    public BitSet getRingAtoms() {
+        if (ringAtoms == null) findRingBonds();
+        return ringAtoms;
+    }
+
+    /**
+     * Returns the indices of the bonds that are in a ring, which are the
+     * bonds that are not bridges: removing one of them leaves its atoms
+     * connected.
+     *
+     * @return the ring bonds. The set must not be modified.
+     */
+    @TestMethod("testGetRingBonds")
+    public BitSet getRingBonds() {
+        if (ringBonds == null) findRingBonds();
+        return ringBonds;
+    }
+
+    /**
+     * Returns the Smallest Set of Smallest Rings.
+     *
+     * @return the SSSR
+     * @see    SSSRFinder#findSSSR()
+     */
+    @TestMethod("testGetSSSR")
+    public IRingSet getSSSR() {
+        if (sssr == null) sssr = finder().findSSSR();
+        return sssr;
+    }
+
+    /**
+     * Returns the rings that are in every SSSR.
+     *
+     * @return the essential rings
+     * @see    SSSRFinder#findEssentialRings()
+     */
+    @TestMethod("testGetEssentialRings")
+    public IRingSet getEssentialRings() {
+        if (essentialRings == null) essentialRings = finder().findEssentialRings();
+        return essentialRings;
+    }
+
+    /**
+     * Returns the rings that are in some SSSR.
+     *
+     * @return the relevant rings
+     * @see    SSSRFinder#findRelevantRings()
+     */
+    @TestMethod("testGetRelevantRings")
+    public IRingSet getRelevantRings() {
+        if (relevantRings == null) relevantRings = finder().findRelevantRings();
+        return relevantRings;
+    }
+
+    /**
+     * Returns all rings of the molecule. A search that fails, for example
+     * because it hits the timeout of the {@link AllRingsFinder}, is not
+     * repeated: its exception is thrown again.
+     *
+     * @return all rings
+     * @throws CDKException if the {@link AllRingsFinder} fails
+     * @see    AllRingsFinder#findAllRings(IAtomContainer)
+     */
+    @TestMethod("testGetAllRings")
+    public IRingSet getAllRings() throws CDKException {
+        if (allRingsError != null) throw allRingsError;
+        if (allRings == null) {
+            try {
+                allRings = new AllRingsFinder(false).findAllRings(atomContainer);
+            } catch (CDKException e) {
+                allRingsError = e;
+                throw e;
+            }
+        }
+        return allRings;
+    }
+
+    /**
+     * Returns the ring systems, the rings of the SSSR partitioned into sets
+     * of rings that share atoms.
+     *
+     * @return the ring systems. The list must not be modified.
+     * @see    RingPartitioner#partitionRings(IRingSet)
+     */
+    @TestMethod("testGetRingSystems")
+    public List<IRingSet> getRingSystems() {
+        if (ringSystems == null) ringSystems = RingPartitioner.partitionRings(getSSSR());
+        return ringSystems;
+    }
+
+    private SSSRFinder finder() {
+        if (finder == null) finder = new SSSRFinder(atomContainer);
+        return finder;
+    }
+
+    /**
+     * Finds the bridges with a depth first search, and marks all other bonds
+     * and their atoms as ring bonds and atoms. A bond is a bridge if none of
+     * the atoms below it in the search tree has a back edge above it.
+     */
+    private void findRingBonds() {
+        RingGraph graph = new RingGraph(atomContainer);
+        int n = atoms.length;
+        int[][] incident = graph.incident;
+
+        ringBonds = new BitSet(bonds.length);
+        ringAtoms = new BitSet(n);
+        int[] order = new int[n], low = new int[n], parent = new int[n], next = new int[n];
+        int[] stack = new int[n];
+        int visited = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) continue;
+            int top = 0;
+            stack[top++] = root;
+            order[root] = low[root] = ++visited;
+            parent[root] = -1;
+            while (top > 0) {
+                int atom = stack[top - 1];
+                if (next[atom] < incident[atom].length) {
+                    int bond = incident[atom][next[atom]++];
+                    if (bond == parent[atom]) continue;
+                    int other = graph.other(bond, atom);
+                    if (order[other] == 0) {
+                        order[other] = low[other] = ++visited;
+                        parent[other] = bond;
+                        stack[top++] = other;
+                    } else {
+                        // a back edge closes a ring
+                        if (order[other] < low[atom]) low[atom] = order[other];
+                        ringBonds.set(bond);
+                        ringAtoms.set(atom);
+                        ringAtoms.set(other);
+                    }
+                } else {
+                    top--;
+                    int bond = parent[atom];
+                    if (bond < 0) continue;
+                    int above = graph.other(bond, atom);
+                    if (low[atom] < low[above]) low[above] = low[atom];
+                    if (low[atom] <= order[above]) {
+                        ringBonds.set(bond);
+                        ringAtoms.set(atom);
+                        ringAtoms.set(above);
+                    }
+                }
+            }
+        }
+    }
+}
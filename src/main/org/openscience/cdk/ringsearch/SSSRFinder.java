@@ -37,6 +37,7 @@ import org.openscience.cdk.ringsearch.cyclebasis.CycleBasis;
 import org.openscience.cdk.ringsearch.cyclebasis.SimpleCycle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -49,6 +50,11 @@ import java.util.List;
  * 
  * <p>Additional related algorithms from {@cdk.cite BGdV04b}.
  *
+ * <p>The SSSR, the essential and the relevant rings are found with the
+ * algorithm of {@cdk.cite VIS97}, directly on the atoms and bonds of the
+ * molecule. The equivalence classes still use the cycle basis of the
+ * molecule as a JGraphT graph, which is only built when they are asked for.
+ *
  * @author Ulrich Bauer <ulrich.bauer@alumni.tum.de>
  *
  * @cdk.module standard
@@ -66,6 +72,8 @@ public class SSSRFinder {
 
 	private IAtomContainer atomContainer;
 	private CycleBasis cycleBasis;
+	private RingGraph graph;
+	private RelevantCycleSearch search;
 	
 	/**
 	 * Constructs a SSSRFinder for a specified molecule.
@@ -87,7 +95,7 @@ public class SSSRFinder {
 		if (atomContainer==null) {
 			return null;
 		}
-		IRingSet ringSet = toRingSet(atomContainer, cycleBasis().cycles());
+		IRingSet ringSet = toRingSet(search().sssr());
 //		atomContainer.setProperty(CDKConstants.SMALLEST_RINGS, ringSet);
 		return ringSet;	  
 
@@ -104,7 +112,7 @@ public class SSSRFinder {
 		if (atomContainer==null) {
 			return null;
 		}
-		IRingSet ringSet = toRingSet(atomContainer, cycleBasis().essentialCycles());
+		IRingSet ringSet = toRingSet(search().essential());
 //		atomContainer.setProperty(CDKConstants.ESSENTIAL_RINGS, ringSet);
 		return ringSet;
 	}
@@ -121,7 +129,7 @@ public class SSSRFinder {
 			return null;
 		}
 		
-		IRingSet ringSet = toRingSet(atomContainer, cycleBasis().relevantCycles().keySet());
+		IRingSet ringSet = toRingSet(search().relevant());
 //		atomContainer.setProperty(CDKConstants.RELEVANT_RINGS, ringSet);
 		return ringSet;	  
 	}
@@ -151,7 +159,13 @@ public class SSSRFinder {
 	 * @return An <code>int[]</code> containing the length of the rings in a SSSR
 	 */
 	public int[] getSSSRWeightVector() {
-		return cycleBasis().weightVector();
+		List<RelevantCycleSearch.Cycle> cycles = search().sssr();
+		int[] result = new int[cycles.size()];
+		for (int i=0; i<cycles.size(); i++) {
+			result[i] = cycles.get(i).length;
+		}
+		Arrays.sort(result);
+		return result;
 	}
 	
 	/**
@@ -169,6 +183,14 @@ public class SSSRFinder {
 		return result;
 	}
 	
+	private RelevantCycleSearch search() {
+		if (search==null) {
+			graph = new RingGraph(atomContainer);
+			search = new RelevantCycleSearch(graph);
+		}
+		return search;
+	}
+	
 	private CycleBasis cycleBasis() {
 		if (cycleBasis==null) {
 			UndirectedGraph molGraph = MoleculeGraphs.getMoleculeGraph(atomContainer);
@@ -178,6 +200,16 @@ public class SSSRFinder {
 		return cycleBasis;
 	}
 	
+	private IRingSet toRingSet(List<RelevantCycleSearch.Cycle> cycles) {
+		IRingSet ringSet = atomContainer.getBuilder().newInstance(IRingSet.class);
+		for (RelevantCycleSearch.Cycle cycle : cycles) {
+			IRing ring = graph.ring(cycle.first(), cycle.bonds);
+			for (IAtom atom : ring.atoms()) atom.setFlag(CDKConstants.ISINRING, true);
+			ringSet.addAtomContainer(ring);
+		}
+		return ringSet;
+	}
+	
 	private static IRingSet toRingSet(IAtomContainer container, Collection cycles) {
 		
 		IRingSet ringSet = container.getBuilder().newInstance(IRingSet.class);
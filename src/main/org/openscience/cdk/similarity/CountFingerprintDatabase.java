@@ -0,0 +1,311 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.fingerprint.ICountFingerprint;
+import org.openscience.cdk.similarity.FingerprintDatabase.Hit;
+
+/**
+ * A collection of count fingerprints, stored for fast similarity searches.
+ * The bins of all fingerprints are packed into two <code>int</code> arrays of
+ * hashes and counts, in order of increasing hash per fingerprint, and the
+ * sum of the squared counts of each fingerprint is precomputed. A comparison
+ * merges the bins of the query and a fingerprint without creating objects.
+ *
+ * <p>By the Cauchy-Schwarz inequality the dot product of two fingerprints
+ * is at most the square root of the product of their sums of squares.
+ * Searches use this bound to skip fingerprints that cannot reach the
+ * threshold, or improve on the k-th best hit found so far.
+ * <pre>
+ * CountFingerprintDatabase database = new CountFingerprintDatabase();
+ * for (IAtomContainer molecule : molecules)
+ *     database.add(fingerprinter.getCountFingerprint(molecule));
+ * for (FingerprintDatabase.Hit hit : database.search(query, CountFingerprintSimilarity.TANIMOTO, 0.8))
+ *     System.out.println(hit.getIndex() + " " + hit.getSimilarity());
+ * </pre>
+ *
+ * <p>The counts are read with {@link ICountFingerprint#getCount(int)}, so
+ * fingerprints behaving as bit fingerprints are stored with counts of one.
+ * Bins with equal hashes are merged by adding their counts. Searches may run
+ * concurrently, but not while fingerprints are added.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword similarity, tanimoto
+ * @see         CountFingerprintSimilarity
+ */
+@TestClass("org.openscience.cdk.similarity.CountFingerprintDatabaseTest")
+public class CountFingerprintDatabase {
+
+    /** The first bin of each fingerprint, followed by the end of the last. */
+    private int[] offsets = new int[1025];
+    private int[] hashes  = new int[4096];
+    private int[] counts  = new int[4096];
+    private long[] squares = new long[1024];
+    private int count = 0;
+    private int threads = 1;
+
+    /** Runs the parts of calculations on more than one thread, created when first needed. */
+    private ExecutorService pool;
+
+    /**
+     * Creates an empty database.
+     */
+    @TestMethod("testAdd")
+    public CountFingerprintDatabase() {
+    }
+
+    /**
+     * Adds a fingerprint to the database.
+     *
+     * @param  fingerprint the fingerprint to add
+     * @return             the index of the fingerprint in the database
+     */
+    @TestMethod("testAdd")
+    public int add(ICountFingerprint fingerprint) {
+        Bins bins = new Bins(fingerprint);
+        if (count == squares.length) {
+            squares = Arrays.copyOf(squares, 2 * count);
+            offsets = Arrays.copyOf(offsets, 2 * count + 1);
+        }
+        int begin = offsets[count];
+        int end   = begin + bins.length;
+        if (end > hashes.length) {
+            int length = Math.max(end, 2 * hashes.length);
+            hashes = Arrays.copyOf(hashes, length);
+            counts = Arrays.copyOf(counts, length);
+        }
+        System.arraycopy(bins.hashes, 0, hashes, begin, bins.length);
+        System.arraycopy(bins.counts, 0, counts, begin, bins.length);
+        offsets[count + 1] = end;
+        squares[count] = bins.squares;
+        return count++;
+    }
+
+    /**
+     * Returns the number of fingerprints in this database.
+     *
+     * @return the number of fingerprints
+     */
+    @TestMethod("testAdd")
+    public int getFingerprintCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of threads used by threshold searches. The default is
+     * one, searching on the calling thread.
+     * The calling thread takes part in every search; the other threads are
+     * started when first needed, kept for later searches, and end after a
+     * minute without work.
+     *
+     * @param threads the number of threads
+     */
+    @TestMethod("testSearch_threads")
+    public void setNumberOfThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        synchronized (this) {
+            // a search running meanwhile keeps the old pool, whose threads end when idle
+            if (threads != this.threads) pool = null;
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * Returns the pool for the current number of threads.
+     */
+    private synchronized ExecutorService pool() {
+        if (threads > 1 && pool == null) pool = Partitions.newPool(threads);
+        return pool;
+    }
+
+    /**
+     * Calculates the similarity of a query and a fingerprint in this
+     * database.
+     *
+     * @param  query   the query fingerprint
+     * @param  index   the index of the fingerprint in this database
+     * @param  measure the similarity measure
+     * @return         the similarity
+     */
+    @TestMethod("testCalculate")
+    public double calculate(ICountFingerprint query, int index, CountFingerprintSimilarity measure) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("No fingerprint " + index + " in " + count);
+        Bins bins = new Bins(query);
+        return measure.calculate(dot(bins, index), bins.squares, squares[index]);
+    }
+
+    /**
+     * Finds all fingerprints with a similarity to the query of at least the
+     * given threshold.
+     *
+     * @param  query     the query fingerprint
+     * @param  measure   the similarity measure
+     * @param  threshold the minimal similarity
+     * @return           the hits, most similar first
+     */
+    @TestMethod("testSearch,testSearch_threads")
+    public List<Hit> search(ICountFingerprint query, final CountFingerprintSimilarity measure,
+                            final double threshold) {
+        final Bins bins = new Bins(query);
+        List<Hit> hits = new ArrayList<Hit>();
+        for (List<Hit> part : Partitions.run(pool(), count, threads, new Partitions.Partition<List<Hit>>() {
+            public List<Hit> run(int begin, int end) {
+                List<Hit> hits = new ArrayList<Hit>();
+                for (int i = begin; i < end; i++) {
+                    long xx = bins.squares, yy = squares[i];
+                    if (measure.calculate(bound(xx, yy), xx, yy) < threshold) continue;
+                    double similarity = measure.calculate(dot(bins, i), xx, yy);
+                    if (similarity >= threshold) hits.add(new Hit(i, similarity));
+                }
+                return hits;
+            }
+        })) hits.addAll(part);
+        Collections.sort(hits);
+        return hits;
+    }
+
+    /**
+     * Finds the fingerprints most similar to the query. The search runs on
+     * the calling thread.
+     *
+     * @param  query   the query fingerprint
+     * @param  measure the similarity measure
+     * @param  k       the maximum number of hits
+     * @return         at most k hits, most similar first; of equally similar
+     *                 fingerprints the ones with the lowest index
+     */
+    @TestMethod("testSearchTop")
+    public List<Hit> searchTop(ICountFingerprint query, CountFingerprintSimilarity measure, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        Bins bins = new Bins(query);
+        // the worst hit is at the head of the queue
+        PriorityQueue<Hit> best = new PriorityQueue<Hit>(k, Collections.reverseOrder());
+        for (int i = 0; i < count; i++) {
+            long xx = bins.squares, yy = squares[i];
+            if (best.size() == k && measure.calculate(bound(xx, yy), xx, yy) < best.peek().getSimilarity())
+                continue;
+            double similarity = measure.calculate(dot(bins, i), xx, yy);
+            if (best.size() < k) {
+                best.add(new Hit(i, similarity));
+            } else if (similarity > best.peek().getSimilarity()) {
+                // on equal similarity the earlier, lower index is kept
+                best.poll();
+                best.add(new Hit(i, similarity));
+            }
+        }
+        List<Hit> hits = new ArrayList<Hit>(best);
+        Collections.sort(hits);
+        return hits;
+    }
+
+    /**
+     * Merges the bins of the query and a stored fingerprint.
+     */
+    private long dot(Bins query, int index) {
+        long xy = 0;
+        int i = 0, n = query.length;
+        int j = offsets[index], m = offsets[index + 1];
+        while (i < n && j < m) {
+            int hash1 = query.hashes[i];
+            int hash2 = hashes[j];
+            if (hash1 < hash2) {
+                i++;
+            } else if (hash1 > hash2) {
+                j++;
+            } else {
+                xy += (long) query.counts[i++] * counts[j++];
+            }
+        }
+        return xy;
+    }
+
+    /**
+     * The largest dot product of fingerprints with the given sums of squares,
+     * the floor of the square root of their product.
+     */
+    static long bound(long xx, long yy) {
+        if (xx == 0 || yy == 0) return 0;
+        if (xx > Integer.MAX_VALUE || yy > Integer.MAX_VALUE)
+            return (long) Math.ceil(Math.sqrt((double) xx * yy)) + 1;
+        long product = xx * yy;
+        long root = (long) Math.sqrt((double) product);
+        while (root * root > product) root--;
+        while ((root + 1) * (root + 1) <= product) root++;
+        return root;
+    }
+
+    /**
+     * The bins of a fingerprint in order of increasing hash.
+     */
+    private static final class Bins {
+
+        private final int[] hashes;
+        private final int[] counts;
+        private final int length;
+        private final long squares;
+
+        Bins(ICountFingerprint fingerprint) {
+            int n = fingerprint.numOfPopulatedbins();
+            int[] hashes = new int[n];
+            int[] counts = new int[n];
+            int length = 0;
+            if (CountFingerprintSimilarity.isOrdered(fingerprint)) {
+                for (int i = 0; i < n; i++) {
+                    hashes[i] = fingerprint.getHash(i);
+                    counts[i] = fingerprint.getCount(i);
+                }
+                length = n;
+            } else {
+                // sort the bins by hash, keeping the index in the low bits
+                long[] keys = new long[n];
+                for (int i = 0; i < n; i++)
+                    keys[i] = ((long) fingerprint.getHash(i) << 32) | i;
+                Arrays.sort(keys);
+                for (int i = 0; i < n; i++) {
+                    int hash = (int) (keys[i] >> 32);
+                    int bin  = (int) keys[i];
+                    if (length > 0 && hashes[length - 1] == hash) {
+                        counts[length - 1] += fingerprint.getCount(bin);
+                    } else {
+                        hashes[length] = hash;
+                        counts[length++] = fingerprint.getCount(bin);
+                    }
+                }
+            }
+            long squares = 0;
+            for (int i = 0; i < length; i++) squares += (long) counts[i] * counts[i];
+            this.hashes  = hashes;
+            this.counts  = counts;
+            this.length  = length;
+            this.squares = squares;
+        }
+    }
+}
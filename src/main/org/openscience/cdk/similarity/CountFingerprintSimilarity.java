@@ -0,0 +1,199 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.fingerprint.ICountFingerprint;
+
+/**
+ * A similarity measure for count fingerprints, calculated from the dot
+ * product <i>xy</i> of the counts of two fingerprints and the sums of their
+ * squared counts <i>xx</i> and <i>yy</i>:
+ * <ul>
+ * <li>{@link #TANIMOTO}: <i>xy</i> / (<i>xx</i> + <i>yy</i> - <i>xy</i>)</li>
+ * <li>{@link #DICE}: 2<i>xy</i> / (<i>xx</i> + <i>yy</i>)</li>
+ * <li>{@link #COSINE}: <i>xy</i> / sqrt(<i>xx</i> <i>yy</i>)</li>
+ * <li>{@link #tversky(double, double)}: <i>xy</i> / (&alpha;(<i>xx</i> -
+ *     <i>xy</i>) + &beta;(<i>yy</i> - <i>xy</i>) + <i>xy</i>)</li>
+ * </ul>
+ * The dot product is calculated by merging the bins of the fingerprints,
+ * which {@link org.openscience.cdk.fingerprint.IntArrayCountFingerprint}
+ * keeps in order of increasing hash, in time linear in the number of bins.
+ * Fingerprints whose bins are not in order are compared bin by bin.
+ *
+ * <p>The similarity of two fingerprints without counts is taken to be 0.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword similarity, tanimoto
+ * @cdk.keyword similarity, dice
+ * @cdk.keyword similarity, tversky
+ * @see         CountFingerprintDatabase
+ */
+@TestClass("org.openscience.cdk.similarity.CountFingerprintSimilarityTest")
+public abstract class CountFingerprintSimilarity {
+
+    /** The continuous Tanimoto coefficient. */
+    public static final CountFingerprintSimilarity TANIMOTO = new CountFingerprintSimilarity() {
+        public double calculate(long xy, long xx, long yy) {
+            long denominator = xx + yy - xy;
+            return denominator == 0 ? 0 : (double) xy / denominator;
+        }
+        public String toString() {
+            return "Tanimoto";
+        }
+    };
+
+    /** The Dice coefficient. */
+    public static final CountFingerprintSimilarity DICE = new CountFingerprintSimilarity() {
+        public double calculate(long xy, long xx, long yy) {
+            long denominator = xx + yy;
+            return denominator == 0 ? 0 : 2.0 * xy / denominator;
+        }
+        public String toString() {
+            return "Dice";
+        }
+    };
+
+    /** The cosine coefficient. */
+    public static final CountFingerprintSimilarity COSINE = new CountFingerprintSimilarity() {
+        public double calculate(long xy, long xx, long yy) {
+            if (xx == 0 || yy == 0) return 0;
+            return xy / Math.sqrt((double) xx * yy);
+        }
+        public String toString() {
+            return "Cosine";
+        }
+    };
+
+    /**
+     * Returns the Tversky index with the given weights. With both weights 1
+     * it is the Tanimoto coefficient, with both 0.5 the Dice coefficient.
+     *
+     * @param  alpha the weight of the counts only in the first fingerprint
+     * @param  beta  the weight of the counts only in the second fingerprint
+     * @return       the Tversky index
+     */
+    @TestMethod("testTversky")
+    public static CountFingerprintSimilarity tversky(final double alpha, final double beta) {
+        if (alpha < 0 || beta < 0)
+            throw new IllegalArgumentException("Tversky weights must not be negative");
+        return new CountFingerprintSimilarity() {
+            public double calculate(long xy, long xx, long yy) {
+                double denominator = alpha * (xx - xy) + beta * (yy - xy) + xy;
+                return denominator == 0 ? 0 : xy / denominator;
+            }
+            public String toString() {
+                return "Tversky(" + alpha + ", " + beta + ")";
+            }
+        };
+    }
+
+    /**
+     * Calculates the similarity from the dot product and the sums of squared
+     * counts of two fingerprints. For fixed sums of squares the similarity
+     * must not decrease as the dot product increases, which searches rely on
+     * to skip candidates.
+     *
+     * @param  xy the dot product of the counts
+     * @param  xx the sum of squared counts of the first fingerprint
+     * @param  yy the sum of squared counts of the second fingerprint
+     * @return    the similarity
+     */
+    @TestMethod("testCalculate")
+    public abstract double calculate(long xy, long xx, long yy);
+
+    /**
+     * Calculates the similarity of two count fingerprints.
+     *
+     * @param  fp1 the first fingerprint
+     * @param  fp2 the second fingerprint
+     * @return     the similarity
+     */
+    @TestMethod("testCalculate")
+    public double calculate(ICountFingerprint fp1, ICountFingerprint fp2) {
+        return calculate(dot(fp1, fp2), squares(fp1), squares(fp2));
+    }
+
+    /**
+     * Calculates the dot product of the counts of two fingerprints, summing
+     * the products of the counts of bins with equal hashes.
+     *
+     * @param  fp1 the first fingerprint
+     * @param  fp2 the second fingerprint
+     * @return     the dot product
+     */
+    @TestMethod("testDot,testDot_unordered")
+    public static long dot(ICountFingerprint fp1, ICountFingerprint fp2) {
+        int n = fp1.numOfPopulatedbins();
+        int m = fp2.numOfPopulatedbins();
+        if (!isOrdered(fp1) || !isOrdered(fp2)) {
+            long xy = 0;
+            for (int i = 0; i < n; i++) {
+                int hash = fp1.getHash(i);
+                for (int j = 0; j < m; j++) {
+                    if (hash == fp2.getHash(j))
+                        xy += (long) fp1.getCount(i) * fp2.getCount(j);
+                }
+            }
+            return xy;
+        }
+        long xy = 0;
+        int i = 0, j = 0;
+        while (i < n && j < m) {
+            int hash1 = fp1.getHash(i);
+            int hash2 = fp2.getHash(j);
+            if (hash1 < hash2) {
+                i++;
+            } else if (hash1 > hash2) {
+                j++;
+            } else {
+                xy += (long) fp1.getCount(i++) * fp2.getCount(j++);
+            }
+        }
+        return xy;
+    }
+
+    /**
+     * Calculates the sum of the squared counts of a fingerprint.
+     *
+     * @param  fp the fingerprint
+     * @return    the sum of squares
+     */
+    @TestMethod("testDot")
+    public static long squares(ICountFingerprint fp) {
+        long squares = 0;
+        for (int i = 0; i < fp.numOfPopulatedbins(); i++) {
+            long count = fp.getCount(i);
+            squares += count * count;
+        }
+        return squares;
+    }
+
+    /**
+     * Whether the hashes of the bins of a fingerprint strictly increase.
+     */
+    static boolean isOrdered(ICountFingerprint fp) {
+        for (int i = 1; i < fp.numOfPopulatedbins(); i++) {
+            if (fp.getHash(i - 1) >= fp.getHash(i)) return false;
+        }
+        return true;
+    }
+}
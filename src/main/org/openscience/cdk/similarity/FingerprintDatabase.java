@@ -0,0 +1,632 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.fingerprint.BitSetFingerprint;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+
+/**
+ * A collection of bit fingerprints of equal length, stored for fast Tanimoto
+ * similarity searches. The fingerprints are packed into one contiguous block
+ * of <code>long</code> words, either on the heap or in a {@link LongBuffer},
+ * which may be a view of a memory mapped file, and the number of set bits of
+ * each fingerprint is precomputed. Unlike
+ * {@link Tanimoto#calculate(IBitFingerprint, IBitFingerprint)} no objects are
+ * created per comparison.
+ *
+ * <p>The Tanimoto coefficient of fingerprints with <i>a</i> and <i>b</i> set
+ * bits is at most min(<i>a</i>,<i>b</i>)/max(<i>a</i>,<i>b</i>). Searches
+ * use this bound to only compare the query with fingerprints whose number of
+ * set bits allows them to reach the threshold, or to improve on the k-th best
+ * hit found so far.
+ * <pre>
+ * FingerprintDatabase database = new FingerprintDatabase(1024);
+ * for (IAtomContainer molecule : molecules)
+ *     database.add(fingerprinter.getBitFingerprint(molecule));
+ * database.setNumberOfThreads(4);
+ * for (FingerprintDatabase.Hit hit : database.search(query, 0.8))
+ *     System.out.println(hit.getIndex() + " " + hit.getSimilarity());
+ * </pre>
+ *
+ * <p>The similarity of two fingerprints without set bits is taken to be 0.
+ * Searches may run concurrently, but not while fingerprints are added.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword similarity, tanimoto
+ * @cdk.keyword Swamidass-Baldi bound
+ */
+@TestClass("org.openscience.cdk.similarity.FingerprintDatabaseTest")
+public class FingerprintDatabase {
+
+    private final int size;
+    private final int words;
+
+    /*
+     * Fingerprints are stored in slots. Heap storage is rearranged into
+     * order of increasing number of set bits before searching, so that
+     * candidates are read sequentially; ids and slots then map between
+     * slots and the indices of the fingerprints, and are null as long as
+     * they are the same.
+     */
+
+    /** Fingerprint words on the heap, or null if stored in {@link #buffer}. */
+    private long[] array;
+    private final LongBuffer buffer;
+    /** The number of set bits of the fingerprint in each slot. */
+    private int[] cardinalities;
+    private int[] ids;
+    private int[] slots;
+    private int count;
+
+    /** Slots sorted by the number of set bits, or null if already sorted. */
+    private int[] order;
+    /** Position in {@link #order} of the first fingerprint with a given number of set bits. */
+    private int[] start;
+
+    private int threads = 1;
+
+    /** Runs the parts of calculations on more than one thread, created when first needed. */
+    private ExecutorService pool;
+
+    /**
+     * Creates an empty database for fingerprints of the given length.
+     *
+     * @param size the number of bits of the fingerprints
+     */
+    @TestMethod("testFingerprintDatabase_int")
+    public FingerprintDatabase(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("Fingerprint size must be positive: " + size);
+        this.size          = size;
+        this.words         = wordCount(size);
+        this.array         = new long[16 * words];
+        this.buffer        = null;
+        this.cardinalities = new int[16];
+    }
+
+    /**
+     * Creates a read-only database of the fingerprints stored in the
+     * remaining words of a buffer, for example one mapped from a file with
+     * {@link java.nio.channels.FileChannel#map}. Each fingerprint takes
+     * <code>(size + 63) / 64</code> words; bit <i>i</i> is stored in word
+     * <i>i</i>/64 at bit <i>i</i>%64.
+     *
+     * @param size   the number of bits of the fingerprints
+     * @param buffer the fingerprint words
+     */
+    @TestMethod("testFingerprintDatabase_int_LongBuffer")
+    public FingerprintDatabase(int size, LongBuffer buffer) {
+        this(size, buffer, null);
+    }
+
+    /**
+     * Creates a read-only database of the fingerprints stored in a buffer,
+     * with the number of set bits of each fingerprint already known.
+     *
+     * @param size          the number of bits of the fingerprints
+     * @param buffer        the fingerprint words
+     * @param cardinalities the number of set bits of each fingerprint, or null
+     *                      to count them
+     * @see   #FingerprintDatabase(int, LongBuffer)
+     */
+    @TestMethod("testFingerprintDatabase_int_LongBuffer")
+    public FingerprintDatabase(int size, LongBuffer buffer, int[] cardinalities) {
+        this(size, buffer, cardinalities, null);
+    }
+
+    /**
+     * Creates a read-only database of fingerprints stored in a buffer in a
+     * different order than they are numbered, as done by
+     * {@link FingerprintStoreWriter}.
+     *
+     * @param size          the number of bits of the fingerprints
+     * @param buffer        the fingerprint words
+     * @param cardinalities the number of set bits of each stored fingerprint,
+     *                      or null to count them
+     * @param ids           the index of each stored fingerprint, or null if
+     *                      they are stored in order
+     */
+    FingerprintDatabase(int size, LongBuffer buffer, int[] cardinalities, int[] ids) {
+        if (size < 1)
+            throw new IllegalArgumentException("Fingerprint size must be positive: " + size);
+        this.size   = size;
+        this.words  = wordCount(size);
+        this.buffer = buffer.slice();
+        this.count  = this.buffer.remaining() / words;
+        if (cardinalities == null) {
+            cardinalities = new int[count];
+            for (int i = 0; i < count; i++) {
+                int cardinality = 0;
+                for (int w = 0; w < words; w++)
+                    cardinality += Long.bitCount(this.buffer.get(i * words + w));
+                cardinalities[i] = cardinality;
+            }
+        } else if (cardinalities.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " cardinalities");
+        }
+        this.cardinalities = cardinalities;
+        if (ids != null) {
+            if (ids.length < count)
+                throw new IllegalArgumentException("Expected " + count + " indices");
+            this.ids   = ids;
+            this.slots = new int[count];
+            for (int slot = 0; slot < count; slot++) slots[ids[slot]] = slot;
+        }
+    }
+
+    /**
+     * Adds a fingerprint to the database.
+     *
+     * @param  fingerprint the fingerprint to add
+     * @return             the index of the fingerprint in the database
+     * @throws IllegalArgumentException if a bit beyond the fingerprint size is set
+     * @throws UnsupportedOperationException if the database was created from a buffer
+     */
+    @TestMethod("testAdd")
+    public int add(IBitFingerprint fingerprint) {
+        if (array == null)
+            throw new UnsupportedOperationException("Database is read-only");
+        if (count == cardinalities.length) {
+            cardinalities = Arrays.copyOf(cardinalities, 2 * count);
+            array = Arrays.copyOf(array, 2 * count * words);
+            if (ids != null) {
+                ids   = Arrays.copyOf(ids, 2 * count);
+                slots = Arrays.copyOf(slots, 2 * count);
+            }
+        }
+        long[] packed = pack(fingerprint);
+        System.arraycopy(packed, 0, array, count * words, words);
+        cardinalities[count] = cardinality(packed);
+        if (ids != null) {
+            ids[count]   = count;
+            slots[count] = count;
+        }
+        start = null;
+        return count++;
+    }
+
+    /**
+     * Returns the number of bits of the fingerprints in this database.
+     *
+     * @return the fingerprint length
+     */
+    @TestMethod("testFingerprintDatabase_int")
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of fingerprints in this database.
+     *
+     * @return the number of fingerprints
+     */
+    @TestMethod("testAdd")
+    public int getFingerprintCount() {
+        return count;
+    }
+
+    /**
+     * Returns a copy of a fingerprint in this database.
+     *
+     * @param  index the index of the fingerprint
+     * @return       the fingerprint
+     */
+    @TestMethod("testGetFingerprint")
+    public IBitFingerprint getFingerprint(int index) {
+        checkIndex(index);
+        int slot = slot(index);
+        IBitFingerprint fingerprint = new BitSetFingerprint(size);
+        for (int w = 0; w < words; w++) {
+            long word = word(slot, w);
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                fingerprint.set(64 * w + bit);
+                word &= word - 1;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the number of set bits of a fingerprint in this database.
+     *
+     * @param  index the index of the fingerprint
+     * @return       the number of set bits
+     */
+    @TestMethod("testGetCardinality")
+    public int getCardinality(int index) {
+        checkIndex(index);
+        return cardinalities[slot(index)];
+    }
+
+    /**
+     * Sets the number of threads used by searches and matrix calculations.
+     * The default is one, searching on the calling thread.
+     * The calling thread takes part in every search; the other threads are
+     * started when first needed, kept for later searches, and end after a
+     * minute without work.
+     *
+     * @param threads the number of threads
+     */
+    @TestMethod("testSearch_threads")
+    public void setNumberOfThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        synchronized (this) {
+            // a search running meanwhile keeps the old pool, whose threads end when idle
+            if (threads != this.threads) pool = null;
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * Returns the pool for the current number of threads.
+     */
+    private synchronized ExecutorService pool() {
+        if (threads > 1 && pool == null) pool = Partitions.newPool(threads);
+        return pool;
+    }
+
+    /**
+     * Calculates the Tanimoto coefficient of a query and a fingerprint in this
+     * database.
+     *
+     * @param  query the query fingerprint
+     * @param  index the index of the fingerprint in this database
+     * @return       the Tanimoto coefficient
+     */
+    @TestMethod("testCalculate")
+    public double calculate(IBitFingerprint query, int index) {
+        checkIndex(index);
+        long[] packed = pack(query);
+        return similarity(packed, cardinality(packed), slot(index));
+    }
+
+    /**
+     * Finds all fingerprints with a Tanimoto coefficient to the query of at
+     * least the given threshold.
+     *
+     * @param  query     the query fingerprint
+     * @param  threshold the minimal similarity
+     * @return           the hits, most similar first
+     */
+    @TestMethod("testSearch,testSearch_threads")
+    public List<Hit> search(IBitFingerprint query, final double threshold) {
+        final long[] packed = pack(query);
+        final int a = cardinality(packed);
+        index();
+        int lower = 0, upper = 64 * words;
+        if (threshold > 0) {
+            // conservative bounds, every candidate is compared exactly
+            lower = Math.max(0, (int) Math.floor(threshold * a));
+            upper = Math.min(upper, (int) Math.ceil(a / threshold));
+        }
+        if (lower > upper) return new ArrayList<Hit>();
+        final int from = start[lower], to = start[upper + 1];
+
+        List<Hit> hits = new ArrayList<Hit>();
+        for (List<Hit> part : Partitions.run(pool(), to - from, threads, new Partitions.Partition<List<Hit>>() {
+            public List<Hit> run(int begin, int end) {
+                List<Hit> hits = new ArrayList<Hit>();
+                for (int i = from + begin; i < from + end; i++) {
+                    int slot = order == null ? i : order[i];
+                    double similarity = similarity(packed, a, slot);
+                    if (similarity >= threshold) hits.add(new Hit(id(slot), similarity));
+                }
+                return hits;
+            }
+        })) hits.addAll(part);
+        Collections.sort(hits);
+        return hits;
+    }
+
+    /**
+     * Finds the fingerprints that have every bit of the query set, which are
+     * the candidates of a substructure search if the query is the fingerprint
+     * of a substructure. Only fingerprints with at least as many set bits as
+     * the query are compared.
+     *
+     * @param  query the query fingerprint
+     * @return       the indices of the fingerprints, in increasing order
+     */
+    @TestMethod("testScreen,testScreen_threads")
+    public int[] screen(IBitFingerprint query) {
+        final long[] packed = pack(query);
+        index();
+        final int from = start[cardinality(packed)];
+
+        int[] candidates = new int[count - from];
+        int n = 0;
+        for (int[] part : Partitions.run(pool(), count - from, threads, new Partitions.Partition<int[]>() {
+            public int[] run(int begin, int end) {
+                int[] found = new int[end - begin];
+                int n = 0;
+                for (int i = from + begin; i < from + end; i++) {
+                    int slot = order == null ? i : order[i];
+                    if (contains(slot, packed)) found[n++] = id(slot);
+                }
+                return Arrays.copyOf(found, n);
+            }
+        })) {
+            System.arraycopy(part, 0, candidates, n, part.length);
+            n += part.length;
+        }
+        candidates = Arrays.copyOf(candidates, n);
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * Finds the fingerprints most similar to the query. Fingerprints are
+     * visited in order of decreasing bound on their similarity, and the
+     * search stops as soon as the bound falls below the k-th best
+     * similarity found. The search runs on the calling thread.
+     *
+     * @param  query the query fingerprint
+     * @param  k     the maximum number of hits
+     * @return       at most k hits, most similar first; of equally similar
+     *               fingerprints the ones with the lowest index
+     */
+    @TestMethod("testSearchTop")
+    public List<Hit> searchTop(IBitFingerprint query, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        long[] packed = pack(query);
+        int a = cardinality(packed);
+        index();
+        // the worst hit is at the head of the queue
+        PriorityQueue<Hit> best = new PriorityQueue<Hit>(k, Collections.reverseOrder());
+        int down = a, up = a + 1, max = 64 * words;
+        while (down >= 0 || up <= max) {
+            int b;
+            if (up > max || (down >= 0 && bound(a, down) >= bound(a, up))) b = down--;
+            else b = up++;
+            if (best.size() == k && bound(a, b) < best.peek().similarity) break;
+            for (int i = start[b]; i < start[b + 1]; i++) {
+                int slot = order == null ? i : order[i];
+                double similarity = similarity(packed, a, slot);
+                if (best.size() < k) {
+                    best.add(new Hit(id(slot), similarity));
+                } else {
+                    Hit worst = best.peek();
+                    if (similarity > worst.similarity
+                        || (similarity == worst.similarity && id(slot) < worst.index)) {
+                        best.poll();
+                        best.add(new Hit(id(slot), similarity));
+                    }
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<Hit>(best);
+        Collections.sort(hits);
+        return hits;
+    }
+
+    /**
+     * Calculates the Tanimoto coefficients of all fingerprints of this
+     * database with all fingerprints of another. Rows are distributed over
+     * the threads.
+     *
+     * @param  other the database holding the columns
+     * @return       a matrix with one row per fingerprint of this database and
+     *               one column per fingerprint of <code>other</code>
+     * @throws IllegalArgumentException if the fingerprints differ in length
+     */
+    @TestMethod("testCalculateMatrix")
+    public double[][] calculateMatrix(final FingerprintDatabase other) {
+        if (other.size != size)
+            throw new IllegalArgumentException("Fingerprints must have the same size");
+        final double[][] matrix = new double[count][];
+        Partitions.run(pool(), count, threads, new Partitions.Partition<Object>() {
+            public Object run(int begin, int end) {
+                long[] packed = new long[words];
+                for (int i = begin; i < end; i++) {
+                    int slot = slot(i);
+                    for (int w = 0; w < words; w++) packed[w] = word(slot, w);
+                    double[] row = new double[other.count];
+                    for (int j = 0; j < other.count; j++)
+                        row[j] = other.similarity(packed, cardinalities[slot], other.slot(j));
+                    matrix[i] = row;
+                }
+                return null;
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * The index and similarity of a fingerprint found by a search. Hits are
+     * ordered by decreasing similarity and increasing index.
+     */
+    public static final class Hit implements Comparable<Hit> {
+
+        private final int index;
+        private final double similarity;
+
+        Hit(int index, double similarity) {
+            this.index      = index;
+            this.similarity = similarity;
+        }
+
+        /**
+         * Returns the index of the fingerprint in the database.
+         *
+         * @return the index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the similarity of the fingerprint and the query.
+         *
+         * @return the similarity
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        public int compareTo(Hit hit) {
+            if (similarity > hit.similarity) return -1;
+            if (similarity < hit.similarity) return 1;
+            return index < hit.index ? -1 : index > hit.index ? 1 : 0;
+        }
+
+        public boolean equals(Object object) {
+            if (!(object instanceof Hit)) return false;
+            Hit hit = (Hit) object;
+            return index == hit.index && similarity == hit.similarity;
+        }
+
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(similarity);
+            return 31 * index + (int) (bits ^ (bits >>> 32));
+        }
+
+        public String toString() {
+            return "Hit(" + index + ", " + similarity + ")";
+        }
+    }
+
+    /**
+     * Sorts the fingerprints by their number of set bits, if not yet done.
+     * Fingerprints on the heap are moved, those in a buffer are sorted
+     * through {@link #order}.
+     */
+    private synchronized void index() {
+        if (start != null) return;
+        int[] start = new int[64 * words + 2];
+        boolean sorted = true;
+        for (int slot = 0; slot < count; slot++) {
+            start[cardinalities[slot] + 1]++;
+            if (slot > 0 && cardinalities[slot] < cardinalities[slot - 1]) sorted = false;
+        }
+        for (int c = 1; c < start.length; c++) start[c] += start[c - 1];
+        if (sorted) {
+            order = null;
+        } else if (array != null) {
+            int[] next = Arrays.copyOf(start, start.length);
+            long[] sortedArray = new long[array.length];
+            int[] sortedCardinalities = new int[cardinalities.length];
+            int[] sortedIds = new int[cardinalities.length];
+            int[] sortedSlots = new int[cardinalities.length];
+            for (int slot = 0; slot < count; slot++) {
+                int position = next[cardinalities[slot]]++;
+                System.arraycopy(array, slot * words, sortedArray, position * words, words);
+                sortedCardinalities[position] = cardinalities[slot];
+                sortedIds[position] = id(slot);
+                sortedSlots[id(slot)] = position;
+            }
+            array         = sortedArray;
+            cardinalities = sortedCardinalities;
+            ids           = sortedIds;
+            slots         = sortedSlots;
+            order         = null;
+        } else {
+            int[] next = Arrays.copyOf(start, start.length);
+            order = new int[count];
+            for (int slot = 0; slot < count; slot++) order[next[cardinalities[slot]]++] = slot;
+        }
+        this.start = start;
+    }
+
+    private double similarity(long[] query, int a, int slot) {
+        int common = 0;
+        int offset = slot * words;
+        if (array != null) {
+            for (int w = 0; w < words; w++)
+                common += Long.bitCount(query[w] & array[offset + w]);
+        } else {
+            for (int w = 0; w < words; w++)
+                common += Long.bitCount(query[w] & buffer.get(offset + w));
+        }
+        int union = a + cardinalities[slot] - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    /**
+     * Whether the fingerprint in a slot has every bit of the query set.
+     */
+    private boolean contains(int slot, long[] query) {
+        int offset = slot * words;
+        if (array != null) {
+            for (int w = 0; w < words; w++)
+                if ((query[w] & ~array[offset + w]) != 0) return false;
+        } else {
+            for (int w = 0; w < words; w++)
+                if ((query[w] & ~buffer.get(offset + w)) != 0) return false;
+        }
+        return true;
+    }
+
+    private int slot(int index) {
+        return slots == null ? index : slots[index];
+    }
+
+    private int id(int slot) {
+        return ids == null ? slot : ids[slot];
+    }
+
+    /**
+     * The maximal Tanimoto coefficient of fingerprints with a and b set bits.
+     */
+    private static double bound(int a, int b) {
+        if (a == 0 || b == 0) return 0;
+        return a < b ? (double) a / b : (double) b / a;
+    }
+
+    private long word(int slot, int w) {
+        return array != null ? array[slot * words + w] : buffer.get(slot * words + w);
+    }
+
+    private long[] pack(IBitFingerprint fingerprint) {
+        long[] packed = new long[words];
+        for (int bit : fingerprint.getSetbits()) {
+            if (bit >= size)
+                throw new IllegalArgumentException("Bit " + bit + " exceeds fingerprint size " + size);
+            packed[bit >>> 6] |= 1L << bit;
+        }
+        return packed;
+    }
+
+    private static int cardinality(long[] packed) {
+        int cardinality = 0;
+        for (long word : packed) cardinality += Long.bitCount(word);
+        return cardinality;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("No fingerprint " + index + " in " + count);
+    }
+
+    private static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+}
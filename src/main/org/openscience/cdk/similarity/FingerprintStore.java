@@ -0,0 +1,249 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+
+/**
+ * A file of fingerprints written by {@link FingerprintStoreWriter}, opened
+ * for searching without reading the fingerprints into memory. The
+ * fingerprints are memory mapped and wrapped in a read-only
+ * {@link FingerprintDatabase}, so that a store of millions of fingerprints
+ * can be searched milliseconds after it is opened:
+ * <pre>
+ * FingerprintStore store = FingerprintStore.open(new File("molecules.cfp"));
+ * IFingerprinter fingerprinter = store.newFingerprinter();
+ * IBitFingerprint query = fingerprinter.getBitFingerprint(molecule);
+ * for (FingerprintDatabase.Hit hit : store.getDatabase().searchTop(query, 10))
+ *     System.out.println(store.getTitle(hit.getIndex()) + " " + hit.getSimilarity());
+ * </pre>
+ * The fingerprints of a store must take less than 2 GB.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword fingerprint
+ * @see         FingerprintStoreWriter
+ */
+@TestClass("org.openscience.cdk.similarity.FingerprintStoreTest")
+public class FingerprintStore {
+
+    private final String className;
+    private final int size;
+    private final int searchDepth;
+    private final int count;
+    private final FingerprintDatabase database;
+    /** Title offsets followed by the title bytes. */
+    private final ByteBuffer titles;
+
+    private FingerprintStore(String className, int size, int searchDepth, int count,
+                             FingerprintDatabase database, ByteBuffer titles) {
+        this.className   = className;
+        this.size        = size;
+        this.searchDepth = searchDepth;
+        this.count       = count;
+        this.database    = database;
+        this.titles      = titles;
+    }
+
+    /**
+     * Opens a fingerprint store.
+     *
+     * @param  file        the file written by a {@link FingerprintStoreWriter}
+     * @return             the store
+     * @throws IOException if the file could not be read or is not a
+     *                     fingerprint store
+     */
+    @TestMethod("testOpen")
+    public static FingerprintStore open(File file) throws IOException {
+        DataInputStream header = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file))
+        );
+        String className;
+        int size, searchDepth, count;
+        long position;
+        try {
+            if (header.readInt() != FingerprintStoreWriter.MAGIC)
+                throw new IOException("Not a fingerprint store: " + file);
+            int version = header.readInt();
+            if (version != FingerprintStoreWriter.VERSION)
+                throw new IOException("Unsupported fingerprint store version: " + version);
+            size        = header.readInt();
+            searchDepth = header.readInt();
+            count       = header.readInt();
+            className   = header.readUTF();
+            // five ints, the length of the class name and the class name
+            position = 22 + className.getBytes("UTF-8").length;
+            position = (position + 7) & ~7L;
+        } finally {
+            header.close();
+        }
+
+        long words = (size + 63) >>> 6;
+        long length = 8 * words * count;
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("Fingerprint store too large to map: " + file);
+        RandomAccessFile store = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = store.getChannel();
+            ByteBuffer fingerprints = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            int[] cardinalities = new int[count];
+            int[] ids = new int[count];
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * count)
+                .asIntBuffer().get(cardinalities).get(ids);
+            position += 8L * count;
+            ByteBuffer titles = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                            channel.size() - position);
+            FingerprintDatabase database = new FingerprintDatabase(
+                size, fingerprints.asLongBuffer(), cardinalities, ids
+            );
+            return new FingerprintStore(className, size, searchDepth, count, database, titles);
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Returns the fingerprints of this store. Fingerprints are numbered in the
+     * order they were written.
+     *
+     * @return a read-only fingerprint database
+     */
+    @TestMethod("testGetDatabase")
+    public FingerprintDatabase getDatabase() {
+        return database;
+    }
+
+    /**
+     * Returns the class name of the fingerprinter that calculated the
+     * fingerprints.
+     *
+     * @return the fingerprinter class name
+     */
+    @TestMethod("testOpen")
+    public String getFingerprinterClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the number of bits of the fingerprints.
+     *
+     * @return the fingerprint size
+     */
+    @TestMethod("testOpen")
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the search depth of the fingerprinter that calculated the
+     * fingerprints, for fingerprinters that have one.
+     *
+     * @return the search depth, or -1
+     */
+    @TestMethod("testOpen")
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    /**
+     * Returns the number of fingerprints in this store.
+     *
+     * @return the number of fingerprints
+     */
+    @TestMethod("testOpen")
+    public int getFingerprintCount() {
+        return count;
+    }
+
+    /**
+     * Returns the title of the molecule a fingerprint was calculated for.
+     *
+     * @param  index the index of the fingerprint
+     * @return       the title, or null if the molecule had none
+     */
+    @TestMethod("testGetTitle")
+    public String getTitle(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("No fingerprint " + index + " in " + count);
+        int begin = titles.getInt(4 * index);
+        int end   = titles.getInt(4 * index + 4);
+        if (begin == end) return null;
+        byte[] bytes = new byte[end - begin];
+        ByteBuffer title = titles.duplicate();
+        title.position(4 * (count + 1) + begin);
+        title.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Creates a fingerprinter of the class and with the size and search depth
+     * used for the fingerprints of this store, to fingerprint queries.
+     *
+     * @return              a new fingerprinter
+     * @throws CDKException if the fingerprinter cannot be created
+     */
+    @TestMethod("testNewFingerprinter")
+    public IFingerprinter newFingerprinter() throws CDKException {
+        Class<?> fingerprinterClass;
+        try {
+            fingerprinterClass = Class.forName(className);
+        } catch (ClassNotFoundException exception) {
+            throw new CDKException("Unknown fingerprinter: " + className, exception);
+        }
+        if (!IFingerprinter.class.isAssignableFrom(fingerprinterClass))
+            throw new CDKException("Not a fingerprinter: " + className);
+        Object[][] arguments = searchDepth >= 0
+            ? new Object[][]{{size, searchDepth}, {size}, {}}
+            : new Object[][]{{size}, {}};
+        for (Object[] argument : arguments) {
+            Class<?>[] types = new Class<?>[argument.length];
+            for (int i = 0; i < types.length; i++) types[i] = int.class;
+            try {
+                Constructor<?> constructor = fingerprinterClass.getConstructor(types);
+                IFingerprinter fingerprinter = (IFingerprinter) constructor.newInstance(argument);
+                if (fingerprinter.getSize() == size) return fingerprinter;
+            } catch (NoSuchMethodException exception) {
+                // try the next constructor
+            } catch (Exception exception) {
+                throw new CDKException("Could not create " + className + ": "
+                                       + exception.getMessage(), exception);
+            }
+        }
+        throw new CDKException("Could not create a " + className + " of size " + size);
+    }
+}
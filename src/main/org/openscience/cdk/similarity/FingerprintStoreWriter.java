@@ -0,0 +1,286 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.fingerprint.ExtendedFingerprinter;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.fingerprint.HybridizationFingerprinter;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * Writes fingerprints to a file that can be opened with
+ * {@link FingerprintStore#open(File)}. Fingerprints are numbered in the
+ * order they are written. They and their titles are first spooled to
+ * temporary files next to the target, and the fingerprints are sorted by
+ * their number of set bits when the writer is closed. Fingerprints and
+ * titles are not held in memory, but the sort needs four bytes per
+ * fingerprint while writing, and eight when the writer is closed:
+ * <pre>
+ * FingerprintStoreWriter writer = new FingerprintStoreWriter(
+ *     new File("molecules.cfp"), new Fingerprinter()
+ * );
+ * while (reader.hasNext()) writer.write((IAtomContainer)reader.next());
+ * writer.close();
+ * </pre>
+ * To fingerprint on several threads, the fingerprints calculated by a
+ * {@link org.openscience.cdk.fingerprint.BatchFingerprinter} can be passed to
+ * {@link #write(IBitFingerprint, String)} from its handler.
+ *
+ * <p>The file holds, in big endian byte order:
+ * <ol>
+ * <li>a header: the magic number <code>0x43444B46</code>, the format
+ *     version, the fingerprint size in bits, the search depth of the
+ *     fingerprinter or -1, the number of fingerprints, and the class name of
+ *     the fingerprinter in modified UTF-8, padded with zeros to a multiple of
+ *     eight bytes;</li>
+ * <li>the fingerprints as <code>(size + 63) / 64</code> longs each, sorted
+ *     by their number of set bits;</li>
+ * <li>the number of set bits of each stored fingerprint, as int;</li>
+ * <li>the record id table: the index of each stored fingerprint, as int;</li>
+ * <li>the offsets of the titles, indexed by fingerprint and followed by the
+ *     end offset, as int, and the UTF-8 encoded titles.</li>
+ * </ol>
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ * @cdk.keyword fingerprint
+ * @see         FingerprintStore
+ */
+@TestClass("org.openscience.cdk.similarity.FingerprintStoreTest")
+public class FingerprintStoreWriter implements Closeable {
+
+    /** The first four bytes of a fingerprint store, "CDKF". */
+    static final int MAGIC   = 0x43444B46;
+    static final int VERSION = 1;
+
+    private final File file;
+    private final IFingerprinter fingerprinter;
+    private final String className;
+    private final int size;
+    private final int searchDepth;
+    private final int words;
+
+    private final File spool;
+    private DataOutputStream out;
+    /** Spooled titles, each the length of its UTF-8 encoding followed by the bytes. */
+    private final File titleSpool;
+    private DataOutputStream titlesOut;
+    private int[] cardinalities = new int[1024];
+    private int count = 0;
+
+    /**
+     * Creates a writer for the fingerprints calculated by the given
+     * fingerprinter.
+     *
+     * @param  file          the file to write
+     * @param  fingerprinter the fingerprinter, used by
+     *                       {@link #write(IAtomContainer)} and recorded in
+     *                       the file
+     * @throws IOException   if the temporary files cannot be created
+     */
+    @TestMethod("testWrite")
+    public FingerprintStoreWriter(File file, IFingerprinter fingerprinter) throws IOException {
+        this.file          = file;
+        this.fingerprinter = fingerprinter;
+        this.className     = fingerprinter.getClass().getName();
+        this.size          = fingerprinter.getSize();
+        this.searchDepth   = searchDepth(fingerprinter);
+        this.words         = (size + 63) >>> 6;
+        File directory = file.getAbsoluteFile().getParentFile();
+        this.spool = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            this.titleSpool = File.createTempFile(file.getName(), ".tmp", directory);
+        } catch (IOException exception) {
+            spool.delete();
+            throw exception;
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spool)));
+        this.titlesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(titleSpool)));
+    }
+
+    /**
+     * Fingerprints a molecule and writes the fingerprint, with the
+     * {@link CDKConstants#TITLE} of the molecule.
+     *
+     * @param  molecule     the molecule
+     * @return              the index of the fingerprint
+     * @throws CDKException if the molecule could not be fingerprinted or
+     *                      the fingerprint not be written
+     */
+    @TestMethod("testWrite")
+    public int write(IAtomContainer molecule) throws CDKException {
+        Object title = molecule.getProperty(CDKConstants.TITLE);
+        return write(fingerprinter.getBitFingerprint(molecule),
+                     title == null ? null : title.toString());
+    }
+
+    /**
+     * Writes a fingerprint calculated by the fingerprinter of this writer.
+     *
+     * @param  fingerprint  the fingerprint
+     * @param  title        the title of the fingerprinted molecule, may be null
+     * @return              the index of the fingerprint
+     * @throws CDKException if the fingerprint could not be written
+     */
+    @TestMethod("testWrite")
+    public int write(IBitFingerprint fingerprint, String title) throws CDKException {
+        if (out == null)
+            throw new CDKException("Writer is closed");
+        long[] packed = new long[words];
+        for (int bit : fingerprint.getSetbits()) {
+            if (bit >= size)
+                throw new CDKException("Bit " + bit + " exceeds fingerprint size " + size);
+            packed[bit >>> 6] |= 1L << bit;
+        }
+        int cardinality = 0;
+        try {
+            for (long word : packed) {
+                out.writeLong(word);
+                cardinality += Long.bitCount(word);
+            }
+            byte[] encoded = title == null ? new byte[0] : title.getBytes("UTF-8");
+            titlesOut.writeInt(encoded.length);
+            titlesOut.write(encoded);
+        } catch (IOException exception) {
+            throw new CDKException("Could not write fingerprint: " + exception.getMessage(), exception);
+        }
+        if (count == cardinalities.length)
+            cardinalities = Arrays.copyOf(cardinalities, 2 * count);
+        cardinalities[count] = cardinality;
+        return count++;
+    }
+
+    /**
+     * Sorts the fingerprints, writes the file and removes the temporary files.
+     *
+     * @throws IOException if the file could not be written
+     */
+    @TestMethod("testWrite")
+    public void close() throws IOException {
+        if (out == null) return;
+        try {
+            out.close();
+            titlesOut.close();
+            writeStore();
+        } finally {
+            out = null;
+            titlesOut = null;
+            spool.delete();
+            titleSpool.delete();
+        }
+    }
+
+    private void writeStore() throws IOException {
+        // counting sort of the fingerprints by their number of set bits
+        int[] start = new int[64 * words + 2];
+        for (int i = 0; i < count; i++) start[cardinalities[i] + 1]++;
+        for (int c = 1; c < start.length; c++) start[c] += start[c - 1];
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[start[cardinalities[i]]++] = i;
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(size);
+        data.writeInt(searchDepth);
+        data.writeInt(count);
+        data.writeUTF(className);
+        while (header.size() % 8 != 0) data.writeByte(0);
+
+        RandomAccessFile spooled = new RandomAccessFile(spool, "r");
+        DataInputStream titles = null;
+        DataOutputStream store = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), 1 << 16)
+        );
+        try {
+            store.write(header.toByteArray());
+            FileChannel channel = spooled.getChannel();
+            LongBuffer fingerprints = channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, channel.size()
+            ).asLongBuffer();
+            for (int slot = 0; slot < count; slot++) {
+                int offset = ids[slot] * words;
+                for (int w = 0; w < words; w++) store.writeLong(fingerprints.get(offset + w));
+            }
+            for (int slot = 0; slot < count; slot++) store.writeInt(cardinalities[ids[slot]]);
+            for (int slot = 0; slot < count; slot++) store.writeInt(ids[slot]);
+
+            // the titles are in input order already, one pass for the offsets, one for the bytes
+            titles = openTitles();
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                int length = titles.readInt();
+                if (titles.skipBytes(length) != length)
+                    throw new IOException("Truncated title spool");
+                store.writeInt(offset);
+                offset += length;
+            }
+            store.writeInt(offset);
+            titles.close();
+            titles = openTitles();
+            byte[] buffer = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = titles.readInt();
+                if (length > buffer.length) buffer = new byte[Math.max(length, 2 * buffer.length)];
+                titles.readFully(buffer, 0, length);
+                store.write(buffer, 0, length);
+            }
+        } finally {
+            store.close();
+            spooled.close();
+            if (titles != null) titles.close();
+        }
+    }
+
+    private DataInputStream openTitles() throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(titleSpool), 1 << 16));
+    }
+
+    private static int searchDepth(IFingerprinter fingerprinter) {
+        if (fingerprinter instanceof Fingerprinter)
+            return ((Fingerprinter) fingerprinter).getSearchDepth();
+        if (fingerprinter instanceof ExtendedFingerprinter)
+            return ((ExtendedFingerprinter) fingerprinter).getSearchDepth();
+        if (fingerprinter instanceof HybridizationFingerprinter)
+            return ((HybridizationFingerprinter) fingerprinter).getSearchDepth();
+        return -1;
+    }
+}
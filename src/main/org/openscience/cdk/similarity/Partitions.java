@@ -0,0 +1,127 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a calculation over a range of items into one part per thread.
+ *
+ * @cdk.module  fingerprint
+ * @cdk.githash
+ */
+final class Partitions {
+
+    /** Ranges smaller than this are not split. */
+    private static final int MIN_ITEMS = 64;
+
+    /** Seconds after which an idle thread of a pool ends. */
+    private static final long KEEP_ALIVE = 60;
+
+    /**
+     * A part of a calculation, run on one thread for a range of items.
+     */
+    interface Partition<T> {
+        T run(int begin, int end);
+    }
+
+    private Partitions() {}
+
+    /**
+     * Creates a pool for the parts of the calculations of one database. The
+     * calling thread runs a part itself, so the pool has one thread less than
+     * the given number. Its threads are daemon threads that end after a minute
+     * without work, so a pool that is no longer used needs no shutdown.
+     *
+     * @param  threads the number of threads of the calculations, at least two
+     * @return         the pool
+     */
+    static ExecutorService newPool(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threads - 1, threads - 1, KEEP_ALIVE, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final ThreadFactory factory = Executors.defaultThreadFactory();
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = factory.newThread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Splits the items into one range per thread and runs the partition on
+     * each of them. The first range is run on the calling thread, the others
+     * on the pool. With a single thread, or few items, the partition is run
+     * on the calling thread only.
+     *
+     * @param  pool      the pool created by {@link #newPool(int)} for the
+     *                   number of threads, may be null for a single thread
+     * @param  items     the number of items
+     * @param  threads   the maximum number of threads
+     * @param  partition the calculation
+     * @return           the results of the ranges, in order
+     */
+    static <T> List<T> run(ExecutorService pool, int items, int threads, final Partition<T> partition) {
+        List<T> results = new ArrayList<T>();
+        int parts = Math.min(threads, Math.max(1, items / MIN_ITEMS));
+        if (parts == 1) {
+            results.add(partition.run(0, items));
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        try {
+            for (int part = 1; part < parts; part++) {
+                final int begin = (int) ((long) items * part / parts);
+                final int end   = (int) ((long) items * (part + 1) / parts);
+                futures.add(pool.submit(new Callable<T>() {
+                    public T call() {
+                        return partition.run(begin, end);
+                    }
+                }));
+            }
+            results.add(partition.run(0, (int) ((long) items / parts)));
+            for (Future<T> future : futures) results.add(future.get());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException)
+                throw (RuntimeException) exception.getCause();
+            throw new IllegalStateException(exception.getCause());
+        } finally {
+            for (Future<T> future : futures) future.cancel(false);
+        }
+        return results;
+    }
+}
@@ -40,8 +40,6 @@ import org.openscience.cdk.fingerprint.IntArrayFingerprint;
 
 import java.util.BitSet;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  *  Calculates the Tanimoto coefficient for a given pair of two 
@@ -171,12 +169,13 @@ public class Tanimoto
      */
     @TestMethod("testTanimoto4")
     public static float calculate(Map<String, Integer> features1, Map<String, Integer> features2) {
-        Set<String> common = new TreeSet<String>(features1.keySet());
-        common.retainAll(features2.keySet());
+        // look up the features of the smaller map in the larger one
+        Map<String, Integer> small = features1.size() <= features2.size() ? features1 : features2;
+        Map<String, Integer> large = small == features1 ? features2 : features1;
         double xy = 0., x = 0., y = 0.;
-        for (String s : common) {
-            int c1 = features1.get(s), c2 = features2.get(s);
-            xy += c1 * c2;
+        for (Map.Entry<String, Integer> feature : small.entrySet()) {
+            Integer c2 = large.get(feature.getKey());
+            if (c2 != null) xy += feature.getValue() * c2;
         }
         for (Integer c : features1.values()) {
             x += c * c;
@@ -198,25 +197,13 @@ public class Tanimoto
      * @return The Tanimoto coefficient
      */
     @TestMethod("testICountFingerprintComparison")
-	public static double calculate( ICountFingerprint fp1, 
-			                       ICountFingerprint fp2 ) {
-		long xy=0, 
-		     x=0, 
-		     y=0;
-		for ( int i= 0; i<fp1.numOfPopulatedbins(); i++ ) {
-			int hash = fp1.getHash(i);
-			for ( int j =0; j<fp2.numOfPopulatedbins(); j++ ) {
-				if ( hash == fp2.getHash(j) ) {
-					xy += fp1.getCount(i) * fp2.getCount(j);
-				}
-			}
-			x += fp1.getCount(i) * fp1.getCount(i);
-		}
-		for (int j = 0; j < fp2.numOfPopulatedbins(); j++) {
-			y += fp2.getCount(j) * fp2.getCount(j);
-		}
-	    return ( (double)xy / (x + y - xy) );
-	}
+    public static double calculate( ICountFingerprint fp1, 
+                                    ICountFingerprint fp2 ) {
+        long xy = CountFingerprintSimilarity.dot(fp1, fp2),
+             x  = CountFingerprintSimilarity.squares(fp1),
+             y  = CountFingerprintSimilarity.squares(fp2);
+        return ( (double)xy / (x + y - xy) );
+    }
     
     /**
      * Calculates Tanimoto distance for two count fingerprints using method 1.
@@ -239,40 +226,24 @@ public class Tanimoto
      */
     public static double method2( ICountFingerprint fp1,
                                   ICountFingerprint fp2) {
-    	
-    		long maxSum = 0,
-    		     minSum = 0;
-    		int i = 0, 
-    		    j = 0;
-    		while ( i < fp1.numOfPopulatedbins() 
-    				|| j < fp2.numOfPopulatedbins() ) {
-    			Integer hash1 = i < fp1.numOfPopulatedbins() ? fp1.getHash(i) 
-    					                                     : null;
-    			Integer hash2 = j < fp2.numOfPopulatedbins() ? fp2.getHash(j) 
-    					                                     : null;
-    			Integer count1 = i < fp1.numOfPopulatedbins() ? fp1.getCount(i) 
-    					                                      : null;
-    			Integer count2 = j < fp2.numOfPopulatedbins() ? fp2.getCount(j) 
-    					                                      : null;
-    			
-    			if ( count2 == null || (hash1 != null && hash1 < hash2) ) {
-    			maxSum += count1;
-    				i++;
-    				continue;
-    			}
-    			if ( count1 == null || (hash2 != null && hash1 > hash2 ) ) {
-    				maxSum += count2;
-    				j++;
-    				continue;
-    			}
-    			
-    			if ( hash1.equals(hash2) ) {
-    				maxSum += Math.max(count1, count2);
-    				minSum += Math.min(count1, count2);
-    				i++;
-    				j++;
-    			}
-    		}
-    		return ((double)minSum) / maxSum;
+        long maxSum = 0,
+             minSum = 0;
+        int i = 0,
+            j = 0;
+        int n = fp1.numOfPopulatedbins(),
+            m = fp2.numOfPopulatedbins();
+        while ( i < n || j < m ) {
+            if ( j == m || (i < n && fp1.getHash(i) < fp2.getHash(j)) ) {
+                maxSum += fp1.getCount(i++);
+            } else if ( i == n || fp1.getHash(i) > fp2.getHash(j) ) {
+                maxSum += fp2.getCount(j++);
+            } else {
+                int count1 = fp1.getCount(i++),
+                    count2 = fp2.getCount(j++);
+                maxSum += Math.max(count1, count2);
+                minSum += Math.min(count1, count2);
+            }
+        }
+        return ((double)minSum) / maxSum;
     }
 }
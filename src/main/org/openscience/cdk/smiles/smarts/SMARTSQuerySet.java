@@ -0,0 +1,433 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.smiles.smarts;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.annotations.TestClass;
+import org.openscience.cdk.annotations.TestMethod;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.isomorphism.SubgraphMappings;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.smarts.AliphaticSymbolAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AromaticAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AromaticSymbolAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AtomicNumberAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.LogicalOperatorAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.QueryAtomProgram;
+import org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsCache;
+import org.openscience.cdk.isomorphism.matchers.smarts.RingAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.RingBond;
+import org.openscience.cdk.isomorphism.matchers.smarts.SmallestRingAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.TotalRingConnectionAtom;
+import org.openscience.cdk.smiles.smarts.parser.SMARTSParser;
+import org.openscience.cdk.smiles.smarts.parser.TokenMgrError;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
+
+/**
+ * A set of SMARTS patterns that are parsed once and matched against a
+ * molecule together, as needed for substructure key fingerprints. Where a
+ * {@link SMARTSQueryTool} parses its pattern whenever it is set, and matches
+ * one pattern per call, this class prepares the molecule once and returns the
+ * patterns that match it as a bit set:
+ * <pre>
+ * SMARTSQuerySet queries = new SMARTSQuerySet(new String[]{"c1ccccc1", "C=O", "[OH]"});
+ * BitSet hits = queries.matches(molecule);
+ * </pre>
+ *
+ * <p>When the set is created, the elements, the number of aromatic atoms and
+ * the number of ring atoms and ring bonds each pattern needs are derived from
+ * its atoms and bonds; atoms and bonds on a cycle of the pattern, and those
+ * with ring primitives such as <code>r5</code> or <code>@</code>, need ring
+ * atoms and bonds. A pattern is only matched if the molecule has these atoms
+ * and bonds, which skips most of a large key set or filter library for a
+ * typical molecule. Identical patterns are matched once, and a recursive
+ * SMARTS that occurs in several patterns is searched once, in a
+ * {@link RecursiveSmartsCache} of the molecule. The remaining patterns are
+ * matched with the {@link VF2IsomorphismTester}, their atoms compiled to
+ * {@link QueryAtomProgram}s that test the atom invariants kept in the cache;
+ * a pattern with a count matches if it maps to more distinct sets of atoms.
+ *
+ * <p>A set may be used from several threads. The parsed queries hold the
+ * molecule they are matched against, so each thread parses the patterns it
+ * needs on first use. To screen a stream of molecules on several threads, a
+ * {@link org.openscience.cdk.fingerprint.SubstructureFingerprinter} with the
+ * patterns can be passed to a
+ * {@link org.openscience.cdk.fingerprint.BatchFingerprinter}; the bits of each
+ * fingerprint are the patterns that match:
+ * <pre>
+ * final SubstructureFingerprinter filters = new SubstructureFingerprinter(smarts);
+ * BatchFingerprinter batch = new BatchFingerprinter(
+ *     new BatchFingerprinter.FingerprinterFactory() {
+ *         public IFingerprinter newFingerprinter() {
+ *             return filters;
+ *         }
+ *     }
+ * );
+ * batch.setPerceiveAtomTypes(true);
+ * batch.process(reader, handler);
+ * </pre>
+ *
+ * @cdk.module  smarts
+ * @cdk.githash
+ * @cdk.keyword SMARTS
+ * @cdk.keyword substructure search
+ * @see         SMARTSQueryTool
+ */
+@TestClass("org.openscience.cdk.smiles.smarts.SMARTSQuerySetTest")
+public class SMARTSQuerySet {
+
+    private final String[] smarts;
+    /** The number of unique matches a pattern must exceed, or null for one match. */
+    private final int[] counts;
+    /** The index of the first identical pattern, or the index itself. */
+    private final int[] first;
+
+    /*
+     * Requirements of each pattern: the number of atoms, the number of
+     * aromatic atoms, and pairs of atomic number and number of atoms.
+     */
+    private final int[] atomCounts;
+    private final int[] aromaticCounts;
+    private final int[] ringAtomCounts;
+    private final int[] ringBondCounts;
+    private final int[][] elementCounts;
+
+    private final ThreadLocal<QueryAtomContainer[]> queries;
+    /** The compiled atoms of the parsed queries of each thread. */
+    private final ThreadLocal<QueryAtomProgram[][]> programs;
+
+    /**
+     * Creates a set of patterns, each of which matches a molecule if it is
+     * found at least once.
+     *
+     * @param smarts the patterns
+     * @throws IllegalArgumentException if a pattern can not be parsed
+     */
+    @TestMethod("testMatches")
+    public SMARTSQuerySet(String[] smarts) {
+        this(smarts, null);
+    }
+
+    /**
+     * Creates a set of patterns, each of which matches a molecule if it has
+     * more unique matches than given by <code>counts</code>. A count of zero
+     * requires one match.
+     *
+     * @param smarts the patterns
+     * @param counts the number of unique matches each pattern must exceed,
+     *               or null
+     * @throws IllegalArgumentException if a pattern can not be parsed
+     */
+    @TestMethod("testMatches_counts")
+    public SMARTSQuerySet(String[] smarts, int[] counts) {
+        if (counts != null && counts.length != smarts.length)
+            throw new IllegalArgumentException("Expected " + smarts.length + " counts");
+        int n = smarts.length;
+        this.smarts         = smarts.clone();
+        this.counts         = counts == null ? null : counts.clone();
+        this.first          = new int[n];
+        this.atomCounts     = new int[n];
+        this.aromaticCounts = new int[n];
+        this.ringAtomCounts = new int[n];
+        this.ringBondCounts = new int[n];
+        this.elementCounts  = new int[n][];
+
+        final QueryAtomContainer[] parsed = new QueryAtomContainer[n];
+        Map<String, Integer> indices = new HashMap<String, Integer>();
+        for (int i = 0; i < n; i++) {
+            String key = count(i) + " " + smarts[i];
+            Integer index = indices.get(key);
+            if (index != null) {
+                first[i] = index;
+                continue;
+            }
+            indices.put(key, i);
+            first[i] = i;
+            parsed[i] = parse(smarts[i]);
+
+            Map<Integer, Integer> elements = new TreeMap<Integer, Integer>();
+            for (IAtom atom : parsed[i].atoms()) {
+                int element = element((IQueryAtom) atom);
+                if (element > 0) {
+                    Integer count = elements.get(element);
+                    elements.put(element, count == null ? 1 : count + 1);
+                }
+                if (aromatic((IQueryAtom) atom)) aromaticCounts[i]++;
+            }
+            atomCounts[i] = parsed[i].getAtomCount();
+            ringRequirements(parsed[i], i);
+            elementCounts[i] = new int[2 * elements.size()];
+            int k = 0;
+            for (Map.Entry<Integer, Integer> entry : elements.entrySet()) {
+                elementCounts[i][k++] = entry.getKey();
+                elementCounts[i][k++] = entry.getValue();
+            }
+        }
+        queries = new ThreadLocal<QueryAtomContainer[]>() {
+            protected QueryAtomContainer[] initialValue() {
+                return new QueryAtomContainer[parsed.length];
+            }
+        };
+        queries.set(parsed);
+        programs = new ThreadLocal<QueryAtomProgram[][]>() {
+            protected QueryAtomProgram[][] initialValue() {
+                return new QueryAtomProgram[parsed.length][];
+            }
+        };
+    }
+
+    /**
+     * Returns the number of patterns in this set.
+     *
+     * @return the number of patterns
+     */
+    @TestMethod("testMatches")
+    public int size() {
+        return smarts.length;
+    }
+
+    /**
+     * Returns a pattern of this set.
+     *
+     * @param  index the index of the pattern
+     * @return       the SMARTS pattern
+     */
+    @TestMethod("testMatches")
+    public String getSmarts(int index) {
+        return smarts[index];
+    }
+
+    /**
+     * Matches all patterns against a molecule. The molecule is prepared as
+     * by {@link SMARTSQueryTool#matches(IAtomContainer)}, once for all
+     * patterns.
+     *
+     * @param  atomContainer the target molecule
+     * @return               the indices of the patterns that match
+     * @throws CDKException  if there is an error in ring, aromaticity or
+     *                       isomorphism perception
+     */
+    @TestMethod("testMatches,testMatches_counts")
+    public BitSet matches(IAtomContainer atomContainer) throws CDKException {
+        SMARTSQueryTool.initializeMolecule(atomContainer);
+
+        int atomCount = atomContainer.getAtomCount();
+        int aromaticCount = 0, ringAtomCount = 0, ringBondCount = 0;
+        int[] elements = new int[0];
+        for (IBond bond : atomContainer.bonds())
+            if (bond.getFlag(CDKConstants.ISINRING)) ringBondCount++;
+        for (IAtom atom : atomContainer.atoms()) {
+            if (atom.getFlag(CDKConstants.ISAROMATIC)) aromaticCount++;
+            if (atom.getFlag(CDKConstants.ISINRING)) ringAtomCount++;
+            Integer element = atom.getSymbol() == null ? null : PeriodicTable.getAtomicNumber(atom.getSymbol());
+            if (element == null) continue;
+            if (element >= elements.length) {
+                int[] grown = new int[element + 1];
+                System.arraycopy(elements, 0, grown, 0, elements.length);
+                elements = grown;
+            }
+            elements[element]++;
+        }
+
+        VF2IsomorphismTester tester = new VF2IsomorphismTester(atomContainer);
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        QueryAtomContainer[] parsed = queries.get();
+        QueryAtomProgram[][] compiled = programs.get();
+        BitSet hits = new BitSet(smarts.length);
+        for (int i = 0; i < smarts.length; i++) {
+            if (first[i] != i) {
+                if (hits.get(first[i])) hits.set(i);
+                continue;
+            }
+            if (atomCounts[i] > atomCount || aromaticCounts[i] > aromaticCount)
+                continue;
+            if (ringAtomCounts[i] > ringAtomCount || ringBondCounts[i] > ringBondCount)
+                continue;
+            if (!hasElements(elementCounts[i], elements))
+                continue;
+            if (parsed[i] == null) parsed[i] = parse(smarts[i]);
+            if (compiled[i] == null) compiled[i] = QueryAtomProgram.compile(parsed[i]);
+            if (matches(parsed[i], compiled[i], count(i), atomContainer, tester, cache)) hits.set(i);
+        }
+        return hits;
+    }
+
+    private int count(int index) {
+        return counts == null ? 0 : counts[index];
+    }
+
+    /**
+     * Counts the atoms and bonds of a pattern that can only match ring atoms
+     * and ring bonds: those on a cycle of the pattern, and those with a ring
+     * primitive. A bond is on a cycle if its atoms are still connected
+     * without it.
+     */
+    private void ringRequirements(QueryAtomContainer query, int index) {
+        int n = query.getAtomCount();
+        boolean[] ringAtoms = new boolean[n];
+        for (int i = 0; i < n; i++)
+            ringAtoms[i] = ring((IQueryAtom) query.getAtom(i));
+        List<int[]> bonds = new ArrayList<int[]>();
+        List<IBond> queryBonds = new ArrayList<IBond>();
+        for (IBond bond : query.bonds()) {
+            // recursive SMARTS may leave bonds to atoms of their fragments
+            int begin = query.getAtomNumber(bond.getAtom(0));
+            int end   = query.getAtomNumber(bond.getAtom(1));
+            if (begin < 0 || end < 0) continue;
+            bonds.add(new int[]{begin, end});
+            queryBonds.add(bond);
+        }
+        for (int k = 0; k < bonds.size(); k++) {
+            int[] bond = bonds.get(k);
+            boolean cyclic = connected(n, bonds, k);
+            if (cyclic || queryBonds.get(k) instanceof RingBond) ringBondCounts[index]++;
+            if (cyclic) ringAtoms[bond[0]] = ringAtoms[bond[1]] = true;
+        }
+        for (boolean ring : ringAtoms)
+            if (ring) ringAtomCounts[index]++;
+    }
+
+    /**
+     * Whether the atoms of a bond are connected by the other bonds.
+     */
+    private static boolean connected(int atomCount, List<int[]> bonds, int skipped) {
+        int begin = bonds.get(skipped)[0], end = bonds.get(skipped)[1];
+        boolean[] visited = new boolean[atomCount];
+        int[] stack = new int[atomCount];
+        int size = 0;
+        stack[size++] = begin;
+        visited[begin] = true;
+        while (size > 0) {
+            int atom = stack[--size];
+            if (atom == end) return true;
+            for (int k = 0; k < bonds.size(); k++) {
+                if (k == skipped) continue;
+                int[] bond = bonds.get(k);
+                int other = bond[0] == atom ? bond[1] : bond[1] == atom ? bond[0] : -1;
+                if (other >= 0 && !visited[other]) {
+                    visited[other] = true;
+                    stack[size++] = other;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasElements(int[] required, int[] elements) {
+        for (int k = 0; k < required.length; k += 2) {
+            int element = required[k];
+            if (element >= elements.length || elements[element] < required[k + 1])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(QueryAtomContainer query, QueryAtomProgram[] programs, int count,
+                                   IAtomContainer atomContainer, VF2IsomorphismTester tester,
+                                   RecursiveSmartsCache cache) throws CDKException {
+        SMARTSQueryTool.initializeRecursiveSmarts(query, atomContainer, cache);
+        SubgraphMappings mappings = tester.getSubgraphMappings(
+            atomContainer, query, QueryAtomProgram.matcher(programs, cache.getInvariants())
+        );
+        return count == 0 ? mappings.atLeast(1) : mappings.uniqueAtoms().atLeast(count + 1);
+    }
+
+    private static QueryAtomContainer parse(String smarts) {
+        try {
+            return SMARTSParser.parse(smarts);
+        } catch (TokenMgrError error) {
+            throw new IllegalArgumentException("Error parsing SMARTS", error);
+        }
+    }
+
+    /**
+     * The atomic number every atom matching a query atom has, or 0.
+     */
+    private static int element(IQueryAtom atom) {
+        if (atom instanceof AliphaticSymbolAtom || atom instanceof AromaticSymbolAtom) {
+            Integer element = PeriodicTable.getAtomicNumber(atom.getSymbol());
+            return element == null ? 0 : element;
+        }
+        if (atom instanceof AtomicNumberAtom)
+            return atom.getAtomicNumber();
+        if (atom instanceof LogicalOperatorAtom) {
+            LogicalOperatorAtom operator = (LogicalOperatorAtom) atom;
+            IQueryAtom right = operator.getRight();
+            if (right == null)
+                return "not".equals(operator.getOperator()) ? 0 : element(operator.getLeft());
+            int left = element(operator.getLeft());
+            if ("and".equals(operator.getOperator()))
+                return left != 0 ? left : element(right);
+            if ("or".equals(operator.getOperator()) && left == element(right))
+                return left;
+        }
+        return 0;
+    }
+
+    /**
+     * Whether every atom matching a query atom is in a ring.
+     */
+    private static boolean ring(IQueryAtom atom) {
+        if (atom instanceof RingAtom || atom instanceof SmallestRingAtom
+            || atom instanceof TotalRingConnectionAtom)
+            return true;
+        if (atom instanceof LogicalOperatorAtom) {
+            LogicalOperatorAtom operator = (LogicalOperatorAtom) atom;
+            IQueryAtom right = operator.getRight();
+            if (right == null)
+                return !"not".equals(operator.getOperator()) && ring(operator.getLeft());
+            if ("and".equals(operator.getOperator()))
+                return ring(operator.getLeft()) || ring(right);
+            if ("or".equals(operator.getOperator()))
+                return ring(operator.getLeft()) && ring(right);
+        }
+        return false;
+    }
+
+    /**
+     * Whether every atom matching a query atom is aromatic.
+     */
+    private static boolean aromatic(IQueryAtom atom) {
+        if (atom instanceof AromaticSymbolAtom || atom instanceof AromaticAtom)
+            return true;
+        if (atom instanceof LogicalOperatorAtom) {
+            LogicalOperatorAtom operator = (LogicalOperatorAtom) atom;
+            IQueryAtom right = operator.getRight();
+            if (right == null)
+                return !"not".equals(operator.getOperator()) && aromatic(operator.getLeft());
+            if ("and".equals(operator.getOperator()))
+                return aromatic(operator.getLeft()) || aromatic(right);
+            if ("or".equals(operator.getOperator()))
+                return aromatic(operator.getLeft()) && aromatic(right);
+        }
+        return false;
+    }
+}
@@ -21,7 +21,8 @@
 package org.openscience.cdk.smiles.smarts;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,17 +35,16 @@ import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IRingSet;
-import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
-import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.SubgraphMappings;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
 import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
 import org.openscience.cdk.isomorphism.matchers.smarts.HydrogenAtom;
 import org.openscience.cdk.isomorphism.matchers.smarts.LogicalOperatorAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.QueryAtomProgram;
 import org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsAtom;
-import org.openscience.cdk.isomorphism.mcss.RMap;
-import org.openscience.cdk.ringsearch.AllRingsFinder;
-import org.openscience.cdk.ringsearch.SSSRFinder;
+import org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsCache;
+import org.openscience.cdk.ringsearch.RingPerception;
 import org.openscience.cdk.smiles.smarts.parser.SMARTSParser;
 import org.openscience.cdk.smiles.smarts.parser.TokenMgrError;
 import org.openscience.cdk.tools.ILoggingTool;
@@ -113,10 +113,63 @@ import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 public class SMARTSQueryTool {
     private static ILoggingTool logger =
             LoggingToolFactory.createLoggingTool(SMARTSQueryTool.class);
+
+    // Code copied from
+    // org.openscience.cdk.qsar.descriptors.atomic.AtomValenceDescriptor;
+    private static final Map<String, Integer> valencesTable = new HashMap<String, Integer>();
+    static {
+        valencesTable.put("H", 1);
+        valencesTable.put("Li", 1);
+        valencesTable.put("Be", 2);
+        valencesTable.put("B", 3);
+        valencesTable.put("C", 4);
+        valencesTable.put("N", 5);
+        valencesTable.put("O", 6);
+        valencesTable.put("F", 7);
+        valencesTable.put("Na", 1);
+        valencesTable.put("Mg", 2);
+        valencesTable.put("Al", 3);
+        valencesTable.put("Si", 4);
+        valencesTable.put("P", 5);
+        valencesTable.put("S", 6);
+        valencesTable.put("Cl", 7);
+        valencesTable.put("K", 1);
+        valencesTable.put("Ca", 2);
+        valencesTable.put("Ga", 3);
+        valencesTable.put("Ge", 4);
+        valencesTable.put("As", 5);
+        valencesTable.put("Se", 6);
+        valencesTable.put("Br", 7);
+        valencesTable.put("Rb", 1);
+        valencesTable.put("Sr", 2);
+        valencesTable.put("In", 3);
+        valencesTable.put("Sn", 4);
+        valencesTable.put("Sb", 5);
+        valencesTable.put("Te", 6);
+        valencesTable.put("I", 7);
+        valencesTable.put("Cs", 1);
+        valencesTable.put("Ba", 2);
+        valencesTable.put("Tl", 3);
+        valencesTable.put("Pb", 4);
+        valencesTable.put("Bi", 5);
+        valencesTable.put("Po", 6);
+        valencesTable.put("At", 7);
+        valencesTable.put("Fr", 1);
+        valencesTable.put("Ra", 2);
+        valencesTable.put("Cu", 2);
+        valencesTable.put("Mn", 2);
+        valencesTable.put("Co", 2);
+    }
+
     private String smarts;
     private IAtomContainer atomContainer = null;
     private QueryAtomContainer query = null;
+    /** The atoms of the query, compiled to tests of the atom invariants. */
+    private QueryAtomProgram[] programs = null;
+    /** The matches of recursive SMARTS against the current molecule. */
+    private RecursiveSmartsCache recursiveSmarts = null;
 
+    private SubgraphMappings mappings = null;
     private List<List<Integer>> matchingAtoms = null;
 
     // a simplistic cache to store parsed SMARTS queries
@@ -198,8 +251,8 @@ public class SMARTSQueryTool {
 
     /**
      * Perform a SMARTS match and check whether the query is present in the target molecule. <p/> This function simply
-     * checks whether the query pattern matches the specified molecule. However the function will also, internally, save
-     * the mapping of query atoms to the target molecule
+     * checks whether the query pattern matches the specified molecule, and stops at the first match. The other
+     * mappings of query atoms to the target molecule are searched when they are requested.
      *
      * @param atomContainer       The target moleculoe
      * @param forceInitialization If true, then the molecule is initialized (ring perception, aromaticity etc). If
@@ -215,45 +268,69 @@ public class SMARTSQueryTool {
     public boolean matches(IAtomContainer atomContainer, boolean forceInitialization) throws CDKException {
 
         if (this.atomContainer == atomContainer) {
-            if (forceInitialization) initializeMolecule();
+            if (forceInitialization) {
+                RingPerception.invalidate(atomContainer);
+                initializeMolecule(atomContainer);
+                recursiveSmarts = null;
+            }
         } else {
             this.atomContainer = atomContainer;
-            initializeMolecule();
+            initializeMolecule(atomContainer);
+            recursiveSmarts = null;
+        }
+        if (recursiveSmarts == null) recursiveSmarts = new RecursiveSmartsCache(atomContainer);
+        return matches(recursiveSmarts);
+    }
+
+    /**
+     * Perform a SMARTS match and check whether the query is present in the target molecule, sharing the matches of
+     * recursive SMARTS with other queries. <p/> The molecule is only initialized if it is different (in terms of object
+     * reference) than one supplied in a previous call to a matches method. Recursive SMARTS of the query that are in
+     * the cache are not searched again, and those that are searched are added to it, so that a cache can be passed to
+     * the tools of several patterns that are matched against the same molecule. The cache must be cleared when the
+     * molecule changes.
+     *
+     * @param atomContainer The target molecule
+     * @param cache         The matches of recursive SMARTS against the target molecule
+     * @return true if the pattern is found in the target molecule, false otherwise
+     * @throws CDKException if there is an error in ring, aromaticity or isomorphism perception
+     * @throws IllegalArgumentException if the cache is not the cache of the target molecule
+     * @see #matches(org.openscience.cdk.interfaces.IAtomContainer)
+     */
+    @TestMethod("testMatches_cache")
+    public boolean matches(IAtomContainer atomContainer, RecursiveSmartsCache cache) throws CDKException {
+        if (cache.getAtomContainer() != atomContainer)
+            throw new IllegalArgumentException("The cache is not the cache of the target molecule");
+        if (this.atomContainer != atomContainer) {
+            this.atomContainer = atomContainer;
+            initializeMolecule(atomContainer);
+            recursiveSmarts = null;
         }
+        return matches(cache);
+    }
 
+    private boolean matches(RecursiveSmartsCache cache) throws CDKException {
         // First calculate the recursive smarts
-        initializeRecursiveSmarts(this.atomContainer);
-
-        // lets see if we have a single atom query
-        if (query.getAtomCount() == 1) {
-            // lets get the query atom
-            IQueryAtom queryAtom = (IQueryAtom) query.getAtom(0);
-
-            matchingAtoms = new ArrayList<List<Integer>>();
-            for (IAtom atom : this.atomContainer.atoms()) {
-                if (queryAtom.matches(atom)) {
-                    List<Integer> tmp = new ArrayList<Integer>();
-                    tmp.add(this.atomContainer.getAtomNumber(atom));
-                    matchingAtoms.add(tmp);
-                }
-            }
-        } else {
-            List bondMapping = new UniversalIsomorphismTester().getSubgraphMaps(this.atomContainer, query);
-            matchingAtoms = getAtomMappings(bondMapping, this.atomContainer);
-        }
+        initializeRecursiveSmarts(query, this.atomContainer, cache);
 
-        return matchingAtoms.size() != 0;
+        // the mappings are searched when they are needed
+        mappings = new VF2IsomorphismTester(this.atomContainer).getSubgraphMappings(
+            this.atomContainer, query, QueryAtomProgram.matcher(programs, cache.getInvariants())
+        );
+        matchingAtoms = null;
+        return mappings.atLeast(1);
     }
 
     /**
      * Returns the number of times the pattern was found in the target molecule. <p/> This function should be called
      * after {@link #matches(org.openscience.cdk.interfaces.IAtomContainer)}. If not, the results may be undefined.
+     * The matches are counted as they are found, without keeping them.
      *
      * @return The number of times the pattern was found in the target molecule
      */
     @TestMethod("testQueryTool")
     public int countMatches() {
-        return matchingAtoms.size();
+        return mappings.count();
     }
 
     /**
@@ -265,6 +342,7 @@ public class SMARTSQueryTool {
      */
     @TestMethod("testQueryTool")
     public List<List<Integer>> getMatchingAtoms() {
+        if (matchingAtoms == null) matchingAtoms = getAtomLists(mappings, false);
         return matchingAtoms;
     }
 
@@ -277,33 +355,25 @@ public class SMARTSQueryTool {
      */
     @TestMethod("testUniqueQueries")
     public List<List<Integer>> getUniqueMatchingAtoms() {
-        List<List<Integer>> ret = new ArrayList<List<Integer>>();
-        for (List<Integer> atomMapping : matchingAtoms) {
-            Collections.sort(atomMapping);
-
-            // see if this sequence of atom indices is present
-            // in the return container
-            boolean present = false;
-            for (List<Integer> r : ret) {
-                if (r.size() != atomMapping.size()) continue;
-                Collections.sort(r);
-                boolean matches = true;
-                for (int i = 0; i < atomMapping.size(); i++) {
-                    int index1 = atomMapping.get(i);
-                    int index2 = r.get(i);
-                    if (index1 != index2) {
-                        matches = false;
-                        break;
-                    }
-                }
-                if (matches) {
-                    present = true;
-                    break;
-                }
-            }
-            if (!present) ret.add(atomMapping);
+        return getAtomLists(mappings.uniqueAtoms(), true);
+    }
+
+    /**
+     * Converts mappings to lists of the indices of the matching atoms.
+     *
+     * @param mappings the mappings
+     * @param sorted   whether the indices are sorted
+     * @return a list of atom indices for each mapping
+     */
+    private static List<List<Integer>> getAtomLists(SubgraphMappings mappings, boolean sorted) {
+        List<List<Integer>> atomLists = new ArrayList<List<Integer>>();
+        for (int[] mapping : mappings) {
+            if (sorted) Arrays.sort(mapping);
+            List<Integer> atoms = new ArrayList<Integer>(mapping.length);
+            for (int atom : mapping) atoms.add(atom);
+            atomLists.add(atoms);
         }
-        return ret;
+        return atomLists;
     }
 
     /**
@@ -311,75 +381,33 @@ public class SMARTSQueryTool {
      * the appropriate properties. Right now, this function is called each time we need to do a query and this is
      * inefficient.
      *
+     * @param atomContainer the target molecule
      * @throws CDKException if there is a problem in ring perception or aromaticity detection, which is usually related
      *                      to a timeout in the ring finding code.
      */
-    private void initializeMolecule() throws CDKException {
-        // Code copied from
-        // org.openscience.cdk.qsar.descriptors.atomic.AtomValenceDescriptor;
-        Map<String, Integer> valencesTable = new HashMap<String, Integer>();
-        valencesTable.put("H", 1);
-        valencesTable.put("Li", 1);
-        valencesTable.put("Be", 2);
-        valencesTable.put("B", 3);
-        valencesTable.put("C", 4);
-        valencesTable.put("N", 5);
-        valencesTable.put("O", 6);
-        valencesTable.put("F", 7);
-        valencesTable.put("Na", 1);
-        valencesTable.put("Mg", 2);
-        valencesTable.put("Al", 3);
-        valencesTable.put("Si", 4);
-        valencesTable.put("P", 5);
-        valencesTable.put("S", 6);
-        valencesTable.put("Cl", 7);
-        valencesTable.put("K", 1);
-        valencesTable.put("Ca", 2);
-        valencesTable.put("Ga", 3);
-        valencesTable.put("Ge", 4);
-        valencesTable.put("As", 5);
-        valencesTable.put("Se", 6);
-        valencesTable.put("Br", 7);
-        valencesTable.put("Rb", 1);
-        valencesTable.put("Sr", 2);
-        valencesTable.put("In", 3);
-        valencesTable.put("Sn", 4);
-        valencesTable.put("Sb", 5);
-        valencesTable.put("Te", 6);
-        valencesTable.put("I", 7);
-        valencesTable.put("Cs", 1);
-        valencesTable.put("Ba", 2);
-        valencesTable.put("Tl", 3);
-        valencesTable.put("Pb", 4);
-        valencesTable.put("Bi", 5);
-        valencesTable.put("Po", 6);
-        valencesTable.put("At", 7);
-        valencesTable.put("Fr", 1);
-        valencesTable.put("Ra", 2);
-        valencesTable.put("Cu", 2);
-        valencesTable.put("Mn", 2);
-        valencesTable.put("Co", 2);
-
-        // do all ring perception
-        AllRingsFinder arf = new AllRingsFinder();
+    static void initializeMolecule(IAtomContainer atomContainer) throws CDKException {
+        // do all ring perception, or reuse the rings perceived before
+        RingPerception rings = RingPerception.getInstance(atomContainer);
         IRingSet allRings;
         try {
-            allRings = arf.findAllRings(atomContainer);
+            allRings = rings.getAllRings();
         } catch (CDKException e) {
             logger.debug(e.toString());
             throw new CDKException(e.toString(), e);
         }
 
         // sets SSSR information
-        SSSRFinder finder = new SSSRFinder(atomContainer);
-        IRingSet sssr = finder.findEssentialRings();
+        IRingSet sssr = rings.getEssentialRings();
+        BitSet ringAtoms = rings.getRingAtoms();
+        BitSet ringBonds = rings.getRingBonds();
 
-        for (IAtom atom : atomContainer.atoms()) {
+        for (int atomNumber = 0; atomNumber < atomContainer.getAtomCount(); atomNumber++) {
+            IAtom atom = atomContainer.getAtom(atomNumber);
 
             // add a property to each ring atom that will be an array of
             // Integers, indicating what size ring the given atom belongs to
             // Add SSSR ring counts
-            if (allRings.contains(atom)) { // it's in a ring
+            if (ringAtoms.get(atomNumber)) { // it's in a ring
                 atom.setFlag(CDKConstants.ISINRING, true);
                 // lets find which ring sets it is a part of
                 List<Integer> ringsizes = new ArrayList<Integer>();
@@ -417,10 +445,8 @@ public class SMARTSQueryTool {
             }
         }
 
-        for (IBond bond : atomContainer.bonds()) {
-            if (allRings.getRings(bond).getAtomContainerCount() > 0) {
-                bond.setFlag(CDKConstants.ISINRING, true);
-            }
+        for (int i = ringBonds.nextSetBit(0); i >= 0; i = ringBonds.nextSetBit(i + 1)) {
+            atomContainer.getBond(i).setFlag(CDKConstants.ISINRING, true);
         }
 
         for (IAtom atom : atomContainer.atoms()) {
@@ -453,83 +479,50 @@ public class SMARTSQueryTool {
      * We loop over the SMARTS atoms in the query and associate the target molecule with each of the SMARTS atoms that
      * need it
      *
+     * @param query
      * @param atomContainer
+     * @param cache the matches of recursive smarts against the target molecule, or null
      * @throws CDKException
      */
-    private void initializeRecursiveSmarts(IAtomContainer atomContainer) throws CDKException {
+    static void initializeRecursiveSmarts(IAtomContainer query, IAtomContainer atomContainer,
+                                          RecursiveSmartsCache cache) throws CDKException {
         for (IAtom atom : query.atoms()) {
-            initializeRecursiveSmartsAtom(atom, atomContainer);
+            initializeRecursiveSmartsAtom(atom, atomContainer, cache);
         }
     }
 
     /**
-     * Recursively initializes recursive smarts atoms
+     * Recursively initializes recursive smarts atoms, including those nested
+     * in the query of a recursive smarts atom
      *
      * @param atom
      * @param atomContainer
+     * @param cache
      * @throws CDKException
      */
-    private void initializeRecursiveSmartsAtom(IAtom atom, IAtomContainer atomContainer) throws CDKException {
+    private static void initializeRecursiveSmartsAtom(IAtom atom, IAtomContainer atomContainer,
+                                                      RecursiveSmartsCache cache) throws CDKException {
         if (atom instanceof LogicalOperatorAtom) {
-            initializeRecursiveSmartsAtom(((LogicalOperatorAtom) atom).getLeft(), atomContainer);
+            initializeRecursiveSmartsAtom(((LogicalOperatorAtom) atom).getLeft(), atomContainer, cache);
             if (((LogicalOperatorAtom) atom).getRight() != null) {
-                initializeRecursiveSmartsAtom(((LogicalOperatorAtom) atom).getRight(), atomContainer);
+                initializeRecursiveSmartsAtom(((LogicalOperatorAtom) atom).getRight(), atomContainer, cache);
             }
         } else if (atom instanceof RecursiveSmartsAtom) {
-            ((RecursiveSmartsAtom) atom).setAtomContainer(atomContainer);
+            ((RecursiveSmartsAtom) atom).setAtomContainer(atomContainer, cache);
+            initializeRecursiveSmarts(((RecursiveSmartsAtom) atom).getRecursiveQuery(), atomContainer, cache);
         } else if (atom instanceof HydrogenAtom) {
             ((HydrogenAtom) atom).setAtomContainer(atomContainer);
         }
     }
 
     private void initializeQuery() throws CDKException {
+        mappings = null;
         matchingAtoms = null;
         query = cache.get(smarts);
         if (query == null) {
             query = SMARTSParser.parse(smarts);
             cache.put(smarts, query);
         }
-    }
-
-
-    private List<List<Integer>> getAtomMappings(List bondMapping, IAtomContainer atomContainer) {
-        List<List<Integer>> atomMapping = new ArrayList<List<Integer>>();
-
-        // loop over each mapping
-        for (Object aBondMapping : bondMapping) {
-            List list = (List) aBondMapping;
-
-            List<Integer> tmp = new ArrayList<Integer>();
-            IAtom atom1 = null;
-            IAtom atom2 = null;
-            // loop over this mapping
-            for (Object aList : list) {
-                RMap map = (RMap) aList;
-                int bondID = map.getId1();
-
-                // get the atoms in this bond
-                IBond bond = atomContainer.getBond(bondID);
-                atom1 = bond.getAtom(0);
-                atom2 = bond.getAtom(1);
-
-                Integer idx1 = atomContainer.getAtomNumber(atom1);
-                Integer idx2 = atomContainer.getAtomNumber(atom2);
-
-                if (!tmp.contains(idx1)) tmp.add(idx1);
-                if (!tmp.contains(idx2)) tmp.add(idx2);
-            }
-            if (tmp.size() > 0) atomMapping.add(tmp);
-
-            // If there is only one bond, check if it matches both ways.
-            if (list.size() == 1 && atom1.getAtomicNumber() == atom2.getAtomicNumber()) {
-                List<Integer> tmp2 = new ArrayList<Integer>();
-                tmp2.add(tmp.get(0));
-                tmp2.add(tmp.get(1));
-                atomMapping.add(tmp2);
-            }
-        }
-
-
-        return atomMapping;
+        programs = QueryAtomProgram.compile(query);
     }
 }
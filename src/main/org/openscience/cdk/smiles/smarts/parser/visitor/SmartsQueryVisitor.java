@@ -440,13 +440,21 @@ public class SmartsQueryVisitor implements SMARTSParserVisitor {
 	}
 
 	public Object visit(ASTRecursiveSmartsExpression node, Object data) {
+		// recursive smarts nest: keep the state of the enclosing one, so that
+		// its remaining atoms and bonds are not added to the outer query
+		IQueryAtomContainer enclosingQuery = rsQuery;
+		RingIdentifierAtom[] enclosingRingAtoms = recursiveRingAtoms;
+		boolean enclosingIsParsingRS = isParsingRS;
 		rsQuery = new QueryAtomContainer();
 		recursiveRingAtoms = new RingIdentifierAtom[10];
 		isParsingRS = true;
 		node.jjtGetChild(0).jjtAccept(this, null);
-		isParsingRS = false;
+		IQueryAtomContainer recursiveQuery = rsQuery;
+		rsQuery = enclosingQuery;
+		recursiveRingAtoms = enclosingRingAtoms;
+		isParsingRS = enclosingIsParsingRS;
 
-        return new RecursiveSmartsAtom(rsQuery);
+        return new RecursiveSmartsAtom(recursiveQuery, node.getSmarts());
 	}
 
 	public ASTStart getRoot(Node node) {
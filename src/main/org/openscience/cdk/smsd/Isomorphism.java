@@ -32,6 +32,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.openscience.cdk.annotations.TestClass;
@@ -51,7 +63,9 @@ import org.openscience.cdk.smsd.algorithm.vflib.VFlibTurboHandler;
 import org.openscience.cdk.smsd.filters.ChemicalFilters;
 import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.interfaces.AbstractMCS;
+import org.openscience.cdk.smsd.interfaces.AbstractMCSAlgorithm;
 import org.openscience.cdk.smsd.interfaces.Algorithm;
+import org.openscience.cdk.smsd.interfaces.IMCSBase;
 import org.openscience.cdk.smsd.tools.MolHandler;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
@@ -67,6 +81,13 @@ import org.openscience.cdk.tools.LoggingToolFactory;
  *  For example 0: Isomorphism algorithm, 1: MCSPlus, 2: VFLibMCS, 3: CDKMCS, 4:
  *  Substructure</p>
  *
+ *  <p>With {@link Algorithm#Portfolio} MCSPlus, VFLibMCS and CDKMCS search
+ *  concurrently, on the executor given to {@link #setExecutor(ExecutorService)}
+ *  or else on daemon threads shared by all instances. The mappings of the
+ *  first algorithm to complete are kept and the others are cancelled; if none
+ *  completes within the time out, the largest mapping found is kept. {@link #getAlgorithmUsed()} tells which algorithm the mappings
+ *  come from.</p>
+ *
  *  <p>It also has a set of robust chemical filters (i.e. bond energy, fragment
  *  count, stereo & bond match) to sort the reported MCS solutions in a chemically
  *  relevant manner. Each comparison can be made with or without using the bond
@@ -182,6 +203,11 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
     private double bondInSensitiveTimeOut = 1.00;//mins
     private boolean subGraph = false;
     private boolean matchBonds = false;
+    private final TimeOut timeOut = new TimeOut(-1);
+    private final List<TimeOut> portfolioTimeOuts = new CopyOnWriteArrayList<TimeOut>();
+    private transient ExecutorService executor = null;
+    private static ExecutorService sharedExecutor = null;
+    private Algorithm algorithmUsed = null;
 
     /**
      * This is the algorithm factory and entry port for all the MCS algorithm in the Isomorphism
@@ -192,6 +218,8 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
      * <lI>2: VFLibMCS,
      * <lI>3: CDKMCS,
      * <lI>4: SubStructure
+     * <lI>5: TurboSubStructure
+     * <lI>6: Portfolio
      * </OL>
      * @param algorithmType {@link org.openscience.cdk.smsd.interfaces.Algorithm}
      * @param bondTypeFlag
@@ -206,7 +234,6 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
         allBondMCS = new ArrayList<Map<IBond, IBond>>();
         firstBondMCS = new HashMap<IBond, IBond>();
 
-        setTime(bondTypeFlag);
         setMatchBonds(bondTypeFlag);
     }
 
@@ -308,6 +335,8 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
     private void chooseAlgorithm(int rBondCount, int pBondCount) {
 
+        setTime(isMatchBonds());
+        timeOut.start();
         switch (algorithmType) {
             case CDKMCS:
                 cdkMCSAlgorithm();
@@ -326,12 +355,15 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
                 break;
             case TurboSubStructure:
                 turboSubStructureAlgorithm(rBondCount, pBondCount);
+                break;
+            case Portfolio:
+                portfolioAlgorithm();
         }
     }
 
     private synchronized void cdkMCSAlgorithm() {
         CDKMCSHandler mcs = null;
-        mcs = new CDKMCSHandler();
+        mcs = new CDKMCSHandler(timeOut);
 
         if (queryMol == null) {
             mcs.set(rMol, pMol);
@@ -347,12 +379,12 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
         firstAtomMCS.putAll(mcs.getFirstAtomMapping());
         allAtomMCS.addAll(mcs.getAllAtomMapping());
-
+        algorithmUsed = Algorithm.CDKMCS;
     }
 
     private synchronized void cdkSubgraphAlgorithm() {
         CDKSubGraphHandler mcs = null;
-        mcs = new CDKSubGraphHandler();
+        mcs = new CDKSubGraphHandler(timeOut);
 
         if (queryMol == null) {
             mcs.set(rMol, pMol);
@@ -361,6 +393,7 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
         }
 
         clearMaps();
+        algorithmUsed = Algorithm.CDKMCS;
 
         if (mcs.isSubgraph(isMatchBonds())) {
             firstSolution.putAll(mcs.getFirstMapping());
@@ -374,7 +407,7 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
     private synchronized void mcsPlusAlgorithm() {
         MCSPlusHandler mcs = null;
-        mcs = new MCSPlusHandler();
+        mcs = new MCSPlusHandler(timeOut);
 
         if (queryMol == null) {
             mcs.set(rMol, pMol);
@@ -390,11 +423,12 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
         firstAtomMCS.putAll(mcs.getFirstAtomMapping());
         allAtomMCS.addAll(mcs.getAllAtomMapping());
+        algorithmUsed = Algorithm.MCSPlus;
     }
 
     private void vfLibMCS() {
         VFlibMCSHandler mcs = null;
-        mcs = new VFlibMCSHandler();
+        mcs = new VFlibMCSHandler(timeOut);
         if (queryMol == null) {
             mcs.set(rMol, pMol);
         } else {
@@ -408,17 +442,19 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
         firstAtomMCS.putAll(mcs.getFirstAtomMapping());
         allAtomMCS.addAll(mcs.getAllAtomMapping());
+        algorithmUsed = Algorithm.VFLibMCS;
     }
 
     private void subStructureHandler() {
         VFlibSubStructureHandler subGraphTurboSearch = null;
-        subGraphTurboSearch = new VFlibSubStructureHandler();
+        subGraphTurboSearch = new VFlibSubStructureHandler(timeOut);
         if (queryMol == null) {
             subGraphTurboSearch.set(rMol, pMol);
         } else {
             subGraphTurboSearch.set(queryMol, pAC);
         }
         clearMaps();
+        algorithmUsed = Algorithm.SubStructure;
         subGraph = subGraphTurboSearch.isSubgraph(isMatchBonds());
         if (subGraph) {
             firstSolution.putAll(subGraphTurboSearch.getFirstMapping());
@@ -430,13 +466,14 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
     private void turboSubStructureHandler() {
         VFlibTurboHandler subGraphTurboSearch = null;
-        subGraphTurboSearch = new VFlibTurboHandler();
+        subGraphTurboSearch = new VFlibTurboHandler(timeOut);
         if (queryMol == null) {
             subGraphTurboSearch.set(rMol, pMol);
         } else {
             subGraphTurboSearch.set(queryMol, pAC);
         }
         clearMaps();
+        algorithmUsed = Algorithm.TurboSubStructure;
         subGraph = subGraphTurboSearch.isSubgraph(isMatchBonds());
         if (subGraph) {
             firstSolution.putAll(subGraphTurboSearch.getFirstMapping());
@@ -463,6 +500,150 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
         firstAtomMCS.putAll(mcs.getFirstAtomMapping());
         allAtomMCS.addAll(mcs.getAllAtomMapping());
+        algorithmUsed = Algorithm.DEFAULT;
+    }
+
+    /**
+     * Runs the MCS algorithms of the portfolio concurrently and keeps the
+     * mappings of the first to complete within the time out, cancelling the
+     * others. The cancelled algorithms are interrupted and stop at their next
+     * check of the time out; until then they only read the molecules. If no
+     * algorithm completes, the largest mapping found when the time ran out is
+     * kept.
+     */
+    private void portfolioAlgorithm() {
+        Algorithm[] portfolio = {Algorithm.MCSPlus, Algorithm.VFLibMCS, Algorithm.CDKMCS};
+        ExecutorService service = executor;
+        if (service == null) {
+            service = getSharedExecutor();
+        }
+        CompletionService<PortfolioSearch> completionService =
+                new ExecutorCompletionService<PortfolioSearch>(service);
+        List<Future<PortfolioSearch>> futures = new ArrayList<Future<PortfolioSearch>>();
+        PortfolioSearch best = null;
+        boolean complete = false;
+        try {
+            for (Algorithm algorithm : portfolio) {
+                TimeOut searchTimeOut = new TimeOut(timeOut.getTimeOut());
+                portfolioTimeOuts.add(searchTimeOut);
+                futures.add(completionService.submit(new PortfolioSearch(algorithm, searchTimeOut)));
+            }
+            // cancel() may have been called before the time outs were added
+            if (timeOut.isCancelled()) {
+                cancelPortfolio();
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                PortfolioSearch search = null;
+                try {
+                    search = completionService.take().get();
+                } catch (ExecutionException e) {
+                    Logger.debug("Portfolio algorithm failed: ", e.getCause());
+                    continue;
+                }
+                if (!search.timeOut.isTimeOutFlag()) {
+                    best = search;
+                    complete = true;
+                    break;
+                }
+                if (best == null || search.getMappingSize() > best.getMappingSize()) {
+                    best = search;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cancelPortfolio();
+            for (Future<PortfolioSearch> future : futures) {
+                future.cancel(true);
+            }
+            portfolioTimeOuts.clear();
+        }
+
+        clearMaps();
+        algorithmUsed = null;
+        if (best != null) {
+            firstSolution.putAll(best.handler.getFirstMapping());
+            allMCS.addAll(best.handler.getAllMapping());
+            firstAtomMCS.putAll(best.handler.getFirstAtomMapping());
+            allAtomMCS.addAll(best.handler.getAllAtomMapping());
+            algorithmUsed = best.algorithm;
+            Logger.debug("Portfolio MCS of ", getReactantMolecule().getID(), " and ",
+                    getProductMolecule().getID(), " found by ", algorithmUsed);
+        }
+        if (!complete) {
+            timeOut.setTimeOutFlag(true);
+        }
+    }
+
+    /**
+     * Returns the executor of the portfolio searches of instances without an
+     * executor of their own. It starts a thread for each search that finds
+     * no idle one, so searches of concurrent instances never wait for each
+     * other, and its daemon threads end after a minute without work.
+     */
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(),
+                    new ThreadFactory() {
+
+                        private final ThreadFactory factory = Executors.defaultThreadFactory();
+
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = factory.newThread(runnable);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return sharedExecutor;
+    }
+
+    private void cancelPortfolio() {
+        for (TimeOut searchTimeOut : portfolioTimeOuts) {
+            searchTimeOut.cancel();
+        }
+    }
+
+    /**
+     * One algorithm of the portfolio, searching with its own time out.
+     */
+    private final class PortfolioSearch implements Callable<PortfolioSearch> {
+
+        private final Algorithm algorithm;
+        private final TimeOut timeOut;
+        private IMCSBase handler = null;
+
+        PortfolioSearch(Algorithm algorithm, TimeOut timeOut) {
+            this.algorithm = algorithm;
+            this.timeOut = timeOut;
+        }
+
+        public PortfolioSearch call() throws Exception {
+            AbstractMCSAlgorithm mcs = null;
+            switch (algorithm) {
+                case MCSPlus:
+                    mcs = new MCSPlusHandler(timeOut);
+                    break;
+                case VFLibMCS:
+                    mcs = new VFlibMCSHandler(timeOut);
+                    break;
+                default:
+                    mcs = new CDKMCSHandler(timeOut);
+            }
+            handler = (IMCSBase) mcs;
+            if (queryMol == null) {
+                handler.set(rMol, pMol);
+            } else {
+                handler.set(queryMol, pAC);
+            }
+            mcs.searchMCS(isMatchBonds());
+            return this;
+        }
+
+        int getMappingSize() {
+            return handler.getFirstMapping().size();
+        }
     }
 
     private int getHCount(IAtomContainer molecule) {
@@ -508,11 +689,13 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
             if (isMatchBonds()) {
                 cdkMCSAlgorithm();
                 if (getFirstMapping() == null || isTimeOut()) {
+                    restartTimeOut();
                     vfLibMCS();
                 }
             } else {
                 mcsPlusAlgorithm();
                 if (getFirstMapping() == null || isTimeOut()) {
+                    restartTimeOut();
                     vfLibMCS();
                 }
             }
@@ -526,6 +709,7 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
             if (rBondCount > 0 && pBondCount > 0) {
                 cdkSubgraphAlgorithm();
                 if (getFirstMapping() == null || isTimeOut()) {
+                    restartTimeOut();
                     subStructureHandler();
                 }
             } else {
@@ -554,20 +738,83 @@ public final class Isomorphism extends AbstractMCS implements Serializable {
 
     private void setTime(boolean bondTypeFlag) {
         if (bondTypeFlag) {
-            TimeOut tmo = TimeOut.getInstance();
-            tmo.setTimeOut(getBondSensitiveTimeOut());
+            timeOut.setTimeOut(getBondSensitiveTimeOut());
         } else {
-            TimeOut tmo = TimeOut.getInstance();
-            tmo.setTimeOut(getBondInSensitiveTimeOut());
+            timeOut.setTimeOut(getBondInSensitiveTimeOut());
+        }
+    }
+
+    /**
+     * Restarts the clock for a fallback algorithm, unless the search was
+     * cancelled.
+     */
+    private void restartTimeOut() {
+        if (!timeOut.isCancelled()) {
+            timeOut.start();
         }
     }
 
+    /**
+     * Returns true if the last search of this instance timed out or was
+     * cancelled.
+     * @return true if the search timed out
+     */
+    @TestMethod("testIsTimeOut")
     public boolean isTimeOut() {
-        return TimeOut.getInstance().isTimeOutFlag();
+        return timeOut.isTimeOutFlag();
     }
 
+    /**
+     * Clears the timeout flag of this instance.
+     */
+    @TestMethod("testIsTimeOut")
     public void resetTimeOut() {
-        TimeOut.getInstance().setTimeOutFlag(false);
+        timeOut.setTimeOutFlag(false);
+    }
+
+    /**
+     * Cancels the search of this instance. This may be called from another
+     * thread while the search runs, which then stops at its next check of
+     * the time out and keeps the mappings found so far. A cancelled instance
+     * stays cancelled.
+     */
+    @TestMethod("testCancel")
+    public void cancel() {
+        timeOut.cancel();
+        cancelPortfolio();
+    }
+
+    /**
+     * Sets the executor on which the algorithms of {@link Algorithm#Portfolio}
+     * run. The executor may be shared, and is not shut down by this instance.
+     * Without an executor, the algorithms run on daemon threads shared by all
+     * instances.
+     *
+     * <p>The searching thread waits for the algorithms without running any of
+     * them. A search must therefore not run on a task of a bounded executor
+     * that is also its own executor: when all threads of the executor run
+     * such searches, their algorithms never start and the searches wait until
+     * they are cancelled.
+     * @param executor the executor, or null
+     */
+    @TestMethod("testPortfolio")
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the algorithm which found the mappings of the last search. This
+     * is the winning algorithm of {@link Algorithm#Portfolio}, or the
+     * algorithm {@link Algorithm#DEFAULT} ended with, which falls back to
+     * VFLibMCS when its first algorithm times out. Molecules of which one has
+     * no bonds are mapped atom by atom, which is reported as
+     * {@link Algorithm#DEFAULT}.
+     * @return the algorithm, or null if no search was made or no portfolio
+     *         algorithm completed
+     */
+    @TestMethod("testGetAlgorithmUsed")
+    public Algorithm getAlgorithmUsed() {
+        return algorithmUsed;
     }
 
     private void clearMaps() {
@@ -34,6 +34,7 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.helper.BinaryTree;
 
 /**
@@ -45,6 +46,13 @@ import org.openscience.cdk.smsd.helper.BinaryTree;
  *  {@cdk.cite SMSD2009}.
  *  </p>
  *
+ * <p>The search over the arc matrix works on a single int array: the arcs
+ * removed while descending are written to an undo log and restored on the
+ * way back, rather than the matrix being copied at every level.</p>
+ *
+ * <p>Given a time out, the search stops when it times out or is cancelled,
+ * and keeps the mappings found until then.</p>
+ *
  * @cdk.module smsd
  * @cdk.githash
  * @author Syed Asad Rahman <asad@ebi.ac.uk>
@@ -56,8 +64,16 @@ public final class McGregor {
     private IAtomContainer target = null;
     private BinaryTree last = null;
     private BinaryTree first = null;
-    private Stack<List<Integer>> bestARCS = null;
-    private List<Integer> modifiedARCS = null;
+    private Stack<int[]> bestARCS = null;
+    private int[] modifiedARCS = null;
+    /* the state of the current arc search, see startsearch */
+    private int neighborBondNumA = 0;
+    private int neighborBondNumB = 0;
+    private int[] iBondNeighborAtomsA = null;
+    private int[] iBondNeighborAtomsB = null;
+    private int arcsLeft = 0;
+    private int[] undoLog = null;
+    private int undoSize = 0;
     private int bestarcsleft = 0;
     private int globalMCSSize = 0;
     private List<List<Integer>> mappings = null;
@@ -71,6 +87,7 @@ public final class McGregor {
     };
     private boolean newMatrix = false;
     private boolean bondMatch = false;
+    private final TimeOut timeOut;
 
     /**
      * Constructor for the McGregor algorithm.
@@ -80,7 +97,22 @@ public final class McGregor {
      * @param shouldMatchBonds 
      */
     public McGregor(IAtomContainer source, IAtomContainer target, List<List<Integer>> _mappings, boolean shouldMatchBonds) {
+        this(source, target, _mappings, shouldMatchBonds, null);
+    }
+
+    /**
+     * Constructor for the McGregor algorithm of one job, which stops when
+     * the time out of the job expires or the job is cancelled.
+     * @param source
+     * @param target
+     * @param _mappings
+     * @param shouldMatchBonds
+     * @param timeOut the time out of the job, or null to search until done
+     */
+    public McGregor(IAtomContainer source, IAtomContainer target, List<List<Integer>> _mappings, boolean shouldMatchBonds,
+            TimeOut timeOut) {
 
+        this.timeOut = timeOut;
         setBondMatch(shouldMatchBonds);
         this.source = source;
         this.target = target;
@@ -92,8 +124,7 @@ public final class McGregor {
         } else {
             this.globalMCSSize = 0;
         }
-        this.modifiedARCS = new ArrayList<Integer>();
-        this.bestARCS = new Stack<List<Integer>>();
+        this.bestARCS = new Stack<int[]>();
         this.newMatrix = false;
     }
 
@@ -104,7 +135,20 @@ public final class McGregor {
      * @param _mappings
      */
     public McGregor(IQueryAtomContainer source, IAtomContainer target, List<List<Integer>> _mappings) {
+        this(source, target, _mappings, null);
+    }
+
+    /**
+     * Constructor for the McGregor algorithm of one job, which stops when
+     * the time out of the job expires or the job is cancelled.
+     * @param source
+     * @param target
+     * @param _mappings
+     * @param timeOut the time out of the job, or null to search until done
+     */
+    public McGregor(IQueryAtomContainer source, IAtomContainer target, List<List<Integer>> _mappings, TimeOut timeOut) {
 
+        this.timeOut = timeOut;
         setBondMatch(true);
         this.source = source;
         this.target = target;
@@ -116,8 +160,7 @@ public final class McGregor {
         } else {
             this.globalMCSSize = 0;
         }
-        this.modifiedARCS = new ArrayList<Integer>();
-        this.bestARCS = new Stack<List<Integer>>();
+        this.bestARCS = new Stack<int[]>();
         this.newMatrix = false;
     }
 
@@ -426,7 +469,7 @@ public final class McGregor {
 
         boolean mappingCheckFlag = mcGregorHelper.isMappingCheckFlag();
         int mappedAtomCount = mcGregorHelper.getMappedAtomCount();
-        List<Integer> mappedAtoms = new ArrayList<Integer>(mcGregorHelper.getMappedAtomsOrg());
+        List<Integer> mappedAtoms = mcGregorHelper.getMappedAtomsOrg();
         int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
         int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
 
@@ -439,11 +482,7 @@ public final class McGregor {
             return 0;
         }
 
-        modifiedARCS.clear();
-        int size = neighborBondNumA * neighborBondNumB;
-        for (int i = 0; i < size; i++) {
-            modifiedARCS.add(i, 0);
-        }
+        modifiedARCS = new int[neighborBondNumA * neighborBondNumB];
         setModifedArcs(mcGregorHelper);
         first = new BinaryTree(-1);
         last = first;
@@ -452,12 +491,8 @@ public final class McGregor {
         bestarcsleft = 0;
 
         startsearch(mcGregorHelper);
-        Stack<List<Integer>> BESTARCS_copy = new Stack<List<Integer>>();
-
-        BESTARCS_copy.addAll(bestARCS);
-        while (!bestARCS.empty()) {
-            bestARCS.pop();
-        }
+        Stack<int[]> BESTARCS_copy = bestARCS;
+        bestARCS = new Stack<int[]>();
         searchAndExtendMappings(BESTARCS_copy, mcGregorHelper);
 
         //System.out.println("In the iterator Termination");
@@ -467,7 +502,7 @@ public final class McGregor {
     }
 
     private void searchAndExtendMappings(
-            Stack<List<Integer>> BESTARCS_copy,
+            Stack<int[]> BESTARCS_copy,
             McgregorHelper mcGregorHelper) throws IOException {
         int mappedAtomCount = mcGregorHelper.getMappedAtomCount();
 
@@ -478,10 +513,9 @@ public final class McGregor {
         List<String> c_bond_setA = mcGregorHelper.getCBondSetA();
         List<String> c_bond_setB = mcGregorHelper.getCBondSetB();
 
-        while (!BESTARCS_copy.empty()) {
+        while (!BESTARCS_copy.empty() && !isTimeOut()) {
 
-            List<Integer> MARCS_vector = new ArrayList<Integer>(BESTARCS_copy.peek());
-            List<Integer> new_Mapping = findMcGregorMapping(MARCS_vector, mcGregorHelper);
+            List<Integer> new_Mapping = findMcGregorMapping(BESTARCS_copy.peek(), mcGregorHelper);
 
             int newMapingSize = new_Mapping.size() / 2;
             boolean no_further_MAPPINGS = false;
@@ -637,7 +671,7 @@ public final class McGregor {
         }
     }
 
-    private List<Integer> findMcGregorMapping(List<Integer> MARCS, McgregorHelper mcGregorHelper) {
+    private List<Integer> findMcGregorMapping(int[] MARCS, McgregorHelper mcGregorHelper) {
 
         int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
         int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
@@ -646,7 +680,7 @@ public final class McGregor {
 
         for (int x = 0; x < neighborBondNumA; x++) {
             for (int y = 0; y < neighborBondNumB; y++) {
-                if (MARCS.get(x * neighborBondNumB + y) == 1) {
+                if (MARCS[x * neighborBondNumB + y] == 1) {
                     extendMapping(x, y, mcGregorHelper, additional_mapping, currentMapping);
                 }
             }
@@ -697,30 +731,29 @@ public final class McGregor {
                     IAtom P2_B = target.getAtom(Index_JPlus1);
                     IBond productBond = target.getBond(P1_B, P2_B);
                     if (McGregorChecks.isMatchFeasible(source, reactantBond, target, productBond, isBondMatch())) {
-                        modifiedARCS.set(row * neighborBondNumB + column, 1);
+                        modifiedARCS[row * neighborBondNumB + column] = 1;
                     }
                 }
             }
         }
     }
 
-    private void partsearch(int xstart, int ystart, List<Integer> TEMPMARCS_ORG, McgregorHelper mcGregorHelper) {
-        int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
-        int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
-
+    private void partsearch(int xstart, int ystart, McgregorHelper mcGregorHelper) {
+        if (isTimeOut()) {
+            return;
+        }
         int xIndex = xstart;
         int yIndex = ystart;
 
-        List<Integer> TEMPMARCS = new ArrayList<Integer>(TEMPMARCS_ORG);
+        int mark = undoSize;
 
-        if (TEMPMARCS.get(xstart * neighborBondNumB + ystart) == 1) {
+        if (modifiedARCS[xstart * neighborBondNumB + ystart] == 1) {
 
-            McGregorChecks.removeRedundantArcs(xstart, ystart, TEMPMARCS, mcGregorHelper);
-            int arcsleft = McGregorChecks.countArcsLeft(TEMPMARCS, neighborBondNumA, neighborBondNumB);
+            removeRedundantArcs(xstart, ystart);
 
             //test Best arcs left and skip rest if needed
-            if (arcsleft >= bestarcsleft) {
-                setArcs(xIndex, yIndex, arcsleft, TEMPMARCS, mcGregorHelper);
+            if (arcsLeft >= bestarcsleft) {
+                setArcs(xIndex, yIndex, arcsLeft, mcGregorHelper);
             }
         } else {
             do {
@@ -730,25 +763,73 @@ public final class McGregor {
                     xIndex++;
                 }
 
-            } while ((xIndex < neighborBondNumA) && (TEMPMARCS.get(xIndex * neighborBondNumB + yIndex) != 1)); //Correction by ASAD set value minus 1
+            } while ((xIndex < neighborBondNumA) && (modifiedARCS[xIndex * neighborBondNumB + yIndex] != 1)); //Correction by ASAD set value minus 1
 
             if (xIndex < neighborBondNumA) {
 
-                partsearch(xIndex, yIndex, TEMPMARCS, mcGregorHelper);
-                TEMPMARCS.set(xIndex * neighborBondNumB + yIndex, 0);
-                partsearch(xIndex, yIndex, TEMPMARCS, mcGregorHelper);
+                partsearch(xIndex, yIndex, mcGregorHelper);
+                removeArc(xIndex * neighborBondNumB + yIndex);
+                partsearch(xIndex, yIndex, mcGregorHelper);
             } else {
-                int arcsleft = McGregorChecks.countArcsLeft(TEMPMARCS, neighborBondNumA, neighborBondNumB);
-                if (arcsleft >= bestarcsleft) {
-                    popBestArcs(arcsleft);
+                if (arcsLeft >= bestarcsleft) {
+                    popBestArcs(arcsLeft);
 
-                    if (checkMARCS(TEMPMARCS, neighborBondNumA, neighborBondNumB)) {
-                        bestARCS.push(TEMPMARCS);
+                    if (checkMARCS(modifiedARCS, neighborBondNumA, neighborBondNumB)) {
+                        bestARCS.push(modifiedARCS.clone());
                     }
 
                 }
             }
         }
+        restoreArcs(mark);
+    }
+
+    /**
+     * Sets the arcs excluded by matching the bonds of a row and a column to
+     * zero, and all other arcs of the row and the column. The arc of the
+     * position itself is kept.
+     */
+    private void removeRedundantArcs(int row, int column) {
+        int G1_atom = iBondNeighborAtomsA[row * 3 + 0];
+        int G2_atom = iBondNeighborAtomsA[row * 3 + 1];
+        int G3_atom = iBondNeighborAtomsB[column * 3 + 0];
+        int G4_atom = iBondNeighborAtomsB[column * 3 + 1];
+        int position = row * neighborBondNumB + column;
+
+        for (int x = 0; x < neighborBondNumA; x++) {
+            int row_atom1 = iBondNeighborAtomsA[x * 3 + 0];
+            int row_atom2 = iBondNeighborAtomsA[x * 3 + 1];
+
+            for (int y = 0; y < neighborBondNumB; y++) {
+                int index = x * neighborBondNumB + y;
+                if (modifiedARCS[index] == 0 || index == position) {
+                    continue;
+                }
+                int column_atom3 = iBondNeighborAtomsB[y * 3 + 0];
+                int column_atom4 = iBondNeighborAtomsB[y * 3 + 1];
+
+                if (x == row || y == column
+                        || McGregorChecks.cases(G1_atom, G2_atom, G3_atom, G4_atom, row_atom1, row_atom2, column_atom3, column_atom4)) {
+                    removeArc(index);
+                }
+            }
+        }
+    }
+
+    private void removeArc(int index) {
+        if (modifiedARCS[index] == 1) {
+            modifiedARCS[index] = 0;
+            undoLog[undoSize++] = index;
+            arcsLeft--;
+        }
+    }
+
+    /** Puts back the arcs removed since the undo log had the given size. */
+    private void restoreArcs(int mark) {
+        while (undoSize > mark) {
+            modifiedARCS[undoLog[--undoSize]] = 1;
+            arcsLeft++;
+        }
     }
 
 //The function is called in function partsearch. The function is given indexZ temporary matrix.
@@ -756,21 +837,14 @@ public final class McGregor {
 //"verifyNodes". If the matrix already exists the function returns false which means that
 //the matrix will not be stored. Otherwise the function returns true which means that the
 //matrix will be stored in function partsearch.
-    private boolean checkMARCS(List<Integer> MARCS_T, int neighborBondNumA, int neighborBondNumB) {
+    private boolean checkMARCS(int[] MARCS_T, int neighborBondNumA, int neighborBondNumB) {
 
-        int size = neighborBondNumA * neighborBondNumA;
-        List<Integer> posnum_list = new ArrayList<Integer>(size);
-
-        for (int i = 0; i < posnum_list.size(); i++) {
-            posnum_list.add(i, 0);
-        }
+        int[] posnum_list = new int[arcsLeft];
 
-        int yCounter = 0;
         int count_entries = 0;
         for (int x = 0; x < (neighborBondNumA * neighborBondNumB); x++) {
-            if (MARCS_T.get(x) == 1) {
-                posnum_list.add(yCounter++, x);
-                count_entries++;
+            if (MARCS_T[x] == 1) {
+                posnum_list[count_entries++] = x;
             }
         }
         boolean flag = false;
@@ -784,19 +858,19 @@ public final class McGregor {
 
     }
 
-    private boolean verifyNodes(List<Integer> matrix, BinaryTree currentStructure, int index, int fieldLength) {
+    private boolean verifyNodes(int[] matrix, BinaryTree currentStructure, int index, int fieldLength) {
         if (index < fieldLength) {
-            if (matrix.get(index) == currentStructure.getValue() && currentStructure.getEqual() != null) {
+            if (matrix[index] == currentStructure.getValue() && currentStructure.getEqual() != null) {
                 setNewMatrix(false);
                 verifyNodes(matrix, currentStructure.getEqual(), index + 1, fieldLength);
             }
-            if (matrix.get(index) != currentStructure.getValue()) {
+            if (matrix[index] != currentStructure.getValue()) {
                 if (currentStructure.getNotEqual() != null) {
                     verifyNodes(matrix, currentStructure.getNotEqual(), index, fieldLength);
                 }
 
                 if (currentStructure.getNotEqual() == null) {
-                    currentStructure.setNotEqual(new BinaryTree(matrix.get(index)));
+                    currentStructure.setNotEqual(new BinaryTree(matrix[index]));
                     currentStructure.getNotEqual().setNotEqual(null);
                     int yIndex = 0;
 
@@ -804,7 +878,7 @@ public final class McGregor {
                     BinaryTree last_one = currentStructure.getNotEqual();
 
                     while ((yIndex + index + 1) < fieldLength) {
-                        last_one.setEqual(new BinaryTree(matrix.get(yIndex + index + 1)));
+                        last_one.setEqual(new BinaryTree(matrix[yIndex + index + 1]));
                         last_one = last_one.getEqual();
                         last_one.setNotEqual(null);
                         yIndex++;
@@ -820,19 +894,23 @@ public final class McGregor {
     }
 
     private void startsearch(McgregorHelper mcGregorHelper) {
-        int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
-        int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
+        neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
+        neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
+        iBondNeighborAtomsA = toArray(mcGregorHelper.getiBondNeighborAtomsA(), neighborBondNumA * 3);
+        iBondNeighborAtomsB = toArray(mcGregorHelper.getiBondNeighborAtomsB(), neighborBondNumB * 3);
 
         int size = neighborBondNumA * neighborBondNumB;
-        List<Integer> FIXARCS = new ArrayList<Integer>(size);//  Initialize FIXARCS with 0
+        undoLog = new int[size];
+        undoSize = 0;
+        arcsLeft = 0;
         for (int i = 0; i < size; i++) {
-            FIXARCS.add(i, 0);
+            arcsLeft += modifiedARCS[i];
         }
 
         int xIndex = 0;
         int yIndex = 0;
 
-        while ((xIndex < neighborBondNumA) && (modifiedARCS.get(xIndex * neighborBondNumB + yIndex) != 1)) {
+        while ((xIndex < neighborBondNumA) && (modifiedARCS[xIndex * neighborBondNumB + yIndex] != 1)) {
             yIndex++;
             if (yIndex == neighborBondNumB) {
                 yIndex = 0;
@@ -845,16 +923,24 @@ public final class McGregor {
             xIndex -= 1;
         }
 
-        if (modifiedARCS.get(xIndex * neighborBondNumB + yIndex) == 0) {
-            partsearch(xIndex, yIndex, modifiedARCS, mcGregorHelper);
+        if (modifiedARCS[xIndex * neighborBondNumB + yIndex] == 0) {
+            partsearch(xIndex, yIndex, mcGregorHelper);
         }
 
-        if (modifiedARCS.get(xIndex * neighborBondNumB + yIndex) != 0) {
-            partsearch(xIndex, yIndex, modifiedARCS, mcGregorHelper);
-            modifiedARCS.set(xIndex * neighborBondNumB + yIndex, 0);
-            partsearch(xIndex, yIndex, modifiedARCS, mcGregorHelper);
+        if (modifiedARCS[xIndex * neighborBondNumB + yIndex] != 0) {
+            partsearch(xIndex, yIndex, mcGregorHelper);
+            removeArc(xIndex * neighborBondNumB + yIndex);
+            partsearch(xIndex, yIndex, mcGregorHelper);
         }
+        undoLog = null;
+    }
 
+    private static int[] toArray(List<Integer> list, int size) {
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
     }
 
     /**
@@ -885,7 +971,7 @@ public final class McGregor {
 //                        System.out.println("best_MAPPING_size: " + globalMCSSize);
                     mappings.clear();
                 }
-                mappings.add(mapped_atoms);
+                mappings.add(new ArrayList<Integer>(mapped_atoms));
 //                    System.out.println("mappings " + mappings);
             }
         } catch (Exception ex) {
@@ -893,9 +979,7 @@ public final class McGregor {
         }
     }
 
-    private void setArcs(int xIndex, int yIndex, int arcsleft, List<Integer> TEMPMARCS, McgregorHelper mcGregorHelper) {
-        int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
-        int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
+    private void setArcs(int xIndex, int yIndex, int arcsleft, McgregorHelper mcGregorHelper) {
         do {
             yIndex++;
             if (yIndex == neighborBondNumB) {
@@ -904,21 +988,25 @@ public final class McGregor {
 
             }
         } //Correction by ASAD set value minus 1
-        while ((xIndex < neighborBondNumA) && (TEMPMARCS.get(xIndex * neighborBondNumB + yIndex) != 1));
+        while ((xIndex < neighborBondNumA) && (modifiedARCS[xIndex * neighborBondNumB + yIndex] != 1));
         if (xIndex < neighborBondNumA) {
 
-            partsearch(xIndex, yIndex, TEMPMARCS, mcGregorHelper);
-            TEMPMARCS.set(xIndex * neighborBondNumB + yIndex, 0);
-            partsearch(xIndex, yIndex, TEMPMARCS, mcGregorHelper);
+            partsearch(xIndex, yIndex, mcGregorHelper);
+            removeArc(xIndex * neighborBondNumB + yIndex);
+            partsearch(xIndex, yIndex, mcGregorHelper);
 
         } else {
             popBestArcs(arcsleft);
-            if (checkMARCS(TEMPMARCS, neighborBondNumA, neighborBondNumB)) {
-                bestARCS.push(TEMPMARCS);
+            if (checkMARCS(modifiedARCS, neighborBondNumA, neighborBondNumB)) {
+                bestARCS.push(modifiedARCS.clone());
             }
         }
     }
 
+    private boolean isTimeOut() {
+        return timeOut != null && timeOut.isTimeOut();
+    }
+
     private void popBestArcs(int arcsleft) {
         if (arcsleft > bestarcsleft) {
             McGregorChecks.removeTreeStructure(first);
@@ -164,15 +164,13 @@ public class McGregorChecks {
      */
     protected static int searchCorrespondingAtom(int mappedAtomsSize, int atomFromOtherMolecule, int molecule, List<Integer> mapped_atoms_org) {
 
-        List<Integer> mapped_atoms = new ArrayList<Integer>(mapped_atoms_org);
-
         int corresponding_atom = 0;
         for (int a = 0; a < mappedAtomsSize; a++) {
-            if ((molecule == 1) && (mapped_atoms.get(a * 2 + 0).intValue() == atomFromOtherMolecule)) {
-                corresponding_atom = mapped_atoms.get(a * 2 + 1);
+            if ((molecule == 1) && (mapped_atoms_org.get(a * 2 + 0).intValue() == atomFromOtherMolecule)) {
+                corresponding_atom = mapped_atoms_org.get(a * 2 + 1);
             }
-            if ((molecule == 2) && (mapped_atoms.get(a * 2 + 1).intValue() == atomFromOtherMolecule)) {
-                corresponding_atom = mapped_atoms.get(a * 2 + 0);
+            if ((molecule == 2) && (mapped_atoms_org.get(a * 2 + 1).intValue() == atomFromOtherMolecule)) {
+                corresponding_atom = mapped_atoms_org.get(a * 2 + 0);
             }
         }
         return corresponding_atom;
@@ -248,53 +246,6 @@ public class McGregorChecks {
         return temp_map;
     }
 
-    /**
-     * The function is called in function partsearch. The function is given a temporary matrix and a position (row/column)
-     * within this matrix. First the function sets all entries to zero, which can be exlcuded in respect to the current
-     * atom by atom matching. After this the function replaces all entries in the same row and column of the current
-     * position by zeros. Only the entry of the current position is set to one.
-     * Return value "count_arcsleft" counts the number of arcs, which are still in the matrix.
-     * @param row
-     * @param column
-     * @param MARCS
-     * @param mcGregorHelper
-     */
-    protected static void removeRedundantArcs(int row, int column, List<Integer> MARCS, McgregorHelper mcGregorHelper) {
-        int neighborBondNumA = mcGregorHelper.getNeighborBondNumA();
-        int neighborBondNumB = mcGregorHelper.getNeighborBondNumB();
-        List<Integer> iBondNeighborAtomsA = mcGregorHelper.getiBondNeighborAtomsA();
-        List<Integer> iBondNeighborAtomsB = mcGregorHelper.getiBondNeighborAtomsB();
-        int G1_atom = iBondNeighborAtomsA.get(row * 3 + 0);
-        int G2_atom = iBondNeighborAtomsA.get(row * 3 + 1);
-        int G3_atom = iBondNeighborAtomsB.get(column * 3 + 0);
-        int G4_atom = iBondNeighborAtomsB.get(column * 3 + 1);
-
-        for (int x = 0; x < neighborBondNumA; x++) {
-            int row_atom1 = iBondNeighborAtomsA.get(x * 3 + 0);
-            int row_atom2 = iBondNeighborAtomsA.get(x * 3 + 1);
-
-            for (int y = 0; y < neighborBondNumB; y++) {
-                int column_atom3 = iBondNeighborAtomsB.get(y * 3 + 0);
-                int column_atom4 = iBondNeighborAtomsB.get(y * 3 + 1);
-
-                if (McGregorChecks.cases(G1_atom, G2_atom, G3_atom, G4_atom, row_atom1, row_atom2, column_atom3, column_atom4)) {
-                    MARCS.set(x * neighborBondNumB + y, 0);
-                }
-
-            }
-        }
-
-        for (int v = 0; v < neighborBondNumA; v++) {
-            MARCS.set(v * neighborBondNumB + column, 0);
-        }
-
-        for (int w = 0; w < neighborBondNumB; w++) {
-            MARCS.set(row * neighborBondNumB + w, 0);
-        }
-
-        MARCS.set(row * neighborBondNumB + column, 1);
-    }
-
     /**
      *
      * @param bond_number
@@ -486,27 +437,6 @@ public class McGregorChecks {
         return modifiedARCS;
     }
 
-    /**
-     *
-     * @param TEMPMARCS
-     * @param neighborBondNumA
-     * @param neighborBondNumB
-     * @return
-     */
-    protected static int countArcsLeft(List<Integer> TEMPMARCS, int neighborBondNumA, int neighborBondNumB) {
-        int arcsleft = 0;
-
-        for (int a = 0; a < neighborBondNumA; a++) {
-            for (int b = 0; b < neighborBondNumB; b++) {
-
-                if (TEMPMARCS.get(a * neighborBondNumB + b) == (1)) {
-                    arcsleft++;
-                }
-            }
-        }
-        return arcsleft;
-    }
-
     /**
      *
      * @param corresponding_atom
@@ -24,7 +24,6 @@
  */
 package org.openscience.cdk.smsd.algorithm.mcgregor;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -245,17 +244,15 @@ public class QueryProcessor {
             List<Integer> mapped_atoms_org) {
 
 
-        List<Integer> mapped_atoms = new ArrayList<Integer>(mapped_atoms_org);
-
         int corresponding_atom = 0;
         for (int a = 0; a < mapped_atoms_size; a++) {
             if ((molecule == 1)
-                    && (mapped_atoms.get(a * 2 + 0).intValue() == atom_from_other_molecule)) {
-                corresponding_atom = mapped_atoms.get(a * 2 + 1);
+                    && (mapped_atoms_org.get(a * 2 + 0).intValue() == atom_from_other_molecule)) {
+                corresponding_atom = mapped_atoms_org.get(a * 2 + 1);
             }
             if ((molecule == 2)
-                    && (mapped_atoms.get(a * 2 + 1).intValue() == atom_from_other_molecule)) {
-                corresponding_atom = mapped_atoms.get(a * 2 + 0);
+                    && (mapped_atoms_org.get(a * 2 + 1).intValue() == atom_from_other_molecule)) {
+                corresponding_atom = mapped_atoms_org.get(a * 2 + 0);
             }
         }
         return corresponding_atom;
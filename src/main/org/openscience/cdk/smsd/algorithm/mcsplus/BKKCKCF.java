@@ -25,10 +25,11 @@
 package org.openscience.cdk.smsd.algorithm.mcsplus;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Stack;
 import org.openscience.cdk.annotations.TestClass;
-import org.openscience.cdk.smsd.tools.TimeManager;
+import org.openscience.cdk.smsd.global.TimeOut;
 
 /**
  * This class implements Bron-Kerbosch clique detection algorithm as it is
@@ -36,6 +37,15 @@ import org.openscience.cdk.smsd.tools.TimeManager;
  * processedVertex.Comp. Sc. (2005); vol 349; pp.
  * 484-490]
  *
+ * <p>The compatibility graph is held as one bit set of neighbours per vertex,
+ * and the candidate and excluded sets of the search as bit sets, so that
+ * testing and intersecting them costs no search through lists. A branch is
+ * pruned when the vertices it may still add, bounded by a greedy colouring,
+ * cannot reach the size of the best clique found so far. The cliques and
+ * their order are those of the unpruned search.
+ *
+ * <p>Given a time out, the search stops when it times out or is cancelled,
+ * and keeps the best cliques found until then.
  *
  * BronKerboschCazalsKarandeKochCliqueFinder.java
  *
@@ -48,12 +58,15 @@ public class BKKCKCF {
 
     private List<List<Integer>> maxCliquesSet = null;
     /***********************************************************************/
-    private List<Integer> cEdges = null;
-    private List<Integer> dEdges = null;
-    private int bestCliqueSize = 0;
     private List<Integer> compGraphNodes = null;
-    private double dEdgeIterationSize = 0;
-    private double cEdgeIterationSize = 0;
+    private int bestCliqueSize = 0;
+    /** Neighbours of each vertex, c-edge neighbours first, in edge order. */
+    private int[][] neighbours = null;
+    /** Neighbours of each vertex via c-edges. */
+    private BitSet[] cNeighbours = null;
+    /** Neighbours of each vertex via c- or d-edges. */
+    private BitSet[] allNeighbours = null;
+    private final TimeOut timeOut;
 
     /**
      * Creates index new instance of Bron Kerbosch Cazals Karande Koch Clique Finder
@@ -66,28 +79,88 @@ public class BKKCKCF {
      * @param D_edges_org D-Edges set of prohibited edges
      */
     protected BKKCKCF(List<Integer> comp_graph_nodes_org, List<Integer> C_edges_org, List<Integer> D_edges_org) {
-        MCSPlus.setTimeManager(new TimeManager());
+        this(comp_graph_nodes_org, C_edges_org, D_edges_org, null);
+    }
+
+    /**
+     * Creates the clique finder for one job, which stops when the time out
+     * of the job expires or the job is cancelled.
+     * @param comp_graph_nodes_org
+     * @param C_edges_org C-Edges set of allowed edges
+     * @param D_edges_org D-Edges set of prohibited edges
+     * @param timeOut the time out of the job, or null to search until done
+     */
+    protected BKKCKCF(List<Integer> comp_graph_nodes_org, List<Integer> C_edges_org, List<Integer> D_edges_org,
+            TimeOut timeOut) {
+        this.timeOut = timeOut;
         this.compGraphNodes = comp_graph_nodes_org;
-        this.cEdges = C_edges_org;
-        this.dEdges = D_edges_org;
         bestCliqueSize = 0;
-        //Orignal assignment as per paper
-        dEdgeIterationSize = dEdges.size() / 2;
-
-        //Orignal assignment as per paper
-        cEdgeIterationSize = cEdges.size() / 2;
-
-        //reset Degdes and Cedges if required
-//        setEdges();
 
         //Initialization maxCliquesSet
 
         maxCliquesSet = new ArrayList<List<Integer>>();
 
+        initNeighbours(C_edges_org, D_edges_org);
         init();
 
     }
 
+    /*
+     * Indexes the c- and d-edges by vertex
+     */
+    private void initNeighbours(List<Integer> cEdges, List<Integer> dEdges) {
+        int vertexCount = 0;
+        for (int a = 0; a < compGraphNodes.size() / 3; a++) {
+            vertexCount = Math.max(vertexCount, compGraphNodes.get(a * 3 + 2));
+        }
+        for (Integer vertex : cEdges) {
+            vertexCount = Math.max(vertexCount, vertex);
+        }
+        for (Integer vertex : dEdges) {
+            vertexCount = Math.max(vertexCount, vertex);
+        }
+        vertexCount++;
+
+        int[] degree = new int[vertexCount];
+        for (Integer vertex : cEdges) {
+            degree[vertex]++;
+        }
+        for (Integer vertex : dEdges) {
+            degree[vertex]++;
+        }
+        neighbours = new int[vertexCount][];
+        cNeighbours = new BitSet[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            neighbours[v] = new int[degree[v]];
+            cNeighbours[v] = new BitSet(vertexCount);
+        }
+        int[] count = new int[vertexCount];
+        for (int a = 0; a < cEdges.size() / 2; a++) {
+            int u = cEdges.get(a * 2 + 0);
+            int v = cEdges.get(a * 2 + 1);
+            neighbours[u][count[u]++] = v;
+            neighbours[v][count[v]++] = u;
+            cNeighbours[u].set(v);
+            cNeighbours[v].set(u);
+        }
+        if (dEdges.isEmpty()) {
+            allNeighbours = cNeighbours;
+        } else {
+            allNeighbours = new BitSet[vertexCount];
+            for (int v = 0; v < vertexCount; v++) {
+                allNeighbours[v] = (BitSet) cNeighbours[v].clone();
+            }
+            for (int a = 0; a < dEdges.size() / 2; a++) {
+                int u = dEdges.get(a * 2 + 0);
+                int v = dEdges.get(a * 2 + 1);
+                neighbours[u][count[u]++] = v;
+                neighbours[v][count[v]++] = u;
+                allNeighbours[u].set(v);
+                allNeighbours[v].set(u);
+            }
+        }
+    }
+
     /*
      * Call the wrapper for ENUMERATE_CLIQUES
      *
@@ -101,98 +174,38 @@ public class BKKCKCF {
          * vertex[G]
          * nodes of vector compGraphNodes are stored in vertex
          */
-        List<Integer> vertex = new ArrayList<Integer>(); //Initialization of ArrayList vertex
-
         int vertexCount = compGraphNodes.size() / 3;
-
-        //System.out.println("ArrayList vertex is initialized");
+        int[] vertex = new int[vertexCount];
         for (int a = 0; a < vertexCount; a++) {
-            vertex.add(compGraphNodes.get(a * 3 + 2));
-            //System.out.print("vertex[" + index + "]: " + compGraphNodes.get(index * 3 + 2) + " ");
+            vertex[a] = compGraphNodes.get(a * 3 + 2);
         }
-        //System.out.println();
-
-        vertex.add(0);
-        // System.out.println("ArrayList vertex :" + vertex);
-
-        /*
-         *processedVertex: is index set of vertices which have already been used
-         */
-        List<Integer> processedVertex = new ArrayList<Integer>();
-        /*
-         * Let processedVertex be the set of Nodes already been used in the initialization
-         *
-         */
-        initIterator(vertex, processedVertex);
-        processedVertex.clear();
-        //System.out.println("maxCliquesSet: " + maxCliquesSet);
 
+        initIterator(vertex);
     }
 
-    private int enumerateCliques(List<Integer> vertexOfCurrentClique, Stack<Integer> potentialCVertex,
-            List<Integer> potentialDVertex, List<Integer> excludedVertex, List<Integer> excludedCVertex) {
-        List<Integer> potentialVertex = new ArrayList<Integer>();//Defined as potentialCVertex' in the paper
-        for (Integer I : potentialCVertex) {
-            potentialVertex.add(I);
-        }
+    private void enumerateCliques(int[] vertexOfCurrentClique, int cliqueSize, int[] potentialCVertex,
+            int potentialCSize, BitSet potentialDVertex, BitSet excludedVertex) {
 
-        if ((potentialCVertex.size() == 1) && (excludedVertex.isEmpty())) {
+        if (potentialCSize == 0 && excludedVertex.isEmpty()) {
 
             //store best solutions in stack maxCliquesSet
-            int clique_size = vertexOfCurrentClique.size();
-
-            if (clique_size >= bestCliqueSize) {
-                if (clique_size > bestCliqueSize) {
+            if (cliqueSize >= bestCliqueSize) {
+                if (cliqueSize > bestCliqueSize) {
 
                     maxCliquesSet.clear();
-                    bestCliqueSize = clique_size;
+                    bestCliqueSize = cliqueSize;
 
                 }
-                if (clique_size == bestCliqueSize) {
-                    //System.out.println("vertexOfCurrentClique-Clique " + vertexOfCurrentClique);
-                    maxCliquesSet.add(vertexOfCurrentClique);
+                List<Integer> clique = new ArrayList<Integer>(cliqueSize);
+                for (int i = 0; i < cliqueSize; i++) {
+                    clique.add(vertexOfCurrentClique[i]);
                 }
+                maxCliquesSet.add(clique);
             }
-            return 0;
+            return;
         }
-        findCliques(
-                potentialVertex,
-                vertexOfCurrentClique,
-                potentialCVertex,
-                potentialDVertex,
-                excludedVertex,
-                excludedCVertex);
-        return 0;
-    }
-
-    private List<Integer> findNeighbors(int central_node) {
-
-        List<Integer> neighborVertex = new ArrayList<Integer>();
-
-        for (int a = 0; a < cEdgeIterationSize; a++) {
-            if (cEdges.get(a * 2 + 0) == central_node) {
-                //          System.out.println( cEdges.get(index*2+0) + " " + cEdges.get(index*2+1));
-                neighborVertex.add(cEdges.get(a * 2 + 1));
-                neighborVertex.add(1); // 1 means: is connected via C-edge
-            } else if (cEdges.get(a * 2 + 1) == central_node) {
-                //           System.out.println(cEdges.get(index*2+0) + " " + cEdges.get(index*2+1));
-                neighborVertex.add(cEdges.get(a * 2 + 0));
-                neighborVertex.add(1); // 1 means: is connected via C-edge
-            }
-
-        }
-        for (int a = 0; a < dEdgeIterationSize; a++) {
-            if (dEdges.get(a * 2 + 0) == central_node) {
-                //       System.out.println( dEdges.get(index*2+0) + " " + dEdges.get(index*2+1));
-                neighborVertex.add(dEdges.get(a * 2 + 1));
-                neighborVertex.add(2); // 2 means: is connected via D-edge
-            } else if (dEdges.get(a * 2 + 1) == central_node) {
-                //        System.out.println(dEdges.get(index*2+0) + " " + dEdges.get(index*2+1));
-                neighborVertex.add(dEdges.get(a * 2 + 0));
-                neighborVertex.add(2); // 2 means: is connected via D-edge
-            }
-        }
-        return neighborVertex;
+        findCliques(vertexOfCurrentClique, cliqueSize, potentialCVertex, potentialCSize, potentialDVertex,
+                excludedVertex);
     }
 
     protected int getBestCliqueSize() {
@@ -205,278 +218,157 @@ public class BKKCKCF {
         return solution;
     }
 
-    private void findCliques(List<Integer> potentialVertex, List<Integer> vertexOfCurrentClique,
-            Stack<Integer> potentialCVertex, List<Integer> potentialDVertex, List<Integer> excludedVertex,
-            List<Integer> excludedCVertex) {
-        int index = 0;
-        List<Integer> neighbourVertex = new ArrayList<Integer>(); ////Initialization ArrayList neighbourVertex
-
-        while (potentialVertex.get(index) != 0) {
-            int potentialVertexIndex = potentialVertex.get(index);
-
-            potentialCVertex.removeElement(potentialVertexIndex);
-
-            List<Integer> R_copy = new ArrayList<Integer>(vertexOfCurrentClique);
-            Stack<Integer> P_copy = new Stack<Integer>();
-            List<Integer> Q_copy = new ArrayList<Integer>(potentialDVertex);
-            List<Integer> X_copy = new ArrayList<Integer>(excludedVertex);
-            List<Integer> Y_copy = new ArrayList<Integer>(excludedCVertex);
-
-            neighbourVertex.clear();
-
-
-            for (Integer obj : potentialCVertex) {
-                P_copy.add(obj);
-            }
-
-            P_copy.pop();
-            //find the neighbors of the central node from potentialCVertex
-            //System.out.println("potentialVertex.elementAt(index): " + potentialVertex.elementAt(index));
-
-            neighbourVertex = findNeighbors(potentialVertexIndex);
-            groupNeighbors(index,
-                    P_copy,
-                    Q_copy,
-                    X_copy,
-                    Y_copy,
-                    neighbourVertex,
-                    potentialDVertex,
-                    potentialVertex,
-                    excludedVertex,
-                    excludedCVertex);
-            Stack<Integer> P_copy_N_intersec = new Stack<Integer>();
-            List<Integer> Q_copy_N_intersec = new ArrayList<Integer>();
-            List<Integer> X_copy_N_intersec = new ArrayList<Integer>();
-            List<Integer> Y_copy_N_intersec = new ArrayList<Integer>();
-
-            copyVertex(neighbourVertex,
-                    P_copy_N_intersec,
-                    P_copy,
-                    Q_copy_N_intersec,
-                    Q_copy,
-                    X_copy_N_intersec,
-                    X_copy,
-                    Y_copy_N_intersec,
-                    Y_copy);
-
-            P_copy_N_intersec.push(0);
-            R_copy.add(potentialVertexIndex);
-            enumerateCliques(R_copy, P_copy_N_intersec, Q_copy_N_intersec, X_copy_N_intersec, Y_copy_N_intersec);
-            excludedVertex.add(potentialVertexIndex);
-            index++;
+    /*
+     * Extends the clique by each vertex of potentialCVertex in turn. The
+     * neighbours of a vertex are not tried after it at this level. The
+     * candidates of the extended clique keep the order of the neighbours of
+     * the vertex, c-neighbours of the vertex in potentialDVertex become
+     * candidates as well.
+     */
+    private void findCliques(int[] vertexOfCurrentClique, int cliqueSize, int[] potentialCVertex,
+            int potentialCSize, BitSet potentialDVertex, BitSet excludedVertex) {
+        BitSet candidates = new BitSet();
+        for (int i = 0; i < potentialCSize; i++) {
+            candidates.set(potentialCVertex[i]);
         }
-    }
-
-    private void copyVertex(List<Integer> neighbourVertex, Stack<Integer> P_copy_N_intersec, Stack<Integer> P_copy,
-            List<Integer> Q_copy_N_intersec, List<Integer> Q_copy, List<Integer> X_copy_N_intersec,
-            List<Integer> X_copy, List<Integer> Y_copy_N_intersec, List<Integer> Y_copy) {
-        int nElement = -1;
-        int N_size = neighbourVertex.size();
+        BitSet skipped = new BitSet();
 
-        for (int sec = 0; sec < N_size; sec += 2) {
-
-            nElement = neighbourVertex.get(sec);
-
-            if (P_copy.contains(nElement)) {
-                P_copy_N_intersec.push(nElement);
-            }
-            if (Q_copy.contains(nElement)) {
-                Q_copy_N_intersec.add(nElement);
-            }
-            if (X_copy.contains(nElement)) {
-                X_copy_N_intersec.add(nElement);
+        for (int i = 0; i < potentialCSize; i++) {
+            int potentialVertexIndex = potentialCVertex[i];
+            if (skipped.get(potentialVertexIndex)) {
+                continue;
             }
-            if (Y_copy.contains(nElement)) {
-                Y_copy_N_intersec.add(nElement);
+            if (isTimeOut()) {
+                return;
             }
-        }
-    }
-
-    private void groupNeighbors(int index,
-            Stack<Integer> P_copy,
-            List<Integer> Q_copy,
-            List<Integer> X_copy,
-            List<Integer> Y_copy,
-            List<Integer> neighbourVertex,
-            List<Integer> potentialDVertex,
-            List<Integer> potentialVertex,
-            List<Integer> excludedVertex,
-            List<Integer> excludedCVertex) {
-
-        int N_size = neighbourVertex.size();
-
-        //System.out.println("Neighbors: ");
-
-        for (int b = 0; b < N_size; b += 2) {
-            // neighbourVertex[index] is node v
-            //Grouping of the neighbors:
-
-
-            Integer Nelement_at_b = neighbourVertex.get(b);
-
-            if (neighbourVertex.get(b + 1) == 1) {
-                //u and v are adjacent via index C-edge
-
-                if (potentialDVertex.contains(Nelement_at_b)) {
-
-                    P_copy.push(Nelement_at_b);
-                    //delete neighbourVertex[index] bzw. potentialDVertex[c] from set Q_copy, remove C-edges
-                    Q_copy.remove(Nelement_at_b);
-
+            candidates.clear(potentialVertexIndex);
+
+            int[] neighbourVertex = neighbours[potentialVertexIndex];
+            BitSet cNeighbourVertex = cNeighbours[potentialVertexIndex];
+            int[] P_copy_N_intersec = new int[neighbourVertex.length];
+            int P_size = 0;
+            BitSet Q_copy_N_intersec = new BitSet();
+            BitSet X_copy_N_intersec = new BitSet();
+
+            for (int nElement : neighbourVertex) {
+                boolean cNeighbour = cNeighbourVertex.get(nElement);
+                if (candidates.get(nElement) || (cNeighbour && potentialDVertex.get(nElement))) {
+                    P_copy_N_intersec[P_size++] = nElement;
                 }
-                if (excludedCVertex.contains(Nelement_at_b)) {
-                    if (excludedVertex.contains(Nelement_at_b)) {
-                        X_copy.add(Nelement_at_b);
-                    }
-                    Y_copy.remove(Nelement_at_b);
+                if (!cNeighbour && potentialDVertex.get(nElement)) {
+                    Q_copy_N_intersec.set(nElement);
                 }
+                if (excludedVertex.get(nElement)) {
+                    X_copy_N_intersec.set(nElement);
+                }
+                skipped.set(nElement);
             }
 
-            //find respective neighbor position in potentialVertex, which is needed for the deletion from potentialVertex
-
-            if (potentialVertex.indexOf(Nelement_at_b) <= index && potentialVertex.indexOf(Nelement_at_b) > -1) {
-                --index;
+            vertexOfCurrentClique[cliqueSize] = potentialVertexIndex;
+            if (!isBounded(cliqueSize + 1, P_copy_N_intersec, P_size, Q_copy_N_intersec)) {
+                enumerateCliques(vertexOfCurrentClique, cliqueSize + 1, P_copy_N_intersec, P_size,
+                        Q_copy_N_intersec, X_copy_N_intersec);
             }
-            potentialVertex.remove(Nelement_at_b);
+            excludedVertex.set(potentialVertexIndex);
         }
     }
 
-    private void setEdges() {
-        boolean d_edgeFlag = false;
-
-        if (dEdges.size() > cEdges.size()) {
-            if (dEdges.size() > 10000000 && cEdges.size() > 100000) {
-                dEdgeIterationSize = (float) dEdges.size() * 0.000001;
-                d_edgeFlag = true;
-            } else if (dEdges.size() > 10000000 && cEdges.size() > 5000) {
-                dEdgeIterationSize = (float) dEdges.size() * 0.001;
-                d_edgeFlag = true;
+    /*
+     * True if no clique extended from a clique of cliqueSize vertices by the
+     * vertices of potentialCVertex and potentialDVertex can reach the best
+     * clique size.
+     */
+    private boolean isBounded(int cliqueSize, int[] potentialCVertex, int potentialCSize, BitSet potentialDVertex) {
+        if (cliqueSize + potentialCSize + potentialDVertex.cardinality() < bestCliqueSize) {
+            return true;
+        }
+        if (bestCliqueSize <= cliqueSize + 1) {
+            return false;
+        }
+        // the vertices of one colour are not adjacent, a clique has one of each colour
+        BitSet uncoloured = (BitSet) potentialDVertex.clone();
+        for (int i = 0; i < potentialCSize; i++) {
+            uncoloured.set(potentialCVertex[i]);
+        }
+        int colours = 0;
+        while (!uncoloured.isEmpty()) {
+            if (cliqueSize + ++colours >= bestCliqueSize) {
+                return false;
+            }
+            BitSet colourable = (BitSet) uncoloured.clone();
+            for (int v = colourable.nextSetBit(0); v >= 0; v = colourable.nextSetBit(v + 1)) {
+                uncoloured.clear(v);
+                colourable.andNot(allNeighbours[v]);
             }
-
-//        else if (dEdges.size() > 5000000 && dEdges.size() > cEdges.size()) {
-//            dEdgeIterationSize = (float) dEdges.size() * 0.0001;
-//            d_edgeFlag = true;
-//
-//        } else if (dEdges.size() > 100000 && dEdges.size() > cEdges.size()) {
-//            dEdgeIterationSize = (float) dEdges.size() * 0.1;
-//            d_edgeFlag = true;
-//        }
-
-//        }
-
-//        else if (dEdges.size() >= 10000 && 500 >= cEdges.size()) {
-//            dEdgeIterationSize = (float) dEdges.size() * 0.1;
-//            d_edgeFlag = true;
-//        }
-//
-//
-//
-
         }
+        return true;
+    }
 
-        if (d_edgeFlag) {
-            checkLowestEdgeCount();
-        }
+    private boolean isTimeOut() {
+        return timeOut != null && timeOut.isTimeOut();
     }
 
-    private void initIterator(List<Integer> vertex, List<Integer> processedVertex) {
+    private void initIterator(int[] vertex) {
         /*
          * vertexOfCurrentClique: set of vertices belonging to the current clique
          */
-        List<Integer> vertexOfCurrentClique = new ArrayList<Integer>();
+        int[] vertexOfCurrentClique = new int[neighbours.length + 1];
         /*
-         *potentialCVertex: is index set of vertices which <index>can</index> be added
-         *to vertexOfCurrentClique, because they are
-         * neighbours of vertex u via <i>c-edges</i>
-         */
-        Stack<Integer> potentialCVertex = new Stack<Integer>();
-        /*
-         *potentialDVertex: is index set of vertices which <index>cannot</index> be added to
-         *vertexOfCurrentClique, because they are
-         * neighbours of vertex u via <i>d-edges</i>
-         */
-
-        List<Integer> potentialDVertex = new ArrayList<Integer>();
-        /*
-         *excludedVertex: set of vertices which are not allowed to be added
-         * to vertexOfCurrentClique
-         */
-        List<Integer> excludedVertex = new ArrayList<Integer>();
-
-
-        /*
-         *excludedCVertex: set of vertices which are not allowed to be added
-         * to C
+         *processedVertex: is index set of vertices which have already been used
          */
-
-        List<Integer> excludedCVertex = new ArrayList<Integer>();
-
+        BitSet processedVertex = new BitSet();
         /*
-         * neighbourVertex[u]: set of neighbours of vertex u in Graph G
-         *
+         * neighbours of a vertex already used are not used after it
          */
+        BitSet removedVertex = new BitSet();
 
-        List<Integer> neighbourVertex = new ArrayList<Integer>();
-
-        int index = 0;
-        while (vertex.get(index) != 0) {
-            int central_node = vertex.get(index);
-            potentialCVertex.clear();
-            potentialDVertex.clear();
-            excludedVertex.clear();
-            vertexOfCurrentClique.clear();
-
-            //find the neighbors of the central node from vertex
-            neighbourVertex = findNeighbors(central_node);
-
-            for (int c = 0; c < neighbourVertex.size(); c = c + 2) {
-                /*
-                 * u and v are adjacent via index vertexOfCurrentClique-edge
-                 */
-                Integer neighbourVertexOfC = neighbourVertex.get(c);
-
-                //find respective neighbor position in potentialCVertex, which is needed for the deletion from vertex
-                //delete neighbor from set vertex
-
-                if (neighbourVertex.get(c + 1) == 1) {
-                    if (processedVertex.contains(neighbourVertexOfC)) {
-                        excludedVertex.add(neighbourVertexOfC);
-                    } else {
-                        potentialCVertex.push(neighbourVertexOfC);
-                    }
-                } else if (neighbourVertex.get(c + 1) == 2) {
-                    // u and v are adjacent via index potentialDVertex-edge
-                    //System.out.println("u and v are adjacent via index potentialDVertex-edge: " + neighbourVertex.elementAt(c));
-
-                    if (processedVertex.contains(neighbourVertexOfC)) {
-                        excludedCVertex.add(neighbourVertexOfC);
+        for (int central_node : vertex) {
+            if (removedVertex.get(central_node)) {
+                continue;
+            }
+            if (isTimeOut()) {
+                break;
+            }
+            /*
+             *potentialCVertex: is index set of vertices which <index>can</index> be added
+             *to vertexOfCurrentClique, because they are
+             * neighbours of vertex u via <i>c-edges</i>
+             */
+            int[] neighbourVertex = neighbours[central_node];
+            int[] potentialCVertex = new int[neighbourVertex.length];
+            int potentialCSize = 0;
+            /*
+             *potentialDVertex: is index set of vertices which <index>cannot</index> be added to
+             *vertexOfCurrentClique, because they are
+             * neighbours of vertex u via <i>d-edges</i>
+             */
+            BitSet potentialDVertex = new BitSet();
+            /*
+             *excludedVertex: set of vertices which are not allowed to be added
+             * to vertexOfCurrentClique
+             */
+            BitSet excludedVertex = new BitSet();
+
+            for (int neighbourVertexOfC : neighbourVertex) {
+                boolean processed = processedVertex.get(neighbourVertexOfC);
+                if (cNeighbours[central_node].get(neighbourVertexOfC)) {
+                    if (processed) {
+                        excludedVertex.set(neighbourVertexOfC);
                     } else {
-                        potentialDVertex.add(neighbourVertexOfC);
+                        potentialCVertex[potentialCSize++] = neighbourVertexOfC;
                     }
+                } else if (!processed) {
+                    potentialDVertex.set(neighbourVertexOfC);
                 }
-
-                if (vertex.indexOf(neighbourVertexOfC) <= index && vertex.indexOf(neighbourVertexOfC) > -1) {
-                    --index;
-                }
-                vertex.remove(neighbourVertexOfC);
-                //System.out.println("Elements Removed from vertex:" + neighbourVertexOfC);
+                removedVertex.set(neighbourVertexOfC);
             }
 
-            potentialCVertex.add(0);
-            vertexOfCurrentClique.add(central_node);
-
-            enumerateCliques(vertexOfCurrentClique, potentialCVertex, potentialDVertex, excludedVertex, excludedCVertex);
-            //enumerateCliques(vertexOfCurrentClique, potentialCVertex, potentialDVertex, excludedVertex);
-            processedVertex.add(central_node);
-            index++;
-        }
-    }
-
-    private void checkLowestEdgeCount() {
-        if (dEdgeIterationSize < 1 && cEdges.size() <= 5000) {
-            dEdgeIterationSize = 2;
-        } else if (dEdgeIterationSize < 1) {
-            dEdgeIterationSize = 1;
+            vertexOfCurrentClique[0] = central_node;
+            if (!isBounded(1, potentialCVertex, potentialCSize, potentialDVertex)) {
+                enumerateCliques(vertexOfCurrentClique, 1, potentialCVertex, potentialCSize, potentialDVertex,
+                        excludedVertex);
+            }
+            processedVertex.set(central_node);
         }
     }
 }
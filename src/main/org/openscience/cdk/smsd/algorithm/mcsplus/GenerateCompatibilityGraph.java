@@ -25,8 +25,8 @@
 package org.openscience.cdk.smsd.algorithm.mcsplus;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.interfaces.IAtom;
@@ -42,6 +42,8 @@ import org.openscience.cdk.smsd.helper.LabelContainer;
 /**
  * This class generates compatibility graph between query and target molecule.
  * It also markes edges in the compatibility graph as c-edges or d-edges.
+ * The nodes and edges are kept in primitive int arrays, which the getters
+ * return as read only lists.
  * @cdk.module smsd
  * @cdk.githash
  * @author Syed Asad Rahman <asad@ebi.ac.uk>
@@ -49,10 +51,10 @@ import org.openscience.cdk.smsd.helper.LabelContainer;
 @TestClass("org.openscience.cdk.smsd.SMSDBondSensitiveTest")
 public final class GenerateCompatibilityGraph {
 
-    private List<Integer> compGraphNodes = null;
-    private List<Integer> compGraphNodesCZero = null;
-    private List<Integer> cEdges = null;
-    private List<Integer> dEdges = null;
+    private IntList compGraphNodes = null;
+    private IntList compGraphNodesCZero = null;
+    private IntList cEdges = null;
+    private IntList dEdges = null;
     private int cEdgesSize = 0;
     private int dEdgesSize = 0;
     private IAtomContainer source = null;
@@ -79,10 +81,10 @@ public final class GenerateCompatibilityGraph {
         setMatchBond(shouldMatchBonds);
         this.source = source;
         this.target = target;
-        compGraphNodes = new ArrayList<Integer>();
-        compGraphNodesCZero = new ArrayList<Integer>();
-        cEdges = new ArrayList<Integer>();
-        dEdges = new ArrayList<Integer>();
+        compGraphNodes = new IntList();
+        compGraphNodesCZero = new IntList();
+        cEdges = new IntList();
+        dEdges = new IntList();
         compatibilityGraphNodes();
         compatibilityGraph();
 
@@ -102,39 +104,34 @@ public final class GenerateCompatibilityGraph {
         }
     }
 
-    private List<List<Integer>> labelAtoms(IAtomContainer atomCont) {
-        List<List<Integer>> label_list = new ArrayList<List<Integer>>();
+    private int[][] labelAtoms(IAtomContainer atomCont) {
+        int[][] label_list = new int[atomCont.getAtomCount()][];
+        LabelContainer labelContainer = LabelContainer.getInstance();
 
         for (int i = 0; i < atomCont.getAtomCount(); i++) {
-            LabelContainer labelContainer = LabelContainer.getInstance();
-            ArrayList<Integer> label = new ArrayList<Integer>(7);
-//            label.setSize(7);
-
-            for (int a = 0; a < 7; a++) {
-                label.add(a, 0);
-            }
+            int[] label = new int[7];
 
             IAtom refAtom = atomCont.getAtom(i);
             String atom1_type = refAtom.getSymbol();
 
-            label.set(0, labelContainer.getLabelID(atom1_type));
+            label[0] = labelContainer.getLabelID(atom1_type);
 
             int count_neighbors = 1;
             List<IAtom> connAtoms = atomCont.getConnectedAtomsList(refAtom);
 
             for (IAtom negAtom : connAtoms) {
                 String atom2_type = negAtom.getSymbol();
-                label.set(count_neighbors++, labelContainer.getLabelID(atom2_type));
+                label[count_neighbors++] = labelContainer.getLabelID(atom2_type);
             }
 
             bubbleSort(label);
-            label_list.add(label);
+            label_list[i] = label;
 
         }
         return label_list;
     }
 
-    private void bubbleSort(List<Integer> label) {
+    private void bubbleSort(int[] label) {
 
         boolean flag = true; // set flag to 1 to begin initial pass
 
@@ -143,25 +140,34 @@ public final class GenerateCompatibilityGraph {
         for (int i = 0; i < 7 && flag; i++) {
             flag = false;
             for (int j = 0; j < 6; j++) {
-                if (label.get(i) > label.get(j + 1)) {
+                if (label[i] > label[j + 1]) {
                     // descending order simply changes to >
-                    temp = label.get(i); // swap elements
+                    temp = label[i]; // swap elements
 
-                    label.set(i, label.get(j + 1));
-                    label.set(j + 1, temp);
+                    label[i] = label[j + 1];
+                    label[j + 1] = temp;
                     flag = true; // indicates that iIndex swap occurred.
                 }
             }
         }
     }
 
-    private List<IAtom> reduceAtomSet(IAtomContainer atomCont) {
-
-        List<IAtom> basic_atoms = new ArrayList<IAtom>();
-        for (IAtom atom : atomCont.atoms()) {
-            basic_atoms.add(atom);
+    /**
+     * Returns the bonds of a molecule by the indices of their atoms, so that
+     * the edges are found without searching the bond list for each pair of
+     * nodes.
+     */
+    private static IBond[][] bondMatrix(IAtomContainer atomCont) {
+        IBond[][] bonds = new IBond[atomCont.getAtomCount()][atomCont.getAtomCount()];
+        for (IBond bond : atomCont.bonds()) {
+            int i = atomCont.getAtomNumber(bond.getAtom(0));
+            int j = atomCont.getAtomNumber(bond.getAtom(1));
+            if (i >= 0 && j >= 0 && bonds[i][j] == null) {
+                bonds[i][j] = bond;
+                bonds[j][i] = bond;
+            }
         }
-        return basic_atoms;
+        return bonds;
     }
 
     /**
@@ -173,31 +179,22 @@ public final class GenerateCompatibilityGraph {
     protected int compatibilityGraphNodes() throws IOException {
 
         compGraphNodes.clear();
-        List<IAtom> basic_atom_vec_A = null;
-        List<IAtom> basic_atom_vec_B = null;
         IAtomContainer reactant = source;
         IAtomContainer product = target;
 
-        basic_atom_vec_A = reduceAtomSet(reactant);
-        basic_atom_vec_B = reduceAtomSet(product);
-
-        List<List<Integer>> label_list_molA = labelAtoms(reactant);
-        List<List<Integer>> label_list_molB = labelAtoms(product);
+        int[][] label_list_molA = labelAtoms(reactant);
+        int[][] label_list_molB = labelAtoms(product);
 
-        int molA_nodes = 0;
         int count_nodes = 1;
 
-        for (List<Integer> labelA : label_list_molA) {
-            int molB_nodes = 0;
-            for (List<Integer> labelB : label_list_molB) {
-                if (labelA.equals(labelB)) {
-                    compGraphNodes.add(reactant.getAtomNumber(basic_atom_vec_A.get(molA_nodes)));
-                    compGraphNodes.add(product.getAtomNumber(basic_atom_vec_B.get(molB_nodes)));
+        for (int molA_nodes = 0; molA_nodes < label_list_molA.length; molA_nodes++) {
+            for (int molB_nodes = 0; molB_nodes < label_list_molB.length; molB_nodes++) {
+                if (Arrays.equals(label_list_molA[molA_nodes], label_list_molB[molB_nodes])) {
+                    compGraphNodes.add(molA_nodes);
+                    compGraphNodes.add(molB_nodes);
                     compGraphNodes.add(count_nodes++);
                 }
-                molB_nodes++;
             }
-            molA_nodes++;
         }
         return 0;
     }
@@ -211,8 +208,10 @@ public final class GenerateCompatibilityGraph {
     protected int compatibilityGraph() throws IOException {
         int comp_graph_nodes_List_size = compGraphNodes.size();
 
-        cEdges = new ArrayList<Integer>(); //Initialize the cEdges List
-        dEdges = new ArrayList<Integer>(); //Initialize the dEdges List
+        cEdges = new IntList(); //Initialize the cEdges List
+        dEdges = new IntList(); //Initialize the dEdges List
+        IBond[][] sourceBonds = bondMatrix(source);
+        IBond[][] targetBonds = bondMatrix(target);
 
         for (int a = 0; a < comp_graph_nodes_List_size; a += 3) {
             int index_a = compGraphNodes.get(a);
@@ -228,8 +227,8 @@ public final class GenerateCompatibilityGraph {
                     IBond reactantBond = null;
                     IBond productBond = null;
 
-                    reactantBond = source.getBond(source.getAtom(index_a), source.getAtom(index_b));
-                    productBond = target.getBond(target.getAtom(index_aPlus1), target.getAtom(index_bPlus1));
+                    reactantBond = sourceBonds[index_a][index_b];
+                    productBond = targetBonds[index_aPlus1][index_bPlus1];
                     if (reactantBond != null && productBond != null) {
                         addEdges(reactantBond, productBond, a, b);
                     }
@@ -260,8 +259,7 @@ public final class GenerateCompatibilityGraph {
     protected Integer compatibilityGraphNodesIfCEdgeIsZero() throws IOException {
 
         int count_nodes = 1;
-        List<String> map = new ArrayList<String>();
-        compGraphNodesCZero = new ArrayList<Integer>(); //Initialize the compGraphNodesCZero List
+        compGraphNodesCZero = new IntList(); //Initialize the compGraphNodesCZero List
         LabelContainer labelContainer = LabelContainer.getInstance();
         compGraphNodes.clear();
 
@@ -272,7 +270,7 @@ public final class GenerateCompatibilityGraph {
 
                 //You can also check object equal or charge, hydrogen count etc
 
-                if (atom1.getSymbol().equalsIgnoreCase(atom2.getSymbol()) && (!map.contains(i + "_" + j))) {
+                if (atom1.getSymbol().equalsIgnoreCase(atom2.getSymbol())) {
                     compGraphNodesCZero.add(i);
                     compGraphNodesCZero.add(j);
                     compGraphNodesCZero.add(labelContainer.getLabelID(atom1.getSymbol())); //i.e C is label 1
@@ -280,11 +278,9 @@ public final class GenerateCompatibilityGraph {
                     compGraphNodes.add(i);
                     compGraphNodes.add(j);
                     compGraphNodes.add(count_nodes++);
-                    map.add(i + "_" + j);
                 }
             }
         }
-        map.clear();
         return count_nodes;
     }
 
@@ -298,8 +294,10 @@ public final class GenerateCompatibilityGraph {
     protected int compatibilityGraphCEdgeZero() throws IOException {
 
         int compGraphNodesCZeroListSize = compGraphNodesCZero.size();
-        cEdges = new ArrayList<Integer>(); //Initialize the cEdges List
-        dEdges = new ArrayList<Integer>(); //Initialize the dEdges List
+        cEdges = new IntList(); //Initialize the cEdges List
+        dEdges = new IntList(); //Initialize the dEdges List
+        IBond[][] sourceBonds = bondMatrix(source);
+        IBond[][] targetBonds = bondMatrix(target);
 
         for (int a = 0; a < compGraphNodesCZeroListSize; a += 4) {
             int index_a = compGraphNodesCZero.get(a);
@@ -315,8 +313,8 @@ public final class GenerateCompatibilityGraph {
                     IBond reactantBond = null;
                     IBond productBond = null;
 
-                    reactantBond = source.getBond(source.getAtom(index_a), source.getAtom(index_b));
-                    productBond = target.getBond(target.getAtom(index_aPlus1), target.getAtom(index_bPlus1));
+                    reactantBond = sourceBonds[index_a][index_b];
+                    productBond = targetBonds[index_aPlus1][index_bPlus1];
 
                     if (reactantBond != null && productBond != null) {
                         addCZeroEdges(reactantBond, productBond, a, b);
@@ -368,15 +366,15 @@ public final class GenerateCompatibilityGraph {
     }
 
     public List<Integer> getCEgdes() {
-        return Collections.unmodifiableList(cEdges);
+        return cEdges.asList();
     }
 
     protected List<Integer> getDEgdes() {
-        return Collections.unmodifiableList(dEdges);
+        return dEdges.asList();
     }
 
     protected List<Integer> getCompGraphNodes() {
-        return Collections.unmodifiableList(compGraphNodes);
+        return compGraphNodes.asList();
     }
 
     protected int getCEdgesSize() {
@@ -388,7 +386,7 @@ public final class GenerateCompatibilityGraph {
     }
 
     protected List<Integer> getCompGraphNodesCZero() {
-        return compGraphNodesCZero;
+        return compGraphNodesCZero.asList();
     }
 
     protected void clearCEgdes() {
@@ -435,4 +433,56 @@ public final class GenerateCompatibilityGraph {
     public void setMatchBond(boolean shouldMatchBonds) {
         this.shouldMatchBonds = shouldMatchBonds;
     }
+
+    /**
+     * A growable list of ints, which stores the nodes and edges without
+     * boxing each value.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * A read only view of the values, which sees later additions.
+         */
+        List<Integer> asList() {
+            return new AbstractList<Integer>() {
+
+                @Override
+                public Integer get(int index) {
+                    if (index >= size) {
+                        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                    }
+                    return values[index];
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
 }
@@ -33,7 +33,6 @@ import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.smsd.algorithm.mcgregor.McGregor;
 import org.openscience.cdk.smsd.global.TimeOut;
-import org.openscience.cdk.smsd.tools.TimeManager;
 
 /**
  * This class handles MCS plus algorithm which is a combination of
@@ -45,35 +44,22 @@ import org.openscience.cdk.smsd.tools.TimeManager;
 @TestClass("org.openscience.cdk.smsd.SMSDBondSensitiveTest")
 public class MCSPlus {
 
+    private final TimeOut timeOut;
+
     /**
-    * Default constructor added 
+    * Default constructor added, which uses the shared
+    * {@link TimeOut#getInstance()}
     */
     public MCSPlus(){
-        
-    }
-
-    private static TimeManager timeManager = null;
-
-    /**
-     * @return the timeout
-     */
-    protected synchronized static double getTimeout() {
-        return TimeOut.getInstance().getTimeOut();
-    }
-
-    /**
-     * @return the timeManager
-     */
-    protected synchronized static TimeManager getTimeManager() {
-        return timeManager;
+        this(null);
     }
 
     /**
-     * @param aTimeManager the timeManager to set
+     * Creates the algorithm for one job.
+     * @param timeOut the time out of the job, or null for the shared one
      */
-    protected synchronized static void setTimeManager(TimeManager aTimeManager) {
-        TimeOut.getInstance().setTimeOutFlag(false);
-        timeManager = aTimeManager;
+    public MCSPlus(TimeOut timeOut) {
+        this.timeOut = timeOut;
     }
 
     /**
@@ -98,7 +84,12 @@ public class MCSPlus {
 //            System.err.println("C_edges: " + C_edges.size());
 //            System.out.println("D_edges: " + D_edges.size());
 
-            BKKCKCF init = new BKKCKCF(comp_graph_nodes, C_edges, D_edges);
+            TimeOut timeOut = this.timeOut;
+            if (timeOut == null) {
+                timeOut = TimeOut.getInstance();
+                timeOut.start();
+            }
+            BKKCKCF init = new BKKCKCF(comp_graph_nodes, C_edges, D_edges, timeOut);
             maxCliqueSet = init.getMaxCliqueSet();
 
 //            System.err.println("**************************************************");
@@ -111,7 +102,7 @@ public class MCSPlus {
                 List<Integer> clique_List = maxCliqueSet.peek();
                 int clique_size = clique_List.size();
                 if (clique_size < ac1.getAtomCount() && clique_size < ac2.getAtomCount()) {
-                    McGregor mgit = new McGregor(ac1, ac2, mappings, shouldMatchBonds);
+                    McGregor mgit = new McGregor(ac1, ac2, mappings, shouldMatchBonds, timeOut);
                     mgit.startMcGregorIteration(mgit.getMCSSize(), clique_List, comp_graph_nodes);
                     mappings = mgit.getMappings();
                     mgit = null;
@@ -119,7 +110,7 @@ public class MCSPlus {
                     mappings = ExactMapping.extractMapping(mappings, comp_graph_nodes, clique_List);
                 }
                 maxCliqueSet.pop();
-                if (isTimeOut()) {
+                if (timeOut.isTimeOut()) {
                     break;
                 }
             }
@@ -128,12 +119,4 @@ public class MCSPlus {
         }
         return mappings;
     }
-
-    public synchronized static boolean isTimeOut() {
-        if (getTimeout() > -1 && getTimeManager().getElapsedTimeInMinutes() > getTimeout()) {
-            TimeOut.getInstance().setTimeOutFlag(true);
-            return true;
-        }
-        return false;
-    }
 }
@@ -71,7 +71,6 @@ import org.openscience.cdk.smsd.algorithm.matchers.DefaultBondMatcher;
 import org.openscience.cdk.smsd.algorithm.matchers.DefaultMatcher;
 import org.openscience.cdk.smsd.algorithm.matchers.DefaultRGraphAtomMatcher;
 import org.openscience.cdk.smsd.global.TimeOut;
-import org.openscience.cdk.smsd.tools.TimeManager;
 import org.openscience.cdk.tools.manipulator.BondManipulator;
 
 /**
@@ -129,7 +128,6 @@ public class CDKMCS {
 
     final static int ID1 = 0;
     final static int ID2 = 1;
-    private static TimeManager timeManager = null;
 
     ///////////////////////////////////////////////////////////////////////////
     //                            Query Methods
@@ -242,7 +240,22 @@ public class CDKMCS {
      * @throws CDKException
      */
     public static List<List<CDKRMap>> getIsomorphMaps(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds) throws CDKException {
-        return search(sourceGraph, targetGraph, getBitSet(sourceGraph), getBitSet(targetGraph), true, true, shouldMatchBonds);
+        return getIsomorphMaps(sourceGraph, targetGraph, shouldMatchBonds, null);
+    }
+
+    /**
+     * Returns all the isomorph 'mappings' found between two
+     * atom containers within the time out of a job.
+     *
+     * @param  sourceGraph  first molecule. Must not be an IQueryAtomContainer.
+     * @param  targetGraph  second molecule. May be an IQueryAtomContainer.
+     * @param shouldMatchBonds
+     * @param timeOut the time out of the job, or null for the shared one
+     * @return     the list of all the 'mappings'
+     * @throws CDKException
+     */
+    public static List<List<CDKRMap>> getIsomorphMaps(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds, TimeOut timeOut) throws CDKException {
+        return search(sourceGraph, targetGraph, getBitSet(sourceGraph), getBitSet(targetGraph), true, true, shouldMatchBonds, timeOut);
     }
 
     /////
@@ -258,7 +271,22 @@ public class CDKMCS {
      * @throws CDKException
      */
     public static List<List<CDKRMap>> getSubgraphMaps(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds) throws CDKException {
-        return search(sourceGraph, targetGraph, new BitSet(), getBitSet(targetGraph), true, true, shouldMatchBonds);
+        return getSubgraphMaps(sourceGraph, targetGraph, shouldMatchBonds, null);
+    }
+
+    /**
+     * Returns all the subgraph 'bondA1 mappings' found for targetGraph in
+     * sourceGraph within the time out of a job.
+     *
+     * @param  sourceGraph  first molecule. Must not be an IQueryAtomContainer.
+     * @param  targetGraph  second molecule. May be an IQueryAtomContainer.
+     * @param shouldMatchBonds
+     * @param timeOut the time out of the job, or null for the shared one
+     * @return     the list of all the 'mappings' found projected of sourceGraph
+     * @throws CDKException
+     */
+    public static List<List<CDKRMap>> getSubgraphMaps(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds, TimeOut timeOut) throws CDKException {
+        return search(sourceGraph, targetGraph, new BitSet(), getBitSet(targetGraph), true, true, shouldMatchBonds, timeOut);
     }
 
     /**
@@ -295,10 +323,27 @@ public class CDKMCS {
     public static List<List<CDKRMap>> getSubgraphAtomsMaps(IAtomContainer sourceGraph,
             IAtomContainer targetGraph, boolean shouldMatchBonds)
             throws CDKException {
+        return getSubgraphAtomsMaps(sourceGraph, targetGraph, shouldMatchBonds, null);
+    }
+
+    /**
+     * Returns all subgraph 'atom mappings' found for targetGraph in sourceGraph
+     * within the time out of a job.
+     *
+     * @param  sourceGraph  first molecule. Must not be an IQueryAtomContainer.
+     * @param  targetGraph  second molecule. May be an IQueryAtomContainer.
+     * @param shouldMatchBonds
+     * @param timeOut the time out of the job, or null for the shared one
+     * @return     all subgraph atom mappings found projected on sourceGraph.
+     * @throws CDKException
+     */
+    public static List<List<CDKRMap>> getSubgraphAtomsMaps(IAtomContainer sourceGraph,
+            IAtomContainer targetGraph, boolean shouldMatchBonds, TimeOut timeOut)
+            throws CDKException {
         List<CDKRMap> list = checkSingleAtomCases(sourceGraph, targetGraph);
         if (list == null) {
             return makeAtomsMapsOfBondsMaps(
-                    CDKMCS.getSubgraphMaps(sourceGraph, targetGraph, shouldMatchBonds), sourceGraph, targetGraph);
+                    CDKMCS.getSubgraphMaps(sourceGraph, targetGraph, shouldMatchBonds, timeOut), sourceGraph, targetGraph);
         } else {
             List<List<CDKRMap>> atomsMap = new ArrayList<List<CDKRMap>>();
             atomsMap.add(list);
@@ -438,9 +483,26 @@ public class CDKMCS {
      * @throws CDKException
      */
     public static CDKRGraph buildRGraph(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds) throws CDKException {
+        return buildRGraph(sourceGraph, targetGraph, shouldMatchBonds, null);
+    }
+
+    /**
+     * Builds the CDKRGraph of one job, which stops adding arcs when the time
+     * out of the job expires or the job is cancelled. The graph is then
+     * incomplete and must not be parsed.
+     *
+     * @param  sourceGraph  Description of the first molecule
+     * @param  targetGraph  Description of the second molecule
+     * @param shouldMatchBonds
+     * @param  timeOut      the time out of the job, or null to build the whole graph
+     * @return     the rGraph
+     * @throws CDKException
+     */
+    public static CDKRGraph buildRGraph(IAtomContainer sourceGraph, IAtomContainer targetGraph, boolean shouldMatchBonds,
+            TimeOut timeOut) throws CDKException {
         CDKRGraph rGraph = new CDKRGraph();
         nodeConstructor(rGraph, sourceGraph, targetGraph, shouldMatchBonds);
-        arcConstructor(rGraph, sourceGraph, targetGraph);
+        arcConstructor(rGraph, sourceGraph, targetGraph, timeOut);
         return rGraph;
     }
 
@@ -465,6 +527,33 @@ public class CDKMCS {
     public static List<List<CDKRMap>> search(IAtomContainer sourceGraph, IAtomContainer targetGraph,
             BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap,
             boolean shouldMatchBonds) throws CDKException {
+        return search(sourceGraph, targetGraph, sourceBitSet, targetBitSet, findAllStructure, findAllMap,
+                shouldMatchBonds, null);
+    }
+
+    /**
+     * General Rgraph parsing method within the time out of a job. The search
+     * stops with the solutions found so far when the job times out or is
+     * cancelled.
+     *
+     * @param  sourceGraph                first molecule. Must not be an IQueryAtomContainer.
+     * @param  targetGraph                second molecule. May be an IQueryAtomContainer.
+     * @param  sourceBitSet                initial condition ( bonds from sourceGraph that
+     *                           must be contains in the solution )
+     * @param  targetBitSet                initial condition ( bonds from targetGraph that
+     *                           must be contains in the solution )
+     * @param  findAllStructure  if false stop at the first structure found
+     * @param  findAllMap        if true search all the 'mappings' for one same
+     *                           structure
+     * @param shouldMatchBonds
+     * @param timeOut            the time out of the job, or null for the
+     *                           shared {@link TimeOut#getInstance()}
+     * @return                   atom List of Lists of CDKRMap objects that represent the search solutions
+     * @throws CDKException
+     */
+    public static List<List<CDKRMap>> search(IAtomContainer sourceGraph, IAtomContainer targetGraph,
+            BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap,
+            boolean shouldMatchBonds, TimeOut timeOut) throws CDKException {
 
 
         // handle single query atom case separately
@@ -496,11 +585,17 @@ public class CDKMCS {
 
         // reset result
         List<List<CDKRMap>> rMapsList = new ArrayList<List<CDKRMap>>();
+        if (timeOut == null) {
+            timeOut = TimeOut.getInstance();
+            timeOut.start();
+        }
         // build the CDKRGraph corresponding to this problem
-        CDKRGraph rGraph = buildRGraph(sourceGraph, targetGraph, shouldMatchBonds);
-        setTimeManager(new TimeManager());
+        CDKRGraph rGraph = buildRGraph(sourceGraph, targetGraph, shouldMatchBonds, timeOut);
+        if (timeOut.isTimeOut()) {
+            return rMapsList;
+        }
         // parse the CDKRGraph with the given constrains and options
-        rGraph.parse(sourceBitSet, targetBitSet, findAllStructure, findAllMap, getTimeManager());
+        rGraph.parse(sourceBitSet, targetBitSet, findAllStructure, findAllMap, timeOut);
         List<BitSet> solutionList = rGraph.getSolutions();
 
         // conversions of CDKRGraph's internal solutions to G1/G2 mappings
@@ -833,9 +928,11 @@ public class CDKMCS {
      * @param  graph   the rGraph
      * @param  ac1   first molecule. Must not be an IQueryAtomContainer.
      * @param  ac2   second molecule. May be an IQueryAtomContainer.
+     * @param  timeOut the time out of the job, or null
      * @throws org.openscience.cdk.exception.CDKException if it takes too long to get the overlaps
      */
-    private static void arcConstructor(CDKRGraph graph, IAtomContainer ac1, IAtomContainer ac2) throws CDKException {
+    private static void arcConstructor(CDKRGraph graph, IAtomContainer ac1, IAtomContainer ac2, TimeOut timeOut)
+            throws CDKException {
         // each node is incompatible with itself
         for (int i = 0; i < graph.getGraph().size(); i++) {
             CDKRNode rNodeX = graph.getGraph().get(i);
@@ -851,6 +948,9 @@ public class CDKMCS {
         graph.setSecondGraphSize(ac2.getBondCount());
 
         for (int i = 0; i < graph.getGraph().size(); i++) {
+            if (timeOut != null && timeOut.isTimeOut()) {
+                return;
+            }
             CDKRNode rNodeX = graph.getGraph().get(i);
 
             // two nodes are neighbours if their adjacency
@@ -1153,34 +1253,4 @@ public class CDKMCS {
         return ac1CCount >= ac2CCount;
 
     }
-
-    /**
-     * @return the timeout
-     */
-    protected synchronized static double getTimeout() {
-        return TimeOut.getInstance().getTimeOut();
-    }
-
-    /**
-     * @return the timeManager
-     */
-    protected synchronized static TimeManager getTimeManager() {
-        return timeManager;
-    }
-
-    /**
-     * @param aTimeManager the timeManager to set
-     */
-    protected synchronized static void setTimeManager(TimeManager aTimeManager) {
-        TimeOut.getInstance().setTimeOutFlag(false);
-        timeManager = aTimeManager;
-    }
-
-    public synchronized static boolean isTimeOut() {
-        if (getTimeout() > -1 && getTimeManager().getElapsedTimeInMinutes() > getTimeout()) {
-            TimeOut.getInstance().setTimeOutFlag(true);
-            return true;
-        }
-        return false;
-    }
 }
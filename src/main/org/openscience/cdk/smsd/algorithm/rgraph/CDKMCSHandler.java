@@ -37,7 +37,7 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomContainerSet;
 import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
-import org.openscience.cdk.smsd.helper.FinalMappings;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.interfaces.AbstractMCSAlgorithm;
 import org.openscience.cdk.smsd.interfaces.IMCSBase;
 import org.openscience.cdk.smsd.tools.MolHandler;
@@ -60,13 +60,25 @@ public class CDKMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
     private Map<IAtom, IAtom> firstAtomMCS = null;
     private Map<Integer, Integer> firstMCS = null;
     private List<Map<Integer, Integer>> allMCS = null;
+    private final TimeOut timeOut;
 
     //~--- constructors -------------------------------------------------------
     /*
      * Creates a new instance of MappingHandler
      */
     public CDKMCSHandler() {
+        this(null);
+    }
 
+    /**
+     * Creates a new instance of MappingHandler which searches within the
+     * time out of a job.
+     * @param timeOut the time out of the job, or null for the shared
+     *        {@link TimeOut#getInstance()}
+     */
+    @TestMethod("testSearchMCS_timeOut")
+    public CDKMCSHandler(TimeOut timeOut) {
+        this.timeOut = timeOut;
         this.allAtomMCS = new ArrayList<Map<IAtom, IAtom>>();
         this.firstAtomMCS = new HashMap<IAtom, IAtom>();
         this.firstMCS = new TreeMap<Integer, Integer>();
@@ -103,7 +115,7 @@ public class CDKMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
     @TestMethod("testSearchMCS")
     public void searchMCS(boolean shouldMatchBonds) {
 
-        CDKRMapHandler rmap = new CDKRMapHandler();
+        CDKRMapHandler rmap = new CDKRMapHandler(timeOut);
 
         try {
 
@@ -120,7 +132,7 @@ public class CDKMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
                 rmap.calculateOverlapsAndReduce(target, source, shouldMatchBonds);
             }
 
-            setAllMapping();
+            setAllMapping(rmap.getMappings());
             setAllAtomMapping();
             setFirstMapping();
             setFirstAtomMapping();
@@ -142,7 +154,7 @@ public class CDKMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
     protected IAtomContainerSet getUncommon(IAtomContainer mol, IAtomContainer mcss, boolean shouldMatchBonds) throws CDKException {
         ArrayList<Integer> atomSerialsToDelete = new ArrayList<Integer>();
 
-        List<List<CDKRMap>> matches = CDKMCS.getSubgraphAtomsMaps(mol, mcss, shouldMatchBonds);
+        List<List<CDKRMap>> matches = CDKMCS.getSubgraphAtomsMaps(mol, mcss, shouldMatchBonds, timeOut);
         List<CDKRMap> mapList = matches.get(0);
         for (Object o : mapList) {
             CDKRMap rmap = (CDKRMap) o;
@@ -168,12 +180,11 @@ public class CDKMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
     }
 
     //~--- get methods --------------------------------------------------------
-    private synchronized void setAllMapping() {
+    private synchronized void setAllMapping(List<Map<Integer, Integer>> sol) {
 
         //int count_final_sol = 1;
         //System.out.println("Output of the final FinalMappings: ");
         try {
-            List<Map<Integer, Integer>> sol = FinalMappings.getInstance().getFinalMapping();
             int counter = 0;
             for (Map<Integer, Integer> final_solution : sol) {
                 TreeMap<Integer, Integer> atomMappings = new TreeMap<Integer, Integer>();
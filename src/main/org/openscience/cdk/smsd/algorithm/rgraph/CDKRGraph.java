@@ -35,7 +35,7 @@ import java.util.Iterator;
 import java.util.List;
 import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.exception.CDKException;
-import org.openscience.cdk.smsd.tools.TimeManager;
+import org.openscience.cdk.smsd.global.TimeOut;
 
 /**
  * This class implements the Resolution Graph (CDKRGraph).
@@ -126,6 +126,7 @@ public class CDKRGraph {
     private boolean stop = false;
     private int nbIteration = 0;
     private BitSet graphBitSet = null;
+    private TimeOut timeOut = null;
     // -1 for infinite search and one min is 1
 
     /**
@@ -138,7 +139,7 @@ public class CDKRGraph {
     }
 
     private boolean checkTimeOut() throws CDKException {
-        if (CDKMCS.isTimeOut()) {
+        if (timeOut != null && timeOut.isTimeOut()) {
             setStop(true);
             return true;
         }
@@ -219,10 +220,12 @@ public class CDKRGraph {
      * @param  targetBitSet  constrain on the graph G2
      * @param  findAllStructure true if we want all results to be generated
      * @param  findAllMap true is we want all possible 'mappings'
-     * @param timeManager
+     * @param timeOut the time out of the job, which stops the search when it
+     *        expires or the job is cancelled, or null to search without one
      * @throws CDKException
      */
-    public void parse(BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap, TimeManager timeManager) throws CDKException {
+    public void parse(BitSet sourceBitSet, BitSet targetBitSet, boolean findAllStructure, boolean findAllMap, TimeOut timeOut) throws CDKException {
+        this.timeOut = timeOut;
         // initialize the list of solution
         checkTimeOut();
         // initialize the list of solution
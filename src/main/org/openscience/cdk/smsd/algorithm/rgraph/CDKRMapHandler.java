@@ -34,7 +34,7 @@ import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
-import org.openscience.cdk.smsd.helper.FinalMappings;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.tools.manipulator.BondManipulator;
 
 /**
@@ -54,13 +54,23 @@ public class CDKRMapHandler {
 
 
     public CDKRMapHandler(){
-        
+        this(null);
     }
+
+    /**
+     * Creates a handler which searches within the time out of a job.
+     * @param timeOut the time out of the job, or null for the shared
+     *        {@link TimeOut#getInstance()}
+     */
+    public CDKRMapHandler(TimeOut timeOut) {
+        this.timeOut = timeOut;
+    }
+
     /**
      * Returns source molecule
      * @return the source
      */
-    public static IAtomContainer getSource() {
+    public IAtomContainer getSource() {
         return source;
     }
 
@@ -68,7 +78,7 @@ public class CDKRMapHandler {
      * Set source molecule
      * @param aSource the source to set
      */
-    public static void setSource(IAtomContainer aSource) {
+    public void setSource(IAtomContainer aSource) {
         source = aSource;
     }
 
@@ -76,7 +86,7 @@ public class CDKRMapHandler {
      * Returns target molecule
      * @return the target
      */
-    public static IAtomContainer getTarget() {
+    public IAtomContainer getTarget() {
         return target;
     }
 
@@ -84,13 +94,14 @@ public class CDKRMapHandler {
      * Set target molecule
      * @param aTarget the target to set
      */
-    public static void setTarget(IAtomContainer aTarget) {
+    public void setTarget(IAtomContainer aTarget) {
         target = aTarget;
     }
     private List<Map<Integer, Integer>> mappings;
-    private static IAtomContainer source;
-    private static IAtomContainer target;
+    private IAtomContainer source;
+    private IAtomContainer target;
     private boolean timeoutFlag = false;
+    private final TimeOut timeOut;
 
     /**
      * This function calculates all the possible combinations of MCS
@@ -120,7 +131,7 @@ public class CDKRMapHandler {
             }
 
         } else {
-            List<List<CDKRMap>> overlaps = CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true, shouldMatchBonds);
+            List<List<CDKRMap>> overlaps = CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true, shouldMatchBonds, timeOut);
 
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
@@ -134,8 +145,6 @@ public class CDKRMapHandler {
             }
         }
 
-        FinalMappings.getInstance().set(getMappings());
-
     }
 
     /**
@@ -169,7 +178,7 @@ public class CDKRMapHandler {
         } else {
 
             List<List<CDKRMap>> overlaps =
-                    CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true, shouldMatchBonds);
+                    CDKMCS.search(getSource(), getTarget(), new BitSet(), new BitSet(), true, true, shouldMatchBonds, timeOut);
 
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
@@ -180,7 +189,6 @@ public class CDKRMapHandler {
                 allMaxOverlaps.pop();
             }
         }
-        FinalMappings.getInstance().set(getMappings());
     }
 
     /**
@@ -214,7 +222,7 @@ public class CDKRMapHandler {
         } else {
 
             List<List<CDKRMap>> overlaps =
-                    CDKMCS.getSubgraphMaps(getSource(), getTarget(), shouldMatchBonds);
+                    CDKMCS.getSubgraphMaps(getSource(), getTarget(), shouldMatchBonds, timeOut);
 
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
@@ -225,7 +233,6 @@ public class CDKRMapHandler {
                 allMaxOverlaps.pop();
             }
         }
-        FinalMappings.getInstance().set(getMappings());
     }
 
     /**
@@ -259,7 +266,7 @@ public class CDKRMapHandler {
         } else {
 
             List<List<CDKRMap>> overlaps =
-                    CDKMCS.getIsomorphMaps(getSource(), getTarget(), shouldMatchBonds);
+                    CDKMCS.getIsomorphMaps(getSource(), getTarget(), shouldMatchBonds, timeOut);
 
             List<List<CDKRMap>> reducedList = removeSubGraph(overlaps);
             Stack<List<CDKRMap>> allMaxOverlaps = getAllMaximum(reducedList);
@@ -270,7 +277,6 @@ public class CDKRMapHandler {
                 allMaxOverlaps.pop();
             }
         }
-        FinalMappings.getInstance().set(getMappings());
     }
 
     /**
@@ -477,7 +483,8 @@ public class CDKRMapHandler {
      */
     protected Stack<List<CDKRMap>> getAllMaximum(List<List<CDKRMap>> overlaps) {
 
-        Stack<List<CDKRMap>> allMaximumMappings = null;
+        // empty when the search timed out before it found an overlap
+        Stack<List<CDKRMap>> allMaximumMappings = new Stack<List<CDKRMap>>();
 
         int count = -1;
 
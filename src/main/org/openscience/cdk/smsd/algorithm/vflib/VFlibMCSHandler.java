@@ -43,6 +43,7 @@ import org.openscience.cdk.smsd.algorithm.vflib.interfaces.INode;
 import org.openscience.cdk.smsd.algorithm.vflib.interfaces.IQuery;
 import org.openscience.cdk.smsd.algorithm.vflib.map.VFMCSMapper;
 import org.openscience.cdk.smsd.algorithm.vflib.query.QueryCompiler;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.interfaces.AbstractMCSAlgorithm;
 import org.openscience.cdk.smsd.interfaces.IMCSBase;
 import org.openscience.cdk.smsd.tools.MolHandler;
@@ -67,18 +68,19 @@ import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 @TestClass("org.openscience.cdk.smsd.algorithm.vflib.VFlibMCSHandlerTest")
 public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
 
-    private static List<Map<IAtom, IAtom>> allAtomMCS = null;
-    private static Map<IAtom, IAtom> atomsMCS = null;
-    private static List<Map<IAtom, IAtom>> allAtomMCSCopy = null;
-    private static Map<Integer, Integer> firstMCS = null;
-    private static List<Map<Integer, Integer>> allMCS = null;
-    private static List<Map<Integer, Integer>> allMCSCopy = null;
+    private List<Map<IAtom, IAtom>> allAtomMCS = null;
+    private Map<IAtom, IAtom> atomsMCS = null;
+    private List<Map<IAtom, IAtom>> allAtomMCSCopy = null;
+    private Map<Integer, Integer> firstMCS = null;
+    private List<Map<Integer, Integer>> allMCS = null;
+    private List<Map<Integer, Integer>> allMCSCopy = null;
     private List<Map<INode, IAtom>> vfLibSolutions = null;
     private IQueryAtomContainer queryMol = null;
     private IAtomContainer mol1 = null;
     private IAtomContainer mol2 = null;
     private int vfMCSSize = -1;
     private boolean bond_Match_Flag = false;
+    private final TimeOut timeOut;
     private int countR = 0;
     private int countP = 0;
     private final static ILoggingTool Logger =
@@ -89,6 +91,18 @@ public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
      */
     @TestMethod("setMCSAlgorithm")
     public VFlibMCSHandler() {
+        this(null);
+    }
+
+    /**
+     * Constructor for an extended VF Algorithm for the MCS search within
+     * the time out of a job.
+     * @param timeOut the time out of the job, or null for the shared
+     *        {@link TimeOut#getInstance()}
+     */
+    @TestMethod("testSearchMCS_timeOut")
+    public VFlibMCSHandler(TimeOut timeOut) {
+        this.timeOut = timeOut;
         allAtomMCS = new ArrayList<Map<IAtom, IAtom>>();
         allAtomMCSCopy = new ArrayList<Map<IAtom, IAtom>>();
         atomsMCS = new HashMap<IAtom, IAtom>();
@@ -224,7 +238,7 @@ public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
         vfLibSolutions = new ArrayList<Map<INode, IAtom>>();
         if (queryMol != null) {
             query = new QueryCompiler(queryMol).compile();
-            mapper = new VFMCSMapper(query);
+            mapper = new VFMCSMapper(query, timeOut);
             List<Map<INode, IAtom>> maps = mapper.getMaps(getProductMol());
             if (maps != null) {
                 vfLibSolutions.addAll(maps);
@@ -232,7 +246,7 @@ public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
             setVFMappings(true, query);
         } else if (countR <= countP) {
             query = new QueryCompiler(mol1, isBondMatchFlag()).compile();
-            mapper = new VFMCSMapper(query);
+            mapper = new VFMCSMapper(query, timeOut);
             List<Map<INode, IAtom>> maps = mapper.getMaps(getProductMol());
             if (maps != null) {
                 vfLibSolutions.addAll(maps);
@@ -240,7 +254,7 @@ public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
             setVFMappings(true, query);
         } else {
             query = new QueryCompiler(getProductMol(), isBondMatchFlag()).compile();
-            mapper = new VFMCSMapper(query);
+            mapper = new VFMCSMapper(query, timeOut);
             List<Map<INode, IAtom>> maps = mapper.getMaps(getReactantMol());
             if (maps != null) {
                 vfLibSolutions.addAll(maps);
@@ -262,13 +276,13 @@ public class VFlibMCSHandler extends AbstractMCSAlgorithm implements IMCSBase {
             Map<Integer, Integer> tMapping = new TreeMap<Integer, Integer>(firstPassMappings);
             McGregor mgit = null;
             if (queryMol != null) {
-                mgit = new McGregor(queryMol, mol2, mappings, isBondMatchFlag());
+                mgit = new McGregor(queryMol, mol2, mappings, isBondMatchFlag(), timeOut);
             } else {
                 if (countR > countP) {
-                    mgit = new McGregor(mol1, mol2, mappings, isBondMatchFlag());
+                    mgit = new McGregor(mol1, mol2, mappings, isBondMatchFlag(), timeOut);
                 } else {
                     tMapping.clear();
-                    mgit = new McGregor(mol2, mol1, mappings, isBondMatchFlag());
+                    mgit = new McGregor(mol2, mol1, mappings, isBondMatchFlag(), timeOut);
                     ROPFlag = false;
                     for (Map.Entry<Integer, Integer> map : firstPassMappings.entrySet()) {
                         tMapping.put(map.getValue(), map.getKey());
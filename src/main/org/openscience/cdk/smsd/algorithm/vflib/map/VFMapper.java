@@ -63,7 +63,6 @@ import org.openscience.cdk.smsd.algorithm.vflib.interfaces.IQuery;
 import org.openscience.cdk.smsd.algorithm.vflib.interfaces.IState;
 import org.openscience.cdk.smsd.algorithm.vflib.query.QueryCompiler;
 import org.openscience.cdk.smsd.global.TimeOut;
-import org.openscience.cdk.smsd.tools.TimeManager;
 
 /**
  * This class finds MCS between query and target molecules
@@ -79,36 +78,28 @@ public class VFMapper implements IMapper {
     private IQuery query;
     private List<Map<INode, IAtom>> maps;
     private int currentMCSSize = -1;
-    private static TimeManager timeManager = null;
+    private final TimeOut timeOut;
 
     /**
-     * @return the timeout
-     */
-    protected synchronized static double getTimeout() {
-        return TimeOut.getInstance().getTimeOut();
-    }
-
-    /**
-     * @return the timeManager
-     */
-    protected synchronized static TimeManager getTimeManager() {
-        return timeManager;
-    }
-
-    /**
-     * @param aTimeManager the timeManager to set
+     *
+     * @param query
      */
-    protected synchronized static void setTimeManager(TimeManager aTimeManager) {
-        TimeOut.getInstance().setTimeOutFlag(false);
-        timeManager = aTimeManager;
+    public VFMapper(IQuery query) {
+        this(query, null);
     }
 
     /**
-     *
+     * Creates a mapper which searches within the time out of a job.
      * @param query
+     * @param timeOut the time out of the job, or null for the shared
+     *        {@link TimeOut#getInstance()}
      */
-    public VFMapper(IQuery query) {
-        setTimeManager(new TimeManager());
+    public VFMapper(IQuery query, TimeOut timeOut) {
+        if (timeOut == null) {
+            timeOut = TimeOut.getInstance();
+            timeOut.start();
+        }
+        this.timeOut = timeOut;
         this.query = query;
         this.maps = new ArrayList<Map<INode, IAtom>>();
     }
@@ -119,9 +110,7 @@ public class VFMapper implements IMapper {
      * @param bondMatcher
      */
     public VFMapper(IAtomContainer queryMolecule, boolean bondMatcher) {
-        setTimeManager(new TimeManager());
-        this.query = new QueryCompiler(queryMolecule, bondMatcher).compile();
-        this.maps = new ArrayList<Map<INode, IAtom>>();
+        this(new QueryCompiler(queryMolecule, bondMatcher).compile());
     }
 
     /** {@inheritDoc}
@@ -213,7 +202,7 @@ public class VFMapper implements IMapper {
     }
 
     private void mapAll(IState state) {
-        if (state.isDead()) {
+        if (state.isDead() || timeOut.isTimeOut()) {
             return;
         }
 
@@ -241,7 +230,7 @@ public class VFMapper implements IMapper {
     }
 
     private boolean mapFirst(IState state) {
-        if (state.isDead()) {
+        if (state.isDead() || timeOut.isTimeOut()) {
             return false;
         }
 
@@ -270,12 +259,4 @@ public class VFMapper implements IMapper {
         }
         return false;
     }
-
-    public synchronized static boolean isTimeOut() {
-        if (getTimeout() > -1 && getTimeManager().getElapsedTimeInMinutes() > getTimeout()) {
-            TimeOut.getInstance().setTimeOutFlag(true);
-            return true;
-        }
-        return false;
-    }
 }
@@ -28,7 +28,17 @@ import org.openscience.cdk.annotations.TestClass;
 import org.openscience.cdk.annotations.TestMethod;
 
 /**
- * Class that manages MCS timeout.
+ * Class that manages MCS timeout. A time out is the budget of one MCS job:
+ * its clock runs from when it is created or {@link #start()}ed, and the
+ * search stops when the clock exceeds the time out, or when the job is
+ * {@link #cancel()}led, possibly from another thread, or when the thread
+ * that runs the search is interrupted. Jobs which each own a
+ * time out, as each {@link org.openscience.cdk.smsd.Isomorphism} does, can
+ * run concurrently with their own budgets.
+ *
+ * <p>The shared instance of {@link #getInstance()} is used by the algorithms
+ * when they are not given a time out.
+ *
  * @cdk.module smsd
  * @cdk.githash
  * @author Syed Asad Rahman <asad@ebi.ac.uk>
@@ -37,8 +47,10 @@ import org.openscience.cdk.annotations.TestMethod;
 public class TimeOut {
 
     private static TimeOut instance = null;
-    private double time = -1;
-    private boolean timeOutFlag = false;
+    private volatile double time = -1;
+    private volatile boolean timeOutFlag = false;
+    private volatile boolean cancelled = false;
+    private volatile long startTime = System.currentTimeMillis();
 
     /**
      * Get Instance of the timeout. This starts the timeout counter.
@@ -56,6 +68,15 @@ public class TimeOut {
     protected TimeOut() {
     }
 
+    /**
+     * Creates a time out for one job and starts its clock.
+     * @param timeout cutoff value in minutes, -1 for infinite
+     */
+    @TestMethod("testTimeOut")
+    public TimeOut(double timeout) {
+        this.time = timeout;
+    }
+
     /**
      * set cutoff value for time out eg. -1 for infinite and 0.23 for
      * 23 seconds.
@@ -92,4 +113,49 @@ public class TimeOut {
     public void setTimeOutFlag(boolean timeOut) {
         this.timeOutFlag = timeOut;
     }
+
+    /**
+     * Restarts the clock and clears the timeout flag. A cancelled job stays
+     * cancelled.
+     */
+    @TestMethod("testStart")
+    public void start() {
+        startTime = System.currentTimeMillis();
+        timeOutFlag = cancelled;
+    }
+
+    /**
+     * Cancels the job: the search stops at its next check as if it had
+     * timed out. May be called from any thread.
+     */
+    @TestMethod("testCancel")
+    public void cancel() {
+        cancelled = true;
+        timeOutFlag = true;
+    }
+
+    /**
+     * Return true if the job was cancelled.
+     * @return true if {@link #cancel()} was called
+     */
+    @TestMethod("testCancel")
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks the clock, called by the algorithms while they search. Sets the
+     * timeout flag if the job was cancelled, the calling thread is interrupted
+     * or its time is up. The interrupt is kept.
+     * @return true if the search should stop
+     */
+    @TestMethod("testIsTimeOut")
+    public boolean isTimeOut() {
+        if (cancelled || Thread.currentThread().isInterrupted()
+                || (time > -1 && (System.currentTimeMillis() - startTime) / (60 * 1000.0) > time)) {
+            timeOutFlag = true;
+            return true;
+        }
+        return false;
+    }
 }
@@ -28,6 +28,8 @@ import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IChemObjectChangeEvent;
+import org.openscience.cdk.interfaces.IChemObjectListener;
 import org.openscience.cdk.interfaces.ILonePair;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.ITestObjectBuilder;
@@ -96,4 +98,86 @@ public class AtomContainerTest extends AbstractAtomContainerTest {
         Assert.assertEquals(4, container.getAtomCount());
         Assert.assertEquals(3, container.getBondCount());
     }
+
+    /**
+     * A listener that counts the events it receives.
+     */
+    private static class CountingListener implements IChemObjectListener {
+        private int count = 0;
+        public void stateChanged(IChemObjectChangeEvent event) {
+            count++;
+        }
+    }
+
+    @Test public void testBeginBatch() {
+        AtomContainer container = new AtomContainer();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        CountingListener listener = new CountingListener();
+        container.addListener(listener);
+
+        Assert.assertFalse(container.isInBatch());
+        container.beginBatch();
+        Assert.assertTrue(container.isInBatch());
+        Assert.assertEquals(0, c1.getListenerCount());
+        c1.setFormalCharge(1);
+        c2.setImplicitHydrogenCount(3);
+        container.addBond(0, 1, IBond.Order.SINGLE);
+        Assert.assertEquals(0, listener.count);
+        container.endBatch();
+        Assert.assertFalse(container.isInBatch());
+        Assert.assertEquals(1, listener.count);
+
+        // notification is back to normal
+        c1.setFormalCharge(0);
+        Assert.assertEquals(2, listener.count);
+    }
+
+    @Test public void testEndBatch() {
+        AtomContainer container = new AtomContainer();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        container.addAtom(c1);
+        container.beginBatch();
+        container.addAtom(c2);
+        container.removeAtom(c1);
+        Assert.assertEquals(0, c2.getListenerCount());
+        container.endBatch();
+        // the listener is restored for atoms that are in the container only
+        Assert.assertEquals(1, c2.getListenerCount());
+        Assert.assertEquals(0, c1.getListenerCount());
+    }
+
+    @Test public void testBeginBatch_nested() {
+        AtomContainer container = new AtomContainer();
+        IAtom atom = container.getBuilder().newInstance(IAtom.class,"C");
+        container.addAtom(atom);
+        CountingListener listener = new CountingListener();
+        container.addListener(listener);
+        container.beginBatch();
+        container.beginBatch();
+        atom.setFormalCharge(-1);
+        container.endBatch();
+        Assert.assertTrue(container.isInBatch());
+        Assert.assertEquals(0, listener.count);
+        container.endBatch();
+        Assert.assertEquals(1, listener.count);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testEndBatch_withoutBegin() {
+        new AtomContainer().endBatch();
+    }
+
+    @Test public void testClone_inBatch() throws Exception {
+        AtomContainer container = new AtomContainer();
+        container.addAtom(container.getBuilder().newInstance(IAtom.class,"C"));
+        container.beginBatch();
+        AtomContainer clone = (AtomContainer) container.clone();
+        Assert.assertFalse(clone.isInBatch());
+        Assert.assertEquals(1, clone.getAtom(0).getListenerCount());
+        container.endBatch();
+    }
 }
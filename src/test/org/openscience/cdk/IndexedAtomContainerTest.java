@@ -0,0 +1,308 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openscience.cdk.interfaces.AbstractAtomContainerTest;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IChemObjectChangeEvent;
+import org.openscience.cdk.interfaces.IChemObjectListener;
+import org.openscience.cdk.interfaces.ILonePair;
+import org.openscience.cdk.interfaces.ITestObjectBuilder;
+
+/**
+ * Checks the functionality of the {@link IndexedAtomContainer}.
+ *
+ * @cdk.module test-data
+ */
+public class IndexedAtomContainerTest extends AbstractAtomContainerTest {
+
+    @BeforeClass public static void setUp() {
+        setTestObjectBuilder(
+            new ITestObjectBuilder() {
+                public IChemObject newTestObject() {
+                    return new IndexedAtomContainer();
+                }
+            }
+        );
+    }
+
+    @Test public void testIndexedAtomContainer_int_int_int_int() {
+        IAtomContainer ac = new IndexedAtomContainer(5,6,1,2);
+
+        Assert.assertEquals(0, ac.getAtomCount());
+        Assert.assertEquals(0, ac.getElectronContainerCount());
+
+        ac.addBond(ac.getBuilder().newInstance(IBond.class,ac.getBuilder().newInstance(IAtom.class,"C"), ac.getBuilder().newInstance(IAtom.class,"C"), IBond.Order.DOUBLE));
+        ac.addLonePair(ac.getBuilder().newInstance(ILonePair.class,ac.getBuilder().newInstance(IAtom.class,"N")));
+    }
+
+    @Test public void testIndexedAtomContainer() {
+        IAtomContainer container = new IndexedAtomContainer();
+
+        Assert.assertEquals(0, container.getAtomCount());
+        Assert.assertEquals(0, container.getBondCount());
+
+        container.addBond(container.getBuilder().newInstance(IBond.class,container.getBuilder().newInstance(IAtom.class,"C"), container.getBuilder().newInstance(IAtom.class,"C"), IBond.Order.DOUBLE));
+        container.addLonePair(container.getBuilder().newInstance(ILonePair.class,container.getBuilder().newInstance(IAtom.class,"N")));
+    }
+
+    @Test public void testIndexedAtomContainer_IAtomContainer() {
+        IAtomContainer acetone = newChemObject().getBuilder().newInstance(IAtomContainer.class);
+        IAtom c1 = acetone.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = acetone.getBuilder().newInstance(IAtom.class,"C");
+        IAtom o = acetone.getBuilder().newInstance(IAtom.class,"O");
+        IAtom c3 = acetone.getBuilder().newInstance(IAtom.class,"C");
+        acetone.addAtom(c1);
+        acetone.addAtom(c2);
+        acetone.addAtom(c3);
+        acetone.addAtom(o);
+        IBond b1 = acetone.getBuilder().newInstance(IBond.class,c1, c2, IBond.Order.SINGLE);
+        IBond b2 = acetone.getBuilder().newInstance(IBond.class,c1, o, IBond.Order.DOUBLE);
+        IBond b3 = acetone.getBuilder().newInstance(IBond.class,c1, c3, IBond.Order.SINGLE);
+        acetone.addBond(b1);
+        acetone.addBond(b2);
+        acetone.addBond(b3);
+
+        IAtomContainer container = new IndexedAtomContainer(acetone);
+        Assert.assertEquals(4, container.getAtomCount());
+        Assert.assertEquals(3, container.getBondCount());
+        Assert.assertEquals(3, container.getConnectedAtomsCount(c1));
+        Assert.assertEquals(b2, container.getBond(o, c1));
+        Assert.assertEquals(3, container.getAtomNumber(o));
+    }
+
+    /**
+     * The index must follow single atom and bond removals.
+     */
+    @Test public void testIndexAfterRemoval() {
+        IAtomContainer container = (IAtomContainer)newChemObject();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c3 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom o = container.getBuilder().newInstance(IAtom.class,"O");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        container.addAtom(c3);
+        container.addAtom(o);
+        IBond b1 = container.getBuilder().newInstance(IBond.class,c1, c2);
+        IBond b2 = container.getBuilder().newInstance(IBond.class,c2, c3);
+        IBond b3 = container.getBuilder().newInstance(IBond.class,c3, o);
+        container.addBond(b1);
+        container.addBond(b2);
+        container.addBond(b3);
+
+        Assert.assertEquals(2, container.getConnectedAtomsCount(c2));
+        container.removeBond(b1);
+        Assert.assertEquals(1, container.getConnectedAtomsCount(c2));
+        Assert.assertNull(container.getBond(c1, c2));
+        Assert.assertEquals(0, container.getConnectedBondsList(c1).size());
+
+        container.removeAtomAndConnectedElectronContainers(c2);
+        Assert.assertEquals(-1, container.getAtomNumber(c2));
+        Assert.assertEquals(0, container.getAtomNumber(c1));
+        Assert.assertEquals(1, container.getAtomNumber(c3));
+        Assert.assertEquals(2, container.getAtomNumber(o));
+        Assert.assertEquals(1, container.getBondCount());
+        Assert.assertEquals(b3, container.getBond(o, c3));
+    }
+
+    /**
+     * Changing the atoms of a bond in the container must be reflected by the
+     * neighbour queries.
+     */
+    @Test public void testIndexAfterBondChange() {
+        IAtomContainer container = (IAtomContainer)newChemObject();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom o = container.getBuilder().newInstance(IAtom.class,"O");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        container.addAtom(o);
+        IBond bond = container.getBuilder().newInstance(IBond.class,c1, c2);
+        container.addBond(bond);
+        Assert.assertEquals(c2, container.getConnectedAtomsList(c1).get(0));
+
+        bond.setAtom(o, 1);
+        List<IAtom> neighbours = container.getConnectedAtomsList(c1);
+        Assert.assertEquals(1, neighbours.size());
+        Assert.assertEquals(o, neighbours.get(0));
+        Assert.assertEquals(0, container.getConnectedAtomsCount(c2));
+        Assert.assertEquals(bond, container.getBond(o, c1));
+        Assert.assertNull(container.getBond(c1, c2));
+    }
+
+    /**
+     * Neighbours must be reported in the same order as by {@link AtomContainer}.
+     */
+    @Test public void testNeighbourOrder() {
+        IAtomContainer reference = new AtomContainer();
+        IAtomContainer container = (IAtomContainer)newChemObject();
+        IAtom center = container.getBuilder().newInstance(IAtom.class,"C");
+        reference.addAtom(center);
+        container.addAtom(center);
+        for (int i = 0; i < 4; i++) {
+            IAtom atom = container.getBuilder().newInstance(IAtom.class,"C");
+            IBond bond = i % 2 == 0 ? container.getBuilder().newInstance(IBond.class,center, atom)
+                                    : container.getBuilder().newInstance(IBond.class,atom, center);
+            reference.addAtom(atom);
+            reference.addBond(bond);
+            container.addAtom(atom);
+            container.addBond(bond);
+        }
+        reference.removeBond(1);
+        container.removeBond(1);
+        Assert.assertEquals(reference.getConnectedAtomsList(center),
+                            container.getConnectedAtomsList(center));
+        Assert.assertEquals(reference.getConnectedBondsList(center),
+                            container.getConnectedBondsList(center));
+    }
+
+    @Test public void testCloneIndependentIndex() throws Exception {
+        IAtomContainer container = (IAtomContainer)newChemObject();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        container.addBond(container.getBuilder().newInstance(IBond.class,c1, c2));
+        Assert.assertEquals(1, container.getConnectedAtomsCount(c1));
+
+        IAtomContainer clone = container.clone();
+        clone.removeBond(0);
+        Assert.assertEquals(0, clone.getConnectedAtomsCount(clone.getAtom(0)));
+        Assert.assertEquals(1, container.getConnectedAtomsCount(c1));
+        Assert.assertEquals(1, container.getAtomNumber(c2));
+    }
+
+    /**
+     * The index must be correct after a batch in which the atoms of a bond
+     * were changed.
+     */
+    @Test public void testEndBatch() {
+        IndexedAtomContainer container = (IndexedAtomContainer)newChemObject();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom o = container.getBuilder().newInstance(IAtom.class,"O");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        container.addAtom(o);
+        IBond bond = container.getBuilder().newInstance(IBond.class,c1, c2);
+        container.addBond(bond);
+        Assert.assertEquals(1, container.getConnectedAtomsCount(c1));
+
+        container.beginBatch();
+        bond.setAtom(o, 0);
+        container.endBatch();
+        Assert.assertEquals(0, container.getConnectedAtomsCount(c1));
+        Assert.assertEquals(bond, container.getBond(o, c2));
+    }
+
+    /**
+     * Bonds keep notifying the container during a batch, queries made within
+     * the batch must see the changed atoms at once.
+     */
+    @Test public void testBeginBatch() {
+        IndexedAtomContainer container = (IndexedAtomContainer)newChemObject();
+        IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        IAtom o = container.getBuilder().newInstance(IAtom.class,"O");
+        container.addAtom(c1);
+        container.addAtom(c2);
+        container.addAtom(o);
+        IBond bond = container.getBuilder().newInstance(IBond.class,c1, c2);
+        container.addBond(bond);
+        Assert.assertEquals(1, container.getConnectedAtomsCount(c1));
+
+        container.beginBatch();
+        bond.setAtom(o, 0);
+        Assert.assertEquals(0, container.getConnectedAtomsCount(c1));
+        Assert.assertEquals(bond, container.getBond(o, c2));
+        IBond added = container.getBuilder().newInstance(IBond.class,c1, o);
+        container.addBond(added);
+        added.setAtom(c2, 0);
+        Assert.assertEquals(0, container.getConnectedAtomsCount(c1));
+        Assert.assertEquals(2, container.getConnectedAtomsCount(o));
+        container.endBatch();
+        Assert.assertEquals(2, container.getConnectedAtomsCount(c2));
+    }
+
+    /**
+     * Listeners are notified of a change when the index already reflects it.
+     */
+    @Test public void testNotification_query() {
+        final IndexedAtomContainer container = (IndexedAtomContainer)newChemObject();
+        final IAtom c1 = container.getBuilder().newInstance(IAtom.class,"C");
+        final IAtom c2 = container.getBuilder().newInstance(IAtom.class,"C");
+        final int[] positions = new int[2];
+        final int[] degrees = new int[1];
+        container.addListener(new IChemObjectListener() {
+            public void stateChanged(IChemObjectChangeEvent event) {
+                positions[0] = container.getAtomNumber(c1);
+                positions[1] = container.getAtomNumber(c2);
+                degrees[0] = container.getConnectedAtomsCount(c1);
+            }
+        });
+        container.addAtom(c1);
+        Assert.assertEquals(0, positions[0]);
+        Assert.assertEquals(-1, positions[1]);
+        container.addAtom(c2);
+        Assert.assertEquals(1, positions[1]);
+        container.addBond(container.getBuilder().newInstance(IBond.class,c1, c2));
+        Assert.assertEquals(1, degrees[0]);
+        container.removeBond(0);
+        Assert.assertEquals(0, degrees[0]);
+        container.removeAtom(0);
+        Assert.assertEquals(-1, positions[0]);
+        Assert.assertEquals(0, positions[1]);
+    }
+
+    /**
+     * A listener that modifies the container while it is notified must leave
+     * a correct index behind.
+     */
+    @Test public void testNotification_mutate() {
+        final IndexedAtomContainer container = (IndexedAtomContainer)newChemObject();
+        final IAtom[] atoms = new IAtom[4];
+        for (int i = 0; i < atoms.length; i++) {
+            atoms[i] = container.getBuilder().newInstance(IAtom.class,"C");
+            container.addAtom(atoms[i]);
+        }
+        container.addListener(new IChemObjectListener() {
+            public void stateChanged(IChemObjectChangeEvent event) {
+                // remove the first atom as well when the last one was removed
+                if (!container.contains(atoms[3]) && container.contains(atoms[0]))
+                    container.removeAtom(atoms[0]);
+            }
+        });
+        Assert.assertEquals(3, container.getAtomNumber(atoms[3]));
+        container.removeAtom(3);
+        Assert.assertEquals(2, container.getAtomCount());
+        Assert.assertEquals(-1, container.getAtomNumber(atoms[0]));
+        Assert.assertEquals(0, container.getAtomNumber(atoms[1]));
+        Assert.assertEquals(1, container.getAtomNumber(atoms[2]));
+        Assert.assertEquals(-1, container.getAtomNumber(atoms[3]));
+    }
+}
@@ -0,0 +1,195 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.atomtype;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.Atom;
+import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IBond.Order;
+
+/**
+ * @cdk.module test-core
+ */
+public class AtomEnvironmentTest extends CDKTestCase {
+
+    /** Acetic acid with its hydroxyl hydrogen. */
+    private static IAtomContainer makeAceticAcid() {
+        IAtomContainer molecule = new AtomContainer();
+        molecule.addAtom(new Atom("C"));
+        molecule.addAtom(new Atom("C"));
+        molecule.addAtom(new Atom("O"));
+        molecule.addAtom(new Atom("O"));
+        molecule.addAtom(new Atom("H"));
+        molecule.addBond(0, 1, Order.SINGLE);
+        molecule.addBond(1, 2, Order.DOUBLE);
+        molecule.addBond(1, 3, Order.SINGLE);
+        molecule.addBond(3, 4, Order.SINGLE);
+        return molecule;
+    }
+
+    /** Methylcyclobutane, with the ring closed by the last bond. */
+    private static IAtomContainer makeMethylcyclobutane() {
+        IAtomContainer molecule = new AtomContainer();
+        for (int i = 0; i < 5; i++) molecule.addAtom(new Atom("C"));
+        molecule.addBond(0, 1, Order.SINGLE);
+        molecule.addBond(1, 2, Order.SINGLE);
+        molecule.addBond(2, 3, Order.SINGLE);
+        molecule.addBond(3, 4, Order.SINGLE);
+        molecule.addBond(4, 1, Order.SINGLE);
+        return molecule;
+    }
+
+    @Test public void testPerceive() {
+        IAtomContainer molecule = makeAceticAcid();
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        Assert.assertEquals(5, environments.length);
+        for (int i = 0; i < environments.length; i++) {
+            IAtom atom = molecule.getAtom(i);
+            AtomEnvironment environment = environments[i];
+            Assert.assertSame(atom, environment.atom);
+            Assert.assertEquals(molecule.getConnectedBondsCount(atom), environment.bonds.length);
+            Assert.assertEquals(molecule.getMaximumBondOrder(atom), environment.maxBondOrder);
+            Assert.assertEquals(molecule.getBondOrderSum(atom), environment.bondOrderSum, 0.001);
+            for (int k = 0; k < environment.bonds.length; k++) {
+                Assert.assertSame(molecule.getConnectedBondsList(atom).get(k), environment.bonds[k]);
+                Assert.assertSame(environment.bonds[k].getConnectedAtom(atom),
+                                  environment.neighbours()[k].atom);
+            }
+        }
+        AtomEnvironment carbon = environments[1];
+        Assert.assertEquals(Order.DOUBLE, carbon.maxBondOrder);
+        Assert.assertEquals(2, carbon.countBonds(Order.SINGLE));
+        Assert.assertEquals(1, carbon.countBonds(Order.DOUBLE));
+        Assert.assertEquals(1, carbon.countBonds(Order.DOUBLE, "O"));
+        Assert.assertEquals(0, carbon.countBonds(Order.DOUBLE, "C"));
+        Assert.assertEquals(0, carbon.hydrogenCount);
+        Assert.assertEquals(1, environments[3].hydrogenCount);
+        Assert.assertSame(molecule.getBond(1), carbon.getBond(environments[2]));
+        Assert.assertNull(carbon.getBond(environments[4]));
+    }
+
+    @Test public void testPerceive_singleElectrons() {
+        IAtomContainer molecule = new AtomContainer();
+        molecule.addAtom(new Atom("C"));
+        molecule.addAtom(new Atom("O"));
+        molecule.addBond(0, 1, Order.SINGLE);
+        molecule.addSingleElectron(1);
+        molecule.addSingleElectron(1);
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        Assert.assertEquals(0, environments[0].singleElectronCount);
+        Assert.assertEquals(2, environments[1].singleElectronCount);
+    }
+
+    @Test public void testPerceive_flags() {
+        IAtomContainer molecule = makeMethylcyclobutane();
+        molecule.getBond(2).setFlag(CDKConstants.ISAROMATIC, true);
+        molecule.getBond(0).setFlag(CDKConstants.SINGLE_OR_DOUBLE, true);
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        Assert.assertFalse(environments[1].aromaticBond);
+        Assert.assertTrue(environments[2].aromaticBond);
+        Assert.assertTrue(environments[1].singleOrDoubleBond);
+        Assert.assertFalse(environments[2].singleOrDoubleBond);
+    }
+
+    @Test public void testPerceive_unsetBondOrder() {
+        IAtomContainer molecule = makeMethylcyclobutane();
+        molecule.getBond(0).setOrder(null);
+        AtomEnvironment environment = AtomEnvironment.perceive(molecule)[0];
+        Assert.assertEquals(1, environment.bonds.length);
+        Assert.assertEquals(Order.SINGLE, environment.maxBondOrder);
+        Assert.assertEquals(0, environment.countBonds(Order.SINGLE));
+        Assert.assertEquals(0.0, environment.bondOrderSum, 0.001);
+    }
+
+    @Test public void testPerceive_IAtom() {
+        IAtomContainer molecule = makeMethylcyclobutane();
+        molecule.add(makeAceticAcid());
+        molecule.addBond(0, 5, Order.SINGLE);
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            AtomEnvironment environment = AtomEnvironment.perceive(molecule, molecule.getAtom(i));
+            assertEnvironment(environments[i], environment);
+            for (int k = 0; k < environment.bonds.length; k++) {
+                AtomEnvironment neighbour = environment.neighbours()[k];
+                assertEnvironment(environments[i].neighbours()[k], neighbour);
+                Assert.assertSame(environment.bonds[k], neighbour.getBond(environment));
+                for (int l = 0; l < neighbour.bonds.length; l++)
+                    assertEnvironment(environments[i].neighbours()[k].neighbours()[l],
+                                      neighbour.neighbours()[l]);
+            }
+            Assert.assertEquals(environments[i].isInRing(), environment.isInRing());
+        }
+    }
+
+    @Test public void testPerceive_IAtom_notInMolecule() {
+        IAtomContainer molecule = makeAceticAcid();
+        IAtomContainer part = new AtomContainer();
+        part.addAtom(molecule.getAtom(0));
+        part.addAtom(molecule.getAtom(1));
+        part.addBond(molecule.getBond(0));
+        part.addBond(molecule.getBond(1));
+        AtomEnvironment environment = AtomEnvironment.perceive(part, part.getAtom(1));
+        Assert.assertEquals(2, environment.bonds.length);
+        Assert.assertSame(part.getAtom(0), environment.neighbours()[0].atom);
+        // the oxygen is not in the molecule
+        Assert.assertNull(environment.neighbours()[1]);
+        Assert.assertNull(AtomEnvironment.perceive(part)[1].neighbours()[1]);
+    }
+
+    private static void assertEnvironment(AtomEnvironment expected, AtomEnvironment actual) {
+        Assert.assertSame(expected.atom, actual.atom);
+        Assert.assertArrayEquals(expected.bonds, actual.bonds);
+        Assert.assertEquals(expected.maxBondOrder, actual.maxBondOrder);
+        Assert.assertEquals(expected.bondOrderSum, actual.bondOrderSum, 0.001);
+        Assert.assertEquals(expected.hydrogenCount, actual.hydrogenCount);
+        Assert.assertEquals(expected.singleElectronCount, actual.singleElectronCount);
+        for (Order order : Order.values())
+            Assert.assertEquals(expected.countBonds(order), actual.countBonds(order));
+    }
+
+    @Test public void testIsInRing() {
+        IAtomContainer molecule = makeMethylcyclobutane();
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        Assert.assertFalse(environments[0].isInRing());
+        for (int i = 1; i < 5; i++) {
+            Assert.assertTrue(environments[i].isInRing());
+            Assert.assertTrue(molecule.getAtom(i).getFlag(CDKConstants.ISINRING));
+        }
+        Assert.assertFalse(molecule.getAtom(0).getFlag(CDKConstants.ISINRING));
+    }
+
+    @Test public void testIsInRing_disconnected() {
+        IAtomContainer molecule = makeMethylcyclobutane();
+        molecule.add(makeAceticAcid());
+        // a second bond between the same atoms makes a ring
+        IBond bond = molecule.getBuilder().newInstance(
+            IBond.class, molecule.getAtom(5), molecule.getAtom(6), Order.SINGLE);
+        molecule.addBond(bond);
+        AtomEnvironment[] environments = AtomEnvironment.perceive(molecule);
+        boolean[] expected = {false, true, true, true, true, true, true, false, false, false};
+        for (int i = 0; i < expected.length; i++)
+            Assert.assertEquals(expected[i], environments[i].isInRing());
+    }
+}
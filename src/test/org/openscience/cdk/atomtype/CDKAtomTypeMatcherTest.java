@@ -23,8 +23,10 @@
  */
 package org.openscience.cdk.atomtype;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Assert;
@@ -106,6 +108,69 @@ public class CDKAtomTypeMatcherTest extends AbstractCDKAtomTypeTest {
         }
     }
 
+    @Test public void testFindMatchingAtomType_IAtomContainer_threads() throws Exception {
+        final CDKAtomTypeMatcher matcher = CDKAtomTypeMatcher.getInstance(
+            DefaultChemObjectBuilder.getInstance());
+        final IAtomType[][] expected = new IAtomType[6][];
+        IAtomContainer[] molecules = makeMolecules();
+        for (int i=0; i<molecules.length; i++)
+            expected[i] = matcher.findMatchingAtomType(molecules[i]);
+
+        // the matcher is shared, each thread types its own molecules
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int t=0; t<threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int repeat=0; repeat<50; repeat++) {
+                            IAtomContainer[] molecules = makeMolecules();
+                            for (int i=0; i<molecules.length; i++) {
+                                IAtomType[] types = matcher.findMatchingAtomType(molecules[i]);
+                                for (int j=0; j<types.length; j++)
+                                    Assert.assertEquals(expected[i][j].getAtomTypeName(),
+                                                        types[j].getAtomTypeName());
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) { errors.add(e); }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        Assert.assertEquals(errors.toString(), 0, errors.size());
+    }
+
+    @Test public void testFindMatchingAtomType_IAtomContainer_copy() throws Exception {
+        CDKAtomTypeMatcher matcher = CDKAtomTypeMatcher.getInstance(
+            DefaultChemObjectBuilder.getInstance());
+        IAtomType type = matcher.findMatchingAtomType(MoleculeFactory.makeBenzene())[0];
+        Assert.assertEquals("C.sp2", type.getAtomTypeName());
+        Assert.assertEquals(4, type.getValency().intValue());
+        type.setAtomTypeName("C.sp3");
+        type.setValency(3);
+        type.setFormalCharge(-1);
+        type.setHybridization(IAtomType.Hybridization.SP3);
+
+        // a later match on another molecule is not affected
+        IAtomType other = matcher.findMatchingAtomType(MoleculeFactory.makeAzulene())[0];
+        Assert.assertNotSame(type, other);
+        Assert.assertEquals("C.sp2", other.getAtomTypeName());
+        Assert.assertEquals(4, other.getValency().intValue());
+        Assert.assertEquals(0, other.getFormalCharge().intValue());
+        Assert.assertEquals(IAtomType.Hybridization.SP2, other.getHybridization());
+    }
+
+    private static IAtomContainer[] makeMolecules() {
+        return new IAtomContainer[] {
+            MoleculeFactory.makeAdenine(), MoleculeFactory.makeAzulene(),
+            MoleculeFactory.makeIndole(), MoleculeFactory.makePyrroleAnion(),
+            MoleculeFactory.makePiperidine(), MoleculeFactory.makeImidazole()
+        };
+    }
+
     @Test public void testDummy() throws Exception {
         IAtomContainer mol = new AtomContainer();
         IAtom atom = new PseudoAtom("R");
@@ -103,7 +103,7 @@ public class RepeatedCDKAtomTypeMatcherSMILESTest extends CDKTestCase {
             Assert.assertEquals(
                 "First perception resulted in " + types[i] + " but the second perception " +
                 "gave " + retyped[i],
-                types[i], retyped[i]
+                types[i].getAtomTypeName(), retyped[i].getAtomTypeName()
             );
         }
         retyped = atomTypeMatcher.findMatchingAtomType(mol);
@@ -111,7 +111,7 @@ public class RepeatedCDKAtomTypeMatcherSMILESTest extends CDKTestCase {
             Assert.assertEquals(
                 "First perception resulted in " + types[i] + " but the third perception " +
                 "gave " + retyped[i],
-                types[i], retyped[i]
+                types[i].getAtomTypeName(), retyped[i].getAtomTypeName()
             );
         }
     }
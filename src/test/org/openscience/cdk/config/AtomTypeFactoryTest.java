@@ -25,6 +25,7 @@ import org.junit.Test;
 import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.ChemObject;
 import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.exception.NoSuchAtomTypeException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomType;
 import org.openscience.cdk.interfaces.IAtomType.Hybridization;
@@ -127,6 +128,21 @@ public class AtomTypeFactoryTest extends CDKTestCase {
 		Assert.assertEquals(IBond.Order.TRIPLE, atomType.getMaxBondOrder());
 	}
 
+    @Test
+	public void testGetAtomType_String_copy() throws Exception {
+		IAtomType atomType = atf.getAtomType("C4");
+		atomType.setAtomTypeName("changed");
+		atomType.setBondOrderSum(1.0);
+		Assert.assertNotSame(atomType, atf.getAtomType("C4"));
+		Assert.assertEquals("C4", atf.getAtomType("C4").getAtomTypeName());
+		Assert.assertEquals(4.0, atf.getAtomType("C4").getBondOrderSum(), 0.001);
+	}
+
+    @Test(expected=NoSuchAtomTypeException.class)
+	public void testGetAtomType_String_missing() throws Exception {
+		atf.getAtomType("no such type");
+	}
+
     @Test
 	public void testGetAtomTypes_String() throws Exception {
 		IAtomType[] atomTypes = atf.getAtomTypes("C");
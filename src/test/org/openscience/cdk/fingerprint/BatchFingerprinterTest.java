@@ -0,0 +1,202 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.fingerprint;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.templates.MoleculeFactory;
+
+/**
+ * @cdk.module test-standard
+ */
+public class BatchFingerprinterTest extends CDKTestCase {
+
+    private static BatchFingerprinter.FingerprinterFactory SHARED =
+        new BatchFingerprinter.FingerprinterFactory() {
+            private final Fingerprinter fingerprinter = new Fingerprinter();
+            public IFingerprinter newFingerprinter() {
+                return fingerprinter;
+            }
+        };
+
+    private static List<IAtomContainer> molecules() {
+        List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+        for (int i = 0; i < 10; i++) {
+            molecules.add(MoleculeFactory.makeIndole());
+            molecules.add(MoleculeFactory.makePyrrole());
+            molecules.add(MoleculeFactory.makeAlphaPinene());
+            molecules.add(MoleculeFactory.makeAzulene());
+        }
+        for (int i = 0; i < molecules.size(); i++) {
+            molecules.get(i).setProperty(CDKConstants.TITLE, "mol" + i);
+        }
+        return molecules;
+    }
+
+    /**
+     * Collects the results passed to the handler.
+     */
+    private static class Collector implements BatchFingerprinter.Handler {
+        List<Integer> indices = new ArrayList<Integer>();
+        List<IBitFingerprint> fingerprints = new ArrayList<IBitFingerprint>();
+        List<Integer> errors = new ArrayList<Integer>();
+        public void fingerprint(int index, IAtomContainer molecule,
+                                IBitFingerprint fingerprint) {
+            indices.add(index);
+            fingerprints.add(fingerprint);
+        }
+        public void error(int index, IAtomContainer molecule, Exception error) {
+            indices.add(index);
+            errors.add(index);
+        }
+    }
+
+    @Test public void testProcess() throws Exception {
+        List<IAtomContainer> molecules = molecules();
+        Collector collector = new Collector();
+        BatchFingerprinter batch = new BatchFingerprinter(SHARED, 4);
+        Assert.assertEquals(molecules.size(), batch.process(molecules.iterator(), collector));
+        Assert.assertEquals(0, collector.errors.size());
+
+        Fingerprinter fingerprinter = new Fingerprinter();
+        List<IAtomContainer> expected = molecules();
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(fingerprinter.getBitFingerprint(expected.get(i)),
+                                collector.fingerprints.get(i));
+        }
+    }
+
+    @Test public void testProcess_order() throws Exception {
+        List<IAtomContainer> molecules = molecules();
+        Collector collector = new Collector();
+        BatchFingerprinter batch = new BatchFingerprinter(SHARED, 3);
+        batch.setQueueSize(2);
+        batch.process(molecules.iterator(), collector);
+        for (int i = 0; i < molecules.size(); i++) {
+            Assert.assertEquals(i, collector.indices.get(i).intValue());
+        }
+    }
+
+    /**
+     * Each worker thread must get its own fingerprinter.
+     */
+    @Test public void testProcess_threadLocal() throws Exception {
+        final Set<IFingerprinter> created =
+            Collections.synchronizedSet(new HashSet<IFingerprinter>());
+        BatchFingerprinter batch = new BatchFingerprinter(
+            new BatchFingerprinter.FingerprinterFactory() {
+                public IFingerprinter newFingerprinter() {
+                    IFingerprinter fingerprinter = new PubchemFingerprinter();
+                    created.add(fingerprinter);
+                    return fingerprinter;
+                }
+            }, 2
+        );
+        batch.setPerceiveAtomTypes(true);
+        Collector collector = new Collector();
+        batch.process(molecules().iterator(), collector);
+        Assert.assertEquals(0, collector.errors.size());
+        Assert.assertTrue(created.size() >= 1);
+        Assert.assertTrue(created.size() <= 2);
+    }
+
+    @Test public void testProcess_error() throws Exception {
+        BatchFingerprinter batch = new BatchFingerprinter(
+            new BatchFingerprinter.FingerprinterFactory() {
+                public IFingerprinter newFingerprinter() {
+                    return new Fingerprinter() {
+                        public IBitFingerprint getBitFingerprint(IAtomContainer container)
+                            throws CDKException {
+                            if (container.getAtomCount() == 5)
+                                throw new CDKException("pyrrole");
+                            return super.getBitFingerprint(container);
+                        }
+                    };
+                }
+            }, 2
+        );
+        Collector collector = new Collector();
+        List<IAtomContainer> molecules = molecules();
+        batch.process(molecules.iterator(), collector);
+        Assert.assertEquals(10, collector.errors.size());
+        Assert.assertEquals(1, collector.errors.get(0).intValue());
+        Assert.assertEquals(molecules.size(), collector.indices.size());
+    }
+
+    @Test(expected=CDKException.class)
+    public void testProcess_readError() throws Exception {
+        final Iterator<IAtomContainer> molecules = molecules().iterator();
+        Iterator<IAtomContainer> failing = new Iterator<IAtomContainer>() {
+            int count = 0;
+            public boolean hasNext() {
+                return true;
+            }
+            public IAtomContainer next() {
+                if (count++ == 5) throw new IllegalStateException("broken input");
+                return molecules.next();
+            }
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        new BatchFingerprinter(SHARED, 2).process(failing, new Collector());
+    }
+
+    @Test public void testPerceiveAtomTypes() {
+        BatchFingerprinter batch = new BatchFingerprinter(SHARED);
+        Assert.assertFalse(batch.getPerceiveAtomTypes());
+        batch.setPerceiveAtomTypes(true);
+        Assert.assertTrue(batch.getPerceiveAtomTypes());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetQueueSize() {
+        new BatchFingerprinter(SHARED).setQueueSize(0);
+    }
+
+    @Test public void testWrite() throws Exception {
+        StringWriter writer = new StringWriter();
+        List<IAtomContainer> molecules = molecules();
+        new BatchFingerprinter(SHARED, 2).write(molecules.iterator(), writer);
+        String[] lines = writer.toString().split("\n");
+        Assert.assertEquals(molecules.size(), lines.length);
+
+        IBitFingerprint expected = new Fingerprinter().getBitFingerprint(MoleculeFactory.makeIndole());
+        String[] fields = lines[4].split("\t");
+        Assert.assertEquals("4", fields[0]);
+        Assert.assertEquals("mol4", fields[1]);
+        String[] bits = fields[2].split(" ");
+        Assert.assertEquals(expected.cardinality(), bits.length);
+        for (String bit : bits) {
+            Assert.assertTrue(expected.get(Integer.parseInt(bit)));
+        }
+    }
+}
@@ -93,6 +93,12 @@ public class ExtendedFingerprinterTest extends AbstractFixedLengthFingerprinterT
 		Assert.assertEquals(512, fingerprinter.getSize());
 	}
 
+	@Test public void testGetSearchDepth() throws java.lang.Exception {
+		ExtendedFingerprinter fingerprinter = new ExtendedFingerprinter(512, 3);
+		Assert.assertEquals(3, fingerprinter.getSearchDepth());
+		Assert.assertEquals(Fingerprinter.DEFAULT_SEARCH_DEPTH, new ExtendedFingerprinter().getSearchDepth());
+	}
+
 	@Test public void testExtendedFingerprinter_int() throws java.lang.Exception {
 		IFingerprinter fingerprinter = new ExtendedFingerprinter(512);
 		Assert.assertNotNull(fingerprinter);
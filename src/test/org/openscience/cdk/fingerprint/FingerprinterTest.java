@@ -24,7 +24,15 @@ package org.openscience.cdk.fingerprint;
 
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -35,17 +43,22 @@ import org.openscience.cdk.Reaction;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.graph.AtomContainerAtomPermutor;
 import org.openscience.cdk.graph.AtomContainerBondPermutor;
+import org.openscience.cdk.graph.PathTools;
+import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IChemFile;
+import org.openscience.cdk.interfaces.IPseudoAtom;
 import org.openscience.cdk.interfaces.IReaction;
 import org.openscience.cdk.io.IChemObjectReader.Mode;
 import org.openscience.cdk.io.MDLRXNV2000Reader;
 import org.openscience.cdk.io.MDLV2000Reader;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
 import org.openscience.cdk.templates.MoleculeFactory;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.cdk.tools.manipulator.ChemFileManipulator;
+import org.openscience.cdk.tools.periodictable.PeriodicTable;
 
 /**
  * @cdk.module test-standard
@@ -329,6 +342,117 @@ public class FingerprinterTest extends AbstractFixedLengthFingerprinterTest {
 		return mol;
     }
 
+    /**
+     * The path hashes must be the same as the ones of the string based
+     * implementation it replaced.
+     */
+    @Test
+    public void testFindPathes_regression() throws Exception {
+        String filename = "data/mdl/pcoretest1.sdf";
+        InputStream ins = this.getClass().getClassLoader().getResourceAsStream(filename);
+        IteratingSDFReader reader = new IteratingSDFReader(ins, DefaultChemObjectBuilder.getInstance());
+        Fingerprinter fingerprinter = new Fingerprinter();
+        Fingerprinter graphOnly = new GraphOnlyFingerprinter();
+        int count = 0;
+        while (reader.hasNext()) {
+            IAtomContainer mol = reader.next();
+            IBitFingerprint fp = fingerprinter.getBitFingerprint(mol);
+            assertLegacyPathes(fingerprinter, mol);
+            assertLegacyPathes(graphOnly, mol);
+            BitSet expected = new BitSet(Fingerprinter.DEFAULT_SIZE);
+            for (int hash : legacyFindPathes(fingerprinter, mol, Fingerprinter.DEFAULT_SEARCH_DEPTH)) {
+                expected.set(new Random(hash).nextInt(Fingerprinter.DEFAULT_SIZE));
+            }
+            Assert.assertEquals(expected, fp.asBitSet());
+            count++;
+        }
+        reader.close();
+        Assert.assertTrue(count > 0);
+    }
+
+    @Test
+    public void testFindPathes_pseudoAtom() throws Exception {
+        IAtomContainer mol = makePropylAmine();
+        IPseudoAtom pseudo = DefaultChemObjectBuilder.getInstance().newInstance(IPseudoAtom.class, "R");
+        mol.addAtom(pseudo);
+        mol.addBond(3, 4, IBond.Order.SINGLE);
+        mol.addAtom(new Atom("Cl"));
+        mol.addBond(0, 5, IBond.Order.DOUBLE);
+        assertLegacyPathes(new Fingerprinter(), mol);
+        assertLegacyPathes(new Fingerprinter(1024, 2), mol);
+        assertLegacyPathes(new Fingerprinter(1024, 0), mol);
+    }
+
+    private static void assertLegacyPathes(Fingerprinter fingerprinter, IAtomContainer mol) {
+        int[] expected = legacyFindPathes(fingerprinter, mol, fingerprinter.getSearchDepth());
+        int[] actual = fingerprinter.findPathes(mol, fingerprinter.getSearchDepth());
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    private static final Map<String, String> queryReplace = new HashMap<String, String>();
+    static {
+        queryReplace.put("Cl", "X"); queryReplace.put("Br", "Z");
+        queryReplace.put("Si", "Y"); queryReplace.put("As", "D");
+        queryReplace.put("Li", "L"); queryReplace.put("Se", "E");
+        queryReplace.put("Na", "G"); queryReplace.put("Ca", "J");
+        queryReplace.put("Al", "A");
+    }
+
+    private static String convertSymbol(String symbol) {
+        String returnSymbol = queryReplace.get(symbol);
+        return returnSymbol == null ? symbol : returnSymbol;
+    }
+
+    /**
+     * The original string based path enumeration, used as reference.
+     */
+    private static int[] legacyFindPathes(Fingerprinter fingerprinter,
+                                          IAtomContainer container, int searchDepth) {
+        List<StringBuffer> allPaths = new ArrayList<StringBuffer>();
+        for (IAtom startAtom : container.atoms()) {
+            List<List<IAtom>> p = PathTools.getPathsOfLengthUpto(container, startAtom, searchDepth);
+            for (List<IAtom> path : p) {
+                StringBuffer sb = new StringBuffer();
+                IAtom x = path.get(0);
+                if (x instanceof IPseudoAtom)
+                    sb.append((char) PeriodicTable.getElementCount() + 1);
+                else {
+                    Integer atnum = PeriodicTable.getAtomicNumber(x.getSymbol());
+                    if (atnum != null) sb.append(convertSymbol(x.getSymbol()));
+                    else sb.append((char) PeriodicTable.getElementCount() + 1);
+                }
+                for (int i = 1; i < path.size(); i++) {
+                    IAtom y = path.get(i);
+                    sb.append(fingerprinter.getBondSymbol(container.getBond(x, y)));
+                    sb.append(convertSymbol(y.getSymbol()));
+                    x = y;
+                }
+                StringBuffer revForm = new StringBuffer(sb);
+                revForm.reverse();
+                if (sb.toString().compareTo(revForm.toString()) <= 0)
+                    allPaths.add(sb);
+                else allPaths.add(revForm);
+            }
+        }
+        Set<String> cleanPath = new HashSet<String>();
+        for (StringBuffer s : allPaths) {
+            String s1 = s.toString().trim();
+            if (s1.equals("")) continue;
+            if (cleanPath.contains(s1)) continue;
+            String s2 = s.reverse().toString().trim();
+            if (cleanPath.contains(s2)) continue;
+            cleanPath.add(s2);
+        }
+        Set<Integer> hashes = new HashSet<Integer>();
+        for (String s : cleanPath) hashes.add(s.hashCode());
+        int[] result = new int[hashes.size()];
+        int i = 0;
+        for (Integer hash : hashes) result[i++] = hash;
+        return result;
+    }
+
     public static IAtomContainer makePropylAmine() {
         IAtomContainer mol = DefaultChemObjectBuilder.getInstance().newInstance(IAtomContainer.class);
 		mol.addAtom(new Atom("C")); // 0
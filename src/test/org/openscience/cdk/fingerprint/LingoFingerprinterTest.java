@@ -59,4 +59,17 @@ public class LingoFingerprinterTest extends AbstractFingerprinterTest {
         String[] subs = {"O(N", "(NC", "NC)", "C)P", ")PS"};
         for (String s : subs) Assert.assertTrue(map.containsKey(s));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetCountFingerprint() throws Exception {
+        LingoFingerprinter lfp = new LingoFingerprinter(3);
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer mol = sp.parseSmiles("CCCCC");
+        Map<String, Integer> map = lfp.getRawFingerprint(mol);
+        ICountFingerprint fp = lfp.getCountFingerprint(mol);
+        Assert.assertEquals(map.size(), fp.numOfPopulatedbins());
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("CCC".hashCode(), fp.getHash(0));
+        Assert.assertEquals(3, fp.getCount(0));
+    }
+}
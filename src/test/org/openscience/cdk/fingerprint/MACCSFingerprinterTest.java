@@ -116,4 +116,39 @@ public class MACCSFingerprinterTest extends AbstractFixedLengthFingerprinterTest
         Assert.assertTrue(FingerprinterTool.isSubset(bs2, bs3));
     }
 
-}
\ No newline at end of file
+    /**
+     * NAAN (bit 78) and QHAAQH (bit 53) need four distinct atoms, which the
+     * four atoms of CNNC cannot provide.
+     */
+    @Test
+    public void testDistinctAtoms() throws Exception {
+        SmilesParser parser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IFingerprinter printer = new MACCSFingerprinter();
+
+        IAtomContainer mol = parser.parseSmiles("CNNC");
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(mol);
+        CDKHueckelAromaticityDetector.detectAromaticity(mol);
+        BitSet bs = printer.getBitFingerprint(mol).asBitSet();
+
+        Assert.assertFalse(bs.get(53));
+        Assert.assertFalse(bs.get(78));
+    }
+
+    /**
+     * No atom of this molecule has three ring bonds, so A$A($A)$A (bit 104)
+     * must not be set.
+     */
+    @Test
+    public void testRingAtomWithThreeRingBonds() throws Exception {
+        SmilesParser parser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IFingerprinter printer = new MACCSFingerprinter();
+
+        IAtomContainer mol = parser.parseSmiles("C1(C2CC2)(C2CCC2)CC1");
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(mol);
+        CDKHueckelAromaticityDetector.detectAromaticity(mol);
+        BitSet bs = printer.getBitFingerprint(mol).asBitSet();
+
+        Assert.assertFalse(bs.get(104));
+    }
+
+}
@@ -261,4 +261,41 @@ public class PubchemFingerprinterTest extends AbstractFixedLengthFingerprinterTe
         Assert.assertEquals(bs2, fb2);
     }
 
+    @Test
+    public void testSharedInstance() throws Exception {
+        String[] smiles = {
+            "C=C(C1=CC=C(C=C1)O)NNC2=C(C(=NC(=C2Cl)Cl)C(=O)O)Cl",
+            "c1ccc2ccccc2c1", "CC(=O)Oc1ccccc1C(=O)O", "C1CCNCC1", "OCC(O)CO"
+        };
+        final List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+        List<BitSet> expected = new ArrayList<BitSet>();
+        for (String s : smiles) {
+            IAtomContainer molecule = parser.parseSmiles(s);
+            AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+            CDKHueckelAromaticityDetector.detectAromaticity(molecule);
+            molecules.add(molecule);
+            expected.add(new PubchemFingerprinter().getBitFingerprint(molecule).asBitSet());
+        }
+
+        final IFingerprinter shared = new PubchemFingerprinter();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BitSet>> results = new ArrayList<Future<BitSet>>();
+            for (int i = 0; i < 20; i++) {
+                final IAtomContainer molecule = molecules.get(i % molecules.size());
+                results.add(executor.submit(new Callable<BitSet>() {
+                    public BitSet call() throws Exception {
+                        synchronized (molecule) {
+                            return shared.getBitFingerprint(molecule).asBitSet();
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++)
+                Assert.assertEquals(expected.get(i % molecules.size()), results.get(i).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
\ No newline at end of file
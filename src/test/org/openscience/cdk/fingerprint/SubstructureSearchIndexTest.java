@@ -0,0 +1,172 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.fingerprint;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainerCreator;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.smiles.smarts.parser.SMARTSParser;
+
+/**
+ * @cdk.module test-fingerprint
+ */
+public class SubstructureSearchIndexTest extends CDKTestCase {
+
+    private static final String[] SMILES = {
+        "c1ccccc1", "c1ccccc1C(=O)O", "CC(=O)O", "CCO", "CCCCCC",
+        "c1ccncc1", "C1CCCCC1", "OC(=O)c1ccccc1O", "C#N", "ClCCBr"
+    };
+
+    private static SubstructureSearchIndex createIndex(Fingerprinter fingerprinter) throws Exception {
+        SmilesParser parser = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        SubstructureSearchIndex index = new SubstructureSearchIndex(fingerprinter);
+        for (String smiles : SMILES)
+            index.add(parser.parseSmiles(smiles));
+        return index;
+    }
+
+    /**
+     * Checks that the hits of a SMARTS search are those molecules matched by
+     * a {@link SMARTSQueryTool}.
+     */
+    private static void assertSearch(SubstructureSearchIndex index, String smarts) throws Exception {
+        SubstructureSearchIndex.Result result = index.search(smarts);
+        SMARTSQueryTool tool = new SMARTSQueryTool(smarts);
+        int hitCount = 0;
+        for (int i = 0; i < index.getMoleculeCount(); i++) {
+            if (!tool.matches(index.getMolecule(i))) continue;
+            Assert.assertTrue(smarts, hitCount < result.getHitCount());
+            Assert.assertEquals(smarts, i, result.getHits()[hitCount++]);
+        }
+        Assert.assertEquals(smarts, hitCount, result.getHitCount());
+        Assert.assertTrue(smarts, result.getCandidateCount() >= hitCount);
+        Assert.assertEquals(index.getMoleculeCount(), result.getMoleculeCount());
+    }
+
+    @Test public void testAdd() throws Exception {
+        SmilesParser parser = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        SubstructureSearchIndex index = new SubstructureSearchIndex();
+        Assert.assertEquals(0, index.getMoleculeCount());
+        IAtomContainer molecule = parser.parseSmiles("c1ccccc1O");
+        Assert.assertEquals(0, index.add(molecule));
+        Assert.assertEquals(1, index.add(parser.parseSmiles("CCO")));
+        Assert.assertEquals(2, index.getMoleculeCount());
+        Assert.assertSame(molecule, index.getMolecule(0));
+        Assert.assertEquals(new Fingerprinter().getBitFingerprint(parser.parseSmiles("c1ccccc1O")),
+                            index.getFingerprint(0));
+    }
+
+    @Test public void testGetQueryFingerprint() throws Exception {
+        SubstructureSearchIndex index = createIndex(new Fingerprinter());
+        // the bits of the query are set for the molecules containing it
+        IBitFingerprint query = index.getQueryFingerprint(SMARTSParser.parse("c1ccccc1C(=O)O"));
+        Assert.assertTrue(query.cardinality() > 0);
+        IBitFingerprint benzoicAcid = index.getFingerprint(1);
+        IBitFingerprint copy = new BitSetFingerprint(benzoicAcid);
+        copy.or(query);
+        Assert.assertEquals(benzoicAcid, copy);
+
+        // atoms and bonds that match several elements or bond types are left out
+        Assert.assertEquals(0, index.getQueryFingerprint(SMARTSParser.parse("*~*")).cardinality());
+        IBitFingerprint list = index.getQueryFingerprint(SMARTSParser.parse("C[N,O]"));
+        IBitFingerprint carbon = index.getQueryFingerprint(SMARTSParser.parse("C"));
+        Assert.assertEquals(carbon, list);
+    }
+
+    @Test public void testGetQueryFingerprint_empty() throws Exception {
+        SubstructureSearchIndex index = new SubstructureSearchIndex();
+        IBitFingerprint query = index.getQueryFingerprint(SMARTSParser.parse("CCO"));
+        Assert.assertEquals(1024, query.size());
+        Assert.assertEquals(0, query.cardinality());
+        Assert.assertEquals(0, index.search("CCO").getHitCount());
+    }
+
+    @Test public void testSearch_String() throws Exception {
+        SubstructureSearchIndex index = createIndex(new Fingerprinter());
+        String[] queries = {
+            "c1ccccc1", "C(=O)[OH]", "[#6]-[#8]", "CCCC", "c:n", "[Cl,Br]", "*",
+            "C1CCCCC1", "[CX4][CX4]", "N#C", "c1ccccc1[$(C=O)]", "[!#6]"
+        };
+        for (String smarts : queries)
+            assertSearch(index, smarts);
+
+        SubstructureSearchIndex.Result result = index.search("c1ccccc1");
+        Assert.assertArrayEquals(new int[]{0, 1, 7}, result.getHits());
+        Assert.assertTrue(result.getCandidateCount() < SMILES.length);
+        Assert.assertTrue(result.getScreenOutRatio() > 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSearch_String_invalid() throws Exception {
+        createIndex(new Fingerprinter()).search("C(");
+    }
+
+    @Test public void testSearch_IQueryAtomContainer() throws Exception {
+        SmilesParser parser = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        SubstructureSearchIndex index = createIndex(new Fingerprinter());
+        IQueryAtomContainer query = QueryAtomContainerCreator.createSymbolAndChargeQueryContainer(
+            parser.parseSmiles("CC(=O)O")
+        );
+        SubstructureSearchIndex.Result result = index.search(query);
+        Assert.assertArrayEquals(new int[]{1, 2, 7}, result.getHits());
+        Assert.assertTrue(result.getCandidateCount() < SMILES.length);
+    }
+
+    @Test public void testSearch_fingerprinter() throws Exception {
+        SubstructureSearchIndex index = createIndex(new Fingerprinter(256, 4));
+        Assert.assertEquals(256, index.getFingerprint(0).size());
+        assertSearch(index, "c1ccccc1O");
+        assertSearch(index, "CC(=O)O");
+    }
+
+    @Test public void testSearch_threads() throws Exception {
+        SubstructureSearchIndex index = createIndex(new Fingerprinter());
+        index.setNumberOfThreads(3);
+        assertSearch(index, "*");
+        assertSearch(index, "c1ccccc1");
+        assertSearch(index, "CO");
+        Assert.assertArrayEquals(new int[]{1, 2, 7}, index.search(
+            QueryAtomContainerCreator.createSymbolAndChargeQueryContainer(
+                new SmilesParser(DefaultChemObjectBuilder.getInstance()).parseSmiles("CC(=O)O")
+            )).getHits());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetNumberOfThreads() {
+        new SubstructureSearchIndex().setNumberOfThreads(0);
+    }
+
+    @Test public void testResult() throws Exception {
+        SubstructureSearchIndex.Result result = new SubstructureSearchIndex.Result(new int[]{2, 5}, 10, 4);
+        Assert.assertEquals(2, result.getHitCount());
+        Assert.assertEquals(10, result.getMoleculeCount());
+        Assert.assertEquals(4, result.getCandidateCount());
+        Assert.assertEquals(0.6, result.getScreenOutRatio(), 1e-9);
+        Assert.assertEquals(0.5, result.getFalsePositiveRatio(), 1e-9);
+        result.getHits()[0] = 3;
+        Assert.assertEquals(2, result.getHits()[0]);
+        Assert.assertEquals(0, new SubstructureSearchIndex.Result(new int[0], 0, 0).getScreenOutRatio(), 0);
+    }
+}
@@ -0,0 +1,183 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.graph;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.interfaces.IPseudoAtom;
+import org.openscience.cdk.smiles.SmilesParser;
+
+/**
+ * @cdk.module test-core
+ */
+public class FrozenAtomContainerTest extends CDKTestCase {
+
+    private static IChemObjectBuilder builder = DefaultChemObjectBuilder.getInstance();
+
+    private static IAtomContainer molecule;
+    private static FrozenAtomContainer frozen;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        SmilesParser sp = new SmilesParser(builder);
+        molecule = sp.parseSmiles("c1ccccc1C(=O)[O-]");
+        molecule.setProperty(CDKConstants.TITLE, "benzoate");
+        frozen = FrozenAtomContainer.freeze(molecule);
+    }
+
+    @Test public void testFreeze() {
+        Assert.assertEquals(9, frozen.getAtomCount());
+        Assert.assertEquals(9, frozen.getBondCount());
+    }
+
+    @Test public void testGetTitle() {
+        Assert.assertEquals("benzoate", frozen.getTitle());
+    }
+
+    @Test public void testGetAtomicNumber() {
+        Assert.assertEquals(6, frozen.getAtomicNumber(0));
+        Assert.assertEquals(8, frozen.getAtomicNumber(7));
+    }
+
+    @Test public void testGetSymbol() {
+        Assert.assertEquals("C", frozen.getSymbol(6));
+        Assert.assertEquals("O", frozen.getSymbol(8));
+    }
+
+    @Test public void testGetFormalCharge() {
+        Assert.assertEquals(0, frozen.getFormalCharge(7).intValue());
+        Assert.assertEquals(-1, frozen.getFormalCharge(8).intValue());
+    }
+
+    @Test public void testGetImplicitHydrogenCount() {
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            Assert.assertEquals(molecule.getAtom(i).getImplicitHydrogenCount(),
+                                frozen.getImplicitHydrogenCount(i));
+        }
+    }
+
+    @Test public void testGetAtomFlag() {
+        Assert.assertTrue(frozen.getAtomFlag(0, CDKConstants.ISAROMATIC));
+        Assert.assertFalse(frozen.getAtomFlag(7, CDKConstants.ISAROMATIC));
+    }
+
+    @Test public void testGetBondFlag() {
+        Assert.assertTrue(frozen.getBondFlag(0, CDKConstants.ISAROMATIC));
+        Assert.assertFalse(frozen.getBondFlag(7, CDKConstants.ISAROMATIC));
+    }
+
+    @Test public void testGetDegree() {
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            Assert.assertEquals(molecule.getConnectedAtomsCount(molecule.getAtom(i)),
+                                frozen.getDegree(i));
+        }
+    }
+
+    @Test public void testGetNeighbour() {
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            IAtom atom = molecule.getAtom(i);
+            List<IAtom> neighbours = molecule.getConnectedAtomsList(atom);
+            for (int k = 0; k < neighbours.size(); k++) {
+                Assert.assertEquals(molecule.getAtomNumber(neighbours.get(k)),
+                                    frozen.getNeighbour(i, k));
+                IBond bond = molecule.getBond(atom, neighbours.get(k));
+                Assert.assertEquals(molecule.getBondNumber(bond),
+                                    frozen.getNeighbourBond(i, k));
+            }
+        }
+    }
+
+    @Test public void testGetBond() {
+        for (int i = 0; i < molecule.getBondCount(); i++) {
+            IBond bond = molecule.getBond(i);
+            int begin = molecule.getAtomNumber(bond.getAtom(0));
+            int end   = molecule.getAtomNumber(bond.getAtom(1));
+            Assert.assertEquals(begin, frozen.getBondBegin(i));
+            Assert.assertEquals(end, frozen.getBondEnd(i));
+            Assert.assertEquals(i, frozen.getBond(begin, end));
+            Assert.assertEquals(i, frozen.getBond(end, begin));
+        }
+        Assert.assertEquals(-1, frozen.getBond(0, 8));
+    }
+
+    @Test public void testGetBondOrder() {
+        for (int i = 0; i < molecule.getBondCount(); i++) {
+            Assert.assertEquals(molecule.getBond(i).getOrder(), frozen.getBondOrder(i));
+        }
+    }
+
+    @Test public void testToAtomContainer() {
+        IAtomContainer thawed = frozen.toAtomContainer(builder);
+        Assert.assertEquals(molecule.getAtomCount(), thawed.getAtomCount());
+        Assert.assertEquals(molecule.getBondCount(), thawed.getBondCount());
+        Assert.assertEquals("benzoate", thawed.getProperty(CDKConstants.TITLE));
+        for (int i = 0; i < molecule.getAtomCount(); i++) {
+            IAtom expected = molecule.getAtom(i);
+            IAtom actual   = thawed.getAtom(i);
+            Assert.assertEquals(expected.getSymbol(), actual.getSymbol());
+            Assert.assertEquals(expected.getFormalCharge(), actual.getFormalCharge());
+            Assert.assertEquals(expected.getImplicitHydrogenCount(), actual.getImplicitHydrogenCount());
+            Assert.assertEquals(expected.getFlagValue(), actual.getFlagValue());
+        }
+        for (int i = 0; i < molecule.getBondCount(); i++) {
+            IBond expected = molecule.getBond(i);
+            IBond actual   = thawed.getBond(i);
+            Assert.assertEquals(molecule.getAtomNumber(expected.getAtom(0)),
+                                thawed.getAtomNumber(actual.getAtom(0)));
+            Assert.assertEquals(molecule.getAtomNumber(expected.getAtom(1)),
+                                thawed.getAtomNumber(actual.getAtom(1)));
+            Assert.assertEquals(expected.getOrder(), actual.getOrder());
+            Assert.assertEquals(expected.getFlagValue(), actual.getFlagValue());
+        }
+    }
+
+    @Test public void testPseudoAtom() {
+        IAtomContainer container = builder.newInstance(IAtomContainer.class);
+        container.addAtom(builder.newInstance(IAtom.class, "C"));
+        container.addAtom(builder.newInstance(IPseudoAtom.class, "Me"));
+        container.addBond(0, 1, IBond.Order.SINGLE);
+        FrozenAtomContainer frozen = FrozenAtomContainer.freeze(container);
+        Assert.assertEquals(0, frozen.getAtomicNumber(1));
+        Assert.assertEquals("Me", frozen.getSymbol(1));
+        Assert.assertTrue(frozen.toAtomContainer(builder).getAtom(1) instanceof IPseudoAtom);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMultiCentreBond() {
+        IAtomContainer container = builder.newInstance(IAtomContainer.class);
+        IAtom[] atoms = new IAtom[]{
+            builder.newInstance(IAtom.class, "C"),
+            builder.newInstance(IAtom.class, "C"),
+            builder.newInstance(IAtom.class, "C")
+        };
+        for (IAtom atom : atoms) container.addAtom(atom);
+        container.addBond(builder.newInstance(IBond.class, (Object[]) atoms));
+        FrozenAtomContainer.freeze(container);
+    }
+}
@@ -0,0 +1,111 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.smiles.SmilesParser;
+
+/**
+ * @cdk.module test-standard
+ */
+public class SubgraphMappingsTest extends CDKTestCase {
+
+    private static SubgraphMappings mappings(String target, String query) throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        return new VF2IsomorphismTester().getSubgraphMappings(sp.parseSmiles(target), sp.parseSmiles(query));
+    }
+
+    @Test public void testCount() throws Exception {
+        // each of the 6 atoms of the ring in both directions
+        Assert.assertEquals(12, mappings("C1CCCCC1", "C1CCCCC1").count());
+        Assert.assertEquals(8, mappings("CC(C)(C)C", "CC").count());
+        Assert.assertEquals(0, mappings("CCC", "CO").count());
+    }
+
+    @Test public void testUniqueAtoms() throws Exception {
+        Assert.assertEquals(1, mappings("C1CCCCC1", "C1CCCCC1").uniqueAtoms().count());
+        Assert.assertEquals(4, mappings("CC(C)(C)C", "CC").uniqueAtoms().count());
+        Assert.assertEquals(4, mappings("CC(C)(C)C", "CC").uniqueAtoms().uniqueAtoms().count());
+    }
+
+    @Test public void testLimit() throws Exception {
+        SubgraphMappings mappings = mappings("C1CCCCC1", "C1CCCCC1");
+        Assert.assertEquals(5, mappings.limit(5).count());
+        Assert.assertEquals(3, mappings.limit(5).limit(3).count());
+        Assert.assertEquals(3, mappings.limit(3).limit(5).count());
+        Assert.assertEquals(0, mappings.limit(0).count());
+        Assert.assertEquals(1, mappings.limit(5).uniqueAtoms().count());
+        // the original is not changed
+        Assert.assertEquals(12, mappings.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimit_negative() throws Exception {
+        mappings("CCC", "CC").limit(-1);
+    }
+
+    @Test public void testAtLeast() throws Exception {
+        SubgraphMappings mappings = mappings("CC(C)(C)C", "CC");
+        Assert.assertTrue(mappings.atLeast(1));
+        Assert.assertTrue(mappings.atLeast(8));
+        Assert.assertFalse(mappings.atLeast(9));
+        Assert.assertTrue(mappings.uniqueAtoms().atLeast(4));
+        Assert.assertFalse(mappings.uniqueAtoms().atLeast(5));
+        Assert.assertFalse(mappings("CCC", "CO").atLeast(1));
+    }
+
+    @Test public void testFirst() throws Exception {
+        int[] mapping = mappings("OCC", "CO").first();
+        Assert.assertArrayEquals(new int[]{1, 0}, mapping);
+        Assert.assertNull(mappings("CCC", "CO").first());
+    }
+
+    @Test public void testIterator() throws Exception {
+        Iterator<int[]> iterator = mappings("CCO", "CC").iterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertTrue(iterator.hasNext());
+        int[] first = iterator.next();
+        int[] second = iterator.next();
+        Assert.assertNotSame(first, second);
+        Assert.assertArrayEquals(new int[]{0, 1}, first);
+        Assert.assertArrayEquals(new int[]{1, 0}, second);
+        Assert.assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            Assert.fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException exception) {
+            // expected
+        }
+    }
+
+    @Test public void testIterator_repeated() throws Exception {
+        SubgraphMappings mappings = mappings("C1CCCCC1", "CC");
+        int count = 0;
+        for (int[] mapping : mappings) count++;
+        for (int[] mapping : mappings) count++;
+        Assert.assertEquals(24, count);
+    }
+}
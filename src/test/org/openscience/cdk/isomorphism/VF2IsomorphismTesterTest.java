@@ -0,0 +1,247 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.OrderQueryBond;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainerCreator;
+import org.openscience.cdk.isomorphism.matchers.SymbolQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.smarts.AnyAtom;
+import org.openscience.cdk.isomorphism.mcss.RMap;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.templates.MoleculeFactory;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * @cdk.module test-standard
+ */
+public class VF2IsomorphismTesterTest extends CDKTestCase {
+
+    private static IAtomContainer prepare(IAtomContainer atomContainer) throws Exception {
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(atomContainer);
+        CDKHueckelAromaticityDetector.detectAromaticity(atomContainer);
+        return atomContainer;
+    }
+
+    private static IAtomContainer parse(String smiles) throws Exception {
+        return new SmilesParser(DefaultChemObjectBuilder.getInstance()).parseSmiles(smiles);
+    }
+
+    @Test public void testIsSubgraph() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        IAtomContainer pinene = prepare(MoleculeFactory.makeAlphaPinene());
+        Assert.assertTrue(tester.isSubgraph(pinene, prepare(MoleculeFactory.makeCyclohexene())));
+        Assert.assertFalse(tester.isSubgraph(pinene, prepare(MoleculeFactory.makeCyclohexane())));
+        Assert.assertTrue(tester.isSubgraph(prepare(MoleculeFactory.makeIndole()),
+                                            prepare(MoleculeFactory.makePyrrole())));
+    }
+
+    @Test public void testIsSubgraph_query() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)OC(=O)C");
+        QueryAtomContainer query = QueryAtomContainerCreator.createBasicQueryContainer(parse("CC"));
+        Assert.assertTrue(new VF2IsomorphismTester().isSubgraph(atomContainer, query));
+    }
+
+    /**
+     * @cdk.bug 1708336
+     */
+    @Test public void testSFBug1708336() throws Exception {
+        IChemObjectBuilder builder = DefaultChemObjectBuilder.getInstance();
+        IAtomContainer atomContainer = builder.newInstance(IAtomContainer.class);
+        atomContainer.addAtom(builder.newInstance(IAtom.class, "C"));
+        atomContainer.addAtom(builder.newInstance(IAtom.class, "C"));
+        atomContainer.addAtom(builder.newInstance(IAtom.class, "N"));
+        atomContainer.addBond(0, 1, IBond.Order.SINGLE);
+        atomContainer.addBond(1, 2, IBond.Order.SINGLE);
+        IQueryAtomContainer query = new QueryAtomContainer();
+        IQueryAtom a1 = new SymbolQueryAtom();
+        a1.setSymbol("C");
+        AnyAtom a2 = new AnyAtom();
+        IQueryAtom a3 = new SymbolQueryAtom();
+        a3.setSymbol("C");
+        query.addAtom(a1);
+        query.addAtom(a2);
+        query.addAtom(a3);
+        query.addBond(new OrderQueryBond(a1, a2, IBond.Order.SINGLE));
+        query.addBond(new OrderQueryBond(a2, a3, IBond.Order.SINGLE));
+
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        Assert.assertFalse(tester.isSubgraph(atomContainer, query));
+        Assert.assertTrue(tester.getSubgraphAtomsMaps(atomContainer, query).isEmpty());
+    }
+
+    @Test public void testIsIsomorph() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        Assert.assertTrue(tester.isIsomorph(parse("C1CCCCC1CO"), parse("OCC1CCCCC1")));
+        Assert.assertFalse(tester.isIsomorph(parse("C1CCCCC1CO"), parse("C1CCCCC1")));
+        Assert.assertFalse(tester.isIsomorph(parse("CCCCCC"), parse("CC(C)CCC")));
+    }
+
+    @Test public void testGetSubgraphMappings() throws Exception {
+        IAtomContainer butane = parse("CCCC");
+        SubgraphMappings mappings = new VF2IsomorphismTester().getSubgraphMappings(butane, parse("CC"));
+        Assert.assertEquals(6, mappings.count());
+        Assert.assertEquals(3, mappings.uniqueAtoms().count());
+        for (int[] mapping : mappings)
+            Assert.assertNotNull(butane.getBond(butane.getAtom(mapping[0]), butane.getAtom(mapping[1])));
+    }
+
+    @Test public void testGetMappedAtoms() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        IAtomContainer atomContainer = parse("CC(=O)OCC(=O)N");
+        IAtomContainer query = parse("CC=O");
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(4);
+        Assert.assertEquals(expected, tester.getMappedAtoms(atomContainer, query, 0));
+        expected.clear();
+        expected.set(1);
+        expected.set(5);
+        Assert.assertEquals(expected, tester.getMappedAtoms(atomContainer, query, 1));
+        Assert.assertTrue(tester.getMappedAtoms(atomContainer, parse("CC#N"), 0).isEmpty());
+    }
+
+    /**
+     * The matcher takes the place of the query atoms, which would all
+     * match the carbons of butane.
+     */
+    @Test public void testGetSubgraphMappings_matcher() throws Exception {
+        IAtomContainer butane = parse("CCCC");
+        VF2IsomorphismTester.AtomMatcher ends = new VF2IsomorphismTester.AtomMatcher() {
+            public boolean matches(int queryAtom, int targetAtom) {
+                return queryAtom == 0 ? targetAtom == 0 || targetAtom == 3 : true;
+            }
+        };
+        SubgraphMappings mappings = new VF2IsomorphismTester().getSubgraphMappings(butane, parse("CC"), ends);
+        Assert.assertEquals(2, mappings.count());
+        for (int[] mapping : mappings) {
+            Assert.assertTrue(mapping[0] == 0 || mapping[0] == 3);
+            Assert.assertTrue(mapping[1] == 1 || mapping[1] == 2);
+        }
+        Assert.assertEquals(6, new VF2IsomorphismTester().getSubgraphMappings(butane, parse("CC"), null).count());
+    }
+
+    @Test public void testGetMappedAtoms_matcher() throws Exception {
+        final IAtomContainer atomContainer = parse("CC(=O)OCC(=O)N");
+        final IAtomContainer query = parse("CC=O");
+        // matches by symbol, except for the first atom of the target
+        VF2IsomorphismTester.AtomMatcher notFirst = new VF2IsomorphismTester.AtomMatcher() {
+            public boolean matches(int queryAtom, int targetAtom) {
+                return targetAtom != 0 && query.getAtom(queryAtom).getSymbol().equals(
+                    atomContainer.getAtom(targetAtom).getSymbol());
+            }
+        };
+        BitSet expected = new BitSet();
+        expected.set(4);
+        Assert.assertEquals(expected, new VF2IsomorphismTester().getMappedAtoms(atomContainer, query, 0, notFirst));
+    }
+
+    @Test public void testGetSubgraphAtomsMap() throws Exception {
+        List<RMap> map = new VF2IsomorphismTester().getSubgraphAtomsMap(parse("CCCC"), parse("CCCC"));
+        Assert.assertEquals(4, map.size());
+        for (int i = 0; i < map.size(); i++)
+            Assert.assertEquals(i, map.get(i).getId2());
+        Assert.assertNull(new VF2IsomorphismTester().getSubgraphAtomsMap(parse("CCCC"), parse("CCCCC")));
+    }
+
+    @Test public void testGetSubgraphAtomsMaps() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        IAtomContainer butane = parse("CCCC");
+        // forwards and backwards
+        Assert.assertEquals(2, tester.getSubgraphAtomsMaps(butane, parse("CCCC")).size());
+        // each of the three bonds in two directions
+        Assert.assertEquals(6, tester.getSubgraphAtomsMaps(butane, parse("CC")).size());
+        Assert.assertEquals(12, tester.getSubgraphAtomsMaps(parse("c1ccccc1"), parse("c1ccccc1")).size());
+    }
+
+    @Test public void testGetUniqueSubgraphAtomsMaps() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        Assert.assertEquals(1, tester.getUniqueSubgraphAtomsMaps(parse("CCCC"), parse("CCCC")).size());
+        Assert.assertEquals(3, tester.getUniqueSubgraphAtomsMaps(parse("CCCC"), parse("CC")).size());
+        Assert.assertEquals(1, tester.getUniqueSubgraphAtomsMaps(parse("c1ccccc1"), parse("c1ccccc1")).size());
+    }
+
+    /**
+     * The line graphs of a triangle and of a star of three bonds are the
+     * same, so a match of bonds alone maps one onto the other.
+     */
+    @Test public void testTriangle() throws Exception {
+        IAtomContainer isobutane = parse("CC(C)C");
+        IAtomContainer cyclopropane = parse("C1CC1");
+        Assert.assertFalse(new VF2IsomorphismTester().isSubgraph(isobutane, cyclopropane));
+        Assert.assertTrue(new VF2IsomorphismTester().isSubgraph(parse("CC1CC1"), cyclopropane));
+    }
+
+    @Test public void testDisconnectedQuery() throws Exception {
+        VF2IsomorphismTester tester = new VF2IsomorphismTester();
+        Assert.assertTrue(tester.isSubgraph(parse("OCCO"), parse("O.O")));
+        Assert.assertFalse(tester.isSubgraph(parse("OCC"), parse("O.O")));
+        Assert.assertEquals(1, tester.getUniqueSubgraphAtomsMaps(parse("OCCO"), parse("O.O")).size());
+    }
+
+    @Test public void testTarget() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)OC(=O)C");
+        VF2IsomorphismTester tester = new VF2IsomorphismTester(atomContainer);
+        Assert.assertTrue(tester.isSubgraph(atomContainer, parse("C=O")));
+        Assert.assertEquals(2, tester.getUniqueSubgraphAtomsMaps(atomContainer, parse("C=O")).size());
+        Assert.assertFalse(tester.isSubgraph(atomContainer, parse("C#N")));
+        // other targets are not affected
+        Assert.assertTrue(tester.isSubgraph(parse("CC#N"), parse("C#N")));
+    }
+
+    @Test(expected = CDKException.class)
+    public void testFirstArgumentMustNotBeAnQueryAtomContainer() throws Exception {
+        IAtomContainer atomContainer = parse("O-C-C");
+        QueryAtomContainer query = QueryAtomContainerCreator.createBasicQueryContainer(atomContainer);
+        new VF2IsomorphismTester().isSubgraph(query, atomContainer);
+    }
+
+    /**
+     * Both engines agree on the matches of a set of queries.
+     */
+    @Test public void testUniversalIsomorphismTester() throws Exception {
+        String[] targets = {"c1ccc2[nH]ccc2c1", "CC(=O)OC(=O)C", "C1CCC2CCCCC2C1", "OCC(O)CO", "CC(C)(C)c1ccccc1"};
+        String[] queries = {"c1ccccc1", "CC", "C=O", "CO", "C1CCCCC1", "CC(C)C", "cc", "C(O)CO", "ccN"};
+        UniversalIsomorphismTester uit = new UniversalIsomorphismTester();
+        VF2IsomorphismTester vf2 = new VF2IsomorphismTester();
+        for (String smiles : targets) {
+            IAtomContainer target = prepare(parse(smiles));
+            for (String querySmiles : queries) {
+                IAtomContainer query = prepare(parse(querySmiles));
+                String message = querySmiles + " in " + smiles;
+                Assert.assertEquals(message, uit.isSubgraph(target, query), vf2.isSubgraph(target, query));
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+
+/**
+ * @cdk.module test-smarts
+ */
+public class AtomInvariantsTest extends CDKTestCase {
+
+    @Test public void testInvariants() throws Exception {
+        IAtomContainer atomContainer = new SmilesParser(DefaultChemObjectBuilder.getInstance())
+            .parseSmiles("c1ccccc1C(=O)[O-]");
+        // prepares the molecule
+        new SMARTSQueryTool("C").matches(atomContainer);
+        AtomInvariants invariants = new AtomInvariants(atomContainer);
+        Assert.assertSame(atomContainer, invariants.getAtomContainer());
+        Assert.assertEquals(9, invariants.getAtomCount());
+
+        // an aromatic ring carbon with a substituent
+        Assert.assertEquals(6, invariants.element[5]);
+        Assert.assertEquals(AtomInvariants.AROMATIC | AtomInvariants.RING, invariants.flags[5]);
+        Assert.assertEquals(0, invariants.totalHydrogens[5]);
+        Assert.assertEquals(3, invariants.totalConnections[5]);
+        Assert.assertEquals(2, invariants.ringConnections[5]);
+        Assert.assertEquals(6, invariants.smallestRing[5]);
+        Assert.assertEquals(1, invariants.ringCount[5]);
+        Assert.assertEquals(14, invariants.group[5]);
+
+        // an aromatic carbon with a hydrogen
+        Assert.assertEquals(1, invariants.totalHydrogens[0]);
+
+        // the carboxylate oxygen is not in a ring, and charged
+        Assert.assertEquals(8, invariants.element[8]);
+        Assert.assertEquals(0, invariants.flags[8]);
+        Assert.assertEquals(-1, invariants.charge[8]);
+        Assert.assertEquals(0, invariants.ringConnections[8]);
+        Assert.assertEquals(0, invariants.smallestRing[8]);
+        Assert.assertEquals(0, invariants.ringCount[8]);
+        Assert.assertEquals(AtomInvariants.NONE, invariants.mass[8]);
+    }
+
+    /**
+     * Properties of an unprepared molecule are not set.
+     */
+    @Test public void testInvariants_unset() throws Exception {
+        IAtomContainer atomContainer = new SmilesParser(DefaultChemObjectBuilder.getInstance())
+            .parseSmiles("CO");
+        AtomInvariants invariants = new AtomInvariants(atomContainer);
+        Assert.assertEquals(AtomInvariants.NONE, invariants.totalHydrogens[0]);
+        Assert.assertEquals(AtomInvariants.NONE, invariants.totalConnections[1]);
+        Assert.assertEquals(8, invariants.element[1]);
+    }
+}
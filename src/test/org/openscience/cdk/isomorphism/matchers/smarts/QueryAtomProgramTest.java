@@ -0,0 +1,116 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTester;
+import org.openscience.cdk.isomorphism.matchers.IQueryAtom;
+import org.openscience.cdk.isomorphism.matchers.QueryAtomContainer;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+import org.openscience.cdk.smiles.smarts.parser.SMARTSParser;
+
+/**
+ * @cdk.module test-smarts
+ */
+public class QueryAtomProgramTest extends CDKTestCase {
+
+    private static IAtomContainer prepare(String smiles) throws Exception {
+        IAtomContainer atomContainer = new SmilesParser(DefaultChemObjectBuilder.getInstance())
+            .parseSmiles(smiles);
+        // prepares the molecule
+        new SMARTSQueryTool("C").matches(atomContainer);
+        return atomContainer;
+    }
+
+    /**
+     * Asserts that the program of each atom of a query agrees with the query
+     * atom on every atom of a molecule.
+     */
+    private static void assertAgrees(String smarts, IAtomContainer atomContainer) throws Exception {
+        QueryAtomContainer query = SMARTSParser.parse(smarts);
+        AtomInvariants invariants = new AtomInvariants(atomContainer);
+        for (int i = 0; i < query.getAtomCount(); i++) {
+            IQueryAtom queryAtom = (IQueryAtom) query.getAtom(i);
+            QueryAtomProgram program = QueryAtomProgram.compile(queryAtom);
+            for (int j = 0; j < atomContainer.getAtomCount(); j++) {
+                Assert.assertEquals(smarts + " on atom " + j,
+                                    queryAtom.matches(atomContainer.getAtom(j)),
+                                    program.matches(invariants, j));
+            }
+        }
+    }
+
+    @Test public void testCompile() throws Exception {
+        IAtomContainer atomContainer = prepare("c1ccccc1CC(=O)[O-].[NH4+]");
+        String[] smarts = {
+            "C", "c", "a", "A", "*", "[#6]", "[!#6]", "[C,N]", "[C;H2]", "[c;H1]", "[CH3,OH]",
+            "[D1]", "[D3]", "[X3]", "[X4]", "[x2]", "[R]", "[R0]", "[R1]", "[r6]", "[!r6]",
+            "[v4]", "[+]", "[-1]", "[+0]", "[N+]", "[#X]", "[G16]", "[^2]", "[h1]", "[13C]",
+            "[O;!$(O=C)]", "[C&!R&X4,c&H0]", "[!C;!c]"
+        };
+        for (String s : smarts)
+            assertAgrees(s, atomContainer);
+    }
+
+    @Test public void testCompile_query() throws Exception {
+        QueryAtomContainer query = SMARTSParser.parse("[C;H1]O[N,O]");
+        QueryAtomProgram[] programs = QueryAtomProgram.compile(query);
+        Assert.assertEquals(3, programs.length);
+        Assert.assertEquals("QueryAtomProgram(0:aliphaticElement 6, 1:jumpIfFalse 3, 2:totalH 1)",
+                            programs[0].toString());
+    }
+
+    @Test public void testMatcher() throws Exception {
+        IAtomContainer atomContainer = prepare("CC(=O)OCC(=O)N");
+        QueryAtomContainer query = SMARTSParser.parse("[CX3](=O)[N,O]");
+        QueryAtomProgram[] programs = QueryAtomProgram.compile(query);
+        VF2IsomorphismTester.AtomMatcher matcher
+            = QueryAtomProgram.matcher(programs, new AtomInvariants(atomContainer));
+        Assert.assertTrue(matcher.matches(0, 1));
+        Assert.assertFalse(matcher.matches(0, 0));
+        Assert.assertTrue(matcher.matches(2, 7));
+        Assert.assertEquals(2, new VF2IsomorphismTester().getSubgraphMappings(atomContainer, query, matcher).count());
+    }
+
+    /**
+     * Properties of a molecule that was not prepared are left to the
+     * primitives, which fail in the same way.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testMatches_unset() throws Exception {
+        IAtomContainer atomContainer = new SmilesParser(DefaultChemObjectBuilder.getInstance())
+            .parseSmiles("CO");
+        QueryAtomProgram.compile(SMARTSParser.parse("[D2]").getAtom(0))
+                        .matches(new AtomInvariants(atomContainer), 0);
+    }
+
+    @Test public void testToString() throws Exception {
+        Assert.assertEquals("QueryAtomProgram(0:aromaticElement 6, 1:jumpIfFalse 3, 2:ringCount 2)",
+                            QueryAtomProgram.compile(SMARTSParser.parse("[c;R2]").getAtom(0)).toString());
+        Assert.assertEquals("QueryAtomProgram(0:element 6, 1:not)",
+                            QueryAtomProgram.compile(SMARTSParser.parse("[!#6]").getAtom(0)).toString());
+        Assert.assertEquals("QueryAtomProgram(0:recursive)",
+                            QueryAtomProgram.compile(SMARTSParser.parse("[$(C=O)]").getAtom(0)).toString());
+    }
+}
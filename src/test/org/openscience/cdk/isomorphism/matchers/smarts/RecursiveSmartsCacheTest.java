@@ -0,0 +1,102 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.isomorphism.matchers.smarts;
+
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.smiles.smarts.SMARTSQueryTool;
+
+/**
+ * @cdk.module test-smarts
+ */
+public class RecursiveSmartsCacheTest extends CDKTestCase {
+
+    private static IAtomContainer parse(String smiles) throws Exception {
+        return new SmilesParser(DefaultChemObjectBuilder.getInstance()).parseSmiles(smiles);
+    }
+
+    @Test public void testGetAtomContainer() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)O");
+        Assert.assertSame(atomContainer, new RecursiveSmartsCache(atomContainer).getAtomContainer());
+    }
+
+    @Test public void testSize() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)OCC(=O)N");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(new SMARTSQueryTool("[C;$(C=O)]O").matches(atomContainer, cache));
+        Assert.assertEquals(1, cache.size());
+        // the same fragment in another pattern
+        Assert.assertTrue(new SMARTSQueryTool("[C;$(C=O)]N").matches(atomContainer, cache));
+        Assert.assertEquals(1, cache.size());
+        // only the second fragment is new
+        Assert.assertFalse(new SMARTSQueryTool("[$(C=O);$(CS)]").matches(atomContainer, cache));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    /**
+     * The matches of a fragment are taken from the cache rather than
+     * searched again.
+     */
+    @Test public void testCachedMatches() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)OCC");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        SMARTSQueryTool tool = new SMARTSQueryTool("[$(C=O)]");
+        Assert.assertTrue(tool.matches(atomContainer, cache));
+        Assert.assertEquals(1, tool.countMatches());
+        cache.put("C=O", new BitSet());
+        Assert.assertFalse(new SMARTSQueryTool("[$(C=O)]").matches(atomContainer, cache));
+    }
+
+    @Test public void testClear() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)O");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        new SMARTSQueryTool("[$(C=O)]").matches(atomContainer, cache);
+        Assert.assertEquals(1, cache.size());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(new SMARTSQueryTool("[$(C=O)]").matches(atomContainer, cache));
+    }
+
+    @Test public void testGetInvariants() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)O");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        new SMARTSQueryTool("[$(C=O)]").matches(atomContainer, cache);
+        AtomInvariants invariants = cache.getInvariants();
+        Assert.assertSame(atomContainer, invariants.getAtomContainer());
+        Assert.assertSame(invariants, cache.getInvariants());
+        cache.clear();
+        Assert.assertNotSame(invariants, cache.getInvariants());
+    }
+
+    @Test public void testGetSmarts() throws Exception {
+        IAtomContainer atomContainer = parse("CC(=O)O");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        new SMARTSQueryTool("[$(C(=O)[OH]),$([CH3]C=O)]").matches(atomContainer, cache);
+        Assert.assertNotNull(cache.get("C(=O)[OH]"));
+        Assert.assertNotNull(cache.get("[CH3]C=O"));
+        Assert.assertEquals(2, cache.size());
+    }
+}
@@ -45,6 +45,7 @@ import org.openscience.cdk.coverage.CoreCoverageTest;
 import org.openscience.cdk.exception.CDKExceptionTest;
 import org.openscience.cdk.exception.NoSuchAtomExceptionTest;
 import org.openscience.cdk.exception.NoSuchAtomTypeExceptionTest;
+import org.openscience.cdk.graph.FrozenAtomContainerTest;
 import org.openscience.cdk.graph.PathToolsTest;
 import org.openscience.cdk.graph.SpanningTreeTest;
 import org.openscience.cdk.graph.matrix.AdjacencyMatrixTest;
@@ -110,6 +111,7 @@ import org.openscience.cdk.tools.periodictable.PeriodicTableTest;
     TetrahedralChiralityTest.class,
     DoubleBondStereochemistryTest.class,
     SpanningTreeTest.class,
+    FrozenAtomContainerTest.class,
     DynamicFactoryTest.class
 })
 public class McoreTests {}
@@ -45,6 +45,7 @@ import org.openscience.cdk.DefaultChemObjectBuilderTest;
 import org.openscience.cdk.ElectronContainerTest;
 import org.openscience.cdk.ElementTest;
 import org.openscience.cdk.FragmentAtomTest;
+import org.openscience.cdk.IndexedAtomContainerTest;
 import org.openscience.cdk.IsotopeTest;
 import org.openscience.cdk.LonePairTest;
 import org.openscience.cdk.MappingTest;
@@ -94,6 +95,7 @@ import org.openscience.cdk.protein.data.PDBStructureTest;
     DefaultChemObjectBuilderTest.class,
     ElectronContainerTest.class,
     ElementTest.class,
+    IndexedAtomContainerTest.class,
     IsotopeTest.class,
     LonePairTest.class,
     MappingTest.class,
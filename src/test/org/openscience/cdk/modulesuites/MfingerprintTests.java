@@ -30,7 +30,12 @@ import org.openscience.cdk.fingerprint.KlekotaRothFingerprinterTest;
 import org.openscience.cdk.fingerprint.MACCSFingerprinterTest;
 import org.openscience.cdk.fingerprint.PubchemFingerprinterTest;
 import org.openscience.cdk.fingerprint.ShortestPathFingerprinterTest;
+import org.openscience.cdk.fingerprint.SubstructureSearchIndexTest;
+import org.openscience.cdk.similarity.CountFingerprintDatabaseTest;
+import org.openscience.cdk.similarity.CountFingerprintSimilarityTest;
 import org.openscience.cdk.similarity.DistanceMomentTest;
+import org.openscience.cdk.similarity.FingerprintDatabaseTest;
+import org.openscience.cdk.similarity.FingerprintStoreTest;
 import org.openscience.cdk.similarity.LingoSimilarityTest;
 import org.openscience.cdk.similarity.TanimotoTest;
 
@@ -49,8 +54,13 @@ import org.openscience.cdk.similarity.TanimotoTest;
     PubchemFingerprinterTest.class,
     DistanceMomentTest.class,
     TanimotoTest.class,
+    FingerprintDatabaseTest.class,
+    FingerprintStoreTest.class,
+    CountFingerprintSimilarityTest.class,
+    CountFingerprintDatabaseTest.class,
     LingoSimilarityTest.class,
     KlekotaRothFingerprinterTest.class,
+    SubstructureSearchIndexTest.class,
 	ShortestPathFingerprinterTest.class
 })
 public class MfingerprintTests {}
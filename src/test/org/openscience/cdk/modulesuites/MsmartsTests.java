@@ -25,6 +25,10 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.openscience.cdk.coverage.SmartsCoverageTest;
 import org.openscience.cdk.isomorphism.SMARTSTest;
+import org.openscience.cdk.isomorphism.matchers.smarts.AtomInvariantsTest;
+import org.openscience.cdk.isomorphism.matchers.smarts.QueryAtomProgramTest;
+import org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsCacheTest;
+import org.openscience.cdk.smiles.smarts.SMARTSQuerySetTest;
 import org.openscience.cdk.smiles.smarts.SMARTSQueryToolTest;
 import org.openscience.cdk.smiles.smarts.parser.ParserTest;
 import org.openscience.cdk.smiles.smarts.parser.RecursiveTest;
@@ -46,6 +50,10 @@ import org.openscience.cdk.smiles.smarts.parser.visitor.SmartsQueryVisitorTest;
     RecursiveTest.class,
     SmartsDumpVisitorTest.class,
     SmartsQueryVisitorTest.class,
-    SMARTSQueryToolTest.class
+    SMARTSQueryToolTest.class,
+    SMARTSQuerySetTest.class,
+    RecursiveSmartsCacheTest.class,
+    AtomInvariantsTest.class,
+    QueryAtomProgramTest.class
 })
 public class MsmartsTests {}
@@ -31,6 +31,7 @@ import org.openscience.cdk.coverage.StandardCoverageTest;
 import org.openscience.cdk.dict.DictRefTest;
 import org.openscience.cdk.exception.InvalidSmilesExceptionTest;
 import org.openscience.cdk.exception.UnsupportedChemObjectExceptionTest;
+import org.openscience.cdk.fingerprint.BatchFingerprinterTest;
 import org.openscience.cdk.fingerprint.FingerprinterTest;
 import org.openscience.cdk.fingerprint.FingerprinterToolTest;
 import org.openscience.cdk.fingerprint.GraphOnlyFingerprinterTest;
@@ -53,7 +54,9 @@ import org.openscience.cdk.graph.rebond.BsptTest;
 import org.openscience.cdk.graph.rebond.PointTest;
 import org.openscience.cdk.graph.rebond.RebondToolTest;
 import org.openscience.cdk.isomorphism.IsomorphismTesterTest;
+import org.openscience.cdk.isomorphism.SubgraphMappingsTest;
 import org.openscience.cdk.isomorphism.UniversalIsomorphismTesterTest;
+import org.openscience.cdk.isomorphism.VF2IsomorphismTesterTest;
 import org.openscience.cdk.isomorphism.mcss.RGraphTest;
 import org.openscience.cdk.isomorphism.mcss.RMapTest;
 import org.openscience.cdk.isomorphism.mcss.RNodeTest;
@@ -77,6 +80,7 @@ import org.openscience.cdk.ringsearch.AllRingsFinderTest;
 import org.openscience.cdk.ringsearch.PathTest;
 import org.openscience.cdk.ringsearch.QueueTest;
 import org.openscience.cdk.ringsearch.RingPartitionerTest;
+import org.openscience.cdk.ringsearch.RingPerceptionTest;
 import org.openscience.cdk.ringsearch.SSSRFinderTest;
 import org.openscience.cdk.ringsearch.cyclebasis.CycleBasisTest;
 import org.openscience.cdk.ringsearch.cyclebasis.SimpleCycleBasisTest;
@@ -122,6 +126,8 @@ import org.openscience.cdk.validate.ProblemMarkerTest;
     MinimalPathIteratorTest.class,
     ConnectivityCheckerTest.class,
     UniversalIsomorphismTesterTest.class,
+    VF2IsomorphismTesterTest.class,
+    SubgraphMappingsTest.class,
     IsomorphismTesterTest.class,
     RMapTest.class,
     RGraphTest.class,
@@ -129,6 +135,7 @@ import org.openscience.cdk.validate.ProblemMarkerTest;
     MathToolsTest.class,
     AllRingsFinderTest.class,
     RingPartitionerTest.class,
+    RingPerceptionTest.class,
     SimpleCycleTest.class,
     SimpleCycleBasisTest.class,
     CycleBasisTest.class,
@@ -149,6 +156,7 @@ import org.openscience.cdk.validate.ProblemMarkerTest;
     HybridizationFingerprinterTest.class,
     GraphOnlyFingerprinterTest.class,
     FingerprinterToolTest.class,
+    BatchFingerprinterTest.class,
     ProblemMarkerTest.class,
     BondToolsTest.class,
     UnsupportedChemObjectExceptionTest.class,
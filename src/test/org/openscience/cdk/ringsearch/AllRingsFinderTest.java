@@ -336,5 +336,67 @@ public class AllRingsFinderTest extends CDKTestCase
       Assert.assertEquals(135, ringSet.getAtomContainerCount());
     }
 
-}
+    private IAtomContainer readMDL(String filename) throws Exception {
+        InputStream ins = this.getClass().getClassLoader().getResourceAsStream(filename);
+        MDLV2000Reader reader = new MDLV2000Reader(ins);
+        IChemFile chemFile = (IChemFile) reader.read(new ChemFile());
+        return chemFile.getChemSequence(0).getChemModel(0).getMoleculeSet().getAtomContainer(0);
+    }
+
+    @Test public void testGetPathLimit() {
+        AllRingsFinder arf = new AllRingsFinder();
+        Assert.assertEquals(0, arf.getPathLimit());
+        Assert.assertSame(arf, arf.setPathLimit(1000));
+        Assert.assertEquals(1000, arf.getPathLimit());
+    }
+
+    @Test public void testSetPathLimit_int() throws Exception {
+        AllRingsFinder arf = new AllRingsFinder(false).setPathLimit(1000);
+        Assert.assertEquals(3, arf.findAllRings(readMDL("data/mdl/azulene.mol")).getAtomContainerCount());
+        Assert.assertEquals(20, arf.findAllRings(readMDL("data/mdl/porphyrin.mol")).getAtomContainerCount());
+        Assert.assertEquals(14, arf.findAllRings(readMDL("data/mdl/choloylcoa.mol")).getAtomContainerCount());
+
+        arf.setPathLimit(10);
+        try {
+            arf.findAllRings(readMDL("data/mdl/porphyrin.mol"));
+            Assert.fail("The path limit was not exceeded");
+        } catch (PathLimitExceededException exception) {
+            Assert.assertEquals(10, exception.getPathLimit());
+        }
+    }
 
+    @Test public void testSetPathLimit_rings() throws Exception {
+        IAtomContainer molecule = readMDL("data/mdl/porphyrin.mol");
+        IRingSet rings = new AllRingsFinder(false).setPathLimit(1000).findAllRings(molecule);
+        for (IAtomContainer ring : rings.atomContainers()) {
+            Assert.assertEquals(ring.getAtomCount(), ring.getBondCount());
+            for (int i = 0; i < ring.getBondCount(); i++) {
+                // the atoms and bonds are in the order of the ring
+                IBond bond = ring.getBond(i);
+                Assert.assertTrue(bond.contains(ring.getAtom(i)));
+                Assert.assertTrue(bond.contains(ring.getAtom((i + 1) % ring.getAtomCount())));
+            }
+        }
+    }
+
+    @Test public void testSetPathLimit_maxRingSize() throws Exception {
+        AllRingsFinder arf = new AllRingsFinder(false).setPathLimit(100000);
+        Assert.assertEquals(12, arf.findAllRings(readMDL("data/mdl/ring_03419.mol"), 6).getAtomContainerCount());
+        Assert.assertEquals(50, arf.findAllRings(readMDL("data/mdl/four-ring-5x10.mol"), 4).getAtomContainerCount());
+        Assert.assertEquals(135, arf.findAllRings(readMDL("data/mdl/four-ring-5x10.mol"), 6).getAtomContainerCount());
+    }
+
+    @Test public void testSetFallbackToRelevantRings_boolean() throws Exception {
+        AllRingsFinder arf = new AllRingsFinder(false).setPathLimit(10);
+        Assert.assertFalse(arf.isFallbackToRelevantRings());
+        Assert.assertSame(arf, arf.setFallbackToRelevantRings(true));
+        Assert.assertTrue(arf.isFallbackToRelevantRings());
+
+        IAtomContainer molecule = readMDL("data/mdl/porphyrin.mol");
+        IRingSet rings = arf.findAllRings(molecule);
+        Assert.assertEquals(new SSSRFinder(molecule).findRelevantRings().getAtomContainerCount(),
+                            rings.getAtomContainerCount());
+        Assert.assertEquals(4, arf.findAllRings(molecule, 5).getAtomContainerCount());
+    }
+
+}
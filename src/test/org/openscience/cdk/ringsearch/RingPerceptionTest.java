@@ -0,0 +1,160 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.ringsearch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.DefaultChemObjectBuilder;
+import org.openscience.cdk.aromaticity.CDKHueckelAromaticityDetector;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IRingSet;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.templates.MoleculeFactory;
+import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
+
+/**
+ * @cdk.module test-standard
+ */
+public class RingPerceptionTest extends CDKTestCase {
+
+    private static IAtomContainer parse(String smiles) throws Exception {
+        return new SmilesParser(DefaultChemObjectBuilder.getInstance()).parseSmiles(smiles);
+    }
+
+    @Test public void testGetInstance() throws Exception {
+        IAtomContainer molecule = parse("c1ccccc1CC");
+        RingPerception rings = RingPerception.getInstance(molecule);
+        Assert.assertSame(molecule, rings.getAtomContainer());
+        Assert.assertSame(rings, molecule.getProperty(CDKConstants.RING_PERCEPTION));
+        Assert.assertSame(rings, RingPerception.getInstance(molecule));
+        Assert.assertSame(rings.getSSSR(), RingPerception.getInstance(molecule).getSSSR());
+    }
+
+    @Test public void testGetInstance_changed() throws Exception {
+        IAtomContainer molecule = parse("C1CCCCC1CC");
+        RingPerception rings = RingPerception.getInstance(molecule);
+        Assert.assertTrue(rings.isValid());
+        molecule.removeAtomAndConnectedElectronContainers(molecule.getAtom(7));
+        Assert.assertFalse(rings.isValid());
+        RingPerception changed = RingPerception.getInstance(molecule);
+        Assert.assertNotSame(rings, changed);
+        Assert.assertEquals(6, changed.getRingBonds().cardinality());
+
+        // a clone has its own atoms and bonds
+        IAtomContainer clone = molecule.clone();
+        Assert.assertNotSame(changed, RingPerception.getInstance(clone));
+        Assert.assertSame(changed, RingPerception.getInstance(molecule));
+    }
+
+    @Test public void testSerialization() throws Exception {
+        IAtomContainer molecule = parse("c1ccccc1O");
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(molecule);
+        Assert.assertTrue(CDKHueckelAromaticityDetector.detectAromaticity(molecule));
+        Assert.assertNotNull(molecule.getProperty(CDKConstants.RING_PERCEPTION));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(molecule);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        IAtomContainer copy = (IAtomContainer) in.readObject();
+        in.close();
+
+        // the rings are perceived again for the copy
+        RingPerception rings = RingPerception.getInstance(copy);
+        Assert.assertSame(copy, rings.getAtomContainer());
+        Assert.assertSame(rings, copy.getProperty(CDKConstants.RING_PERCEPTION));
+        Assert.assertTrue(rings.isValid());
+        Assert.assertEquals(6, rings.getRingBonds().cardinality());
+        Assert.assertEquals(1, rings.getSSSR().getAtomContainerCount());
+    }
+
+    @Test public void testInvalidate() throws Exception {
+        IAtomContainer molecule = parse("C1CCCCC1");
+        RingPerception rings = RingPerception.getInstance(molecule);
+        RingPerception.invalidate(molecule);
+        Assert.assertNull(molecule.getProperty(CDKConstants.RING_PERCEPTION));
+        Assert.assertFalse(rings.isValid());
+        Assert.assertNotSame(rings, RingPerception.getInstance(molecule));
+    }
+
+    @Test public void testGetRingAtoms() throws Exception {
+        // two rings joined by a chain, with a substituent
+        IAtomContainer molecule = parse("C1CC1CCC2CCC2C");
+        BitSet expected = new BitSet();
+        expected.set(0, 3);
+        expected.set(5, 9);
+        Assert.assertEquals(expected, RingPerception.getInstance(molecule).getRingAtoms());
+        Assert.assertTrue(RingPerception.getInstance(parse("CCCC")).getRingAtoms().isEmpty());
+    }
+
+    @Test public void testGetRingBonds() throws Exception {
+        // the bond between the rings of biphenyl is a bridge
+        IAtomContainer molecule = parse("c1ccccc1-c2ccccc2");
+        BitSet ringBonds = RingPerception.getInstance(molecule).getRingBonds();
+        Assert.assertEquals(12, ringBonds.cardinality());
+        IBond bridge = molecule.getBond(molecule.getAtom(5), molecule.getAtom(6));
+        Assert.assertFalse(ringBonds.get(molecule.getBondNumber(bridge)));
+
+        // same as the spanning tree
+        molecule = MoleculeFactory.makeSteran();
+        ringBonds = RingPerception.getInstance(molecule).getRingBonds();
+        Assert.assertEquals(molecule.getBondCount(), ringBonds.cardinality());
+    }
+
+    @Test public void testGetSSSR() throws Exception {
+        IAtomContainer molecule = MoleculeFactory.makeAlphaPinene();
+        IRingSet sssr = RingPerception.getInstance(molecule).getSSSR();
+        Assert.assertEquals(2, sssr.getAtomContainerCount());
+    }
+
+    @Test public void testGetEssentialRings() throws Exception {
+        IAtomContainer molecule = parse("c1ccc2ccccc2c1");
+        Assert.assertEquals(2, RingPerception.getInstance(molecule).getEssentialRings().getAtomContainerCount());
+    }
+
+    @Test public void testGetRelevantRings() throws Exception {
+        // the SSSR of cubane is not unique
+        IAtomContainer molecule = parse("C12C3C4C1C5C2C3C45");
+        RingPerception rings = RingPerception.getInstance(molecule);
+        Assert.assertEquals(5, rings.getSSSR().getAtomContainerCount());
+        Assert.assertEquals(6, rings.getRelevantRings().getAtomContainerCount());
+    }
+
+    @Test public void testGetAllRings() throws Exception {
+        IAtomContainer molecule = parse("c1ccc2ccccc2c1");
+        RingPerception rings = RingPerception.getInstance(molecule);
+        Assert.assertEquals(3, rings.getAllRings().getAtomContainerCount());
+        Assert.assertSame(rings.getAllRings(), rings.getAllRings());
+    }
+
+    @Test public void testGetRingSystems() throws Exception {
+        IAtomContainer molecule = parse("c1ccc2ccccc2c1CCC1CC1");
+        Assert.assertEquals(2, RingPerception.getInstance(molecule).getRingSystems().size());
+    }
+}
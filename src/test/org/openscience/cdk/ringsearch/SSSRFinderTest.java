@@ -33,13 +33,16 @@ import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.CDKTestCase;
 import org.openscience.cdk.DefaultChemObjectBuilder;
 import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.graph.MoleculeGraphs;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IChemObject;
 import org.openscience.cdk.interfaces.IRing;
 import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.io.IChemObjectReader.Mode;
 import org.openscience.cdk.io.MDLV2000Reader;
+import org.openscience.cdk.ringsearch.cyclebasis.CycleBasis;
 import org.openscience.cdk.smiles.SmilesParser;
 import org.openscience.cdk.templates.MoleculeFactory;
 import org.openscience.cdk.tools.ILoggingTool;
@@ -230,6 +233,80 @@ public class SSSRFinderTest extends CDKTestCase {
     }
 
 
+    @Test public void testGetSSSRWeightVector() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer molecule = sp.parseSmiles("C1CC2CCC1C2CC1CCCCCCC1");
+        Assert.assertArrayEquals(new int[]{5, 5, 8}, new SSSRFinder(molecule).getSSSRWeightVector());
+        Assert.assertArrayEquals(new int[]{5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5,
+                                           6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6},
+                                 new SSSRFinder(createBuckyBall()).getSSSRWeightVector());
+    }
+
+    /**
+     * The SSSR of cubane is not unique: any five of its six faces form one.
+     */
+    @Test public void testCubane() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer molecule = sp.parseSmiles("C12C3C4C1C5C2C3C45");
+        SSSRFinder finder = new SSSRFinder(molecule);
+        Assert.assertEquals(5, finder.findSSSR().getAtomContainerCount());
+        Assert.assertEquals(6, finder.findRelevantRings().getAtomContainerCount());
+        Assert.assertEquals(0, finder.findEssentialRings().getAtomContainerCount());
+    }
+
+    /**
+     * The rings of the SSSR have their atoms and bonds in the order of the
+     * ring, and the bonds of the molecule.
+     */
+    @Test public void testRingOrder() throws Exception {
+        IAtomContainer molecule = MoleculeFactory.makeSteran();
+        for (IAtomContainer ring : new SSSRFinder(molecule).findSSSR().atomContainers()) {
+            Assert.assertEquals(ring.getAtomCount(), ring.getBondCount());
+            for (int i = 0; i < ring.getBondCount(); i++) {
+                IBond bond = ring.getBond(i);
+                Assert.assertTrue(molecule.contains(bond));
+                Assert.assertTrue(bond.contains(ring.getAtom(i)));
+                Assert.assertTrue(bond.contains(ring.getAtom((i + 1) % ring.getAtomCount())));
+            }
+        }
+    }
+
+    /**
+     * Two bonds between the same atoms do not form a ring.
+     */
+    @Test public void testDuplicateBond() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer molecule = sp.parseSmiles("C1CCCCC1CC");
+        molecule.addBond(6, 7, IBond.Order.SINGLE);
+        SSSRFinder finder = new SSSRFinder(molecule);
+        Assert.assertEquals(1, finder.findSSSR().getAtomContainerCount());
+        Assert.assertEquals(1, finder.findRelevantRings().getAtomContainerCount());
+        Assert.assertEquals(1, finder.findEssentialRings().getAtomContainerCount());
+    }
+
+    /**
+     * The rings are the same as the ones of the cycle basis of the molecule
+     * graph, which the SSSRFinder used before.
+     */
+    @Test public void testSameAsCycleBasis() throws Exception {
+        String[] filenames = {"data/mdl/ring_03419.mol", "data/mdl/too.many.rings.mol",
+                              "data/mdl/figueras-test-buried.mol", "data/mdl/porphyrin.mol",
+                              "data/mdl/buckyball.mol"};
+        for (String filename : filenames) {
+            InputStream ins = this.getClass().getClassLoader().getResourceAsStream(filename);
+            MDLV2000Reader reader = new MDLV2000Reader(ins, Mode.STRICT);
+            IAtomContainer molecule = (IAtomContainer) reader.read((IChemObject) new AtomContainer());
+            CycleBasis basis = new CycleBasis(MoleculeGraphs.getMoleculeGraph(molecule));
+            SSSRFinder finder = new SSSRFinder(molecule);
+            Assert.assertArrayEquals(filename, basis.weightVector(), finder.getSSSRWeightVector());
+            Assert.assertEquals(filename, basis.relevantCycles().size(),
+                                finder.findRelevantRings().getAtomContainerCount());
+            Assert.assertEquals(filename, basis.essentialCycles().size(),
+                                finder.findEssentialRings().getAtomContainerCount());
+            Assert.assertFalse(filename, checkForDuplicateRingsInSet(finder.findRelevantRings()));
+        }
+    }
+
      /**
       * Convenience method for giving a string representation
       * of this ring based on the number of the atom in a given
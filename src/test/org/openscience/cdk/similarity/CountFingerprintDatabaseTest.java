@@ -0,0 +1,154 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.fingerprint.ICountFingerprint;
+import org.openscience.cdk.fingerprint.IntArrayCountFingerprint;
+
+/**
+ * @cdk.module test-fingerprint
+ */
+public class CountFingerprintDatabaseTest extends CDKTestCase {
+
+    private static final CountFingerprintSimilarity[] MEASURES = {
+        CountFingerprintSimilarity.TANIMOTO,
+        CountFingerprintSimilarity.DICE,
+        CountFingerprintSimilarity.COSINE,
+        CountFingerprintSimilarity.tversky(0.9, 0.1)
+    };
+
+    private static List<ICountFingerprint> fingerprints;
+    private static CountFingerprintDatabase database;
+
+    @BeforeClass public static void setUp() {
+        Random random = new Random(42);
+        fingerprints = new ArrayList<ICountFingerprint>();
+        database = new CountFingerprintDatabase();
+        for (int i = 0; i < 2500; i++) {
+            Map<String, Integer> features = new HashMap<String, Integer>();
+            int n = random.nextInt(30);
+            for (int j = 0; j < n; j++)
+                features.put("f" + random.nextInt(60), 1 + random.nextInt(5));
+            ICountFingerprint fingerprint = new IntArrayCountFingerprint(features);
+            fingerprints.add(fingerprint);
+            Assert.assertEquals(i, database.add(fingerprint));
+        }
+        // a duplicate
+        fingerprints.add(fingerprints.get(7));
+        database.add(fingerprints.get(7));
+    }
+
+    private static List<FingerprintDatabase.Hit> naive(ICountFingerprint query,
+                                                       CountFingerprintSimilarity measure,
+                                                       double threshold) {
+        List<FingerprintDatabase.Hit> hits = new ArrayList<FingerprintDatabase.Hit>();
+        for (int i = 0; i < fingerprints.size(); i++) {
+            double similarity = measure.calculate(query, fingerprints.get(i));
+            if (similarity >= threshold) hits.add(new FingerprintDatabase.Hit(i, similarity));
+        }
+        Collections.sort(hits);
+        return hits;
+    }
+
+    private static void assertHits(List<FingerprintDatabase.Hit> expected,
+                                   List<FingerprintDatabase.Hit> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getIndex(), actual.get(i).getIndex());
+            Assert.assertEquals(expected.get(i).getSimilarity(), actual.get(i).getSimilarity(), 1e-12);
+        }
+    }
+
+    @Test public void testAdd() {
+        CountFingerprintDatabase database = new CountFingerprintDatabase();
+        Assert.assertEquals(0, database.getFingerprintCount());
+        Assert.assertEquals(0, database.add(fingerprints.get(0)));
+        Assert.assertEquals(1, database.add(new IntArrayCountFingerprint()));
+        Assert.assertEquals(2, database.getFingerprintCount());
+    }
+
+    @Test public void testAdd_unordered() {
+        CountFingerprintDatabase database = new CountFingerprintDatabase();
+        database.add(CountFingerprintSimilarityTest.unordered(new int[]{5, -3, 9, 5},
+                                                             new int[]{2, 4, 1, 3}));
+        ICountFingerprint query = CountFingerprintSimilarityTest.unordered(new int[]{9, 5},
+                                                                           new int[]{3, 1});
+        // the bins with hash 5 are merged into a count of 5
+        Assert.assertEquals(8.0 / (25 + 16 + 1 + 10 - 8),
+                            database.calculate(query, 0, CountFingerprintSimilarity.TANIMOTO), 1e-12);
+    }
+
+    @Test public void testCalculate() {
+        for (CountFingerprintSimilarity measure : MEASURES) {
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(measure.calculate(fingerprints.get(3), fingerprints.get(i)),
+                                    database.calculate(fingerprints.get(3), i, measure), 1e-12);
+            }
+        }
+    }
+
+    @Test public void testSearch() {
+        for (CountFingerprintSimilarity measure : MEASURES) {
+            for (double threshold : new double[]{0, 0.3, 0.7, 1}) {
+                for (int q = 0; q < 20; q++) {
+                    ICountFingerprint query = fingerprints.get(q);
+                    assertHits(naive(query, measure, threshold),
+                               database.search(query, measure, threshold));
+                }
+            }
+        }
+    }
+
+    @Test public void testSearch_threads() {
+        CountFingerprintDatabase database = new CountFingerprintDatabase();
+        for (ICountFingerprint fingerprint : fingerprints) database.add(fingerprint);
+        database.setNumberOfThreads(4);
+        ICountFingerprint query = fingerprints.get(7);
+        List<FingerprintDatabase.Hit> hits = database.search(query, CountFingerprintSimilarity.TANIMOTO, 0.5);
+        assertHits(naive(query, CountFingerprintSimilarity.TANIMOTO, 0.5), hits);
+        Assert.assertEquals(7, hits.get(0).getIndex());
+        Assert.assertEquals(fingerprints.size() - 1, hits.get(1).getIndex());
+    }
+
+    @Test public void testSearchTop() {
+        for (CountFingerprintSimilarity measure : MEASURES) {
+            for (int q = 0; q < 20; q++) {
+                ICountFingerprint query = fingerprints.get(q);
+                List<FingerprintDatabase.Hit> expected = naive(query, measure, Double.NEGATIVE_INFINITY);
+                assertHits(expected.subList(0, 10), database.searchTop(query, measure, 10));
+            }
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSearchTop_zero() {
+        database.searchTop(fingerprints.get(0), CountFingerprintSimilarity.TANIMOTO, 0);
+    }
+}
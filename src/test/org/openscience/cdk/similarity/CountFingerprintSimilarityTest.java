@@ -0,0 +1,115 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.fingerprint.ICountFingerprint;
+import org.openscience.cdk.fingerprint.IntArrayCountFingerprint;
+
+/**
+ * @cdk.module test-fingerprint
+ */
+public class CountFingerprintSimilarityTest extends CDKTestCase {
+
+    static ICountFingerprint fingerprint(Object... features) {
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < features.length; i += 2)
+            map.put((String) features[i], (Integer) features[i + 1]);
+        return new IntArrayCountFingerprint(map);
+    }
+
+    /**
+     * A count fingerprint with bins in the given order.
+     */
+    static ICountFingerprint unordered(final int[] hashes, final int[] counts) {
+        return new ICountFingerprint() {
+            public long size() { return 4294967296L; }
+            public int numOfPopulatedbins() { return hashes.length; }
+            public int getCount(int index) { return counts[index]; }
+            public int getHash(int index) { return hashes[index]; }
+            public void merge(ICountFingerprint fp) { throw new UnsupportedOperationException(); }
+            public void setBehaveAsBitFingerprint(boolean behaveAsBitFingerprint) {
+                throw new UnsupportedOperationException();
+            }
+            public boolean hasHash(int hash) { throw new UnsupportedOperationException(); }
+            public int getCountForHash(int hash) { throw new UnsupportedOperationException(); }
+        };
+    }
+
+    @Test public void testDot() {
+        ICountFingerprint fp1 = fingerprint("A", 3, "B", 1, "C", 2);
+        ICountFingerprint fp2 = fingerprint("A", 4, "C", 5, "D", 7);
+        Assert.assertEquals(3 * 4 + 2 * 5, CountFingerprintSimilarity.dot(fp1, fp2));
+        Assert.assertEquals(3 * 4 + 2 * 5, CountFingerprintSimilarity.dot(fp2, fp1));
+        Assert.assertEquals(9 + 1 + 4, CountFingerprintSimilarity.squares(fp1));
+        Assert.assertEquals(0, CountFingerprintSimilarity.dot(fp1, new IntArrayCountFingerprint()));
+    }
+
+    @Test public void testDot_unordered() {
+        ICountFingerprint fp1 = unordered(new int[]{5, -3, 9}, new int[]{2, 4, 1});
+        ICountFingerprint fp2 = unordered(new int[]{9, 5, 1}, new int[]{3, 1, 8});
+        Assert.assertEquals(2 * 1 + 1 * 3, CountFingerprintSimilarity.dot(fp1, fp2));
+    }
+
+    @Test public void testDot_largeCounts() {
+        ICountFingerprint fp1 = fingerprint("A", 100000);
+        Assert.assertEquals(10000000000L, CountFingerprintSimilarity.dot(fp1, fp1));
+        Assert.assertEquals(1.0, CountFingerprintSimilarity.TANIMOTO.calculate(fp1, fp1), 1e-12);
+    }
+
+    @Test public void testCalculate() {
+        ICountFingerprint fp1 = fingerprint("A", 3, "B", 1);
+        ICountFingerprint fp2 = fingerprint("A", 4);
+        // xy = 12, xx = 10, yy = 16
+        Assert.assertEquals(12.0 / 14, CountFingerprintSimilarity.TANIMOTO.calculate(fp1, fp2), 1e-12);
+        Assert.assertEquals(24.0 / 26, CountFingerprintSimilarity.DICE.calculate(fp1, fp2), 1e-12);
+        Assert.assertEquals(12 / Math.sqrt(160), CountFingerprintSimilarity.COSINE.calculate(fp1, fp2), 1e-12);
+        Assert.assertEquals(Tanimoto.calculate(fp1, fp2),
+                            CountFingerprintSimilarity.TANIMOTO.calculate(fp1, fp2), 1e-12);
+    }
+
+    @Test public void testCalculate_empty() {
+        ICountFingerprint empty = new IntArrayCountFingerprint();
+        Assert.assertEquals(0.0, CountFingerprintSimilarity.TANIMOTO.calculate(empty, empty), 0.0);
+        Assert.assertEquals(0.0, CountFingerprintSimilarity.DICE.calculate(empty, empty), 0.0);
+        Assert.assertEquals(0.0, CountFingerprintSimilarity.COSINE.calculate(empty, fingerprint("A", 1)), 0.0);
+    }
+
+    @Test public void testTversky() {
+        ICountFingerprint fp1 = fingerprint("A", 3, "B", 1);
+        ICountFingerprint fp2 = fingerprint("A", 4, "C", 2);
+        Assert.assertEquals(CountFingerprintSimilarity.TANIMOTO.calculate(fp1, fp2),
+                            CountFingerprintSimilarity.tversky(1, 1).calculate(fp1, fp2), 1e-12);
+        Assert.assertEquals(CountFingerprintSimilarity.DICE.calculate(fp1, fp2),
+                            CountFingerprintSimilarity.tversky(0.5, 0.5).calculate(fp1, fp2), 1e-12);
+        // xy = 12, xx = 10, yy = 20
+        Assert.assertEquals(12.0 / (0.9 * -2 + 0.1 * 8 + 12),
+                            CountFingerprintSimilarity.tversky(0.9, 0.1).calculate(fp1, fp2), 1e-12);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTversky_negative() {
+        CountFingerprintSimilarity.tversky(-1, 1);
+    }
+}
@@ -0,0 +1,291 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.fingerprint.BitSetFingerprint;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.templates.MoleculeFactory;
+
+/**
+ * @cdk.module test-fingerprint
+ */
+public class FingerprintDatabaseTest extends CDKTestCase {
+
+    private static final int SIZE = 200;
+
+    private static List<IBitFingerprint> fingerprints;
+    private static FingerprintDatabase database;
+
+    @BeforeClass public static void setUp() {
+        Random random = new Random(42);
+        fingerprints = new ArrayList<IBitFingerprint>();
+        database = new FingerprintDatabase(SIZE);
+        for (int i = 0; i < 500; i++) {
+            IBitFingerprint fingerprint = new BitSetFingerprint(SIZE);
+            double density = random.nextDouble() * 0.5;
+            for (int bit = 0; bit < SIZE; bit++) {
+                if (random.nextDouble() < density) fingerprint.set(bit);
+            }
+            fingerprints.add(fingerprint);
+            database.add(fingerprint);
+        }
+        // an empty fingerprint and a duplicate
+        fingerprints.add(new BitSetFingerprint(SIZE));
+        database.add(new BitSetFingerprint(SIZE));
+        fingerprints.add(fingerprints.get(0));
+        database.add(fingerprints.get(0));
+    }
+
+    private static double tanimoto(IBitFingerprint fp1, IBitFingerprint fp2) {
+        if (fp1.cardinality() == 0 && fp2.cardinality() == 0) return 0;
+        return Tanimoto.calculate(fp1, fp2);
+    }
+
+    /**
+     * Brute force search for the hits with at least the given similarity.
+     */
+    private static List<FingerprintDatabase.Hit> expected(IBitFingerprint query, double threshold) {
+        List<FingerprintDatabase.Hit> hits = new ArrayList<FingerprintDatabase.Hit>();
+        for (int i = 0; i < fingerprints.size(); i++) {
+            double similarity = tanimoto(query, fingerprints.get(i));
+            if (similarity >= threshold) hits.add(new FingerprintDatabase.Hit(i, similarity));
+        }
+        Collections.sort(hits);
+        return hits;
+    }
+
+    private static void assertHits(List<FingerprintDatabase.Hit> expected,
+                                   List<FingerprintDatabase.Hit> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getIndex(), actual.get(i).getIndex());
+            Assert.assertEquals(expected.get(i).getSimilarity(), actual.get(i).getSimilarity(), 1e-12);
+        }
+    }
+
+    @Test public void testFingerprintDatabase_int() {
+        FingerprintDatabase database = new FingerprintDatabase(1024);
+        Assert.assertEquals(1024, database.getSize());
+        Assert.assertEquals(0, database.getFingerprintCount());
+    }
+
+    @Test public void testFingerprintDatabase_int_LongBuffer() {
+        LongBuffer buffer = LongBuffer.allocate(2 * 4);
+        buffer.put(0, 0x5L);
+        buffer.put(3, 0x1L << 63);
+        buffer.put(5, 0x3L);
+        FingerprintDatabase database = new FingerprintDatabase(256, buffer);
+        Assert.assertEquals(2, database.getFingerprintCount());
+        Assert.assertEquals(3, database.getCardinality(0));
+        Assert.assertEquals(2, database.getCardinality(1));
+        IBitFingerprint fingerprint = database.getFingerprint(0);
+        Assert.assertTrue(fingerprint.get(0));
+        Assert.assertTrue(fingerprint.get(2));
+        Assert.assertTrue(fingerprint.get(255));
+        Assert.assertEquals(1.0, database.searchTop(fingerprint, 1).get(0).getSimilarity(), 0.0);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAdd_readOnly() {
+        new FingerprintDatabase(64, LongBuffer.allocate(1)).add(new BitSetFingerprint(64));
+    }
+
+    @Test public void testAdd() {
+        FingerprintDatabase database = new FingerprintDatabase(SIZE);
+        for (int i = 0; i < 40; i++) Assert.assertEquals(i, database.add(fingerprints.get(i)));
+        Assert.assertEquals(40, database.getFingerprintCount());
+    }
+
+    /**
+     * Searching rearranges the stored fingerprints, indices must not change.
+     */
+    @Test public void testAdd_afterSearch() {
+        FingerprintDatabase database = new FingerprintDatabase(SIZE);
+        for (int i = 0; i < 100; i++) database.add(fingerprints.get(i));
+        IBitFingerprint query = fingerprints.get(42);
+        Assert.assertEquals(42, database.searchTop(query, 1).get(0).getIndex());
+        for (int i = 100; i < 200; i++) Assert.assertEquals(i, database.add(fingerprints.get(i)));
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals(fingerprints.get(i).asBitSet(), database.getFingerprint(i).asBitSet());
+            Assert.assertEquals(fingerprints.get(i).cardinality(), database.getCardinality(i));
+        }
+        query = fingerprints.get(150);
+        Assert.assertEquals(150, database.search(query, 1.0).get(0).getIndex());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAdd_tooLong() {
+        IBitFingerprint fingerprint = new BitSetFingerprint();
+        fingerprint.set(SIZE);
+        new FingerprintDatabase(SIZE).add(fingerprint);
+    }
+
+    @Test public void testGetFingerprint() {
+        for (int i = 0; i < fingerprints.size(); i++) {
+            Assert.assertEquals(fingerprints.get(i).asBitSet(), database.getFingerprint(i).asBitSet());
+        }
+    }
+
+    @Test public void testGetCardinality() {
+        for (int i = 0; i < fingerprints.size(); i++) {
+            Assert.assertEquals(fingerprints.get(i).cardinality(), database.getCardinality(i));
+        }
+    }
+
+    @Test public void testCalculate() throws Exception {
+        Fingerprinter fingerprinter = new Fingerprinter();
+        IBitFingerprint indole = fingerprinter.getBitFingerprint(MoleculeFactory.makeIndole());
+        IBitFingerprint pyrrole = fingerprinter.getBitFingerprint(MoleculeFactory.makePyrrole());
+        FingerprintDatabase database = new FingerprintDatabase(fingerprinter.getSize());
+        database.add(indole);
+        Assert.assertEquals(Tanimoto.calculate(indole, pyrrole), database.calculate(pyrrole, 0), 1e-12);
+        Assert.assertEquals(1.0, database.calculate(indole, 0), 0.0);
+    }
+
+    @Test public void testSearch() {
+        for (int q = 0; q < 20; q++) {
+            IBitFingerprint query = fingerprints.get(q * 7);
+            for (double threshold : new double[]{0.0, 0.3, 0.5, 0.8, 1.0}) {
+                assertHits(expected(query, threshold), database.search(query, threshold));
+            }
+        }
+    }
+
+    @Test public void testSearch_threads() {
+        database.setNumberOfThreads(3);
+        try {
+            for (int q = 0; q < 5; q++) {
+                IBitFingerprint query = fingerprints.get(q * 11);
+                assertHits(expected(query, 0.2), database.search(query, 0.2));
+            }
+            double[][] matrix = database.calculateMatrix(database);
+            Assert.assertEquals(1.0, matrix[3][3], 0.0);
+            Assert.assertEquals(tanimoto(fingerprints.get(7), fingerprints.get(99)), matrix[7][99], 1e-12);
+        } finally {
+            database.setNumberOfThreads(1);
+        }
+    }
+
+    /**
+     * Brute force search for the fingerprints with all bits of the query.
+     */
+    private static List<Integer> expectedScreen(IBitFingerprint query) {
+        List<Integer> candidates = new ArrayList<Integer>();
+        for (int i = 0; i < fingerprints.size(); i++) {
+            IBitFingerprint fingerprint = new BitSetFingerprint(fingerprints.get(i));
+            fingerprint.and(query);
+            if (fingerprint.equals(query)) candidates.add(i);
+        }
+        return candidates;
+    }
+
+    /**
+     * A query with some of the bits of a fingerprint of the database.
+     */
+    private static IBitFingerprint subset(IBitFingerprint fingerprint, int seed) {
+        Random random = new Random(seed);
+        IBitFingerprint query = new BitSetFingerprint(SIZE);
+        for (int bit : fingerprint.getSetbits())
+            if (random.nextInt(4) == 0) query.set(bit);
+        return query;
+    }
+
+    private static void assertScreen(List<Integer> expected, int[] actual) {
+        Assert.assertEquals(expected.size(), actual.length);
+        for (int i = 0; i < actual.length; i++)
+            Assert.assertEquals(expected.get(i).intValue(), actual[i]);
+    }
+
+    @Test public void testScreen() {
+        for (int q = 0; q < 20; q++) {
+            IBitFingerprint query = subset(fingerprints.get(q * 17), q);
+            int[] candidates = database.screen(query);
+            assertScreen(expectedScreen(query), candidates);
+            Assert.assertTrue(candidates.length > 0);
+        }
+        // every fingerprint has the bits of the empty fingerprint
+        Assert.assertEquals(fingerprints.size(), database.screen(new BitSetFingerprint(SIZE)).length);
+        // and the same bits in a buffer
+        LongBuffer buffer = LongBuffer.allocate(2 * 4);
+        buffer.put(0, 0x5L);
+        buffer.put(4, 0x7L);
+        FingerprintDatabase stored = new FingerprintDatabase(256, buffer);
+        IBitFingerprint query = new BitSetFingerprint(256);
+        query.set(1);
+        Assert.assertArrayEquals(new int[]{1}, stored.screen(query));
+        query.set(1, false);
+        query.set(2);
+        Assert.assertArrayEquals(new int[]{0, 1}, stored.screen(query));
+    }
+
+    @Test public void testScreen_threads() {
+        database.setNumberOfThreads(3);
+        try {
+            for (int q = 0; q < 5; q++) {
+                IBitFingerprint query = subset(fingerprints.get(q * 11), q);
+                assertScreen(expectedScreen(query), database.screen(query));
+            }
+        } finally {
+            database.setNumberOfThreads(1);
+        }
+    }
+
+    @Test public void testSearchTop() {
+        for (int q = 0; q < 20; q++) {
+            IBitFingerprint query = fingerprints.get(q * 13);
+            List<FingerprintDatabase.Hit> all = expected(query, 0.0);
+            for (int k : new int[]{1, 5, 50, 1000}) {
+                assertHits(all.subList(0, Math.min(k, all.size())), database.searchTop(query, k));
+            }
+        }
+        // the empty fingerprint
+        List<FingerprintDatabase.Hit> hits = database.searchTop(new BitSetFingerprint(SIZE), 3);
+        Assert.assertEquals(3, hits.size());
+        Assert.assertEquals(0.0, hits.get(0).getSimilarity(), 0.0);
+    }
+
+    @Test public void testCalculateMatrix() {
+        FingerprintDatabase rows = new FingerprintDatabase(SIZE);
+        for (int i = 0; i < 10; i++) rows.add(fingerprints.get(i));
+        double[][] matrix = rows.calculateMatrix(database);
+        Assert.assertEquals(10, matrix.length);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(fingerprints.size(), matrix[i].length);
+            for (int j = 0; j < fingerprints.size(); j++) {
+                Assert.assertEquals(tanimoto(fingerprints.get(i), fingerprints.get(j)), matrix[i][j], 1e-12);
+            }
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCalculateMatrix_differentSize() {
+        database.calculateMatrix(new FingerprintDatabase(SIZE + 1));
+    }
+}
@@ -0,0 +1,183 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.similarity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openscience.cdk.CDKConstants;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.fingerprint.IBitFingerprint;
+import org.openscience.cdk.fingerprint.IFingerprinter;
+import org.openscience.cdk.fingerprint.MACCSFingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.templates.MoleculeFactory;
+
+/**
+ * @cdk.module test-fingerprint
+ */
+public class FingerprintStoreTest extends CDKTestCase {
+
+    private static File file;
+    private static List<IAtomContainer> molecules;
+    private static List<IBitFingerprint> fingerprints;
+    private static FingerprintStore store;
+
+    @BeforeClass public static void setUp() throws Exception {
+        molecules = new ArrayList<IAtomContainer>();
+        molecules.add(MoleculeFactory.makeIndole());
+        molecules.add(MoleculeFactory.makePyrrole());
+        molecules.add(MoleculeFactory.makeAlphaPinene());
+        molecules.add(MoleculeFactory.makeAzulene());
+        molecules.add(MoleculeFactory.makeBenzene());
+        molecules.add(MoleculeFactory.makeSteran());
+        molecules.add(MoleculeFactory.makeBiphenyl());
+        molecules.add(MoleculeFactory.makeQuinone());
+        for (int i = 0; i < molecules.size(); i++) {
+            if (i != 3) molecules.get(i).setProperty(CDKConstants.TITLE, "mol\u00e9cule " + i);
+        }
+
+        file = File.createTempFile("fingerprints", ".cfp");
+        Fingerprinter fingerprinter = new Fingerprinter(512, 6);
+        FingerprintStoreWriter writer = new FingerprintStoreWriter(file, fingerprinter);
+        fingerprints = new ArrayList<IBitFingerprint>();
+        for (int i = 0; i < molecules.size(); i++) {
+            Assert.assertEquals(i, writer.write(molecules.get(i)));
+            fingerprints.add(fingerprinter.getBitFingerprint(molecules.get(i)));
+        }
+        writer.close();
+        store = FingerprintStore.open(file);
+    }
+
+    @AfterClass public static void tearDown() {
+        file.delete();
+    }
+
+    @Test public void testOpen() {
+        Assert.assertEquals(Fingerprinter.class.getName(), store.getFingerprinterClassName());
+        Assert.assertEquals(512, store.getSize());
+        Assert.assertEquals(6, store.getSearchDepth());
+        Assert.assertEquals(molecules.size(), store.getFingerprintCount());
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpen_notAStore() throws Exception {
+        File other = File.createTempFile("fingerprints", ".cfp");
+        try {
+            FileOutputStream out = new FileOutputStream(other);
+            out.write("not a fingerprint store".getBytes());
+            out.close();
+            FingerprintStore.open(other);
+        } finally {
+            other.delete();
+        }
+    }
+
+    @Test public void testGetTitle() {
+        Assert.assertEquals("mol\u00e9cule 0", store.getTitle(0));
+        Assert.assertNull(store.getTitle(3));
+        Assert.assertEquals("mol\u00e9cule 7", store.getTitle(7));
+    }
+
+    @Test public void testGetDatabase() {
+        FingerprintDatabase database = store.getDatabase();
+        Assert.assertEquals(molecules.size(), database.getFingerprintCount());
+        for (int i = 0; i < fingerprints.size(); i++) {
+            Assert.assertEquals(fingerprints.get(i).asBitSet(), database.getFingerprint(i).asBitSet());
+            Assert.assertEquals(fingerprints.get(i).cardinality(), database.getCardinality(i));
+        }
+        FingerprintDatabase reference = new FingerprintDatabase(512);
+        for (IBitFingerprint fingerprint : fingerprints) reference.add(fingerprint);
+        for (IBitFingerprint query : fingerprints) {
+            List<FingerprintDatabase.Hit> expected = reference.search(query, 0.3);
+            List<FingerprintDatabase.Hit> actual = database.search(query, 0.3);
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(reference.searchTop(query, 3), database.searchTop(query, 3));
+        }
+    }
+
+    @Test public void testNewFingerprinter() throws Exception {
+        IFingerprinter fingerprinter = store.newFingerprinter();
+        Assert.assertTrue(fingerprinter instanceof Fingerprinter);
+        Assert.assertEquals(512, fingerprinter.getSize());
+        Assert.assertEquals(6, ((Fingerprinter)fingerprinter).getSearchDepth());
+        Assert.assertEquals(fingerprints.get(5), fingerprinter.getBitFingerprint(molecules.get(5)));
+    }
+
+    @Test public void testWrite() throws Exception {
+        File other = File.createTempFile("fingerprints", ".cfp");
+        try {
+            MACCSFingerprinter maccs = new MACCSFingerprinter();
+            FingerprintStoreWriter writer = new FingerprintStoreWriter(other, maccs);
+            IBitFingerprint fingerprint = maccs.getBitFingerprint(MoleculeFactory.makeIndole());
+            Assert.assertEquals(0, writer.write(fingerprint, "indole"));
+            writer.close();
+
+            FingerprintStore store = FingerprintStore.open(other);
+            Assert.assertEquals(-1, store.getSearchDepth());
+            Assert.assertEquals(maccs.getSize(), store.getSize());
+            Assert.assertEquals("indole", store.getTitle(0));
+            Assert.assertEquals(fingerprint.asBitSet(), store.getDatabase().getFingerprint(0).asBitSet());
+            Assert.assertTrue(store.newFingerprinter() instanceof MACCSFingerprinter);
+        } finally {
+            other.delete();
+        }
+    }
+
+    /**
+     * Titles are spooled to a temporary file, which must be removed on close.
+     */
+    @Test public void testWrite_titles() throws Exception {
+        File other = File.createTempFile("fingerprints", ".cfp");
+        try {
+            MACCSFingerprinter maccs = new MACCSFingerprinter();
+            FingerprintStoreWriter writer = new FingerprintStoreWriter(other, maccs);
+            IBitFingerprint fingerprint = maccs.getBitFingerprint(MoleculeFactory.makeIndole());
+            StringBuilder longTitle = new StringBuilder();
+            for (int i = 0; i < 300; i++) longTitle.append("\u00e9");
+            writer.write(fingerprint, "indole");
+            writer.write(fingerprint, longTitle.toString());
+            writer.write(fingerprint, null);
+            writer.write(fingerprint, "x");
+            writer.close();
+            File[] spooled = other.getAbsoluteFile().getParentFile().listFiles();
+            for (File spool : spooled) {
+                Assert.assertFalse(spool.getName().startsWith(other.getName())
+                                   && spool.getName().endsWith(".tmp"));
+            }
+
+            FingerprintStore store = FingerprintStore.open(other);
+            Assert.assertEquals(4, store.getFingerprintCount());
+            Assert.assertEquals("indole", store.getTitle(0));
+            Assert.assertEquals(longTitle.toString(), store.getTitle(1));
+            Assert.assertNull(store.getTitle(2));
+            Assert.assertEquals("x", store.getTitle(3));
+        } finally {
+            other.delete();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/* Copyright (C) 2012  The Chemistry Development Kit (CDK) project
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.smiles.smarts;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openscience.cdk.CDKTestCase;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+
+/**
+ * @cdk.module test-smarts
+ */
+public class SMARTSQuerySetTest extends CDKTestCase {
+
+    private static final String[] SMARTS = {
+        "c1ccccc1", "C=O", "[OH]", "[#7]", "N", "n", "[Cl,Br,I]", "[!#6;!#1]",
+        "C(=O)O", "[$(C=O)]O", "*@*", "[R2]", "[CH3]", "c:n", "C#N", "S(=O)=O",
+        "[N;!$(N-C=O)]", "[c,n]1[c,n][c,n][c,n][c,n][c,n]1", "C=C", "[a;r5]",
+        "C1CCCCC1", "[x2]", "C@C", "[r6]~[r6]", "[C;!R]C", "C1CC1"
+    };
+
+    private static final String[] SMILES = {
+        "c1ccccc1O", "CC(=O)OC(=O)C", "c1ccncc1Cl", "CC(=O)NC", "C1CCC2CCCCC2C1",
+        "CS(=O)(=O)N", "c1ccc2[nH]ccc2c1", "CCC#N", "C=CC=CBr", "OCCO"
+    };
+
+    private static List<IAtomContainer> molecules() throws Exception {
+        SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> molecules = new ArrayList<IAtomContainer>();
+        for (String smiles : SMILES) molecules.add(sp.parseSmiles(smiles));
+        return molecules;
+    }
+
+    @Test public void testMatches() throws Exception {
+        SMARTSQuerySet queries = new SMARTSQuerySet(SMARTS);
+        Assert.assertEquals(SMARTS.length, queries.size());
+        Assert.assertEquals("C=O", queries.getSmarts(1));
+        for (IAtomContainer molecule : molecules()) {
+            BitSet hits = queries.matches(molecule);
+            for (int i = 0; i < SMARTS.length; i++) {
+                SMARTSQueryTool tool = new SMARTSQueryTool(SMARTS[i]);
+                Assert.assertEquals(SMARTS[i], tool.matches(molecule), hits.get(i));
+            }
+        }
+    }
+
+    @Test public void testMatches_counts() throws Exception {
+        int[] counts = new int[SMARTS.length];
+        for (int i = 0; i < counts.length; i++) counts[i] = i % 3;
+        SMARTSQuerySet queries = new SMARTSQuerySet(SMARTS, counts);
+        for (IAtomContainer molecule : molecules()) {
+            BitSet hits = queries.matches(molecule);
+            for (int i = 0; i < SMARTS.length; i++) {
+                SMARTSQueryTool tool = new SMARTSQueryTool(SMARTS[i]);
+                boolean expected = tool.matches(molecule)
+                    && tool.getUniqueMatchingAtoms().size() > counts[i];
+                Assert.assertEquals(SMARTS[i], expected, hits.get(i));
+            }
+        }
+    }
+
+    @Test public void testMatches_duplicates() throws Exception {
+        SMARTSQuerySet queries = new SMARTSQuerySet(new String[]{"C=O", "[OH]", "C=O", "C=O"},
+                                                    new int[]{0, 0, 0, 1});
+        IAtomContainer molecule = new SmilesParser(SilentChemObjectBuilder.getInstance())
+            .parseSmiles("CC(=O)O");
+        BitSet hits = queries.matches(molecule);
+        Assert.assertTrue(hits.get(0));
+        Assert.assertTrue(hits.get(1));
+        Assert.assertTrue(hits.get(2));
+        Assert.assertFalse(hits.get(3));
+    }
+
+    @Test public void testMatches_rings() throws Exception {
+        SMARTSQuerySet queries = new SMARTSQuerySet(new String[]{
+            "C1CCCCC1", "[r6]", "C@C", "[C;!R]", "C1CCCCC1CC1CCCCC1"
+        });
+        SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        BitSet hits = queries.matches(sp.parseSmiles("CCCCCCO"));
+        Assert.assertEquals(1, hits.cardinality());
+        Assert.assertTrue(hits.get(3));
+        hits = queries.matches(sp.parseSmiles("OCC1CCCCC1"));
+        Assert.assertEquals(4, hits.cardinality());
+        Assert.assertFalse(hits.get(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLexicalError() {
+        new SMARTSQuerySet(new String[]{"C=O", "Epoxide"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCounts_length() {
+        new SMARTSQuerySet(new String[]{"C=O", "[OH]"}, new int[]{1});
+    }
+
+    @Test public void testMatches_threads() throws Exception {
+        final SMARTSQuerySet queries = new SMARTSQuerySet(SMARTS);
+        final List<IAtomContainer> molecules = molecules();
+        List<BitSet> expected = new ArrayList<BitSet>();
+        for (IAtomContainer molecule : molecules) expected.add(queries.matches(molecule));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<BitSet>>> futures = new ArrayList<Future<List<BitSet>>>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(new Callable<List<BitSet>>() {
+                    public List<BitSet> call() throws Exception {
+                        SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+                        List<BitSet> hits = new ArrayList<BitSet>();
+                        for (String smiles : SMILES)
+                            hits.add(queries.matches(sp.parseSmiles(smiles)));
+                        return hits;
+                    }
+                }));
+            }
+            for (Future<List<BitSet>> future : futures)
+                Assert.assertEquals(expected, future.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
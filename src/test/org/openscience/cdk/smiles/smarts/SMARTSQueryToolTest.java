@@ -34,7 +34,7 @@ import org.openscience.cdk.config.Elements;
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
-import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.matchers.smarts.RecursiveSmartsCache;
 import org.openscience.cdk.silent.SilentChemObjectBuilder;
 import org.openscience.cdk.smiles.SmilesGenerator;
 import org.openscience.cdk.smiles.SmilesParser;
@@ -164,6 +164,27 @@ public class SMARTSQueryToolTest extends CDKTestCase {
         Assert.assertEquals(1, umatch.size());
     }
 
+    @Test
+    public void testMatches_cache() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer atomContainer = sp.parseSmiles("CC(=O)OCC(=O)N");
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(atomContainer);
+        SMARTSQueryTool ester = new SMARTSQueryTool("[$(C=O)]O");
+        SMARTSQueryTool amide = new SMARTSQueryTool("[$(C=O)]N");
+        Assert.assertTrue(ester.matches(atomContainer, cache));
+        Assert.assertTrue(amide.matches(atomContainer, cache));
+        Assert.assertEquals(1, ester.countMatches());
+        Assert.assertEquals(1, amide.countMatches());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMatches_otherCache() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        RecursiveSmartsCache cache = new RecursiveSmartsCache(sp.parseSmiles("CC=O"));
+        new SMARTSQueryTool("[$(C=O)]").matches(sp.parseSmiles("CC=O"), cache);
+    }
+
     /**
      * Note that we don't test the generated SMILES against the
      * molecule obtained from the factory since the factory derived
@@ -21,6 +21,7 @@
 package org.openscience.cdk.smiles.smarts.parser;
 
 import java.io.InputStream;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -308,6 +309,42 @@ public class RecursiveTest extends CDKTestCase {
     }
 
 
+    /**
+     * Atoms of a nested recursive smarts must not leak into the enclosing
+     * recursive query, see also {@link #testNestedRecursiveSmarts_size()}.
+     */
+    @Test public void testNestedRecursiveSmarts() throws Exception {
+        match("[$(*[!$(a)])]", "CC");
+        Assert.assertEquals(2, nmatch);
+        Assert.assertEquals(2, nqmatch);
+    }
+
+    @Test public void testNestedRecursiveSmarts_size() throws Exception {
+        SMARTSQueryTool sqt = new SMARTSQueryTool("[$([NX3;H2,H1;!$(NC=O)])]");
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer atomContainer = sp.parseSmiles("CC(N)C(=O)NC");
+        Assert.assertTrue(sqt.matches(atomContainer));
+        List<List<Integer>> matches = sqt.getUniqueMatchingAtoms();
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals(1, matches.get(0).size());
+        Assert.assertEquals(2, matches.get(0).get(0).intValue());
+    }
+
+    /**
+     * The 1,3-tautomerizable pattern of the SubstructureFingerprinter.
+     */
+    @Test public void testTautomerizable13() throws Exception {
+        String smarts = "[$([#7X2,OX1,SX1]=*[!H0;!$([a;!n])]),$([#7X3,OX2,SX2;!H0]*=*),$([#7X3,OX2,SX2;!H0]*:n)]";
+        match(smarts, "CC(=O)C");
+        Assert.assertEquals(1, nmatch);
+        Assert.assertEquals(1, nqmatch);
+        match(smarts, "[H]OC([H])=C([H])[H]");
+        Assert.assertEquals(1, nmatch);
+        Assert.assertEquals(1, nqmatch);
+        match(smarts, "CCCC");
+        Assert.assertEquals(0, nmatch);
+    }
+
     @Test public void testBasicAmineOnDrugs() throws Exception {
         String filename = "data/smiles/drugs.smi";
         InputStream ins = this.getClass().getClassLoader().getResourceAsStream(filename);
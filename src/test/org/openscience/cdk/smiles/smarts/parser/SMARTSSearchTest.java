@@ -1576,8 +1576,9 @@ public class SMARTSSearchTest extends CDKTestCase {
         Assert.assertEquals(0, results[0]);
         Assert.assertEquals(0, results[1]);
 
+        // the aromatic atom can only be mapped one way
         results = match("c-C", "CCc1ccccc1");
-        Assert.assertEquals(2, results[0]);
+        Assert.assertEquals(1, results[0]);
         Assert.assertEquals(1, results[1]);
     }
 
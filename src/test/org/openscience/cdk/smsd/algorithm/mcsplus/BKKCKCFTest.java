@@ -24,6 +24,8 @@
 package org.openscience.cdk.smsd.algorithm.mcsplus;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -63,4 +65,48 @@ public class BKKCKCFTest {
         assertNotNull(new BKKCKCF(new ArrayList<Integer>(), new ArrayList<Integer>(), new ArrayList<Integer>()));
     }
 
+    /**
+     * Only the largest cliques are kept, a triangle and not the edges 3-4
+     * and 4-5.
+     */
+    @Test
+    public void testGetMaxCliqueSet() {
+        BKKCKCF cliques = new BKKCKCF(nodes(5), Arrays.asList(1, 2, 1, 3, 2, 3, 3, 4, 4, 5), new ArrayList<Integer>());
+        assertEquals(3, cliques.getBestCliqueSize());
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3)), cliques.getMaxCliqueSet());
+    }
+
+    /**
+     * Two vertices joined by a d-edge join a clique through a c-edge.
+     */
+    @Test
+    public void testGetMaxCliqueSet_dEdges() {
+        BKKCKCF cliques = new BKKCKCF(nodes(4), Arrays.asList(1, 2, 2, 3, 1, 4), Arrays.asList(1, 3));
+        assertEquals(3, cliques.getBestCliqueSize());
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3)), cliques.getMaxCliqueSet());
+    }
+
+    /**
+     * Without edges every vertex is a clique of its own.
+     */
+    @Test
+    public void testGetMaxCliqueSet_singleVertices() {
+        BKKCKCF cliques = new BKKCKCF(nodes(3), new ArrayList<Integer>(), new ArrayList<Integer>());
+        assertEquals(1, cliques.getBestCliqueSize());
+        assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(2), Arrays.asList(3)), cliques.getMaxCliqueSet());
+    }
+
+    /**
+     * Compatibility graph nodes 1 to n, pairing atom i - 1 with atom i - 1.
+     */
+    private static List<Integer> nodes(int n) {
+        List<Integer> nodes = new ArrayList<Integer>();
+        for (int i = 1; i <= n; i++) {
+            nodes.add(i - 1);
+            nodes.add(i - 1);
+            nodes.add(i);
+        }
+        return nodes;
+    }
+
 }
\ No newline at end of file
@@ -23,12 +23,18 @@
 package org.openscience.cdk.smsd.algorithm.mcsplus;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
 import static org.junit.Assert.*;
 
 /**
@@ -62,4 +68,24 @@ public class GenerateCompatibilityGraphTest {
         // TODO review the generated test code and remove the default call to fail.
         assertNotNull(new GenerateCompatibilityGraph(new AtomContainer(), new AtomContainer(), true));
     }
+
+    @Test
+    public void testGetCEgdes() throws IOException, InvalidSmilesException {
+        SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer ethanol = sp.parseSmiles("CCO");
+        GenerateCompatibilityGraph graph = new GenerateCompatibilityGraph(ethanol, ethanol, true);
+        // one node for each atom matched to itself
+        assertEquals(Arrays.asList(0, 0, 1, 1, 1, 2, 2, 2, 3), graph.getCompGraphNodes());
+        assertEquals(Arrays.asList(1, 2, 2, 3), graph.getCEgdes());
+        assertEquals(4, graph.getCEdgesSize());
+        assertTrue(graph.getDEgdes().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetCEgdes_readOnly() throws IOException, InvalidSmilesException {
+        SmilesParser sp = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer ethanol = sp.parseSmiles("CCO");
+        List<Integer> edges = new GenerateCompatibilityGraph(ethanol, ethanol, true).getCEgdes();
+        edges.add(1);
+    }
 }
@@ -22,7 +22,9 @@
 package org.openscience.cdk.smsd.algorithm.mcsplus;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,6 +42,7 @@ import org.openscience.cdk.io.IChemObjectReader.Mode;
 import org.openscience.cdk.io.MDLV2000Reader;
 import org.openscience.cdk.smiles.SmilesParser;
 import org.openscience.cdk.smsd.Isomorphism;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.interfaces.AbstractMCSAlgorithmTest;
 import org.openscience.cdk.smsd.interfaces.Algorithm;
 import org.openscience.cdk.smsd.tools.MolHandler;
@@ -230,4 +233,67 @@ public class MCSPlusHandlerTest extends AbstractMCSAlgorithmTest {
 
         assertEquals(7, smsd1.getFirstMapping().size());
     }
+
+    /**
+     * Test of searchMCS method within the time out of a job, which is
+     * cancelled in the second search.
+     * @throws InvalidSmilesException
+     */
+    @Test
+    public void testSearchMCS_timeOut() throws InvalidSmilesException {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer target = sp.parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+        IAtomContainer queryac = sp.parseSmiles("Nc1ccccc1");
+
+        TimeOut timeOut = new TimeOut(-1);
+        MCSPlusHandler smsd1 = new MCSPlusHandler(timeOut);
+        smsd1.set(new MolHandler(queryac, true, true), new MolHandler(target, true, true));
+        smsd1.searchMCS(true);
+        assertEquals(7, smsd1.getFirstMapping().size());
+        assertFalse(timeOut.isTimeOutFlag());
+
+        timeOut = new TimeOut(-1);
+        timeOut.cancel();
+        smsd1 = new MCSPlusHandler(timeOut);
+        smsd1.set(new MolHandler(queryac, true, true), new MolHandler(target, true, true));
+        smsd1.searchMCS(true);
+        assertTrue(timeOut.isTimeOutFlag());
+        // the search stops at the first check of the time out
+        assertTrue(smsd1.getFirstMapping().size() < 7);
+    }
+
+    /**
+     * Test that a long search of the MCS of two fullerenes stops promptly
+     * when its job is cancelled from another thread.
+     * @throws Exception
+     */
+    @Test(timeout = 30000)
+    public void testSearchMCS_cancel() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        String fullerene = "C12C3C4C5C1C6C7C8C2C9C%10C3C%11C%12C4C%13C%14C5C%15C6C%16C7C%17C%18C8C9C%19C%20C%10"
+                + "C%11C%21C%22C%12C%13C%23C%24C%14C%15C%25C%16C%26C%17C%27C%18C%19C%28C%20C%21C%29C%22C%23C%30"
+                + "C%24C%25C%26C%31C%27C%28C%29C%30C%31";
+        IAtomContainer queryac = sp.parseSmiles(fullerene);
+        IAtomContainer target = sp.parseSmiles(fullerene);
+
+        TimeOut timeOut = new TimeOut(-1);
+        final MCSPlusHandler smsd1 = new MCSPlusHandler(timeOut);
+        smsd1.set(new MolHandler(queryac, true, true), new MolHandler(target, true, true));
+        Thread search = new Thread() {
+            public void run() {
+                smsd1.searchMCS(false);
+            }
+        };
+        search.setDaemon(true);
+        search.start();
+        search.join(500);
+        assertTrue("the search should take longer than half a second", search.isAlive());
+
+        long start = System.currentTimeMillis();
+        timeOut.cancel();
+        search.join(5000);
+        assertFalse(search.isAlive());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(timeOut.isTimeOutFlag());
+    }
 }
@@ -22,7 +22,9 @@
 package org.openscience.cdk.smsd.algorithm.rgraph;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,6 +42,7 @@ import org.openscience.cdk.io.IChemObjectReader.Mode;
 import org.openscience.cdk.io.MDLV2000Reader;
 import org.openscience.cdk.smiles.SmilesParser;
 import org.openscience.cdk.smsd.Isomorphism;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.smsd.interfaces.AbstractMCSAlgorithmTest;
 import org.openscience.cdk.smsd.interfaces.Algorithm;
 import org.openscience.cdk.smsd.tools.MolHandler;
@@ -233,4 +236,31 @@ public class CDKMCSHandlerTest extends AbstractMCSAlgorithmTest {
 
         assertEquals(7, smsd1.getFirstMapping().size());
     }
+
+    /**
+     * Test of searchMCS method within the time out of a job, which is
+     * cancelled in the second search.
+     * @throws InvalidSmilesException
+     */
+    @Test
+    public void testSearchMCS_timeOut() throws InvalidSmilesException {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer target = sp.parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+        IAtomContainer queryac = sp.parseSmiles("Nc1ccccc1");
+
+        TimeOut timeOut = new TimeOut(-1);
+        CDKMCSHandler smsd1 = new CDKMCSHandler(timeOut);
+        smsd1.set(new MolHandler(queryac, true, true), new MolHandler(target, true, true));
+        smsd1.searchMCS(true);
+        assertEquals(7, smsd1.getFirstMapping().size());
+        assertFalse(timeOut.isTimeOutFlag());
+
+        timeOut = new TimeOut(-1);
+        timeOut.cancel();
+        smsd1 = new CDKMCSHandler(timeOut);
+        smsd1.set(new MolHandler(queryac, true, true), new MolHandler(target, true, true));
+        smsd1.searchMCS(true);
+        assertTrue(timeOut.isTimeOutFlag());
+        assertTrue(smsd1.getFirstMapping().isEmpty());
+    }
 }
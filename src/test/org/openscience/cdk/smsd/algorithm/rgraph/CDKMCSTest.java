@@ -26,6 +26,7 @@
 package org.openscience.cdk.smsd.algorithm.rgraph;
 
 import java.io.InputStream;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -52,7 +53,7 @@ import org.openscience.cdk.isomorphism.matchers.QueryAtomContainerCreator;
 import org.openscience.cdk.isomorphism.matchers.SymbolQueryAtom;
 import org.openscience.cdk.isomorphism.matchers.smarts.AnyAtom;
 import org.openscience.cdk.smiles.SmilesParser;
-import org.openscience.cdk.smsd.tools.TimeManager;
+import org.openscience.cdk.smsd.global.TimeOut;
 import org.openscience.cdk.templates.MoleculeFactory;
 import org.openscience.cdk.tools.CDKHydrogenAdder;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
@@ -467,23 +468,22 @@ public class CDKMCSTest extends CDKTestCase {
     }
 
     /**
-     * Test of getTimeManager method, of class CDKMCS.
+     * Test of search method within the time out of a job: a cancelled job
+     * stops before the first solution.
+     * @throws Exception
      */
     @Test
-    public void testGetTimeManager() {
-        System.out.println("getTimeManager");
-        TimeManager expResult = new TimeManager();
-        Assert.assertNotNull(expResult);
-    }
+    public void testSearch_timeOut() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer target = sp.parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+        IAtomContainer query = sp.parseSmiles("Nc1ccccc1");
 
-    /**
-     * Test of setTimeManager method, of class CDKMCS.
-     */
-    @Test
-    public void testSetTimeManager() {
-        System.out.println("setTimeManager");
-        TimeManager aTimeManager = new TimeManager();
-        CDKMCS.setTimeManager(aTimeManager);
-        Assert.assertNotNull(CDKMCS.getTimeManager().getElapsedTimeInSeconds());
+        TimeOut timeOut = new TimeOut(-1);
+        Assert.assertFalse(CDKMCS.search(target, query, new BitSet(), new BitSet(), true, true, true, timeOut).isEmpty());
+        Assert.assertFalse(timeOut.isTimeOutFlag());
+
+        timeOut.cancel();
+        Assert.assertTrue(CDKMCS.search(target, query, new BitSet(), new BitSet(), true, true, true, timeOut).isEmpty());
+        Assert.assertTrue(timeOut.isTimeOutFlag());
     }
 }
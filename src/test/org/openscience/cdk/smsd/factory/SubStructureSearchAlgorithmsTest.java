@@ -24,6 +24,11 @@ package org.openscience.cdk.smsd.factory;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.openscience.cdk.DefaultChemObjectBuilder;
@@ -383,4 +388,232 @@ public class SubStructureSearchAlgorithmsTest {
 
         assertEquals(score, smsd2.getEuclideanDistance(), 0.005);
     }
+
+    /**
+     * Test of isTimeOut method: each instance has its own time out.
+     * @throws Exception
+     */
+    @Test
+    public void testIsTimeOut() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer target = sp.parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+        IAtomContainer queryac = sp.parseSmiles("Nc1ccccc1");
+
+        Isomorphism smsd1 = new Isomorphism(Algorithm.CDKMCS, true);
+        Isomorphism smsd2 = new Isomorphism(Algorithm.CDKMCS, true);
+        smsd1.cancel();
+        smsd1.init(queryac, target, true, true);
+        smsd2.init(queryac, target, true, true);
+        Assert.assertTrue(smsd1.isTimeOut());
+        Assert.assertFalse(smsd2.isTimeOut());
+        smsd1.resetTimeOut();
+        Assert.assertFalse(smsd1.isTimeOut());
+    }
+
+    /**
+     * Test of cancel method: the search of a cancelled instance stops, the
+     * searches of other instances do not.
+     * @throws Exception
+     */
+    @Test
+    public void testCancel() throws Exception {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer target = sp.parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+        IAtomContainer queryac = sp.parseSmiles("Nc1ccccc1");
+
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.CDKMCS, Algorithm.VFLibMCS}) {
+            Isomorphism cancelled = new Isomorphism(algorithm, true);
+            cancelled.cancel();
+            cancelled.init(queryac, target, true, true);
+            Assert.assertTrue(cancelled.isTimeOut());
+            Assert.assertNull(cancelled.getFirstAtomMapping());
+
+            Isomorphism smsd1 = new Isomorphism(algorithm, true);
+            smsd1.init(queryac, target, true, true);
+            Assert.assertFalse(smsd1.isTimeOut());
+            assertEquals(7, smsd1.getFirstAtomMapping().size());
+        }
+    }
+
+    /**
+     * Searches on several threads give the mappings of the same searches run
+     * one after another.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentSearches() throws Exception {
+        final String[][] pairs = {
+            {"Nc1ccccc1", "C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C"},
+            {"CCCOCC(C)=C", "C\\C=C/OCC=C"},
+            {"c1ccc2ccccc2c1", "OC(=O)c1ccc2ccccc2c1"},
+            {"CC(=O)Oc1ccccc1C(O)=O", "CC(=O)Nc1ccc(O)cc1"}
+        };
+        final Algorithm[] algorithms = {Algorithm.DEFAULT, Algorithm.MCSPlus, Algorithm.VFLibMCS, Algorithm.CDKMCS};
+        final int[][] expected = new int[pairs.length][algorithms.length];
+        for (int i = 0; i < pairs.length; i++) {
+            for (int j = 0; j < algorithms.length; j++) {
+                expected[i][j] = mcsSize(pairs[i], algorithms[j]);
+            }
+        }
+
+        final int[][] sizes = new int[pairs.length][algorithms.length];
+        final Exception[] failure = new Exception[1];
+        Thread[] threads = new Thread[pairs.length * algorithms.length];
+        for (int i = 0; i < pairs.length; i++) {
+            for (int j = 0; j < algorithms.length; j++) {
+                final int pair = i;
+                final int algorithm = j;
+                threads[i * algorithms.length + j] = new Thread() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            for (int k = 0; k < 5; k++) {
+                                sizes[pair][algorithm] = mcsSize(pairs[pair], algorithms[algorithm]);
+                                if (sizes[pair][algorithm] != expected[pair][algorithm]) {
+                                    return;
+                                }
+                            }
+                        } catch (Exception e) {
+                            failure[0] = e;
+                        }
+                    }
+                };
+            }
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertNull(failure[0]);
+        for (int i = 0; i < pairs.length; i++) {
+            for (int j = 0; j < algorithms.length; j++) {
+                assertEquals(pairs[i][0] + " " + pairs[i][1] + " " + algorithms[j],
+                        expected[i][j], sizes[i][j]);
+            }
+        }
+    }
+
+    /**
+     * The portfolio finds a mapping of the size the algorithms find on their
+     * own, and reports which of them found it.
+     * @throws Exception
+     */
+    @Test
+    public void testPortfolio() throws Exception {
+        String[][] pairs = {
+            {"Nc1ccccc1", "C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C"},
+            {"CCCOCC(C)=C", "C\\C=C/OCC=C"},
+            {"c1ccc2ccccc2c1", "OC(=O)c1ccc2ccccc2c1"},
+            {"CC(=O)Oc1ccccc1C(O)=O", "CC(=O)Nc1ccc(O)cc1"}
+        };
+        // fewer threads than algorithms in the portfolio
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+            for (String[] pair : pairs) {
+                Isomorphism smsd1 = new Isomorphism(Algorithm.Portfolio, true);
+                smsd1.setExecutor(executor);
+                smsd1.init(sp.parseSmiles(pair[0]), sp.parseSmiles(pair[1]), true, true);
+                Assert.assertFalse(smsd1.isTimeOut());
+                Assert.assertTrue(Arrays.asList(Algorithm.MCSPlus, Algorithm.VFLibMCS, Algorithm.CDKMCS).contains(smsd1.getAlgorithmUsed()));
+                assertEquals(pair[0] + " " + pair[1], mcsSize(pair, smsd1.getAlgorithmUsed()),
+                        smsd1.getFirstAtomMapping().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // without an executor
+        Isomorphism smsd1 = new Isomorphism(Algorithm.Portfolio, true);
+        smsd1.init(sp().parseSmiles(pairs[0][0]), sp().parseSmiles(pairs[0][1]), true, true);
+        assertEquals(7, smsd1.getFirstAtomMapping().size());
+
+        Isomorphism cancelled = new Isomorphism(Algorithm.Portfolio, true);
+        cancelled.cancel();
+        cancelled.init(sp().parseSmiles(pairs[0][0]), sp().parseSmiles(pairs[0][1]), true, true);
+        Assert.assertTrue(cancelled.isTimeOut());
+    }
+
+    /**
+     * A cancelled portfolio search of two fullerenes returns promptly, and
+     * its algorithms leave the threads of the executor.
+     * @throws Exception
+     */
+    @Test(timeout = 60000)
+    public void testPortfolio_cancel() throws Exception {
+        String fullerene = "C12C3C4C5C1C6C7C8C2C9C%10C3C%11C%12C4C%13C%14C5C%15C6C%16C7C%17C%18C8C9C%19C%20C%10"
+                + "C%11C%21C%22C%12C%13C%23C%24C%14C%15C%25C%16C%26C%17C%27C%18C%19C%28C%20C%21C%29C%22C%23C%30"
+                + "C%24C%25C%26C%31C%27C%28C%29C%30C%31";
+        final IAtomContainer queryac = sp().parseSmiles(fullerene);
+        final IAtomContainer target = sp().parseSmiles(fullerene);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Isomorphism smsd1 = new Isomorphism(Algorithm.Portfolio, false);
+            smsd1.setExecutor(executor);
+            final Exception[] failure = new Exception[1];
+            Thread search = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        smsd1.init(queryac, target, true, true);
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+            search.start();
+            search.join(1000);
+            Assert.assertTrue("the search should take longer than a second", search.isAlive());
+
+            smsd1.cancel();
+            search.join(5000);
+            Assert.assertFalse(search.isAlive());
+            Assert.assertNull(failure[0]);
+            Assert.assertTrue(smsd1.isTimeOut());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test of getAlgorithmUsed method, of class Isomorphism.
+     * @throws Exception
+     */
+    @Test
+    public void testGetAlgorithmUsed() throws Exception {
+        IAtomContainer queryac = sp().parseSmiles("Nc1ccccc1");
+        IAtomContainer target = sp().parseSmiles("C\\C=C/Nc1cccc(c1)N(O)\\C=C\\C\\C=C\\C=C/C");
+
+        Isomorphism smsd1 = new Isomorphism(Algorithm.DEFAULT, true);
+        Assert.assertNull(smsd1.getAlgorithmUsed());
+        smsd1.init(queryac, target, true, true);
+        assertEquals(Algorithm.CDKMCS, smsd1.getAlgorithmUsed());
+
+        smsd1 = new Isomorphism(Algorithm.VFLibMCS, true);
+        smsd1.init(queryac, target, true, true);
+        assertEquals(Algorithm.VFLibMCS, smsd1.getAlgorithmUsed());
+
+        // without bonds the atoms are mapped one by one
+        smsd1 = new Isomorphism(Algorithm.Portfolio, true);
+        smsd1.init(sp().parseSmiles("N"), target, true, true);
+        assertEquals(Algorithm.DEFAULT, smsd1.getAlgorithmUsed());
+    }
+
+    private static SmilesParser sp() {
+        return new SmilesParser(DefaultChemObjectBuilder.getInstance());
+    }
+
+    private static int mcsSize(String[] pair, Algorithm algorithm) throws CDKException {
+        SmilesParser sp = new SmilesParser(DefaultChemObjectBuilder.getInstance());
+        IAtomContainer queryac = sp.parseSmiles(pair[0]);
+        IAtomContainer target = sp.parseSmiles(pair[1]);
+        Isomorphism smsd1 = new Isomorphism(algorithm, true);
+        smsd1.init(queryac, target, true, true);
+        return smsd1.getFirstAtomMapping() == null ? 0 : smsd1.getFirstAtomMapping().size();
+    }
 }
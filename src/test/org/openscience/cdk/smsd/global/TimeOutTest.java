@@ -91,4 +91,61 @@ public class TimeOutTest {
         boolean result = instance.isTimeOutFlag();
         assertNotSame(expResult, result);
     }
+
+    @Test
+    public void testTimeOut() {
+        TimeOut timeOut = new TimeOut(0.5);
+        assertEquals(0.5, timeOut.getTimeOut(), 0.0001);
+        assertFalse(timeOut.isTimeOut());
+        assertFalse(timeOut.isTimeOutFlag());
+        // a job's time out is not the shared one
+        assertNotSame(TimeOut.getInstance(), timeOut);
+    }
+
+    @Test
+    public void testIsTimeOut() throws InterruptedException {
+        TimeOut timeOut = new TimeOut(0);
+        Thread.sleep(5);
+        assertTrue(timeOut.isTimeOut());
+        assertTrue(timeOut.isTimeOutFlag());
+
+        timeOut = new TimeOut(-1);
+        Thread.sleep(5);
+        assertFalse(timeOut.isTimeOut());
+        assertFalse(timeOut.isTimeOutFlag());
+
+        // a search stops when its thread is interrupted
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(timeOut.isTimeOut());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(timeOut.isTimeOut());
+    }
+
+    @Test
+    public void testStart() throws InterruptedException {
+        TimeOut timeOut = new TimeOut(0);
+        Thread.sleep(5);
+        assertTrue(timeOut.isTimeOut());
+        timeOut.setTimeOut(1);
+        timeOut.start();
+        assertFalse(timeOut.isTimeOutFlag());
+        assertFalse(timeOut.isTimeOut());
+    }
+
+    @Test
+    public void testCancel() {
+        TimeOut timeOut = new TimeOut(-1);
+        assertFalse(timeOut.isCancelled());
+        timeOut.cancel();
+        assertTrue(timeOut.isCancelled());
+        assertTrue(timeOut.isTimeOut());
+        // a cancelled job stays cancelled
+        timeOut.start();
+        assertTrue(timeOut.isTimeOutFlag());
+        assertTrue(timeOut.isTimeOut());
+    }
 }